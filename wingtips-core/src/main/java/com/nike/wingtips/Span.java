@@ -1,6 +1,8 @@
 package com.nike.wingtips;
 
+import com.nike.wingtips.clock.SpanClock;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.tags.WingtipsTags;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
 import com.nike.wingtips.util.parser.SpanParser;
 
@@ -8,7 +10,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -56,6 +69,30 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @SuppressWarnings("WeakerAccess")
 public class Span implements Closeable, Serializable {
 
+    // Matches the serialVersionUID that was implicitly generated for Span back when it used default Java
+    //      serialization, so that payloads written by older versions can still be deserialized. See readObject().
+    private static final long serialVersionUID = -1530627672299573280L;
+
+    private static final Logger logger = LoggerFactory.getLogger(Span.class);
+
+    // Describes the fields that older versions of Wingtips wrote when spans used default Java serialization. New
+    //      payloads are written via SerializedSpanForm, so these are only used for reading legacy payloads.
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("traceId", String.class),
+        new ObjectStreamField("spanId", String.class),
+        new ObjectStreamField("parentSpanId", String.class),
+        new ObjectStreamField("spanName", String.class),
+        new ObjectStreamField("sampleable", boolean.class),
+        new ObjectStreamField("userId", String.class),
+        new ObjectStreamField("spanPurpose", SpanPurpose.class),
+        new ObjectStreamField("spanStartTimeEpochMicros", long.class),
+        new ObjectStreamField("spanStartTimeNanos", long.class),
+        new ObjectStreamField("durationNanos", Long.class),
+        new ObjectStreamField("tags", Map.class),
+        new ObjectStreamField("annotations", List.class),
+        new ObjectStreamField("completedFlag", AtomicBoolean.class)
+    };
+
     private final String traceId;
     private final String spanId;
     private final String parentSpanId;
@@ -65,21 +102,35 @@ public class Span implements Closeable, Serializable {
     private final SpanPurpose spanPurpose;
     private final long spanStartTimeEpochMicros;
     private final long spanStartTimeNanos;
-    // The default initial capacity (16) and load factor (0.75) is enough space to handle the ZipkinHttpTagStrategy
-    //      tags plus a few extra without any internal rehashing of the map as tags are added.
-    //      This seems about right for most use cases, so we'll leave the default settings.
-    private final Map<String,String> tags = new LinkedHashMap<>();
-    private final Map<String,String> unmodifiableTags = Collections.unmodifiableMap(tags);
+    // Typed tag values (long/boolean/double) are stored in primitive form and only converted to strings when
+    //      something asks for the string form (i.e. serialization). See SpanTags for details.
+    private final SpanTags tags = new SpanTags();
     // The default initial capacity (10) seems ok for the annotations list.
     private final List<TimestampedAnnotation> annotations = new ArrayList<>();
     private final List<TimestampedAnnotation> unmodifiableAnnotations = Collections.unmodifiableList(annotations);
 
+    // Counts of data that was dropped or truncated on this span due to SpanLimits.
+    private int numDroppedTags;
+    private int numDroppedAnnotations;
+    private int numTruncatedValues;
+
     private Long durationNanos;
     // Used to prevent two threads from trying to close the span at the same time.
     private final AtomicBoolean completedFlag = new AtomicBoolean(false);
 
-    private String cachedJsonRepresentation;
-    private String cachedKeyValueRepresentation;
+    private transient String cachedJsonRepresentation;
+    private transient String cachedKeyValueRepresentation;
+
+    // Only used when deserializing a legacy (default Java serialization) payload. See readObject().
+    private transient Span legacyDeserializedSpan;
+
+    // Only set on summarized sub-spans (see isSummarizedSubSpan()). Points at the nearest sampled ancestor span that
+    //      this sub-span's timing is summarized into.
+    private transient Span summarizedInto;
+    // Per-span-name {count, total duration nanos, max duration nanos} of the summarized sub-spans that completed under
+    //      this span. Lazily created, and guarded by synchronizing on this span since summarized sub-spans may complete
+    //      on other threads.
+    private transient Map<String, long[]> summarizedSubSpanStats;
 
     /**
      * Represents a span's intended purpose in the distributed trace. This is not strictly necessary for distributed tracing to work, but it
@@ -144,10 +195,12 @@ public class Span implements Closeable, Serializable {
         this.spanStartTimeEpochMicros = spanStartTimeEpochMicros;
         if (spanStartTimeNanos == null) {
             // No start time nanos was sent. Calculate it as best we can based on spanStartTimeEpochMicros, the current epoch time, and current nano time.
-            long currentTimeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            SpanClock clock = SpanClock.getGlobalClock();
+            long currentNanoTime = clock.nanoTime();
+            long currentTimeEpochMicros = clock.toEpochMicros(currentNanoTime);
             long currentDurationMicros = currentTimeEpochMicros - spanStartTimeEpochMicros;
             long nanoStartTimeOffset = TimeUnit.MICROSECONDS.toNanos(currentDurationMicros);
-            spanStartTimeNanos = System.nanoTime() - nanoStartTimeOffset;
+            spanStartTimeNanos = currentNanoTime - nanoStartTimeOffset;
         }
         this.spanStartTimeNanos = spanStartTimeNanos;
 
@@ -158,12 +211,20 @@ public class Span implements Closeable, Serializable {
 
         this.spanPurpose = spanPurpose;
         
-        if(tags != null) {
-            this.tags.putAll(tags);
-        }
+        if (tags != null || annotations != null) {
+            SpanLimits limits = SpanLimits.getGlobalSpanLimits();
 
-        if (annotations != null) {
-            this.annotations.addAll(annotations);
+            if (tags != null) {
+                for (Map.Entry<String, String> tag : tags.entrySet()) {
+                    putStringTagWithLimits(tag.getKey(), tag.getValue(), limits);
+                }
+            }
+
+            if (annotations != null) {
+                for (TimestampedAnnotation annotation : annotations) {
+                    addAnnotationWithLimits(annotation, limits);
+                }
+            }
         }
     }
 
@@ -211,10 +272,8 @@ public class Span implements Closeable, Serializable {
         //      parent annotation, even though the child event must have strictly happened before the parent event in
         //      reality). Between systems, those kinds of oddities are easily explained by clock drift. But on the
         //      same system, it can be a head-scratcher.
-        long currentNanoTime = System.nanoTime();
-        long nanosSinceParentStart = currentNanoTime - this.spanStartTimeNanos;
-        long childStartTimeEpochMicros =
-            this.spanStartTimeEpochMicros + TimeUnit.NANOSECONDS.toMicros(nanosSinceParentStart);
+        long currentNanoTime = SpanClock.getGlobalClock().nanoTime();
+        long childStartTimeEpochMicros = calculateChildStartTimeEpochMicros(currentNanoTime);
 
         String parentSpanIdForChild = this.getSpanId();
         boolean addBadParentIdIndicatorTag = false;
@@ -236,13 +295,101 @@ public class Span implements Closeable, Serializable {
         if (addBadParentIdIndicatorTag) {
             childBuilder.withTag(
                 HttpRequestTracingUtils.CHILD_OF_SPAN_FROM_HEADERS_WHERE_CALLER_DID_NOT_SEND_SPAN_ID_TAG_KEY,
-                "true"
+                true
             );
         }
 
         return childBuilder.build();
     }
 
+    /**
+     * Creates a summarized sub-span of this span - see {@link #isSummarizedSubSpan()}. The returned span shares the
+     * trace ID, span ID, parent span ID, sampleable flag, and user ID of the nearest span that is not itself
+     * summarized (this span, or the span this span is summarized into), so anything that reads the IDs of the current
+     * span while the summarized sub-span is active (logger MDC, outbound tracing headers, child spans) links to that
+     * nearest recorded span.
+     *
+     * <p>NOTE: This is intentionally package scoped - summarized sub-spans are created by {@link
+     * Tracer#startSubSpan(String, SpanPurpose)} based on its {@link
+     * com.nike.wingtips.sampling.SubSpanSamplingStrategy}.
+     */
+    /*package*/ Span generateSummarizedChildSpan(String spanName, SpanPurpose spanPurpose) {
+        Span summaryTarget = getSummarizedIntoOrSelf();
+        long currentNanoTime = SpanClock.getGlobalClock().nanoTime();
+
+        Span summarizedChild = Span.newBuilder(spanName, spanPurpose)
+                                   .withTraceId(summaryTarget.getTraceId())
+                                   .withSampleable(summaryTarget.isSampleable())
+                                   .withUserId(summaryTarget.getUserId())
+                                   .withParentSpanId(summaryTarget.getParentSpanId())
+                                   .withSpanId(summaryTarget.getSpanId())
+                                   .withSpanStartTimeEpochMicros(calculateChildStartTimeEpochMicros(currentNanoTime))
+                                   .withSpanStartTimeNanos(currentNanoTime)
+                                   .withDurationNanos(null)
+                                   .build();
+        summarizedChild.summarizedInto = summaryTarget;
+        return summarizedChild;
+    }
+
+    private long calculateChildStartTimeEpochMicros(long childStartTimeNanos) {
+        long nanosSinceParentStart = childStartTimeNanos - this.spanStartTimeNanos;
+        return this.spanStartTimeEpochMicros + TimeUnit.NANOSECONDS.toMicros(nanosSinceParentStart);
+    }
+
+    /**
+     * @return The span this summarized sub-span is summarized into, or this span if it is not a summarized sub-span.
+     */
+    /*package*/ Span getSummarizedIntoOrSelf() {
+        return (summarizedInto == null) ? this : summarizedInto;
+    }
+
+    /**
+     * Adds a completed summarized sub-span to this span's per-span-name summary. Safe to call from any thread.
+     */
+    /*package*/ void recordSummarizedSubSpan(String subSpanName, long subSpanDurationNanos) {
+        synchronized (this) {
+            if (summarizedSubSpanStats == null) {
+                summarizedSubSpanStats = new LinkedHashMap<>();
+            }
+
+            long[] stats = summarizedSubSpanStats.get(subSpanName);
+            if (stats == null) {
+                stats = new long[3];
+                summarizedSubSpanStats.put(subSpanName, stats);
+            }
+
+            stats[0]++;
+            stats[1] += subSpanDurationNanos;
+            if (subSpanDurationNanos > stats[2]) {
+                stats[2] = subSpanDurationNanos;
+            }
+        }
+    }
+
+    /**
+     * Attaches this span's summarized sub-span summary (if any) as tags, and resets the summary. {@link Tracer} calls
+     * this when this span completes. See {@link WingtipsTags#SUMMARIZED_SUB_SPAN_TAG_PREFIX} for the tag format.
+     */
+    /*package*/ void addSummarizedSubSpanTags() {
+        Map<String, long[]> statsBySpanName;
+        synchronized (this) {
+            statsBySpanName = summarizedSubSpanStats;
+            summarizedSubSpanStats = null;
+        }
+
+        if (statsBySpanName == null) {
+            return;
+        }
+
+        for (Map.Entry<String, long[]> entry : statsBySpanName.entrySet()) {
+            String tagKeyPrefix = WingtipsTags.SUMMARIZED_SUB_SPAN_TAG_PREFIX + entry.getKey();
+            long[] stats = entry.getValue();
+            putTag(tagKeyPrefix + WingtipsTags.SUMMARIZED_SUB_SPAN_COUNT_TAG_SUFFIX, stats[0]);
+            putTag(tagKeyPrefix + WingtipsTags.SUMMARIZED_SUB_SPAN_TOTAL_DURATION_NANOS_TAG_SUFFIX, stats[1]);
+            putTag(tagKeyPrefix + WingtipsTags.SUMMARIZED_SUB_SPAN_MAX_DURATION_NANOS_TAG_SUFFIX, stats[2]);
+        }
+    }
+
     /**
      * @param spanName The {@link Span#getSpanName()} to initialize the builder with.
      * @param spanPurpose The {@link SpanPurpose} to initialize the builder with. See the javadocs for {@link SpanPurpose} for full details on what each enum
@@ -257,7 +404,9 @@ public class Span implements Closeable, Serializable {
 
     /**
      * @return A new span builder that has all its fields copied from the given {@link Span}. If you call {@link Builder#build()} immediately on the returned builder you'd
-     *          end up with an exact duplicate of the given span.
+     *          end up with an exact duplicate of the given span. The given span's tags are not copied up front - the builder and
+     *          the span(s) it builds share the given span's tag storage, and each only takes its own copy the first time its tags
+     *          are changed. This makes it cheap to derive lots of spans from a "template" span that carries static tags.
      */
     public static Builder newBuilder(Span copy) {
         Builder builder = new Builder(copy.spanName, copy.spanPurpose);
@@ -269,16 +418,20 @@ public class Span implements Closeable, Serializable {
         builder.spanStartTimeEpochMicros = copy.spanStartTimeEpochMicros;
         builder.spanStartTimeNanos = copy.spanStartTimeNanos;
         builder.durationNanos = copy.durationNanos;
-        builder.tags = new LinkedHashMap<>(copy.tags);
-        builder.annotations = new ArrayList<>(copy.annotations);
+        builder.tags = new SpanTags(copy.tags);
+        // The tags are shared copy-on-write style with the span being copied (see SpanTags), so neither the builder
+        //      nor the span it builds will copy them unless they're changed.
+        if (!copy.annotations.isEmpty()) {
+            builder.annotations = new ArrayList<>(copy.annotations);
+        }
         return builder;
     }
 
     /**
      * @return The ID associated with the overall distributed trace - a.k.a. the trace tree ID. All spans in a distributed trace will share the same trace ID.
      *          Don't confuse this with {@link #getSpanId()}, which is the ID for an individual span of work as part of the larger distributed trace. This will never
-     *          be null. NOTE: By convention this will likely be a 16 character lowercase hex-encoded 64-bit long-integer value
-     *          (see {@link TraceAndSpanIdGenerator#generateId()} for details).
+     *          be null. NOTE: By convention this will likely be a 16 character lowercase hex-encoded 64-bit long-integer value, or a 32 character
+     *          lowercase hex-encoded 128-bit value (see {@link TraceAndSpanIdGenerator#generateTraceId()} for details).
      */
     public String getTraceId() {
         return traceId;
@@ -349,17 +502,19 @@ public class Span implements Closeable, Serializable {
     }
 
     /**
-     * @return The start timestamp of the span in epoch microseconds (*not* milliseconds!). NOTE: Due to java limitations this currently only has millisecond
-     *          resolution (i.e. this was generated by converting {@link System#currentTimeMillis()} to microseconds), however other timestamps generated
-     *          for this span will be generated relative to this starting timestamp using microsecond resolution by utilizing {@link System#nanoTime()} to
-     *          calculate differences.
+     * @return The start timestamp of the span in epoch microseconds (*not* milliseconds!). For new spans this comes from
+     *          {@link SpanClock#getGlobalClock()} - the default {@link com.nike.wingtips.clock.AnchoredSpanClock} provides microsecond resolution,
+     *          while {@link com.nike.wingtips.clock.SystemSpanClock} only has millisecond resolution (i.e. {@link System#currentTimeMillis()}
+     *          converted to microseconds). Other timestamps generated for this span will be generated relative to this starting timestamp using
+     *          microsecond resolution by utilizing the clock's nanosecond counter to calculate differences.
      */
     public long getSpanStartTimeEpochMicros() {
         return spanStartTimeEpochMicros;
     }
 
     /**
-     * @return The start time of the span - calculated by calling {@link System#nanoTime()} when the constructor for this instance was called. WARNING: As per the
+     * @return The start time of the span - calculated by calling {@link SpanClock#nanoTime()} (which is {@link System#nanoTime()} for all the non-test
+     *          clocks) when the constructor for this instance was called. WARNING: As per the
      *          javadocs for {@link System#nanoTime()} this value is *NOT* an epoch value like {@link System#currentTimeMillis()} - it is only usable when
      *          comparing against other {@link System#nanoTime()} calls performed on the *same JVM*.
      */
@@ -404,7 +559,19 @@ public class Span implements Closeable, Serializable {
         }
 
         // This span wasn't already completed, so do it now.
-        this.durationNanos = System.nanoTime() - spanStartTimeNanos;
+        this.durationNanos = SpanClock.getGlobalClock().nanoTime() - spanStartTimeNanos;
+        // Deferred tag values usually reference request/response objects that the framework may recycle once the
+        //      request finishes, so nothing may evaluate them after this point.
+        if (sampleable) {
+            // Sampled spans are about to be handed to span loggers, exporters, and sinks, some of which serialize on
+            //      other threads. So evaluate deferred tag values now, on the completing thread.
+            tags.resolveDeferredValues();
+        }
+        else {
+            // Non-sampled spans won't be exported, so drop any deferred values nobody has read yet rather than paying
+            //      to compute them. This also releases the references they hold.
+            tags.removeDeferredValues();
+        }
         // This span's state changed, so clear the cached serialized representations.
         clearCachedDataDueToStateChange();
         return true;
@@ -425,6 +592,19 @@ public class Span implements Closeable, Serializable {
         return durationNanos;
     }
 
+    /**
+     * @return true if this is a summarized sub-span, false otherwise. Summarized sub-spans are created by {@link
+     * Tracer#startSubSpan(String, SpanPurpose)} in place of normal sub-spans when the tracer's {@link
+     * com.nike.wingtips.sampling.SubSpanSamplingStrategy} decides a sub-span should not be recorded. They're lightweight
+     * stand-ins that still time themselves, but share the IDs of the nearest recorded ancestor span rather than
+     * getting their own span ID, and are never logged or passed to span lifecycle listeners. When a summarized
+     * sub-span completes, its name and duration are added to a per-span-name count and duration summary that is
+     * attached as tags to that nearest recorded ancestor span when it completes.
+     */
+    public boolean isSummarizedSubSpan() {
+        return summarizedInto != null;
+    }
+
     /**
      * @return this span's *current* status relative to {@link Tracer} on the current thread at the time this method is
      * called. This status is recalculated every time this method is called and is only relevant/correct until {@link
@@ -443,7 +623,48 @@ public class Span implements Closeable, Serializable {
      * Any attempt to modify the returned map will result in a {@link UnsupportedOperationException}.
      */
     public Map<String,String> getTags() {
-        return unmodifiableTags;
+        tags.resolveDeferredValues();
+        return tags.asStringMap();
+    }
+
+    /**
+     * @return An <b>unmodifiable</b> read-only view of this Span's collection of key/value tags where the values are
+     * in their native typed form - a {@link String}, {@link Long}, {@link Boolean}, or {@link Double} depending on
+     * which {@code putTag(...)} method was used to set the tag. This will never be null. Useful for integrations
+     * (e.g. LightStep) that can send typed tag values without converting them to strings first. Any attempt to
+     * modify the returned map will result in a {@link UnsupportedOperationException}.
+     */
+    public Map<String,Object> getTypedTags() {
+        tags.resolveDeferredValues();
+        return tags.asTypedMap();
+    }
+
+    /**
+     * Passes each of this span's tags to the given visitor, in insertion order. Unlike {@link #getTags()}, typed tag
+     * values are passed in primitive form and no map views, iterators, entries, or string forms of typed values are
+     * created, which makes this the cheapest way to read all the tags - intended for serializers on hot paths (see
+     * {@link com.nike.wingtips.util.parser.SpanSerializer}).
+     *
+     * @param visitor The visitor to pass the tags to - cannot be null.
+     */
+    public void visitTags(TagVisitor visitor) {
+        tags.resolveDeferredValues();
+        for (int i = 0; i < tags.size(); i++) {
+            String key = tags.keyAt(i);
+            switch (tags.typeAt(i)) {
+                case SpanTags.LONG_TYPE:
+                    visitor.visitTag(key, tags.primitiveValueAt(i));
+                    break;
+                case SpanTags.BOOLEAN_TYPE:
+                    visitor.visitTag(key, tags.primitiveValueAt(i) != 0);
+                    break;
+                case SpanTags.DOUBLE_TYPE:
+                    visitor.visitTag(key, Double.longBitsToDouble(tags.primitiveValueAt(i)));
+                    break;
+                default:
+                    visitor.visitTag(key, tags.stringValueAt(i));
+            }
+        }
     }
 
     /**
@@ -455,11 +676,96 @@ public class Span implements Closeable, Serializable {
      * want to take advantage of. Similarly, if you're integrating with a system that understands OpenTracing tags,
      * see {@link com.nike.wingtips.tags.KnownOpenTracingTags}.
      *
+     * <p>NOTE: Tags are subject to the {@link SpanLimits#getGlobalSpanLimits()} - keys and values that are too long
+     * will be truncated, and new tags will be dropped if this span already has the max number of tags. See {@link
+     * SpanLimits} for details.
+     *
      * @param key The tag {@code key}.
      * @param value The tag {@code value} to be set.
      */
     public void putTag(String key, String value) {
-        tags.put(key, value);
+        putStringTagWithLimits(key, value, SpanLimits.getGlobalSpanLimits());
+        // This span's state changed, so clear the cached serialized representations.
+        clearCachedDataDueToStateChange();
+    }
+
+    /**
+     * Same as {@link #putTag(String, String)}, except the value is stored as a primitive {@code long} and is only
+     * converted to a string when this span is serialized (or {@link #getTags()} is inspected). Use {@link
+     * #getTypedTags()} to retrieve the value in its typed form.
+     *
+     * @param key The tag {@code key}.
+     * @param value The tag {@code value} to be set.
+     */
+    public void putTag(String key, long value) {
+        putPrimitiveTagWithLimits(key, SpanTags.LONG_TYPE, value, SpanLimits.getGlobalSpanLimits());
+        // This span's state changed, so clear the cached serialized representations.
+        clearCachedDataDueToStateChange();
+    }
+
+    /**
+     * Same as {@link #putTag(String, String)}, except the value is stored as a primitive {@code boolean} and is only
+     * converted to a string when this span is serialized (or {@link #getTags()} is inspected). Use {@link
+     * #getTypedTags()} to retrieve the value in its typed form.
+     *
+     * @param key The tag {@code key}.
+     * @param value The tag {@code value} to be set.
+     */
+    public void putTag(String key, boolean value) {
+        putPrimitiveTagWithLimits(key, SpanTags.BOOLEAN_TYPE, (value) ? 1 : 0, SpanLimits.getGlobalSpanLimits());
+        // This span's state changed, so clear the cached serialized representations.
+        clearCachedDataDueToStateChange();
+    }
+
+    /**
+     * Same as {@link #putTag(String, String)}, except the value is stored as a primitive {@code double} and is only
+     * converted to a string when this span is serialized (or {@link #getTags()} is inspected). Use {@link
+     * #getTypedTags()} to retrieve the value in its typed form.
+     *
+     * @param key The tag {@code key}.
+     * @param value The tag {@code value} to be set.
+     */
+    public void putTag(String key, double value) {
+        putPrimitiveTagWithLimits(
+            key, SpanTags.DOUBLE_TYPE, Double.doubleToRawLongBits(value), SpanLimits.getGlobalSpanLimits()
+        );
+        // This span's state changed, so clear the cached serialized representations.
+        clearCachedDataDueToStateChange();
+    }
+
+    /**
+     * Same as {@link #putTag(String, String)}, except the value isn't computed until it's needed - the given {@link
+     * DeferredTagValue} is evaluated at most once, the first time this span's tags are read (e.g. by {@link
+     * #getTags()}, {@link #visitTags(TagVisitor)}, or serialization), or when this span is completed if it's
+     * {@link #isSampleable()}. If this span is not sampleable, a deferred value that hasn't been read by the time
+     * the span is completed is dropped without being computed - the span won't have the tag, and the deferred value
+     * (along with anything it references) is released. Use this for tag values that are expensive to build (e.g. a
+     * full request URL) so non-sampled spans don't pay for them.
+     *
+     * <p>If the deferred value evaluates to null (or throws an exception, which is logged and otherwise ignored) then
+     * the tag is removed, as if it had never been put. The value is subject to {@link SpanLimits} truncation when
+     * it's evaluated, using the limits in place when this method was called.
+     *
+     * <p>NOTE: The deferred value is evaluated on whatever thread reads the tags first - usually the thread that
+     * completes the span. Don't capture anything that won't be safe to read at that point.
+     *
+     * @param key The tag {@code key}.
+     * @param value The deferred tag {@code value} - if this is null then this is equivalent to calling {@link
+     * #putTag(String, String)} with a null value.
+     */
+    public void putDeferredTag(String key, DeferredTagValue value) {
+        SpanLimits limits = SpanLimits.getGlobalSpanLimits();
+        if (value == null) {
+            putStringTagWithLimits(key, null, limits);
+        }
+        else {
+            String limitedKey = applyKeyLimit(key, limits);
+            if (hasRoomForTag(limitedKey, limits)) {
+                tags.putDeferred(
+                    limitedKey, new LimitedDeferredTagValue(limitedKey, value, limits.getMaxValueLength())
+                );
+            }
+        }
         // This span's state changed, so clear the cached serialized representations.
         clearCachedDataDueToStateChange();
     }
@@ -500,7 +806,7 @@ public class Span implements Closeable, Serializable {
         addTimestampedAnnotation(
             TimestampedAnnotation.forEpochMicrosWithNanoOffset(
                 spanStartTimeEpochMicros,
-                System.nanoTime() - spanStartTimeNanos,
+                SpanClock.getGlobalClock().nanoTime() - spanStartTimeNanos,
                 value
             )
         );
@@ -509,10 +815,14 @@ public class Span implements Closeable, Serializable {
     /**
      * Adds the given {@link TimestampedAnnotation} to this Span's {@link #getTimestampedAnnotations()} list.
      *
+     * <p>NOTE: Annotations are subject to the {@link SpanLimits#getGlobalSpanLimits()} - the annotation will be
+     * dropped if this span already has the max number of annotations, and its value will be truncated if it's too
+     * long. See {@link SpanLimits} for details.
+     *
      * @param timestampedAnnotation The annotation to add to this Span.
      */
     public void addTimestampedAnnotation(TimestampedAnnotation timestampedAnnotation) {
-        this.annotations.add(timestampedAnnotation);
+        addAnnotationWithLimits(timestampedAnnotation, SpanLimits.getGlobalSpanLimits());
         // This span's state changed, so clear the cached serialized representations.
         clearCachedDataDueToStateChange();
     }
@@ -642,6 +952,139 @@ public class Span implements Closeable, Serializable {
         );
     }
 
+    /**
+     * @return The number of tags that were dropped from this span because it already had {@link
+     * SpanLimits#getMaxNumTags()} tags. See {@link SpanLimits} for details.
+     */
+    public int getNumDroppedTags() {
+        return numDroppedTags;
+    }
+
+    /**
+     * @return The number of annotations that were dropped from this span because it already had {@link
+     * SpanLimits#getMaxNumAnnotations()} annotations. See {@link SpanLimits} for details.
+     */
+    public int getNumDroppedAnnotations() {
+        return numDroppedAnnotations;
+    }
+
+    /**
+     * @return The number of tag keys, tag values, and annotation values on this span that were truncated because they
+     * exceeded {@link SpanLimits#getMaxKeyLength()} or {@link SpanLimits#getMaxValueLength()}. See {@link
+     * SpanLimits} for details.
+     */
+    public int getNumTruncatedValues() {
+        return numTruncatedValues;
+    }
+
+    private void putStringTagWithLimits(String key, String value, SpanLimits limits) {
+        String limitedKey = applyKeyLimit(key, limits);
+        if (hasRoomForTag(limitedKey, limits)) {
+            tags.putString(limitedKey, applyValueLimit(value, limits));
+        }
+    }
+
+    /**
+     * Copies the given tags into this span's tags, preserving typed values and enforcing the given limits.
+     */
+    private void putAllTagsWithLimits(SpanTags source, SpanLimits limits) {
+        source.resolveDeferredValues();
+        if (tags.isEmpty() && fitsWithinLimits(source, limits)) {
+            // Nothing would be dropped or truncated, so we can share the source's storage copy-on-write style
+            //      rather than copying it.
+            tags.shareFrom(source);
+            return;
+        }
+
+        for (int i = 0; i < source.size(); i++) {
+            byte type = source.typeAt(i);
+            if (type == SpanTags.STRING_TYPE) {
+                putStringTagWithLimits(source.keyAt(i), source.stringValueAt(i), limits);
+                continue;
+            }
+
+            putPrimitiveTagWithLimits(source.keyAt(i), type, source.primitiveValueAt(i), limits);
+        }
+    }
+
+    private static boolean fitsWithinLimits(SpanTags source, SpanLimits limits) {
+        int size = source.size();
+        if (size > limits.getMaxNumTags()) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            String key = source.keyAt(i);
+            if (key != null && key.length() > limits.getMaxKeyLength()) {
+                return false;
+            }
+
+            // Typed values are never truncated, so only string values need to be checked.
+            if (source.typeAt(i) == SpanTags.STRING_TYPE) {
+                String value = source.stringValueAt(i);
+                if (value != null && value.length() > limits.getMaxValueLength()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void putPrimitiveTagWithLimits(String key, byte type, long rawValue, SpanLimits limits) {
+        String limitedKey = applyKeyLimit(key, limits);
+        if (hasRoomForTag(limitedKey, limits)) {
+            tags.putPrimitive(limitedKey, type, rawValue);
+        }
+    }
+
+    private void addAnnotationWithLimits(TimestampedAnnotation annotation, SpanLimits limits) {
+        if (annotations.size() >= limits.getMaxNumAnnotations()) {
+            numDroppedAnnotations++;
+            SpanLimits.recordDroppedAnnotation();
+            return;
+        }
+
+        if (annotation != null) {
+            String value = annotation.getValue();
+            String limitedValue = applyValueLimit(value, limits);
+            //noinspection StringEquality
+            if (limitedValue != value) {
+                annotation = new TimestampedAnnotation(annotation.getTimestampEpochMicros(), limitedValue);
+            }
+        }
+
+        annotations.add(annotation);
+    }
+
+    private boolean hasRoomForTag(String key, SpanLimits limits) {
+        if (tags.size() < limits.getMaxNumTags() || tags.indexOf(key) >= 0) {
+            return true;
+        }
+
+        numDroppedTags++;
+        SpanLimits.recordDroppedTag();
+        return false;
+    }
+
+    private String applyKeyLimit(String key, SpanLimits limits) {
+        return truncateIfNecessary(key, limits.getMaxKeyLength());
+    }
+
+    private String applyValueLimit(String value, SpanLimits limits) {
+        return truncateIfNecessary(value, limits.getMaxValueLength());
+    }
+
+    private String truncateIfNecessary(String str, int maxLength) {
+        if (str == null || str.length() <= maxLength) {
+            return str;
+        }
+
+        numTruncatedValues++;
+        SpanLimits.recordTruncatedValue();
+        return str.substring(0, maxLength);
+    }
+
     /**
      * Sets {@link #cachedJsonRepresentation} and {@link #cachedKeyValueRepresentation} to null so that they will
      * be recalculated the next time {@link #toJSON()}, {@link #toKeyValueString()}, or {@link #toString()} is called.
@@ -654,6 +1097,309 @@ public class Span implements Closeable, Serializable {
         cachedKeyValueRepresentation = null;
     }
 
+    /**
+     * Java serialization hook - spans are always serialized via the compact {@link SerializedSpanForm} rather than
+     * the default field-by-field mechanism. See {@link SerializedSpanForm} for details on the format.
+     */
+    private Object writeReplace() {
+        return new SerializedSpanForm(this);
+    }
+
+    /**
+     * Java serialization hook that's only ever called for payloads written by older versions of Wingtips that used
+     * default Java serialization for spans (new payloads use {@link SerializedSpanForm} and never reach this
+     * method). The legacy fields are pulled out of the stream and used to construct a real span, which is then
+     * returned by {@link #readResolve()}.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> legacyTags = (Map<String, String>) fields.get("tags", null);
+        @SuppressWarnings("unchecked")
+        List<TimestampedAnnotation> legacyAnnotations =
+            (List<TimestampedAnnotation>) fields.get("annotations", null);
+        AtomicBoolean legacyCompletedFlag = (AtomicBoolean) fields.get("completedFlag", null);
+
+        Span span;
+        try {
+            span = new Span(
+                (String) fields.get("traceId", null),
+                (String) fields.get("parentSpanId", null),
+                (String) fields.get("spanId", null),
+                (String) fields.get("spanName", null),
+                fields.get("sampleable", false),
+                (String) fields.get("userId", null),
+                (SpanPurpose) fields.get("spanPurpose", null),
+                fields.get("spanStartTimeEpochMicros", 0L),
+                fields.get("spanStartTimeNanos", 0L),
+                (Long) fields.get("durationNanos", null),
+                null,
+                null
+            );
+        }
+        catch (IllegalArgumentException ex) {
+            InvalidObjectException ioe = new InvalidObjectException("Invalid legacy serialized Span payload");
+            ioe.initCause(ex);
+            throw ioe;
+        }
+
+        // Legacy payloads were already subject to whatever limits were in place when they were created, so we copy
+        //      the tags and annotations directly rather than applying the current SpanLimits.
+        if (legacyTags != null) {
+            span.tags.putAll(legacyTags);
+        }
+        if (legacyAnnotations != null) {
+            span.annotations.addAll(legacyAnnotations);
+        }
+        if (legacyCompletedFlag != null && legacyCompletedFlag.get()) {
+            span.completedFlag.set(true);
+        }
+
+        legacyDeserializedSpan = span;
+    }
+
+    /**
+     * Java serialization hook that swaps in the span created by {@link #readObject(ObjectInputStream)} for legacy
+     * payloads.
+     */
+    private Object readResolve() throws ObjectStreamException {
+        if (legacyDeserializedSpan == null) {
+            throw new InvalidObjectException("Span must be deserialized via its serialized form");
+        }
+        return legacyDeserializedSpan;
+    }
+
+    /**
+     * The compact serialized form for {@link Span}, used via {@link Span#writeReplace()}. Default Java serialization
+     * of a span would write class descriptors and object headers for every boxed {@link Long}, collection, and
+     * annotation, along with the cached JSON and key/value strings. This form skips the caches and writes the span's
+     * state directly:
+     *
+     * <ul>
+     *     <li>A format version byte ({@link #FORMAT_VERSION}), followed by a flags byte (sampleable, has duration,
+     *     completed).</li>
+     *     <li>The trace ID, span ID, parent span ID, span name, and user ID as length-prefixed UTF-8 strings.</li>
+     *     <li>The span purpose ordinal, start time epoch micros, start time nanos, and duration nanos (if present).</li>
+     *     <li>The dropped/truncated counts from {@link SpanLimits} enforcement.</li>
+     *     <li>The tags - each is the key, a type byte, and either a UTF-8 string or a raw long for typed values.</li>
+     *     <li>The annotations - each is a timestamp long and a UTF-8 string value.</li>
+     * </ul>
+     *
+     * Lengths and counts are written as unsigned variable-length ints, so small values only take a single byte.
+     * Payloads written by older versions of Wingtips (which used default Java serialization) are still readable - see
+     * {@link Span#readObject(ObjectInputStream)}.
+     */
+    private static final class SerializedSpanForm implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final byte FORMAT_VERSION = 1;
+
+        private static final int SAMPLEABLE_FLAG = 1;
+        private static final int HAS_DURATION_FLAG = 1 << 1;
+        private static final int COMPLETED_FLAG = 1 << 2;
+
+        private static final SpanPurpose[] SPAN_PURPOSES = SpanPurpose.values();
+
+        private Span span;
+
+        // Required by Externalizable.
+        public SerializedSpanForm() {
+        }
+
+        SerializedSpanForm(Span span) {
+            this.span = span;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            Span s = span;
+            Long duration = s.durationNanos;
+
+            int flags = 0;
+            if (s.sampleable) {
+                flags |= SAMPLEABLE_FLAG;
+            }
+            if (duration != null) {
+                flags |= HAS_DURATION_FLAG;
+            }
+            if (s.completedFlag.get()) {
+                flags |= COMPLETED_FLAG;
+            }
+
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(flags);
+            writeString(out, s.traceId);
+            writeString(out, s.spanId);
+            writeString(out, s.parentSpanId);
+            writeString(out, s.spanName);
+            writeString(out, s.userId);
+            out.writeByte(s.spanPurpose.ordinal());
+            out.writeLong(s.spanStartTimeEpochMicros);
+            out.writeLong(s.spanStartTimeNanos);
+            if (duration != null) {
+                out.writeLong(duration);
+            }
+
+            writeVarInt(out, s.numDroppedTags);
+            writeVarInt(out, s.numDroppedAnnotations);
+            writeVarInt(out, s.numTruncatedValues);
+
+            SpanTags tags = s.tags;
+            tags.resolveDeferredValues();
+            int numTags = tags.size();
+            writeVarInt(out, numTags);
+            for (int i = 0; i < numTags; i++) {
+                byte type = tags.typeAt(i);
+                writeString(out, tags.keyAt(i));
+                out.writeByte(type);
+                if (type == SpanTags.STRING_TYPE) {
+                    writeString(out, tags.stringValueAt(i));
+                }
+                else {
+                    out.writeLong(tags.primitiveValueAt(i));
+                }
+            }
+
+            List<TimestampedAnnotation> annotations = s.annotations;
+            int numAnnotations = annotations.size();
+            writeVarInt(out, numAnnotations);
+            for (int i = 0; i < numAnnotations; i++) {
+                TimestampedAnnotation annotation = annotations.get(i);
+                out.writeLong(annotation.getTimestampEpochMicros());
+                writeString(out, annotation.getValue());
+            }
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new InvalidObjectException("Unsupported serialized Span format version: " + version);
+            }
+
+            int flags = in.readUnsignedByte();
+            String traceId = readString(in);
+            String spanId = readString(in);
+            String parentSpanId = readString(in);
+            String spanName = readString(in);
+            String userId = readString(in);
+            int spanPurposeOrdinal = in.readUnsignedByte();
+            long spanStartTimeEpochMicros = in.readLong();
+            long spanStartTimeNanos = in.readLong();
+            Long durationNanos = ((flags & HAS_DURATION_FLAG) != 0) ? in.readLong() : null;
+
+            if (spanPurposeOrdinal >= SPAN_PURPOSES.length) {
+                throw new InvalidObjectException("Invalid serialized Span purpose ordinal: " + spanPurposeOrdinal);
+            }
+
+            Span s;
+            try {
+                s = new Span(
+                    traceId, parentSpanId, spanId, spanName, (flags & SAMPLEABLE_FLAG) != 0, userId,
+                    SPAN_PURPOSES[spanPurposeOrdinal], spanStartTimeEpochMicros, spanStartTimeNanos, durationNanos,
+                    null, null
+                );
+            }
+            catch (IllegalArgumentException ex) {
+                InvalidObjectException ioe = new InvalidObjectException("Invalid serialized Span payload");
+                ioe.initCause(ex);
+                throw ioe;
+            }
+
+            if ((flags & COMPLETED_FLAG) != 0) {
+                s.completedFlag.set(true);
+            }
+
+            s.numDroppedTags = readVarInt(in);
+            s.numDroppedAnnotations = readVarInt(in);
+            s.numTruncatedValues = readVarInt(in);
+
+            // The serialized span was already subject to SpanLimits when it was created, so we populate tags and
+            //      annotations directly rather than re-applying limits.
+            int numTags = readVarInt(in);
+            for (int i = 0; i < numTags; i++) {
+                String key = readString(in);
+                byte type = in.readByte();
+                if (type == SpanTags.STRING_TYPE) {
+                    s.tags.putString(key, readString(in));
+                }
+                else if (type <= SpanTags.DOUBLE_TYPE && type > 0) {
+                    s.tags.putPrimitive(key, type, in.readLong());
+                }
+                else {
+                    throw new InvalidObjectException("Invalid serialized Span tag type: " + type);
+                }
+            }
+
+            int numAnnotations = readVarInt(in);
+            for (int i = 0; i < numAnnotations; i++) {
+                long timestampEpochMicros = in.readLong();
+                s.annotations.add(new TimestampedAnnotation(timestampEpochMicros, readString(in)));
+            }
+
+            this.span = s;
+        }
+
+        private Object readResolve() {
+            return span;
+        }
+
+        /**
+         * Writes the given string as a var-int length followed by its UTF-8 bytes. The length is written as
+         * {@code byteLength + 1} so that 0 can represent null.
+         */
+        static void writeString(DataOutput out, String str) throws IOException {
+            if (str == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length + 1);
+            out.write(bytes);
+        }
+
+        static String readString(DataInput in) throws IOException {
+            int lengthPlusOne = readVarInt(in);
+            if (lengthPlusOne == 0) {
+                return null;
+            }
+
+            byte[] bytes = new byte[lengthPlusOne - 1];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Writes the given non-negative int using 7 bits per byte, with the high bit of each byte indicating whether
+         * more bytes follow.
+         */
+        static void writeVarInt(DataOutput out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        static int readVarInt(DataInput in) throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (result < 0) {
+                        throw new InvalidObjectException("Invalid serialized var-int: " + result);
+                    }
+                    return result;
+                }
+            }
+            throw new InvalidObjectException("Malformed serialized var-int");
+        }
+    }
+
     /**
      * @deprecated Switch to referencing {@link SpanParser#fromKeyValueString(String)} directly.
      */
@@ -698,6 +1444,77 @@ public class Span implements Closeable, Serializable {
     @Deprecated
     public static final String DURATION_NANOS_FIELD = SpanParser.DURATION_NANOS_FIELD;
 
+    /**
+     * Receives a span's tags from {@link #visitTags(TagVisitor)}. One method is called per tag, depending on which
+     * {@code putTag(...)} method was used to set it.
+     */
+    public interface TagVisitor {
+
+        /**
+         * Called for tags that were set with a {@link String} value.
+         */
+        void visitTag(String key, String value);
+
+        /**
+         * Called for tags that were set with a {@code long} value.
+         */
+        void visitTag(String key, long value);
+
+        /**
+         * Called for tags that were set with a {@code boolean} value.
+         */
+        void visitTag(String key, boolean value);
+
+        /**
+         * Called for tags that were set with a {@code double} value.
+         */
+        void visitTag(String key, double value);
+    }
+
+    /**
+     * A tag value that's computed on demand - see {@link #putDeferredTag(String, DeferredTagValue)}.
+     */
+    public interface DeferredTagValue {
+
+        /**
+         * @return The tag value, or null if the tag should be removed from the span. Called at most once.
+         */
+        String get();
+    }
+
+    /**
+     * Wraps a caller's {@link DeferredTagValue} so the evaluated value is truncated like any other tag value, and so a
+     * misbehaving deferred value can't break span serialization.
+     */
+    private final class LimitedDeferredTagValue implements DeferredTagValue {
+
+        private final String key;
+        private final DeferredTagValue delegate;
+        private final int maxValueLength;
+
+        LimitedDeferredTagValue(String key, DeferredTagValue delegate, int maxValueLength) {
+            this.key = key;
+            this.delegate = delegate;
+            this.maxValueLength = maxValueLength;
+        }
+
+        @Override
+        public String get() {
+            String value;
+            try {
+                value = delegate.get();
+            }
+            catch (RuntimeException ex) {
+                logger.warn(
+                    "A deferred tag value threw an exception - the tag will be removed from the span. "
+                    + "deferred_tag_value_error=true, trace_id={}, span_id={}, tag_key={}", traceId, spanId, key, ex
+                );
+                return null;
+            }
+            return truncateIfNecessary(value, maxValueLength);
+        }
+    }
+
     /**
      * Represents a timestamped annotation for a {@link Span}. In other words, this class represents an "event" of
      * some sort that is related to a {@link Span} and keeps track of the time that event occurred (in epoch microseconds).
@@ -707,6 +1524,12 @@ public class Span implements Closeable, Serializable {
      */
     public static class TimestampedAnnotation implements Serializable {
 
+        // Matches the serialVersionUID that was implicitly generated for this class in older versions of Wingtips, so
+        //      that previously-serialized annotations can still be deserialized. Note that annotations that are part of
+        //      a span are written inline as a timestamp and value by Span's compact serialized form, so this class's
+        //      default serialization only comes into play when an annotation is serialized on its own.
+        private static final long serialVersionUID = 4864776434936388346L;
+
         private final long timestampEpochMicros;
         private final String value;
 
@@ -759,9 +1582,9 @@ public class Span implements Closeable, Serializable {
 
         /**
          * A convenience static factory method that lets you generate an instance of {@link TimestampedAnnotation}
-         * with a timestamp of "right now", however unfortunately that "right now" timestamp will have a resolution of
-         * only epoch milliseconds. This epoch millisecond resolution is the best we can do, because without more info
-         * we don't have anything more accurate than {@link System#currentTimeMillis()}.
+         * with a timestamp of "right now" according to {@link SpanClock#getGlobalClock()}. With the default {@link
+         * com.nike.wingtips.clock.AnchoredSpanClock} this has microsecond resolution, however the timestamp is not
+         * tied to any particular span's start time.
          *
          * <p>NOTE: {@link Span}s keep track of nanosecond duration, so {@link
          * Span#addTimestampedAnnotation(TimestampedAnnotation)} is able to give a more accurate timestamp than this
@@ -770,11 +1593,11 @@ public class Span implements Closeable, Serializable {
          * method directly on the {@link Span} rather than this method whenever possible.
          *
          * @param value The value to associate with the "right now" timestamp.
-         * @return A new {@link TimestampedAnnotation} with a timestamp of {@link System#currentTimeMillis()}
-         * (converted to microseconds), and the given value.
+         * @return A new {@link TimestampedAnnotation} with a timestamp of {@link SpanClock#currentTimeEpochMicros()},
+         * and the given value.
          */
         public static TimestampedAnnotation forCurrentTime(String value) {
-            return forEpochMillis(System.currentTimeMillis(), value);
+            return forEpochMicros(SpanClock.getGlobalClock().currentTimeEpochMicros(), value);
         }
 
         /**
@@ -833,8 +1656,10 @@ public class Span implements Closeable, Serializable {
     /**
      * Builder for creating {@link Span} objects.
      * <p/>
-     * IMPORTANT NOTE: Calling {@link #build()} will choose sensible defaults for {@code traceId} and {@code spanId} if they are null when {@link #build()} is called by
-     *                 calling {@link TraceAndSpanIdGenerator#generateId()} for each, and will default {@code spanStartTimeNanos} to {@link System#nanoTime()}.
+     * IMPORTANT NOTE: Calling {@link #build()} will choose sensible defaults for {@code traceId} and {@code spanId} if they are null when {@link #build()} is called -
+     *                 {@code traceId} defaults to {@link TraceAndSpanIdGenerator#generateTraceId()} (which may be a 128-bit or time-ordered ID depending on how
+     *                 it's configured), {@code spanId} defaults to {@link TraceAndSpanIdGenerator#generateId()}, and {@code spanStartTimeNanos} defaults to
+     *                 {@link System#nanoTime()}.
      *                 This allows you to generate a fresh "root" span by creating a new instance of this builder and immediately calling {@link #build()}
      *                 without any further parameters being set. The simplest way to generate a child span is to get your hands on the parent span and call
      *                 {@link Span#generateChildSpan(String, SpanPurpose)} rather than use this builder directly. For any other use cases you can use this
@@ -853,7 +1678,7 @@ public class Span implements Closeable, Serializable {
         private Long spanStartTimeNanos;
         private Long durationNanos;
         private SpanPurpose spanPurpose;
-        private Map<String,String> tags;
+        private SpanTags tags;
         private List<TimestampedAnnotation> annotations;
 
         private Builder(String spanName, SpanPurpose spanPurpose) {
@@ -866,7 +1691,7 @@ public class Span implements Closeable, Serializable {
          * Don't confuse this with {@link #withSpanId(String)}, which sets the ID for an individual span of work as part of the larger distributed trace.
          * <p/>
          * IMPORTANT NOTE: {@link Span}s are not allowed to have a null trace ID, so if this is null when {@link #build()} is called then the {@link Span} returned by
-         *                 {@link #build()} will have its trace ID defaulted to a new random ID using {@link TraceAndSpanIdGenerator#generateId()}.
+         *                 {@link #build()} will have its trace ID defaulted to a new random ID using {@link TraceAndSpanIdGenerator#generateTraceId()}.
          *
          * @param traceId the {@code traceId} to set
          * @return a reference to this Builder
@@ -943,8 +1768,8 @@ public class Span implements Closeable, Serializable {
          * Sets the start timestamp in microseconds since the epoch for this span (*not* milliseconds), or pass in null if this is a new span and
          * you want this value calculated automatically when {@link #build()} is called.
          * </p>
-         * NOTE: Since Java 7 does not have a reliable way to calculate this value accurately we generally just get as close as we can by turning
-         * {@link System#currentTimeMillis()} into microseconds. That means the start timestamp only has millisecond resolution.
+         * NOTE: When left null this is calculated from {@link SpanClock#getGlobalClock()}, which has microsecond resolution by default. See
+         * {@link com.nike.wingtips.clock.AnchoredSpanClock} for details.
          *
          * @param spanStartTimeEpochMicros the {@code spanStartTimeEpochMicros} to set
          * @return a reference to this Builder
@@ -964,7 +1789,7 @@ public class Span implements Closeable, Serializable {
          *  <ol>
          *      <li>
          *          If {@link #withSpanStartTimeEpochMicros(Long)} is null - this indicates a brand new span is being created on this JVM. This value will be
-         *          set to {@link System#nanoTime()} when {@link #build()} is called. This leads to {@link #getDurationNanos()} being accurate to the
+         *          set to {@link SpanClock#nanoTime()} when {@link #build()} is called. This leads to {@link #getDurationNanos()} being accurate to the
          *          nanosecond, however it is only possible to do this when you start and complete a given span on the same JVM.
          *      </li>
          *      <li>
@@ -1024,12 +1849,55 @@ public class Span implements Closeable, Serializable {
          * @return a reference to this Builder
          */
         public Builder withTag(String key, String value) {
+            getOrCreateTags().putString(key, value);
+            return this;
+        }
+
+        /**
+         * Sets the value of a tag for the respective key, stored as a primitive {@code long}. This will replace an
+         * existing tag value for the respective key. See {@link Span#putTag(String, long)} for details.
+         *
+         * @param key the {@code key} of the tag
+         * @param value the {@code value} of the tag
+         * @return a reference to this Builder
+         */
+        public Builder withTag(String key, long value) {
+            getOrCreateTags().putLong(key, value);
+            return this;
+        }
+
+        /**
+         * Sets the value of a tag for the respective key, stored as a primitive {@code boolean}. This will replace an
+         * existing tag value for the respective key. See {@link Span#putTag(String, boolean)} for details.
+         *
+         * @param key the {@code key} of the tag
+         * @param value the {@code value} of the tag
+         * @return a reference to this Builder
+         */
+        public Builder withTag(String key, boolean value) {
+            getOrCreateTags().putBoolean(key, value);
+            return this;
+        }
+
+        /**
+         * Sets the value of a tag for the respective key, stored as a primitive {@code double}. This will replace an
+         * existing tag value for the respective key. See {@link Span#putTag(String, double)} for details.
+         *
+         * @param key the {@code key} of the tag
+         * @param value the {@code value} of the tag
+         * @return a reference to this Builder
+         */
+        public Builder withTag(String key, double value) {
+            getOrCreateTags().putDouble(key, value);
+            return this;
+        }
+
+        private SpanTags getOrCreateTags() {
             if (this.tags == null) {
-                this.tags = new LinkedHashMap<>();
+                this.tags = new SpanTags();
             }
 
-            this.tags.put(key, value);
-            return this;
+            return this.tags;
         }
         
         /**
@@ -1046,11 +1914,7 @@ public class Span implements Closeable, Serializable {
                 return this;
             }
 
-            if (this.tags == null) {
-                this.tags = new LinkedHashMap<>(tags.size());
-            }
-
-            this.tags.putAll(tags);
+            getOrCreateTags().putAll(tags);
             return this;
         }
 
@@ -1097,11 +1961,11 @@ public class Span implements Closeable, Serializable {
          * for those values when creating a new span, so if any of them are null when this method is called it is
          * assumed you are creating a new span and they will be set to the following:
          * <ul>
-         *     <li>{@code traceId} is defaulted to {@link TraceAndSpanIdGenerator#generateId()}.</li>
+         *     <li>{@code traceId} is defaulted to {@link TraceAndSpanIdGenerator#generateTraceId()}.</li>
          *     <li>{@code spanId} is defaulted to {@link TraceAndSpanIdGenerator#generateId()}.</li>
          *     <li>
-         *         {@code spanStartTimeEpochMicros} is defaulted to {@link System#currentTimeMillis()} converted to
-         *         microseconds.
+         *         {@code spanStartTimeEpochMicros} is defaulted to the current time according to {@link
+         *         SpanClock#getGlobalClock()}.
          *     </li>
          *     <ul>
          *         <li>
@@ -1118,15 +1982,19 @@ public class Span implements Closeable, Serializable {
          */
         public Span build() {
             if (traceId == null) {
-                traceId = TraceAndSpanIdGenerator.generateId();
+                traceId = TraceAndSpanIdGenerator.generateTraceId();
             }
 
             if (spanId == null) {
                 spanId = TraceAndSpanIdGenerator.generateId();
             }
 
+            SpanClock clock = SpanClock.getGlobalClock();
+
             if (spanStartTimeEpochMicros == null) {
-                spanStartTimeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+                // Read the clock once and derive both the nano start time and epoch micros start time from it.
+                long currentNanoTime = clock.nanoTime();
+                spanStartTimeEpochMicros = clock.toEpochMicros(currentNanoTime);
                 if (spanStartTimeNanos != null) {
                     // The nano start time was set but the start time in epoch microseconds was *not*.
                     //      This makes no sense, so we'll null out the nano start and log a warning.
@@ -1136,18 +2004,26 @@ public class Span implements Closeable, Serializable {
                         + "micros start time), so the nano start time passed into this builder will be ignored and "
                         + "calculated fresh along with the epoch micros start timestamp."
                     );
-                    spanStartTimeNanos = null;
                 }
+                spanStartTimeNanos = currentNanoTime;
             }
 
             if (spanStartTimeNanos == null) {
-                spanStartTimeNanos = System.nanoTime();
+                spanStartTimeNanos = clock.nanoTime();
             }
 
-            return new Span(
+            Span span = new Span(
                 traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, spanStartTimeEpochMicros,
-                spanStartTimeNanos, durationNanos, tags, annotations
+                spanStartTimeNanos, durationNanos, null, annotations
             );
+
+            // Copy the tags directly rather than going through the constructor's Map<String,String> arg so that
+            //      typed tag values keep their typed form.
+            if (tags != null) {
+                span.putAllTagsWithLimits(tags, SpanLimits.getGlobalSpanLimits());
+            }
+
+            return span;
         }
     }
 }
@@ -0,0 +1,197 @@
+package com.nike.wingtips;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Defines upper bounds on the amount of tag and annotation data a single {@link Span} can hold. These limits protect
+ * against buggy or malicious callers that would otherwise add thousands of annotations or megabyte-sized tag values
+ * (e.g. an {@code error} tag containing a giant exception message) to a span, which inflates heap usage, log lines,
+ * and the payload sent to span collectors like Zipkin.
+ *
+ * <p>The limits are enforced by {@link Span} itself (in its constructor, {@link Span.Builder#build()}, and the
+ * {@code putTag(...)} and {@code addTimestampedAnnotation(...)} methods), so every integration gets them for free.
+ * The rules are:
+ * <ul>
+ *     <li>
+ *         Tag keys longer than {@link #getMaxKeyLength()} are truncated.
+ *     </li>
+ *     <li>
+ *         String tag values and annotation values longer than {@link #getMaxValueLength()} are truncated. Typed tag
+ *         values (long, boolean, double) are never truncated.
+ *     </li>
+ *     <li>
+ *         Once a span has {@link #getMaxNumTags()} tags, attempts to add tags with new keys are dropped. Replacing
+ *         the value of an existing tag is always allowed.
+ *     </li>
+ *     <li>
+ *         Once a span has {@link #getMaxNumAnnotations()} annotations, further annotations are dropped.
+ *     </li>
+ * </ul>
+ * Drops and truncations are counted both on the span (see {@link Span#getNumDroppedTags()}, {@link
+ * Span#getNumDroppedAnnotations()}, and {@link Span#getNumTruncatedValues()}), and globally for the JVM (see {@link
+ * #getGlobalDroppedTagsCount()}, {@link #getGlobalDroppedAnnotationsCount()}, and {@link
+ * #getGlobalTruncatedValuesCount()}).
+ *
+ * <p>The limits used by all spans are controlled via {@link #setGlobalSpanLimits(SpanLimits)}, and default to {@link
+ * #DEFAULT_SPAN_LIMITS}. Use {@link #NO_SPAN_LIMITS} if you want to turn off limit enforcement entirely.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanLimits {
+
+    /**
+     * The default limits - these are generous enough that normal usage will never come close, while still
+     * protecting against runaway callers. 128 tags, 128 annotations, 256 character keys, and 16384 character values.
+     */
+    public static final SpanLimits DEFAULT_SPAN_LIMITS = new SpanLimits(128, 128, 256, 16384);
+
+    /**
+     * Limits that are effectively unbounded, for when you don't want any limits enforced.
+     */
+    public static final SpanLimits NO_SPAN_LIMITS = new SpanLimits(
+        Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE
+    );
+
+    private static volatile SpanLimits globalSpanLimits = DEFAULT_SPAN_LIMITS;
+
+    private static final AtomicLong globalDroppedTagsCount = new AtomicLong(0);
+    private static final AtomicLong globalDroppedAnnotationsCount = new AtomicLong(0);
+    private static final AtomicLong globalTruncatedValuesCount = new AtomicLong(0);
+
+    private final int maxNumTags;
+    private final int maxNumAnnotations;
+    private final int maxKeyLength;
+    private final int maxValueLength;
+
+    /**
+     * Creates a new instance with the given limits.
+     *
+     * @param maxNumTags The max number of tags a span can hold. Cannot be negative.
+     * @param maxNumAnnotations The max number of annotations a span can hold. Cannot be negative.
+     * @param maxKeyLength The max length of a tag key - longer keys will be truncated. Must be greater than 0.
+     * @param maxValueLength The max length of a string tag value or annotation value - longer values will be
+     * truncated. Must be greater than 0.
+     * @throws IllegalArgumentException if any of the arguments are outside the allowed range.
+     */
+    public SpanLimits(int maxNumTags, int maxNumAnnotations, int maxKeyLength, int maxValueLength) {
+        if (maxNumTags < 0) {
+            throw new IllegalArgumentException("maxNumTags cannot be negative");
+        }
+
+        if (maxNumAnnotations < 0) {
+            throw new IllegalArgumentException("maxNumAnnotations cannot be negative");
+        }
+
+        if (maxKeyLength <= 0) {
+            throw new IllegalArgumentException("maxKeyLength must be greater than 0");
+        }
+
+        if (maxValueLength <= 0) {
+            throw new IllegalArgumentException("maxValueLength must be greater than 0");
+        }
+
+        this.maxNumTags = maxNumTags;
+        this.maxNumAnnotations = maxNumAnnotations;
+        this.maxKeyLength = maxKeyLength;
+        this.maxValueLength = maxValueLength;
+    }
+
+    /**
+     * @return The limits currently enforced by all {@link Span}s. Defaults to {@link #DEFAULT_SPAN_LIMITS}. Will
+     * never be null.
+     */
+    public static SpanLimits getGlobalSpanLimits() {
+        return globalSpanLimits;
+    }
+
+    /**
+     * Sets the limits enforced by all {@link Span}s. Spans that already exist are not retroactively trimmed, but
+     * any further changes to them will be subject to the new limits.
+     *
+     * @param spanLimits The limits to use - cannot be null (use {@link #NO_SPAN_LIMITS} if you want to turn off limit
+     * enforcement).
+     * @throws IllegalArgumentException if the given spanLimits is null.
+     */
+    public static void setGlobalSpanLimits(SpanLimits spanLimits) {
+        if (spanLimits == null) {
+            throw new IllegalArgumentException("spanLimits cannot be null");
+        }
+
+        globalSpanLimits = spanLimits;
+    }
+
+    /**
+     * @return The total number of tags that have been dropped across all spans in this JVM due to {@link
+     * #getMaxNumTags()}.
+     */
+    public static long getGlobalDroppedTagsCount() {
+        return globalDroppedTagsCount.get();
+    }
+
+    /**
+     * @return The total number of annotations that have been dropped across all spans in this JVM due to {@link
+     * #getMaxNumAnnotations()}.
+     */
+    public static long getGlobalDroppedAnnotationsCount() {
+        return globalDroppedAnnotationsCount.get();
+    }
+
+    /**
+     * @return The total number of tag keys, tag values, and annotation values that have been truncated across all
+     * spans in this JVM due to {@link #getMaxKeyLength()} or {@link #getMaxValueLength()}.
+     */
+    public static long getGlobalTruncatedValuesCount() {
+        return globalTruncatedValuesCount.get();
+    }
+
+    /**
+     * Resets the global drop and truncation counters back to 0. Mainly intended for tests, or for metrics reporters
+     * that want to report deltas.
+     */
+    public static void resetGlobalCounters() {
+        globalDroppedTagsCount.set(0);
+        globalDroppedAnnotationsCount.set(0);
+        globalTruncatedValuesCount.set(0);
+    }
+
+    /*package*/ static void recordDroppedTag() {
+        globalDroppedTagsCount.incrementAndGet();
+    }
+
+    /*package*/ static void recordDroppedAnnotation() {
+        globalDroppedAnnotationsCount.incrementAndGet();
+    }
+
+    /*package*/ static void recordTruncatedValue() {
+        globalTruncatedValuesCount.incrementAndGet();
+    }
+
+    /**
+     * @return The max number of tags a span can hold.
+     */
+    public int getMaxNumTags() {
+        return maxNumTags;
+    }
+
+    /**
+     * @return The max number of annotations a span can hold.
+     */
+    public int getMaxNumAnnotations() {
+        return maxNumAnnotations;
+    }
+
+    /**
+     * @return The max length of a tag key - longer keys will be truncated.
+     */
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    /**
+     * @return The max length of a string tag value or annotation value - longer values will be truncated.
+     */
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+}
@@ -42,4 +42,53 @@ public class SpanMutator {
         span.setSpanName(newName);
     }
 
+    /**
+     * Puts a typed {@code long} tag on the given span via {@link Span#putTag(String, long)}. Does nothing if the
+     * given span is null. This is a null-safe convenience for code that may or may not have a span available, e.g.
+     * {@link Tracer#getCurrentSpan()}.
+     *
+     * @param span The span to tag. You can pass null, although nothing will happen if you do.
+     * @param key The tag key.
+     * @param value The tag value - it will be kept in primitive form until the span is serialized.
+     */
+    public static void putTag(@Nullable Span span, String key, long value) {
+        if (span == null) {
+            return;
+        }
+
+        span.putTag(key, value);
+    }
+
+    /**
+     * Puts a typed {@code boolean} tag on the given span via {@link Span#putTag(String, boolean)}. Does nothing if
+     * the given span is null.
+     *
+     * @param span The span to tag. You can pass null, although nothing will happen if you do.
+     * @param key The tag key.
+     * @param value The tag value - it will be kept in primitive form until the span is serialized.
+     */
+    public static void putTag(@Nullable Span span, String key, boolean value) {
+        if (span == null) {
+            return;
+        }
+
+        span.putTag(key, value);
+    }
+
+    /**
+     * Puts a typed {@code double} tag on the given span via {@link Span#putTag(String, double)}. Does nothing if the
+     * given span is null.
+     *
+     * @param span The span to tag. You can pass null, although nothing will happen if you do.
+     * @param key The tag key.
+     * @param value The tag value - it will be kept in primitive form until the span is serialized.
+     */
+    public static void putTag(@Nullable Span span, String key, double value) {
+        if (span == null) {
+            return;
+        }
+
+        span.putTag(key, value);
+    }
+
 }
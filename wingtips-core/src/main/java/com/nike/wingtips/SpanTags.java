@@ -0,0 +1,546 @@
+package com.nike.wingtips;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Insertion-ordered storage for a {@link Span}'s tags. Tag values set via the typed {@code putTag(...)} methods on
+ * {@link Span} (long, boolean, double) are kept in primitive form in parallel arrays rather than being converted to
+ * strings up front - the string form of a typed value is only produced when something asks for it (e.g. {@link
+ * Span#getTags()} during serialization), and is then remembered so it's only produced once.
+ *
+ * <p>Spans rarely have more than a couple dozen tags, so a linear scan over a small key array is as fast or faster
+ * than hashing in practice, and it lets us avoid allocating map entry objects for every tag.
+ *
+ * <p>Deferred values (see {@link Span#putDeferredTag(String, Span.DeferredTagValue)}) are kept as the {@link
+ * Span.DeferredTagValue} until {@link #resolveDeferredValues()} evaluates them, at which point they become plain string
+ * values (or are removed if they evaluate to null). The map views and {@link #get(String)} resolve deferred values
+ * before reading anything, so a deferred value that evaluates to null is never visible as a key with a null value.
+ * Index-based readers should call {@link #resolveDeferredValues()} before looping - reading a deferred value via
+ * {@link #stringValueAt(int)} also evaluates it, and removes the tag if it evaluates to null.
+ *
+ * <p>Copies are copy-on-write - the copy constructor and {@link #shareFrom(SpanTags)} reference the source's arrays
+ * rather than copying them, and whichever instance is mutated first takes a private copy at that point. This makes
+ * it cheap to derive many spans from a template span that carries a set of static tags (see {@link
+ * Span#newBuilder(Span)}).
+ *
+ * <p>NOTE: This class is intentionally package-scoped - all access goes through {@link Span} and {@link Span.Builder}.
+ * Like {@link Span} itself, this class is not threadsafe. It isn't {@link java.io.Serializable} either - spans write
+ * their tags via their own compact serialized form.
+ *
+ * @author Nic Munroe
+ */
+class SpanTags {
+
+    static final byte STRING_TYPE = 0;
+    static final byte LONG_TYPE = 1;
+    static final byte BOOLEAN_TYPE = 2;
+    static final byte DOUBLE_TYPE = 3;
+    static final byte DEFERRED_TYPE = 4;
+
+    // Same default capacity LinkedHashMap uses, which is enough space to handle the ZipkinHttpTagStrategy tags plus
+    //      a few extra without needing to grow the arrays.
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private String[] keys;
+    private byte[] types;
+    // Holds the value for LONG_TYPE tags, Double.doubleToRawLongBits(...) for DOUBLE_TYPE tags, and 1 or 0 for
+    //      BOOLEAN_TYPE tags. Unused for STRING_TYPE tags.
+    private long[] primitiveValues;
+    // Holds the value for STRING_TYPE tags, and the lazily-rendered string form for the other types.
+    private String[] stringValues;
+    // Holds the value for DEFERRED_TYPE tags. Only created when the first deferred value is put, and never shared -
+    //      see shareFrom().
+    private Span.DeferredTagValue[] deferredValues;
+    // The number of DEFERRED_TYPE tags, so resolveDeferredValues() is nearly free when there aren't any.
+    private int numDeferredValues;
+    private int size;
+    // True when the arrays above may also be referenced by another instance. Any mutation must call
+    //      ensureUnshared() first. Note that stringValueAt() still fills in its lazily-rendered cache entries in
+    //      shared arrays - that's safe because every instance sharing the arrays would render the same string.
+    private boolean shared;
+
+    private Map<String, String> stringMapView;
+    private Map<String, Object> typedMapView;
+
+    SpanTags() {
+        // Arrays are lazily created on the first put, so tagless spans don't pay for them.
+    }
+
+    SpanTags(SpanTags copy) {
+        this();
+        shareFrom(copy);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int indexOf(String key) {
+        for (int i = 0; i < size; i++) {
+            if (Objects.equals(keys[i], key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    String keyAt(int index) {
+        return keys[index];
+    }
+
+    byte typeAt(int index) {
+        return types[index];
+    }
+
+    /**
+     * @return The string form of the tag value at the given index. For typed (non-string) values this renders the
+     * string form the first time it's requested and remembers it for subsequent calls.
+     */
+    String stringValueAt(int index) {
+        if (types[index] == DEFERRED_TYPE) {
+            String value = resolveDeferredValueAt(index);
+            if (value == null) {
+                remove(keys[index]);
+            }
+            return value;
+        }
+
+        String result = stringValues[index];
+        if (result == null && types[index] != STRING_TYPE) {
+            result = renderPrimitiveAsString(types[index], primitiveValues[index]);
+            stringValues[index] = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return The value at the given index in its native form - a {@link String}, {@link Long}, {@link Boolean}, or
+     * {@link Double}, depending on how the tag was set.
+     */
+    Object typedValueAt(int index) {
+        long primitive = primitiveValues[index];
+        switch (types[index]) {
+            case LONG_TYPE:
+                return primitive;
+            case BOOLEAN_TYPE:
+                return primitive != 0;
+            case DOUBLE_TYPE:
+                return Double.longBitsToDouble(primitive);
+            default:
+                return stringValueAt(index);
+        }
+    }
+
+    /**
+     * @return The raw primitive value at the given index - only meaningful for non-{@link #STRING_TYPE} values. See
+     * the {@code primitiveValues} field for how each type is encoded.
+     */
+    long primitiveValueAt(int index) {
+        return primitiveValues[index];
+    }
+
+    String get(String key) {
+        resolveDeferredValues();
+        int index = indexOf(key);
+        return (index < 0) ? null : stringValueAt(index);
+    }
+
+    void putString(String key, String value) {
+        int index = slotFor(key);
+        clearDeferredValueAt(index);
+        types[index] = STRING_TYPE;
+        primitiveValues[index] = 0;
+        stringValues[index] = value;
+    }
+
+    /**
+     * Puts a value that isn't evaluated until it's read or {@link #resolveDeferredValues()} is called.
+     */
+    void putDeferred(String key, Span.DeferredTagValue value) {
+        int index = slotFor(key);
+        if (deferredValues == null) {
+            deferredValues = new Span.DeferredTagValue[keys.length];
+        }
+        if (types[index] != DEFERRED_TYPE || deferredValues[index] == null) {
+            numDeferredValues++;
+        }
+        types[index] = DEFERRED_TYPE;
+        primitiveValues[index] = 0;
+        stringValues[index] = null;
+        deferredValues[index] = value;
+    }
+
+    /**
+     * Evaluates all deferred values. Values that evaluate to null are removed, the same as if the tag had never been
+     * put. Does nothing (cheaply) if there are no deferred values.
+     */
+    void resolveDeferredValues() {
+        if (numDeferredValues == 0) {
+            return;
+        }
+
+        int i = 0;
+        while (i < size) {
+            if (types[i] == DEFERRED_TYPE && resolveDeferredValueAt(i) == null) {
+                remove(keys[i]);
+                continue;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Removes all deferred values without evaluating them, releasing whatever they reference. Does nothing (cheaply)
+     * if there are no deferred values.
+     */
+    void removeDeferredValues() {
+        if (numDeferredValues == 0) {
+            return;
+        }
+
+        int i = 0;
+        while (i < size) {
+            if (types[i] == DEFERRED_TYPE) {
+                remove(keys[i]);
+                continue;
+            }
+            i++;
+        }
+    }
+
+    private String resolveDeferredValueAt(int index) {
+        Span.DeferredTagValue deferred = deferredValues[index];
+        // Clear the deferred value before evaluating it so it's evaluated at most once, even if it reads this span's
+        //      tags itself.
+        clearDeferredValueAt(index);
+        types[index] = STRING_TYPE;
+        String value = deferred.get();
+        stringValues[index] = value;
+        return value;
+    }
+
+    private void clearDeferredValueAt(int index) {
+        if (deferredValues != null && deferredValues[index] != null) {
+            deferredValues[index] = null;
+            numDeferredValues--;
+        }
+    }
+
+    void putLong(String key, long value) {
+        putPrimitive(key, LONG_TYPE, value);
+    }
+
+    void putBoolean(String key, boolean value) {
+        putPrimitive(key, BOOLEAN_TYPE, value ? 1 : 0);
+    }
+
+    void putDouble(String key, double value) {
+        putPrimitive(key, DOUBLE_TYPE, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Puts a typed (non-string) value using its raw primitive encoding - see the {@code primitiveValues} field.
+     */
+    void putPrimitive(String key, byte type, long rawValue) {
+        int index = slotFor(key);
+        clearDeferredValueAt(index);
+        types[index] = type;
+        primitiveValues[index] = rawValue;
+        // Clear out any previously-rendered string so it gets regenerated from the new value on demand.
+        stringValues[index] = null;
+    }
+
+    /**
+     * Makes this (empty) instance share the given source's storage - see the class-level javadocs for how the
+     * copy-on-write sharing works. The source's deferred values are resolved first, so a deferred value is never
+     * shared (and therefore never evaluated more than once).
+     *
+     * @throws IllegalStateException if this instance is not empty.
+     */
+    void shareFrom(SpanTags source) {
+        if (size != 0) {
+            throw new IllegalStateException("Cannot share tag storage into a non-empty SpanTags instance");
+        }
+
+        source.resolveDeferredValues();
+        if (source.size == 0) {
+            return;
+        }
+
+        keys = source.keys;
+        types = source.types;
+        primitiveValues = source.primitiveValues;
+        stringValues = source.stringValues;
+        size = source.size;
+        // Sized for the old keys array, and there are no deferred values left to keep since this instance was empty.
+        deferredValues = null;
+
+        shared = true;
+        source.shared = true;
+    }
+
+    /**
+     * @return true if this instance's storage might be referenced by another instance (i.e. it came from or was
+     * given to {@link #shareFrom(SpanTags)} and hasn't been mutated since).
+     */
+    boolean isSharingStorage() {
+        return shared;
+    }
+
+    void putAll(Map<String, String> tags) {
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            putString(entry.getKey(), entry.getValue());
+        }
+    }
+
+    void putAll(SpanTags other) {
+        for (int i = 0; i < other.size; i++) {
+            if (other.types[i] == DEFERRED_TYPE) {
+                putDeferred(other.keys[i], other.deferredValues[i]);
+                continue;
+            }
+
+            int index = slotFor(other.keys[i]);
+            clearDeferredValueAt(index);
+            types[index] = other.types[i];
+            primitiveValues[index] = other.primitiveValues[i];
+            stringValues[index] = other.stringValues[i];
+        }
+    }
+
+    boolean remove(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+
+        ensureUnshared();
+        clearDeferredValueAt(index);
+
+        // Shift everything after the removed index down by one to preserve insertion order.
+        int numToMove = size - index - 1;
+        if (numToMove > 0) {
+            System.arraycopy(keys, index + 1, keys, index, numToMove);
+            System.arraycopy(types, index + 1, types, index, numToMove);
+            System.arraycopy(primitiveValues, index + 1, primitiveValues, index, numToMove);
+            System.arraycopy(stringValues, index + 1, stringValues, index, numToMove);
+            if (deferredValues != null) {
+                System.arraycopy(deferredValues, index + 1, deferredValues, index, numToMove);
+            }
+        }
+
+        size--;
+        keys[size] = null;
+        stringValues[size] = null;
+        if (deferredValues != null) {
+            deferredValues[size] = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return The index where the value for the given key should be stored - the existing index if the key is already
+     * present, otherwise a new slot at the end (growing the arrays if necessary).
+     */
+    private int slotFor(String key) {
+        ensureUnshared();
+
+        int existingIndex = indexOf(key);
+        if (existingIndex >= 0) {
+            return existingIndex;
+        }
+
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        return size++;
+    }
+
+    /**
+     * Takes a private copy of the storage arrays if they might be referenced by another instance. The other instance
+     * keeps the original arrays, so it's unaffected by whatever mutation is about to happen here.
+     */
+    private void ensureUnshared() {
+        if (!shared) {
+            return;
+        }
+
+        int capacity = keys.length;
+        keys = Arrays.copyOf(keys, capacity);
+        types = Arrays.copyOf(types, capacity);
+        primitiveValues = Arrays.copyOf(primitiveValues, capacity);
+        stringValues = Arrays.copyOf(stringValues, capacity);
+        shared = false;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (keys == null) {
+            int initialCapacity = Math.max(DEFAULT_INITIAL_CAPACITY, minCapacity);
+            keys = new String[initialCapacity];
+            types = new byte[initialCapacity];
+            primitiveValues = new long[initialCapacity];
+            stringValues = new String[initialCapacity];
+            return;
+        }
+
+        if (minCapacity > keys.length) {
+            int newCapacity = Math.max(keys.length * 2, minCapacity);
+            keys = Arrays.copyOf(keys, newCapacity);
+            types = Arrays.copyOf(types, newCapacity);
+            primitiveValues = Arrays.copyOf(primitiveValues, newCapacity);
+            stringValues = Arrays.copyOf(stringValues, newCapacity);
+            if (deferredValues != null) {
+                deferredValues = Arrays.copyOf(deferredValues, newCapacity);
+            }
+        }
+    }
+
+    static String renderPrimitiveAsString(byte type, long rawValue) {
+        switch (type) {
+            case LONG_TYPE:
+                return Long.toString(rawValue);
+            case BOOLEAN_TYPE:
+                return (rawValue != 0) ? "true" : "false";
+            case DOUBLE_TYPE:
+                return Double.toString(Double.longBitsToDouble(rawValue));
+            default:
+                throw new IllegalStateException("Unhandled tag value type: " + type);
+        }
+    }
+
+    /**
+     * @return An unmodifiable {@code Map<String, String>} view of these tags, where typed values are rendered in
+     * string form. The view reflects changes made to this instance.
+     */
+    Map<String, String> asStringMap() {
+        if (stringMapView == null) {
+            stringMapView = Collections.unmodifiableMap(new StringMapView());
+        }
+        return stringMapView;
+    }
+
+    /**
+     * @return An unmodifiable {@code Map<String, Object>} view of these tags, where values are in their native form -
+     * {@link String}, {@link Long}, {@link Boolean}, or {@link Double}. The view reflects changes made to this
+     * instance.
+     */
+    Map<String, Object> asTypedMap() {
+        if (typedMapView == null) {
+            typedMapView = Collections.unmodifiableMap(new TypedMapView());
+        }
+        return typedMapView;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SpanTags)) {
+            return false;
+        }
+        // Equality is based on the string form, since that's what survives serialization.
+        SpanTags other = (SpanTags) o;
+        resolveDeferredValues();
+        other.resolveDeferredValues();
+        return asStringMap().equals(other.asStringMap());
+    }
+
+    @Override
+    public int hashCode() {
+        resolveDeferredValues();
+        return asStringMap().hashCode();
+    }
+
+    private abstract class IndexedMapView<V> extends AbstractMap<String, V> {
+
+        abstract V valueAt(int index);
+
+        @Override
+        public int size() {
+            resolveDeferredValues();
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            resolveDeferredValues();
+            return (key == null || key instanceof String) && indexOf((String) key) >= 0;
+        }
+
+        @Override
+        public V get(Object key) {
+            if (key != null && !(key instanceof String)) {
+                return null;
+            }
+            resolveDeferredValues();
+            int index = indexOf((String) key);
+            return (index < 0) ? null : valueAt(index);
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<Entry<String, V>>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    // Resolve up front so deferred values that evaluate to null can't shift indexes mid-iteration.
+                    resolveDeferredValues();
+                    return new Iterator<Entry<String, V>>() {
+                        private int nextIndex = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return nextIndex < size;
+                        }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (nextIndex >= size) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = nextIndex++;
+                            return new SimpleImmutableEntry<>(keys[index], valueAt(index));
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("remove");
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    resolveDeferredValues();
+                    return size;
+                }
+            };
+        }
+    }
+
+    private class StringMapView extends IndexedMapView<String> {
+        @Override
+        String valueAt(int index) {
+            return stringValueAt(index);
+        }
+    }
+
+    private class TypedMapView extends IndexedMapView<Object> {
+        @Override
+        Object valueAt(int index) {
+            return typedValueAt(index);
+        }
+    }
+}
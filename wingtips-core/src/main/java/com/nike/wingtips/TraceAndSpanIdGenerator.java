@@ -1,11 +1,17 @@
 package com.nike.wingtips;
 
+import com.nike.wingtips.clock.SpanClock;
+import com.nike.wingtips.idgen.IdGenerator;
+import com.nike.wingtips.idgen.ThreadLocalIdGenerator;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ID generation class for use with trace IDs, span IDs, and parent span IDs for the {@link Span} class. Call the static {@link #generateId()} method whenever you
@@ -16,6 +22,14 @@ import java.util.Random;
  * and unsigned hex encoding to conform to the ZipKin distributed tracing B3 implementation
  * (see <a href="http://zipkin.io/pages/instrumenting.html">http://zipkin.io/pages/instrumenting.html</a>).
  *
+ * <p>Trace IDs can optionally be 128 bits (32 lowercase hex characters) rather than 64 - see {@link #setGenerate128BitTraceIds(boolean)} and
+ * {@link #generateTraceId()}. They can also be time-ordered (epoch seconds in the high bits, AWS X-Ray style) for better locality in span
+ * storage - see {@link #setGenerateTimeOrderedTraceIds(boolean)}. Span IDs are always 64 bits and random.
+ *
+ * <p>The random values behind the IDs come from a pluggable {@link IdGenerator}, which you can change via {@link
+ * #setIdGenerator(IdGenerator)}. The default is {@link ThreadLocalIdGenerator}, which never contends across threads.
+ * See the {@link IdGenerator} javadocs for the other available implementations.
+ *
  * @author Nic Munroe
  */
 public class TraceAndSpanIdGenerator {
@@ -23,12 +37,19 @@ public class TraceAndSpanIdGenerator {
     private static final Logger logger = LoggerFactory.getLogger(TraceAndSpanIdGenerator.class);
 
     /**
-     * The random number generator this class will use to generate random numbers. Since this is used in {@link #generateId()} and we want those numbers to span the full
-     * set of 64 bit possibilities this should be a {@link SecureRandom} if at all possible (see {@link java.util.Random#nextLong()} for details on the default
-     * Random's limitations here). And since it will be used in a multithreaded and time sensitive environment it should not be a blocking {@link SecureRandom} instance
-     * (i.e. it should be a pseudorandom number generator, not a true random number generator which might need to block for entropy data).
+     * The generator this class will use to generate random numbers. Since this is used in {@link #generateId()} and we want those numbers to span the full
+     * set of 64 bit possibilities the generator must not have the limitations of the default {@link Random} (see {@link java.util.Random#nextLong()} for details).
+     * And since it will be used in a multithreaded and time sensitive environment it should not block or contend across threads.
      */
-    private static final Random random = getRandomInstance("SHA1PRNG");
+    private static volatile IdGenerator idGenerator = ThreadLocalIdGenerator.INSTANCE;
+
+    private static volatile boolean generate128BitTraceIds = false;
+    private static volatile boolean generateTimeOrderedTraceIds = false;
+
+    // Time-ordered trace IDs start with the epoch seconds as 8 hex chars (32 bits), followed by 24 random hex chars.
+    private static final int TIME_ORDERED_TRACE_ID_LENGTH = 32;
+    private static final int TIME_ORDERED_TRACE_ID_EPOCH_SECONDS_HEX_LENGTH = 8;
+    private static final long LOWER_32_BITS_MASK = 0xFFFFFFFFL;
 
     /**
      * Intentionally private constructor to force all access via static methods.
@@ -51,15 +72,152 @@ public class TraceAndSpanIdGenerator {
         return longToUnsignedLowerHexString(generate64BitRandomLong());
     }
 
+    /**
+     * @return A newly-generated ID intended for use as a trace ID. If {@link #isGenerateTimeOrderedTraceIds()} is true then this will be a
+     *          128-bit time-ordered ID (see {@link #generateTimeOrderedTraceId()}). Otherwise, if {@link #isGenerate128BitTraceIds()} is true
+     *          then this will be a random 128-bit ID encoded as 32 lowercase hex characters (see {@link #generate128BitId()}), otherwise it will
+     *          be a random 64-bit ID encoded as 16 lowercase hex characters (see {@link #generateId()}). {@link Tracer} and
+     *          {@link Span.Builder} use this method when they need a new trace ID.
+     */
+    public static String generateTraceId() {
+        if (generateTimeOrderedTraceIds) {
+            return generateTimeOrderedTraceId();
+        }
+
+        return (generate128BitTraceIds) ? generate128BitId() : generateId();
+    }
+
+    /**
+     * @return A newly-generated 128-bit time-ordered trace ID encoded as 32 lowercase hex characters, in the style of AWS X-Ray trace IDs. The
+     *          first 8 hex characters (the high 32 bits) are the current epoch seconds according to {@link SpanClock#getGlobalClock()}, and the
+     *          remaining 24 hex characters (96 bits) are random. IDs generated in the same second therefore share a common prefix and sort by
+     *          time, which improves write locality and makes time-range pruning possible. Use
+     *          {@link #extractEpochSecondsFromTimeOrderedTraceId(String)} to get the timestamp back out.
+     */
+    public static String generateTimeOrderedTraceId() {
+        IdGenerator generator = idGenerator;
+        long epochSeconds = TimeUnit.MICROSECONDS.toSeconds(SpanClock.getGlobalClock().currentTimeEpochMicros());
+        long high = (epochSeconds << 32) | (generator.generate64BitRandomLong() & LOWER_32_BITS_MASK);
+        long low = generator.generate64BitRandomLong();
+        return ZipkinHexHelpers.toLowerHex(high, low);
+    }
+
+    /**
+     * Extracts the epoch seconds timestamp from a trace ID generated by {@link #generateTimeOrderedTraceId()} (i.e. the first 8 hex
+     * characters). This parses the characters in place without creating any substrings, so it's cheap enough for log processors to call on
+     * every span in order to partition or prune by time without having to parse the rest of the span.
+     *
+     * <p>NOTE: There's no way to tell a time-ordered trace ID from a random 128-bit trace ID just by looking at it - if you call this on a
+     * random 128-bit trace ID you'll get back a random (meaningless) value.
+     *
+     * @param traceId A 32 character lowercase hex trace ID generated by {@link #generateTimeOrderedTraceId()}.
+     * @return The epoch seconds timestamp stored in the given trace ID.
+     * @throws NumberFormatException if the given trace ID is not 32 characters long, or the timestamp portion isn't lowercase hex.
+     */
+    public static long extractEpochSecondsFromTimeOrderedTraceId(String traceId) {
+        if (traceId == null || traceId.length() != TIME_ORDERED_TRACE_ID_LENGTH) {
+            throw new NumberFormatException(
+                traceId + " should be a 32 character lower-hex time-ordered trace ID with no prefix"
+            );
+        }
+
+        return ZipkinHexHelpers.lowerHexToUnsignedLong(traceId, 0, TIME_ORDERED_TRACE_ID_EPOCH_SECONDS_HEX_LENGTH);
+    }
+
+    /**
+     * The same as {@link #extractEpochSecondsFromTimeOrderedTraceId(String)}, but returns epoch milliseconds for convenience. Since the trace
+     * ID only stores seconds, the result is always a whole number of seconds.
+     *
+     * @param traceId A 32 character lowercase hex trace ID generated by {@link #generateTimeOrderedTraceId()}.
+     * @return The timestamp stored in the given trace ID, converted to epoch milliseconds.
+     * @throws NumberFormatException if the given trace ID is not 32 characters long, or the timestamp portion isn't lowercase hex.
+     */
+    public static long extractEpochMillisFromTimeOrderedTraceId(String traceId) {
+        return TimeUnit.SECONDS.toMillis(extractEpochSecondsFromTimeOrderedTraceId(traceId));
+    }
+
+    /**
+     * @return true if {@link #generateTraceId()} generates time-ordered trace IDs (see {@link #generateTimeOrderedTraceId()}). Defaults to
+     *          false.
+     */
+    public static boolean isGenerateTimeOrderedTraceIds() {
+        return generateTimeOrderedTraceIds;
+    }
+
+    /**
+     * Sets whether {@link #generateTraceId()} (and therefore {@link Tracer} and {@link Span.Builder}) should generate time-ordered trace IDs
+     * (see {@link #generateTimeOrderedTraceId()}). Time-ordered trace IDs are always 128 bits, so when this is true it takes precedence over
+     * {@link #setGenerate128BitTraceIds(boolean)} - there aren't enough random bits left in a 64-bit ID after the timestamp to safely avoid
+     * collisions. The same caveats about downstream systems handling 32 character IDs apply.
+     *
+     * @param generateTimeOrderedTraceIds Pass true to generate time-ordered trace IDs, false to use the normal random trace IDs.
+     */
+    public static void setGenerateTimeOrderedTraceIds(boolean generateTimeOrderedTraceIds) {
+        TraceAndSpanIdGenerator.generateTimeOrderedTraceIds = generateTimeOrderedTraceIds;
+    }
+
+    /**
+     * @return A newly-generated random 128-bit value encoded as a String <b>UNSIGNED AND IN HEX FORMAT</b>. The returned string will always have
+     *          a length of 32 characters (zeroes will be prepended as padding if necessary), and is built directly into a single pre-sized char
+     *          array with no intermediate strings. This is compatible with the 128-bit trace ID format supported by B3/Zipkin. You can extract
+     *          the high and low 64 bits back out via {@link #unsignedLowerHexStringToHighLong(String)} and
+     *          {@link #unsignedLowerHexStringToLong(String)} respectively.
+     */
+    public static String generate128BitId() {
+        IdGenerator generator = idGenerator;
+        long high = generator.generate64BitRandomLong();
+        long low = generator.generate64BitRandomLong();
+        return ZipkinHexHelpers.toLowerHex(high, low);
+    }
+
+    /**
+     * @return true if {@link #generateTraceId()} generates 128-bit trace IDs, false if it generates 64-bit trace IDs. Defaults to false.
+     */
+    public static boolean isGenerate128BitTraceIds() {
+        return generate128BitTraceIds;
+    }
+
+    /**
+     * Sets whether {@link #generateTraceId()} (and therefore {@link Tracer} and {@link Span.Builder}) should generate 128-bit trace IDs rather
+     * than the default 64-bit trace IDs. 128-bit trace IDs dramatically reduce the chance of trace ID collisions at high trace volumes, but any
+     * system that consumes your trace IDs (log parsers, span collectors, downstream services) must be able to handle 32 character IDs. Span IDs
+     * are always 64 bits regardless of this setting. Incoming 128-bit trace IDs from callers are always honored no matter what this is set to.
+     *
+     * @param generate128BitTraceIds Pass true to generate 128-bit trace IDs, false to generate 64-bit trace IDs.
+     */
+    public static void setGenerate128BitTraceIds(boolean generate128BitTraceIds) {
+        TraceAndSpanIdGenerator.generate128BitTraceIds = generate128BitTraceIds;
+    }
+
     /**
      * @return A random long pulled from the full 64-bit random search space (as opposed to the 48 bits of randomness you get from
-     *          {@link java.util.Random#nextLong()}).
+     *          {@link java.util.Random#nextLong()}), via the current {@link #getIdGenerator()}.
      */
     public static long generate64BitRandomLong() {
-        byte[] random8Bytes = new byte[8];
-        random.nextBytes(random8Bytes);
+        return idGenerator.generate64BitRandomLong();
+    }
+
+    /**
+     * @return The {@link IdGenerator} currently used by {@link #generateId()} and {@link #generate64BitRandomLong()}. Defaults to
+     *          {@link ThreadLocalIdGenerator}. Will never be null.
+     */
+    public static IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
 
-        return convertBytesToLong(random8Bytes);
+    /**
+     * Sets the {@link IdGenerator} used by {@link #generateId()} and {@link #generate64BitRandomLong()}, and therefore by {@link Tracer} and
+     * {@link Span.Builder} when they need new trace and span IDs. You should generally only do this at app startup.
+     *
+     * @param generator The generator to use - cannot be null.
+     * @throws IllegalArgumentException if the given generator is null.
+     */
+    public static void setIdGenerator(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("generator cannot be null");
+        }
+
+        idGenerator = generator;
     }
 
     /**
@@ -81,6 +239,29 @@ public class TraceAndSpanIdGenerator {
         return ZipkinHexHelpers.lowerHexToUnsignedLong(hexString);
     }
 
+    /**
+     * @param highBits The high 64 bits of the 128-bit value.
+     * @param lowBits The low 64 bits of the 128-bit value.
+     * @return The given 128-bit value converted to an unsigned hex encoded string of length 32 (zeroes will be prepended as padding if
+     *          necessary).
+     */
+    public static String longsToUnsignedLowerHexString(long highBits, long lowBits) {
+        return ZipkinHexHelpers.toLowerHex(highBits, lowBits);
+    }
+
+    /**
+     * Extracts the high 64 bits from a lowercase hex ID that may be up to 128 bits (32 characters) long. This parses the characters in place
+     * (no substrings are created), so it's cheap enough to call on every incoming request. Combine with {@link #unsignedLowerHexStringToLong(String)},
+     * which returns the low 64 bits, to get the full 128-bit value.
+     *
+     * @param hexString The 1 to 32 character lowercase hexadecimal string to parse.
+     * @return The high 64 bits of the value represented by the given string - this will be 0 for strings of 16 characters or less (i.e. 64-bit
+     * IDs). If the string isn't lowercase hexadecimal encoded or is longer than 32 characters then a {@link NumberFormatException} will be thrown.
+     */
+    public static long unsignedLowerHexStringToHighLong(String hexString) {
+        return ZipkinHexHelpers.lowerHexToUnsignedLongHighBits(hexString);
+    }
+
     /**
      * @param hexString The lowercase hexadecimal string representing an unsigned 64-bit long that you want to convert to a Java long primitive.
      * @param index index to read 16 hexadecimal characters from
@@ -91,10 +272,62 @@ public class TraceAndSpanIdGenerator {
         return ZipkinHexHelpers.lowerHexToUnsignedLong(hexString, index);
     }
 
+    /**
+     * Writes the given long as 16 unsigned lowercase hex characters into the given array starting at the given offset, without allocating
+     * anything. This is the zero-allocation equivalent of {@link #longToUnsignedLowerHexString(long)}.
+     *
+     * @param primitiveLong The long value to encode.
+     * @param dest The array to write to - must have room for 16 characters starting at {@code offset}.
+     * @param offset The index in {@code dest} to start writing at.
+     * @return The index in {@code dest} immediately after the last character written (i.e. {@code offset + 16}).
+     * @throws IndexOutOfBoundsException if {@code dest} doesn't have room for 16 characters starting at {@code offset}.
+     */
+    public static int writeUnsignedLowerHex(long primitiveLong, char[] dest, int offset) {
+        checkRoomForHexLong(dest.length, offset);
+        ZipkinHexHelpers.writeHexLong(dest, offset, primitiveLong);
+        return offset + 16;
+    }
+
+    /**
+     * Decodes the lowercase hex characters in the given range of the given {@link CharSequence} into a long, without creating any
+     * intermediate strings. Useful when IDs are held in a non-String {@link CharSequence} (e.g. Netty's {@code AsciiString} header values).
+     * Follows the same rules as {@link #unsignedLowerHexStringToLong(String)} - the range can be 1 to 32 characters long, and any bits higher
+     * than 64 are ignored (i.e. for a 128-bit ID you get the low 64 bits). Unlike {@link #unsignedLowerHexStringToLong(String)} though, the
+     * ignored high bit characters must still be valid lowercase hex.
+     *
+     * @param lowerHex The characters to decode.
+     * @param beginIndex The index of the first character to decode (inclusive).
+     * @param endIndex The index after the last character to decode (exclusive).
+     * @return The long value represented by the given range.
+     * @throws NumberFormatException if the range isn't 1 to 32 lowercase hex characters.
+     */
+    public static long unsignedLowerHexToLong(CharSequence lowerHex, int beginIndex, int endIndex) {
+        int start = ZipkinHexHelpers.lowBitsStartIndex(beginIndex, endIndex);
+        long result = 0;
+        for (int i = beginIndex; i < endIndex; i++) {
+            int digit = ZipkinHexHelpers.decodeLowerHexDigit(lowerHex.charAt(i));
+            if (digit < 0) {
+                throw ZipkinHexHelpers.isntLowerHexLong(lowerHex.subSequence(beginIndex, endIndex).toString());
+            }
+            if (i >= start) {
+                result = (result << 4) | digit;
+            }
+        }
+        return result;
+    }
+
+    private static void checkRoomForHexLong(int destLength, int offset) {
+        if (offset < 0 || offset > destLength - 16) {
+            throw new IndexOutOfBoundsException(
+                "Not enough room to write 16 hex characters at offset " + offset + " (destination length " + destLength + ")"
+            );
+        }
+    }
+
     /**
      * Converts the given 8 bytes to a long value. Implementation for this taken from {@link java.util.UUID#UUID(byte[])}.
      */
-    protected static long convertBytesToLong(byte[] byteArray) {
+    public static long convertBytesToLong(byte[] byteArray) {
         if (byteArray.length != 8)
             throw new IllegalArgumentException("byteArray must be 8 bytes in length");
 
@@ -109,7 +342,7 @@ public class TraceAndSpanIdGenerator {
      * Tries to retrieve and return the {@link SecureRandom} with the given implementation using {@link SecureRandom#getInstance(String)}, and falls back to a
      * {@code new Random(System.nanoTime())} if that instance could not be found.
      */
-    protected static Random getRandomInstance(String desiredSecureRandomImplementation) {
+    public static Random getRandomInstance(String desiredSecureRandomImplementation) {
         Random randomToUse;
 
         try {
@@ -151,6 +384,21 @@ public class TraceAndSpanIdGenerator {
             return lowerHexToUnsignedLong(lowerHex, beginIndex);
         }
 
+        /**
+         * Parses the high 64 bits of a 1 to 32 character lower-hex string with no prefix, i.e. everything except the
+         * last 16 characters. Returns 0 if the string is 16 characters or less.
+         */
+        static long lowerHexToUnsignedLongHighBits(String lowerHex) {
+            int length = lowerHex.length();
+            if (length < 1 || length > 32) throw isntLowerHexLong(lowerHex);
+
+            if (length <= 16) {
+                return 0;
+            }
+
+            return lowerHexToUnsignedLong(lowerHex, 0, length - 16);
+        }
+
         /**
          * Parses a 16 character lower-hex string with no prefix into an unsigned long, starting at the
          * spe index.
@@ -159,8 +407,12 @@ public class TraceAndSpanIdGenerator {
             int length = lowerHex.length() - index;
             if (length < 1) throw new NumberFormatException("Nothing to parse at index " + index);
 
+            return lowerHexToUnsignedLong(lowerHex, index, Math.min(index + 16, lowerHex.length()));
+        }
+
+        static long lowerHexToUnsignedLong(String lowerHex, int index, int endIndex) {
             long result = 0;
-            for (int endIndex = Math.min(index + 16, lowerHex.length()); index < endIndex; index++) {
+            for (; index < endIndex; index++) {
                 char c = lowerHex.charAt(index);
                 result <<= 4;
                 if (c >= '0' && c <= '9') {
@@ -174,6 +426,43 @@ public class TraceAndSpanIdGenerator {
             return result;
         }
 
+        static final char[] HEX_DIGITS =
+            {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+        /**
+         * Lookup table mapping US-ASCII characters to their lowercase hex digit value, or -1 if the character isn't a
+         * lowercase hex digit.
+         */
+        private static final byte[] LOWER_HEX_DIGIT_VALUES = new byte[128];
+        static {
+            Arrays.fill(LOWER_HEX_DIGIT_VALUES, (byte) -1);
+            for (int i = 0; i < HEX_DIGITS.length; i++) {
+                LOWER_HEX_DIGIT_VALUES[HEX_DIGITS[i]] = (byte) i;
+            }
+        }
+
+        /**
+         * @return The value of the given lowercase hex digit, or -1 if it isn't a lowercase hex digit.
+         */
+        static int decodeLowerHexDigit(int c) {
+            return (c >= 0 && c < 128) ? LOWER_HEX_DIGIT_VALUES[c] : -1;
+        }
+
+        /**
+         * Validates that the given range is 1 to 32 characters long, and returns the index where the low 64 bits
+         * (the last 16 characters) start.
+         */
+        static int lowBitsStartIndex(int beginIndex, int endIndex) {
+            int length = endIndex - beginIndex;
+            if (length < 1 || length > 32) {
+                throw new NumberFormatException(
+                    "Range [" + beginIndex + ", " + endIndex + ") should cover a 1 to 32 character lower-hex "
+                    + "string with no prefix"
+                );
+            }
+            return (length > 16) ? endIndex - 16 : beginIndex;
+        }
+
         static NumberFormatException isntLowerHexLong(String lowerHex) {
             return new NumberFormatException(
                 lowerHex + " should be a 1 to 32 character lower-hex string with no prefix");
@@ -186,6 +475,17 @@ public class TraceAndSpanIdGenerator {
             return new String(data);
         }
 
+        /**
+         * Encodes the given 128-bit value (as high and low longs) into a single 32 character array, with no
+         * intermediate strings.
+         */
+        static String toLowerHex(long high, long low) {
+            char[] data = new char[32];
+            writeHexLong(data, 0, high);
+            writeHexLong(data, 16, low);
+            return new String(data);
+        }
+
         /** Inspired by {@code okio.Buffer.writeLong} */
         static void writeHexLong(char[] data, int pos, long v) {
             writeHexByte(data, pos + 0,  (byte) ((v >>> 56L) & 0xff));
@@ -198,12 +498,10 @@ public class TraceAndSpanIdGenerator {
             writeHexByte(data, pos + 14, (byte)  (v & 0xff));
         }
 
-        static final char[] HEX_DIGITS =
-            {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-
         static void writeHexByte(char[] data, int pos, byte b) {
             data[pos + 0] = HEX_DIGITS[(b >> 4) & 0xf];
             data[pos + 1] = HEX_DIGITS[b & 0xf];
         }
+
     }
 }
@@ -8,8 +8,8 @@ package com.nike.wingtips;
 public interface TraceHeaders {
 
     /**
-     * The root id of the distributed trace. For Zipkin/B3 compatibility this header value should be an unsigned 64 bit long-integer encoded in lowercase hex
-     * (see {@link TraceAndSpanIdGenerator#generateId()} for details).
+     * The root id of the distributed trace. For Zipkin/B3 compatibility this header value should be an unsigned 64 bit long-integer encoded in lowercase hex,
+     * or an unsigned 128 bit value encoded in 32 lowercase hex characters (see {@link TraceAndSpanIdGenerator#generateTraceId()} for details).
      */
     String TRACE_ID = "X-B3-TraceId";
 
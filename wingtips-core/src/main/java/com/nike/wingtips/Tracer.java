@@ -3,10 +3,15 @@ package com.nike.wingtips;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
 import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.sampling.ContextAwareRootSpanSamplingStrategy;
+import com.nike.wingtips.sampling.RootSpanSamplingContext;
 import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
 import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
+import com.nike.wingtips.sampling.SubSpanSamplingStrategy;
+import com.nike.wingtips.sink.SpanSink;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
 import com.nike.wingtips.util.TracingState;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -40,7 +45,10 @@ import static com.nike.wingtips.http.HttpRequestTracingUtils.CHILD_OF_SPAN_FROM_
  * </p>
  * <p>
  *     Sampling is determined using {@link #rootSpanSamplingStrategy} which defaults to sampling everything. You can override this by calling
- *     {@link #setRootSpanSamplingStrategy(RootSpanSamplingStrategy)}.
+ *     {@link #setRootSpanSamplingStrategy(RootSpanSamplingStrategy)}. If the strategy is a {@link ContextAwareRootSpanSamplingStrategy} then it will be given
+ *     the name and purpose of each root span (and request info when available) so it can make per-operation decisions. Sub-spans of sampled spans are normally
+ *     always recorded, but hot operations can be summarized instead of recorded by calling {@link #setSubSpanSamplingStrategy(SubSpanSamplingStrategy)} - see
+ *     {@link Span#isSummarizedSubSpan()}.
  * </p>
  * <p>
  *     You can be notified of span lifecycle events (i.e. for metrics counting) by adding a listener to {@link #addSpanLifecycleListener(SpanLifecycleListener)}.
@@ -116,7 +124,9 @@ import static com.nike.wingtips.http.HttpRequestTracingUtils.CHILD_OF_SPAN_FROM_
  *     current span's tracing information. Note you can adjust which span fields are included in the MDC behavior by
  *     calling {@link #setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc...)}. It's recommended that you always include
  *     {@link SpanFieldForLoggerMdc#TRACE_ID}, but if you want to also include span ID, parent span ID, or even the
- *     full span JSON in the MDC (not recommended), you can.
+ *     full span JSON in the MDC (not recommended), you can. If you'd rather not pay for MDC updates every time the current span
+ *     changes, the Logback and Log4j2 pattern converters in the {@code wingtips-logback} and {@code wingtips-log4j2} modules render span fields straight from
+ *     {@link #getCurrentSpan()} at log time, and {@link #disableLoggerMdc()} turns the MDC updates off.
  * </p>
  * <p>
  *     NOTE: Due to the thread-local nature of this class it is more effort to integrate with reactive (asynchronous non-blocking) frameworks like Netty or actor frameworks
@@ -156,7 +166,14 @@ public class Tracer {
         /**
          * Causes spans to be output in the logs using {@link Span#toKeyValueString()}.
          */
-        KEY_VALUE
+        KEY_VALUE,
+        /**
+         * Causes spans to be output in the logs using {@link SpanBinaryCodec#toBase64(Span)} - the Base64 form of a
+         * compact versioned binary encoding that's much smaller and cheaper to produce than JSON or key/value. Use this
+         * when the span logs are only read by machines (e.g. shipped to Kafka) - {@link SpanBinaryCodec#fromBase64(
+         * CharSequence)} reads them back.
+         */
+        BINARY
     }
 
     /**
@@ -212,6 +229,25 @@ public class Tracer {
                     throw new IllegalStateException("Unhandled SpanFieldForLoggerMdc type: " + this);
             }
         }
+
+        /**
+         * @param mdcKeyOrName Either a {@link #mdcKey} (e.g. {@code traceId}) or an enum name (e.g. {@code TRACE_ID}).
+         * Surrounding whitespace is ignored. Useful for logging framework converters that let users pick a span field.
+         * @return The {@link SpanFieldForLoggerMdc} for the given MDC key or name.
+         * @throws IllegalArgumentException if the given value doesn't name a span field.
+         */
+        public static @NotNull SpanFieldForLoggerMdc fromMdcKeyOrName(@Nullable String mdcKeyOrName) {
+            String trimmed = (mdcKeyOrName == null) ? null : mdcKeyOrName.trim();
+            for (SpanFieldForLoggerMdc field : values()) {
+                if (field.mdcKey.equals(trimmed) || field.name().equals(trimmed)) {
+                    return field;
+                }
+            }
+
+            throw new IllegalArgumentException(
+                "Unknown span field: " + trimmed + ". Expected one of traceId, spanId, parentSpanId, or spanJson."
+            );
+        }
     }
 
     private static final String VALID_WINGTIPS_SPAN_LOGGER_NAME = "VALID_WINGTIPS_SPANS";
@@ -226,6 +262,19 @@ public class Tracer {
      */
     private static final ThreadLocal<Deque<Span>> currentSpanStackThreadLocal = new ThreadLocal<>();
 
+    /**
+     * ThreadLocal that keeps track of the values {@link #configureMDC(Span)} last wrote to the logger {@link MDC} for
+     * the thread, indexed by {@link SpanFieldForLoggerMdc#ordinal()} (null means nothing is written for that field).
+     * This lets {@link #unconfigureMDC()} clean up fields that were written before {@link
+     * #setSpanFieldsForLoggerMdc(Set)} removed them from the configured fields.
+     */
+    private static final ThreadLocal<String[]> mdcValuesWrittenThreadLocal = new ThreadLocal<String[]>() {
+        @Override
+        protected String[] initialValue() {
+            return new String[ALL_SPAN_FIELDS_FOR_LOGGER_MDC.length];
+        }
+    };
+
     /**
      * The singleton instance for this class.
      */
@@ -237,6 +286,11 @@ public class Tracer {
      */
     private RootSpanSamplingStrategy rootSpanSamplingStrategy = new SampleAllTheThingsStrategy();
 
+    /**
+     * The strategy that decides whether sub-spans of sampled spans are recorded or summarized. Null (the default) means all sub-spans are recorded.
+     */
+    private SubSpanSamplingStrategy subSpanSamplingStrategy = null;
+
     /**
      * The list of span lifecycle listeners that should be notified when span lifecycle events occur.
      * Note that we use a {@link CopyOnWriteArrayList} to prevent {@link java.util.ConcurrentModificationException}s
@@ -250,10 +304,18 @@ public class Tracer {
      */
     private SpanLoggingRepresentation spanLoggingRepresentation = SpanLoggingRepresentation.JSON;
 
+    /**
+     * The sink that completed sampleable spans are handed to instead of being logged, or null (the default) to log them
+     * to the span loggers. See {@link #setSpanSink(SpanSink)}.
+     */
+    private volatile SpanSink spanSink = null;
+
     /**
      * The set of span fields that should be put into and taken out of the logger {@link MDC} as {@link Tracer} works
      * with spans.
      */
+    private static final SpanFieldForLoggerMdc[] ALL_SPAN_FIELDS_FOR_LOGGER_MDC = SpanFieldForLoggerMdc.values();
+
     private SpanFieldForLoggerMdc[] spanFieldsForLoggerMdc =
         new SpanFieldForLoggerMdc[]{ SpanFieldForLoggerMdc.TRACE_ID };
     private Set<SpanFieldForLoggerMdc> cachedUnmodifiableSpanFieldsForLoggerMdc =
@@ -316,8 +378,30 @@ public class Tracer {
      * @return The new span (which is now also the current one that will be returned by {@link #getCurrentSpan()}).
      */
     public Span startRequestWithRootSpan(String spanName, String userId) {
-        boolean sampleable = isNextRootSpanSampleable();
-        String traceId = TraceAndSpanIdGenerator.generateId();
+        return startRequestWithRootSpan(spanName, userId, null);
+    }
+
+    /**
+     * Similar to {@link #startRequestWithRootSpan(String, String)} but takes in an optional {@link RootSpanSamplingContext} describing the incoming request. The
+     * context is passed to the {@link #rootSpanSamplingStrategy} if it is a {@link ContextAwareRootSpanSamplingStrategy}, and ignored otherwise. This is
+     * intended for server integrations (e.g. servlet filters) that have request info like HTTP method and path available when starting root spans.
+     * The newly created root span will have a span purpose of {@link SpanPurpose#SERVER}.
+     * <p/>
+     * <b>WARNING:</b> This wipes out any existing spans on the span stack for this thread and starts fresh, therefore this should only be called at the request's
+     * entry point when it's expected that the span stack should be empty.
+     *
+     * @param spanName - The span name to use for the new span - should never be null.
+     * @param userId - The ID of the user that should be associated with the {@link Span} - can be null.
+     * @param samplingContext - Info about the request for the sampling decision - can be null, in which case a context with only the span name and
+     *                        {@link SpanPurpose#SERVER} will be used. Any trace ID in the context is replaced with the newly generated trace ID.
+     * @return The new span (which is now also the current one that will be returned by {@link #getCurrentSpan()}).
+     */
+    public Span startRequestWithRootSpan(String spanName, String userId, RootSpanSamplingContext samplingContext) {
+        // Generate the trace ID first so context-aware sampling strategies can base their decision on it.
+        String traceId = TraceAndSpanIdGenerator.generateTraceId();
+        boolean sampleable = (samplingContext == null)
+                             ? isNextRootSpanSampleable(traceId, spanName, SpanPurpose.SERVER)
+                             : isRootSpanSampleable(traceId, samplingContext);
         return doNewRequestSpan(traceId, null, spanName, sampleable, userId, SpanPurpose.SERVER);
     }
 
@@ -354,7 +438,7 @@ public class Tracer {
         );
 
         if (addBadParentIdIndicatorTag) {
-            result.putTag(CHILD_OF_SPAN_FROM_HEADERS_WHERE_CALLER_DID_NOT_SEND_SPAN_ID_TAG_KEY, "true");
+            result.putTag(CHILD_OF_SPAN_FROM_HEADERS_WHERE_CALLER_DID_NOT_SEND_SPAN_ID_TAG_KEY, true);
         }
 
         return result;
@@ -391,6 +475,10 @@ public class Tracer {
      * current span. When this new child sub-span is completed using {@link #completeSubSpan()} then it will be popped off the span stack and its parent will once again
      * become the current span.
      * <p/>
+     * If a {@link #setSubSpanSamplingStrategy(SubSpanSamplingStrategy)} sub-span sampling strategy is set, the current span is sampleable, and the strategy decides the
+     * sub-span should not be recorded, then the returned sub-span will be a summarized sub-span (see {@link Span#isSummarizedSubSpan()}). Summarized sub-spans are
+     * pushed onto the span stack and completed just like normal sub-spans, but no span lifecycle listeners are notified and nothing is logged for them.
+     * <p/>
      * <b>WARNING:</b> This does *NOT* wipe out any existing spans on the span stack - it pushes a new one onto the stack. If you're calling from a spot in the code where
      * you know there should never be any existing spans on the thread's span stack (i.e. new incoming request) you should call one of the {@code startRequest...()} methods
      * instead.
@@ -411,9 +499,29 @@ public class Tracer {
             );
         }
 
-        Span childSpan = (parentSpan != null)
-                ? parentSpan.generateChildSpan(spanName, spanPurpose)
-                : Span.generateRootSpanForNewTrace(spanName, spanPurpose).withSampleable(isNextRootSpanSampleable()).build();
+        Span childSpan;
+        if (parentSpan != null) {
+            SubSpanSamplingStrategy subSpanStrategy = subSpanSamplingStrategy;
+            if (subSpanStrategy != null
+                && parentSpan.isSampleable()
+                && !subSpanStrategy.isSubSpanSampleable(spanName, spanPurpose)
+            ) {
+                // Summarized sub-spans only need to be timed - there are no listeners to notify.
+                Span summarizedSpan = parentSpan.generateSummarizedChildSpan(spanName, spanPurpose);
+                pushSpanOntoCurrentSpanStack(summarizedSpan);
+                return summarizedSpan;
+            }
+
+            // If the parent is a summarized sub-span then the new span's real parent is the span it's summarized into.
+            childSpan = parentSpan.getSummarizedIntoOrSelf().generateChildSpan(spanName, spanPurpose);
+        }
+        else {
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+            childSpan = Span.generateRootSpanForNewTrace(spanName, spanPurpose)
+                            .withTraceId(traceId)
+                            .withSampleable(isNextRootSpanSampleable(traceId, spanName, spanPurpose))
+                            .build();
+        }
 
         pushSpanOntoCurrentSpanStack(childSpan);
 
@@ -518,8 +626,9 @@ public class Tracer {
         // If the current span stack is empty, then we start a new overall request span. Otherwise we start a subspan.
         //      In either case, honor the passed-in spanPurpose.
         if (getCurrentSpanStackSize() == 0) {
-            boolean sampleable = isNextRootSpanSampleable();
-            return startRequestWithSpanInfo(null, null, spanName, sampleable, null, spanPurpose);
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+            boolean sampleable = isNextRootSpanSampleable(traceId, spanName, spanPurpose);
+            return startRequestWithSpanInfo(traceId, null, spanName, sampleable, null, spanPurpose);
         }
         else {
             return startSubSpan(spanName, spanPurpose);
@@ -604,6 +713,8 @@ public class Tracer {
                 return span.toJSON();
             case KEY_VALUE:
                 return span.toKeyValueString();
+            case BINARY:
+                return SpanBinaryCodec.toBase64(span);
             default:
                 throw new IllegalStateException("Unknown span logging representation type: " + spanLoggingRepresentation);
         }
@@ -869,12 +980,30 @@ public class Tracer {
             return;
         }
 
+        if (span.isSummarizedSubSpan()) {
+            // Summarized sub-spans are never logged or sent to listeners - they only feed the summary of the span
+            //      they're summarized into.
+            //noinspection ConstantConditions
+            span.getSummarizedIntoOrSelf().recordSummarizedSubSpan(span.getSpanName(), span.getDurationNanos());
+            return;
+        }
+
+        // Attach the summary of any summarized sub-spans before listeners and logging see the span.
+        span.addSummarizedSubSpanTags();
+
         // Notify listeners after completion but before logging to allow listeners to do final span modifications and
         //      have them be reflected in the log message (e.g. change span name, add tags/annotations, etc).
         notifySpanCompleted(span);
 
         // Log the span if it was sampleable.
         if (span.isSampleable()) {
+            SpanSink sink = spanSink;
+            if (sink != null) {
+                // The sink replaces the span loggers entirely.
+                sink.spanCompleted(span, containsIncorrectTimingInfo);
+                return;
+            }
+
             String infoTag = containsIncorrectTimingInfo ? "[INCORRECT_TIMING] " : "";
             Logger loggerToUse = containsIncorrectTimingInfo ? invalidSpanLogger : validSpanLogger;
             // Only attempt to log if loggerToUse.isInfoEnabled() returns true, so that we don't incur the cost of
@@ -890,24 +1019,83 @@ public class Tracer {
     }
 
     /**
-     * Sets the span variables on the MDC context.
+     * Sets the span variables on the MDC context. Only fields whose value differs from what's already in the MDC are
+     * written - within a trace the trace ID never changes, and every MDC write can cost a copy of the MDC map (e.g.
+     * Logback copies it on the first write after each log message). Fields that this thread wrote previously but that
+     * are no longer in {@link #getSpanFieldsForLoggerMdc()} are removed.
      */
     protected void configureMDC(@NotNull Span span) {
-        for (SpanFieldForLoggerMdc mdcField : this.spanFieldsForLoggerMdc) {
-            MDC.put(mdcField.mdcKey, mdcField.getMdcValueForSpan(span));
+        SpanFieldForLoggerMdc[] mdcFields = this.spanFieldsForLoggerMdc;
+        String[] valuesWritten = mdcValuesWrittenThreadLocal.get();
+        for (SpanFieldForLoggerMdc mdcField : mdcFields) {
+            String value = mdcField.getMdcValueForSpan(span);
+            // Compare against the MDC itself rather than just valuesWritten - it's a cheap read, and it keeps us
+            //      correct if something else changed the MDC since we last wrote to it.
+            if (!isEqual(value, MDC.get(mdcField.mdcKey))) {
+                if (value == null) {
+                    MDC.remove(mdcField.mdcKey);
+                }
+                else {
+                    MDC.put(mdcField.mdcKey, value);
+                }
+            }
+            valuesWritten[mdcField.ordinal()] = value;
         }
-    }
 
+        removeMdcFieldsNoLongerConfigured(mdcFields, valuesWritten);
+    }
 
     /**
-     * Removes the MDC parameters.
+     * Removes the MDC parameters - the currently configured span fields, and any fields this thread wrote before they
+     * were removed from {@link #getSpanFieldsForLoggerMdc()}.
      */
     protected void unconfigureMDC() {
-        for (SpanFieldForLoggerMdc mdcField : this.spanFieldsForLoggerMdc) {
-            MDC.remove(mdcField.mdcKey);
+        SpanFieldForLoggerMdc[] mdcFields = this.spanFieldsForLoggerMdc;
+        String[] valuesWritten = mdcValuesWrittenThreadLocal.get();
+        for (SpanFieldForLoggerMdc mdcField : mdcFields) {
+            // Removing a key that isn't there can still cost a copy of the MDC map, so check first.
+            if (MDC.get(mdcField.mdcKey) != null) {
+                MDC.remove(mdcField.mdcKey);
+            }
+            valuesWritten[mdcField.ordinal()] = null;
+        }
+
+        removeMdcFieldsNoLongerConfigured(mdcFields, valuesWritten);
+    }
+
+    private static void removeMdcFieldsNoLongerConfigured(
+        SpanFieldForLoggerMdc[] configuredMdcFields, String[] valuesWritten
+    ) {
+        for (int i = 0; i < valuesWritten.length; i++) {
+            if (valuesWritten[i] == null) {
+                continue;
+            }
+
+            SpanFieldForLoggerMdc mdcField = ALL_SPAN_FIELDS_FOR_LOGGER_MDC[i];
+            if (!isConfiguredMdcField(configuredMdcFields, mdcField)) {
+                // Leave it alone if something else has put a different value in the MDC under the same key since.
+                if (valuesWritten[i].equals(MDC.get(mdcField.mdcKey))) {
+                    MDC.remove(mdcField.mdcKey);
+                }
+                valuesWritten[i] = null;
+            }
         }
     }
 
+    private static boolean isConfiguredMdcField(SpanFieldForLoggerMdc[] configuredMdcFields,
+                                                SpanFieldForLoggerMdc mdcField) {
+        for (SpanFieldForLoggerMdc configured : configuredMdcFields) {
+            if (configured == mdcField) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEqual(String first, String second) {
+        return (first == null) ? second == null : first.equals(second);
+    }
+
     /**
      * Allows you to set the {@link #rootSpanSamplingStrategy} used by this instance. This will throw an {@link IllegalArgumentException} if you pass in null.
      */
@@ -918,6 +1106,24 @@ public class Tracer {
         this.rootSpanSamplingStrategy = strategy;
     }
 
+    /**
+     * Allows you to set the {@link #subSpanSamplingStrategy} used by this instance to decide whether sub-spans of sampled spans are recorded as full spans or
+     * summarized (see {@link Span#isSummarizedSubSpan()}). Pass in null to go back to the default of recording all sub-spans.
+     * <p/>
+     * NOTE: A summarized sub-span's summary is attached to the span it is summarized into when that span completes, so summarized sub-spans must complete before
+     * their recorded ancestor does (which is always the case for the usual nested try-with-resources or {@link #completeSubSpan()} usage) or they won't be counted.
+     */
+    public void setSubSpanSamplingStrategy(SubSpanSamplingStrategy strategy) {
+        this.subSpanSamplingStrategy = strategy;
+    }
+
+    /**
+     * @return The {@link #subSpanSamplingStrategy} used by this instance, or null if all sub-spans are recorded (the default).
+     */
+    public SubSpanSamplingStrategy getSubSpanSamplingStrategy() {
+        return subSpanSamplingStrategy;
+    }
+
     /**
      * Delegates to {@link #rootSpanSamplingStrategy}'s {@link RootSpanSamplingStrategy#isNextRootSpanSampleable()} method to determine whether the next root span should be
      * sampled.
@@ -931,6 +1137,73 @@ public class Tracer {
         return rootSpanSamplingStrategy.isNextRootSpanSampleable();
     }
 
+    /**
+     * Determines whether a root span with the given trace ID, name, and purpose should be sampled. If {@link #rootSpanSamplingStrategy} is a
+     * {@link ContextAwareRootSpanSamplingStrategy} then it is given a {@link RootSpanSamplingContext} with this info, otherwise this delegates to
+     * {@link #isNextRootSpanSampleable()} without creating a context.
+     * <br/>
+     * NOTE: This method is not necessarily deterministic - call it once per root span and store the result.
+     *
+     * @param traceId The trace ID of the root span about to be created.
+     * @param spanName The name of the root span about to be created.
+     * @param spanPurpose The purpose of the root span about to be created.
+     * @return true when the root span should be sampled, false otherwise.
+     */
+    protected boolean isNextRootSpanSampleable(String traceId, String spanName, SpanPurpose spanPurpose) {
+        RootSpanSamplingStrategy strategy = rootSpanSamplingStrategy;
+        if (strategy instanceof ContextAwareRootSpanSamplingStrategy) {
+            return ((ContextAwareRootSpanSamplingStrategy) strategy).isRootSpanSampleable(
+                new RootSpanSamplingContext(spanName, spanPurpose, null, null, null, traceId)
+            );
+        }
+
+        // Go through the no-arg method (rather than straight to the strategy) so subclasses that override it are
+        //      still honored.
+        return isNextRootSpanSampleable();
+    }
+
+    /**
+     * Makes the sampling decision for a trace ID that was received from a caller that didn't send its own sampling
+     * decision (e.g. an incoming request with a {@link TraceHeaders#TRACE_ID} header but no {@link
+     * TraceHeaders#TRACE_SAMPLED} header). This asks the {@link #rootSpanSamplingStrategy} the same way it would be
+     * asked if this service had generated the trace ID itself, so a trace ID aware strategy (e.g. {@link
+     * com.nike.wingtips.sampling.TraceIdHashSamplingStrategy}) makes the same decision for the trace that the
+     * services upstream of this one made.
+     * <br/>
+     * NOTE: This method is not necessarily deterministic - call it once per incoming request and store the result.
+     *
+     * @param traceId The trace ID received from the caller.
+     * @param spanName The name of the span received from the caller.
+     * @return true when the received trace should be sampled, false otherwise.
+     */
+    public boolean isPropagatedTraceIdSampleable(String traceId, String spanName) {
+        return isNextRootSpanSampleable(traceId, spanName, SpanPurpose.SERVER);
+    }
+
+    /**
+     * Determines whether the root span described by the given context should be sampled. If {@link #rootSpanSamplingStrategy} is a
+     * {@link ContextAwareRootSpanSamplingStrategy} then it is given the context (with the given trace ID filled in), otherwise the context
+     * is ignored and this delegates to {@link #isNextRootSpanSampleable()}.
+     * <br/>
+     * NOTE: This method is not necessarily deterministic - call it once per root span and store the result.
+     *
+     * @param traceId The trace ID of the root span about to be created.
+     * @param samplingContext Info about the root span about to be created - should never be null.
+     * @return true when the root span should be sampled, false otherwise.
+     */
+    protected boolean isRootSpanSampleable(String traceId, RootSpanSamplingContext samplingContext) {
+        RootSpanSamplingStrategy strategy = rootSpanSamplingStrategy;
+        if (strategy instanceof ContextAwareRootSpanSamplingStrategy) {
+            return ((ContextAwareRootSpanSamplingStrategy) strategy).isRootSpanSampleable(
+                samplingContext.withTraceId(traceId)
+            );
+        }
+
+        // Go through the no-arg method (rather than straight to the strategy) so subclasses that override it are
+        //      still honored.
+        return isNextRootSpanSampleable();
+    }
+
     /**
      * Adds the given listener to the {@link #spanLifecycleListeners} list using {@link java.util.List#add(Object)}. This method will do nothing if you pass in null.
      * <p/>
@@ -1003,6 +1276,25 @@ public class Tracer {
         this.spanLoggingRepresentation = spanLoggingRepresentation;
     }
 
+    /**
+     * @return The {@link #spanSink} completed sampleable spans are handed to instead of being logged, or null if they're
+     * logged to the span loggers (the default).
+     */
+    public SpanSink getSpanSink() {
+        return spanSink;
+    }
+
+    /**
+     * Sets the {@link SpanSink} that completed sampleable spans are handed to <b>instead of</b> being logged to the
+     * span loggers - e.g. an {@link com.nike.wingtips.sink.AsyncRollingFileSpanSink} to take span output off the request
+     * threads without depending on the application's logging config. {@link #spanLoggingRepresentation} is not used
+     * while a sink is set - sinks choose their own representation. Pass in null to go back to logging spans (the
+     * default). {@link SpanLifecycleListener}s are notified either way.
+     */
+    public void setSpanSink(SpanSink spanSink) {
+        this.spanSink = spanSink;
+    }
+
     /**
      * @return The currently selected options for which span fields will be placed in the logger {@link MDC} as
      * {@link Tracer} works with spans, wrapped in a {@link Collections#unmodifiableSet(Set)} to prevent direct
@@ -1047,9 +1339,7 @@ public class Tracer {
             fieldsForMdc = Collections.emptySet();
         }
 
-        this.spanFieldsForLoggerMdc = fieldsForMdc.toArray(new SpanFieldForLoggerMdc[0]);
-        this.cachedUnmodifiableSpanFieldsForLoggerMdc =
-            Collections.unmodifiableSet(new LinkedHashSet<>(fieldsForMdc));
+        applySpanFieldsForLoggerMdc(fieldsForMdc);
 
         if (!fieldsForMdc.contains(SpanFieldForLoggerMdc.TRACE_ID)) {
             classLogger.warn(
@@ -1060,6 +1350,24 @@ public class Tracer {
         }
     }
 
+    /**
+     * Tells {@link Tracer} to stop putting span fields into (and removing them from) the logger {@link MDC} entirely.
+     * This is the same as calling {@link #setSpanFieldsForLoggerMdc(Set)} with an empty set, but without the warning
+     * about {@link SpanFieldForLoggerMdc#TRACE_ID} being excluded. Use it when your log patterns render span fields
+     * with the {@code wingtips-logback} or {@code wingtips-log4j2} span field converters, which read the current span
+     * directly, so the MDC updates every time the current span changes are pure overhead. Call {@link
+     * #setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc...)} to turn MDC updates back on.
+     */
+    public void disableLoggerMdc() {
+        applySpanFieldsForLoggerMdc(Collections.<SpanFieldForLoggerMdc>emptySet());
+    }
+
+    private void applySpanFieldsForLoggerMdc(Set<SpanFieldForLoggerMdc> fieldsForMdc) {
+        this.spanFieldsForLoggerMdc = fieldsForMdc.toArray(new SpanFieldForLoggerMdc[0]);
+        this.cachedUnmodifiableSpanFieldsForLoggerMdc =
+            Collections.unmodifiableSet(new LinkedHashSet<>(fieldsForMdc));
+    }
+
     /**
      * Notifies all listeners that the given span was started using {@link SpanLifecycleListener#spanStarted(Span)}
      */
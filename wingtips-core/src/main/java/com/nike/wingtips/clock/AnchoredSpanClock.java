@@ -0,0 +1,170 @@
+package com.nike.wingtips.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default {@link SpanClock}. It anchors wall-clock time to {@link System#nanoTime()} once, and from then on
+ * derives epoch microseconds from {@link System#nanoTime()} alone. This gives sub-millisecond resolution epoch
+ * timestamps (which {@link System#currentTimeMillis()} can't provide) at the cost of one {@link System#nanoTime()} call
+ * per timestamp.
+ *
+ * <p>Since {@link System#nanoTime()} and the wall clock can drift apart over time (NTP adjustments, etc), every
+ * {@link #getDriftCheckIntervalNanos()} the derived time is compared against {@link System#currentTimeMillis()}. If
+ * the derived time has drifted outside the window the wall clock allows for (the current millisecond plus {@link
+ * #getDriftToleranceMicros()}), the clock is re-anchored to the wall clock. Otherwise the existing anchor is kept,
+ * which avoids introducing millisecond-sized jitter into timestamps on every check.
+ *
+ * <p>This class is threadsafe and lock-free - the anchor is an immutable object swapped via a volatile field, and a
+ * race between two threads re-anchoring at the same time is harmless.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class AnchoredSpanClock extends SpanClock {
+
+    /**
+     * The default interval between drift checks - 1 second.
+     */
+    public static final long DEFAULT_DRIFT_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The default drift tolerance - 1 millisecond beyond the window allowed by the wall clock's millisecond
+     * resolution.
+     */
+    public static final long DEFAULT_DRIFT_TOLERANCE_MICROS = TimeUnit.MILLISECONDS.toMicros(1);
+
+    private static final long MICROS_PER_MILLI = TimeUnit.MILLISECONDS.toMicros(1);
+
+    /**
+     * The max amount of time the constructor will wait for the wall clock to tick over to the next millisecond when
+     * creating the initial anchor - see {@link #createInitialAnchor()}.
+     */
+    protected static final long MAX_INITIAL_ANCHOR_SPIN_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final long driftCheckIntervalNanos;
+    private final long driftToleranceMicros;
+
+    private volatile Anchor anchor;
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_DRIFT_CHECK_INTERVAL_NANOS} and {@link
+     * #DEFAULT_DRIFT_TOLERANCE_MICROS}.
+     */
+    public AnchoredSpanClock() {
+        this(DEFAULT_DRIFT_CHECK_INTERVAL_NANOS, DEFAULT_DRIFT_TOLERANCE_MICROS);
+    }
+
+    /**
+     * Creates a new instance with the given drift check settings.
+     *
+     * @param driftCheckIntervalNanos How often the derived time should be checked against the wall clock. Must be
+     * greater than 0.
+     * @param driftToleranceMicros How far outside the wall clock's window the derived time is allowed to drift before
+     * re-anchoring. Cannot be negative.
+     * @throws IllegalArgumentException if any of the arguments are outside the allowed range.
+     */
+    public AnchoredSpanClock(long driftCheckIntervalNanos, long driftToleranceMicros) {
+        if (driftCheckIntervalNanos <= 0) {
+            throw new IllegalArgumentException("driftCheckIntervalNanos must be greater than 0");
+        }
+
+        if (driftToleranceMicros < 0) {
+            throw new IllegalArgumentException("driftToleranceMicros cannot be negative");
+        }
+
+        this.driftCheckIntervalNanos = driftCheckIntervalNanos;
+        this.driftToleranceMicros = driftToleranceMicros;
+        this.anchor = createInitialAnchor();
+    }
+
+    /**
+     * Creates the initial anchor. We briefly wait for {@link System#currentTimeMillis()} to tick over to the next
+     * millisecond so the anchor lines up with a millisecond boundary - otherwise the anchor could be up to a full
+     * millisecond behind the true time. The wait is capped at {@link #MAX_INITIAL_ANCHOR_SPIN_NANOS} for platforms
+     * with a coarse wall clock, in which case we just use whatever the wall clock says.
+     */
+    protected Anchor createInitialAnchor() {
+        long spinStartNanoTime = System.nanoTime();
+        long startMillis = System.currentTimeMillis();
+        long nanoTime;
+        long millis;
+        do {
+            nanoTime = System.nanoTime();
+            millis = System.currentTimeMillis();
+        }
+        while (millis == startMillis && (nanoTime - spinStartNanoTime) < MAX_INITIAL_ANCHOR_SPIN_NANOS);
+
+        return new Anchor(TimeUnit.MILLISECONDS.toMicros(millis), nanoTime, nanoTime);
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long toEpochMicros(long nanoTime) {
+        Anchor currentAnchor = anchor;
+        if (nanoTime - currentAnchor.lastDriftCheckNanoTime >= driftCheckIntervalNanos) {
+            currentAnchor = checkDriftAndMaybeReanchor(currentAnchor, nanoTime);
+        }
+
+        return currentAnchor.toEpochMicros(nanoTime);
+    }
+
+    protected Anchor checkDriftAndMaybeReanchor(Anchor currentAnchor, long nanoTime) {
+        long derivedEpochMicros = currentAnchor.toEpochMicros(nanoTime);
+        long wallClockEpochMicros = wallClockEpochMicros();
+
+        // The wall clock only has millisecond resolution, so the true time is somewhere in
+        //      [wallClockEpochMicros, wallClockEpochMicros + 1ms). A derived time inside that window (plus tolerance)
+        //      is fine, and we keep it to avoid jitter. Otherwise we've drifted and need to snap back to the wall clock.
+        boolean drifted = derivedEpochMicros < wallClockEpochMicros - driftToleranceMicros
+                          || derivedEpochMicros >= wallClockEpochMicros + MICROS_PER_MILLI + driftToleranceMicros;
+
+        Anchor newAnchor = (drifted)
+                           ? new Anchor(wallClockEpochMicros, nanoTime, nanoTime)
+                           : new Anchor(currentAnchor.anchorEpochMicros, currentAnchor.anchorNanoTime, nanoTime);
+        anchor = newAnchor;
+        return newAnchor;
+    }
+
+    protected long wallClockEpochMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+
+    /**
+     * @return How often the derived time is checked against the wall clock, in nanoseconds.
+     */
+    public long getDriftCheckIntervalNanos() {
+        return driftCheckIntervalNanos;
+    }
+
+    /**
+     * @return How far outside the wall clock's window the derived time is allowed to drift before re-anchoring, in
+     * microseconds.
+     */
+    public long getDriftToleranceMicros() {
+        return driftToleranceMicros;
+    }
+
+    /**
+     * An immutable pairing of an epoch microsecond timestamp with the {@link System#nanoTime()} reading it
+     * corresponds to, along with the {@link System#nanoTime()} of the last drift check.
+     */
+    protected static class Anchor {
+        public final long anchorEpochMicros;
+        public final long anchorNanoTime;
+        public final long lastDriftCheckNanoTime;
+
+        public Anchor(long anchorEpochMicros, long anchorNanoTime, long lastDriftCheckNanoTime) {
+            this.anchorEpochMicros = anchorEpochMicros;
+            this.anchorNanoTime = anchorNanoTime;
+            this.lastDriftCheckNanoTime = lastDriftCheckNanoTime;
+        }
+
+        public long toEpochMicros(long nanoTime) {
+            return anchorEpochMicros + TimeUnit.NANOSECONDS.toMicros(nanoTime - anchorNanoTime);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.nike.wingtips.clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link SpanClock} that only moves when you tell it to. Intended for tests that need deterministic span
+ * timestamps and durations - install it via {@link SpanClock#setGlobalClock(SpanClock)}, then call {@link
+ * #advance(long, TimeUnit)} or {@link #setNanoTime(long)} to move time forward. Don't forget to restore the original
+ * clock when your test is done.
+ *
+ * <p>This class is threadsafe.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class DeterministicSpanClock extends SpanClock {
+
+    private final long startEpochMicros;
+    private final long startNanoTime;
+    private final AtomicLong currentNanoTime;
+
+    /**
+     * Creates a new instance where {@link #nanoTime()} starts at 0 and {@link #currentTimeEpochMicros()} starts at the
+     * given value.
+     *
+     * @param startEpochMicros The epoch microsecond timestamp that corresponds to the clock's starting point.
+     */
+    public DeterministicSpanClock(long startEpochMicros) {
+        this(startEpochMicros, 0);
+    }
+
+    /**
+     * Creates a new instance with the given starting point.
+     *
+     * @param startEpochMicros The epoch microsecond timestamp that corresponds to the clock's starting point.
+     * @param startNanoTime The {@link #nanoTime()} value at the clock's starting point.
+     */
+    public DeterministicSpanClock(long startEpochMicros, long startNanoTime) {
+        this.startEpochMicros = startEpochMicros;
+        this.startNanoTime = startNanoTime;
+        this.currentNanoTime = new AtomicLong(startNanoTime);
+    }
+
+    @Override
+    public long nanoTime() {
+        return currentNanoTime.get();
+    }
+
+    @Override
+    public long toEpochMicros(long nanoTime) {
+        return startEpochMicros + TimeUnit.NANOSECONDS.toMicros(nanoTime - startNanoTime);
+    }
+
+    /**
+     * Moves this clock forward by the given amount.
+     *
+     * @param amount The amount of time to move forward.
+     * @param unit The unit of the given amount.
+     * @return The new {@link #nanoTime()} value.
+     */
+    public long advance(long amount, TimeUnit unit) {
+        return currentNanoTime.addAndGet(unit.toNanos(amount));
+    }
+
+    /**
+     * Sets this clock's {@link #nanoTime()} to the given value.
+     *
+     * @param nanoTime The new {@link #nanoTime()} value.
+     */
+    public void setNanoTime(long nanoTime) {
+        currentNanoTime.set(nanoTime);
+    }
+}
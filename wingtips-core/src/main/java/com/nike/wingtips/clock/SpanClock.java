@@ -0,0 +1,67 @@
+package com.nike.wingtips.clock;
+
+/**
+ * Pluggable source of time for {@link com.nike.wingtips.Span}s. Spans need two kinds of time: a monotonic
+ * nanosecond counter for measuring durations (a la {@link System#nanoTime()}), and a wall-clock timestamp in epoch
+ * microseconds for recording when a span started or when an annotation occurred. This class provides both, and lets
+ * you convert a nanosecond reading into epoch microseconds via {@link #toEpochMicros(long)} so that callers needing
+ * both values only have to read the clock once.
+ *
+ * <p>The clock used by all spans is controlled via {@link #setGlobalClock(SpanClock)}, and defaults to an {@link
+ * AnchoredSpanClock}, which gives microsecond-resolution timestamps at the cost of roughly one {@link
+ * System#nanoTime()} call per timestamp. Use {@link SystemSpanClock} if you want the old millisecond-resolution
+ * {@link System#currentTimeMillis()} based behavior, or a {@link DeterministicSpanClock} in tests where you need
+ * full control over time.
+ *
+ * <p>NOTE: Implementations must be threadsafe.
+ *
+ * @author Nic Munroe
+ */
+public abstract class SpanClock {
+
+    private static volatile SpanClock globalClock = new AnchoredSpanClock();
+
+    /**
+     * @return The current value of this clock's monotonic nanosecond counter. Like {@link System#nanoTime()}, this
+     * is *NOT* an epoch value - it is only usable when comparing against other values from the same clock in the same
+     * JVM.
+     */
+    public abstract long nanoTime();
+
+    /**
+     * @param nanoTime A value previously returned by {@link #nanoTime()} on this clock.
+     * @return The epoch microsecond timestamp corresponding to the given {@link #nanoTime()} reading.
+     */
+    public abstract long toEpochMicros(long nanoTime);
+
+    /**
+     * @return The current time in epoch microseconds. Equivalent to {@code toEpochMicros(nanoTime())}.
+     */
+    public long currentTimeEpochMicros() {
+        return toEpochMicros(nanoTime());
+    }
+
+    /**
+     * @return The clock currently used by all {@link com.nike.wingtips.Span}s. Defaults to an {@link
+     * AnchoredSpanClock}. Will never be null.
+     */
+    public static SpanClock getGlobalClock() {
+        return globalClock;
+    }
+
+    /**
+     * Sets the clock used by all {@link com.nike.wingtips.Span}s. You should generally only do this at app startup
+     * (or in tests), since spans that are in flight when the clock changes will have start and end times from
+     * different clocks.
+     *
+     * @param clock The clock to use - cannot be null.
+     * @throws IllegalArgumentException if the given clock is null.
+     */
+    public static void setGlobalClock(SpanClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock cannot be null");
+        }
+
+        globalClock = clock;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nike.wingtips.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SpanClock} that reads {@link System#currentTimeMillis()} every time an epoch timestamp is needed. This
+ * matches the way Wingtips calculated timestamps before {@link SpanClock} existed, and means epoch timestamps only
+ * have millisecond resolution. Prefer {@link AnchoredSpanClock} (the default) unless you have a specific need for
+ * this behavior.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SystemSpanClock extends SpanClock {
+
+    /**
+     * A reusable instance - this class is stateless so there's no need to create more than one.
+     */
+    public static final SystemSpanClock INSTANCE = new SystemSpanClock();
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long toEpochMicros(long nanoTime) {
+        // Back out however much time has elapsed since the given nanoTime reading.
+        long elapsedNanos = System.nanoTime() - nanoTime;
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()) - TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+    }
+
+    @Override
+    public long currentTimeEpochMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+}
@@ -5,6 +5,7 @@ import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.TraceAndSpanIdGenerator;
 import com.nike.wingtips.TraceHeaders;
+import com.nike.wingtips.Tracer;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
 
 import org.jetbrains.annotations.NotNull;
@@ -28,7 +29,8 @@ import static com.nike.wingtips.TraceHeaders.TRACE_SAMPLED;
  * in the request.
  * <p/>
  * NOTE: If span information exists in the request but is not explicitly set with {@link TraceHeaders#TRACE_SAMPLED} false, then
- * {@link #fromRequestWithHeaders(RequestWithHeaders, List)} will assume it should be sampleable.
+ * {@link #fromRequestWithHeaders(RequestWithHeaders, List)} will assume it should be sampleable - unless the header is missing entirely and the
+ * {@link Tracer}'s root span sampling strategy decides otherwise for the received trace ID.
  *
  * @author Nic Munroe
  */
@@ -90,7 +92,9 @@ public class HttpRequestTracingUtils {
      * {@link TraceHeaders#SPAN_ID} is missing then a new span ID will be generated using {@link
      * TraceAndSpanIdGenerator#generateId()} since span ID cannot be null (and it will therefore be invalid - see
      * {@link #SPAN_FROM_HEADERS_WHERE_CALLER_DID_NOT_SEND_SPAN_ID_TAG_KEY}). If {@link TraceHeaders#TRACE_SAMPLED}
-     * is missing then the returned span will be sampleable. If {@link TraceHeaders#SPAN_NAME} is missing then
+     * is missing then the sampling decision is made for the received trace ID by {@link
+     * Tracer#isPropagatedTraceIdSampleable(String, String)} (which is always true with the default sampling
+     * strategy). If {@link TraceHeaders#SPAN_NAME} is missing then
      * {@link #UNSPECIFIED_SPAN_NAME} will be used as the span name.
      *
      * @param request The incoming request that may have {@link Span} information embedded in the headers. If this
@@ -122,7 +126,7 @@ public class HttpRequestTracingUtils {
                    .withTraceId(traceId)
                    .withParentSpanId(getParentSpanId(request))
                    .withSpanId(spanIdFromRequest)
-                   .withSampleable(getSpanSampleableFlag(request))
+                   .withSampleable(getSpanSampleableFlag(request, traceId, spanName))
                    .withUserId(getUserIdFromRequestWithHeaders(request, userIdHeaderKeys));
 
         // If the caller didn't send a span ID, then the builder will create a new one because spans aren't allowed to
@@ -195,12 +199,16 @@ public class HttpRequestTracingUtils {
     }
 
     /**
-     * Extracts the {@link TraceHeaders#TRACE_SAMPLED} boolean value from the given request's headers or attributes if available, and defaults to true if the request doesn't contain
-     * that header/attribute or if it's an invalid value. In other words, request values of "0" or "false" (ignoring case) will return false from this method,
-     * everything else will return true.
+     * Extracts the {@link TraceHeaders#TRACE_SAMPLED} boolean value from the given request's headers or attributes if available. Request values of "0" or
+     * "false" (ignoring case) will return false from this method, and any other value will return true. If the request doesn't contain that header/attribute
+     * at all then the caller didn't make a sampling decision, so it's made here by {@link Tracer#isPropagatedTraceIdSampleable(String, String)} using the
+     * received trace ID - with the default sample-everything strategy this returns true.
      */
-    protected static boolean getSpanSampleableFlag(RequestWithHeaders request) {
+    protected static boolean getSpanSampleableFlag(RequestWithHeaders request, String traceId, String spanName) {
         String spanSampleableHeaderStr = getHeaderWithAttributeAsBackup(request, TraceHeaders.TRACE_SAMPLED);
+        if (spanSampleableHeaderStr == null || spanSampleableHeaderStr.isEmpty())
+            return Tracer.getInstance().isPropagatedTraceIdSampleable(traceId, spanName);
+
         // Default to true (enabling trace sampling for requests that don't explicitly exclude it)
         boolean result = true;
 
@@ -0,0 +1,38 @@
+package com.nike.wingtips.idgen;
+
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+
+/**
+ * Pluggable source of the random 64-bit values that trace and span IDs are built from. {@link
+ * TraceAndSpanIdGenerator} (and therefore {@link com.nike.wingtips.Tracer} and {@link
+ * com.nike.wingtips.Span.Builder}) pulls every new ID from the generator installed via {@link
+ * TraceAndSpanIdGenerator#setIdGenerator(IdGenerator)}.
+ *
+ * <p>The following implementations are provided:
+ * <ul>
+ *     <li>
+ *         {@link ThreadLocalIdGenerator} - the default. A per-thread, non-cryptographic generator that never
+ *         contends across threads and doesn't allocate.
+ *     </li>
+ *     <li>
+ *         {@link StripedSecureRandomIdGenerator} - spreads threads across a set of {@link
+ *         java.security.SecureRandom}s to reduce lock contention, for when you need cryptographic-strength IDs.
+ *     </li>
+ *     <li>
+ *         {@link SharedSecureRandomIdGenerator} - the original Wingtips behavior: a single shared {@code SHA1PRNG}
+ *         {@link java.security.SecureRandom} that every thread contends on.
+ *     </li>
+ * </ul>
+ *
+ * <p>NOTE: Implementations must be threadsafe, and should return values spread across the full 64-bit space (see
+ * {@link java.util.Random#nextLong()} for an example of a generator that doesn't).
+ *
+ * @author Nic Munroe
+ */
+public interface IdGenerator {
+
+    /**
+     * @return A random long pulled from the full 64-bit random search space.
+     */
+    long generate64BitRandomLong();
+}
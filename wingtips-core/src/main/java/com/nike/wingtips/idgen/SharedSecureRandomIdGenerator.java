@@ -0,0 +1,63 @@
+package com.nike.wingtips.idgen;
+
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+
+import java.util.Random;
+
+/**
+ * An {@link IdGenerator} that reproduces the original Wingtips behavior - every ID comes from a single shared
+ * {@code SHA1PRNG} {@link java.security.SecureRandom}. {@link java.security.SecureRandom#nextBytes(byte[])} is
+ * synchronized, so all threads generating IDs contend on one lock. Prefer {@link StripedSecureRandomIdGenerator} if
+ * you need cryptographically strong IDs, or {@link ThreadLocalIdGenerator} (the default) if you don't. This class is
+ * mainly useful as a baseline for comparison.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SharedSecureRandomIdGenerator implements IdGenerator {
+
+    /**
+     * The {@link java.security.SecureRandom} algorithm used by this class.
+     */
+    public static final String SECURE_RANDOM_ALGORITHM = "SHA1PRNG";
+
+    private volatile Random random;
+
+    /**
+     * Creates a new instance backed by a new {@link #SECURE_RANDOM_ALGORITHM} {@link java.security.SecureRandom}. The
+     * {@link java.security.SecureRandom} is created lazily the first time an ID is requested.
+     */
+    public SharedSecureRandomIdGenerator() {
+        // Do nothing
+    }
+
+    @Override
+    public long generate64BitRandomLong() {
+        byte[] random8Bytes = new byte[8];
+        getRandom().nextBytes(random8Bytes);
+
+        return TraceAndSpanIdGenerator.convertBytesToLong(random8Bytes);
+    }
+
+    /**
+     * @return true if the backing {@link java.security.SecureRandom} has been created, false if no ID has been
+     * requested yet.
+     */
+    public boolean isInitialized() {
+        return random != null;
+    }
+
+    private Random getRandom() {
+        Random result = random;
+        if (result == null) {
+            synchronized (this) {
+                result = random;
+                if (result == null) {
+                    result = TraceAndSpanIdGenerator.getRandomInstance(SECURE_RANDOM_ALGORITHM);
+                    random = result;
+                }
+            }
+        }
+        return result;
+    }
+}
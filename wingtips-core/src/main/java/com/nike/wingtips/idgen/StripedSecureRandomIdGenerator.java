@@ -0,0 +1,111 @@
+package com.nike.wingtips.idgen;
+
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link IdGenerator} that generates cryptographically strong IDs without forcing every thread to contend on a
+ * single {@link java.security.SecureRandom}. It holds a fixed set of {@code SHA1PRNG} {@link
+ * java.security.SecureRandom} "stripes", and each thread is assigned one stripe (round-robin) the first time it asks
+ * for an ID. Threads only contend with the other threads assigned to the same stripe, and each thread reuses its
+ * own byte buffer so no garbage is created per ID.
+ *
+ * <p>The default constructor creates two stripes per available processor, which keeps contention low without
+ * creating an excessive number of {@link java.security.SecureRandom} instances.
+ *
+ * <p>Each stripe's {@link java.security.SecureRandom} is created lazily the first time a thread assigned to that stripe
+ * asks for an ID, so constructing this class is cheap and never touches the security providers.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class StripedSecureRandomIdGenerator implements IdGenerator {
+
+    /**
+     * The {@link java.security.SecureRandom} algorithm used for each stripe.
+     */
+    public static final String SECURE_RANDOM_ALGORITHM = "SHA1PRNG";
+
+    private final AtomicReferenceArray<Random> stripes;
+    private final AtomicInteger nextStripeIndex = new AtomicInteger();
+    private final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            int stripeIndex = (nextStripeIndex.getAndIncrement() & Integer.MAX_VALUE) % stripes.length();
+            return new ThreadState(getOrCreateStripe(stripeIndex));
+        }
+    };
+
+    /**
+     * Creates a new instance with two stripes per available processor.
+     */
+    public StripedSecureRandomIdGenerator() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Creates a new instance with the given number of stripes.
+     *
+     * @param numStripes The number of {@link java.security.SecureRandom} instances to spread threads across. Must be
+     * greater than 0.
+     * @throws IllegalArgumentException if numStripes is less than 1.
+     */
+    public StripedSecureRandomIdGenerator(int numStripes) {
+        if (numStripes < 1) {
+            throw new IllegalArgumentException("numStripes must be greater than 0");
+        }
+
+        this.stripes = new AtomicReferenceArray<>(numStripes);
+    }
+
+    private Random getOrCreateStripe(int stripeIndex) {
+        Random stripe = stripes.get(stripeIndex);
+        if (stripe == null) {
+            // If two threads race to create the same stripe then the loser's instance is discarded and it uses the
+            //      winner's, so each stripe is only ever backed by one SecureRandom.
+            Random newStripe = TraceAndSpanIdGenerator.getRandomInstance(SECURE_RANDOM_ALGORITHM);
+            stripe = stripes.compareAndSet(stripeIndex, null, newStripe) ? newStripe : stripes.get(stripeIndex);
+        }
+        return stripe;
+    }
+
+    @Override
+    public long generate64BitRandomLong() {
+        ThreadState state = threadState.get();
+        byte[] buffer = state.buffer;
+        state.stripe.nextBytes(buffer);
+        return TraceAndSpanIdGenerator.convertBytesToLong(buffer);
+    }
+
+    /**
+     * @return The number of {@link java.security.SecureRandom} stripes this instance spreads threads across.
+     */
+    public int getNumStripes() {
+        return stripes.length();
+    }
+
+    /**
+     * @return The number of stripes whose {@link java.security.SecureRandom} has been created so far.
+     */
+    public int getNumInitializedStripes() {
+        int count = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            if (stripes.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class ThreadState {
+        final Random stripe;
+        final byte[] buffer = new byte[8];
+
+        ThreadState(Random stripe) {
+            this.stripe = stripe;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.nike.wingtips.idgen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link IdGenerator} that gives each thread its own generator, so ID generation never contends across threads
+ * and never allocates. This is the default {@link IdGenerator}.
+ *
+ * <p>Each thread's generator uses the SplitMix64 algorithm (the same algorithm behind Java 8's {@code
+ * SplittableRandom} and {@code ThreadLocalRandom}), which produces values across the full 64-bit space. Java 7's
+ * {@link java.util.concurrent.ThreadLocalRandom} is not used because it only has 48 bits of state. Each thread's
+ * starting point is derived from a process-wide seed that is initialized from 8 bytes of OS entropy read via the
+ * non-blocking {@code NativePRNGNonBlocking} {@link SecureRandom} algorithm (or straight from {@code /dev/urandom}
+ * where that algorithm isn't available), mixed with the current time and other cheap sources. So different threads
+ * and different JVMs produce different, unpredictable sequences even if the JVMs start at the same moment.
+ *
+ * <p>Class initialization intentionally does *not* use the default {@link SecureRandom} - seeding it can block for a
+ * long time on hosts with a small entropy pool (e.g. freshly started containers), and that would stall the first span
+ * created after startup. If no non-blocking OS entropy source is available (e.g. on Windows with Java 7) the seed
+ * falls back to the cheap sources alone. In that case you can call {@link #mixInSecureRandomEntropy()} (ideally from
+ * a background thread, e.g. via {@link com.nike.wingtips.util.WingtipsWarmUp}) to fold {@link SecureRandom} entropy
+ * into the starting point of threads that start generating IDs afterward.
+ *
+ * <p>NOTE: This generator is *not* cryptographically strong - someone who sees enough IDs could predict future IDs
+ * from the same thread. That's fine for tracing purposes, but if your trace IDs need to be unguessable use {@link
+ * StripedSecureRandomIdGenerator} instead.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class ThreadLocalIdGenerator implements IdGenerator {
+
+    /**
+     * A shared instance. All instances of this class share the same per-thread state, so there's no reason to create
+     * more than one.
+     */
+    public static final ThreadLocalIdGenerator INSTANCE = new ThreadLocalIdGenerator();
+
+    // The SplitMix64 "golden gamma" increment - an odd constant derived from the golden ratio.
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final AtomicLong SEEDER = new AtomicLong(
+        mix64(readNonBlockingOsEntropy())
+        ^ mix64(System.currentTimeMillis())
+        ^ mix64(System.nanoTime())
+        ^ mix64(System.identityHashCode(new Object()) + ((long) System.identityHashCode(Thread.currentThread()) << 32))
+    );
+
+    private static final ThreadLocal<ThreadState> THREAD_STATE = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            // Each thread's starting point is a well-mixed value from the shared seeder, putting each thread at an
+            //      effectively random position in the 2^64 cycle.
+            return new ThreadState(mix64(SEEDER.getAndAdd(GOLDEN_GAMMA << 1)));
+        }
+    };
+
+    @Override
+    public long generate64BitRandomLong() {
+        ThreadState state = THREAD_STATE.get();
+        long newSeed = state.seed + GOLDEN_GAMMA;
+        state.seed = newSeed;
+        return mix64(newSeed);
+    }
+
+    /**
+     * Folds {@link SecureRandom} entropy into the process-wide seed that each thread's starting point is derived from.
+     * This only affects threads that generate their first ID after this method returns.
+     *
+     * <p>NOTE: This may block while the {@link SecureRandom} is seeded if the host is low on entropy, so it should not
+     * be called on a request-handling thread. {@link com.nike.wingtips.util.WingtipsWarmUp} calls it for you.
+     */
+    public static void mixInSecureRandomEntropy() {
+        long entropy = mix64(new SecureRandom().nextLong());
+        long current;
+        do {
+            current = SEEDER.get();
+        } while (!SEEDER.compareAndSet(current, current ^ entropy));
+    }
+
+    /**
+     * @return 8 bytes of OS entropy from a source that never blocks, or 0 if no such source is available. Tries the
+     * {@code NativePRNGNonBlocking} {@link SecureRandom} algorithm first (Java 8+ on Unix-like systems), then reads
+     * {@code /dev/urandom} directly.
+     */
+    static long readNonBlockingOsEntropy() {
+        byte[] bytes = new byte[8];
+        try {
+            SecureRandom.getInstance("NativePRNGNonBlocking").nextBytes(bytes);
+            return toLong(bytes);
+        }
+        catch (GeneralSecurityException | RuntimeException ex) {
+            // Not available on this platform/JVM - fall through to /dev/urandom.
+        }
+
+        File urandom = new File("/dev/urandom");
+        if (urandom.canRead()) {
+            try (InputStream in = new FileInputStream(urandom)) {
+                int numRead = 0;
+                while (numRead < bytes.length) {
+                    int result = in.read(bytes, numRead, bytes.length - numRead);
+                    if (result < 0) {
+                        return 0;
+                    }
+                    numRead += result;
+                }
+                return toLong(bytes);
+            }
+            catch (IOException | RuntimeException ex) {
+                // Can't read it - fall through to the cheap seed.
+            }
+        }
+
+        return 0;
+    }
+
+    private static long toLong(byte[] bytes) {
+        long result = 0;
+        for (byte b : bytes) {
+            result = (result << 8) | (b & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * The SplitMix64 finalizer (a variant of the MurmurHash3 64-bit finalizer).
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class ThreadState {
+        long seed;
+
+        ThreadState(long seed) {
+            this.seed = seed;
+        }
+    }
+}
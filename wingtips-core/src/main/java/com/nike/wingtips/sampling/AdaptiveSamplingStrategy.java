@@ -0,0 +1,336 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.clock.SpanClock;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RootSpanSamplingStrategy} that continuously adjusts its sampling probability so the number of exported
+ * (sampled and completed) spans per second tracks a target. Quiet services end up sampling everything, and busy
+ * services back off automatically during traffic spikes rather than flooding the span exporter.
+ *
+ * <p>This class is also a {@link SpanLifecycleListener} - it measures the exported span rate by counting sampled spans
+ * as they complete, so you must register it as both the sampling strategy and a listener:
+ * <pre>
+ *  AdaptiveSamplingStrategy adaptiveSampler = AdaptiveSamplingStrategy.newBuilder(100).build();
+ *  Tracer.getInstance().setRootSpanSamplingStrategy(adaptiveSampler);
+ *  Tracer.getInstance().addSpanLifecycleListener(adaptiveSampler);
+ * </pre>
+ *
+ * <p>Once per adjustment interval (default 1 second) the observed completion rate is smoothed with an exponentially
+ * weighted moving average, and the probability is scaled by {@code target / smoothedRate}. Increases are limited to
+ * doubling per interval so a brief lull doesn't cause a burst when traffic returns. If an {@link ExporterBackpressure}
+ * is supplied then the probability is also cut in half whenever the exporter dropped spans during the last interval,
+ * and scaled down as the exporter's queue fills past half full, regardless of what the completion rate says.
+ *
+ * <p>The decision path is lock-free: a sampling decision is a random draw compared against a volatile threshold. The
+ * periodic adjustment is done inline by whichever request thread first notices it's due, guarded by a
+ * compare-and-set so other threads never wait on it - they just keep using the previous probability.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class AdaptiveSamplingStrategy implements RootSpanSamplingStrategy, SpanLifecycleListener {
+
+    /**
+     * The default minimum probability - 0.1% of root spans are always sampled.
+     */
+    public static final double DEFAULT_MIN_PROBABILITY = 0.001D;
+    /**
+     * The default probability used until the first adjustment - sample everything.
+     */
+    public static final double DEFAULT_INITIAL_PROBABILITY = 1.0D;
+    /**
+     * The default interval between probability adjustments - 1 second.
+     */
+    public static final long DEFAULT_ADJUSTMENT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * The default weight given to the latest interval's observed span rate when smoothing.
+     */
+    public static final double DEFAULT_SMOOTHING_FACTOR = 0.3D;
+
+    // The most the probability can grow in a single adjustment.
+    private static final double MAX_INCREASE_FACTOR = 2.0D;
+    // How much the probability is cut when the exporter dropped spans during the last interval.
+    private static final double DROPPED_SPANS_DECREASE_FACTOR = 0.5D;
+    // Exporter queue utilization above this level starts pushing the probability down.
+    private static final double QUEUE_UTILIZATION_HIGH_WATERMARK = 0.5D;
+
+    // Random draws are 53 bits, the same resolution as a double's mantissa.
+    private static final int RANDOM_BITS = 53;
+    private static final long RANDOM_BOUND = 1L << RANDOM_BITS;
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double targetSpansPerSecond;
+    private final double minProbability;
+    private final long adjustmentIntervalNanos;
+    private final double smoothingFactor;
+    private final ExporterBackpressure exporterBackpressure;
+    private final SpanClock clock;
+
+    private volatile double probability;
+    private volatile long threshold;
+
+    private final AtomicLong completedSampledSpanCount = new AtomicLong();
+    private final AtomicLong nextAdjustmentNanoTime;
+    private final AtomicBoolean adjustmentInProgress = new AtomicBoolean(false);
+
+    // Control loop state - only read or written by the thread holding adjustmentInProgress.
+    private long lastAdjustmentNanoTime;
+    private long lastCompletedSampledSpanCount;
+    private long lastDroppedSpanCount;
+    private double smoothedSpansPerSecond = -1;
+
+    protected AdaptiveSamplingStrategy(Builder builder) {
+        this.targetSpansPerSecond = builder.targetSpansPerSecond;
+        this.minProbability = builder.minProbability;
+        this.adjustmentIntervalNanos = builder.adjustmentIntervalNanos;
+        this.smoothingFactor = builder.smoothingFactor;
+        this.exporterBackpressure = builder.exporterBackpressure;
+        this.clock = (builder.clock == null) ? SpanClock.getGlobalClock() : builder.clock;
+
+        setProbability(Math.max(builder.initialProbability, minProbability));
+
+        long now = clock.nanoTime();
+        this.lastAdjustmentNanoTime = now;
+        this.nextAdjustmentNanoTime = new AtomicLong(now + adjustmentIntervalNanos);
+        this.lastDroppedSpanCount = (exporterBackpressure == null) ? 0 : exporterBackpressure.getDroppedSpanCount();
+    }
+
+    /**
+     * @param targetSpansPerSecond The number of exported spans per second this strategy should aim for. Must be
+     * greater than 0.
+     * @return A new {@link Builder} for creating an {@link AdaptiveSamplingStrategy}.
+     */
+    public static Builder newBuilder(double targetSpansPerSecond) {
+        return new Builder(targetSpansPerSecond);
+    }
+
+    @Override
+    public boolean isNextRootSpanSampleable() {
+        long now = clock.nanoTime();
+        // Compare via subtraction so this stays correct if nanoTime wraps.
+        if (now - nextAdjustmentNanoTime.get() >= 0) {
+            tryAdjust(now);
+        }
+
+        return (ThreadLocalRandom.current().nextLong() >>> (64 - RANDOM_BITS)) < threshold;
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        // Do nothing
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        if (span.isSampleable()) {
+            completedSampledSpanCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return The probability currently being used to sample root spans.
+     */
+    public double getCurrentProbability() {
+        return probability;
+    }
+
+    /**
+     * @return The number of exported spans per second this strategy is aiming for.
+     */
+    public double getTargetSpansPerSecond() {
+        return targetSpansPerSecond;
+    }
+
+    /**
+     * @return The smoothed exported spans per second as of the last adjustment, or a negative number if no adjustment
+     * has happened yet.
+     */
+    public double getSmoothedSpansPerSecond() {
+        return smoothedSpansPerSecond;
+    }
+
+    protected void tryAdjust(long now) {
+        if (!adjustmentInProgress.compareAndSet(false, true)) {
+            // Someone else is already adjusting - keep using the current probability rather than waiting.
+            return;
+        }
+
+        try {
+            // Re-check now that we hold the flag, in case another thread adjusted between our check and our CAS.
+            if (now - nextAdjustmentNanoTime.get() >= 0) {
+                adjust(now);
+                nextAdjustmentNanoTime.set(now + adjustmentIntervalNanos);
+            }
+        }
+        finally {
+            adjustmentInProgress.set(false);
+        }
+    }
+
+    protected void adjust(long now) {
+        double elapsedSeconds = (now - lastAdjustmentNanoTime) / NANOS_PER_SECOND;
+        if (elapsedSeconds <= 0) {
+            return;
+        }
+
+        long completedCount = completedSampledSpanCount.get();
+        double observedSpansPerSecond = (completedCount - lastCompletedSampledSpanCount) / elapsedSeconds;
+        lastCompletedSampledSpanCount = completedCount;
+        lastAdjustmentNanoTime = now;
+
+        smoothedSpansPerSecond = (smoothedSpansPerSecond < 0)
+                                 ? observedSpansPerSecond
+                                 : (smoothingFactor * observedSpansPerSecond)
+                                   + ((1 - smoothingFactor) * smoothedSpansPerSecond);
+
+        double currentProbability = probability;
+        double maxIncreased = currentProbability * MAX_INCREASE_FACTOR;
+        double newProbability = (smoothedSpansPerSecond > 0)
+                                ? Math.min(currentProbability * (targetSpansPerSecond / smoothedSpansPerSecond),
+                                           maxIncreased)
+                                : maxIncreased;
+
+        if (exporterBackpressure != null) {
+            long droppedCount = exporterBackpressure.getDroppedSpanCount();
+            if (droppedCount > lastDroppedSpanCount) {
+                newProbability = Math.min(newProbability, currentProbability * DROPPED_SPANS_DECREASE_FACTOR);
+            }
+            lastDroppedSpanCount = droppedCount;
+
+            double queueUtilization = exporterBackpressure.getQueueUtilization();
+            if (queueUtilization > QUEUE_UTILIZATION_HIGH_WATERMARK) {
+                // Scales linearly from no reduction at the high watermark down to zero when the queue is full.
+                double queueFactor = Math.max(
+                    0, (1 - queueUtilization) / (1 - QUEUE_UTILIZATION_HIGH_WATERMARK)
+                );
+                newProbability = Math.min(newProbability, currentProbability * queueFactor);
+            }
+        }
+
+        setProbability(Math.max(minProbability, Math.min(1.0D, newProbability)));
+    }
+
+    protected void setProbability(double newProbability) {
+        this.threshold = (long) (newProbability * RANDOM_BOUND);
+        this.probability = newProbability;
+    }
+
+    /**
+     * Builder for {@link AdaptiveSamplingStrategy}. Create one via {@link AdaptiveSamplingStrategy#newBuilder(double)}.
+     */
+    public static final class Builder {
+
+        private final double targetSpansPerSecond;
+        private double minProbability = DEFAULT_MIN_PROBABILITY;
+        private double initialProbability = DEFAULT_INITIAL_PROBABILITY;
+        private long adjustmentIntervalNanos = DEFAULT_ADJUSTMENT_INTERVAL_NANOS;
+        private double smoothingFactor = DEFAULT_SMOOTHING_FACTOR;
+        private ExporterBackpressure exporterBackpressure;
+        private SpanClock clock;
+
+        private Builder(double targetSpansPerSecond) {
+            if (!(targetSpansPerSecond > 0)) {
+                throw new IllegalArgumentException(
+                    "targetSpansPerSecond must be greater than 0. Invalid targetSpansPerSecond: "
+                    + targetSpansPerSecond
+                );
+            }
+            this.targetSpansPerSecond = targetSpansPerSecond;
+        }
+
+        /**
+         * @param minProbability The lowest probability the strategy will ever use, so some traces are always
+         * sampled even under heavy backpressure. Must be between 0.0 and 1.0, inclusive. Defaults to {@link
+         * #DEFAULT_MIN_PROBABILITY}.
+         * @return This builder.
+         */
+        public Builder withMinProbability(double minProbability) {
+            ProbabilisticSamplingStrategy.validateProbability(minProbability);
+            this.minProbability = minProbability;
+            return this;
+        }
+
+        /**
+         * @param initialProbability The probability to use until the first adjustment. Must be between 0.0 and 1.0,
+         * inclusive. Defaults to {@link #DEFAULT_INITIAL_PROBABILITY}.
+         * @return This builder.
+         */
+        public Builder withInitialProbability(double initialProbability) {
+            ProbabilisticSamplingStrategy.validateProbability(initialProbability);
+            this.initialProbability = initialProbability;
+            return this;
+        }
+
+        /**
+         * @param interval How often the probability is recalculated. Must be greater than 0. Defaults to 1 second.
+         * @param timeUnit The unit of the interval - cannot be null.
+         * @return This builder.
+         */
+        public Builder withAdjustmentInterval(long interval, TimeUnit timeUnit) {
+            if (timeUnit == null) {
+                throw new IllegalArgumentException("timeUnit cannot be null");
+            }
+            if (interval <= 0) {
+                throw new IllegalArgumentException("interval must be greater than 0. Invalid interval: " + interval);
+            }
+            this.adjustmentIntervalNanos = timeUnit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * @param smoothingFactor The weight given to the latest interval's observed span rate in the exponentially
+         * weighted moving average - higher values react faster, lower values are steadier. Must be greater than 0.0
+         * and at most 1.0. Defaults to {@link #DEFAULT_SMOOTHING_FACTOR}.
+         * @return This builder.
+         */
+        public Builder withSmoothingFactor(double smoothingFactor) {
+            if (!(smoothingFactor > 0 && smoothingFactor <= 1)) {
+                throw new IllegalArgumentException(
+                    "smoothingFactor must be greater than 0.0 and at most 1.0. Invalid smoothingFactor: "
+                    + smoothingFactor
+                );
+            }
+            this.smoothingFactor = smoothingFactor;
+            return this;
+        }
+
+        /**
+         * @param exporterBackpressure The exporter backpressure signal to factor into adjustments, or null (the
+         * default) to adjust purely from the observed span completion rate.
+         * @return This builder.
+         */
+        public Builder withExporterBackpressure(ExporterBackpressure exporterBackpressure) {
+            this.exporterBackpressure = exporterBackpressure;
+            return this;
+        }
+
+        /**
+         * @param clock The clock to use for measuring elapsed time, or null (the default) to use the {@link
+         * SpanClock#getGlobalClock()} at the time {@link #build()} is called.
+         * @return This builder.
+         */
+        public Builder withClock(SpanClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @return A new {@link AdaptiveSamplingStrategy} using this builder's settings.
+         */
+        public AdaptiveSamplingStrategy build() {
+            return new AdaptiveSamplingStrategy(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.nike.wingtips.sampling;
+
+/**
+ * A {@link RootSpanSamplingStrategy} that can make its decision based on what the root span is for - e.g. to sample
+ * health checks at 0%, a checkout endpoint at 100%, and everything else at 5%. When the {@link
+ * com.nike.wingtips.Tracer}'s strategy implements this interface, {@link com.nike.wingtips.Tracer} and the Wingtips
+ * server integrations will call {@link #isRootSpanSampleable(RootSpanSamplingContext)} instead of {@link
+ * #isNextRootSpanSampleable()}. {@link #isNextRootSpanSampleable()} is still used when there is no context available.
+ *
+ * <p>See {@link RuleBasedSamplingStrategy} for a ready-made implementation.
+ *
+ * @author Nic Munroe
+ */
+public interface ContextAwareRootSpanSamplingStrategy extends RootSpanSamplingStrategy {
+
+    /**
+     * @param context Info about the root span the decision is being made for - will never be null.
+     * @return true if the root span described by the given context should be sampled, false otherwise. NOTE: Like
+     * {@link #isNextRootSpanSampleable()}, this method is not deterministic - call it once per root span and store
+     * the result.
+     */
+    boolean isRootSpanSampleable(RootSpanSamplingContext context);
+
+}
@@ -0,0 +1,24 @@
+package com.nike.wingtips.sampling;
+
+/**
+ * A view of how well the span exporter (e.g. a Zipkin {@code AsyncReporter}) is keeping up, for use by {@link
+ * AdaptiveSamplingStrategy}. Implementations are expected to be cheap to call and threadsafe - they're read
+ * periodically from whatever request thread happens to trigger an {@link AdaptiveSamplingStrategy} adjustment.
+ *
+ * @author Nic Munroe
+ */
+public interface ExporterBackpressure {
+
+    /**
+     * @return How full the exporter's queue currently is, from 0.0 (empty) to 1.0 (full), or a negative number if
+     * the queue depth is unknown.
+     */
+    double getQueueUtilization();
+
+    /**
+     * @return The total number of spans the exporter has dropped since it was created (e.g. because its queue was
+     * full or the transport failed). This should only ever go up.
+     */
+    long getDroppedSpanCount();
+
+}
@@ -0,0 +1,135 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span.SpanPurpose;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link SubSpanSamplingStrategy} that picks a sampling strategy per sub-span based on the sub-span's name, falling
+ * back to a default strategy for names that aren't configured. The default strategy keeps everything, so only the
+ * hot operations you name are affected. For example, to keep 1% of per-item serialization sub-spans and at most
+ * 10 cache lookup sub-spans per second:
+ *
+ * <pre>
+ *      PerSpanNameSubSpanSamplingStrategy.newBuilder()
+ *          .withSpanNameProbability("serialize-item", 0.01)
+ *          .withSpanNameStrategy("cache-lookup", new RateLimitingSamplingStrategy(10))
+ *          .build();
+ * </pre>
+ *
+ * Any {@link RootSpanSamplingStrategy} can be used per span name - its {@link
+ * RootSpanSamplingStrategy#isNextRootSpanSampleable()} method is called to make the decision for each sub-span with
+ * that name. Lookups are a single {@link HashMap} lookup on the span name, so each decision is cheap.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class PerSpanNameSubSpanSamplingStrategy implements SubSpanSamplingStrategy {
+
+    private final RootSpanSamplingStrategy defaultStrategy;
+    private final Map<String, RootSpanSamplingStrategy> strategiesBySpanName;
+
+    protected PerSpanNameSubSpanSamplingStrategy(Builder builder) {
+        this.defaultStrategy = builder.defaultStrategy;
+        this.strategiesBySpanName = Collections.unmodifiableMap(new HashMap<>(builder.strategiesBySpanName));
+    }
+
+    /**
+     * @return A new builder that keeps all sub-spans by default and has no per-span-name strategies.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public boolean isSubSpanSampleable(String spanName, SpanPurpose spanPurpose) {
+        RootSpanSamplingStrategy strategy = (spanName == null) ? null : strategiesBySpanName.get(spanName);
+        if (strategy == null) {
+            strategy = defaultStrategy;
+        }
+
+        return strategy.isNextRootSpanSampleable();
+    }
+
+    /**
+     * @return The strategy used for sub-spans whose names don't have a specific strategy.
+     */
+    public RootSpanSamplingStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * @return The per-span-name strategies (unmodifiable).
+     */
+    public Map<String, RootSpanSamplingStrategy> getStrategiesBySpanName() {
+        return strategiesBySpanName;
+    }
+
+    /**
+     * Builder for {@link PerSpanNameSubSpanSamplingStrategy}.
+     */
+    public static class Builder {
+
+        private RootSpanSamplingStrategy defaultStrategy = new SampleAllTheThingsStrategy();
+        private final Map<String, RootSpanSamplingStrategy> strategiesBySpanName = new HashMap<>();
+
+        protected Builder() {
+        }
+
+        /**
+         * Sets the strategy for sub-spans with the given name, replacing any strategy previously set for that name.
+         *
+         * @param spanName The sub-span name to match exactly (case sensitive) - cannot be null.
+         * @param strategy The strategy to use for sub-spans with the given name - cannot be null.
+         * @return This builder.
+         */
+        public Builder withSpanNameStrategy(String spanName, RootSpanSamplingStrategy strategy) {
+            if (spanName == null) {
+                throw new IllegalArgumentException("spanName cannot be null");
+            }
+
+            if (strategy == null) {
+                throw new IllegalArgumentException("strategy cannot be null");
+            }
+
+            strategiesBySpanName.put(spanName, strategy);
+            return this;
+        }
+
+        /**
+         * Convenience method for {@link #withSpanNameStrategy(String, RootSpanSamplingStrategy)} with a {@link
+         * ProbabilisticSamplingStrategy}.
+         *
+         * @param spanName The sub-span name to match exactly (case sensitive) - cannot be null.
+         * @param probability The probability that a sub-span with the given name will be kept - must be between 0.0
+         * and 1.0 (inclusive).
+         * @return This builder.
+         */
+        public Builder withSpanNameProbability(String spanName, double probability) {
+            return withSpanNameStrategy(spanName, new ProbabilisticSamplingStrategy(probability));
+        }
+
+        /**
+         * @param defaultStrategy The strategy to use for sub-spans whose names don't have a specific strategy -
+         * cannot be null. Defaults to {@link SampleAllTheThingsStrategy} if not set.
+         * @return This builder.
+         */
+        public Builder withDefaultStrategy(RootSpanSamplingStrategy defaultStrategy) {
+            if (defaultStrategy == null) {
+                throw new IllegalArgumentException("defaultStrategy cannot be null");
+            }
+
+            this.defaultStrategy = defaultStrategy;
+            return this;
+        }
+
+        /**
+         * @return A new {@link PerSpanNameSubSpanSamplingStrategy} with this builder's settings.
+         */
+        public PerSpanNameSubSpanSamplingStrategy build() {
+            return new PerSpanNameSubSpanSamplingStrategy(this);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.nike.wingtips.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link RootSpanSamplingStrategy} that samples each root span independently with a fixed probability. For example
+ * a probability of 0.05 will sample roughly 5% of root spans.
+ *
+ * <p>Decisions use {@link ThreadLocalRandom}, so there is no shared state between request threads and no contention
+ * no matter how many threads are making sampling decisions. The probability is converted to a 53-bit integer
+ * threshold once at construction time, so each decision is a single random draw and comparison.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class ProbabilisticSamplingStrategy implements RootSpanSamplingStrategy {
+
+    // Random draws are 53 bits, the same resolution as a double's mantissa.
+    private static final int RANDOM_BITS = 53;
+    private static final long RANDOM_BOUND = 1L << RANDOM_BITS;
+
+    private final double probability;
+    private final long threshold;
+
+    /**
+     * Creates a new instance that samples root spans with the given probability.
+     *
+     * @param probability The probability that any given root span will be sampled - must be between 0.0 (never
+     * sample) and 1.0 (always sample), inclusive.
+     * @throws IllegalArgumentException if probability is NaN or outside the range 0.0 to 1.0.
+     */
+    public ProbabilisticSamplingStrategy(double probability) {
+        validateProbability(probability);
+
+        this.probability = probability;
+        this.threshold = (long) (probability * RANDOM_BOUND);
+    }
+
+    @Override
+    public boolean isNextRootSpanSampleable() {
+        if (threshold == 0) {
+            return false;
+        }
+
+        return (ThreadLocalRandom.current().nextLong() >>> (64 - RANDOM_BITS)) < threshold;
+    }
+
+    /**
+     * @return The probability that any given root span will be sampled.
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    static void validateProbability(double probability) {
+        // Written as a negated range check so NaN is also rejected.
+        if (!(probability >= 0.0D && probability <= 1.0D)) {
+            throw new IllegalArgumentException(
+                "probability must be between 0.0 and 1.0 (inclusive). Invalid probability: " + probability
+            );
+        }
+    }
+}
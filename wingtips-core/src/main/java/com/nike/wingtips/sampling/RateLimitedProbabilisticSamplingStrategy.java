@@ -0,0 +1,67 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.clock.SpanClock;
+
+/**
+ * A {@link RootSpanSamplingStrategy} that samples root spans with a fixed probability, but never more than a maximum
+ * number per second. This gives you a predictable percentage of traffic during normal load while protecting your span
+ * storage from being flooded during traffic spikes.
+ *
+ * <p>The probability check happens first (via {@link ProbabilisticSamplingStrategy}, with no shared state), so only
+ * root spans that pass it touch the shared {@link RateLimitingSamplingStrategy} token bucket. Neither step takes a
+ * lock.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class RateLimitedProbabilisticSamplingStrategy implements RootSpanSamplingStrategy {
+
+    private final ProbabilisticSamplingStrategy probabilisticStrategy;
+    private final RateLimitingSamplingStrategy rateLimitingStrategy;
+
+    /**
+     * Creates a new instance with the given probability and rate cap, using the {@link SpanClock#getGlobalClock()} at
+     * the time this constructor is called as its time source.
+     *
+     * @param probability The probability that any given root span will be sampled - must be between 0.0 and 1.0,
+     * inclusive.
+     * @param maxSampledPerSecond The maximum number of root spans to sample per second - cannot be negative.
+     * @throws IllegalArgumentException if either argument is invalid.
+     */
+    public RateLimitedProbabilisticSamplingStrategy(double probability, long maxSampledPerSecond) {
+        this(probability, maxSampledPerSecond, SpanClock.getGlobalClock());
+    }
+
+    /**
+     * Creates a new instance with the given probability and rate cap, using the given clock as its time source.
+     *
+     * @param probability The probability that any given root span will be sampled - must be between 0.0 and 1.0,
+     * inclusive.
+     * @param maxSampledPerSecond The maximum number of root spans to sample per second - cannot be negative.
+     * @param clock The clock to use for measuring elapsed time - cannot be null.
+     * @throws IllegalArgumentException if any argument is invalid.
+     */
+    public RateLimitedProbabilisticSamplingStrategy(double probability, long maxSampledPerSecond, SpanClock clock) {
+        this.probabilisticStrategy = new ProbabilisticSamplingStrategy(probability);
+        this.rateLimitingStrategy = new RateLimitingSamplingStrategy(maxSampledPerSecond, clock);
+    }
+
+    @Override
+    public boolean isNextRootSpanSampleable() {
+        return probabilisticStrategy.isNextRootSpanSampleable() && rateLimitingStrategy.isNextRootSpanSampleable();
+    }
+
+    /**
+     * @return The probability that any given root span will be sampled before the rate cap is applied.
+     */
+    public double getProbability() {
+        return probabilisticStrategy.getProbability();
+    }
+
+    /**
+     * @return The maximum number of root spans this instance will sample per second.
+     */
+    public long getMaxSampledPerSecond() {
+        return rateLimitingStrategy.getMaxSampledPerSecond();
+    }
+}
@@ -0,0 +1,105 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.clock.SpanClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RootSpanSamplingStrategy} that samples root spans up to a maximum number per second. This is a token bucket
+ * that refills continuously at {@code maxSampledPerSecond} tokens per second and holds at most one second's worth of
+ * tokens, so short bursts up to {@code maxSampledPerSecond} are sampled but the long-run average never exceeds it.
+ *
+ * <p>The whole bucket lives in a single {@link AtomicLong} - the "theoretical arrival time" of the next token, in
+ * {@link SpanClock#nanoTime()} units (this is the generic cell rate algorithm formulation of a token bucket). Each
+ * decision is a read and at most a few compare-and-set attempts, with no locks. Once the rate limit has been reached
+ * for the current window decisions are a plain read with no write at all, so a saturated limiter doesn't cause cache
+ * line ping-pong between request threads.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class RateLimitingSamplingStrategy implements RootSpanSamplingStrategy {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long maxSampledPerSecond;
+    private final SpanClock clock;
+    // How much each sampled span advances the theoretical arrival time.
+    private final long nanosPerPermit;
+    // How far the theoretical arrival time may run ahead of "now" and still allow a sample - this is what gives the
+    //      bucket its capacity of maxSampledPerSecond permits.
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalTimeNanos;
+
+    /**
+     * Creates a new instance that samples at most the given number of root spans per second, using the {@link
+     * SpanClock#getGlobalClock()} at the time this constructor is called as its time source.
+     *
+     * @param maxSampledPerSecond The maximum number of root spans to sample per second - cannot be negative. Pass 0
+     * to never sample.
+     * @throws IllegalArgumentException if maxSampledPerSecond is negative.
+     */
+    public RateLimitingSamplingStrategy(long maxSampledPerSecond) {
+        this(maxSampledPerSecond, SpanClock.getGlobalClock());
+    }
+
+    /**
+     * Creates a new instance that samples at most the given number of root spans per second, using the given clock as
+     * its time source.
+     *
+     * @param maxSampledPerSecond The maximum number of root spans to sample per second - cannot be negative. Pass 0
+     * to never sample.
+     * @param clock The clock to use for measuring elapsed time - cannot be null.
+     * @throws IllegalArgumentException if maxSampledPerSecond is negative or clock is null.
+     */
+    public RateLimitingSamplingStrategy(long maxSampledPerSecond, SpanClock clock) {
+        if (maxSampledPerSecond < 0) {
+            throw new IllegalArgumentException(
+                "maxSampledPerSecond cannot be negative. Invalid maxSampledPerSecond: " + maxSampledPerSecond
+            );
+        }
+
+        if (clock == null) {
+            throw new IllegalArgumentException("clock cannot be null");
+        }
+
+        this.maxSampledPerSecond = maxSampledPerSecond;
+        this.clock = clock;
+        this.nanosPerPermit = (maxSampledPerSecond == 0)
+                              ? Long.MAX_VALUE
+                              : Math.max(1, NANOS_PER_SECOND / maxSampledPerSecond);
+        this.burstToleranceNanos = (maxSampledPerSecond == 0) ? 0 : nanosPerPermit * (maxSampledPerSecond - 1);
+        // Start with a full bucket.
+        this.theoreticalArrivalTimeNanos = new AtomicLong(clock.nanoTime() - NANOS_PER_SECOND);
+    }
+
+    @Override
+    public boolean isNextRootSpanSampleable() {
+        if (maxSampledPerSecond == 0) {
+            return false;
+        }
+
+        long now = clock.nanoTime();
+        while (true) {
+            long tat = theoreticalArrivalTimeNanos.get();
+            // Compare via subtraction so this stays correct if nanoTime wraps.
+            long effectiveTat = (tat - now < 0) ? now : tat;
+            if (effectiveTat - now > burstToleranceNanos) {
+                // Bucket is empty.
+                return false;
+            }
+
+            if (theoreticalArrivalTimeNanos.compareAndSet(tat, effectiveTat + nanosPerPermit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return The maximum number of root spans this instance will sample per second.
+     */
+    public long getMaxSampledPerSecond() {
+        return maxSampledPerSecond;
+    }
+}
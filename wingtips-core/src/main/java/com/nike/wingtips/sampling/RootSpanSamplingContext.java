@@ -0,0 +1,145 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span.SpanPurpose;
+
+/**
+ * Describes the root span a {@link ContextAwareRootSpanSamplingStrategy} is being asked to make a sampling decision
+ * for. The span name and purpose are always available. When the context is created by {@link com.nike.wingtips.Tracer}
+ * the trace ID of the new root span is also available, since {@link com.nike.wingtips.Tracer} generates the trace ID
+ * before asking for a sampling decision. The HTTP method, request path, and raw request object are only
+ * available when the root span is being started for an incoming HTTP request by a Wingtips server integration (e.g.
+ * {@code RequestTracingFilter}), and will be null otherwise.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class RootSpanSamplingContext {
+
+    private final String spanName;
+    private final SpanPurpose spanPurpose;
+    private final String httpMethod;
+    private final String requestPath;
+    private final Object request;
+    private final String traceId;
+
+    /**
+     * Creates a new instance with the given info. See {@link #forSpan(String, SpanPurpose)} and {@link
+     * #forHttpRequest(String, SpanPurpose, String, String, Object)} for more readable factory methods.
+     *
+     * @param spanName The name of the root span about to be created.
+     * @param spanPurpose The purpose of the root span about to be created.
+     * @param httpMethod The HTTP method of the incoming request, or null if not applicable.
+     * @param requestPath The path of the incoming request (e.g. {@code /foo/bar}, without query string), or null if
+     * not applicable.
+     * @param request The raw request object (e.g. an {@code HttpServletRequest}), or null if not applicable.
+     */
+    public RootSpanSamplingContext(
+        String spanName, SpanPurpose spanPurpose, String httpMethod, String requestPath, Object request
+    ) {
+        this(spanName, spanPurpose, httpMethod, requestPath, request, null);
+    }
+
+    /**
+     * Creates a new instance with the given info, including the trace ID of the root span.
+     *
+     * @param spanName The name of the root span about to be created.
+     * @param spanPurpose The purpose of the root span about to be created.
+     * @param httpMethod The HTTP method of the incoming request, or null if not applicable.
+     * @param requestPath The path of the incoming request (e.g. {@code /foo/bar}, without query string), or null if
+     * not applicable.
+     * @param request The raw request object (e.g. an {@code HttpServletRequest}), or null if not applicable.
+     * @param traceId The trace ID of the root span about to be created, or null if not known yet.
+     */
+    public RootSpanSamplingContext(
+        String spanName, SpanPurpose spanPurpose, String httpMethod, String requestPath, Object request,
+        String traceId
+    ) {
+        this.spanName = spanName;
+        this.spanPurpose = spanPurpose;
+        this.httpMethod = httpMethod;
+        this.requestPath = requestPath;
+        this.request = request;
+        this.traceId = traceId;
+    }
+
+    /**
+     * @param spanName The name of the root span about to be created.
+     * @param spanPurpose The purpose of the root span about to be created.
+     * @return A new context with no HTTP request info.
+     */
+    public static RootSpanSamplingContext forSpan(String spanName, SpanPurpose spanPurpose) {
+        return new RootSpanSamplingContext(spanName, spanPurpose, null, null, null);
+    }
+
+    /**
+     * @param spanName The name of the root span about to be created.
+     * @param spanPurpose The purpose of the root span about to be created.
+     * @param httpMethod The HTTP method of the incoming request.
+     * @param requestPath The path of the incoming request (without query string).
+     * @param request The raw request object.
+     * @return A new context with the given HTTP request info.
+     */
+    public static RootSpanSamplingContext forHttpRequest(
+        String spanName, SpanPurpose spanPurpose, String httpMethod, String requestPath, Object request
+    ) {
+        return new RootSpanSamplingContext(spanName, spanPurpose, httpMethod, requestPath, request);
+    }
+
+    /**
+     * @param traceId The trace ID of the root span about to be created.
+     * @return This context if it already has the given trace ID, otherwise a copy of this context with the given
+     * trace ID.
+     */
+    public RootSpanSamplingContext withTraceId(String traceId) {
+        if (traceId == null ? this.traceId == null : traceId.equals(this.traceId)) {
+            return this;
+        }
+
+        return new RootSpanSamplingContext(spanName, spanPurpose, httpMethod, requestPath, request, traceId);
+    }
+
+    /**
+     * @return The name of the root span about to be created.
+     */
+    public String getSpanName() {
+        return spanName;
+    }
+
+    /**
+     * @return The purpose of the root span about to be created.
+     */
+    public SpanPurpose getSpanPurpose() {
+        return spanPurpose;
+    }
+
+    /**
+     * @return The HTTP method of the incoming request, or null if not applicable.
+     */
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    /**
+     * @return The path of the incoming request (without query string), or null if not applicable.
+     */
+    public String getRequestPath() {
+        return requestPath;
+    }
+
+    /**
+     * @return The raw request object (e.g. an {@code HttpServletRequest} or {@code ServerWebExchange}), or null if
+     * not applicable.
+     */
+    public Object getRequest() {
+        return request;
+    }
+
+    /**
+     * @return The trace ID of the root span about to be created, or null if it isn't known yet. This is always
+     * populated for contexts passed to a {@link ContextAwareRootSpanSamplingStrategy} by {@link
+     * com.nike.wingtips.Tracer}.
+     */
+    public String getTraceId() {
+        return traceId;
+    }
+}
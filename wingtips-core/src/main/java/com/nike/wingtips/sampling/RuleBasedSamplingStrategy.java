@@ -0,0 +1,390 @@
+package com.nike.wingtips.sampling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link ContextAwareRootSpanSamplingStrategy} that picks a sampling strategy per root span based on an ordered list
+ * of {@link SamplingRule}s, falling back to a default strategy when no rule matches. For example, to sample health
+ * checks at 0%, checkout requests at 100%, and everything else at 5%:
+ *
+ * <pre>
+ *      RuleBasedSamplingStrategy.newBuilder(new ProbabilisticSamplingStrategy(0.05))
+ *          .withRule(SamplingRule.newBuilder().withPathPrefix("/healthcheck").buildWithProbability(0.0))
+ *          .withRule(SamplingRule.newBuilder().withHttpMethod("POST").withPathPrefix("/checkout")
+ *                                             .buildWithProbability(1.0))
+ *          .build();
+ * </pre>
+ *
+ * Rules are evaluated in the order they were added and the first matching rule wins. When {@link #build()} is
+ * called the rules are compiled into a per-HTTP-method lookup table, so each decision does a single map lookup to find
+ * the (ordered) candidate rules for the request's method, and then only does cheap {@code String} comparisons -
+ * span name patterns are pre-split on their wildcards, so no regexes are evaluated on the request path. Rules that
+ * need request info (HTTP method or path) never match root spans that don't have it, e.g. root spans started
+ * directly via {@link com.nike.wingtips.Tracer} outside of a server integration.
+ *
+ * <p>{@link #isNextRootSpanSampleable()} has no context to match rules against, so it always uses the default
+ * strategy.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class RuleBasedSamplingStrategy implements ContextAwareRootSpanSamplingStrategy {
+
+    private static final SamplingRule[] NO_RULES = new SamplingRule[0];
+
+    private final RootSpanSamplingStrategy defaultStrategy;
+    private final List<SamplingRule> rules;
+    private final Map<String, SamplingRule[]> rulesByHttpMethod;
+    private final SamplingRule[] rulesForAnyHttpMethod;
+
+    protected RuleBasedSamplingStrategy(Builder builder) {
+        this.defaultStrategy = builder.defaultStrategy;
+        this.rules = Collections.unmodifiableList(new ArrayList<>(builder.rules));
+
+        // Compile the rules into a lookup table keyed by HTTP method. Each entry holds (in declaration order) the
+        //      rules for that method plus the rules that don't care about HTTP method. Requests with no method or an
+        //      unmapped method only need to check the method-agnostic rules.
+        List<SamplingRule> methodAgnosticRules = new ArrayList<>();
+        Set<String> httpMethods = new LinkedHashSet<>();
+        for (SamplingRule rule : rules) {
+            if (rule.httpMethod == null) {
+                methodAgnosticRules.add(rule);
+            }
+            else {
+                httpMethods.add(rule.httpMethod);
+            }
+        }
+
+        Map<String, SamplingRule[]> byMethod = new HashMap<>();
+        for (String httpMethod : httpMethods) {
+            List<SamplingRule> candidates = new ArrayList<>();
+            for (SamplingRule rule : rules) {
+                if (rule.httpMethod == null || rule.httpMethod.equals(httpMethod)) {
+                    candidates.add(rule);
+                }
+            }
+            byMethod.put(httpMethod, candidates.toArray(NO_RULES));
+        }
+
+        this.rulesByHttpMethod = byMethod;
+        this.rulesForAnyHttpMethod = methodAgnosticRules.toArray(NO_RULES);
+    }
+
+    /**
+     * @param defaultStrategy The strategy to use when no rule matches - cannot be null.
+     * @return A new builder with the given default strategy and no rules.
+     */
+    public static Builder newBuilder(RootSpanSamplingStrategy defaultStrategy) {
+        return new Builder(defaultStrategy);
+    }
+
+    @Override
+    public boolean isNextRootSpanSampleable() {
+        return defaultStrategy.isNextRootSpanSampleable();
+    }
+
+    @Override
+    public boolean isRootSpanSampleable(RootSpanSamplingContext context) {
+        SamplingRule rule = findMatchingRule(context);
+        RootSpanSamplingStrategy strategy = (rule == null) ? defaultStrategy : rule.strategy;
+
+        if (strategy instanceof ContextAwareRootSpanSamplingStrategy) {
+            return ((ContextAwareRootSpanSamplingStrategy) strategy).isRootSpanSampleable(context);
+        }
+
+        return strategy.isNextRootSpanSampleable();
+    }
+
+    /**
+     * @param context The context to match - cannot be null.
+     * @return The first rule that matches the given context, or null if no rules match.
+     */
+    public SamplingRule findMatchingRule(RootSpanSamplingContext context) {
+        SamplingRule[] candidates = null;
+        String httpMethod = context.getHttpMethod();
+        if (httpMethod != null) {
+            candidates = rulesByHttpMethod.get(normalizeHttpMethod(httpMethod));
+        }
+        if (candidates == null) {
+            candidates = rulesForAnyHttpMethod;
+        }
+
+        for (SamplingRule candidate : candidates) {
+            if (candidate.matchesIgnoringHttpMethod(context)) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return The strategy used when no rule matches.
+     */
+    public RootSpanSamplingStrategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * @return The rules in evaluation order (unmodifiable).
+     */
+    public List<SamplingRule> getRules() {
+        return rules;
+    }
+
+    static String normalizeHttpMethod(String httpMethod) {
+        // toUpperCase() returns the same instance when there's nothing to change, which is the common case.
+        return httpMethod.toUpperCase(Locale.US);
+    }
+
+    /**
+     * Builder for {@link RuleBasedSamplingStrategy}.
+     */
+    public static class Builder {
+
+        private final RootSpanSamplingStrategy defaultStrategy;
+        private final List<SamplingRule> rules = new ArrayList<>();
+
+        protected Builder(RootSpanSamplingStrategy defaultStrategy) {
+            if (defaultStrategy == null) {
+                throw new IllegalArgumentException("defaultStrategy cannot be null");
+            }
+
+            this.defaultStrategy = defaultStrategy;
+        }
+
+        /**
+         * Adds the given rule after any rules that have already been added. Earlier rules take precedence.
+         *
+         * @param rule The rule to add - cannot be null.
+         * @return This builder.
+         */
+        public Builder withRule(SamplingRule rule) {
+            if (rule == null) {
+                throw new IllegalArgumentException("rule cannot be null");
+            }
+
+            rules.add(rule);
+            return this;
+        }
+
+        /**
+         * @return A new {@link RuleBasedSamplingStrategy} with this builder's rules compiled into a lookup table.
+         */
+        public RuleBasedSamplingStrategy build() {
+            return new RuleBasedSamplingStrategy(this);
+        }
+    }
+
+    /**
+     * A single rule for {@link RuleBasedSamplingStrategy}. A rule matches a root span when all of its configured
+     * criteria match - criteria that aren't configured are ignored, so a rule with no criteria matches everything.
+     * The supported criteria are:
+     * <ul>
+     *     <li>
+     *         HTTP method - case insensitive exact match, e.g. {@code GET}.
+     *     </li>
+     *     <li>
+     *         Path prefix - matches request paths that equal the prefix or continue it with a new path segment, so
+     *         {@code /healthcheck} matches {@code /healthcheck} and {@code /healthcheck/deep} but not
+     *         {@code /healthcheckz}. A prefix ending in {@code /} matches anything under it.
+     *     </li>
+     *     <li>
+     *         Span name pattern - case sensitive match against the span name where {@code *} matches any sequence of
+     *         characters (including none), e.g. {@code GET /orders/*} or {@code *checkout*}.
+     *     </li>
+     * </ul>
+     */
+    public static class SamplingRule {
+
+        private final String httpMethod;
+        private final String pathPrefix;
+        private final String spanNamePattern;
+        private final String[] spanNamePatternParts;
+        private final RootSpanSamplingStrategy strategy;
+
+        protected SamplingRule(Builder builder, RootSpanSamplingStrategy strategy) {
+            if (strategy == null) {
+                throw new IllegalArgumentException("strategy cannot be null");
+            }
+
+            this.httpMethod = (builder.httpMethod == null) ? null : normalizeHttpMethod(builder.httpMethod);
+            this.pathPrefix = builder.pathPrefix;
+            this.spanNamePattern = builder.spanNamePattern;
+            // Splitting with a negative limit keeps leading/trailing empty parts, which represent leading/trailing
+            //      wildcards.
+            this.spanNamePatternParts = (spanNamePattern == null) ? null : spanNamePattern.split("\\*", -1);
+            this.strategy = strategy;
+        }
+
+        /**
+         * @return A new builder for a rule with no criteria.
+         */
+        public static Builder newBuilder() {
+            return new Builder();
+        }
+
+        /**
+         * @param context The context to match - cannot be null.
+         * @return true if all of this rule's criteria match the given context, false otherwise.
+         */
+        public boolean matches(RootSpanSamplingContext context) {
+            if (httpMethod != null) {
+                String contextHttpMethod = context.getHttpMethod();
+                if (contextHttpMethod == null || !httpMethod.equals(normalizeHttpMethod(contextHttpMethod))) {
+                    return false;
+                }
+            }
+
+            return matchesIgnoringHttpMethod(context);
+        }
+
+        boolean matchesIgnoringHttpMethod(RootSpanSamplingContext context) {
+            if (pathPrefix != null && !pathPrefixMatches(pathPrefix, context.getRequestPath())) {
+                return false;
+            }
+
+            //noinspection RedundantIfStatement
+            if (spanNamePatternParts != null && !spanNamePatternMatches(spanNamePatternParts, context.getSpanName())) {
+                return false;
+            }
+
+            return true;
+        }
+
+        static boolean pathPrefixMatches(String pathPrefix, String path) {
+            if (path == null || !path.startsWith(pathPrefix)) {
+                return false;
+            }
+
+            return path.length() == pathPrefix.length()
+                   || pathPrefix.endsWith("/")
+                   || path.charAt(pathPrefix.length()) == '/';
+        }
+
+        static boolean spanNamePatternMatches(String[] patternParts, String spanName) {
+            if (spanName == null) {
+                return false;
+            }
+
+            if (patternParts.length == 1) {
+                // No wildcards.
+                return spanName.equals(patternParts[0]);
+            }
+
+            String first = patternParts[0];
+            if (!spanName.startsWith(first)) {
+                return false;
+            }
+
+            int pos = first.length();
+            for (int i = 1; i < patternParts.length - 1; i++) {
+                String part = patternParts[i];
+                int index = spanName.indexOf(part, pos);
+                if (index < 0) {
+                    return false;
+                }
+                pos = index + part.length();
+            }
+
+            String last = patternParts[patternParts.length - 1];
+            return (spanName.length() - last.length() >= pos) && spanName.endsWith(last);
+        }
+
+        /**
+         * @return The (upper-cased) HTTP method this rule matches, or null if this rule doesn't care about HTTP
+         * method.
+         */
+        public String getHttpMethod() {
+            return httpMethod;
+        }
+
+        /**
+         * @return The request path prefix this rule matches, or null if this rule doesn't care about request path.
+         */
+        public String getPathPrefix() {
+            return pathPrefix;
+        }
+
+        /**
+         * @return The span name pattern this rule matches, or null if this rule doesn't care about span name.
+         */
+        public String getSpanNamePattern() {
+            return spanNamePattern;
+        }
+
+        /**
+         * @return The strategy used for root spans that match this rule.
+         */
+        public RootSpanSamplingStrategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * Builder for {@link SamplingRule}.
+         */
+        public static class Builder {
+
+            private String httpMethod;
+            private String pathPrefix;
+            private String spanNamePattern;
+
+            protected Builder() {
+            }
+
+            /**
+             * @param httpMethod The HTTP method to match (case insensitive), or null to match any method.
+             * @return This builder.
+             */
+            public Builder withHttpMethod(String httpMethod) {
+                this.httpMethod = httpMethod;
+                return this;
+            }
+
+            /**
+             * @param pathPrefix The request path prefix to match, or null to match any path.
+             * @return This builder.
+             */
+            public Builder withPathPrefix(String pathPrefix) {
+                this.pathPrefix = pathPrefix;
+                return this;
+            }
+
+            /**
+             * @param spanNamePattern The span name pattern to match, where {@code *} matches any sequence of
+             * characters - or null to match any span name.
+             * @return This builder.
+             */
+            public Builder withSpanNamePattern(String spanNamePattern) {
+                this.spanNamePattern = spanNamePattern;
+                return this;
+            }
+
+            /**
+             * @param strategy The strategy to use for root spans that match the rule - cannot be null.
+             * @return A new rule with this builder's criteria.
+             */
+            public SamplingRule build(RootSpanSamplingStrategy strategy) {
+                return new SamplingRule(this, strategy);
+            }
+
+            /**
+             * Shortcut for {@code build(new ProbabilisticSamplingStrategy(probability))}.
+             *
+             * @param probability The probability that root spans matching the rule will be sampled - must be between
+             * 0.0 and 1.0, inclusive.
+             * @return A new rule with this builder's criteria.
+             */
+            public SamplingRule buildWithProbability(double probability) {
+                return build(new ProbabilisticSamplingStrategy(probability));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span.SpanPurpose;
+
+/**
+ * Pluggable strategy for {@link com.nike.wingtips.Tracer} that determines whether a sub-span inside an already-sampled
+ * trace should be recorded as a full span, or summarized. This is intended for hot local operations that can be
+ * started millions of times per minute (e.g. a per-item serialization span inside a batch, or a cache lookup wrapped
+ * by a helper) where recording every occurrence as a full span is too expensive even for sampled traces.
+ *
+ * <p>When this returns false, {@link com.nike.wingtips.Tracer#startSubSpan(String, SpanPurpose)} returns a summarized
+ * sub-span instead of a normal one. A summarized sub-span still times itself, but it gets no span ID of its own, is
+ * never logged, and is never passed to {@link com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}s. Instead its
+ * span name and duration feed a per-name count and duration summary that is added as tags to the nearest sampled
+ * ancestor span when that ancestor completes. See {@link com.nike.wingtips.Span#isSummarizedSubSpan()} for details.
+ *
+ * <p>Call {@link com.nike.wingtips.Tracer#setSubSpanSamplingStrategy(SubSpanSamplingStrategy)} to tell the tracer to
+ * use a specific strategy. See {@link PerSpanNameSubSpanSamplingStrategy} for a ready-made implementation.
+ *
+ * @author Nic Munroe
+ */
+public interface SubSpanSamplingStrategy {
+
+    /**
+     * This is only called for sub-spans whose parent is sampleable - sub-spans of non-sampleable spans are never
+     * logged anyway, so there's nothing to save by summarizing them.
+     *
+     * @param spanName The name of the sub-span about to be created.
+     * @param spanPurpose The purpose of the sub-span about to be created.
+     * @return true if the sub-span should be recorded as a full span, false if it should be summarized. NOTE: This
+     * method is not necessarily deterministic - call it once per sub-span and store the result.
+     */
+    boolean isSubSpanSampleable(String spanName, SpanPurpose spanPurpose);
+
+}
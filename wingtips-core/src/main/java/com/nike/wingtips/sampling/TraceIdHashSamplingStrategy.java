@@ -0,0 +1,139 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A {@link ContextAwareRootSpanSamplingStrategy} that samples a fixed fraction of traces based on a hash of the trace
+ * ID, rather than a random draw. Every service using this strategy with the same probability makes the same decision
+ * for the same trace ID without any coordination, so if a downstream service ends up starting a root span for a trace
+ * ID it received (e.g. from a caller that propagated the trace ID but not its sampling decision), it agrees with the
+ * services upstream of it. Services with different probabilities still agree in one direction - a trace sampled at a
+ * lower probability is always also sampled at any higher probability.
+ *
+ * <p>The hash is computed from the low 64 bits of the trace ID, which are random for every trace ID format Wingtips
+ * generates (including time-ordered IDs, whose high bits are a timestamp). A trace ID string that is 1 to 32
+ * lowercase hex characters is decoded in place to get those bits, so {@link #isTraceIdSampleable(CharSequence)} and
+ * {@link #isTraceIdSampleable(long)} always agree - use whichever form of the ID you have. Other strings fall back to
+ * hashing their characters. The decoded bits are run through a 64-bit finalizer before being compared against the
+ * threshold, so even non-random IDs are spread evenly. None of this allocates for lowercase hex trace IDs.
+ *
+ * <p>{@link com.nike.wingtips.Tracer} always supplies the trace ID when calling {@link
+ * #isRootSpanSampleable(RootSpanSamplingContext)}, and {@link
+ * com.nike.wingtips.http.HttpRequestTracingUtils#fromRequestWithHeaders(com.nike.wingtips.http.RequestWithHeaders,
+ * java.util.List)} asks the strategy about the received trace ID when a caller propagates a trace ID without a
+ * sampling decision. {@link #isNextRootSpanSampleable()} has no trace ID to work with, so it falls back to a random
+ * draw with the same probability.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class TraceIdHashSamplingStrategy implements ContextAwareRootSpanSamplingStrategy {
+
+    // Hash values are reduced to 53 bits, the same resolution as a double's mantissa.
+    private static final int HASH_BITS = 53;
+    private static final long HASH_BOUND = 1L << HASH_BITS;
+
+    // FNV-1a 64-bit constants, used for trace IDs that aren't lowercase hex.
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final double probability;
+    private final long threshold;
+
+    /**
+     * Creates a new instance that samples the given fraction of trace IDs.
+     *
+     * @param probability The fraction of trace IDs that will be sampled - must be between 0.0 (never sample) and 1.0
+     * (always sample), inclusive.
+     * @throws IllegalArgumentException if probability is NaN or outside the range 0.0 to 1.0.
+     */
+    public TraceIdHashSamplingStrategy(double probability) {
+        ProbabilisticSamplingStrategy.validateProbability(probability);
+
+        this.probability = probability;
+        this.threshold = (long) (probability * HASH_BOUND);
+    }
+
+    @Override
+    public boolean isNextRootSpanSampleable() {
+        return (ThreadLocalRandom.current().nextLong() >>> (64 - HASH_BITS)) < threshold;
+    }
+
+    @Override
+    public boolean isRootSpanSampleable(RootSpanSamplingContext context) {
+        String traceId = context.getTraceId();
+        if (traceId == null) {
+            return isNextRootSpanSampleable();
+        }
+
+        return isTraceIdSampleable(traceId);
+    }
+
+    /**
+     * @param traceId The trace ID to make a decision for - cannot be null.
+     * @return true if the given trace ID should be sampled, false otherwise. Always returns the same result for the same
+     * trace ID.
+     */
+    public boolean isTraceIdSampleable(CharSequence traceId) {
+        return isHashSampleable(traceIdLowBits(traceId));
+    }
+
+    /**
+     * @param traceIdLowBits The low 64 bits of the trace ID to make a decision for (for 64-bit trace IDs this is the
+     * whole ID), e.g. from {@link com.nike.wingtips.TraceAndSpanIdGenerator#unsignedLowerHexStringToLong(String)}.
+     * @return true if the trace ID should be sampled, false otherwise. Returns the same result as {@link
+     * #isTraceIdSampleable(CharSequence)} does for the hex encoded trace ID.
+     */
+    public boolean isTraceIdSampleable(long traceIdLowBits) {
+        return isHashSampleable(traceIdLowBits);
+    }
+
+    /**
+     * @return The fraction of trace IDs that will be sampled.
+     */
+    public double getProbability() {
+        return probability;
+    }
+
+    protected boolean isHashSampleable(long bits) {
+        return (mix64(bits) >>> (64 - HASH_BITS)) < threshold;
+    }
+
+    /**
+     * @param traceId The trace ID to decode - cannot be null.
+     * @return The low 64 bits of the given trace ID if it is 1 to 32 lowercase hex characters, otherwise an FNV-1a
+     * hash of its characters.
+     */
+    static long traceIdLowBits(CharSequence traceId) {
+        int length = traceId.length();
+        if (length >= 1 && length <= 32) {
+            try {
+                return TraceAndSpanIdGenerator.unsignedLowerHexToLong(traceId, 0, length);
+            }
+            catch (NumberFormatException ex) {
+                // Not lowercase hex - fall through to hashing the characters.
+            }
+        }
+
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < length; i++) {
+            hash ^= traceId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * The 64-bit finalizer from MurmurHash3 - spreads every input bit across the whole output.
+     */
+    static long mix64(long bits) {
+        bits ^= (bits >>> 33);
+        bits *= 0xff51afd7ed558ccdL;
+        bits ^= (bits >>> 33);
+        bits *= 0xc4ceb9fe1a85ec53L;
+        bits ^= (bits >>> 33);
+        return bits;
+    }
+}
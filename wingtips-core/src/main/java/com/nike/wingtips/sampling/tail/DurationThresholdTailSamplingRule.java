@@ -0,0 +1,63 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TailSamplingRule} that keeps slow traces. The local root span's duration is compared against the
+ * threshold. If the trace was evicted before its local root span completed then the longest completed span is used
+ * instead.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class DurationThresholdTailSamplingRule implements TailSamplingRule {
+
+    private final long thresholdNanos;
+
+    /**
+     * Creates a new instance that keeps traces whose local root span took at least the given amount of time.
+     *
+     * @param threshold The duration threshold - cannot be negative.
+     * @param timeUnit The unit of the threshold - cannot be null.
+     */
+    public DurationThresholdTailSamplingRule(long threshold, TimeUnit timeUnit) {
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("timeUnit cannot be null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold cannot be negative. Invalid threshold: " + threshold);
+        }
+
+        this.thresholdNanos = timeUnit.toNanos(threshold);
+    }
+
+    @Override
+    public boolean shouldKeepTrace(Span localRootSpan, List<Span> completedSpans) {
+        if (localRootSpan != null) {
+            return exceedsThreshold(localRootSpan);
+        }
+
+        for (Span span : completedSpans) {
+            if (exceedsThreshold(span)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    protected boolean exceedsThreshold(Span span) {
+        Long durationNanos = span.getDurationNanos();
+        return durationNanos != null && durationNanos >= thresholdNanos;
+    }
+
+    /**
+     * @return The duration threshold in nanoseconds.
+     */
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+}
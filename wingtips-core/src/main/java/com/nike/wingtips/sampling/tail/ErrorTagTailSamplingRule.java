@@ -0,0 +1,58 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.tags.KnownZipkinTags;
+
+import java.util.List;
+
+/**
+ * A {@link TailSamplingRule} that keeps any trace where at least one span has an error tag. By default the error tag
+ * is {@link KnownZipkinTags#ERROR}, which is also the OpenTracing error tag key, so this works with both of the
+ * built-in HTTP tagging strategies. A tag value of {@code false} (case insensitive) is not treated as an error.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class ErrorTagTailSamplingRule implements TailSamplingRule {
+
+    private final String errorTagKey;
+
+    /**
+     * Creates a new instance that looks for the {@link KnownZipkinTags#ERROR} tag.
+     */
+    public ErrorTagTailSamplingRule() {
+        this(KnownZipkinTags.ERROR);
+    }
+
+    /**
+     * Creates a new instance that looks for the given tag.
+     *
+     * @param errorTagKey The tag key that indicates an error - cannot be null.
+     */
+    public ErrorTagTailSamplingRule(String errorTagKey) {
+        if (errorTagKey == null) {
+            throw new IllegalArgumentException("errorTagKey cannot be null");
+        }
+
+        this.errorTagKey = errorTagKey;
+    }
+
+    @Override
+    public boolean shouldKeepTrace(Span localRootSpan, List<Span> completedSpans) {
+        for (Span span : completedSpans) {
+            String errorTagValue = span.getTags().get(errorTagKey);
+            if (errorTagValue != null && !"false".equalsIgnoreCase(errorTagValue)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The tag key that indicates an error.
+     */
+    public String getErrorTagKey() {
+        return errorTagKey;
+    }
+}
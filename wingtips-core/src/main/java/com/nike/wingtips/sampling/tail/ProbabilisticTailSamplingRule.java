@@ -0,0 +1,40 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.sampling.ProbabilisticSamplingStrategy;
+
+import java.util.List;
+
+/**
+ * A {@link TailSamplingRule} that keeps a random percentage of traces, regardless of what they contain. Usually
+ * combined with {@link ErrorTagTailSamplingRule} and {@link DurationThresholdTailSamplingRule} so that a baseline of
+ * normal traces is kept alongside all the interesting ones.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class ProbabilisticTailSamplingRule implements TailSamplingRule {
+
+    private final ProbabilisticSamplingStrategy delegate;
+
+    /**
+     * Creates a new instance that keeps traces with the given probability.
+     *
+     * @param probability The probability that any given trace is kept - must be between 0.0 and 1.0, inclusive.
+     */
+    public ProbabilisticTailSamplingRule(double probability) {
+        this.delegate = new ProbabilisticSamplingStrategy(probability);
+    }
+
+    @Override
+    public boolean shouldKeepTrace(Span localRootSpan, List<Span> completedSpans) {
+        return delegate.isNextRootSpanSampleable();
+    }
+
+    /**
+     * @return The probability that any given trace is kept.
+     */
+    public double getProbability() {
+        return delegate.getProbability();
+    }
+}
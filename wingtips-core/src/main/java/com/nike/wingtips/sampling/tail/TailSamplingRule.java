@@ -0,0 +1,28 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+
+import java.util.List;
+
+/**
+ * A rule used by {@link TailSamplingSpanBuffer} to decide whether to keep a trace after its local spans have
+ * completed. A trace is kept if any of the buffer's rules returns true.
+ *
+ * <p>Implementations are called on the thread that completed the local root span (or the thread that triggered an
+ * eviction), outside of any buffer locks, so they should be fast but don't need to worry about contention.
+ *
+ * @author Nic Munroe
+ */
+public interface TailSamplingRule {
+
+    /**
+     * @param localRootSpan The first span that was started in this process for the trace (usually the overall
+     * request span), or null if the trace was evicted from the buffer before that span completed.
+     * @param completedSpans The completed spans buffered for the trace, in completion order. Will never be empty, and
+     * includes {@code localRootSpan} when it is not null. Do not modify this list.
+     * @return true if the trace should be kept and forwarded to the downstream listeners, false if this rule doesn't
+     * care about the trace.
+     */
+    boolean shouldKeepTrace(Span localRootSpan, List<Span> completedSpans);
+
+}
@@ -0,0 +1,529 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.clock.SpanClock;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link SpanLifecycleListener} that implements in-process tail-based sampling: it holds completed spans in memory,
+ * grouped by trace ID, until the trace's local root span completes, and then decides whether to keep the whole trace
+ * using a set of {@link TailSamplingRule}s. Spans for kept traces are forwarded to the downstream listeners (e.g. a
+ * Zipkin or LightStep listener) via {@link SpanLifecycleListener#spanCompleted(Span)}. Spans for other traces are
+ * discarded. This lets you keep every slow or failed trace while only keeping a small percentage of normal ones:
+ * <pre>
+ *  TailSamplingSpanBuffer buffer = TailSamplingSpanBuffer
+ *      .newBuilder()
+ *      .withRule(new ErrorTagTailSamplingRule())
+ *      .withRule(new DurationThresholdTailSamplingRule(2, TimeUnit.SECONDS))
+ *      .withRule(new ProbabilisticTailSamplingRule(0.01))
+ *      .withDownstreamListener(zipkinListener)
+ *      .build();
+ *  Tracer.getInstance().addSpanLifecycleListener(buffer);
+ * </pre>
+ *
+ * Register the buffer with {@link com.nike.wingtips.Tracer} <b>instead of</b> the downstream listeners. Since the
+ * buffer can only keep spans that were sampled in the first place, you'll usually want to leave root span sampling at
+ * (or near) 100% and let the buffer make the real decision. Non-sampleable spans and the {@code spanStarted} /
+ * {@code spanSampled} events are passed straight through to the downstream listeners.
+ *
+ * <p>The local root span of a trace is the first sampleable span started in this process for that trace ID - usually
+ * the overall request span. Spans that complete after their trace's decision was made (e.g. fire-and-forget async
+ * work) start a new buffer entry for the trace that has no local root. Such orphaned entries, and entries whose local
+ * root never completes, are evicted once they're older than the max trace age and decided using only the spans
+ * buffered so far (rules are passed a null local root span in that case). Expired entries are evicted as a side effect
+ * of normal span traffic - call {@link #evictExpiredTraces()} periodically if the application can go idle for long
+ * periods, and {@link #flushAll()} at shutdown.
+ *
+ * <p>Memory is bounded by the max number of buffered spans. When the limit is reached the oldest traces that have
+ * completed spans are decided early to make room. Entries for in-flight traces that don't have any completed spans yet
+ * only remember the local root span ID, so they aren't counted against the limit and are only evicted by age. A
+ * single trace can also buffer at most the max spans per trace - extra spans are dropped and
+ * counted in {@link #getNumDroppedSpans()}.
+ *
+ * <p>Traces are spread across independently locked shards by trace ID hash, so request threads completing spans for
+ * different traces rarely contend. Locks are only held while updating the buffer - rules and downstream listeners are
+ * always called after the lock has been released.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class TailSamplingSpanBuffer implements SpanLifecycleListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TailSamplingSpanBuffer.class);
+
+    /**
+     * The default maximum number of completed spans held in memory across all traces.
+     */
+    public static final int DEFAULT_MAX_BUFFERED_SPANS = 10_000;
+    /**
+     * The default maximum number of completed spans held in memory for a single trace.
+     */
+    public static final int DEFAULT_MAX_SPANS_PER_TRACE = 1_000;
+    /**
+     * The default maximum amount of time a trace can stay in the buffer before it's evicted - 30 seconds.
+     */
+    public static final long DEFAULT_MAX_TRACE_AGE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /**
+     * The default number of lock shards.
+     */
+    public static final int DEFAULT_NUM_SHARDS = 16;
+
+    private final TailSamplingRule[] rules;
+    private final SpanLifecycleListener[] downstreamListeners;
+    private final int maxSpansPerTrace;
+    private final int maxBufferedSpansPerShard;
+    private final long maxTraceAgeNanos;
+    private final SpanClock clock;
+    private final Shard[] shards;
+    private final int shardMask;
+
+    private final AtomicLong numKeptTraces = new AtomicLong();
+    private final AtomicLong numDiscardedTraces = new AtomicLong();
+    private final AtomicLong numEvictedTraces = new AtomicLong();
+    private final AtomicLong numDroppedSpans = new AtomicLong();
+
+    protected TailSamplingSpanBuffer(Builder builder) {
+        if (builder.rules.isEmpty()) {
+            throw new IllegalArgumentException("rules cannot be empty");
+        }
+
+        this.rules = builder.rules.toArray(new TailSamplingRule[0]);
+        this.downstreamListeners = builder.downstreamListeners.toArray(new SpanLifecycleListener[0]);
+        this.maxSpansPerTrace = builder.maxSpansPerTrace;
+        this.maxTraceAgeNanos = builder.maxTraceAgeNanos;
+        this.clock = (builder.clock == null) ? SpanClock.getGlobalClock() : builder.clock;
+
+        // Round the shard count up to a power of 2 so the shard for a trace can be found with a mask.
+        int numShards = Integer.highestOneBit(builder.numShards);
+        if (numShards < builder.numShards) {
+            numShards <<= 1;
+        }
+        this.shards = new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard();
+        }
+        this.shardMask = numShards - 1;
+        this.maxBufferedSpansPerShard = Math.max(1, (builder.maxBufferedSpans + numShards - 1) / numShards);
+    }
+
+    /**
+     * @return A new {@link Builder} for creating a {@link TailSamplingSpanBuffer}.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public void spanStarted(Span span) {
+        if (span.isSampleable()) {
+            List<TraceBuffer> evicted;
+            Shard shard = shardFor(span.getTraceId());
+            long now = clock.nanoTime();
+            synchronized (shard) {
+                evicted = shard.evictExpired(now, maxTraceAgeNanos, null);
+                if (!shard.traces.containsKey(span.getTraceId())) {
+                    shard.traces.put(span.getTraceId(), new TraceBuffer(span.getSpanId(), now));
+                }
+            }
+            decideEvicted(evicted);
+        }
+
+        for (SpanLifecycleListener listener : downstreamListeners) {
+            listener.spanStarted(span);
+        }
+    }
+
+    @Override
+    public void spanSampled(Span span) {
+        for (SpanLifecycleListener listener : downstreamListeners) {
+            listener.spanSampled(span);
+        }
+    }
+
+    @Override
+    public void spanCompleted(Span span) {
+        if (!span.isSampleable()) {
+            // Nothing to decide - pass it along so downstream listeners see the same events they normally would.
+            for (SpanLifecycleListener listener : downstreamListeners) {
+                listener.spanCompleted(span);
+            }
+            return;
+        }
+
+        List<TraceBuffer> evicted;
+        TraceBuffer completedTrace = null;
+        Shard shard = shardFor(span.getTraceId());
+        long now = clock.nanoTime();
+        synchronized (shard) {
+            evicted = shard.evictExpired(now, maxTraceAgeNanos, null);
+
+            TraceBuffer trace = shard.traces.get(span.getTraceId());
+            if (trace == null) {
+                // No local root known for this trace (e.g. async work that finished after the trace was decided).
+                trace = new TraceBuffer(null, now);
+                shard.traces.put(span.getTraceId(), trace);
+            }
+
+            boolean isLocalRoot = span.getSpanId().equals(trace.localRootSpanId);
+            // The local root is always kept so rules can rely on it, even if the trace is at its span limit.
+            if (isLocalRoot || trace.spans.size() < maxSpansPerTrace) {
+                trace.spans.add(span);
+                shard.numBufferedSpans++;
+            }
+            else {
+                numDroppedSpans.incrementAndGet();
+            }
+
+            if (isLocalRoot) {
+                trace.localRootSpan = span;
+                shard.traces.remove(span.getTraceId());
+                shard.numBufferedSpans -= trace.spans.size();
+                completedTrace = trace;
+            }
+
+            evicted = shard.evictOverCapacity(maxBufferedSpansPerShard, evicted);
+        }
+
+        if (completedTrace != null) {
+            decide(completedTrace);
+        }
+        decideEvicted(evicted);
+    }
+
+    /**
+     * Evicts and decides all traces that have been in the buffer longer than the max trace age. This happens
+     * automatically as spans flow through the buffer, so you only need to call this if the application may be idle
+     * for long periods.
+     */
+    public void evictExpiredTraces() {
+        long now = clock.nanoTime();
+        for (Shard shard : shards) {
+            List<TraceBuffer> evicted;
+            synchronized (shard) {
+                evicted = shard.evictExpired(now, maxTraceAgeNanos, null);
+            }
+            decideEvicted(evicted);
+        }
+    }
+
+    /**
+     * Evicts and decides all buffered traces, regardless of age. Intended for application shutdown.
+     */
+    public void flushAll() {
+        for (Shard shard : shards) {
+            List<TraceBuffer> evicted;
+            synchronized (shard) {
+                evicted = new ArrayList<>(shard.traces.values());
+                shard.traces.clear();
+                shard.numBufferedSpans = 0;
+            }
+            decideEvicted(evicted);
+        }
+    }
+
+    protected void decideEvicted(List<TraceBuffer> evicted) {
+        if (evicted == null) {
+            return;
+        }
+
+        for (TraceBuffer trace : evicted) {
+            if (!trace.spans.isEmpty()) {
+                numEvictedTraces.incrementAndGet();
+                decide(trace);
+            }
+        }
+    }
+
+    protected void decide(TraceBuffer trace) {
+        List<Span> completedSpans = Collections.unmodifiableList(trace.spans);
+        boolean keep = false;
+        for (TailSamplingRule rule : rules) {
+            if (rule.shouldKeepTrace(trace.localRootSpan, completedSpans)) {
+                keep = true;
+                break;
+            }
+        }
+
+        if (!keep) {
+            numDiscardedTraces.incrementAndGet();
+            return;
+        }
+
+        numKeptTraces.incrementAndGet();
+        for (Span span : trace.spans) {
+            for (SpanLifecycleListener listener : downstreamListeners) {
+                try {
+                    listener.spanCompleted(span);
+                }
+                catch (Throwable t) {
+                    // Don't let one bad listener prevent the rest of the trace from being forwarded.
+                    logger.warn("Downstream SpanLifecycleListener threw an exception. listener={}, span={}",
+                                listener.getClass().getName(), span, t);
+                }
+            }
+        }
+    }
+
+    protected Shard shardFor(String traceId) {
+        int hash = traceId.hashCode();
+        // Spread the high bits down so trace IDs that differ mostly in their high bits still use different shards.
+        hash ^= (hash >>> 16);
+        return shards[hash & shardMask];
+    }
+
+    /**
+     * @return The number of completed spans currently held in the buffer.
+     */
+    public int getNumBufferedSpans() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.numBufferedSpans;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The number of traces currently held in the buffer.
+     */
+    public int getNumBufferedTraces() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.traces.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The number of traces that were kept and forwarded to the downstream listeners.
+     */
+    public long getNumKeptTraces() {
+        return numKeptTraces.get();
+    }
+
+    /**
+     * @return The number of traces that were discarded because no rule wanted to keep them.
+     */
+    public long getNumDiscardedTraces() {
+        return numDiscardedTraces.get();
+    }
+
+    /**
+     * @return The number of traces that were decided early because they got too old or the buffer was full. These are
+     * also counted in {@link #getNumKeptTraces()} or {@link #getNumDiscardedTraces()}.
+     */
+    public long getNumEvictedTraces() {
+        return numEvictedTraces.get();
+    }
+
+    /**
+     * @return The number of spans that were dropped because their trace already had the max spans per trace buffered.
+     */
+    public long getNumDroppedSpans() {
+        return numDroppedSpans.get();
+    }
+
+    /**
+     * The buffered state for a single trace. Only accessed while holding its shard's lock, or after it has been removed
+     * from its shard.
+     */
+    protected static class TraceBuffer {
+        protected final String localRootSpanId;
+        protected final long createdNanoTime;
+        protected final List<Span> spans = new ArrayList<>();
+        protected Span localRootSpan;
+
+        protected TraceBuffer(String localRootSpanId, long createdNanoTime) {
+            this.localRootSpanId = localRootSpanId;
+            this.createdNanoTime = createdNanoTime;
+        }
+    }
+
+    /**
+     * One lock shard. The traces map is in insertion (i.e. creation time) order, so the oldest traces can be evicted
+     * from the head of the map without scanning it.
+     */
+    protected static class Shard {
+        protected final LinkedHashMap<String, TraceBuffer> traces = new LinkedHashMap<>();
+        protected int numBufferedSpans;
+
+        protected List<TraceBuffer> evictExpired(long now, long maxTraceAgeNanos, List<TraceBuffer> evicted) {
+            Iterator<Map.Entry<String, TraceBuffer>> iterator = traces.entrySet().iterator();
+            while (iterator.hasNext()) {
+                TraceBuffer trace = iterator.next().getValue();
+                // Compare via subtraction so this stays correct if nanoTime wraps.
+                if (now - trace.createdNanoTime < maxTraceAgeNanos) {
+                    break;
+                }
+                iterator.remove();
+                evicted = remove(trace, evicted);
+            }
+            return evicted;
+        }
+
+        protected List<TraceBuffer> evictOverCapacity(int maxBufferedSpans, List<TraceBuffer> evicted) {
+            Iterator<Map.Entry<String, TraceBuffer>> iterator = traces.entrySet().iterator();
+            while (numBufferedSpans > maxBufferedSpans && iterator.hasNext()) {
+                TraceBuffer trace = iterator.next().getValue();
+                if (trace.spans.isEmpty()) {
+                    // A marker for an in-flight local root. Evicting it wouldn't free any space, and would turn the
+                    //      root into an orphan that's held until it expires and then decided without a root.
+                    continue;
+                }
+                iterator.remove();
+                evicted = remove(trace, evicted);
+            }
+            return evicted;
+        }
+
+        private List<TraceBuffer> remove(TraceBuffer trace, List<TraceBuffer> evicted) {
+            numBufferedSpans -= trace.spans.size();
+            if (evicted == null) {
+                evicted = new ArrayList<>();
+            }
+            evicted.add(trace);
+            return evicted;
+        }
+    }
+
+    /**
+     * Builder for {@link TailSamplingSpanBuffer}. Create one via {@link TailSamplingSpanBuffer#newBuilder()}.
+     */
+    public static final class Builder {
+
+        private final List<TailSamplingRule> rules = new ArrayList<>();
+        private final List<SpanLifecycleListener> downstreamListeners = new ArrayList<>();
+        private int maxBufferedSpans = DEFAULT_MAX_BUFFERED_SPANS;
+        private int maxSpansPerTrace = DEFAULT_MAX_SPANS_PER_TRACE;
+        private long maxTraceAgeNanos = DEFAULT_MAX_TRACE_AGE_NANOS;
+        private int numShards = DEFAULT_NUM_SHARDS;
+        private SpanClock clock;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a rule. A trace is kept if any rule wants to keep it. At least one rule is required.
+         *
+         * @param rule The rule to add - cannot be null.
+         * @return This builder.
+         */
+        public Builder withRule(TailSamplingRule rule) {
+            if (rule == null) {
+                throw new IllegalArgumentException("rule cannot be null");
+            }
+            rules.add(rule);
+            return this;
+        }
+
+        /**
+         * Adds a listener that spans for kept traces will be forwarded to.
+         *
+         * @param listener The listener to add - cannot be null.
+         * @return This builder.
+         */
+        public Builder withDownstreamListener(SpanLifecycleListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener cannot be null");
+            }
+            downstreamListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * @param maxBufferedSpans The maximum number of completed spans held in memory across all traces. Must be
+         * greater than 0. Defaults to {@link #DEFAULT_MAX_BUFFERED_SPANS}.
+         * @return This builder.
+         */
+        public Builder withMaxBufferedSpans(int maxBufferedSpans) {
+            if (maxBufferedSpans <= 0) {
+                throw new IllegalArgumentException(
+                    "maxBufferedSpans must be greater than 0. Invalid maxBufferedSpans: " + maxBufferedSpans
+                );
+            }
+            this.maxBufferedSpans = maxBufferedSpans;
+            return this;
+        }
+
+        /**
+         * @param maxSpansPerTrace The maximum number of completed spans held in memory for a single trace. Must be
+         * greater than 0. Defaults to {@link #DEFAULT_MAX_SPANS_PER_TRACE}.
+         * @return This builder.
+         */
+        public Builder withMaxSpansPerTrace(int maxSpansPerTrace) {
+            if (maxSpansPerTrace <= 0) {
+                throw new IllegalArgumentException(
+                    "maxSpansPerTrace must be greater than 0. Invalid maxSpansPerTrace: " + maxSpansPerTrace
+                );
+            }
+            this.maxSpansPerTrace = maxSpansPerTrace;
+            return this;
+        }
+
+        /**
+         * @param maxTraceAge How long a trace can stay in the buffer before it's evicted and decided with whatever
+         * spans have completed so far. Must be greater than 0. Defaults to 30 seconds.
+         * @param timeUnit The unit of the max trace age - cannot be null.
+         * @return This builder.
+         */
+        public Builder withMaxTraceAge(long maxTraceAge, TimeUnit timeUnit) {
+            if (timeUnit == null) {
+                throw new IllegalArgumentException("timeUnit cannot be null");
+            }
+            if (maxTraceAge <= 0) {
+                throw new IllegalArgumentException(
+                    "maxTraceAge must be greater than 0. Invalid maxTraceAge: " + maxTraceAge
+                );
+            }
+            this.maxTraceAgeNanos = timeUnit.toNanos(maxTraceAge);
+            return this;
+        }
+
+        /**
+         * @param numShards The number of independently locked shards - rounded up to the next power of 2. Must be
+         * between 1 and 65536, inclusive. Defaults to {@link #DEFAULT_NUM_SHARDS}.
+         * @return This builder.
+         */
+        public Builder withNumShards(int numShards) {
+            if (numShards <= 0 || numShards > (1 << 16)) {
+                throw new IllegalArgumentException(
+                    "numShards must be between 1 and 65536 (inclusive). Invalid numShards: " + numShards
+                );
+            }
+            this.numShards = numShards;
+            return this;
+        }
+
+        /**
+         * @param clock The clock to use for measuring trace age, or null (the default) to use the {@link
+         * SpanClock#getGlobalClock()} at the time {@link #build()} is called.
+         * @return This builder.
+         */
+        public Builder withClock(SpanClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @return A new {@link TailSamplingSpanBuffer} using this builder's settings.
+         */
+        public TailSamplingSpanBuffer build() {
+            return new TailSamplingSpanBuffer(this);
+        }
+    }
+}
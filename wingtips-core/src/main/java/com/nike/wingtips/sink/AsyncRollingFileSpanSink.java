@@ -0,0 +1,637 @@
+package com.nike.wingtips.sink;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer.SpanLoggingRepresentation;
+import com.nike.wingtips.clock.SpanClock;
+import com.nike.wingtips.sampling.ExporterBackpressure;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
+import com.nike.wingtips.util.parser.SpanSerializer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link SpanSink} that takes span output off the request path: {@link #spanCompleted(Span, boolean)} only puts the
+ * span on a bounded in-memory queue, and a single background thread serializes queued spans in batches and writes them
+ * to a rolling file through a {@link FileChannel} - one write call per batch (or per write buffer's worth of spans for
+ * very large batches). This doesn't depend on the application's logging config at all, and request threads never
+ * block on I/O or on each other. Usage:
+ * <pre>
+ *  AsyncRollingFileSpanSink sink = AsyncRollingFileSpanSink
+ *      .newBuilder(Paths.get("/var/log/myapp/spans.log"))
+ *      .withMaxFileSizeBytes(256 * 1024 * 1024)
+ *      .withRotationInterval(1, TimeUnit.HOURS)
+ *      .build();
+ *  Tracer.getInstance().setSpanSink(sink);
+ * </pre>
+ *
+ * Each span is written as one line in the same format the span loggers use, minus the logging pattern's prefix - e.g.
+ * {@code [DISTRIBUTED_TRACING] {"traceId":...}} - so the files can be read with the {@code wingtips-log-tools}
+ * module's {@code SpanLogTailer} and {@code SpanLogAnalyzer} or any log shipper. The span representation is configurable with {@link
+ * Builder#withSpanLoggingRepresentation(SpanLoggingRepresentation)}.
+ *
+ * <p>Rotation: before a batch is written the active file is renamed to {@code <file name>.<yyyyMMdd-HHmmss>} (UTC, with
+ * a numeric suffix if needed) if the batch would push it past the max file size, or if it was opened more than the
+ * rotation interval ago. Idle files are also rotated once the interval has passed. Only the newest rolled files are
+ * kept - see {@link Builder#withMaxRolledFiles(int)}.
+ *
+ * <p>Spans are dropped (never blocked on) when the queue is full or the sink has been closed, and they're lost if a
+ * write fails - all of which is counted. This class also implements {@link ExporterBackpressure}, so it can drive an
+ * {@link com.nike.wingtips.sampling.AdaptiveSamplingStrategy}. Call {@link #close()} at shutdown to write out the
+ * queued spans.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class AsyncRollingFileSpanSink implements SpanSink, ExporterBackpressure, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRollingFileSpanSink.class);
+
+    /**
+     * The name of the background thread that writes the spans.
+     */
+    public static final String WRITER_THREAD_NAME = "wingtips-span-sink-writer";
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1_000;
+    public static final int DEFAULT_WRITE_BUFFER_SIZE_BYTES = 256 * 1024;
+    public static final long DEFAULT_MAX_FILE_SIZE_BYTES = 100 * 1024 * 1024;
+    public static final long DEFAULT_ROTATION_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+    public static final int DEFAULT_MAX_ROLLED_FILES = 10;
+
+    /**
+     * How long the writer thread waits for new spans before checking for shutdown and time-based rotation.
+     */
+    protected static final long IDLE_POLL_MILLIS = 100;
+
+    private static final Pattern ROLLED_FILE_SUFFIX_PATTERN = Pattern.compile("\\d{8}-\\d{6}(-\\d+)?");
+    private static final Pattern ROLLED_FILE_NAME_PATTERN = Pattern.compile("\\.(\\d{8}-\\d{6})(?:-(\\d+))?$");
+    /**
+     * Orders rolled files oldest first: by timestamp, then by the numeric collision suffix (so {@code -10} sorts after
+     * {@code -9}).
+     */
+    private static final Comparator<Path> ROLLED_FILE_AGE_COMPARATOR = new Comparator<Path>() {
+        @Override
+        public int compare(Path first, Path second) {
+            Matcher firstMatcher = ROLLED_FILE_NAME_PATTERN.matcher(first.getFileName().toString());
+            Matcher secondMatcher = ROLLED_FILE_NAME_PATTERN.matcher(second.getFileName().toString());
+            if (!firstMatcher.find() || !secondMatcher.find()) {
+                return first.compareTo(second);
+            }
+
+            int timestampComparison = firstMatcher.group(1).compareTo(secondMatcher.group(1));
+            if (timestampComparison != 0) {
+                return timestampComparison;
+            }
+            return Long.compare(collisionSuffix(firstMatcher), collisionSuffix(secondMatcher));
+        }
+
+        private long collisionSuffix(Matcher matcher) {
+            String suffix = matcher.group(2);
+            return (suffix == null) ? 0 : Long.parseLong(suffix);
+        }
+    };
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] SPAN_MARKER_BYTES = "[DISTRIBUTED_TRACING] ".getBytes(UTF_8);
+    private static final byte[] INCORRECT_TIMING_MARKER_BYTES = "[INCORRECT_TIMING] ".getBytes(UTF_8);
+
+    private final Path activeFile;
+    private final int queueCapacity;
+    private final BlockingQueue<PendingSpan> queue;
+    private final SpanLoggingRepresentation representation;
+    private final int maxBatchSize;
+    private final long maxFileSizeBytes;
+    private final long rotationIntervalNanos;
+    private final int maxRolledFiles;
+    private final SpanClock clock;
+    private final Thread writerThread;
+
+    private final AtomicLong numWrittenSpans = new AtomicLong();
+    private final AtomicLong numDroppedSpans = new AtomicLong();
+    private final AtomicLong numFailedSpans = new AtomicLong();
+    private final AtomicLong numRotations = new AtomicLong();
+
+    private volatile boolean closed;
+
+    // Writer thread state.
+    private final List<PendingSpan> batch;
+    private final SimpleDateFormat rolledFileDateFormat;
+    private ByteBuffer writeBuffer;
+    private int spansInWriteBuffer;
+    private FileChannel channel;
+    private long fileSize;
+    private long fileOpenedNanoTime;
+
+    protected AsyncRollingFileSpanSink(Builder builder) {
+        this.activeFile = builder.activeFile;
+        this.queueCapacity = builder.queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+        this.representation = builder.representation;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxFileSizeBytes = builder.maxFileSizeBytes;
+        this.rotationIntervalNanos = builder.rotationIntervalNanos;
+        this.maxRolledFiles = builder.maxRolledFiles;
+        this.clock = (builder.clock == null) ? SpanClock.getGlobalClock() : builder.clock;
+        this.batch = new ArrayList<>(builder.maxBatchSize);
+        this.writeBuffer = ByteBuffer.allocate(builder.writeBufferSizeBytes);
+        this.rolledFileDateFormat = new SimpleDateFormat("yyyyMMdd-HHmmss");
+        this.rolledFileDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWriterLoop();
+            }
+        }, WRITER_THREAD_NAME);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * @param activeFile The file spans are written to - cannot be null. Rolled files are created next to it. The
+     * parent directory is created if necessary.
+     * @return A new {@link Builder}.
+     */
+    public static Builder newBuilder(Path activeFile) {
+        return new Builder(activeFile);
+    }
+
+    @Override
+    public void spanCompleted(Span span, boolean containsIncorrectTimingInfo) {
+        if (closed || !queue.offer(new PendingSpan(span, containsIncorrectTimingInfo))) {
+            numDroppedSpans.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting spans, waits for the writer thread to write out everything already queued, and closes the
+     * active file. Spans handed to this sink afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // A span can slip into the queue between the writer thread's final check and its exit - count it as dropped.
+        while (queue.poll() != null) {
+            numDroppedSpans.incrementAndGet();
+        }
+    }
+
+    protected void runWriterLoop() {
+        while (!closed || !queue.isEmpty()) {
+            PendingSpan first;
+            try {
+                first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException ex) {
+                // Nobody should interrupt this thread, but if they do just keep going until closed.
+                continue;
+            }
+
+            try {
+                if (first == null) {
+                    rotateIdleFileIfNecessary();
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                writeBatch(batch);
+            }
+            catch (RuntimeException ex) {
+                numFailedSpans.addAndGet(batch.size());
+                logger.error("Unexpected error writing spans. The spans in this batch were lost.", ex);
+            }
+            finally {
+                batch.clear();
+            }
+        }
+
+        closeChannelQuietly();
+    }
+
+    protected void writeBatch(List<PendingSpan> spans) {
+        writeBuffer.clear();
+        spansInWriteBuffer = 0;
+        for (PendingSpan pending : spans) {
+            appendLine(pending);
+        }
+        flushWriteBuffer();
+    }
+
+    /**
+     * Appends the given span's line to the write buffer. If it doesn't fit, the buffer is written out first - or grown
+     * if the line alone is bigger than the buffer. If serializing the span fails, its partial line is discarded and
+     * only that span is counted as failed - the rest of the batch is still written.
+     */
+    protected void appendLine(PendingSpan pending) {
+        while (true) {
+            int lineStart = writeBuffer.position();
+            try {
+                if (pending.containsIncorrectTimingInfo) {
+                    writeBuffer.put(INCORRECT_TIMING_MARKER_BYTES);
+                }
+                writeBuffer.put(SPAN_MARKER_BYTES);
+                writeSpan(pending.span);
+                writeBuffer.put((byte) '\n');
+                spansInWriteBuffer++;
+                return;
+            }
+            catch (BufferOverflowException ex) {
+                writeBuffer.position(lineStart);
+                if (lineStart == 0) {
+                    ByteBuffer bigger = ByteBuffer.allocate(writeBuffer.capacity() * 2);
+                    writeBuffer = bigger;
+                }
+                else {
+                    flushWriteBuffer();
+                }
+            }
+            catch (RuntimeException ex) {
+                writeBuffer.position(lineStart);
+                numFailedSpans.incrementAndGet();
+                logger.error("Unexpected error serializing span. The span was lost. trace_id={}, span_id={}",
+                             pending.span.getTraceId(), pending.span.getSpanId(), ex);
+                return;
+            }
+        }
+    }
+
+    protected void writeSpan(Span span) {
+        switch (representation) {
+            case JSON:
+                SpanSerializer.writeJsonUtf8(span, writeBuffer);
+                break;
+            case KEY_VALUE:
+                SpanSerializer.writeKeyValueUtf8(span, writeBuffer);
+                break;
+            case BINARY:
+                String base64 = SpanBinaryCodec.toBase64(span);
+                if (base64.length() > writeBuffer.remaining()) {
+                    throw new BufferOverflowException();
+                }
+                // Base64 is pure ASCII.
+                for (int i = 0; i < base64.length(); i++) {
+                    writeBuffer.put((byte) base64.charAt(i));
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown span logging representation type: " + representation);
+        }
+    }
+
+    /**
+     * Writes the contents of the write buffer to the active file (rotating first if necessary) and clears the buffer.
+     * On failure the spans in the buffer are counted as failed and the file is reopened for the next write.
+     */
+    protected void flushWriteBuffer() {
+        writeBuffer.flip();
+        int numBytes = writeBuffer.remaining();
+        int numSpans = spansInWriteBuffer;
+        try {
+            if (numBytes == 0) {
+                return;
+            }
+
+            if (channel != null && fileSize > 0
+                && (fileSize + numBytes > maxFileSizeBytes || isRotationIntervalExceeded())) {
+                rotate();
+            }
+            if (channel == null) {
+                openActiveFile();
+            }
+
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+            fileSize += numBytes;
+            numWrittenSpans.addAndGet(numSpans);
+        }
+        catch (IOException ex) {
+            numFailedSpans.addAndGet(numSpans);
+            logger.error("Error writing spans to file. The spans in this batch were lost. span_file={}",
+                         activeFile, ex);
+            closeChannelQuietly();
+        }
+        finally {
+            writeBuffer.clear();
+            spansInWriteBuffer = 0;
+        }
+    }
+
+    protected void rotateIdleFileIfNecessary() {
+        if (channel != null && fileSize > 0 && isRotationIntervalExceeded()) {
+            try {
+                rotate();
+            }
+            catch (IOException ex) {
+                logger.error("Error rotating span file. span_file={}", activeFile, ex);
+                closeChannelQuietly();
+            }
+        }
+    }
+
+    private boolean isRotationIntervalExceeded() {
+        return clock.nanoTime() - fileOpenedNanoTime >= rotationIntervalNanos;
+    }
+
+    protected void openActiveFile() throws IOException {
+        Path parent = activeFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        channel = FileChannel.open(
+            activeFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+        );
+        fileSize = channel.size();
+        fileOpenedNanoTime = clock.nanoTime();
+    }
+
+    protected void rotate() throws IOException {
+        closeChannelQuietly();
+
+        String baseName = activeFile.getFileName() + "." + rolledFileDateFormat.format(
+            new Date(TimeUnit.MICROSECONDS.toMillis(clock.currentTimeEpochMicros()))
+        );
+        Path rolledFile = activeFile.resolveSibling(baseName);
+        for (int suffix = 1; Files.exists(rolledFile); suffix++) {
+            rolledFile = activeFile.resolveSibling(baseName + "-" + suffix);
+        }
+        Files.move(activeFile, rolledFile);
+        numRotations.incrementAndGet();
+
+        deleteOldRolledFiles();
+    }
+
+    protected void deleteOldRolledFiles() throws IOException {
+        String rolledPrefix = activeFile.getFileName() + ".";
+        List<Path> rolledFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(activeFile.toAbsolutePath().getParent())) {
+            for (Path file : files) {
+                // Only match our own rolled files, not other files that happen to share the prefix (e.g. a
+                //      SpanLogTailer checkpoint file).
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(rolledPrefix)
+                    && ROLLED_FILE_SUFFIX_PATTERN.matcher(fileName.substring(rolledPrefix.length())).matches()) {
+                    rolledFiles.add(file);
+                }
+            }
+        }
+
+        Collections.sort(rolledFiles, ROLLED_FILE_AGE_COMPARATOR);
+        for (int i = 0; i < rolledFiles.size() - maxRolledFiles; i++) {
+            Files.deleteIfExists(rolledFiles.get(i));
+        }
+    }
+
+    private void closeChannelQuietly() {
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException ex) {
+                logger.warn("Error closing span file. span_file={}", activeFile, ex);
+            }
+            channel = null;
+        }
+    }
+
+    public Path getActiveFile() {
+        return activeFile;
+    }
+
+    public SpanLoggingRepresentation getSpanLoggingRepresentation() {
+        return representation;
+    }
+
+    /**
+     * @return The number of spans currently waiting to be written.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getNumWrittenSpans() {
+        return numWrittenSpans.get();
+    }
+
+    /**
+     * @return The number of spans dropped because the queue was full or the sink was closed.
+     */
+    public long getNumDroppedSpans() {
+        return numDroppedSpans.get();
+    }
+
+    /**
+     * @return The number of spans that were lost because writing them to the file failed.
+     */
+    public long getNumFailedSpans() {
+        return numFailedSpans.get();
+    }
+
+    public long getNumRotations() {
+        return numRotations.get();
+    }
+
+    @Override
+    public double getQueueUtilization() {
+        return ((double) queue.size()) / queueCapacity;
+    }
+
+    /**
+     * @return {@link #getNumDroppedSpans()} plus {@link #getNumFailedSpans()}.
+     */
+    @Override
+    public long getDroppedSpanCount() {
+        return numDroppedSpans.get() + numFailedSpans.get();
+    }
+
+    /**
+     * A queued span.
+     */
+    protected static class PendingSpan {
+        protected final Span span;
+        protected final boolean containsIncorrectTimingInfo;
+
+        protected PendingSpan(Span span, boolean containsIncorrectTimingInfo) {
+            this.span = span;
+            this.containsIncorrectTimingInfo = containsIncorrectTimingInfo;
+        }
+    }
+
+    /**
+     * Builder for {@link AsyncRollingFileSpanSink}. {@link #build()} starts the writer thread.
+     */
+    public static class Builder {
+        private final Path activeFile;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private int writeBufferSizeBytes = DEFAULT_WRITE_BUFFER_SIZE_BYTES;
+        private long maxFileSizeBytes = DEFAULT_MAX_FILE_SIZE_BYTES;
+        private long rotationIntervalNanos = DEFAULT_ROTATION_INTERVAL_NANOS;
+        private int maxRolledFiles = DEFAULT_MAX_ROLLED_FILES;
+        private SpanLoggingRepresentation representation = SpanLoggingRepresentation.JSON;
+        private SpanClock clock;
+
+        protected Builder(Path activeFile) {
+            if (activeFile == null) {
+                throw new IllegalArgumentException("activeFile cannot be null");
+            }
+
+            this.activeFile = activeFile;
+        }
+
+        /**
+         * @param queueCapacity The max number of spans waiting to be written - must be positive. Spans that arrive
+         * when the queue is full are dropped.
+         * @return This builder.
+         */
+        public Builder withQueueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity must be positive");
+            }
+
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize The max number of spans the writer thread takes off the queue at once - must be
+         * positive.
+         * @return This builder.
+         */
+        public Builder withMaxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            }
+
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param writeBufferSizeBytes The initial size of the buffer batches are serialized into - must be positive.
+         * Batches bigger than this are written in several calls.
+         * @return This builder.
+         */
+        public Builder withWriteBufferSizeBytes(int writeBufferSizeBytes) {
+            if (writeBufferSizeBytes <= 0) {
+                throw new IllegalArgumentException("writeBufferSizeBytes must be positive");
+            }
+
+            this.writeBufferSizeBytes = writeBufferSizeBytes;
+            return this;
+        }
+
+        /**
+         * @param maxFileSizeBytes The size the active file is kept under (unless a single batch is bigger) - must be
+         * positive.
+         * @return This builder.
+         */
+        public Builder withMaxFileSizeBytes(long maxFileSizeBytes) {
+            if (maxFileSizeBytes <= 0) {
+                throw new IllegalArgumentException("maxFileSizeBytes must be positive");
+            }
+
+            this.maxFileSizeBytes = maxFileSizeBytes;
+            return this;
+        }
+
+        /**
+         * @param interval How long a file is written to before it's rotated - must be positive.
+         * @param timeUnit The unit for the interval - cannot be null.
+         * @return This builder.
+         */
+        public Builder withRotationInterval(long interval, TimeUnit timeUnit) {
+            if (interval <= 0) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+
+            if (timeUnit == null) {
+                throw new IllegalArgumentException("timeUnit cannot be null");
+            }
+
+            this.rotationIntervalNanos = timeUnit.toNanos(interval);
+            return this;
+        }
+
+        /**
+         * @param maxRolledFiles The number of rolled files to keep - cannot be negative. Older ones are deleted.
+         * @return This builder.
+         */
+        public Builder withMaxRolledFiles(int maxRolledFiles) {
+            if (maxRolledFiles < 0) {
+                throw new IllegalArgumentException("maxRolledFiles cannot be negative");
+            }
+
+            this.maxRolledFiles = maxRolledFiles;
+            return this;
+        }
+
+        /**
+         * @param representation How spans are serialized in the file - cannot be null. Defaults to {@link
+         * SpanLoggingRepresentation#JSON}.
+         * @return This builder.
+         */
+        public Builder withSpanLoggingRepresentation(SpanLoggingRepresentation representation) {
+            if (representation == null) {
+                throw new IllegalArgumentException("representation cannot be null");
+            }
+
+            this.representation = representation;
+            return this;
+        }
+
+        /**
+         * @param clock The clock used for time-based rotation and rolled file names. Null (the default) means {@link
+         * SpanClock#getGlobalClock()}.
+         * @return This builder.
+         */
+        public Builder withClock(SpanClock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @return A new {@link AsyncRollingFileSpanSink} with its writer thread already running.
+         */
+        public AsyncRollingFileSpanSink build() {
+            return new AsyncRollingFileSpanSink(this);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.nike.wingtips.sink;
+
+import com.nike.wingtips.Span;
+
+/**
+ * Receives completed sampleable spans from {@link com.nike.wingtips.Tracer} <b>instead of</b> the span loggers - see
+ * {@link com.nike.wingtips.Tracer#setSpanSink(SpanSink)}. {@link AsyncRollingFileSpanSink} is the provided
+ * implementation.
+ *
+ * <p>Implementations are called on the thread that completed the span (usually a request thread), after all {@link
+ * com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}s have been notified, so they must be threadsafe and
+ * should never block.
+ *
+ * @author Nic Munroe
+ */
+public interface SpanSink {
+
+    /**
+     * Called once for each completed sampleable span. The span won't be modified by Wingtips after this call.
+     *
+     * @param span The completed span.
+     * @param containsIncorrectTimingInfo True if the span was completed in a way that makes its timing unreliable
+     * (the same spans that are logged with an {@code [INCORRECT_TIMING]} marker when no sink is set).
+     */
+    void spanCompleted(Span span, boolean containsIncorrectTimingInfo);
+
+}
@@ -76,6 +76,11 @@ import org.slf4j.LoggerFactory;
  * }
  * </pre>
  *
+ * <p>If you only export sampled spans, you can construct a strategy with {@code skipTaggingForNonSampledSpans} set
+ * to true (see {@link #HttpTagAndSpanNamingStrategy(boolean)}) so that request and response tagging is skipped entirely
+ * for spans that aren't {@link Span#isSampleable()}. The final span name is still set either way, since span names
+ * show up in logs and metrics for non-sampled spans too.
+ *
  * <p>Async request/response scenarios will look different, and/or the framework may require a different solution where
  * it's not a simple single method call that you surround with the naming and tagging logic, but the critical pieces
  * should always be the same:
@@ -106,6 +111,39 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    protected final boolean skipTaggingForNonSampledSpans;
+
+    /**
+     * Creates a new instance that tags all spans, sampled or not.
+     */
+    protected HttpTagAndSpanNamingStrategy() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance with the given non-sampled span tagging option.
+     *
+     * @param skipTaggingForNonSampledSpans Pass true to skip request and response tagging (i.e. {@link
+     * #doHandleRequestTagging(Span, Object, HttpTagAndSpanNamingAdapter)}, {@link
+     * #doHandleResponseAndErrorTagging(Span, Object, Object, Throwable, HttpTagAndSpanNamingAdapter)}, and {@link
+     * #doExtraWingtipsTagging(Span, Object, Object, Throwable, HttpTagAndSpanNamingAdapter)}) for spans that aren't
+     * {@link Span#isSampleable()}, or false to tag all spans. Skipping saves the cost of extracting tag values from
+     * the request and response for spans that will never be exported, but means non-sampled spans won't have any of
+     * those tags if you look at them some other way (e.g. in a {@link
+     * com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}).
+     */
+    protected HttpTagAndSpanNamingStrategy(boolean skipTaggingForNonSampledSpans) {
+        this.skipTaggingForNonSampledSpans = skipTaggingForNonSampledSpans;
+    }
+
+    /**
+     * @return true if this strategy skips request and response tagging for spans that aren't {@link
+     * Span#isSampleable()}, false if it tags all spans. See {@link #HttpTagAndSpanNamingStrategy(boolean)}.
+     */
+    public boolean isSkipTaggingForNonSampledSpans() {
+        return skipTaggingForNonSampledSpans;
+    }
+
     /**
      * Handles tagging the given span with tags related to the given request, according to this tag strategy's
      * requirements.
@@ -203,6 +241,9 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
      * the behavior of this method then you should override {@link
      * #doHandleRequestTagging(Span, Object, HttpTagAndSpanNamingAdapter)}.
      *
+     * <p>Does nothing if this strategy {@link #isSkipTaggingForNonSampledSpans()} and the span isn't {@link
+     * Span#isSampleable()}.
+     *
      * @param span The span to tag - should never be null.
      * @param request The incoming request - should never be null.
      * @param adapter The adapter to handle the incoming request - should never be null (use {@link NoOpHttpTagAdapter}
@@ -214,7 +255,9 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
         @NotNull HttpTagAndSpanNamingAdapter<REQ, ?> adapter
     ) {
         //noinspection ConstantConditions
-        if (span == null || request == null || adapter == null) {
+        if (span == null || request == null || adapter == null
+            || (skipTaggingForNonSampledSpans && !span.isSampleable())
+        ) {
             return;
         }
 
@@ -257,6 +300,9 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
      * error will be logged but will not propagate outside this method. Since this method is final, if you want to
      * override the behavior of this method then you should override the relevant delegate method(s).
      *
+     * <p>If this strategy {@link #isSkipTaggingForNonSampledSpans()} and the span isn't {@link Span#isSampleable()},
+     * then only the final span name is set - the tagging delegate methods are not called.
+     *
      * @param span The span to tag - should never be null.
      * @param request The request object - this can be null if you don't have it anymore when this method is called,
      * however you should pass it if at all possible as it may be critical to determining the final span name.
@@ -279,17 +325,22 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
             return;
         }
 
-        try {
-            doHandleResponseAndErrorTagging(span, request, response, error, adapter);
-        }
-        catch (Throwable t) {
-            // Impl methods should never throw an exception. If you're seeing this error pop up, the impl needs to
-            //      be fixed.
-            logger.error(
-                "An unexpected error occurred while handling response tagging. The error will be swallowed to avoid "
-                + "doing any damage, but your span may be missing some expected tags. This error should be fixed.",
-                t
-            );
+        boolean skipTagging = skipTaggingForNonSampledSpans && !span.isSampleable();
+
+        if (!skipTagging) {
+            try {
+                doHandleResponseAndErrorTagging(span, request, response, error, adapter);
+            }
+            catch (Throwable t) {
+                // Impl methods should never throw an exception. If you're seeing this error pop up, the impl needs to
+                //      be fixed.
+                logger.error(
+                    "An unexpected error occurred while handling response tagging. The error will be swallowed to "
+                    + "avoid doing any damage, but your span may be missing some expected tags. This error should be "
+                    + "fixed.",
+                    t
+                );
+            }
         }
 
         try {
@@ -305,6 +356,10 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
             );
         }
 
+        if (skipTagging) {
+            return;
+        }
+
         try {
             doExtraWingtipsTagging(span, request, response, error, adapter);
         }
@@ -409,6 +464,12 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
      * Span#putTag(String, String)}) if and only if the tag value is not null and its {@link Object#toString()} is not
      * blank (according to {@link StringUtils#isBlank(CharSequence)}).
      *
+     * <p>Integral numbers ({@link Integer}, {@link Long}, {@link Short}, {@link Byte}), {@link Double}s, and {@link
+     * Boolean}s are never blank, and are put on the span via the typed {@link Span#putTag(String, long)}, {@link
+     * Span#putTag(String, double)}, and {@link Span#putTag(String, boolean)} methods respectively, so that they aren't
+     * converted to strings unless/until the span is serialized. Any other value (including {@link Float}s and other
+     * {@link Number} types) is tagged with its {@link Object#toString()}.
+     *
      * @param span The span to tag - should never be null.
      * @param tagKey The key to use when calling {@link Span#putTag(String, String)} - should never be null.
      * @param tagValue The tag value to use if and only if it is not null and its {@link Object#toString()} is not
@@ -424,7 +485,27 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
             return;
         }
 
-        // tagValue is not null. Convert to string and check for blank.
+        // tagValue is not null. Typed values that can't be blank go straight onto the span in their typed form.
+        if (tagValue instanceof Integer || tagValue instanceof Long
+            || tagValue instanceof Short || tagValue instanceof Byte
+        ) {
+            span.putTag(tagKey, ((Number) tagValue).longValue());
+            return;
+        }
+
+        // Floats (and other Number types) stay on the string path - widening a Float to a double changes its string
+        //      form (e.g. 0.1f would become "0.10000000149011612").
+        if (tagValue instanceof Double) {
+            span.putTag(tagKey, ((Double) tagValue).doubleValue());
+            return;
+        }
+
+        if (tagValue instanceof Boolean) {
+            span.putTag(tagKey, ((Boolean) tagValue).booleanValue());
+            return;
+        }
+
+        // Not a typed value. Convert to string and check for blank.
         String tagValueString = tagValue.toString();
 
         if (StringUtils.isBlank(tagValueString)) {
@@ -435,4 +516,35 @@ public abstract class HttpTagAndSpanNamingStrategy<REQ, RES> {
         span.putTag(tagKey, tagValueString);
     }
 
+    /**
+     * A helper method that can be used by subclasses for tag values that are expensive to compute (e.g. a full
+     * request URL). The given deferred value is put on the span via {@link Span#putDeferredTag(String,
+     * Span.DeferredTagValue)}, so it's only evaluated if the span is sampled or its tags are read before it completes
+     * (non-sampled spans drop unread deferred values when they complete). When it is evaluated, a null or blank
+     * (according to {@link StringUtils#isBlank(CharSequence)}) result means the span won't have the tag - the same
+     * outcome as {@link #putTagIfValueIsNotBlank(Span, String, Object)} with a blank value.
+     *
+     * @param span The span to tag - should never be null.
+     * @param tagKey The tag key - should never be null.
+     * @param deferredTagValue The deferred tag value - should never be null.
+     */
+    protected void putDeferredTagIfValueIsNotBlank(
+        @NotNull Span span,
+        @NotNull String tagKey,
+        @NotNull final Span.DeferredTagValue deferredTagValue
+    ) {
+        //noinspection ConstantConditions
+        if (deferredTagValue == null || span == null || tagKey == null) {
+            return;
+        }
+
+        span.putDeferredTag(tagKey, new Span.DeferredTagValue() {
+            @Override
+            public String get() {
+                String value = deferredTagValue.get();
+                return (StringUtils.isBlank(value)) ? null : value;
+            }
+        });
+    }
+
 }
@@ -20,6 +20,10 @@ import org.jetbrains.annotations.Nullable;
  * <a href="https://github.com/opentracing/opentracing-java/blob/master/opentracing-api/src/main/java/io/opentracing/tag/Tags.java">
  *     Tags.java
  * </a>
+ *
+ * <p>The http.url tag is put on the span as a deferred value (see {@link Span#putDeferredTag(String,
+ * Span.DeferredTagValue)}), so the full URL is only built for sampled spans (or if something reads the tags before a
+ * non-sampled span completes).
  */
 public class OpenTracingHttpTagStrategy<REQ, RES> extends HttpTagAndSpanNamingStrategy<REQ, RES> {
 
@@ -35,14 +39,39 @@ public class OpenTracingHttpTagStrategy<REQ, RES> extends HttpTagAndSpanNamingSt
         return (OpenTracingHttpTagStrategy<REQ, RES>) DEFAULT_INSTANCE;
     }
 
+    /**
+     * Creates a new instance that tags all spans, sampled or not. You can use {@link #getDefaultInstance()} instead
+     * of creating a new instance if you don't need any customization.
+     */
+    public OpenTracingHttpTagStrategy() {
+        super();
+    }
+
+    /**
+     * Creates a new instance with the given non-sampled span tagging option.
+     *
+     * @param skipTaggingForNonSampledSpans Pass true to skip request and response tagging for spans that aren't
+     * {@link Span#isSampleable()} - see {@link HttpTagAndSpanNamingStrategy#HttpTagAndSpanNamingStrategy(boolean)}.
+     */
+    public OpenTracingHttpTagStrategy(boolean skipTaggingForNonSampledSpans) {
+        super(skipTaggingForNonSampledSpans);
+    }
+
     @Override
     protected void doHandleRequestTagging(
         @NotNull Span span,
-        @NotNull REQ request,
-        @NotNull HttpTagAndSpanNamingAdapter<REQ, ?> adapter
+        @NotNull final REQ request,
+        @NotNull final HttpTagAndSpanNamingAdapter<REQ, ?> adapter
     ) {
         putTagIfValueIsNotBlank(span, KnownOpenTracingTags.HTTP_METHOD, adapter.getRequestHttpMethod(request));
-        putTagIfValueIsNotBlank(span, KnownOpenTracingTags.HTTP_URL, adapter.getRequestUrl(request));
+        // The full URL is usually rebuilt from several pieces of the request, so it's deferred until it's known that
+        //      the span will be exported (or its tags are read).
+        putDeferredTagIfValueIsNotBlank(span, KnownOpenTracingTags.HTTP_URL, new Span.DeferredTagValue() {
+            @Override
+            public String get() {
+                return adapter.getRequestUrl(request);
+            }
+        });
     }
 
     @Override
@@ -59,7 +88,7 @@ public class OpenTracingHttpTagStrategy<REQ, RES> extends HttpTagAndSpanNamingSt
             // OpenTracing doesn't expect you to pass messages with the error tag, just error=true.
             //      So we don't need to do anything with the given error Throwable or returned
             //      getErrorResponseTagValue(), other than have them trigger adding the error=true tag.
-            span.putTag(KnownOpenTracingTags.ERROR, "true");
+            span.putTag(KnownOpenTracingTags.ERROR, true);
         }
     }
 }
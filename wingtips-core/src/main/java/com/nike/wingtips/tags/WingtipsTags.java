@@ -19,4 +19,30 @@ public class WingtipsTags {
      */
     public static final String SPAN_HANDLER = "span.handler";
 
+    /**
+     * The prefix for the tags that summarize a span's summarized sub-spans (see {@link
+     * com.nike.wingtips.Span#isSummarizedSubSpan()}). For each summarized sub-span name, the span gets three tags
+     * made of this prefix, the sub-span name, and one of the {@code SUMMARIZED_SUB_SPAN_*_TAG_SUFFIX} suffixes - e.g.
+     * {@code summarized_sub_span.cache-lookup.count=1234}.
+     */
+    public static final String SUMMARIZED_SUB_SPAN_TAG_PREFIX = "summarized_sub_span.";
+
+    /**
+     * Suffix for the summarized sub-span tag holding the number of summarized sub-spans with a given name. See
+     * {@link #SUMMARIZED_SUB_SPAN_TAG_PREFIX}.
+     */
+    public static final String SUMMARIZED_SUB_SPAN_COUNT_TAG_SUFFIX = ".count";
+
+    /**
+     * Suffix for the summarized sub-span tag holding the total duration in nanoseconds of the summarized sub-spans
+     * with a given name. See {@link #SUMMARIZED_SUB_SPAN_TAG_PREFIX}.
+     */
+    public static final String SUMMARIZED_SUB_SPAN_TOTAL_DURATION_NANOS_TAG_SUFFIX = ".total_duration_nanos";
+
+    /**
+     * Suffix for the summarized sub-span tag holding the longest duration in nanoseconds of the summarized sub-spans
+     * with a given name. See {@link #SUMMARIZED_SUB_SPAN_TAG_PREFIX}.
+     */
+    public static final String SUMMARIZED_SUB_SPAN_MAX_DURATION_NANOS_TAG_SUFFIX = ".max_duration_nanos";
+
 }
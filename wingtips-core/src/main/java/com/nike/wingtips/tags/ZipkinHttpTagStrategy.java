@@ -24,6 +24,10 @@ import org.jetbrains.annotations.Nullable;
  *     <li>http.host</li>
  * </ul>
  *
+ * The http.url tag is put on the span as a deferred value (see {@link Span#putDeferredTag(String,
+ * Span.DeferredTagValue)}), so the full URL is only built for sampled spans (or if something reads the tags before a
+ * non-sampled span completes).
+ *
  * @param <REQ> The expected request object type to be inspected
  * @param <RES> The expected response object type to be inspected
  *
@@ -46,15 +50,40 @@ public class ZipkinHttpTagStrategy<REQ, RES> extends HttpTagAndSpanNamingStrateg
         return (ZipkinHttpTagStrategy<REQ, RES>) DEFAULT_INSTANCE;
     }
 
+    /**
+     * Creates a new instance that tags all spans, sampled or not. You can use {@link #getDefaultInstance()} instead
+     * of creating a new instance if you don't need any customization.
+     */
+    public ZipkinHttpTagStrategy() {
+        super();
+    }
+
+    /**
+     * Creates a new instance with the given non-sampled span tagging option.
+     *
+     * @param skipTaggingForNonSampledSpans Pass true to skip request and response tagging for spans that aren't
+     * {@link Span#isSampleable()} - see {@link HttpTagAndSpanNamingStrategy#HttpTagAndSpanNamingStrategy(boolean)}.
+     */
+    public ZipkinHttpTagStrategy(boolean skipTaggingForNonSampledSpans) {
+        super(skipTaggingForNonSampledSpans);
+    }
+
     @Override
     protected void doHandleRequestTagging(
         @NotNull Span span,
-        @NotNull REQ request,
-        @NotNull HttpTagAndSpanNamingAdapter<REQ, ?> adapter
+        @NotNull final REQ request,
+        @NotNull final HttpTagAndSpanNamingAdapter<REQ, ?> adapter
     ) {
         putTagIfValueIsNotBlank(span, KnownZipkinTags.HTTP_METHOD, adapter.getRequestHttpMethod(request));
         putTagIfValueIsNotBlank(span, KnownZipkinTags.HTTP_PATH, adapter.getRequestPath(request));
-        putTagIfValueIsNotBlank(span, KnownZipkinTags.HTTP_URL, adapter.getRequestUrl(request));
+        // The full URL is usually rebuilt from several pieces of the request, so it's deferred until it's known that
+        //      the span will be exported (or its tags are read).
+        putDeferredTagIfValueIsNotBlank(span, KnownZipkinTags.HTTP_URL, new Span.DeferredTagValue() {
+            @Override
+            public String get() {
+                return adapter.getRequestUrl(request);
+            }
+        });
         putTagIfValueIsNotBlank(span, KnownZipkinTags.HTTP_ROUTE, adapter.getRequestUriPathTemplate(request, null));
     }
 
@@ -324,14 +324,15 @@ public class AsyncWingtipsHelperJava7 {
         Map<String, String> mdcContextMapToLink
     ) {
         // Unregister the span stack so that if there's already a trace on the stack we don't get exceptions when
-        //      registering the desired stack with the thread, and keep a copy of the results.
+        //      registering the desired stack with the thread, and keep a copy of the results. The MDC is cleared
+        //      first so that unregistering doesn't bother removing the span fields from it one at a time.
         Map<String, String> callingThreadMdcContextMap = MDC.getCopyOfContextMap();
+        MDC.clear();
         Deque<Span> callingThreadSpanStack = Tracer.getInstance().unregisterFromThread();
 
-        // Now setup the span stack and MDC as desired
-        if (mdcContextMapToLink == null)
-            MDC.clear();
-        else
+        // Now setup the span stack and MDC as desired. Tracer only writes span fields that differ from what's in the
+        //      MDC we link, so usually there's nothing left for it to write.
+        if (mdcContextMapToLink != null)
             MDC.setContextMap(mdcContextMapToLink);
 
         Tracer.getInstance().registerWithThread(spanStackToLink);
@@ -374,8 +375,11 @@ public class AsyncWingtipsHelperJava7 {
     @Deprecated
     public static void unlinkTracingFromCurrentThread(Deque<Span> spanStackToResetFor,
                                                       Map<String, String> mdcContextMapToResetFor) {
-        Tracer.getInstance().unregisterFromThread();
+        // Clear the MDC before unregistering so that unregistering doesn't bother removing the span fields from it one
+        //      at a time. Tracer forgets the span fields it wrote when unregistering, and when the span stack is
+        //      re-registered it only writes span fields that differ from the MDC info we reset to.
         MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
 
         if (mdcContextMapToResetFor != null)
             MDC.setContextMap(mdcContextMapToResetFor);
@@ -0,0 +1,133 @@
+package com.nike.wingtips.util;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.clock.SpanClock;
+import com.nike.wingtips.idgen.ThreadLocalIdGenerator;
+import com.nike.wingtips.util.parser.SpanParser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional startup hook that pays Wingtips' one-time initialization costs up front so they don't land on the first
+ * request an application serves. Without a warm-up the first span created after startup pays for class loading and
+ * static initialization of {@link Tracer}, {@link SpanClock}, {@link TraceAndSpanIdGenerator}, and {@link SpanParser}
+ * (including its escape tables), plus whatever {@link java.security.SecureRandom} seeding the configured ID generator
+ * needs - which can block for a long time on hosts with a small entropy pool.
+ *
+ * <p>Call {@link #warmUpInBackground()} during application startup to do this work on a daemon thread, or
+ * {@link #warmUp()} to do it synchronously. Warming up does not create any spans on {@link Tracer}'s span stack, does
+ * not touch the logger MDC, and does not notify any {@link com.nike.wingtips.lifecyclelistener.SpanLifecycleListener}s
+ * - it's invisible to the rest of the application. Only the first call does any work; later calls are no-ops.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(WingtipsWarmUp.class);
+
+    /**
+     * The name of the thread started by {@link #warmUpInBackground()}.
+     */
+    public static final String WARM_UP_THREAD_NAME = "wingtips-warm-up";
+
+    private static final AtomicBoolean warmUpStarted = new AtomicBoolean(false);
+    private static volatile boolean warmedUp = false;
+
+    /**
+     * Intentionally private constructor to force all access via static methods.
+     */
+    private WingtipsWarmUp() {
+        // Do nothing
+    }
+
+    /**
+     * Performs the warm-up on the calling thread. This may block while {@link java.security.SecureRandom} is seeded,
+     * so don't call it on a request-handling thread - see {@link #warmUpInBackground()}. Does nothing if a warm-up
+     * has already been started by this method or {@link #warmUpInBackground()}.
+     *
+     * @return true if this call performed the warm-up, false if a warm-up had already been started.
+     */
+    public static boolean warmUp() {
+        if (!warmUpStarted.compareAndSet(false, true)) {
+            return false;
+        }
+
+        doWarmUp();
+        return true;
+    }
+
+    /**
+     * Starts the warm-up on a new daemon thread named {@link #WARM_UP_THREAD_NAME} and returns immediately.
+     *
+     * @return The thread that is performing the warm-up (so callers can {@link Thread#join()} it if desired), or null
+     * if a warm-up had already been started.
+     */
+    public static Thread warmUpInBackground() {
+        if (!warmUpStarted.compareAndSet(false, true)) {
+            return null;
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                doWarmUp();
+            }
+        }, WARM_UP_THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * @return true if a warm-up has completed, false otherwise.
+     */
+    public static boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    /**
+     * Resets the warm-up state so {@link #warmUp()} and {@link #warmUpInBackground()} will run again. Intended for
+     * testing.
+     */
+    static void resetWarmUpState() {
+        warmUpStarted.set(false);
+        warmedUp = false;
+    }
+
+    private static void doWarmUp() {
+        long startNanos = System.nanoTime();
+        try {
+            // Class init for the singletons the first span needs.
+            Tracer.getInstance();
+            SpanClock.getGlobalClock().currentTimeEpochMicros();
+
+            // Fold in SecureRandom entropy for the default generator, and force any lazily-created SecureRandom
+            //      in the configured generator into existence.
+            ThreadLocalIdGenerator.mixInSecureRandomEntropy();
+            TraceAndSpanIdGenerator.generateTraceId();
+
+            // Build a throwaway span (not attached to Tracer) and run it through both serialization formats and back,
+            //      including a value that needs escaping, so the serializers and parser escape tables are loaded.
+            Span span = Span.newBuilder("wingtips-warm-up", SpanPurpose.LOCAL_ONLY)
+                            .withTag("warm\"up", "line1\nline2\t\\")
+                            .build();
+            span.addTimestampedAnnotationForCurrentTime("warm-up");
+            SpanParser.fromJSON(span.toJSON());
+            SpanParser.fromKeyValueString(span.toKeyValueString());
+
+            warmedUp = true;
+            logger.debug("Wingtips warm-up completed in {} ms", (System.nanoTime() - startNanos) / 1000000L);
+        }
+        catch (Throwable t) {
+            // Warm-up is purely an optimization - never let it take the application down.
+            logger.warn("Wingtips warm-up failed. Wingtips will still initialize lazily on first use.", t);
+        }
+    }
+}
@@ -0,0 +1,991 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact, versioned binary encoding for {@link Span}s - for span pipelines (e.g. logs to Kafka to storage) where
+ * the JSON and key/value formats cost several times more bytes and CPU than necessary. Decoding an encoded span gives
+ * a span equivalent to the one {@link SpanParser} produces from that span's JSON or key/value form, except that typed
+ * tag values (see {@link Span#putTag(String, long)} and friends) keep their types instead of becoming strings.
+ *
+ * <p>Each encoded span is a self-describing record (format version {@link #FORMAT_VERSION}):
+ * <pre>
+ *     version     1 byte
+ *     flags       1 byte: bit 0 = sampleable, bit 1 = has duration, bits 2-3 = span purpose
+ *     traceId     id
+ *     parentId    id
+ *     spanId      id
+ *     spanName    string
+ *     userId      string
+ *     startTime   signed varint (epoch micros)
+ *     duration    signed varint (nanos) - only present if the has-duration flag is set
+ *     tags        unsigned varint count, then per tag: 1 byte type, key string, then a string, signed varint,
+ *                 1 byte boolean, or 8 byte IEEE double (big-endian) depending on the type
+ *     annotations unsigned varint count, then per annotation: signed varint timestamp (epoch micros, relative to
+ *                 startTime), value string
+ * </pre>
+ * Varints are little-endian base 128 (signed ones are zigzag encoded first). Strings are an unsigned varint of their
+ * UTF-8 length plus one (0 means null) followed by the UTF-8 bytes. IDs are a 1 byte kind followed by 8 big-endian
+ * bytes for 16 char lowercase hex IDs (the format Wingtips generates), 16 bytes for 32 char lowercase hex IDs
+ * (128-bit trace IDs), nothing for null, or a string for anything else - so every ID decodes back to exactly the
+ * string that was encoded.
+ *
+ * <p>Ways to use it:
+ * <ul>
+ *     <li>
+ *         Single spans: {@link #toBytes(Span)}, {@link #encode(Span, ByteBuffer)}, and {@link #fromBytes(byte[],
+ *         int, int)}.
+ *     </li>
+ *     <li>
+ *         Streams of spans: {@link BatchWriter} and {@link BatchReader}. A batch is the 4 byte {@link #BATCH_MAGIC}
+ *         header followed by records, each prefixed with its length as an unsigned varint. Both reuse their buffers
+ *         for every span, and the reader caches recently decoded short strings (span names, tag keys, etc) so
+ *         repeated values don't create a new {@link String} for every span.
+ *     </li>
+ *     <li>
+ *         Text: {@link #toBase64(Span)} and {@link #fromBase64(CharSequence)}. This is what {@link
+ *         com.nike.wingtips.Tracer.SpanLoggingRepresentation#BINARY} logs. A version 1 record always starts with
+ *         {@code 'A'} in Base64, which can't be confused with the JSON or key/value formats - see {@link
+ *         #looksLikeBase64Encoding(byte[], int, int)}.
+ *     </li>
+ * </ul>
+ *
+ * The {@code from...} methods log an error and return null for malformed input, like {@link SpanParser}.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanBinaryCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanBinaryCodec.class);
+
+    /**
+     * The format version written by this class, and the only version it can read.
+     */
+    public static final int FORMAT_VERSION = 1;
+    /**
+     * Records larger than this are rejected by {@link BatchReader} as corrupt.
+     */
+    public static final int MAX_RECORD_SIZE_BYTES = 16 * 1024 * 1024;
+    /**
+     * The max size of the per-thread (and per-{@link BatchWriter}) encoding buffer that will be kept around for reuse.
+     */
+    public static final int MAX_RETAINED_BUFFER_BYTES = 64 * 1024;
+
+    protected static final byte[] BATCH_MAGIC = {'W', 'T', 'S', 'B'};
+
+    protected static final int FLAG_SAMPLEABLE = 0x01;
+    protected static final int FLAG_HAS_DURATION = 0x02;
+    protected static final int PURPOSE_SHIFT = 2;
+    protected static final int PURPOSE_MASK = 0x03 << PURPOSE_SHIFT;
+
+    protected static final int ID_NULL = 0;
+    protected static final int ID_HEX_64 = 1;
+    protected static final int ID_HEX_128 = 2;
+    protected static final int ID_STRING = 3;
+
+    protected static final int TAG_STRING = 0;
+    protected static final int TAG_LONG = 1;
+    protected static final int TAG_BOOLEAN = 2;
+    protected static final int TAG_DOUBLE = 3;
+
+    private static final int DEFAULT_BUFFER_BYTES = 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] BASE64_CHARS =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int[] BASE64_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, -1);
+        for (int i = 0; i < BASE64_CHARS.length; i++) {
+            BASE64_VALUES[BASE64_CHARS[i]] = i;
+        }
+    }
+
+    private static final ThreadLocal<CodecState> threadLocalState = new ThreadLocal<CodecState>() {
+        @Override
+        protected CodecState initialValue() {
+            return new CodecState();
+        }
+    };
+
+    // Intentionally protected - use the static methods.
+    protected SpanBinaryCodec() { /* do nothing */ }
+
+    /**
+     * @param span The span to encode - cannot be null.
+     * @return A new array containing the binary encoding of the given span.
+     */
+    public static byte[] toBytes(Span span) {
+        CodecState state = acquireState();
+        try {
+            Encoder encoder = state.resetEncoder();
+            encoder.encodeSpan(span);
+            return Arrays.copyOf(encoder.buf, encoder.pos);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Writes the binary encoding of the given span into the given buffer, starting at its current position.
+     *
+     * @param span The span to encode - cannot be null.
+     * @param out The buffer to write to - cannot be null.
+     * @return The number of bytes written.
+     * @throws java.nio.BufferOverflowException if the buffer doesn't have enough room (in which case nothing is
+     * written).
+     */
+    public static int encode(Span span, ByteBuffer out) {
+        CodecState state = acquireState();
+        try {
+            Encoder encoder = state.resetEncoder();
+            encoder.encodeSpan(span);
+            out.put(encoder.buf, 0, encoder.pos);
+            return encoder.pos;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param bytes The binary encoding of a single span, as produced by {@link #toBytes(Span)}.
+     * @return The decoded span, or null if the bytes are null or not a valid encoding.
+     */
+    public static Span fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        return fromBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes The array containing the binary encoding of a single span - cannot be null.
+     * @param offset The index of the first byte of the encoding.
+     * @param length The length of the encoding - it must take up exactly this many bytes.
+     * @return The decoded span, or null if the given range isn't a valid encoding.
+     */
+    public static Span fromBytes(byte[] bytes, int offset, int length) {
+        checkRange(bytes, offset, length);
+        CodecState state = acquireState();
+        try {
+            return state.decoder.decodeSpan(bytes, offset, offset + length);
+        }
+        catch (RuntimeException ex) {
+            logger.error("Error extracting Span from binary encoding. Defaulting to null. bad_span_length={}",
+                         length, ex);
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param span The span to encode - cannot be null.
+     * @return The binary encoding of the given span in standard (RFC 4648, padded) Base64.
+     */
+    public static String toBase64(Span span) {
+        CodecState state = acquireState();
+        try {
+            Encoder encoder = state.resetEncoder();
+            encoder.encodeSpan(span);
+            char[] chars = state.base64CharsFor(encoder.pos);
+            int numChars = encodeBase64(encoder.buf, encoder.pos, chars);
+            return new String(chars, 0, numChars);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param base64 The Base64 form of a single span's binary encoding, as produced by {@link #toBase64(Span)}.
+     * Surrounding whitespace is ignored.
+     * @return The decoded span, or null if the value is null or not a valid encoding.
+     */
+    public static Span fromBase64(CharSequence base64) {
+        if (base64 == null) {
+            return null;
+        }
+
+        CodecState state = acquireState();
+        try {
+            int start = 0;
+            int end = base64.length();
+            while (start < end && base64.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && base64.charAt(end - 1) <= ' ') {
+                end--;
+            }
+
+            byte[] decoded = state.decoder.scratchFor(end - start);
+            int length = 0;
+            int[] quad = state.base64Quad;
+            for (int i = start; i < end; i += 4) {
+                for (int j = 0; j < 4; j++) {
+                    quad[j] = (i + j < end) ? base64.charAt(i + j) : -1;
+                }
+                length = decodeBase64Quad(quad, (i + 4 >= end), decoded, length);
+            }
+            return state.decoder.decodeSpan(decoded, 0, length);
+        }
+        catch (RuntimeException ex) {
+            logger.error("Error extracting Span from Base64 binary encoding. Defaulting to null. bad_span_base64={}",
+                         base64, ex);
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Same as {@link #fromBase64(CharSequence)}, but reads the Base64 chars from the given range of (ASCII/UTF-8)
+     * bytes - e.g. straight out of a log file - without creating a {@link String} for them.
+     *
+     * @return The decoded span, or null if the given range isn't a valid encoding.
+     */
+    public static Span fromBase64Utf8(byte[] bytes, int offset, int length) {
+        checkRange(bytes, offset, length);
+        CodecState state = acquireState();
+        try {
+            int start = offset;
+            int end = offset + length;
+            while (start < end && bytes[start] <= ' ' && bytes[start] >= 0) {
+                start++;
+            }
+            while (end > start && bytes[end - 1] <= ' ' && bytes[end - 1] >= 0) {
+                end--;
+            }
+
+            byte[] decoded = state.decoder.scratchFor(end - start);
+            int decodedLength = 0;
+            int[] quad = state.base64Quad;
+            for (int i = start; i < end; i += 4) {
+                for (int j = 0; j < 4; j++) {
+                    quad[j] = (i + j < end) ? (bytes[i + j] & 0xFF) : -1;
+                }
+                decodedLength = decodeBase64Quad(quad, (i + 4 >= end), decoded, decodedLength);
+            }
+            return state.decoder.decodeSpan(decoded, 0, decodedLength);
+        }
+        catch (RuntimeException ex) {
+            logger.error("Error extracting Span from Base64 binary encoding. Defaulting to null. bad_span_length={}",
+                         length, ex);
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @return true if the given range of bytes (e.g. the span part of a span log line) looks like the output of {@link
+     * #toBase64(Span)} rather than JSON or key/value - i.e. it starts with {@code 'A'} (the Base64 char for a leading
+     * format version byte below 4) and has a valid Base64 length. This is a cheap check for choosing a parser, not a
+     * validation of the whole encoding.
+     */
+    public static boolean looksLikeBase64Encoding(byte[] bytes, int offset, int length) {
+        return length >= 4 && (length % 4) == 0 && bytes[offset] == 'A';
+    }
+
+    private static void checkRange(byte[] bytes, int offset, int length) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("bytes cannot be null");
+        }
+
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException(
+                "Invalid range: offset=" + offset + ", length=" + length + ", array_length=" + bytes.length
+            );
+        }
+    }
+
+    private static int encodeBase64(byte[] src, int length, char[] dest) {
+        int pos = 0;
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int bits = ((src[i] & 0xFF) << 16) | ((src[i + 1] & 0xFF) << 8) | (src[i + 2] & 0xFF);
+            dest[pos++] = BASE64_CHARS[(bits >>> 18) & 0x3F];
+            dest[pos++] = BASE64_CHARS[(bits >>> 12) & 0x3F];
+            dest[pos++] = BASE64_CHARS[(bits >>> 6) & 0x3F];
+            dest[pos++] = BASE64_CHARS[bits & 0x3F];
+        }
+
+        int remaining = length - i;
+        if (remaining > 0) {
+            int bits = (src[i] & 0xFF) << 16;
+            if (remaining == 2) {
+                bits |= (src[i + 1] & 0xFF) << 8;
+            }
+            dest[pos++] = BASE64_CHARS[(bits >>> 18) & 0x3F];
+            dest[pos++] = BASE64_CHARS[(bits >>> 12) & 0x3F];
+            dest[pos++] = (remaining == 2) ? BASE64_CHARS[(bits >>> 6) & 0x3F] : '=';
+            dest[pos++] = '=';
+        }
+        return pos;
+    }
+
+    /**
+     * Decodes one group of 4 Base64 chars (-1 for chars past the end of the input) into the given array.
+     *
+     * @return The new length of the decoded data.
+     */
+    private static int decodeBase64Quad(int[] quad, boolean last, byte[] dest, int destLength) {
+        int padding = 0;
+        if (last) {
+            if (quad[3] == '=') {
+                padding = (quad[2] == '=') ? 2 : 1;
+            }
+        }
+
+        int bits = 0;
+        for (int j = 0; j < 4; j++) {
+            int value;
+            if (j >= 4 - padding) {
+                value = 0;
+            }
+            else {
+                int c = quad[j];
+                value = (c >= 0 && c < 128) ? BASE64_VALUES[c] : -1;
+                if (value < 0) {
+                    throw new IllegalStateException("Invalid Base64 input");
+                }
+            }
+            bits = (bits << 6) | value;
+        }
+
+        dest[destLength++] = (byte) (bits >>> 16);
+        if (padding < 2) {
+            dest[destLength++] = (byte) (bits >>> 8);
+        }
+        if (padding < 1) {
+            dest[destLength++] = (byte) bits;
+        }
+        return destLength;
+    }
+
+    private static CodecState acquireState() {
+        CodecState state = threadLocalState.get();
+        if (state.inUse) {
+            // Reentrant call on the same thread (shouldn't normally happen). Don't clobber the outer call's buffers.
+            state = new CodecState();
+        }
+        state.inUse = true;
+        return state;
+    }
+
+    /**
+     * Writes a stream of spans in the batch format (see the class javadocs). Not thread safe. Each span is written
+     * to the {@link OutputStream} with two {@code write} calls, so pass a buffered stream unless the destination
+     * does its own buffering.
+     */
+    public static class BatchWriter implements Closeable, Flushable {
+        private final OutputStream out;
+        private final Encoder encoder = new Encoder();
+        private final byte[] lengthPrefix = new byte[5];
+        private boolean headerWritten;
+        private long spansWritten;
+
+        /**
+         * @param out The stream to write to - cannot be null.
+         */
+        public BatchWriter(OutputStream out) {
+            if (out == null) {
+                throw new IllegalArgumentException("out cannot be null");
+            }
+
+            this.out = out;
+        }
+
+        /**
+         * @param span The span to append to the batch - cannot be null.
+         */
+        public void write(Span span) throws IOException {
+            writeHeaderIfNecessary();
+            encoder.reset();
+            encoder.encodeSpan(span);
+
+            int recordLength = encoder.pos;
+            int prefixLength = 0;
+            while ((recordLength & ~0x7F) != 0) {
+                lengthPrefix[prefixLength++] = (byte) ((recordLength & 0x7F) | 0x80);
+                recordLength >>>= 7;
+            }
+            lengthPrefix[prefixLength++] = (byte) recordLength;
+
+            out.write(lengthPrefix, 0, prefixLength);
+            out.write(encoder.buf, 0, encoder.pos);
+            spansWritten++;
+        }
+
+        /**
+         * @param spans The spans to append to the batch - cannot be null.
+         */
+        public void writeAll(List<Span> spans) throws IOException {
+            for (Span span : spans) {
+                write(span);
+            }
+        }
+
+        public long getSpansWritten() {
+            return spansWritten;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeHeaderIfNecessary();
+            out.flush();
+        }
+
+        /**
+         * Flushes and closes the underlying stream. Writes the batch header first if no spans were written, so the
+         * result is always a valid (possibly empty) batch.
+         */
+        @Override
+        public void close() throws IOException {
+            writeHeaderIfNecessary();
+            out.close();
+        }
+
+        private void writeHeaderIfNecessary() throws IOException {
+            if (!headerWritten) {
+                out.write(BATCH_MAGIC);
+                headerWritten = true;
+            }
+        }
+    }
+
+    /**
+     * Reads spans written by {@link BatchWriter}. Not thread safe. Reads are done with {@link
+     * InputStream#read(byte[], int, int)} into a reused record buffer, so pass a buffered stream unless the source
+     * does its own buffering.
+     */
+    public static class BatchReader implements Closeable {
+        private final InputStream in;
+        private final Decoder decoder = new Decoder();
+        private byte[] record = new byte[DEFAULT_BUFFER_BYTES];
+        private boolean headerRead;
+        private long spansRead;
+
+        /**
+         * @param in The stream to read from - cannot be null.
+         */
+        public BatchReader(InputStream in) {
+            if (in == null) {
+                throw new IllegalArgumentException("in cannot be null");
+            }
+
+            this.in = in;
+        }
+
+        /**
+         * @return The next span in the batch, or null if the end of the stream has been reached.
+         * @throws IOException if the stream can't be read, or doesn't contain a valid batch (including a batch that
+         * ends in the middle of a record).
+         */
+        public Span next() throws IOException {
+            if (!headerRead) {
+                byte[] header = new byte[BATCH_MAGIC.length];
+                int read = readFully(header, 0, header.length, true);
+                if (read == 0) {
+                    return null;
+                }
+                if (read < header.length || !Arrays.equals(header, BATCH_MAGIC)) {
+                    throw new IOException("Not a span batch - missing or invalid batch header");
+                }
+                headerRead = true;
+            }
+
+            int recordLength = readRecordLength();
+            if (recordLength < 0) {
+                return null;
+            }
+
+            if (record.length < recordLength) {
+                record = new byte[Math.max(recordLength, record.length * 2)];
+            }
+            readFully(record, 0, recordLength, false);
+
+            try {
+                Span span = decoder.decodeSpan(record, 0, recordLength);
+                spansRead++;
+                return span;
+            }
+            catch (RuntimeException ex) {
+                throw new IOException("Invalid span record in batch. record_index=" + spansRead, ex);
+            }
+        }
+
+        public long getSpansRead() {
+            return spansRead;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * @return The next record length, or -1 for a clean end of stream.
+         */
+        private int readRecordLength() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    if (shift == 0) {
+                        return -1;
+                    }
+                    throw new EOFException("Span batch ended in the middle of a record length");
+                }
+
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (result < 0 || result > MAX_RECORD_SIZE_BYTES) {
+                        throw new IOException("Invalid span record length in batch: " + result);
+                    }
+                    return result;
+                }
+            }
+            throw new IOException("Malformed span record length in batch");
+        }
+
+        private int readFully(byte[] dest, int offset, int length, boolean allowEmpty) throws IOException {
+            int total = 0;
+            while (total < length) {
+                int read = in.read(dest, offset + total, length - total);
+                if (read < 0) {
+                    if (allowEmpty) {
+                        return total;
+                    }
+                    throw new EOFException("Span batch ended in the middle of a record");
+                }
+                total += read;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Encodes spans into a growable byte array. Reused for every span a thread (or {@link BatchWriter}) encodes.
+     */
+    static class Encoder implements Span.TagVisitor {
+        byte[] buf = new byte[DEFAULT_BUFFER_BYTES];
+        int pos;
+
+        void reset() {
+            if (buf.length > MAX_RETAINED_BUFFER_BYTES) {
+                buf = new byte[DEFAULT_BUFFER_BYTES];
+            }
+            pos = 0;
+        }
+
+        void encodeSpan(Span span) {
+            if (span == null) {
+                throw new IllegalArgumentException("span cannot be null");
+            }
+
+            Long durationNanos = span.getDurationNanos();
+            int flags = (span.isSampleable() ? FLAG_SAMPLEABLE : 0)
+                        | (durationNanos != null ? FLAG_HAS_DURATION : 0)
+                        | (purposeCode(span.getSpanPurpose()) << PURPOSE_SHIFT);
+
+            ensureCapacity(2);
+            buf[pos++] = (byte) FORMAT_VERSION;
+            buf[pos++] = (byte) flags;
+            writeId(span.getTraceId());
+            writeId(span.getParentSpanId());
+            writeId(span.getSpanId());
+            writeString(span.getSpanName());
+            writeString(span.getUserId());
+            long startTimeEpochMicros = span.getSpanStartTimeEpochMicros();
+            writeSignedVarLong(startTimeEpochMicros);
+            if (durationNanos != null) {
+                writeSignedVarLong(durationNanos);
+            }
+
+            writeVarLong(span.getTags().size());
+            span.visitTags(this);
+
+            List<TimestampedAnnotation> annotations = span.getTimestampedAnnotations();
+            writeVarLong(annotations.size());
+            for (int i = 0; i < annotations.size(); i++) {
+                TimestampedAnnotation annotation = annotations.get(i);
+                writeSignedVarLong(annotation.getTimestampEpochMicros() - startTimeEpochMicros);
+                writeString(annotation.getValue());
+            }
+        }
+
+        @Override
+        public void visitTag(String key, String value) {
+            writeTagTypeAndKey(TAG_STRING, key);
+            writeString(value);
+        }
+
+        @Override
+        public void visitTag(String key, long value) {
+            writeTagTypeAndKey(TAG_LONG, key);
+            writeSignedVarLong(value);
+        }
+
+        @Override
+        public void visitTag(String key, boolean value) {
+            writeTagTypeAndKey(TAG_BOOLEAN, key);
+            ensureCapacity(1);
+            buf[pos++] = (byte) (value ? 1 : 0);
+        }
+
+        @Override
+        public void visitTag(String key, double value) {
+            writeTagTypeAndKey(TAG_DOUBLE, key);
+            writeFixedLong(Double.doubleToRawLongBits(value));
+        }
+
+        private void writeTagTypeAndKey(int type, String key) {
+            ensureCapacity(1);
+            buf[pos++] = (byte) type;
+            writeString(key);
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeFixedLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+
+            int numBytes = SpanSerializer.utf8Length(value);
+            writeVarLong(numBytes + 1L);
+            ensureCapacity(numBytes);
+            pos += SpanSerializer.encodeUtf8(value, buf, pos);
+        }
+
+        void writeId(String id) {
+            ensureCapacity(17);
+            if (id == null) {
+                buf[pos++] = ID_NULL;
+                return;
+            }
+
+            int length = id.length();
+            if (length == 16 || length == 32) {
+                try {
+                    long firstBits = TraceAndSpanIdGenerator.unsignedLowerHexToLong(id, 0, 16);
+                    if (length == 16) {
+                        buf[pos++] = ID_HEX_64;
+                        writeFixedLong(firstBits);
+                        return;
+                    }
+
+                    long secondBits = TraceAndSpanIdGenerator.unsignedLowerHexToLong(id, 16, 32);
+                    buf[pos++] = ID_HEX_128;
+                    writeFixedLong(firstBits);
+                    writeFixedLong(secondBits);
+                    return;
+                }
+                catch (NumberFormatException ex) {
+                    // Not lowercase hex - fall through and write it as a string.
+                }
+            }
+
+            buf[pos++] = ID_STRING;
+            writeString(id);
+        }
+
+        private void ensureCapacity(int numBytes) {
+            if (pos + numBytes > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + numBytes));
+            }
+        }
+
+        private static int purposeCode(SpanPurpose purpose) {
+            switch (purpose) {
+                case SERVER:
+                    return 1;
+                case CLIENT:
+                    return 2;
+                case LOCAL_ONLY:
+                    return 3;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Decodes spans from a byte array. Reused for every span a thread (or {@link BatchReader}) decodes, and keeps a
+     * small cache of recently decoded short strings so repeated span names, tag keys, etc. don't create a new {@link
+     * String} for every span.
+     */
+    static class Decoder {
+        static final int STRING_CACHE_SIZE = 256;
+        static final int MAX_CACHED_STRING_BYTES = 48;
+
+        private final String[] cachedStrings = new String[STRING_CACHE_SIZE];
+        private final byte[][] cachedStringBytes = new byte[STRING_CACHE_SIZE][];
+        private final char[] idChars = new char[32];
+        private byte[] scratch = new byte[DEFAULT_BUFFER_BYTES];
+        private byte[] src;
+        private int pos;
+        private int limit;
+
+        /**
+         * @return A reusable array with room for at least the given number of bytes.
+         */
+        byte[] scratchFor(int numBytes) {
+            if (scratch.length < numBytes || scratch.length > MAX_RETAINED_BUFFER_BYTES) {
+                scratch = new byte[Math.max(numBytes, DEFAULT_BUFFER_BYTES)];
+            }
+            return scratch;
+        }
+
+        Span decodeSpan(byte[] bytes, int start, int end) {
+            this.src = bytes;
+            this.pos = start;
+            this.limit = end;
+            try {
+                int version = readByte();
+                if (version != FORMAT_VERSION) {
+                    throw new IllegalStateException("Unsupported span encoding version: " + version);
+                }
+
+                int flags = readByte();
+                String traceId = readId();
+                String parentSpanId = readId();
+                String spanId = readId();
+                String spanName = readString();
+                String userId = readString();
+                long startTimeEpochMicros = readSignedVarLong();
+                Long durationNanos = ((flags & FLAG_HAS_DURATION) != 0) ? readSignedVarLong() : null;
+
+                Span span = new Span(
+                    traceId, parentSpanId, spanId, spanName, (flags & FLAG_SAMPLEABLE) != 0, userId,
+                    purposeForCode((flags & PURPOSE_MASK) >>> PURPOSE_SHIFT), startTimeEpochMicros, null,
+                    durationNanos, null, null
+                );
+
+                long numTags = readVarLong();
+                for (long i = 0; i < numTags; i++) {
+                    int type = readByte();
+                    String key = readString();
+                    switch (type) {
+                        case TAG_STRING:
+                            span.putTag(key, readString());
+                            break;
+                        case TAG_LONG:
+                            span.putTag(key, readSignedVarLong());
+                            break;
+                        case TAG_BOOLEAN:
+                            span.putTag(key, readByte() != 0);
+                            break;
+                        case TAG_DOUBLE:
+                            span.putTag(key, Double.longBitsToDouble(readFixedLong()));
+                            break;
+                        default:
+                            throw new IllegalStateException("Unknown tag type in span encoding: " + type);
+                    }
+                }
+
+                long numAnnotations = readVarLong();
+                for (long i = 0; i < numAnnotations; i++) {
+                    long timestamp = startTimeEpochMicros + readSignedVarLong();
+                    span.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(timestamp, readString()));
+                }
+
+                if (pos != limit) {
+                    throw new IllegalStateException(
+                        "Unexpected trailing bytes after span encoding: " + (limit - pos)
+                    );
+                }
+                return span;
+            }
+            finally {
+                // Don't hold on to the caller's array between calls.
+                this.src = null;
+            }
+        }
+
+        int readByte() {
+            if (pos >= limit) {
+                throw new IllegalStateException("Span encoding ended unexpectedly");
+            }
+            return src[pos++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("Malformed varint in span encoding");
+        }
+
+        long readSignedVarLong() {
+            long zigzag = readVarLong();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        long readFixedLong() {
+            if (limit - pos < 8) {
+                throw new IllegalStateException("Span encoding ended unexpectedly");
+            }
+            long result = 0;
+            for (int i = 0; i < 8; i++) {
+                result = (result << 8) | (src[pos++] & 0xFF);
+            }
+            return result;
+        }
+
+        String readString() {
+            long lengthPlusOne = readVarLong();
+            if (lengthPlusOne == 0) {
+                return null;
+            }
+
+            long length = lengthPlusOne - 1;
+            if (length < 0 || length > limit - pos) {
+                throw new IllegalStateException("Invalid string length in span encoding: " + length);
+            }
+
+            int numBytes = (int) length;
+            String result = (numBytes <= MAX_CACHED_STRING_BYTES)
+                            ? cachedString(pos, numBytes)
+                            : new String(src, pos, numBytes, UTF_8);
+            pos += numBytes;
+            return result;
+        }
+
+        String readId() {
+            int kind = readByte();
+            switch (kind) {
+                case ID_NULL:
+                    return null;
+                case ID_HEX_64:
+                    TraceAndSpanIdGenerator.writeUnsignedLowerHex(readFixedLong(), idChars, 0);
+                    return new String(idChars, 0, 16);
+                case ID_HEX_128:
+                    TraceAndSpanIdGenerator.writeUnsignedLowerHex(readFixedLong(), idChars, 0);
+                    TraceAndSpanIdGenerator.writeUnsignedLowerHex(readFixedLong(), idChars, 16);
+                    return new String(idChars, 0, 32);
+                case ID_STRING:
+                    return readString();
+                default:
+                    throw new IllegalStateException("Unknown ID kind in span encoding: " + kind);
+            }
+        }
+
+        private String cachedString(int start, int numBytes) {
+            int hash = numBytes;
+            for (int i = start; i < start + numBytes; i++) {
+                hash = 31 * hash + src[i];
+            }
+            int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+
+            byte[] cachedBytes = cachedStringBytes[slot];
+            if (cachedBytes != null && cachedBytes.length == numBytes && regionMatches(cachedBytes, start)) {
+                return cachedStrings[slot];
+            }
+
+            String result = new String(src, start, numBytes, UTF_8);
+            cachedStringBytes[slot] = Arrays.copyOfRange(src, start, start + numBytes);
+            cachedStrings[slot] = result;
+            return result;
+        }
+
+        private boolean regionMatches(byte[] cachedBytes, int start) {
+            for (int i = 0; i < cachedBytes.length; i++) {
+                if (cachedBytes[i] != src[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static SpanPurpose purposeForCode(int code) {
+            switch (code) {
+                case 1:
+                    return SpanPurpose.SERVER;
+                case 2:
+                    return SpanPurpose.CLIENT;
+                case 3:
+                    return SpanPurpose.LOCAL_ONLY;
+                default:
+                    return SpanPurpose.UNKNOWN;
+            }
+        }
+    }
+
+    /**
+     * The per-thread reusable encoder, decoder, and Base64 buffers.
+     */
+    private static class CodecState {
+        private final Encoder encoder = new Encoder();
+        private final Decoder decoder = new Decoder();
+        private final int[] base64Quad = new int[4];
+        private char[] base64Chars = new char[DEFAULT_BUFFER_BYTES * 4 / 3 + 4];
+        private boolean inUse;
+
+        Encoder resetEncoder() {
+            encoder.reset();
+            return encoder;
+        }
+
+        char[] base64CharsFor(int numBytes) {
+            int numChars = ((numBytes + 2) / 3) * 4;
+            if (base64Chars.length < numChars || base64Chars.length > MAX_RETAINED_BUFFER_BYTES * 4 / 3 + 4) {
+                base64Chars = new char[Math.max(numChars, DEFAULT_BUFFER_BYTES * 4 / 3 + 4)];
+            }
+            return base64Chars;
+        }
+
+        void release() {
+            inUse = false;
+        }
+    }
+}
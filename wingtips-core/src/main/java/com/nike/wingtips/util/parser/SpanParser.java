@@ -1,23 +1,11 @@
 package com.nike.wingtips.util.parser;
 
 import com.nike.wingtips.Span;
-import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.Span.TimestampedAnnotation;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-
 @SuppressWarnings("WeakerAccess")
 public class SpanParser {
 
-    private static final Logger logger = LoggerFactory.getLogger(SpanParser.class);
-
     // Intentionally protected - use the static methods.
     protected SpanParser() { /* do nothing */ }
 
@@ -111,69 +99,8 @@ public class SpanParser {
      * instance method caches the result. This can have significant performance impact in some scenarios.
      */
     public static String convertSpanToJSON(Span span) {
-        StringBuilder builder = new StringBuilder();
-
-        builder.append("{\"").append(TRACE_ID_FIELD).append("\":\"").append(escapeJson(span.getTraceId())).append('\"');
-        builder.append(",\"").append(PARENT_SPAN_ID_FIELD).append("\":\"").append(escapeJson(span.getParentSpanId())).append('\"');
-        builder.append(",\"").append(SPAN_ID_FIELD).append("\":\"").append(escapeJson(span.getSpanId())).append('\"');
-        builder.append(",\"").append(SPAN_NAME_FIELD).append("\":\"").append(escapeJson(span.getSpanName())).append('\"');
-        builder.append(",\"").append(SAMPLEABLE_FIELD).append("\":\"").append(span.isSampleable()).append('\"');
-        builder.append(",\"").append(USER_ID_FIELD).append("\":\"").append(escapeJson(span.getUserId())).append('\"');
-        builder.append(",\"").append(SPAN_PURPOSE_FIELD).append("\":\"").append(span.getSpanPurpose().name()).append('\"');
-        builder.append(",\"").append(START_TIME_EPOCH_MICROS_FIELD).append("\":\"").append(span.getSpanStartTimeEpochMicros()).append('\"');
-
-        if (span.isCompleted()) {
-            builder.append(",\"").append(DURATION_NANOS_FIELD).append("\":\"").append(span.getDurationNanos()).append('\"');
-        }
-
-        if(!span.getTags().isEmpty()) {
-            // Create nested json for the tags.
-            builder.append(",\"").append(TAGS_FIELD).append("\":{");
-
-            boolean first = true;
-            for (Map.Entry<String, String> tagEntry : span.getTags().entrySet()) {
-                if (!first) {
-                    builder.append(',');
-                }
-
-                String escapedKey = escapeJson(tagEntry.getKey());
-                String escapedValue = escapeJson(tagEntry.getValue());
-
-                builder.append('\"').append(escapedKey).append("\":\"").append(escapedValue).append('\"');
-
-                first = false;
-            }
-
-            builder.append("}");
-        }
-
-        if (!span.getTimestampedAnnotations().isEmpty()) {
-            // Create JSON array for the annotations.
-            builder.append(",\"").append(ANNOTATIONS_LIST_FIELD).append("\":[");
-
-            boolean first = true;
-            for (TimestampedAnnotation annotation : span.getTimestampedAnnotations()) {
-                if (!first) {
-                    builder.append(',');
-                }
-
-                String escapedValue = escapeJson(annotation.getValue());
-
-                builder.append("{\"").append(ANNOTATION_SUBOBJECT_TIMESTAMP_FIELD)
-                       .append("\":\"").append(annotation.getTimestampEpochMicros()).append('\"');
-
-                builder.append(",\"").append(ANNOTATION_SUBOBJECT_VALUE_FIELD)
-                       .append("\":\"").append(escapedValue).append("\"}");
-
-                first = false;
-            }
-
-            builder.append("]");
-        }
-
-        builder.append("}");
-
-        return builder.toString();
+        // Serialize into the thread's reusable buffer so the only allocation is the returned string.
+        return SpanSerializer.toJsonInThreadLocalBuffer(span).toString();
     }
 
     /**
@@ -185,294 +112,12 @@ public class SpanParser {
      * to accomplish deserialization efficiently without needing to pull in a third-party dependency like Jackson.
      * If you try to use this method on a JSON string that didn't come from {@link #convertSpanToJSON(Span)},
      * then it will likely fail.
+     *
+     * <p>This delegates to {@link StreamingSpanParser#fromJson(CharSequence)} - see that class if you want to parse
+     * directly from a {@code char[]} or UTF-8 {@code byte[]}, or skip creating the span entirely.
      */
     public static Span fromJSON(String json) {
-        try {
-            JsonDeserializationResult mainResult = deserializeJsonObject(json, 0);
-            Map<String, String> mainMap = mainResult.levelOneKeyValuePairs;
-
-            JsonDeserializationResult tagsResult = mainResult.subObjects.get(TAGS_FIELD);
-            Map<String, String> tagsMap = (tagsResult == null) ? null : tagsResult.levelOneKeyValuePairs;
-
-            List<TimestampedAnnotation> annotationsList = convertToTimestampedAnnotationsList(
-                mainResult.arrays.get(ANNOTATIONS_LIST_FIELD)
-            );
-
-            return fromKeyValueMap(mainMap, tagsMap, annotationsList);
-        } catch (Exception e) {
-            logger.error("Error extracting Span from JSON. Defaulting to null. bad_span_json={}", json, e);
-            return null;
-        }
-    }
-
-    protected static List<TimestampedAnnotation> convertToTimestampedAnnotationsList(
-        List<JsonDeserializationResult> jdrList
-    ) {
-        if (jdrList == null || jdrList.isEmpty()) {
-            return null;
-        }
-
-        List<TimestampedAnnotation> annotationList = new ArrayList<>(jdrList.size());
-        for (JsonDeserializationResult jdr : jdrList) {
-            long timestamp = Long.parseLong(jdr.levelOneKeyValuePairs.get(ANNOTATION_SUBOBJECT_TIMESTAMP_FIELD));
-            String value = jdr.levelOneKeyValuePairs.get(ANNOTATION_SUBOBJECT_VALUE_FIELD);
-            annotationList.add(new TimestampedAnnotation(timestamp, value));
-        }
-
-        return annotationList;
-    }
-
-    protected static class JsonDeserializationResult {
-        final Map<String, String> levelOneKeyValuePairs = new LinkedHashMap<>();
-        final Map<String, JsonDeserializationResult> subObjects = new LinkedHashMap<>();
-        final Map<String, List<JsonDeserializationResult>> arrays = new LinkedHashMap<>();
-        final AtomicInteger jsonEndObjectIndex = new AtomicInteger(Integer.MAX_VALUE);
-    }
-
-    protected enum ParsingState {
-        EXPECT_KEY_START_QUOTES,
-        EXTRACTING_KEY,
-        EXPECT_KEY_VALUE_DELIMITER_CHAR,
-        EXPECT_VALUE_START_CHAR, // For JSON this might be quotes '"', or object-start '{', or array/list start '['
-        EXTRACTING_VALUE,
-        EXPECT_COMMA_BEFORE_NEW_KEY
-    }
-    
-    protected static JsonDeserializationResult deserializeJsonObject(String jsonStr, int deserializationStartIndex) {
-        JsonDeserializationResult result = new JsonDeserializationResult();
-
-        // Make sure our JSON string starts with a '{' char.
-        if (jsonStr.charAt(deserializationStartIndex) != '{') {
-            throw new IllegalStateException(
-                "Expected JSON string at index " + deserializationStartIndex + " to be a '{' char."
-            );
-        }
-
-        int i = deserializationStartIndex + 1; // Wind past the '{' char.
-        int strLen = jsonStr.length();
-        int extractKeyStartIndex = i;
-        int extractKeyEndIndex = i;
-        int extractValueStartIndex = i;
-        int numPrecedingBackslashes = 0;
-        ParsingState state = ParsingState.EXPECT_KEY_START_QUOTES;
-        while (i < strLen) {
-            char c = jsonStr.charAt(i);
-            if (state == ParsingState.EXPECT_KEY_START_QUOTES) {
-                if (c == '\"') {
-                    // Found the quotes. The next character will be the first character of the key.
-                    extractKeyStartIndex = i + 1;
-
-                    // Switch state to extracting key.
-                    state = ParsingState.EXTRACTING_KEY;
-                }
-                else {
-                    throw new IllegalStateException(
-                        "Span parsing error: Expected but did not find quotes '\"' character for key-start at "
-                        + "index " + i
-                    );
-                }
-            }
-            else if (state == ParsingState.EXTRACTING_KEY) {
-                if (isUnescapedQuotes(c, numPrecedingBackslashes)) {
-                    // We found the end of the key (a non-escaped quotes). Mark it.
-                    extractKeyEndIndex = i;
-
-                    // Switch state to looking for the key/value delimiter.
-                    state = ParsingState.EXPECT_KEY_VALUE_DELIMITER_CHAR;
-                }
-            }
-            else if (state == ParsingState.EXPECT_KEY_VALUE_DELIMITER_CHAR) {
-                // We expect this to be a colon character.
-                if (c == ':') {
-                    // Found the colon. The next character should be the value-start character
-                    //      (object-start '{' or value-start '"').
-                    state = ParsingState.EXPECT_VALUE_START_CHAR;
-                }
-                else {
-                    throw new IllegalStateException(
-                        "Span parsing error: Expected but did not find colon ':' character for key/value delimiter "
-                        + "at index " + i
-                    );
-                }
-            }
-            else if (state == ParsingState.EXPECT_VALUE_START_CHAR) {
-                // If the next char is an object-start '{', then we recursively call this method to extract the JSON
-                //      object. Next, we'll look for an array-start '['. Otherwise we'll expect a quotes char for
-                //      value-start.
-                if (c == '{') {
-                    // JSON-object-start. Deserialize this subobject.
-                    JsonDeserializationResult subObject = deserializeJsonObject(jsonStr, i);
-
-                    // Extract the key associated with the subObject.
-                    String key = jsonStr.substring(extractKeyStartIndex, extractKeyEndIndex);
-                    key = unescapeJson(key);
-
-                    // Add this key->subobject info to our result.
-                    result.subObjects.put(key, subObject);
-
-                    // Wind the index forward to wherever the subObject stopped.
-                    i = subObject.jsonEndObjectIndex.get();
-
-                    // Reset the numPrecedingBackslashes counter.
-                    numPrecedingBackslashes = 0;
-
-                    // Switch state to looking for the comma before the next key.
-                    state = ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY;
-                }
-                else if (c == '[') {
-                    // Array-start square bracket. Deserialize all the subobjects.
-                    List<JsonDeserializationResult> arrayObjects = new ArrayList<>();
-
-                    int arrayParsingIndex = i + 1;
-                    if (arrayParsingIndex >= strLen) {
-                        throw new IllegalStateException(
-                            "Span parsing error: JSON string ended after array-start square bracket '[' character "
-                            + "at index " + i
-                        );
-                    }
-                    char nextArrayParsingChar = jsonStr.charAt(arrayParsingIndex);
-                    if (nextArrayParsingChar != '{') {
-                        throw new IllegalStateException(
-                            "Span parsing error: Expected but did not find left curly brace '{' character after "
-                            + "array-start square bracket '['. Instead, found '" + nextArrayParsingChar
-                            + "' at index " + arrayParsingIndex
-                        );
-                    }
-
-                    while (nextArrayParsingChar == ',' || nextArrayParsingChar == '{') {
-                        // Only do something for the object-start curly brace. If it's a comma then we do nothing,
-                        //      and it'll wind forward to the next array parsing character.
-                        if (nextArrayParsingChar == '{') {
-                            // Extract the JSON object at this array parsing index, and add it to our arrayObjects list.
-                            JsonDeserializationResult arrayObject =
-                                deserializeJsonObject(jsonStr, arrayParsingIndex);
-
-                            arrayObjects.add(arrayObject);
-
-                            // Wind the array parsing index forward to wherever the JSON object parsing stopped.
-                            arrayParsingIndex = arrayObject.jsonEndObjectIndex.get();
-                        }
-
-                        arrayParsingIndex++;
-                        if (arrayParsingIndex >= strLen) {
-                            throw new IllegalStateException(
-                                "Span parsing error: JSON string ended before JSON close-array square bracket ']' "
-                                + "could be found. JSON string ended at index " + arrayParsingIndex
-                            );
-                        }
-                        nextArrayParsingChar = jsonStr.charAt(arrayParsingIndex);
-                    }
-
-                    // The array parsing index ran into something that wasn't a comma or start-object left curly brace.
-                    //      At this point it must be the close-array right square bracket.
-                    if (nextArrayParsingChar != ']') {
-                        throw new IllegalStateException(
-                            "Span parsing error: Expected but did not find object-start left curly brace '{' or "
-                            + "comma ',' or array-close right square bracket ']' character while parsing JSON array. "
-                            + "Instead, found '" + nextArrayParsingChar + "' at index " + arrayParsingIndex
-                        );
-                    }
-
-                    // The JSON array has been successfully parsed.
-
-                    // Extract the key associated with the array.
-                    String key = jsonStr.substring(extractKeyStartIndex, extractKeyEndIndex);
-                    key = unescapeJson(key);
-
-                    // Add this key->array info to our result.
-                    result.arrays.put(key, arrayObjects);
-
-                    // Wind the overall parsing index to the next char after the array parsing index.
-                    i = arrayParsingIndex;
-
-                    // Reset the numPrecedingBackslashes counter.
-                    numPrecedingBackslashes = 0;
-
-                    // Switch state to looking for the comma before the next key.
-                    state = ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY;
-                }
-                else if (c == '\"') {
-                    // Value-start quotes. The next time the loop iterates it will be pointing at the value. Mark
-                    //      the index for value extraction and switch state.
-                    extractValueStartIndex = i + 1;
-                    state = ParsingState.EXTRACTING_VALUE;
-                }
-                else {
-                    throw new IllegalStateException(
-                        "Span parsing error: Expected but did not find left curly brace '{' or quotes '\"' character "
-                        + "for value-start at index " + i
-                    );
-                }
-            }
-            else if (state == ParsingState.EXTRACTING_VALUE) {
-                if (isUnescapedQuotes(c, numPrecedingBackslashes)) {
-                    // We found the end of the value (a non-escaped quotes). Extract key and value, and put them in
-                    //      the level one key/value map.
-                    String key = jsonStr.substring(extractKeyStartIndex, extractKeyEndIndex);
-                    String value = jsonStr.substring(extractValueStartIndex, i);
-                    key = unescapeJson(key);
-                    value = unescapeJson(value);
-
-                    result.levelOneKeyValuePairs.put(key, value);
-
-                    // We expect a comma next.
-                    state = ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY;
-                }
-            }
-            else if (state == ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY) {
-                // If the character is a close-object '}', then we're done and should return the result
-                //      we've gathered so far.
-                if (c == '}') {
-                    // Close-object '}' curly-brace was found. Return the result after marking the
-                    //      close-object index.
-                    result.jsonEndObjectIndex.set(i);
-                    return result;
-                }
-                else if (c == ',') {
-                    // Comma was found. Next we expect the key-start quotes.
-                    state = ParsingState.EXPECT_KEY_START_QUOTES;
-                }
-                else {
-                    throw new IllegalStateException(
-                        "Span parsing error: Expected but did not find right curly brace '}' or comma ',' character "
-                        + "after value-end at index " + i
-                    );
-                }
-            }
-            else {
-                // Should never happen.
-                throw new IllegalStateException("Unhandled state: " + state);
-            }
-
-            if (c == '\\') {
-                numPrecedingBackslashes++;
-            }
-            else {
-                numPrecedingBackslashes = 0;
-            }
-
-            i++;
-        }
-
-        // JSON should always explicitly short circuit in EXPECT_COMMA_BEFORE_NEW_KEY state due to finding
-        //      close-object '}' character. If we reach here then parsing failed.
-        throw new IllegalStateException(
-            "Span parsing error: JSON string did not end with a right curly brace '}'. Instead ended in state: "
-            + state.name()
-        );
-    }
-
-    private static boolean isUnescapedQuotes(
-        char charInQuestion, int numPrecedingBackslashes
-    ) {
-        if (charInQuestion != '\"') {
-            // Not quotes, so can't be unescaped quotes.
-            return false;
-        }
-
-        // The original character in question is a quotes. We know whether it's escaped or not by how many preceding
-        //      backslashes it has.
-        return (numPrecedingBackslashes % 2) == 0;
+        return StreamingSpanParser.fromJson(json);
     }
 
     /**
@@ -487,59 +132,13 @@ public class SpanParser {
      * scenarios.
      */
     public static String convertSpanToKeyValueFormat(Span span) {
-        StringBuilder builder = new StringBuilder();
-
-        builder.append(TRACE_ID_FIELD).append("=\"").append(escapeJson(span.getTraceId())).append('\"');
-        builder.append(",").append(PARENT_SPAN_ID_FIELD).append("=\"").append(escapeJson(span.getParentSpanId())).append('\"');
-        builder.append(",").append(SPAN_ID_FIELD).append("=\"").append(escapeJson(span.getSpanId())).append('\"');
-        builder.append(",").append(SPAN_NAME_FIELD).append("=\"").append(escapeJson(span.getSpanName())).append('\"');
-        builder.append(",").append(SAMPLEABLE_FIELD).append("=\"").append(span.isSampleable()).append('\"');
-        builder.append(",").append(USER_ID_FIELD).append("=\"").append(escapeJson(span.getUserId())).append('\"');
-        builder.append(",").append(SPAN_PURPOSE_FIELD).append("=\"").append(span.getSpanPurpose().name()).append('\"');
-        builder.append(",").append(START_TIME_EPOCH_MICROS_FIELD).append("=\"").append(span.getSpanStartTimeEpochMicros()).append('\"');
-
-        // Only output duration if the span is completed.
-        if (span.isCompleted()) {
-            builder.append(",").append(DURATION_NANOS_FIELD).append("=\"").append(span.getDurationNanos()).append('\"');
-        }
-
-        // Output tags if we have any.
-        for (Map.Entry<String, String> tagEntry : span.getTags().entrySet()) {
-            String sanitizedTagKey = escapeTagKeyForKeyValueFormatSerialization(tagEntry.getKey());
-
-            String escapedTagValue = escapeJson(tagEntry.getValue());
-            builder.append(",").append(KEY_VALUE_TAG_PREFIX).append(sanitizedTagKey)
-                   .append("=\"").append(escapedTagValue).append('\"');
-        }
-
-        // Output timestamped annotations if we have any.
-        for (TimestampedAnnotation annotation : span.getTimestampedAnnotations()) {
-            String escapedAnnotationValue = escapeJson(annotation.getValue());
-            builder.append(",").append(KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX)
-                   .append(annotation.getTimestampEpochMicros())
-                   .append("=\"").append(escapedAnnotationValue).append('\"');
-        }
-
-        return builder.toString();
+        // Serialize into the thread's reusable buffer so the only allocation is the returned string.
+        return SpanSerializer.toKeyValueInThreadLocalBuffer(span).toString();
     }
 
     protected static String escapeTagKeyForKeyValueFormatSerialization(String key) {
-        String escapedKey = escapeJson(key);
-        // We also need to escape equals sign if it exists. Don't do this unless we detect an equals sign is contained
-        //      in the key, however. Most of the time it won't exist in the key, and we'll save a bunch of time
-        //      by not calling String.replace(...).
-        if (containsChar(escapedKey, '=')) {
-            escapedKey = escapedKey.replace("=", ESCAPED_EQUALS_SIGN);
-        }
-        // Same with space character.
-        if (containsChar(escapedKey, ' ')) {
-            escapedKey = escapedKey.replace(" ", ESCAPED_SPACE_CHAR);
-        }
-        // And comma character.
-        if (containsChar(escapedKey, ',')) {
-            escapedKey = escapedKey.replace(",", ESCAPED_COMMA_CHAR);
-        }
-        return escapedKey;
+        // Same as escapeJson(), but also escapes equals, space, and comma chars in a single pass.
+        return escape(key, KEY_VALUE_TAG_KEY_ESCAPE_CHAR_MAPPINGS);
     }
 
     protected static String unescapeTagKeyForKeyValueFormatDeserialization(String escapedKey) {
@@ -568,198 +167,12 @@ public class SpanParser {
      * about syntactically-correct-but-annoying-to-deal-with whitespace, not have to use a third party utility, etc.
      * If you try to use this method on a string that didn't come from {@link #convertSpanToKeyValueFormat(Span)},
      * then it will likely fail.
+     *
+     * <p>This delegates to {@link StreamingSpanParser#fromKeyValue(CharSequence)} - see that class if you want to
+     * parse directly from a {@code char[]} or UTF-8 {@code byte[]}, or skip creating the span entirely.
      */
     public static Span fromKeyValueString(String keyValueStr) {
-        try {
-            Map<String, String> spanFieldsMap = new LinkedHashMap<>();
-            Map<String, String> tagsMap = new LinkedHashMap<>();
-            List<TimestampedAnnotation> annotationsList = new ArrayList<>();
-
-            int i = 0;
-            int strLen = keyValueStr.length();
-            int extractKeyStartIndex = 0;
-            int extractKeyEndIndex = 0;
-            int extractValueStartIndex = 0;
-            int numPrecedingBackslashes = 0;
-            // The very first character should be the start of the first key, so we'll jump straight into
-            //      extracting the key.
-            ParsingState state = ParsingState.EXTRACTING_KEY;
-            while (i < strLen) {
-                char c = keyValueStr.charAt(i);
-                if (state == ParsingState.EXTRACTING_KEY) {
-                    // Keep going until we find an equals character.
-                    if (c == '=') {
-                        // We found the end of the key. Mark it.
-                        extractKeyEndIndex = i;
-
-                        // Switch state to looking for the value.
-                        state = ParsingState.EXPECT_VALUE_START_CHAR;
-                    }
-                }
-                else if (state == ParsingState.EXPECT_VALUE_START_CHAR) {
-                    // We expect this to be a quotes character.
-                    if (c == '\"') {
-                        // Found the quotes. The next character will be the first character of the value.
-                        extractValueStartIndex = i + 1;
-
-                        // Switch state to extracting value.
-                        state = ParsingState.EXTRACTING_VALUE;
-                    }
-                    else {
-                        throw new IllegalStateException(
-                            "Span parsing error: Expected but did not find quotes '\"' character for value-start at "
-                            + "index " + i
-                        );
-                    }
-                }
-                else if (state == ParsingState.EXTRACTING_VALUE) {
-                    if (isUnescapedQuotes(c, numPrecedingBackslashes)) {
-                        // We found the end of the value (a non-escaped quotes). Extract key and value, and put them in
-                        //      the appropriate map.
-                        String key = keyValueStr.substring(extractKeyStartIndex, extractKeyEndIndex);
-                        String value = keyValueStr.substring(extractValueStartIndex, i);
-                        value = unescapeJson(value);
-
-                        boolean isTag = key.startsWith(KEY_VALUE_TAG_PREFIX);
-                        boolean isAnnotation = false;
-                        if (isTag) {
-                            String keyNoTagPrefix = key.substring(KEY_VALUE_TAG_PREFIX.length());
-                            key = unescapeTagKeyForKeyValueFormatDeserialization(keyNoTagPrefix);
-                        }
-                        else {
-                            isAnnotation = key.startsWith(KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX);
-                            if (isAnnotation) {
-                                key = key.substring(KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX.length());
-                            }
-                        }
-
-                        if (isTag) {
-                            tagsMap.put(key, value);
-                        }
-                        else if (isAnnotation) {
-                            long timestamp = Long.parseLong(key);
-                            annotationsList.add(TimestampedAnnotation.forEpochMicros(timestamp, value));
-                        }
-                        else {
-                            spanFieldsMap.put(key, value);
-                        }
-
-                        // Switch state to looking for the next key.
-                        state = ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY;
-                    }
-                }
-                else if (state == ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY) {
-                    // We expect this to be a comma character.
-                    if (c == ',') {
-                        // Found the comma. The next character should be the first character of the key.
-                        extractKeyStartIndex = i + 1;
-
-                        // Switch state to extracting the key.
-                        state = ParsingState.EXTRACTING_KEY;
-                    }
-                    else {
-                        throw new IllegalStateException(
-                            "Span parsing error: Expected but did not find comma ',' character after value-end at "
-                            + "index " + i
-                        );
-                    }
-                }
-                else {
-                    // Should never happen.
-                    throw new IllegalStateException("Unhandled state: " + state);
-                }
-
-                if (c == '\\') {
-                    numPrecedingBackslashes++;
-                }
-                else {
-                    numPrecedingBackslashes = 0;
-                }
-                
-                i++;
-            }
-
-            if (state != ParsingState.EXPECT_COMMA_BEFORE_NEW_KEY) {
-                throw new IllegalStateException(
-                    "Span parsing error: key/value string did not end after finding a value. Instead ended in state: "
-                    + state.name()
-                );
-            }
-
-            return fromKeyValueMap(spanFieldsMap, tagsMap, annotationsList);
-        } catch (Exception e) {
-            logger.error("Error extracting Span from key/value string. Defaulting to null. bad_span_key_value_string={}", keyValueStr, e);
-            return null;
-        }
-    }
-
-    protected static Span fromKeyValueMap(
-        Map<String, String> map,
-        Map<String, String> tags,
-        List<TimestampedAnnotation> annotations
-    ) {
-        // Use the map to get the field values for the span.
-        String traceId = nullSafeGetString(map, TRACE_ID_FIELD);
-        String spanId = nullSafeGetString(map, SPAN_ID_FIELD);
-        String parentSpanId = nullSafeGetString(map, PARENT_SPAN_ID_FIELD);
-        String spanName = nullSafeGetString(map, SPAN_NAME_FIELD);
-        Boolean sampleable = nullSafeGetBoolean(map, SAMPLEABLE_FIELD);
-        if (sampleable == null) {
-            throw new IllegalStateException("Unable to parse " + SAMPLEABLE_FIELD + " from serialized Span");
-        }
-        String userId = nullSafeGetString(map, USER_ID_FIELD);
-        Long startTimeEpochMicros = nullSafeGetLong(map, START_TIME_EPOCH_MICROS_FIELD);
-        if (startTimeEpochMicros == null) {
-            throw new IllegalStateException(
-                "Unable to parse " + START_TIME_EPOCH_MICROS_FIELD + " from serialized Span"
-            );
-        }
-        Long durationNanos = nullSafeGetLong(map, DURATION_NANOS_FIELD);
-        SpanPurpose spanPurpose = nullSafeGetSpanPurpose(map, SPAN_PURPOSE_FIELD);
-        return new Span(
-            traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, startTimeEpochMicros,
-            null, durationNanos, tags, annotations
-        );
-    }
-
-    protected static String nullSafeGetString(Map<String, String> map, String key) {
-        String value = map.get(key);
-        if (value == null || value.equals("null"))
-            return null;
-
-        return value;
-    }
-
-    protected static Long nullSafeGetLong(Map<String, String> map, String key) {
-        String value = nullSafeGetString(map, key);
-        if (value == null)
-            return null;
-
-        return Long.parseLong(value);
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    protected static Boolean nullSafeGetBoolean(Map<String, String> map, String key) {
-        String value = nullSafeGetString(map, key);
-        if (value == null)
-            return null;
-
-        return Boolean.parseBoolean(value);
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    protected static SpanPurpose nullSafeGetSpanPurpose(Map<String, String> map, String key) {
-        String value = nullSafeGetString(map, key);
-        if (value == null)
-            return null;
-
-        try {
-            return SpanPurpose.valueOf(value);
-        }
-        catch(Exception ex) {
-            logger.warn("Unable to parse \"{}\" to a SpanPurpose enum. Received exception: {}", value, ex.toString());
-            return null;
-        }
+        return StreamingSpanParser.fromKeyValue(keyValueStr);
     }
 
     /**
@@ -773,49 +186,34 @@ public class SpanParser {
      * is ready for use as a JSON string.
      */
     public static String escapeJson(String orig) {
+        return escape(orig, JSON_ESCAPE_CHAR_MAPPINGS);
+    }
+
+    /**
+     * Escapes the given string using the given escape table (indexed by char, where a null entry means the char
+     * doesn't need escaping). Returns the original string if nothing needs escaping, which is the usual case.
+     */
+    protected static String escape(String orig, String[] escapeMappings) {
         if (orig == null) {
             return null;
         }
 
-        StringBuilder sb = null;
-        for (int i = 0; i < orig.length(); i++) {
+        int len = orig.length();
+        for (int i = 0; i < len; i++) {
             char nextChar = orig.charAt(i);
-            if (needsJsonEscaping(nextChar)) {
-                // Initialize the StringBuilder if necessary
-                if (sb == null) {
-                    // Create it to be the original string's size, plus a few extra to accommodate escape characters.
-                    sb = new StringBuilder(orig.length() + 16);
-                    // Add everything from the beginning of the string up to, but not including, the current character.
-                    sb.append(orig, 0, i);
-                }
-
-                // Get the escaped string value associated with the given char, and append it.
-                String escapedValue = getJsonEscapedValueForChar(nextChar);
-                if (escapedValue == null) {
-                    logger.warn(
-                        "Somehow found a character that needs escaping, but getJsonEscapedValueForChar(char) "
-                        + "came back null. This shouldn't happen! char_int_value={}", (int)nextChar
-                    );
-                    // Shouldn't ever reach here, but if we do, just append the character as-is.
-                    sb.append(nextChar);
-                }
-                else {
-                    sb.append(escapedValue);
-                }
+            if (nextChar < escapeMappings.length && escapeMappings[nextChar] != null) {
+                // Found the first char that needs escaping. Create a StringBuilder to be the original string's size
+                //      plus a few extra to accommodate escape characters, copy everything before this char, and let
+                //      SpanSerializer escape the rest (copying runs of chars that don't need escaping in bulk).
+                StringBuilder sb = new StringBuilder(len + 16);
+                sb.append(orig, 0, i);
+                SpanSerializer.appendEscaped(orig, i, escapeMappings, sb);
+                return sb.toString();
             }
-            else if (sb != null) {
-                // Not a char that needs escaping, but we have been forced to build an escaped string, so append
-                //      this char as-is.
-                sb.append(nextChar);
-            }
-        }
-
-        // If sb is null then no chars needed escaping, and we can just return the original string as-is.
-        if (sb == null) {
-            return orig;
         }
 
-        return sb.toString();
+        // No chars needed escaping, so we can just return the original string as-is.
+        return orig;
     }
 
     /**
@@ -884,6 +282,12 @@ public class SpanParser {
      * if the character should not be escaped.
      */
     protected static final String[] JSON_ESCAPE_CHAR_MAPPINGS;
+    /**
+     * The same as {@link #JSON_ESCAPE_CHAR_MAPPINGS}, plus mappings for the chars that must also be escaped in tag keys
+     * for the key/value format - equals ({@link #ESCAPED_EQUALS_SIGN}), space ({@link #ESCAPED_SPACE_CHAR}), and comma
+     * ({@link #ESCAPED_COMMA_CHAR}).
+     */
+    protected static final String[] KEY_VALUE_TAG_KEY_ESCAPE_CHAR_MAPPINGS;
     protected static final String ESCAPED_EQUALS_SIGN = "\\u003D";
     protected static final String ESCAPED_SPACE_CHAR = "\\u0020";
     protected static final String ESCAPED_COMMA_CHAR = "\\u002C";
@@ -925,6 +329,14 @@ public class SpanParser {
         jsonEscapeCharMappings['\n'] = "\\n";
         jsonEscapeCharMappings['\r'] = "\\r";
         JSON_ESCAPE_CHAR_MAPPINGS = jsonEscapeCharMappings;
+
+        // Tag keys in the key/value format also need equals, space, and comma escaped, since those chars are part of
+        //      the key/value format's syntax.
+        String[] keyValueTagKeyEscapeCharMappings = jsonEscapeCharMappings.clone();
+        keyValueTagKeyEscapeCharMappings['='] = ESCAPED_EQUALS_SIGN;
+        keyValueTagKeyEscapeCharMappings[' '] = ESCAPED_SPACE_CHAR;
+        keyValueTagKeyEscapeCharMappings[','] = ESCAPED_COMMA_CHAR;
+        KEY_VALUE_TAG_KEY_ESCAPE_CHAR_MAPPINGS = keyValueTagKeyEscapeCharMappings;
     }
 
     protected static String getJsonEscapedValueForChar(char c) {
@@ -0,0 +1,655 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static com.nike.wingtips.util.parser.SpanParser.ANNOTATIONS_LIST_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.ANNOTATION_SUBOBJECT_TIMESTAMP_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.ANNOTATION_SUBOBJECT_VALUE_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.DURATION_NANOS_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.JSON_ESCAPE_CHAR_MAPPINGS;
+import static com.nike.wingtips.util.parser.SpanParser.KEY_VALUE_TAG_KEY_ESCAPE_CHAR_MAPPINGS;
+import static com.nike.wingtips.util.parser.SpanParser.KEY_VALUE_TAG_PREFIX;
+import static com.nike.wingtips.util.parser.SpanParser.KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX;
+import static com.nike.wingtips.util.parser.SpanParser.PARENT_SPAN_ID_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SAMPLEABLE_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SPAN_ID_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SPAN_NAME_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SPAN_PURPOSE_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.START_TIME_EPOCH_MICROS_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.TAGS_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.TRACE_ID_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.USER_ID_FIELD;
+
+/**
+ * Serializes spans to the same JSON and key/value formats as {@link SpanParser#convertSpanToJSON(Span)} and {@link
+ * SpanParser#convertSpanToKeyValueFormat(Span)} (so the output can be read back with {@link SpanParser#fromJSON(String)}
+ * and {@link SpanParser#fromKeyValueString(String)}), but writes directly into a destination of your choice instead of
+ * building a new {@link String} for every span:
+ * <ul>
+ *     <li>
+ *         A caller-supplied {@link StringBuilder} or other {@link Appendable} - see {@link #appendJson(Span,
+ *         StringBuilder)} and {@link #appendKeyValue(Span, StringBuilder)}.
+ *     </li>
+ *     <li>
+ *         A reusable per-thread buffer - see {@link #toJsonInThreadLocalBuffer(Span)} and {@link
+ *         #toKeyValueInThreadLocalBuffer(Span)}.
+ *     </li>
+ *     <li>
+ *         UTF-8 bytes written to an {@link OutputStream} or {@link ByteBuffer} - see {@link #writeJsonUtf8(Span,
+ *         OutputStream)}, {@link #writeJsonUtf8(Span, ByteBuffer)}, and their key/value equivalents.
+ *     </li>
+ * </ul>
+ *
+ * Escaping is table driven and copies runs of characters that don't need escaping in bulk, tags are read via {@link
+ * Span#visitTags(Span.TagVisitor)} so typed tag values are written straight from their primitive form, and the UTF-8
+ * methods encode directly from the per-thread character buffer into a per-thread byte buffer (or the given {@link
+ * ByteBuffer}). Once a thread's buffers have grown to fit the spans it serializes, none of these methods create any
+ * garbage - with the exception of {@link Appendable}s other than {@link StringBuilder} and {@link Writer}, which are
+ * handed the serialized span as a {@link CharSequence} and may do their own copying.
+ *
+ * <p>The per-thread buffers are shared by all methods in this class (and by {@link SpanParser#convertSpanToJSON(Span)}
+ * and {@link SpanParser#convertSpanToKeyValueFormat(Span)}), so the {@link CharSequence} returned by the {@code
+ * ...InThreadLocalBuffer(...)} methods is only valid until the next serialization call on the same thread. Buffers that
+ * grow beyond {@link #MAX_RETAINED_BUFFER_CHARS} because of an unusually large span are discarded rather than retained.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanSerializer {
+
+    /**
+     * The max size (in chars) of the per-thread character buffer that will be kept around for reuse. Larger buffers
+     * are replaced with a fresh default-sized buffer the next time the thread serializes a span.
+     */
+    public static final int MAX_RETAINED_BUFFER_CHARS = 16 * 1024;
+
+    private static final int DEFAULT_BUFFER_CHARS = 1024;
+    // UTF-8 uses at most 3 bytes per UTF-16 char (surrogate pairs use 4 bytes for 2 chars).
+    private static final int MAX_UTF8_BYTES_PER_CHAR = 3;
+
+    // Pre-built field prefixes, so each field only needs one append for its prefix. Each prefix closes the
+    //      previous field's quoted value.
+    private static final String JSON_TRACE_ID_PREFIX = "{\"" + TRACE_ID_FIELD + "\":\"";
+    private static final String JSON_PARENT_SPAN_ID_PREFIX = "\",\"" + PARENT_SPAN_ID_FIELD + "\":\"";
+    private static final String JSON_SPAN_ID_PREFIX = "\",\"" + SPAN_ID_FIELD + "\":\"";
+    private static final String JSON_SPAN_NAME_PREFIX = "\",\"" + SPAN_NAME_FIELD + "\":\"";
+    private static final String JSON_SAMPLEABLE_PREFIX = "\",\"" + SAMPLEABLE_FIELD + "\":\"";
+    private static final String JSON_USER_ID_PREFIX = "\",\"" + USER_ID_FIELD + "\":\"";
+    private static final String JSON_SPAN_PURPOSE_PREFIX = "\",\"" + SPAN_PURPOSE_FIELD + "\":\"";
+    private static final String JSON_START_TIME_PREFIX = "\",\"" + START_TIME_EPOCH_MICROS_FIELD + "\":\"";
+    private static final String JSON_DURATION_PREFIX = ",\"" + DURATION_NANOS_FIELD + "\":\"";
+    private static final String JSON_TAGS_PREFIX = ",\"" + TAGS_FIELD + "\":{";
+    private static final String JSON_ANNOTATIONS_PREFIX = ",\"" + ANNOTATIONS_LIST_FIELD + "\":[";
+    private static final String JSON_ANNOTATION_TIMESTAMP_PREFIX =
+        "{\"" + ANNOTATION_SUBOBJECT_TIMESTAMP_FIELD + "\":\"";
+    private static final String JSON_ANNOTATION_VALUE_PREFIX = "\",\"" + ANNOTATION_SUBOBJECT_VALUE_FIELD + "\":\"";
+
+    private static final String KV_TRACE_ID_PREFIX = TRACE_ID_FIELD + "=\"";
+    private static final String KV_PARENT_SPAN_ID_PREFIX = "\"," + PARENT_SPAN_ID_FIELD + "=\"";
+    private static final String KV_SPAN_ID_PREFIX = "\"," + SPAN_ID_FIELD + "=\"";
+    private static final String KV_SPAN_NAME_PREFIX = "\"," + SPAN_NAME_FIELD + "=\"";
+    private static final String KV_SAMPLEABLE_PREFIX = "\"," + SAMPLEABLE_FIELD + "=\"";
+    private static final String KV_USER_ID_PREFIX = "\"," + USER_ID_FIELD + "=\"";
+    private static final String KV_SPAN_PURPOSE_PREFIX = "\"," + SPAN_PURPOSE_FIELD + "=\"";
+    private static final String KV_START_TIME_PREFIX = "\"," + START_TIME_EPOCH_MICROS_FIELD + "=\"";
+    private static final String KV_DURATION_PREFIX = "," + DURATION_NANOS_FIELD + "=\"";
+    private static final String KV_TAG_PREFIX = "," + KEY_VALUE_TAG_PREFIX;
+    private static final String KV_ANNOTATION_PREFIX = "," + KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX;
+
+    private static final ThreadLocal<SerializationState> threadLocalState = new ThreadLocal<SerializationState>() {
+        @Override
+        protected SerializationState initialValue() {
+            return new SerializationState();
+        }
+    };
+
+    // Intentionally protected - use the static methods.
+    protected SpanSerializer() { /* do nothing */ }
+
+    /**
+     * Appends the JSON representation of the given span to the given {@link StringBuilder}. The result is identical
+     * to {@link SpanParser#convertSpanToJSON(Span)}.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The builder to append to - cannot be null.
+     */
+    public static void appendJson(Span span, StringBuilder out) {
+        SerializationState state = acquireState();
+        try {
+            writeJson(span, out, state.tagWriter);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Appends the key/value representation of the given span to the given {@link StringBuilder}. The result is
+     * identical to {@link SpanParser#convertSpanToKeyValueFormat(Span)}.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The builder to append to - cannot be null.
+     */
+    public static void appendKeyValue(Span span, StringBuilder out) {
+        SerializationState state = acquireState();
+        try {
+            writeKeyValue(span, out, state.tagWriter);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Appends the JSON representation of the given span to the given {@link Appendable}. {@link StringBuilder}s are
+     * appended to directly, {@link Writer}s are written to in chunks from the per-thread buffer, and any other {@link
+     * Appendable} is handed the per-thread buffer via {@link Appendable#append(CharSequence)}.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The destination to append to - cannot be null.
+     * @throws IOException if the destination throws one.
+     */
+    public static void appendJson(Span span, Appendable out) throws IOException {
+        appendToAppendable(span, out, true);
+    }
+
+    /**
+     * Appends the key/value representation of the given span to the given {@link Appendable}. See {@link
+     * #appendJson(Span, Appendable)} for how different {@link Appendable}s are handled.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The destination to append to - cannot be null.
+     * @throws IOException if the destination throws one.
+     */
+    public static void appendKeyValue(Span span, Appendable out) throws IOException {
+        appendToAppendable(span, out, false);
+    }
+
+    /**
+     * @param span The span to serialize - cannot be null.
+     * @return The JSON representation of the given span, held in this thread's reusable buffer. Only valid until the
+     * next serialization call on this thread - copy it (e.g. via {@link Object#toString()}) if you need to keep it.
+     */
+    public static CharSequence toJsonInThreadLocalBuffer(Span span) {
+        SerializationState state = acquireState();
+        try {
+            StringBuilder buffer = state.resetCharBuffer();
+            writeJson(span, buffer, state.tagWriter);
+            return buffer;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param span The span to serialize - cannot be null.
+     * @return The key/value representation of the given span, held in this thread's reusable buffer. Only valid until
+     * the next serialization call on this thread - copy it (e.g. via {@link Object#toString()}) if you need to keep it.
+     */
+    public static CharSequence toKeyValueInThreadLocalBuffer(Span span) {
+        SerializationState state = acquireState();
+        try {
+            StringBuilder buffer = state.resetCharBuffer();
+            writeKeyValue(span, buffer, state.tagWriter);
+            return buffer;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Writes the JSON representation of the given span to the given stream as UTF-8 bytes, using a single {@link
+     * OutputStream#write(byte[], int, int)} call.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The stream to write to - cannot be null.
+     * @return The number of bytes written.
+     * @throws IOException if the stream throws one.
+     */
+    public static int writeJsonUtf8(Span span, OutputStream out) throws IOException {
+        return writeUtf8(span, out, true);
+    }
+
+    /**
+     * Writes the key/value representation of the given span to the given stream as UTF-8 bytes, using a single {@link
+     * OutputStream#write(byte[], int, int)} call.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The stream to write to - cannot be null.
+     * @return The number of bytes written.
+     * @throws IOException if the stream throws one.
+     */
+    public static int writeKeyValueUtf8(Span span, OutputStream out) throws IOException {
+        return writeUtf8(span, out, false);
+    }
+
+    /**
+     * Writes the JSON representation of the given span into the given buffer as UTF-8 bytes, starting at the buffer's
+     * position and advancing it past the written bytes.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The buffer to write to - cannot be null.
+     * @return The number of bytes written.
+     * @throws BufferOverflowException if the buffer doesn't have enough space remaining for the serialized span. The
+     * buffer is left untouched in this case.
+     */
+    public static int writeJsonUtf8(Span span, ByteBuffer out) {
+        return writeUtf8(span, out, true);
+    }
+
+    /**
+     * Writes the key/value representation of the given span into the given buffer as UTF-8 bytes, starting at the
+     * buffer's position and advancing it past the written bytes.
+     *
+     * @param span The span to serialize - cannot be null.
+     * @param out The buffer to write to - cannot be null.
+     * @return The number of bytes written.
+     * @throws BufferOverflowException if the buffer doesn't have enough space remaining for the serialized span. The
+     * buffer is left untouched in this case.
+     */
+    public static int writeKeyValueUtf8(Span span, ByteBuffer out) {
+        return writeUtf8(span, out, false);
+    }
+
+    /**
+     * Appends the given value to the given builder with the same escaping as {@link SpanParser#escapeJson(String)}.
+     * Appends {@code null} if the value is null (matching what {@link SpanParser#convertSpanToJSON(Span)} outputs for
+     * null fields).
+     *
+     * @param value The value to escape - may be null.
+     * @param out The builder to append to - cannot be null.
+     */
+    public static void appendEscapedJson(CharSequence value, StringBuilder out) {
+        appendEscaped(value, JSON_ESCAPE_CHAR_MAPPINGS, out);
+    }
+
+    /**
+     * @param chars The characters to measure - cannot be null.
+     * @return The number of bytes the given characters take up when encoded as UTF-8. Unpaired surrogates count as
+     * one byte, since they're encoded as {@code '?'} (the same as {@link String#getBytes(java.nio.charset.Charset)}).
+     */
+    public static int utf8Length(CharSequence chars) {
+        int len = chars.length();
+        int numBytes = len;
+        for (int i = 0; i < len; i++) {
+            char c = chars.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    numBytes += 1;
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    // 4 bytes for the 2-char surrogate pair.
+                    numBytes += 2;
+                    i++;
+                }
+                else if (!Character.isSurrogate(c)) {
+                    numBytes += 2;
+                }
+            }
+        }
+        return numBytes;
+    }
+
+    static void appendEscaped(CharSequence value, String[] escapeMappings, StringBuilder out) {
+        if (value == null) {
+            out.append((String) null);
+            return;
+        }
+
+        appendEscaped(value, 0, escapeMappings, out);
+    }
+
+    /**
+     * Appends the given value, starting at the given index, escaping chars that have a mapping in the given table.
+     * Runs of chars that don't need escaping are appended in bulk.
+     */
+    static void appendEscaped(CharSequence value, int startIndex, String[] escapeMappings, StringBuilder out) {
+        int len = value.length();
+        int runStart = startIndex;
+        for (int i = startIndex; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < escapeMappings.length) {
+                String escaped = escapeMappings[c];
+                if (escaped != null) {
+                    out.append(value, runStart, i).append(escaped);
+                    runStart = i + 1;
+                }
+            }
+        }
+        out.append(value, runStart, len);
+    }
+
+    static void writeJson(Span span, StringBuilder out, TagWriter tagWriter) {
+        out.append(JSON_TRACE_ID_PREFIX);
+        appendEscapedJson(span.getTraceId(), out);
+        out.append(JSON_PARENT_SPAN_ID_PREFIX);
+        appendEscapedJson(span.getParentSpanId(), out);
+        out.append(JSON_SPAN_ID_PREFIX);
+        appendEscapedJson(span.getSpanId(), out);
+        out.append(JSON_SPAN_NAME_PREFIX);
+        appendEscapedJson(span.getSpanName(), out);
+        out.append(JSON_SAMPLEABLE_PREFIX).append(span.isSampleable());
+        out.append(JSON_USER_ID_PREFIX);
+        appendEscapedJson(span.getUserId(), out);
+        out.append(JSON_SPAN_PURPOSE_PREFIX).append(span.getSpanPurpose().name());
+        out.append(JSON_START_TIME_PREFIX).append(span.getSpanStartTimeEpochMicros()).append('"');
+
+        Long durationNanos = span.getDurationNanos();
+        if (durationNanos != null) {
+            out.append(JSON_DURATION_PREFIX).append(durationNanos.longValue()).append('"');
+        }
+
+        // The tag writer outputs the tags object prefix when it sees the first tag, so nothing is output for spans
+        //      without tags.
+        tagWriter.start(out, true);
+        span.visitTags(tagWriter);
+        tagWriter.finish();
+
+        List<TimestampedAnnotation> annotations = span.getTimestampedAnnotations();
+        int numAnnotations = annotations.size();
+        if (numAnnotations > 0) {
+            out.append(JSON_ANNOTATIONS_PREFIX);
+            // Indexed loop to avoid creating an iterator.
+            for (int i = 0; i < numAnnotations; i++) {
+                TimestampedAnnotation annotation = annotations.get(i);
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(JSON_ANNOTATION_TIMESTAMP_PREFIX).append(annotation.getTimestampEpochMicros());
+                out.append(JSON_ANNOTATION_VALUE_PREFIX);
+                appendEscapedJson(annotation.getValue(), out);
+                out.append("\"}");
+            }
+            out.append(']');
+        }
+
+        out.append('}');
+    }
+
+    static void writeKeyValue(Span span, StringBuilder out, TagWriter tagWriter) {
+        out.append(KV_TRACE_ID_PREFIX);
+        appendEscapedJson(span.getTraceId(), out);
+        out.append(KV_PARENT_SPAN_ID_PREFIX);
+        appendEscapedJson(span.getParentSpanId(), out);
+        out.append(KV_SPAN_ID_PREFIX);
+        appendEscapedJson(span.getSpanId(), out);
+        out.append(KV_SPAN_NAME_PREFIX);
+        appendEscapedJson(span.getSpanName(), out);
+        out.append(KV_SAMPLEABLE_PREFIX).append(span.isSampleable());
+        out.append(KV_USER_ID_PREFIX);
+        appendEscapedJson(span.getUserId(), out);
+        out.append(KV_SPAN_PURPOSE_PREFIX).append(span.getSpanPurpose().name());
+        out.append(KV_START_TIME_PREFIX).append(span.getSpanStartTimeEpochMicros()).append('"');
+
+        // Only output duration if the span is completed.
+        Long durationNanos = span.getDurationNanos();
+        if (durationNanos != null) {
+            out.append(KV_DURATION_PREFIX).append(durationNanos.longValue()).append('"');
+        }
+
+        tagWriter.start(out, false);
+        span.visitTags(tagWriter);
+        tagWriter.finish();
+
+        List<TimestampedAnnotation> annotations = span.getTimestampedAnnotations();
+        for (int i = 0; i < annotations.size(); i++) {
+            TimestampedAnnotation annotation = annotations.get(i);
+            out.append(KV_ANNOTATION_PREFIX).append(annotation.getTimestampEpochMicros()).append("=\"");
+            appendEscapedJson(annotation.getValue(), out);
+            out.append('"');
+        }
+    }
+
+    private static void appendToAppendable(Span span, Appendable out, boolean json) throws IOException {
+        if (out instanceof StringBuilder) {
+            if (json) {
+                appendJson(span, (StringBuilder) out);
+            }
+            else {
+                appendKeyValue(span, (StringBuilder) out);
+            }
+            return;
+        }
+
+        SerializationState state = acquireState();
+        try {
+            StringBuilder buffer = state.serializeIntoCharBuffer(span, json);
+            if (out instanceof Writer) {
+                // Writer.append(CharSequence) would call toString() on the buffer, so copy it out in chunks instead.
+                char[] chunk = state.charChunk;
+                Writer writer = (Writer) out;
+                int len = buffer.length();
+                for (int start = 0; start < len; start += chunk.length) {
+                    int end = Math.min(len, start + chunk.length);
+                    buffer.getChars(start, end, chunk, 0);
+                    writer.write(chunk, 0, end - start);
+                }
+            }
+            else {
+                out.append(buffer);
+            }
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    private static int writeUtf8(Span span, OutputStream out, boolean json) throws IOException {
+        SerializationState state = acquireState();
+        try {
+            StringBuilder buffer = state.serializeIntoCharBuffer(span, json);
+            byte[] bytes = state.byteBufferFor(buffer.length());
+            int numBytes = encodeUtf8(buffer, bytes, 0);
+            out.write(bytes, 0, numBytes);
+            return numBytes;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    private static int writeUtf8(Span span, ByteBuffer out, boolean json) {
+        SerializationState state = acquireState();
+        try {
+            StringBuilder buffer = state.serializeIntoCharBuffer(span, json);
+            int numBytes = utf8Length(buffer);
+            if (numBytes > out.remaining()) {
+                throw new BufferOverflowException();
+            }
+
+            if (out.hasArray()) {
+                int written = encodeUtf8(buffer, out.array(), out.arrayOffset() + out.position());
+                out.position(out.position() + written);
+            }
+            else {
+                byte[] bytes = state.byteBufferFor(buffer.length());
+                out.put(bytes, 0, encodeUtf8(buffer, bytes, 0));
+            }
+            return numBytes;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Encodes the given chars as UTF-8 into the given array starting at the given offset. The caller must make sure
+     * there's enough room (see {@link #utf8Length(CharSequence)}).
+     *
+     * @return The number of bytes written.
+     */
+    static int encodeUtf8(CharSequence chars, byte[] dest, int destOffset) {
+        int len = chars.length();
+        int pos = destOffset;
+        int i = 0;
+
+        // Fast path for the (usual) leading run of ASCII chars.
+        while (i < len) {
+            char c = chars.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            dest[pos++] = (byte) c;
+            i++;
+        }
+
+        for (; i < len; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                dest[pos++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                dest[pos++] = (byte) (0xC0 | (c >> 6));
+                dest[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                    dest[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    dest[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    dest[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    dest[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                }
+                else {
+                    // Unpaired surrogate - use the same replacement String.getBytes() uses.
+                    dest[pos++] = (byte) '?';
+                }
+            }
+            else {
+                dest[pos++] = (byte) (0xE0 | (c >> 12));
+                dest[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dest[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return pos - destOffset;
+    }
+
+    private static SerializationState acquireState() {
+        SerializationState state = threadLocalState.get();
+        if (state.inUse) {
+            // Reentrant call on the same thread (shouldn't normally happen). Don't clobber the outer call's buffers.
+            state = new SerializationState();
+        }
+        state.inUse = true;
+        return state;
+    }
+
+    /**
+     * The per-thread reusable buffers and tag writer.
+     */
+    private static class SerializationState {
+        private final TagWriter tagWriter = new TagWriter();
+        private final char[] charChunk = new char[DEFAULT_BUFFER_CHARS];
+        private StringBuilder charBuffer = new StringBuilder(DEFAULT_BUFFER_CHARS);
+        private byte[] byteBuffer = new byte[DEFAULT_BUFFER_CHARS * MAX_UTF8_BYTES_PER_CHAR];
+        private boolean inUse;
+
+        StringBuilder resetCharBuffer() {
+            if (charBuffer.capacity() > MAX_RETAINED_BUFFER_CHARS) {
+                charBuffer = new StringBuilder(DEFAULT_BUFFER_CHARS);
+            }
+            else {
+                charBuffer.setLength(0);
+            }
+            return charBuffer;
+        }
+
+        StringBuilder serializeIntoCharBuffer(Span span, boolean json) {
+            StringBuilder buffer = resetCharBuffer();
+            if (json) {
+                writeJson(span, buffer, tagWriter);
+            }
+            else {
+                writeKeyValue(span, buffer, tagWriter);
+            }
+            return buffer;
+        }
+
+        byte[] byteBufferFor(int numChars) {
+            int maxBytes = numChars * MAX_UTF8_BYTES_PER_CHAR;
+            if (byteBuffer.length < maxBytes || byteBuffer.length > MAX_RETAINED_BUFFER_CHARS * MAX_UTF8_BYTES_PER_CHAR) {
+                byteBuffer = new byte[Math.max(maxBytes, DEFAULT_BUFFER_CHARS * MAX_UTF8_BYTES_PER_CHAR)];
+            }
+            return byteBuffer;
+        }
+
+        void release() {
+            inUse = false;
+        }
+    }
+
+    /**
+     * Writes the tags passed to it by {@link Span#visitTags(Span.TagVisitor)} in either JSON or key/value format.
+     * Reused for every span a thread serializes.
+     */
+    static class TagWriter implements Span.TagVisitor {
+        private StringBuilder out;
+        private boolean json;
+        private boolean first;
+
+        void start(StringBuilder out, boolean json) {
+            this.out = out;
+            this.json = json;
+            this.first = true;
+        }
+
+        void finish() {
+            if (json && !first) {
+                out.append('}');
+            }
+            // Don't hold on to the destination between calls.
+            this.out = null;
+        }
+
+        private void appendKeyAndValuePrefix(String key) {
+            if (json) {
+                out.append(first ? JSON_TAGS_PREFIX : ",");
+                out.append('"');
+                appendEscaped(key, JSON_ESCAPE_CHAR_MAPPINGS, out);
+                out.append("\":\"");
+            }
+            else {
+                out.append(KV_TAG_PREFIX);
+                appendEscaped(key, KEY_VALUE_TAG_KEY_ESCAPE_CHAR_MAPPINGS, out);
+                out.append("=\"");
+            }
+            first = false;
+        }
+
+        @Override
+        public void visitTag(String key, String value) {
+            appendKeyAndValuePrefix(key);
+            appendEscaped(value, JSON_ESCAPE_CHAR_MAPPINGS, out);
+            out.append('"');
+        }
+
+        @Override
+        public void visitTag(String key, long value) {
+            appendKeyAndValuePrefix(key);
+            out.append(value).append('"');
+        }
+
+        @Override
+        public void visitTag(String key, boolean value) {
+            appendKeyAndValuePrefix(key);
+            out.append(value).append('"');
+        }
+
+        @Override
+        public void visitTag(String key, double value) {
+            appendKeyAndValuePrefix(key);
+            out.append(value).append('"');
+        }
+    }
+}
@@ -0,0 +1,1271 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.nike.wingtips.util.parser.SpanParser.ANNOTATIONS_LIST_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.ANNOTATION_SUBOBJECT_TIMESTAMP_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.ANNOTATION_SUBOBJECT_VALUE_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.DURATION_NANOS_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.KEY_VALUE_TAG_PREFIX;
+import static com.nike.wingtips.util.parser.SpanParser.KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX;
+import static com.nike.wingtips.util.parser.SpanParser.PARENT_SPAN_ID_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SAMPLEABLE_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SPAN_ID_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SPAN_NAME_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.SPAN_PURPOSE_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.START_TIME_EPOCH_MICROS_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.TAGS_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.TRACE_ID_FIELD;
+import static com.nike.wingtips.util.parser.SpanParser.USER_ID_FIELD;
+
+/**
+ * Parses the JSON and key/value span formats produced by {@link SpanParser} and {@link SpanSerializer} in a single
+ * forward pass over the input, without creating substrings. The input can be any {@link CharSequence}, a range of a
+ * {@code char[]}, or a range of a UTF-8 encoded {@code byte[]} (e.g. a line from a memory-mapped or buffered log file)
+ * - UTF-8 input is scanned as raw bytes and only decoded for the values that are actually needed.
+ *
+ * <p>There are two ways to use this class:
+ * <ul>
+ *     <li>
+ *         {@link #fromJson(CharSequence)}, {@link #fromKeyValue(CharSequence)}, and their {@code char[]}/{@code
+ *         byte[]} equivalents return a {@link Span}, just like {@link SpanParser#fromJSON(String)} and {@link
+ *         SpanParser#fromKeyValueString(String)} (which delegate here). Field names are matched against the known
+ *         span fields in place, numbers and booleans are parsed straight from the input, and the only {@link String}s
+ *         created are for values that end up in the returned span. Invalid input is logged and results in null.
+ *     </li>
+ *     <li>
+ *         {@link #visitJson(CharSequence, SpanVisitor)}, {@link #visitKeyValue(CharSequence, SpanVisitor)}, and their
+ *         {@code char[]}/{@code byte[]} equivalents don't create a span at all - they pass each field, tag, and
+ *         annotation to the given {@link SpanVisitor} as a {@link Value} view over the input. The visitor decides what
+ *         (if anything) to materialize, so e.g. a log analyzer that only needs trace ID, span name, and duration can
+ *         skip everything else for free. Invalid input results in an {@link IllegalStateException}.
+ *     </li>
+ * </ul>
+ *
+ * Parsing state is kept in per-thread reusable objects, so once warmed up the visitor methods create no garbage unless
+ * the visitor asks for {@link String}s or a value contains escape sequences.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class StreamingSpanParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingSpanParser.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<ParserState> threadLocalState = new ThreadLocal<ParserState>() {
+        @Override
+        protected ParserState initialValue() {
+            return new ParserState();
+        }
+    };
+
+    // Intentionally protected - use the static methods.
+    protected StreamingSpanParser() { /* do nothing */ }
+
+    /**
+     * @param json The JSON representation of a span, as produced by {@link SpanParser#convertSpanToJSON(Span)}.
+     * @return The span represented by the given JSON, or null if the JSON could not be parsed as a span.
+     */
+    public static Span fromJson(CharSequence json) {
+        if (json == null) {
+            return null;
+        }
+
+        ParserState state = acquireState();
+        try {
+            return state.buildSpan(state.charSequenceSource.reset(json), 0, json.length(), true);
+        }
+        catch (Exception e) {
+            logger.error("Error extracting Span from JSON. Defaulting to null. bad_span_json={}", json, e);
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param chars The array containing the JSON representation of a span.
+     * @param offset The index of the first char of the JSON in the array.
+     * @param length The number of chars in the JSON.
+     * @return The span represented by the given JSON, or null if the JSON could not be parsed as a span.
+     */
+    public static Span fromJson(char[] chars, int offset, int length) {
+        checkRange(chars == null ? -1 : chars.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            return state.buildSpan(state.charArraySource.reset(chars), offset, offset + length, true);
+        }
+        catch (Exception e) {
+            logger.error(
+                "Error extracting Span from JSON. Defaulting to null. bad_span_json={}",
+                new String(chars, offset, length), e
+            );
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param utf8Bytes The array containing the UTF-8 encoded JSON representation of a span.
+     * @param offset The index of the first byte of the JSON in the array.
+     * @param length The number of bytes in the JSON.
+     * @return The span represented by the given JSON, or null if the JSON could not be parsed as a span.
+     */
+    public static Span fromJsonUtf8(byte[] utf8Bytes, int offset, int length) {
+        checkRange(utf8Bytes == null ? -1 : utf8Bytes.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            return state.buildSpan(state.utf8Source.reset(utf8Bytes), offset, offset + length, true);
+        }
+        catch (Exception e) {
+            logger.error(
+                "Error extracting Span from JSON. Defaulting to null. bad_span_json={}",
+                new String(utf8Bytes, offset, length, UTF_8), e
+            );
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param keyValueStr The key/value representation of a span, as produced by {@link
+     * SpanParser#convertSpanToKeyValueFormat(Span)}.
+     * @return The span represented by the given key/value string, or null if it could not be parsed as a span.
+     */
+    public static Span fromKeyValue(CharSequence keyValueStr) {
+        if (keyValueStr == null) {
+            return null;
+        }
+
+        ParserState state = acquireState();
+        try {
+            return state.buildSpan(state.charSequenceSource.reset(keyValueStr), 0, keyValueStr.length(), false);
+        }
+        catch (Exception e) {
+            logger.error(
+                "Error extracting Span from key/value string. Defaulting to null. bad_span_key_value_string={}",
+                keyValueStr, e
+            );
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param chars The array containing the key/value representation of a span.
+     * @param offset The index of the first char of the key/value string in the array.
+     * @param length The number of chars in the key/value string.
+     * @return The span represented by the given key/value string, or null if it could not be parsed as a span.
+     */
+    public static Span fromKeyValue(char[] chars, int offset, int length) {
+        checkRange(chars == null ? -1 : chars.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            return state.buildSpan(state.charArraySource.reset(chars), offset, offset + length, false);
+        }
+        catch (Exception e) {
+            logger.error(
+                "Error extracting Span from key/value string. Defaulting to null. bad_span_key_value_string={}",
+                new String(chars, offset, length), e
+            );
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * @param utf8Bytes The array containing the UTF-8 encoded key/value representation of a span.
+     * @param offset The index of the first byte of the key/value string in the array.
+     * @param length The number of bytes in the key/value string.
+     * @return The span represented by the given key/value string, or null if it could not be parsed as a span.
+     */
+    public static Span fromKeyValueUtf8(byte[] utf8Bytes, int offset, int length) {
+        checkRange(utf8Bytes == null ? -1 : utf8Bytes.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            return state.buildSpan(state.utf8Source.reset(utf8Bytes), offset, offset + length, false);
+        }
+        catch (Exception e) {
+            logger.error(
+                "Error extracting Span from key/value string. Defaulting to null. bad_span_key_value_string={}",
+                new String(utf8Bytes, offset, length, UTF_8), e
+            );
+            return null;
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Passes each field, tag, and annotation in the given JSON span representation to the given visitor, in the order
+     * they appear in the input. No span is created.
+     *
+     * @param json The JSON representation of a span - cannot be null.
+     * @param visitor The visitor to call - cannot be null.
+     * @throws IllegalStateException if the input is not a valid JSON span representation. The visitor may have already
+     * been called for fields that appeared before the problem.
+     */
+    public static void visitJson(CharSequence json, SpanVisitor visitor) {
+        if (json == null) {
+            throw new IllegalArgumentException("json cannot be null");
+        }
+
+        ParserState state = acquireState();
+        try {
+            state.parse(state.charSequenceSource.reset(json), 0, json.length(), true, visitor);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Same as {@link #visitJson(CharSequence, SpanVisitor)}, but for JSON stored in a range of a {@code char[]}.
+     *
+     * @param chars The array containing the JSON representation of a span.
+     * @param offset The index of the first char of the JSON in the array.
+     * @param length The number of chars in the JSON.
+     * @param visitor The visitor to call - cannot be null.
+     * @throws IllegalStateException if the input is not a valid JSON span representation.
+     */
+    public static void visitJson(char[] chars, int offset, int length, SpanVisitor visitor) {
+        checkRange(chars == null ? -1 : chars.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            state.parse(state.charArraySource.reset(chars), offset, offset + length, true, visitor);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Same as {@link #visitJson(CharSequence, SpanVisitor)}, but for UTF-8 encoded JSON stored in a range of a {@code
+     * byte[]}.
+     *
+     * @param utf8Bytes The array containing the UTF-8 encoded JSON representation of a span.
+     * @param offset The index of the first byte of the JSON in the array.
+     * @param length The number of bytes in the JSON.
+     * @param visitor The visitor to call - cannot be null.
+     * @throws IllegalStateException if the input is not a valid JSON span representation.
+     */
+    public static void visitJsonUtf8(byte[] utf8Bytes, int offset, int length, SpanVisitor visitor) {
+        checkRange(utf8Bytes == null ? -1 : utf8Bytes.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            state.parse(state.utf8Source.reset(utf8Bytes), offset, offset + length, true, visitor);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Passes each field, tag, and annotation in the given key/value span representation to the given visitor, in the
+     * order they appear in the input. No span is created.
+     *
+     * @param keyValueStr The key/value representation of a span - cannot be null.
+     * @param visitor The visitor to call - cannot be null.
+     * @throws IllegalStateException if the input is not a valid key/value span representation. The visitor may have
+     * already been called for fields that appeared before the problem.
+     */
+    public static void visitKeyValue(CharSequence keyValueStr, SpanVisitor visitor) {
+        if (keyValueStr == null) {
+            throw new IllegalArgumentException("keyValueStr cannot be null");
+        }
+
+        ParserState state = acquireState();
+        try {
+            state.parse(state.charSequenceSource.reset(keyValueStr), 0, keyValueStr.length(), false, visitor);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Same as {@link #visitKeyValue(CharSequence, SpanVisitor)}, but for a key/value string stored in a range of a
+     * {@code char[]}.
+     *
+     * @param chars The array containing the key/value representation of a span.
+     * @param offset The index of the first char of the key/value string in the array.
+     * @param length The number of chars in the key/value string.
+     * @param visitor The visitor to call - cannot be null.
+     * @throws IllegalStateException if the input is not a valid key/value span representation.
+     */
+    public static void visitKeyValue(char[] chars, int offset, int length, SpanVisitor visitor) {
+        checkRange(chars == null ? -1 : chars.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            state.parse(state.charArraySource.reset(chars), offset, offset + length, false, visitor);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * Same as {@link #visitKeyValue(CharSequence, SpanVisitor)}, but for a UTF-8 encoded key/value string stored in a
+     * range of a {@code byte[]}.
+     *
+     * @param utf8Bytes The array containing the UTF-8 encoded key/value representation of a span.
+     * @param offset The index of the first byte of the key/value string in the array.
+     * @param length The number of bytes in the key/value string.
+     * @param visitor The visitor to call - cannot be null.
+     * @throws IllegalStateException if the input is not a valid key/value span representation.
+     */
+    public static void visitKeyValueUtf8(byte[] utf8Bytes, int offset, int length, SpanVisitor visitor) {
+        checkRange(utf8Bytes == null ? -1 : utf8Bytes.length, offset, length);
+        ParserState state = acquireState();
+        try {
+            state.parse(state.utf8Source.reset(utf8Bytes), offset, offset + length, false, visitor);
+        }
+        finally {
+            state.release();
+        }
+    }
+
+    /**
+     * The top-level span fields that {@link SpanVisitor#visitField(KnownField, Value)} reports. Fields with any other
+     * name are skipped.
+     */
+    public enum KnownField {
+        TRACE_ID(TRACE_ID_FIELD),
+        PARENT_SPAN_ID(PARENT_SPAN_ID_FIELD),
+        SPAN_ID(SPAN_ID_FIELD),
+        SPAN_NAME(SPAN_NAME_FIELD),
+        SAMPLEABLE(SAMPLEABLE_FIELD),
+        USER_ID(USER_ID_FIELD),
+        SPAN_PURPOSE(SPAN_PURPOSE_FIELD),
+        START_TIME_EPOCH_MICROS(START_TIME_EPOCH_MICROS_FIELD),
+        DURATION_NANOS(DURATION_NANOS_FIELD);
+
+        private static final KnownField[] VALUES = values();
+
+        /**
+         * The field name used in the serialized span (e.g. {@link SpanParser#TRACE_ID_FIELD}).
+         */
+        public final String fieldName;
+
+        KnownField(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        static KnownField find(Source source, int start, int end) {
+            int length = end - start;
+            for (KnownField field : VALUES) {
+                if (field.fieldName.length() == length && source.regionEquals(start, end, field.fieldName)) {
+                    return field;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Callback interface for {@link #visitJson(CharSequence, SpanVisitor)} and {@link #visitKeyValue(CharSequence,
+     * SpanVisitor)} (and their array equivalents). The {@link Value}s passed to these methods are reused views over
+     * the input that are only valid for the duration of the call - use {@link Value#asString()} or one of the other
+     * conversion methods to keep anything beyond that.
+     */
+    public interface SpanVisitor {
+
+        /**
+         * Called for each known top-level span field. Fields that were serialized as null have the literal value
+         * {@code null} - see {@link Value#isNullLiteral()} and {@link Value#asNullableString()}.
+         *
+         * @param field The field.
+         * @param value The field's value.
+         */
+        void visitField(KnownField field, Value value);
+
+        /**
+         * Called for each tag. Tag values are always serialized as strings.
+         *
+         * @param key The tag key.
+         * @param value The tag value.
+         */
+        void visitTag(Value key, Value value);
+
+        /**
+         * Called for each timestamped annotation.
+         *
+         * @param timestampEpochMicros The annotation's timestamp.
+         * @param value The annotation's value.
+         */
+        void visitAnnotation(long timestampEpochMicros, Value value);
+    }
+
+    /**
+     * A reusable view over a single (still escaped) key or value in the input. Conversion methods work directly
+     * against the input where possible - only {@link #asString()}, {@link #asNullableString()}, and values containing
+     * escape sequences create objects.
+     */
+    public static final class Value {
+
+        private final ParserState state;
+        private Source source;
+        private int start;
+        private int end;
+        private boolean hasEscapes;
+
+        Value(ParserState state) {
+            this.state = state;
+        }
+
+        Value reset(Source source, int start, int end, boolean hasEscapes) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+            this.hasEscapes = hasEscapes;
+            return this;
+        }
+
+        /**
+         * @return The unescaped value as a new {@link String}.
+         */
+        public String asString() {
+            if (!hasEscapes) {
+                return source.string(start, end);
+            }
+
+            return state.unescape(source, start, end);
+        }
+
+        /**
+         * @return The unescaped value as a new {@link String}, or null if the value is the literal {@code null}
+         * (which is how null span fields are serialized).
+         */
+        public String asNullableString() {
+            return isNullLiteral() ? null : asString();
+        }
+
+        /**
+         * @return true if the value is exactly the literal {@code null}.
+         */
+        public boolean isNullLiteral() {
+            return !hasEscapes && end - start == 4 && source.regionEquals(start, end, "null");
+        }
+
+        /**
+         * @param expected The string to compare against.
+         * @return true if the unescaped value is equal to the given string.
+         */
+        public boolean contentEquals(String expected) {
+            if (hasEscapes) {
+                return expected.equals(asString());
+            }
+
+            return source.regionEquals(start, end, expected);
+        }
+
+        /**
+         * @return The value parsed as a long, using the same rules as {@link Long#parseLong(String)}.
+         * @throws NumberFormatException if the value is not a valid long.
+         */
+        public long asLong() {
+            if (hasEscapes) {
+                return Long.parseLong(asString());
+            }
+
+            return parseLong(source, start, end);
+        }
+
+        /**
+         * @return The value parsed as a boolean, using the same rules as {@link Boolean#parseBoolean(String)}.
+         */
+        public boolean asBoolean() {
+            if (hasEscapes) {
+                return Boolean.parseBoolean(asString());
+            }
+
+            return end - start == 4
+                   && (source.charAt(start) | 0x20) == 't'
+                   && (source.charAt(start + 1) | 0x20) == 'r'
+                   && (source.charAt(start + 2) | 0x20) == 'u'
+                   && (source.charAt(start + 3) | 0x20) == 'e';
+        }
+
+        /**
+         * @return The {@link SpanPurpose} whose name exactly matches the value, or null if there isn't one.
+         */
+        public SpanPurpose asSpanPurpose() {
+            for (SpanPurpose spanPurpose : ParserState.SPAN_PURPOSES) {
+                if (contentEquals(spanPurpose.name())) {
+                    return spanPurpose;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * @return Same as {@link #asString()}.
+         */
+        @Override
+        public String toString() {
+            return asString();
+        }
+    }
+
+    protected static void checkRange(int arrayLength, int offset, int length) {
+        if (arrayLength < 0) {
+            throw new IllegalArgumentException("input array cannot be null");
+        }
+
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException(
+                "Invalid range. offset=" + offset + ", length=" + length + ", array_length=" + arrayLength
+            );
+        }
+    }
+
+    static long parseLong(Source source, int start, int end) {
+        if (start >= end) {
+            throw numberFormatException(source, start, end);
+        }
+
+        int i = start;
+        boolean negative = false;
+        int first = source.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = (first == '-');
+            i++;
+            if (i == end) {
+                throw numberFormatException(source, start, end);
+            }
+        }
+
+        // Accumulate negatively (like Long.parseLong()) so Long.MIN_VALUE can be represented.
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = source.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyMin) {
+                throw numberFormatException(source, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(source, start, end);
+            }
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    private static NumberFormatException numberFormatException(Source source, int start, int end) {
+        return new NumberFormatException("For input string: \"" + source.string(start, end) + "\"");
+    }
+
+    private static ParserState acquireState() {
+        ParserState state = threadLocalState.get();
+        if (state.inUse) {
+            // Reentrant call on the same thread (e.g. from inside a visitor). Don't clobber the outer call's state.
+            state = new ParserState();
+        }
+        state.inUse = true;
+        return state;
+    }
+
+    /**
+     * Random access to the input. Structural characters in both span formats are all ASCII, so UTF-8 input can be
+     * scanned byte by byte - multi-byte UTF-8 sequences never contain ASCII bytes.
+     */
+    abstract static class Source {
+
+        /**
+         * @return The char at the given index, or for UTF-8 input the (unsigned) byte at the given index.
+         */
+        abstract int charAt(int index);
+
+        /**
+         * @return A new string containing the (decoded but still escaped) input in the given range.
+         */
+        abstract String string(int start, int end);
+
+        /**
+         * Appends the (decoded but still escaped) input in the given range to the given builder.
+         */
+        abstract void appendTo(StringBuilder sb, int start, int end);
+
+        /**
+         * @return true if the input in the given range is equal to the given string.
+         */
+        boolean regionEquals(int start, int end, String str) {
+            if (end - start != str.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < str.length(); i++) {
+                if (charAt(start + i) != str.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    static final class CharSequenceSource extends Source {
+        private CharSequence chars;
+
+        CharSequenceSource reset(CharSequence chars) {
+            this.chars = chars;
+            return this;
+        }
+
+        @Override
+        int charAt(int index) {
+            return chars.charAt(index);
+        }
+
+        @Override
+        String string(int start, int end) {
+            return chars.subSequence(start, end).toString();
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, int start, int end) {
+            sb.append(chars, start, end);
+        }
+    }
+
+    static final class CharArraySource extends Source {
+        private char[] chars;
+
+        CharArraySource reset(char[] chars) {
+            this.chars = chars;
+            return this;
+        }
+
+        @Override
+        int charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        String string(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, int start, int end) {
+            sb.append(chars, start, end - start);
+        }
+    }
+
+    static final class Utf8Source extends Source {
+        private byte[] bytes;
+
+        Utf8Source reset(byte[] bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        @Override
+        int charAt(int index) {
+            return bytes[index] & 0xFF;
+        }
+
+        @Override
+        String string(int start, int end) {
+            return new String(bytes, start, end - start, UTF_8);
+        }
+
+        @Override
+        void appendTo(StringBuilder sb, int start, int end) {
+            sb.append(string(start, end));
+        }
+
+        @Override
+        boolean regionEquals(int start, int end, String str) {
+            for (int i = 0; i < str.length(); i++) {
+                if (str.charAt(i) >= 0x80) {
+                    // Non-ASCII comparison string - byte and char lengths differ, so compare the decoded input.
+                    return str.equals(string(start, end));
+                }
+            }
+
+            return super.regionEquals(start, end, str);
+        }
+    }
+
+    /**
+     * Per-thread parsing state. Holds the input sources, the reusable {@link Value} views, the buffer used to unescape
+     * values, and the visitor used to build spans.
+     */
+    private static class ParserState {
+
+        private static final SpanPurpose[] SPAN_PURPOSES = SpanPurpose.values();
+
+        private final CharSequenceSource charSequenceSource = new CharSequenceSource();
+        private final CharArraySource charArraySource = new CharArraySource();
+        private final Utf8Source utf8Source = new Utf8Source();
+        // Used to unescape decoded UTF-8 values, since escapes can't be resolved on raw multi-byte input.
+        private final CharSequenceSource decodedUtf8Source = new CharSequenceSource();
+
+        private final Value key = new Value(this);
+        private final Value value = new Value(this);
+        private final Value annotationValue = new Value(this);
+        private final SpanBuildingVisitor spanBuilder = new SpanBuildingVisitor();
+        private StringBuilder unescapeBuffer = new StringBuilder(64);
+        private boolean inUse;
+
+        private Source source;
+        private int pos;
+        private int end;
+        private boolean lastStringHadEscapes;
+
+        Span buildSpan(Source source, int start, int end, boolean isJson) {
+            spanBuilder.reset();
+            parse(source, start, end, isJson, spanBuilder);
+            return spanBuilder.build();
+        }
+
+        void parse(Source source, int start, int end, boolean isJson, SpanVisitor visitor) {
+            if (visitor == null) {
+                throw new IllegalArgumentException("visitor cannot be null");
+            }
+
+            this.source = source;
+            // Tolerate surrounding whitespace (e.g. a trailing carriage return on a log line).
+            while (start < end && isWhitespace(source.charAt(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(source.charAt(end - 1))) {
+                end--;
+            }
+            this.pos = start;
+            this.end = end;
+
+            if (isJson) {
+                parseJson(visitor);
+            }
+            else {
+                parseKeyValue(visitor);
+            }
+        }
+
+        void release() {
+            source = null;
+            charSequenceSource.reset(null);
+            charArraySource.reset(null);
+            utf8Source.reset(null);
+            decodedUtf8Source.reset(null);
+            key.reset(null, 0, 0, false);
+            value.reset(null, 0, 0, false);
+            annotationValue.reset(null, 0, 0, false);
+            spanBuilder.reset();
+            if (unescapeBuffer.capacity() > SpanSerializer.MAX_RETAINED_BUFFER_CHARS) {
+                unescapeBuffer = new StringBuilder(64);
+            }
+            inUse = false;
+        }
+
+        private void parseJson(SpanVisitor visitor) {
+            expect('{');
+            if (peek() == '}') {
+                return;
+            }
+
+            while (true) {
+                expect('"');
+                int keyStart = pos;
+                int keyEnd = scanStringBody();
+                boolean keyHasEscapes = lastStringHadEscapes;
+                expect(':');
+
+                int c = peek();
+                if (c == '"') {
+                    pos++;
+                    int valueStart = pos;
+                    int valueEnd = scanStringBody();
+                    KnownField field = keyHasEscapes ? null : KnownField.find(source, keyStart, keyEnd);
+                    if (field != null) {
+                        visitor.visitField(field, value.reset(source, valueStart, valueEnd, lastStringHadEscapes));
+                    }
+                }
+                else if (c == '{' && !keyHasEscapes && source.regionEquals(keyStart, keyEnd, TAGS_FIELD)) {
+                    parseJsonTags(visitor);
+                }
+                else if (c == '[' && !keyHasEscapes && source.regionEquals(keyStart, keyEnd, ANNOTATIONS_LIST_FIELD)) {
+                    parseJsonAnnotations(visitor);
+                }
+                else {
+                    skipJsonValue();
+                }
+
+                if (!nextIsCommaOrEnd('}')) {
+                    return;
+                }
+            }
+        }
+
+        private void parseJsonTags(SpanVisitor visitor) {
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+                return;
+            }
+
+            while (true) {
+                expect('"');
+                int keyStart = pos;
+                int keyEnd = scanStringBody();
+                boolean keyHasEscapes = lastStringHadEscapes;
+                expect(':');
+                expect('"');
+                int valueStart = pos;
+                int valueEnd = scanStringBody();
+                visitor.visitTag(
+                    key.reset(source, keyStart, keyEnd, keyHasEscapes),
+                    value.reset(source, valueStart, valueEnd, lastStringHadEscapes)
+                );
+
+                if (!nextIsCommaOrEnd('}')) {
+                    return;
+                }
+            }
+        }
+
+        private void parseJsonAnnotations(SpanVisitor visitor) {
+            expect('[');
+            if (peek() == ']') {
+                pos++;
+                return;
+            }
+
+            while (true) {
+                expect('{');
+                long timestamp = 0;
+                boolean foundTimestamp = false;
+                boolean foundValue = false;
+                if (peek() == '}') {
+                    pos++;
+                }
+                else {
+                    do {
+                        expect('"');
+                        int keyStart = pos;
+                        int keyEnd = scanStringBody();
+                        boolean keyHasEscapes = lastStringHadEscapes;
+                        expect(':');
+                        expect('"');
+                        int valueStart = pos;
+                        int valueEnd = scanStringBody();
+                        if (keyHasEscapes) {
+                            continue;
+                        }
+
+                        if (source.regionEquals(keyStart, keyEnd, ANNOTATION_SUBOBJECT_TIMESTAMP_FIELD)) {
+                            timestamp = parseAnnotationTimestamp(
+                                value.reset(source, valueStart, valueEnd, lastStringHadEscapes)
+                            );
+                            foundTimestamp = true;
+                        }
+                        else if (source.regionEquals(keyStart, keyEnd, ANNOTATION_SUBOBJECT_VALUE_FIELD)) {
+                            annotationValue.reset(source, valueStart, valueEnd, lastStringHadEscapes);
+                            foundValue = true;
+                        }
+                    } while (nextIsCommaOrEnd('}'));
+                }
+
+                if (!foundTimestamp || !foundValue) {
+                    throw parsingError("annotation object is missing its timestamp or value");
+                }
+                visitor.visitAnnotation(timestamp, annotationValue);
+
+                if (!nextIsCommaOrEnd(']')) {
+                    return;
+                }
+            }
+        }
+
+        private void skipJsonValue() {
+            int c = peek();
+            if (c == '"') {
+                pos++;
+                scanStringBody();
+            }
+            else if (c == '{') {
+                pos++;
+                if (peek() == '}') {
+                    pos++;
+                    return;
+                }
+                do {
+                    expect('"');
+                    scanStringBody();
+                    expect(':');
+                    skipJsonValue();
+                } while (nextIsCommaOrEnd('}'));
+            }
+            else if (c == '[') {
+                pos++;
+                if (peek() == ']') {
+                    pos++;
+                    return;
+                }
+                do {
+                    skipJsonValue();
+                } while (nextIsCommaOrEnd(']'));
+            }
+            else {
+                throw parsingError("expected a string, object, or array value");
+            }
+        }
+
+        private void parseKeyValue(SpanVisitor visitor) {
+            if (pos >= end) {
+                throw parsingError("key/value string is empty");
+            }
+
+            while (true) {
+                int keyStart = pos;
+                boolean keyHasEscapes = false;
+                int c;
+                while (pos < end && (c = source.charAt(pos)) != '=') {
+                    if (c == '\\') {
+                        keyHasEscapes = true;
+                    }
+                    pos++;
+                }
+                if (pos >= end) {
+                    throw parsingError("expected '=' after key");
+                }
+                int keyEnd = pos;
+                pos++;
+
+                expect('"');
+                int valueStart = pos;
+                int valueEnd = scanStringBody();
+                value.reset(source, valueStart, valueEnd, lastStringHadEscapes);
+
+                if (startsWith(keyStart, keyEnd, KEY_VALUE_TAG_PREFIX)) {
+                    visitor.visitTag(
+                        key.reset(source, keyStart + KEY_VALUE_TAG_PREFIX.length(), keyEnd, keyHasEscapes), value
+                    );
+                }
+                else if (startsWith(keyStart, keyEnd, KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX)) {
+                    long timestamp = parseAnnotationTimestamp(key.reset(
+                        source, keyStart + KEY_VALUE_TIMESTAMPED_ANNOTATION_PREFIX.length(), keyEnd, keyHasEscapes
+                    ));
+                    visitor.visitAnnotation(timestamp, value);
+                }
+                else if (!keyHasEscapes) {
+                    KnownField field = KnownField.find(source, keyStart, keyEnd);
+                    if (field != null) {
+                        visitor.visitField(field, value);
+                    }
+                }
+
+                if (pos >= end) {
+                    return;
+                }
+                expect(',');
+            }
+        }
+
+        /**
+         * Scans a string body starting at the current position (just after the opening quotes) up to the closing
+         * unescaped quotes. Sets {@link #lastStringHadEscapes}, moves the position past the closing quotes, and
+         * returns the index of the closing quotes.
+         */
+        private int scanStringBody() {
+            boolean hasEscapes = false;
+            int i = pos;
+            while (i < end) {
+                int c = source.charAt(i);
+                if (c == '"') {
+                    lastStringHadEscapes = hasEscapes;
+                    pos = i + 1;
+                    return i;
+                }
+
+                if (c == '\\') {
+                    // Whatever follows a backslash is part of the escape sequence, so skip it.
+                    hasEscapes = true;
+                    i += 2;
+                }
+                else {
+                    i++;
+                }
+            }
+
+            pos = end;
+            throw parsingError("string value was not terminated by unescaped quotes");
+        }
+
+        /**
+         * Consumes a comma or the given closing char.
+         *
+         * @return true if a comma was consumed (more entries follow), false if the closing char was consumed.
+         */
+        private boolean nextIsCommaOrEnd(char closingChar) {
+            int c = peek();
+            if (c == ',') {
+                pos++;
+                return true;
+            }
+
+            if (c == closingChar) {
+                pos++;
+                return false;
+            }
+
+            throw parsingError("expected ',' or '" + closingChar + "'");
+        }
+
+        private long parseAnnotationTimestamp(Value timestamp) {
+            try {
+                return timestamp.asLong();
+            }
+            catch (NumberFormatException ex) {
+                IllegalStateException parsingError = parsingError("invalid annotation timestamp");
+                parsingError.initCause(ex);
+                throw parsingError;
+            }
+        }
+
+        private boolean startsWith(int start, int end, String prefix) {
+            return end - start >= prefix.length()
+                   && source.regionEquals(start, start + prefix.length(), prefix);
+        }
+
+        private int peek() {
+            return (pos < end) ? source.charAt(pos) : -1;
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw parsingError("expected '" + expected + "'");
+            }
+            pos++;
+        }
+
+        private IllegalStateException parsingError(String problem) {
+            return new IllegalStateException("Span parsing error: " + problem + " at index " + pos);
+        }
+
+        String unescape(Source escapedSource, int start, int end) {
+            if (escapedSource instanceof Utf8Source) {
+                String decoded = escapedSource.string(start, end);
+                escapedSource = decodedUtf8Source.reset(decoded);
+                start = 0;
+                end = decoded.length();
+            }
+
+            StringBuilder sb = unescapeBuffer;
+            sb.setLength(0);
+            int runStart = start;
+            int i = start;
+            while (i < end) {
+                if (escapedSource.charAt(i) != '\\' || i + 1 >= end) {
+                    i++;
+                    continue;
+                }
+
+                escapedSource.appendTo(sb, runStart, i);
+                int escapeChar = escapedSource.charAt(i + 1);
+                int consumed = 2;
+                switch (escapeChar) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append((char) escapeChar);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        int codeUnit = (i + 6 <= end) ? parseHex4(escapedSource, i + 2) : -1;
+                        if (codeUnit >= 0) {
+                            sb.append((char) codeUnit);
+                            consumed = 6;
+                        }
+                        else {
+                            sb.append("\\u");
+                        }
+                        break;
+                    default:
+                        // Not a recognized escape sequence - keep it as-is.
+                        sb.append('\\').append((char) escapeChar);
+                }
+                i += consumed;
+                runStart = i;
+            }
+            escapedSource.appendTo(sb, runStart, end);
+
+            return sb.toString();
+        }
+
+        private static int parseHex4(Source source, int start) {
+            int result = 0;
+            for (int i = start; i < start + 4; i++) {
+                int digit = Character.digit(source.charAt(i), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                result = (result << 4) | digit;
+            }
+            return result;
+        }
+
+        private static boolean isWhitespace(int c) {
+            return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+        }
+    }
+
+    /**
+     * Collects visited values into the fields needed to build a {@link Span}, creating strings only for the values the
+     * span keeps. A {@code null} literal counts as a missing value, the sampleable and start time fields are required,
+     * and an unrecognized span purpose is logged and ignored.
+     */
+    private static class SpanBuildingVisitor implements SpanVisitor {
+
+        private String traceId;
+        private String parentSpanId;
+        private String spanId;
+        private String spanName;
+        private String userId;
+        private SpanPurpose spanPurpose;
+        private boolean hasSampleable;
+        private boolean sampleable;
+        private boolean hasStartTimeEpochMicros;
+        private long startTimeEpochMicros;
+        private Long durationNanos;
+        private Map<String, String> tags;
+        private List<TimestampedAnnotation> annotations;
+
+        void reset() {
+            traceId = null;
+            parentSpanId = null;
+            spanId = null;
+            spanName = null;
+            userId = null;
+            spanPurpose = null;
+            hasSampleable = false;
+            sampleable = false;
+            hasStartTimeEpochMicros = false;
+            startTimeEpochMicros = 0;
+            durationNanos = null;
+            tags = null;
+            annotations = null;
+        }
+
+        @Override
+        public void visitField(KnownField field, Value value) {
+            switch (field) {
+                case TRACE_ID:
+                    traceId = value.asNullableString();
+                    break;
+                case PARENT_SPAN_ID:
+                    parentSpanId = value.asNullableString();
+                    break;
+                case SPAN_ID:
+                    spanId = value.asNullableString();
+                    break;
+                case SPAN_NAME:
+                    spanName = value.asNullableString();
+                    break;
+                case SAMPLEABLE:
+                    hasSampleable = !value.isNullLiteral();
+                    sampleable = hasSampleable && value.asBoolean();
+                    break;
+                case USER_ID:
+                    userId = value.asNullableString();
+                    break;
+                case SPAN_PURPOSE:
+                    if (value.isNullLiteral()) {
+                        spanPurpose = null;
+                        break;
+                    }
+                    spanPurpose = value.asSpanPurpose();
+                    if (spanPurpose == null) {
+                        logger.warn("Unable to parse \"{}\" to a SpanPurpose enum.", value.asString());
+                    }
+                    break;
+                case START_TIME_EPOCH_MICROS:
+                    hasStartTimeEpochMicros = !value.isNullLiteral();
+                    startTimeEpochMicros = hasStartTimeEpochMicros ? value.asLong() : 0;
+                    break;
+                case DURATION_NANOS:
+                    durationNanos = value.isNullLiteral() ? null : value.asLong();
+                    break;
+                default:
+                    throw new IllegalStateException("Unhandled field: " + field);
+            }
+        }
+
+        @Override
+        public void visitTag(Value key, Value value) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key.asString(), value.asString());
+        }
+
+        @Override
+        public void visitAnnotation(long timestampEpochMicros, Value value) {
+            if (annotations == null) {
+                annotations = new ArrayList<>();
+            }
+            annotations.add(TimestampedAnnotation.forEpochMicros(timestampEpochMicros, value.asString()));
+        }
+
+        Span build() {
+            if (!hasSampleable) {
+                throw new IllegalStateException("Unable to parse " + SAMPLEABLE_FIELD + " from serialized Span");
+            }
+
+            if (!hasStartTimeEpochMicros) {
+                throw new IllegalStateException(
+                    "Unable to parse " + START_TIME_EPOCH_MICROS_FIELD + " from serialized Span"
+                );
+            }
+
+            return new Span(
+                traceId, parentSpanId, spanId, spanName, sampleable, userId, spanPurpose, startTimeEpochMicros,
+                null, durationNanos, tags, annotations
+            );
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.nike.wingtips;
+
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link SpanLimits}, and its enforcement by {@link Span}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanLimitsTest {
+
+    @Before
+    public void beforeMethod() {
+        resetGlobalState();
+    }
+
+    @After
+    public void afterMethod() {
+        resetGlobalState();
+    }
+
+    private void resetGlobalState() {
+        SpanLimits.setGlobalSpanLimits(SpanLimits.DEFAULT_SPAN_LIMITS);
+        SpanLimits.resetGlobalCounters();
+    }
+
+    @Test
+    public void constructor_sets_fields_as_expected() {
+        // when
+        SpanLimits limits = new SpanLimits(1, 2, 3, 4);
+
+        // then
+        assertThat(limits.getMaxNumTags()).isEqualTo(1);
+        assertThat(limits.getMaxNumAnnotations()).isEqualTo(2);
+        assertThat(limits.getMaxKeyLength()).isEqualTo(3);
+        assertThat(limits.getMaxValueLength()).isEqualTo(4);
+    }
+
+    @DataProvider(value = {
+        "-1 |   0   |   1   |   1   |   maxNumTags cannot be negative",
+        "0  |   -1  |   1   |   1   |   maxNumAnnotations cannot be negative",
+        "0  |   0   |   0   |   1   |   maxKeyLength must be greater than 0",
+        "0  |   0   |   1   |   0   |   maxValueLength must be greater than 0",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        int maxNumTags, int maxNumAnnotations, int maxKeyLength, int maxValueLength, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new SpanLimits(maxNumTags, maxNumAnnotations, maxKeyLength, maxValueLength)
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @Test
+    public void global_span_limits_default_to_DEFAULT_SPAN_LIMITS_and_can_be_changed() {
+        // expect
+        assertThat(SpanLimits.getGlobalSpanLimits()).isSameAs(SpanLimits.DEFAULT_SPAN_LIMITS);
+
+        // and when
+        SpanLimits newLimits = new SpanLimits(1, 1, 1, 1);
+        SpanLimits.setGlobalSpanLimits(newLimits);
+
+        // then
+        assertThat(SpanLimits.getGlobalSpanLimits()).isSameAs(newLimits);
+    }
+
+    @Test
+    public void setGlobalSpanLimits_throws_IllegalArgumentException_if_passed_null() {
+        // when
+        Throwable ex = catchThrowable(() -> SpanLimits.setGlobalSpanLimits(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("spanLimits cannot be null");
+    }
+
+    @Test
+    public void span_drops_new_tags_after_max_num_tags_but_allows_replacing_existing_tags() {
+        // given
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(2, 10, 100, 100));
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+
+        // when
+        span.putTag("tag1", "v1");
+        span.putTag("tag2", 2L);
+        span.putTag("tag3", "dropped");
+        span.putTag("tag4", true);
+        span.putTag("tag1", "replaced");
+
+        // then
+        assertThat(span.getTags()).hasSize(2);
+        assertThat(span.getTags().get("tag1")).isEqualTo("replaced");
+        assertThat(span.getTags().get("tag2")).isEqualTo("2");
+        assertThat(span.getNumDroppedTags()).isEqualTo(2);
+        assertThat(SpanLimits.getGlobalDroppedTagsCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void span_truncates_long_tag_keys_and_string_values() {
+        // given
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(10, 10, 4, 5));
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+
+        // when
+        span.putTag("abcdefg", "1234567890");
+        span.putTag("longTagKey", 42L);
+
+        // then
+        assertThat(span.getTags())
+            .hasSize(2)
+            .containsEntry("abcd", "12345")
+            .containsEntry("long", "42");
+        assertThat(span.getNumTruncatedValues()).isEqualTo(3);
+        assertThat(SpanLimits.getGlobalTruncatedValuesCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void span_drops_annotations_after_max_num_annotations_and_truncates_long_annotation_values() {
+        // given
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(10, 2, 100, 3));
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+
+        // when
+        span.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(1, "abcdef"));
+        span.addTimestampedAnnotationForCurrentTime("ok");
+        span.addTimestampedAnnotationForCurrentTime("dropped");
+
+        // then
+        assertThat(span.getTimestampedAnnotations()).hasSize(2);
+        assertThat(span.getTimestampedAnnotations().get(0).getValue()).isEqualTo("abc");
+        assertThat(span.getTimestampedAnnotations().get(0).getTimestampEpochMicros()).isEqualTo(1);
+        assertThat(span.getTimestampedAnnotations().get(1).getValue()).isEqualTo("ok");
+        assertThat(span.getNumDroppedAnnotations()).isEqualTo(1);
+        assertThat(span.getNumTruncatedValues()).isEqualTo(1);
+        assertThat(SpanLimits.getGlobalDroppedAnnotationsCount()).isEqualTo(1);
+        assertThat(SpanLimits.getGlobalTruncatedValuesCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void limits_are_enforced_by_builder_and_constructor() {
+        // given
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(1, 1, 100, 100));
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("tag1", "v1");
+        tags.put("tag2", "v2");
+
+        // when
+        Span fromBuilder = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY)
+                               .withTag("typedTag", 42L)
+                               .withTags(tags)
+                               .withTimestampedAnnotations(Arrays.asList(
+                                   TimestampedAnnotation.forEpochMicros(1, "a1"),
+                                   TimestampedAnnotation.forEpochMicros(2, "a2")
+                               ))
+                               .build();
+        Span fromConstructor = new Span(
+            "traceId", null, "spanId", "foo", true, null, SpanPurpose.LOCAL_ONLY, 1, null, null, tags,
+            Arrays.asList(TimestampedAnnotation.forEpochMicros(1, "a1"), TimestampedAnnotation.forEpochMicros(2, "a2"))
+        );
+
+        // then
+        assertThat(fromBuilder.getTypedTags()).hasSize(1).containsEntry("typedTag", 42L);
+        assertThat(fromBuilder.getTimestampedAnnotations()).hasSize(1);
+        assertThat(fromBuilder.getNumDroppedTags()).isEqualTo(2);
+        assertThat(fromBuilder.getNumDroppedAnnotations()).isEqualTo(1);
+
+        assertThat(fromConstructor.getTags()).hasSize(1).containsEntry("tag1", "v1");
+        assertThat(fromConstructor.getTimestampedAnnotations()).hasSize(1);
+        assertThat(fromConstructor.getNumDroppedTags()).isEqualTo(1);
+        assertThat(fromConstructor.getNumDroppedAnnotations()).isEqualTo(1);
+
+        assertThat(SpanLimits.getGlobalDroppedTagsCount()).isEqualTo(3);
+        assertThat(SpanLimits.getGlobalDroppedAnnotationsCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void NO_SPAN_LIMITS_does_not_drop_or_truncate_anything() {
+        // given
+        SpanLimits.setGlobalSpanLimits(SpanLimits.NO_SPAN_LIMITS);
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+        StringBuilder hugeValue = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            hugeValue.append('x');
+        }
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            span.putTag("tag" + i, i);
+            span.addTimestampedAnnotationForCurrentTime("annotation" + i);
+        }
+        span.putTag("hugeTag", hugeValue.toString());
+
+        // then
+        assertThat(span.getTags()).hasSize(1001);
+        assertThat(span.getTags().get("hugeTag")).hasSize(100000);
+        assertThat(span.getTimestampedAnnotations()).hasSize(1000);
+        assertThat(span.getNumDroppedTags()).isZero();
+        assertThat(span.getNumDroppedAnnotations()).isZero();
+        assertThat(span.getNumTruncatedValues()).isZero();
+    }
+
+    @Test
+    public void resetGlobalCounters_resets_the_counters() {
+        // given
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(0, 0, 1, 1));
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+        span.putTag("foo", "bar");
+        span.addTimestampedAnnotationForCurrentTime("foo");
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(10, 10, 1, 1));
+        span.putTag("foo", "bar");
+        assertThat(SpanLimits.getGlobalDroppedTagsCount()).isEqualTo(1);
+        assertThat(SpanLimits.getGlobalDroppedAnnotationsCount()).isEqualTo(1);
+        assertThat(SpanLimits.getGlobalTruncatedValuesCount()).isEqualTo(3);
+
+        // when
+        SpanLimits.resetGlobalCounters();
+
+        // then
+        assertThat(SpanLimits.getGlobalDroppedTagsCount()).isZero();
+        assertThat(SpanLimits.getGlobalDroppedAnnotationsCount()).isZero();
+        assertThat(SpanLimits.getGlobalTruncatedValuesCount()).isZero();
+    }
+}
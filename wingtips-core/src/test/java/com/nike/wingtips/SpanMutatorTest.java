@@ -47,4 +47,33 @@ public class SpanMutatorTest {
         // then
         verifyZeroInteractions(spanMock);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void putTag_typed_overloads_work_as_expected() {
+        // given
+        Span span = Span.newBuilder("someSpan", Span.SpanPurpose.SERVER).build();
+
+        // when
+        SpanMutator.putTag(span, "longTag", 42L);
+        SpanMutator.putTag(span, "boolTag", true);
+        SpanMutator.putTag(span, "doubleTag", 4.2d);
+
+        // then
+        assertThat(span.getTypedTags())
+            .containsEntry("longTag", 42L)
+            .containsEntry("boolTag", true)
+            .containsEntry("doubleTag", 4.2d);
+        assertThat(span.getTags())
+            .containsEntry("longTag", "42")
+            .containsEntry("boolTag", "true")
+            .containsEntry("doubleTag", "4.2");
+    }
+
+    @Test
+    public void putTag_typed_overloads_do_nothing_if_passed_null_span() {
+        // expect - no exception thrown when passed null span.
+        SpanMutator.putTag(null, "foo", 42L);
+        SpanMutator.putTag(null, "foo", true);
+        SpanMutator.putTag(null, "foo", 4.2d);
+    }
+}
@@ -0,0 +1,373 @@
+package com.nike.wingtips;
+
+import com.nike.wingtips.testutil.Whitebox;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Tests the functionality of {@link SpanTags}.
+ *
+ * @author Nic Munroe
+ */
+public class SpanTagsTest {
+
+    @Test
+    public void new_instance_is_empty() {
+        // when
+        SpanTags tags = new SpanTags();
+
+        // then
+        assertThat(tags.size()).isEqualTo(0);
+        assertThat(tags.isEmpty()).isTrue();
+        assertThat(tags.asStringMap()).isEmpty();
+        assertThat(tags.asTypedMap()).isEmpty();
+        assertThat(tags.get("foo")).isNull();
+    }
+
+    @Test
+    public void typed_values_are_rendered_as_strings_only_when_asked() {
+        // given
+        SpanTags tags = new SpanTags();
+
+        // when
+        tags.putLong("long", -42L);
+        tags.putBoolean("bool", true);
+        tags.putDouble("double", 1.5d);
+        tags.putString("string", "foo");
+
+        // then
+        assertThat(tags.typeAt(0)).isEqualTo(SpanTags.LONG_TYPE);
+        assertThat(tags.typeAt(1)).isEqualTo(SpanTags.BOOLEAN_TYPE);
+        assertThat(tags.typeAt(2)).isEqualTo(SpanTags.DOUBLE_TYPE);
+        assertThat(tags.typeAt(3)).isEqualTo(SpanTags.STRING_TYPE);
+        assertThat(tags.asTypedMap()).containsExactly(
+            entry("long", -42L), entry("bool", true), entry("double", 1.5d), entry("string", "foo")
+        );
+        assertThat(tags.asStringMap()).containsExactly(
+            entry("long", "-42"), entry("bool", "true"), entry("double", "1.5"), entry("string", "foo")
+        );
+    }
+
+    @Test
+    public void rendered_string_is_cached_until_value_is_replaced() {
+        // given
+        SpanTags tags = new SpanTags();
+        tags.putLong("long", 42L);
+        String firstRender = tags.get("long");
+
+        // expect
+        assertThat(tags.get("long")).isSameAs(firstRender);
+
+        // and when
+        tags.putLong("long", 43L);
+
+        // then
+        assertThat(tags.get("long")).isEqualTo("43");
+        assertThat(tags.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void remove_preserves_insertion_order_of_remaining_tags() {
+        // given
+        SpanTags tags = new SpanTags();
+        tags.putString("a", "1");
+        tags.putLong("b", 2L);
+        tags.putBoolean("c", false);
+
+        // when
+        boolean removedExisting = tags.remove("b");
+        boolean removedMissing = tags.remove("doesNotExist");
+
+        // then
+        assertThat(removedExisting).isTrue();
+        assertThat(removedMissing).isFalse();
+        assertThat(tags.asTypedMap()).containsExactly(entry("a", "1"), entry("c", false));
+    }
+
+    @Test
+    public void arrays_grow_when_capacity_is_exceeded() {
+        // given
+        SpanTags tags = new SpanTags();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            tags.putLong("key" + i, i);
+        }
+
+        // then
+        assertThat(tags.size()).isEqualTo(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(tags.asTypedMap().get("key" + i)).isEqualTo((long) i);
+        }
+    }
+
+    @Test
+    public void putAll_and_copy_constructor_copy_typed_values() {
+        // given
+        Map<String, String> stringTags = new LinkedHashMap<>();
+        stringTags.put("s1", "v1");
+        SpanTags orig = new SpanTags();
+        orig.putAll(stringTags);
+        orig.putDouble("d", 2.5d);
+
+        // when
+        SpanTags copy = new SpanTags(orig);
+        copy.putDouble("d", 3.5d);
+
+        // then
+        assertThat(orig.asTypedMap()).containsExactly(entry("s1", "v1"), entry("d", 2.5d));
+        assertThat(copy.asTypedMap()).containsExactly(entry("s1", "v1"), entry("d", 3.5d));
+    }
+
+    @Test
+    public void equals_and_hashCode_are_based_on_string_form() {
+        // given
+        SpanTags typed = new SpanTags();
+        typed.putLong("foo", 42L);
+        SpanTags stringly = new SpanTags();
+        stringly.putString("foo", "42");
+
+        // expect
+        assertThat(typed).isEqualTo(stringly);
+        assertThat(typed.hashCode()).isEqualTo(stringly.hashCode());
+        assertThat(typed.asStringMap()).isEqualTo(stringly.asStringMap());
+    }
+
+    @Test
+    public void is_not_java_serializable() {
+        // expect
+        assertThat(Serializable.class.isAssignableFrom(SpanTags.class)).isFalse();
+    }
+
+    @Test
+    public void copy_constructor_shares_storage_until_first_mutation() {
+        // given
+        SpanTags orig = new SpanTags();
+        orig.putString("service", "foo");
+        orig.putLong("version", 2L);
+
+        // when
+        SpanTags copy = new SpanTags(orig);
+
+        // then
+        assertThat(copy.isSharingStorage()).isTrue();
+        assertThat(orig.isSharingStorage()).isTrue();
+        assertThat(Whitebox.getInternalState(copy, "keys")).isSameAs(Whitebox.getInternalState(orig, "keys"));
+        assertThat(copy.asTypedMap()).isEqualTo(orig.asTypedMap());
+
+        // and when
+        copy.putString("region", "us-west-2");
+
+        // then
+        assertThat(copy.isSharingStorage()).isFalse();
+        assertThat(Whitebox.getInternalState(copy, "keys")).isNotSameAs(Whitebox.getInternalState(orig, "keys"));
+        assertThat(orig.asTypedMap()).containsExactly(entry("service", "foo"), entry("version", 2L));
+        assertThat(copy.asTypedMap()).containsExactly(
+            entry("service", "foo"), entry("version", 2L), entry("region", "us-west-2")
+        );
+    }
+
+    @Test
+    public void mutating_the_source_does_not_affect_copies_sharing_its_storage() {
+        // given
+        SpanTags orig = new SpanTags();
+        orig.putString("service", "foo");
+        orig.putString("region", "us-west-2");
+        SpanTags copy = new SpanTags(orig);
+
+        // when
+        orig.putString("service", "bar");
+        orig.remove("region");
+        orig.putBoolean("error", true);
+
+        // then
+        assertThat(orig.asTypedMap()).containsExactly(entry("service", "bar"), entry("error", true));
+        assertThat(copy.asTypedMap()).containsExactly(entry("service", "foo"), entry("region", "us-west-2"));
+        // The copy still references the original arrays, which nobody else is using anymore.
+        assertThat(copy.isSharingStorage()).isTrue();
+    }
+
+    @Test
+    public void rendered_string_cache_is_shared_safely() {
+        // given
+        SpanTags orig = new SpanTags();
+        orig.putDouble("d", 2.5d);
+        SpanTags copy = new SpanTags(orig);
+
+        // when
+        String copyRendered = copy.get("d");
+        copy.putDouble("d", 3.5d);
+
+        // then
+        assertThat(copyRendered).isEqualTo("2.5");
+        assertThat(orig.get("d")).isEqualTo("2.5");
+        assertThat(copy.get("d")).isEqualTo("3.5");
+    }
+
+    @Test
+    public void copying_an_empty_instance_does_not_share_anything() {
+        // given
+        SpanTags orig = new SpanTags();
+
+        // when
+        SpanTags copy = new SpanTags(orig);
+
+        // then
+        assertThat(copy.isSharingStorage()).isFalse();
+        assertThat(orig.isSharingStorage()).isFalse();
+    }
+
+    @Test
+    public void shareFrom_throws_IllegalStateException_if_not_empty() {
+        // given
+        SpanTags source = new SpanTags();
+        source.putString("foo", "bar");
+        SpanTags target = new SpanTags();
+        target.putString("baz", "bat");
+
+        // when
+        Throwable ex = catchThrowable(() -> target.shareFrom(source));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Cannot share tag storage into a non-empty SpanTags instance");
+    }
+
+    @Test
+    public void deferred_values_are_evaluated_at_most_once_and_removed_if_null() {
+        // given
+        SpanTags tags = new SpanTags();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        tags.putString("before", "foo");
+        tags.putDeferred("deferred", () -> "deferred-" + numEvaluations.incrementAndGet());
+        tags.putDeferred("null", () -> {
+            numEvaluations.incrementAndGet();
+            return null;
+        });
+        tags.putLong("after", 42L);
+
+        // when
+        assertThat(tags.typeAt(1)).isEqualTo(SpanTags.DEFERRED_TYPE);
+        assertThat(numEvaluations.get()).isEqualTo(0);
+        tags.resolveDeferredValues();
+        tags.resolveDeferredValues();
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(2);
+        assertThat(tags.asTypedMap()).containsExactly(
+            entry("before", "foo"), entry("deferred", "deferred-1"), entry("after", 42L)
+        );
+        assertThat(tags.typeAt(1)).isEqualTo(SpanTags.STRING_TYPE);
+    }
+
+    @Test
+    public void reading_a_single_deferred_value_that_evaluates_to_null_removes_the_tag() {
+        // given
+        SpanTags tags = new SpanTags();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        tags.putDeferred("null", () -> {
+            numEvaluations.incrementAndGet();
+            return null;
+        });
+        tags.putString("foo", "bar");
+
+        // when
+        String result = tags.stringValueAt(0);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(tags.size()).isEqualTo(1);
+        assertThat(tags.keyAt(0)).isEqualTo("foo");
+        assertThat(numEvaluations.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void previously_obtained_map_views_never_show_a_null_deferred_value() {
+        // given
+        SpanTags tags = new SpanTags();
+        Map<String, String> stringView = tags.asStringMap();
+        Map<String, Object> typedView = tags.asTypedMap();
+        tags.putString("before", "foo");
+        tags.putDeferred("null", () -> null);
+        tags.putDeferred("deferred", () -> "bar");
+
+        // expect
+        assertThat(stringView.containsKey("null")).isFalse();
+        assertThat(stringView.get("null")).isNull();
+        assertThat(stringView).hasSize(2);
+        assertThat(stringView).containsExactly(entry("before", "foo"), entry("deferred", "bar"));
+        assertThat(typedView).containsExactly(entry("before", "foo"), entry("deferred", "bar"));
+    }
+
+    @Test
+    public void iterating_a_map_view_resolves_deferred_values_before_the_first_entry() {
+        // given
+        SpanTags tags = new SpanTags();
+        Map<String, String> stringView = tags.asStringMap();
+        tags.putDeferred("null", () -> null);
+        tags.putString("after", "foo");
+        List<String> visitedKeys = new ArrayList<>();
+
+        // when
+        for (Map.Entry<String, String> entry : stringView.entrySet()) {
+            visitedKeys.add(entry.getKey() + "=" + entry.getValue());
+        }
+
+        // then
+        assertThat(visitedKeys).containsExactly("after=foo");
+        assertThat(tags.get("null")).isNull();
+    }
+
+    @Test
+    public void replacing_or_removing_a_deferred_value_means_it_is_never_evaluated() {
+        // given
+        SpanTags tags = new SpanTags();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        tags.putDeferred("replaced", numEvaluationsCountingValue(numEvaluations));
+        tags.putDeferred("removed", numEvaluationsCountingValue(numEvaluations));
+        tags.putDeferred("stillDeferred", () -> "foo");
+
+        // when
+        tags.putLong("replaced", 42L);
+        tags.remove("removed");
+        tags.resolveDeferredValues();
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(0);
+        assertThat(tags.asTypedMap()).containsExactly(entry("replaced", 42L), entry("stillDeferred", "foo"));
+    }
+
+    @Test
+    public void deferred_values_are_resolved_before_sharing() {
+        // given
+        SpanTags orig = new SpanTags();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        orig.putDeferred("deferred", () -> "deferred-" + numEvaluations.incrementAndGet());
+        orig.putDeferred("null", () -> null);
+
+        // when
+        SpanTags copy = new SpanTags(orig);
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(1);
+        assertThat(orig.asTypedMap()).containsExactly(entry("deferred", "deferred-1"));
+        assertThat(copy.asTypedMap()).isEqualTo(orig.asTypedMap());
+        assertThat(copy).isEqualTo(orig);
+    }
+
+    private static Span.DeferredTagValue numEvaluationsCountingValue(AtomicInteger numEvaluations) {
+        return () -> "value-" + numEvaluations.incrementAndGet();
+    }
+}
@@ -3,6 +3,7 @@ package com.nike.wingtips;
 import com.nike.internal.util.MapBuilder;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.Span.TimestampedAnnotation;
+import com.nike.wingtips.clock.SpanClock;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
 import com.nike.wingtips.testutil.Whitebox;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
@@ -22,8 +23,11 @@ import org.junit.runner.RunWith;
 import org.slf4j.MDC;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.LinkedHashMap;
@@ -31,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -39,6 +44,7 @@ import static com.nike.wingtips.util.parser.SpanParserTest.deserializeKeyValueSp
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -59,7 +65,7 @@ public class SpanTest {
     private long startTimeEpochMicrosForFullyCompleteSpan = 42;
     private long startTimeNanosForFullyCompleteSpan = calculateNanoStartTimeFromSpecifiedEpochMicrosStartTime(
         startTimeEpochMicrosForFullyCompleteSpan,
-        TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()),
+        SpanClock.getGlobalClock().currentTimeEpochMicros(),
         System.nanoTime());
     private long durationNanosForFullyCompletedSpan = 424242;
     private SpanPurpose spanPurposeForFullyCompletedSpan = SpanPurpose.SERVER;
@@ -231,17 +237,22 @@ public class SpanTest {
         // given
         long startTimeEpochMicrosUsed = 42;
         long nanosBeforeCall = System.nanoTime();
-        long epochMicrosBeforeCall = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long epochMicrosBeforeCall = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // when
         Span span = new Span(traceId, parentSpanId, spanId, spanName, true, userId, spanPurpose, startTimeEpochMicrosUsed, null, 41L, null, null);
-        long epochMicrosAfterCall = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long epochMicrosAfterCall = SpanClock.getGlobalClock().currentTimeEpochMicros();
         long nanosAfterCall = System.nanoTime();
 
         // then
         long lowerBound = calculateNanoStartTimeFromSpecifiedEpochMicrosStartTime(startTimeEpochMicrosUsed, epochMicrosBeforeCall, nanosBeforeCall);
         long upperBound = calculateNanoStartTimeFromSpecifiedEpochMicrosStartTime(startTimeEpochMicrosUsed, epochMicrosAfterCall, nanosAfterCall);
-        assertThat(span.getSpanStartTimeNanos()).isBetween(lowerBound, upperBound);
+        // The clock's epoch micros are derived from its nano time, so converting back to nanos can be off by up to a
+        //      microsecond due to truncation. Account for that in the bounds.
+        long microsecondTruncationSlopNanos = TimeUnit.MICROSECONDS.toNanos(1);
+        assertThat(span.getSpanStartTimeNanos()).isBetween(
+            lowerBound - microsecondTruncationSlopNanos, upperBound + microsecondTruncationSlopNanos
+        );
     }
 
     private long calculateNanoStartTimeFromSpecifiedEpochMicrosStartTime(long epochMicrosStartTime, long currentEpochMicros, long currentNanoTime) {
@@ -309,10 +320,10 @@ public class SpanTest {
 
         // when
         long beforeCallNanos = System.nanoTime();
-        long beforeCallEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeCallEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Span result = Span.generateRootSpanForNewTrace(spanName, spanPurpose).build();
         long afterCallNanos = System.nanoTime();
-        long afterCallEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterCallEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then
         assertThat(result.getTraceId()).isNotEmpty();
@@ -738,10 +749,10 @@ public class SpanTest {
 
         // when
         long beforeCallNanos = System.nanoTime();
-        long beforeCallEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeCallEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Span result = Span.newBuilder(spanName, spanPurpose).build();
         long afterCallNanos = System.nanoTime();
-        long afterCallEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterCallEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then
         assertThat(result.getTraceId()).isNotEmpty();
@@ -849,7 +860,7 @@ public class SpanTest {
     public void builder_withTags_does_nothing_if_passed_null() {
         // given
         Span.Builder builder = Span.newBuilder("foo", SpanPurpose.UNKNOWN);
-        Map<String, String> tagsMapSpy = spy(new LinkedHashMap<>());
+        SpanTags tagsMapSpy = spy(new SpanTags());
         Whitebox.setInternalState(builder, "tags", tagsMapSpy);
         
         // when
@@ -897,10 +908,10 @@ public class SpanTest {
 
         // when
         long beforeNanos = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Span span = builder.build();
         long afterNanos = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then
         assertThat(span.getSpanStartTimeNanos()).isBetween(beforeNanos, afterNanos);
@@ -1292,6 +1303,337 @@ public class SpanTest {
         assertThat(span.getTags().get(tagKey)).isEqualTo(otherValue);
     }
 
+    @Test
+    public void typed_putTag_methods_work_as_expected() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        assertThat(span.getTags()).isEmpty();
+
+        // when
+        span.putTag("longTag", 42L);
+        span.putTag("boolTag", false);
+        span.putTag("doubleTag", 4.2d);
+        span.putTag("stringTag", "bar");
+
+        // then
+        assertThat(span.getTypedTags()).hasSize(4);
+        assertThat(span.getTypedTags().get("longTag")).isEqualTo(42L);
+        assertThat(span.getTypedTags().get("boolTag")).isEqualTo(false);
+        assertThat(span.getTypedTags().get("doubleTag")).isEqualTo(4.2d);
+        assertThat(span.getTypedTags().get("stringTag")).isEqualTo("bar");
+        assertThat(span.getTags()).containsExactly(
+            entry("longTag", "42"),
+            entry("boolTag", "false"),
+            entry("doubleTag", "4.2"),
+            entry("stringTag", "bar")
+        );
+
+        // and when
+        span.putTag("longTag", "no longer a long");
+        span.putTag("stringTag", 17L);
+
+        // then
+        assertThat(span.getTypedTags().get("longTag")).isEqualTo("no longer a long");
+        assertThat(span.getTypedTags().get("stringTag")).isEqualTo(17L);
+        assertThat(span.getTags().get("stringTag")).isEqualTo("17");
+    }
+
+
+    @Test
+    public void visitTags_passes_each_tag_to_visitor_in_insertion_order_with_typed_values() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        span.putTag("longTag", 42L);
+        span.putTag("boolTag", true);
+        span.putTag("doubleTag", 4.2d);
+        span.putTag("stringTag", "bar");
+        List<String> visited = new ArrayList<>();
+
+        // when
+        span.visitTags(new Span.TagVisitor() {
+            @Override
+            public void visitTag(String key, String value) {
+                visited.add("string:" + key + "=" + value);
+            }
+
+            @Override
+            public void visitTag(String key, long value) {
+                visited.add("long:" + key + "=" + value);
+            }
+
+            @Override
+            public void visitTag(String key, boolean value) {
+                visited.add("boolean:" + key + "=" + value);
+            }
+
+            @Override
+            public void visitTag(String key, double value) {
+                visited.add("double:" + key + "=" + value);
+            }
+        });
+
+        // then
+        assertThat(visited).containsExactly(
+            "long:longTag=42", "boolean:boolTag=true", "double:doubleTag=4.2", "string:stringTag=bar"
+        );
+    }
+    @Test
+    public void putDeferredTag_evaluates_the_value_at_most_once_and_only_when_tags_are_read() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        String origJson = span.toJSON();
+
+        // when
+        span.putDeferredTag("deferredTag", () -> "value-" + numEvaluations.incrementAndGet());
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(0);
+        assertThat(span.toJSON()).isNotEqualTo(origJson).contains("\"deferredTag\":\"value-1\"");
+        assertThat(span.toKeyValueString()).contains("tag_deferredTag=\"value-1\"");
+        assertThat(span.getTags()).containsExactly(entry("deferredTag", "value-1"));
+        assertThat(span.getTypedTags()).containsExactly(entry("deferredTag", "value-1"));
+        assertThat(numEvaluations.get()).isEqualTo(1);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void complete_evaluates_deferred_tags_for_sampleable_spans_and_drops_them_for_non_sampleable_spans(
+        boolean sampleable
+    ) {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).withSampleable(sampleable).build();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        span.putTag("normalTag", "foo");
+        span.putDeferredTag("deferredTag", () -> "value-" + numEvaluations.incrementAndGet());
+
+        // when
+        span.complete();
+
+        // then
+        if (sampleable) {
+            assertThat(numEvaluations.get()).isEqualTo(1);
+            assertThat(span.getTags()).containsExactly(entry("normalTag", "foo"), entry("deferredTag", "value-1"));
+        }
+        else {
+            assertThat(numEvaluations.get()).isEqualTo(0);
+            assertThat(span.getTags()).containsExactly(entry("normalTag", "foo"));
+        }
+    }
+
+    @Test
+    public void completed_non_sampleable_span_never_calls_deferred_tag_supplier() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).withSampleable(false).build();
+        Map<String, String> tagsViewFromBeforeCompletion = span.getTags();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        span.putDeferredTag("http.url", () -> "value-" + numEvaluations.incrementAndGet());
+
+        // when
+        span.complete();
+        String json = span.toJSON();
+        String keyValue = span.toKeyValueString();
+        String str = span.toString();
+        Map<String, String> tags = span.getTags();
+        Map<String, Object> typedTags = span.getTypedTags();
+        Span copy = Span.newBuilder(span).build();
+        boolean equalsResult = span.equals(copy);
+        int hashCode = span.hashCode();
+        Span deserialized = (Span) SerializationUtils.deserialize(SerializationUtils.serialize(span));
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(0);
+        assertThat(json).doesNotContain("http.url");
+        assertThat(keyValue).doesNotContain("http.url");
+        assertThat(str).doesNotContain("http.url");
+        assertThat(tags).isEmpty();
+        assertThat(typedTags).isEmpty();
+        assertThat(tagsViewFromBeforeCompletion).isEmpty();
+        assertThat(equalsResult).isTrue();
+        assertThat(hashCode).isEqualTo(copy.hashCode());
+        assertThat(deserialized.getTags()).isEmpty();
+        // The supplier reference has been released.
+        Object spanTags = Whitebox.getInternalState(span, "tags");
+        assertThat(Whitebox.getInternalState(spanTags, "numDeferredValues")).isEqualTo(0);
+        assertThat(Arrays.asList((Span.DeferredTagValue[]) Whitebox.getInternalState(spanTags, "deferredValues")))
+            .containsOnly((Span.DeferredTagValue) null);
+    }
+
+    @Test
+    public void putDeferredTag_removes_the_tag_if_the_value_is_null_or_throws_an_exception() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        span.putTag("before", "foo");
+        span.putDeferredTag("nullTag", () -> null);
+        span.putDeferredTag("explodingTag", () -> {
+            throw new RuntimeException("intentional test exception");
+        });
+        span.putTag("after", 42L);
+        List<String> visited = new ArrayList<>();
+
+        // when
+        span.visitTags(new Span.TagVisitor() {
+            @Override
+            public void visitTag(String key, String value) {
+                visited.add(key + "=" + value);
+            }
+
+            @Override
+            public void visitTag(String key, long value) {
+                visited.add(key + "=" + value);
+            }
+
+            @Override
+            public void visitTag(String key, boolean value) {
+                visited.add(key + "=" + value);
+            }
+
+            @Override
+            public void visitTag(String key, double value) {
+                visited.add(key + "=" + value);
+            }
+        });
+
+        // then
+        assertThat(visited).containsExactly("before=foo", "after=42");
+        assertThat(span.getTags()).containsExactly(entry("before", "foo"), entry("after", "42"));
+    }
+
+    @Test
+    public void putDeferredTag_with_null_value_is_the_same_as_putTag_with_null_value() {
+        // given
+        Span deferredSpan = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        Span normalSpan = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+
+        // when
+        deferredSpan.putDeferredTag("foo", null);
+        normalSpan.putTag("foo", null);
+
+        // then
+        assertThat(deferredSpan.getTags()).isEqualTo(normalSpan.getTags());
+    }
+
+    @Test
+    public void putDeferredTag_applies_SpanLimits() {
+        // given
+        SpanLimits origLimits = SpanLimits.getGlobalSpanLimits();
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(1, 1, 3, 3));
+
+        try {
+            Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+            AtomicInteger numEvaluations = new AtomicInteger();
+
+            // when
+            span.putDeferredTag("deferredTag", () -> "value-" + numEvaluations.incrementAndGet());
+            span.putDeferredTag("droppedTag", () -> "value-" + numEvaluations.incrementAndGet());
+
+            // then
+            assertThat(span.getNumDroppedTags()).isEqualTo(1);
+            assertThat(span.getTags()).containsExactly(entry("def", "val"));
+            assertThat(span.getNumTruncatedValues()).isEqualTo(3);
+            assertThat(numEvaluations.get()).isEqualTo(1);
+        }
+        finally {
+            SpanLimits.setGlobalSpanLimits(origLimits);
+        }
+    }
+
+    @Test
+    public void deferred_tags_survive_serialization_and_newBuilder_copy() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).withSampleable(false).build();
+        AtomicInteger numEvaluations = new AtomicInteger();
+        span.putDeferredTag("deferredTag", () -> "value-" + numEvaluations.incrementAndGet());
+
+        // when
+        Span deserializedSpan = (Span) SerializationUtils.deserialize(SerializationUtils.serialize(span));
+        Span copy = Span.newBuilder(span).build();
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(1);
+        assertThat(deserializedSpan.getTags()).containsExactly(entry("deferredTag", "value-1"));
+        assertThat(copy.getTags()).containsExactly(entry("deferredTag", "value-1"));
+        verifySpanDeepEquals(span, deserializedSpan, false);
+    }
+
+    @Test
+    public void typed_putTag_clears_cached_serialized_representations() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).build();
+        String origJson = span.toJSON();
+        String origKeyValue = span.toKeyValueString();
+
+        // when
+        span.putTag("longTag", 42L);
+
+        // then
+        assertThat(span.toJSON()).isNotEqualTo(origJson).contains("\"longTag\":\"42\"");
+        assertThat(span.toKeyValueString()).isNotEqualTo(origKeyValue).contains("tag_longTag=\"42\"");
+    }
+
+    @Test
+    public void typed_tags_survive_builder_and_newBuilder_copy() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT)
+                        .withTag("longTag", 42L)
+                        .withTag("boolTag", true)
+                        .withTag("doubleTag", 4.2d)
+                        .withTag("stringTag", "bar")
+                        .build();
+
+        // when
+        Span copy = Span.newBuilder(span).build();
+
+        // then
+        assertThat(span.getTypedTags()).containsExactly(
+            entry("longTag", 42L),
+            entry("boolTag", true),
+            entry("doubleTag", 4.2d),
+            entry("stringTag", "bar")
+        );
+        assertThat(copy.getTypedTags()).isEqualTo(span.getTypedTags());
+        assertThat(copy).isEqualTo(span);
+
+        // and when
+        copy.putTag("longTag", 43L);
+
+        // then
+        assertThat(span.getTypedTags().get("longTag")).isEqualTo(42L);
+    }
+
+    @Test
+    public void typed_tags_are_equal_to_their_string_form_after_json_round_trip() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT).withTag("longTag", 42L).build();
+        span.complete();
+
+        // when
+        Span deserialized = SpanParser.fromJSON(span.toJSON());
+
+        // then
+        assertThat(deserialized).isEqualTo(span);
+        assertThat(deserialized.getTypedTags().get("longTag")).isEqualTo("42");
+    }
+
+    @Test
+    public void getTypedTags_returns_unmodifiable_map() {
+        // given
+        Span span = createFilledOutSpan(false);
+
+        // when
+        Throwable ex1 = catchThrowable(() -> span.getTypedTags().put("foo", 42L));
+        Throwable ex2 = catchThrowable(() -> span.getTypedTags().remove("foo"));
+        Throwable ex3 = catchThrowable(() -> span.getTypedTags().clear());
+
+        // then
+        assertThat(ex1).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(ex2).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(ex3).isInstanceOf(UnsupportedOperationException.class);
+    }
+
     @Test
     public void getTags_returns_unmodifiable_map() {
         // given
@@ -1673,7 +2015,7 @@ public class SpanTest {
     @Test
     public void TimestampedAnnotation_forEpochMicros_works_as_expected() {
         // given
-        long timestampMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long timestampMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         String value = UUID.randomUUID().toString();
 
         // when
@@ -1704,13 +2046,11 @@ public class SpanTest {
         String value = UUID.randomUUID().toString();
 
         // when
-        long beforeMillis = System.currentTimeMillis();
+        long beforeMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         TimestampedAnnotation result = TimestampedAnnotation.forCurrentTime(value);
-        long afterMillis = System.currentTimeMillis();
+        long afterMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then
-        long beforeMicros = TimeUnit.MILLISECONDS.toMicros(beforeMillis);
-        long afterMicros = TimeUnit.MILLISECONDS.toMicros(afterMillis);
         assertThat(result.getTimestampEpochMicros()).isBetween(beforeMicros, afterMicros);
         assertThat(result.getValue()).isEqualTo(value);
     }
@@ -1718,7 +2058,7 @@ public class SpanTest {
     @Test
     public void TimestampedAnnotation_forEpochMicrosWithNanoOffset_works_as_expected() {
         // given
-        long timestampMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long timestampMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         long nanoOffset = 4242;
         String value = UUID.randomUUID().toString();
 
@@ -1738,6 +2078,44 @@ public class SpanTest {
         assertThat(result.getValue()).isEqualTo(value);
     }
 
+    // A span serialized with default Java serialization by an older version of Wingtips, from:
+    //      new Span("traceX", "parentX", "spanX", "spanNameX", true, "userX", SpanPurpose.CLIENT, 1500000000000000L,
+    //               42L, 4242L, {fooTag=fooVal, barTag=barVal}, [TimestampedAnnotation(1500000000000001L, "fooEvent")])
+    //      The span's cached JSON and key/value strings had been populated before it was serialized.
+    private static final String LEGACY_SERIALIZED_SPAN_BASE64 =
+        "rO0ABXNyABZjb20ubmlrZS53aW5ndGlwcy5TcGFu6sIePd0zb+ACABFaAApzYW1wbGVhYmxlSgAYc3BhblN0YXJ0VGltZUVwb2No" +
+        "TWljcm9zSgASc3BhblN0YXJ0VGltZU5hbm9zTAALYW5ub3RhdGlvbnN0ABBMamF2YS91dGlsL0xpc3Q7TAAYY2FjaGVkSnNvblJl" +
+        "cHJlc2VudGF0aW9udAASTGphdmEvbGFuZy9TdHJpbmc7TAAcY2FjaGVkS2V5VmFsdWVSZXByZXNlbnRhdGlvbnEAfgACTAANY29t" +
+        "cGxldGVkRmxhZ3QAK0xqYXZhL3V0aWwvY29uY3VycmVudC9hdG9taWMvQXRvbWljQm9vbGVhbjtMAA1kdXJhdGlvbk5hbm9zdAAQ" +
+        "TGphdmEvbGFuZy9Mb25nO0wADHBhcmVudFNwYW5JZHEAfgACTAAGc3BhbklkcQB+AAJMAAhzcGFuTmFtZXEAfgACTAALc3BhblB1" +
+        "cnBvc2V0ACRMY29tL25pa2Uvd2luZ3RpcHMvU3BhbiRTcGFuUHVycG9zZTtMAAR0YWdzdAAPTGphdmEvdXRpbC9NYXA7TAAHdHJh" +
+        "Y2VJZHEAfgACTAAXdW5tb2RpZmlhYmxlQW5ub3RhdGlvbnNxAH4AAUwAEHVubW9kaWZpYWJsZVRhZ3NxAH4ABkwABnVzZXJJZHEA" +
+        "fgACeHABAAVUPfcpwAAAAAAAAAAAKnNyABNqYXZhLnV0aWwuQXJyYXlMaXN0eIHSHZnHYZ0DAAFJAARzaXpleHAAAAABdwQAAAAB" +
+        "c3IALGNvbS5uaWtlLndpbmd0aXBzLlNwYW4kVGltZXN0YW1wZWRBbm5vdGF0aW9uQ4MoZJQTGvoCAAJKABR0aW1lc3RhbXBFcG9j" +
+        "aE1pY3Jvc0wABXZhbHVlcQB+AAJ4cAAFVD33KcABdAAIZm9vRXZlbnR4dAFOeyJ0cmFjZUlkIjoidHJhY2VYIiwicGFyZW50U3Bh" +
+        "bklkIjoicGFyZW50WCIsInNwYW5JZCI6InNwYW5YIiwic3Bhbk5hbWUiOiJzcGFuTmFtZVgiLCJzYW1wbGVhYmxlIjoidHJ1ZSIs" +
+        "InVzZXJJZCI6InVzZXJYIiwic3BhblB1cnBvc2UiOiJDTElFTlQiLCJzdGFydFRpbWVFcG9jaE1pY3JvcyI6IjE1MDAwMDAwMDAw" +
+        "MDAwMDAiLCJkdXJhdGlvbk5hbm9zIjoiNDI0MiIsInRhZ3MiOnsiZm9vVGFnIjoiZm9vVmFsIiwiYmFyVGFnIjoiYmFyVmFsIn0s" +
+        "ImFubm90YXRpb25zIjpbeyJ0aW1lc3RhbXBFcG9jaE1pY3JvcyI6IjE1MDAwMDAwMDAwMDAwMDEiLCJ2YWx1ZSI6ImZvb0V2ZW50" +
+        "In1dfXQBC3RyYWNlSWQ9InRyYWNlWCIscGFyZW50U3BhbklkPSJwYXJlbnRYIixzcGFuSWQ9InNwYW5YIixzcGFuTmFtZT0ic3Bh" +
+        "bk5hbWVYIixzYW1wbGVhYmxlPSJ0cnVlIix1c2VySWQ9InVzZXJYIixzcGFuUHVycG9zZT0iQ0xJRU5UIixzdGFydFRpbWVFcG9j" +
+        "aE1pY3Jvcz0iMTUwMDAwMDAwMDAwMDAwMCIsZHVyYXRpb25OYW5vcz0iNDI0MiIsdGFnX2Zvb1RhZz0iZm9vVmFsIix0YWdfYmFy" +
+        "VGFnPSJiYXJWYWwiLHRzX2Fubm90XzE1MDAwMDAwMDAwMDAwMDE9ImZvb0V2ZW50InNyAClqYXZhLnV0aWwuY29uY3VycmVudC5h" +
+        "dG9taWMuQXRvbWljQm9vbGVhbkCYtwpPP/wzAgABSQAFdmFsdWV4cAAAAABzcgAOamF2YS5sYW5nLkxvbmc7i+SQzI8j3wIAAUoA" +
+        "BXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKGrJUdC5TgiwIAAHhwAAAAAAAAEJJ0AAdwYXJlbnRYdAAFc3Bhblh0AAlzcGFuTmFt" +
+        "ZVh+cgAiY29tLm5pa2Uud2luZ3RpcHMuU3BhbiRTcGFuUHVycG9zZQAAAAAAAAAAEgAAeHIADmphdmEubGFuZy5FbnVtAAAAAAAA" +
+        "AAASAAB4cHQABkNMSUVOVHNyABdqYXZhLnV0aWwuTGlua2VkSGFzaE1hcDTATlwQbMD7AgABWgALYWNjZXNzT3JkZXJ4cgARamF2" +
+        "YS51dGlsLkhhc2hNYXAFB9rBwxZg0QMAAkYACmxvYWRGYWN0b3JJAAl0aHJlc2hvbGR4cD9AAAAAAAADdwgAAAAEAAAAAnQABmZv" +
+        "b1RhZ3QABmZvb1ZhbHQABmJhclRhZ3QABmJhclZhbHgAdAAGdHJhY2VYc3IAJmphdmEudXRpbC5Db2xsZWN0aW9ucyRVbm1vZGlm" +
+        "aWFibGVMaXN0/A8lMbXsjhACAAFMAARsaXN0cQB+AAF4cgAsamF2YS51dGlsLkNvbGxlY3Rpb25zJFVubW9kaWZpYWJsZUNvbGxl" +
+        "Y3Rpb24ZQgCAy173HgIAAUwAAWN0ABZMamF2YS91dGlsL0NvbGxlY3Rpb247eHBxAH4ACXEAfgAJc3IAJWphdmEudXRpbC5Db2xs" +
+        "ZWN0aW9ucyRVbm1vZGlmaWFibGVNYXDxpaj+dPUHQgIAAUwAAW1xAH4ABnhwcQB+AB10AAV1c2VyWA==";
+
+    // A TimestampedAnnotation(123L, "bar") serialized by an older version of Wingtips.
+    private static final String LEGACY_SERIALIZED_ANNOTATION_BASE64 =
+        "rO0ABXNyACxjb20ubmlrZS53aW5ndGlwcy5TcGFuJFRpbWVzdGFtcGVkQW5ub3RhdGlvbkODKGSUExr6AgACSgAUdGltZXN0YW1w" +
+        "RXBvY2hNaWNyb3NMAAV2YWx1ZXQAEkxqYXZhL2xhbmcvU3RyaW5nO3hwAAAAAAAAAHt0AANiYXI=";
+
     @Test
     public void span_serializes_and_deserializes_with_no_data_loss() {
         Span span = new Span(
@@ -1751,4 +2129,218 @@ public class SpanTest {
 
         verifySpanDeepEquals(span, deserializedSpan, false);
     }
+
+    @Test
+    public void span_serialization_preserves_typed_tags_limit_counts_and_completed_state() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.CLIENT)
+                        .withTag("stringTag", "bar")
+                        .withTag("longTag", 42L)
+                        .withTag("boolTag", true)
+                        .withTag("doubleTag", 4.2d)
+                        .withUserId("someUser")
+                        .build();
+        span.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(1234, "someEvent"));
+        span.addTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(5678, null));
+        Whitebox.setInternalState(span, "numDroppedTags", 1);
+        Whitebox.setInternalState(span, "numDroppedAnnotations", 200);
+        Whitebox.setInternalState(span, "numTruncatedValues", 70000);
+        span.complete();
+
+        // when
+        Span deserializedSpan = (Span) SerializationUtils.deserialize(SerializationUtils.serialize(span));
+
+        // then
+        verifySpanDeepEquals(span, deserializedSpan, false);
+        assertThat(deserializedSpan.getSpanStartTimeNanos()).isEqualTo(span.getSpanStartTimeNanos());
+        assertThat(deserializedSpan.getTypedTags()).containsExactly(
+            entry("stringTag", "bar"),
+            entry("longTag", 42L),
+            entry("boolTag", true),
+            entry("doubleTag", 4.2d)
+        );
+        assertThat(deserializedSpan.getNumDroppedTags()).isEqualTo(1);
+        assertThat(deserializedSpan.getNumDroppedAnnotations()).isEqualTo(200);
+        assertThat(deserializedSpan.getNumTruncatedValues()).isEqualTo(70000);
+        assertThat(deserializedSpan.isCompleted()).isTrue();
+        // The completed flag was carried over, so the deserialized span can't be completed a second time.
+        assertThat(Whitebox.getInternalState(deserializedSpan, "completedFlag").toString()).isEqualTo("true");
+    }
+
+    @Test
+    public void span_serialization_does_not_apply_current_SpanLimits_on_deserialization() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY)
+                        .withTag("tag1", "value1")
+                        .withTag("tag2", "value2")
+                        .build();
+        byte[] bytes = SerializationUtils.serialize(span);
+        SpanLimits origLimits = SpanLimits.getGlobalSpanLimits();
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(1, 1, 3, 3));
+
+        try {
+            // when
+            Span deserializedSpan = (Span) SerializationUtils.deserialize(bytes);
+
+            // then
+            assertThat(deserializedSpan.getTags()).isEqualTo(span.getTags());
+            assertThat(deserializedSpan.getNumDroppedTags()).isZero();
+            assertThat(deserializedSpan.getNumTruncatedValues()).isZero();
+        }
+        finally {
+            SpanLimits.setGlobalSpanLimits(origLimits);
+        }
+    }
+
+    @Test
+    public void span_serialization_skips_cached_serialized_representations() {
+        // given
+        Span span = new Span(
+            traceId, parentSpanId, spanId, spanName, sampleableForFullyCompleteSpan, userId,
+            spanPurposeForFullyCompletedSpan, startTimeEpochMicrosForFullyCompleteSpan,
+            startTimeNanosForFullyCompleteSpan, durationNanosForFullyCompletedSpan, tags, annotations
+        );
+        String json = span.toJSON();
+        String keyValueStr = span.toKeyValueString();
+
+        // when
+        byte[] bytes = SerializationUtils.serialize(span);
+        Span deserializedSpan = (Span) SerializationUtils.deserialize(bytes);
+
+        // then
+        String rawPayload = new String(bytes, StandardCharsets.ISO_8859_1);
+        assertThat(rawPayload).doesNotContain(json).doesNotContain(keyValueStr);
+        assertThat(Whitebox.getInternalState(deserializedSpan, "cachedJsonRepresentation")).isNull();
+        assertThat(Whitebox.getInternalState(deserializedSpan, "cachedKeyValueRepresentation")).isNull();
+        assertThat(deserializedSpan.toJSON()).isEqualTo(json);
+        assertThat(deserializedSpan.toKeyValueString()).isEqualTo(keyValueStr);
+    }
+
+    @Test
+    public void legacy_default_serialized_span_payload_can_be_deserialized() {
+        // given
+        byte[] legacyBytes = Base64.getDecoder().decode(LEGACY_SERIALIZED_SPAN_BASE64);
+
+        // when
+        Span result = (Span) SerializationUtils.deserialize(legacyBytes);
+
+        // then
+        assertThat(result.getTraceId()).isEqualTo("traceX");
+        assertThat(result.getParentSpanId()).isEqualTo("parentX");
+        assertThat(result.getSpanId()).isEqualTo("spanX");
+        assertThat(result.getSpanName()).isEqualTo("spanNameX");
+        assertThat(result.isSampleable()).isTrue();
+        assertThat(result.getUserId()).isEqualTo("userX");
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.CLIENT);
+        assertThat(result.getSpanStartTimeEpochMicros()).isEqualTo(1500000000000000L);
+        assertThat(result.getSpanStartTimeNanos()).isEqualTo(42L);
+        assertThat(result.getDurationNanos()).isEqualTo(4242L);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getTags()).containsExactly(entry("fooTag", "fooVal"), entry("barTag", "barVal"));
+        assertThat(result.getTimestampedAnnotations()).containsExactly(
+            TimestampedAnnotation.forEpochMicros(1500000000000001L, "fooEvent")
+        );
+        assertThat(Whitebox.getInternalState(result, "cachedJsonRepresentation")).isNull();
+        assertThat(Whitebox.getInternalState(result, "cachedKeyValueRepresentation")).isNull();
+
+        // and when
+        byte[] compactBytes = SerializationUtils.serialize(result);
+
+        // then
+        assertThat(SerializationUtils.deserialize(compactBytes)).isEqualTo(result);
+        assertThat(compactBytes.length).isLessThan(legacyBytes.length / 4);
+    }
+
+    @Test
+    public void legacy_serialized_TimestampedAnnotation_payload_can_be_deserialized() {
+        // given
+        byte[] legacyBytes = Base64.getDecoder().decode(LEGACY_SERIALIZED_ANNOTATION_BASE64);
+
+        // when
+        TimestampedAnnotation result = (TimestampedAnnotation) SerializationUtils.deserialize(legacyBytes);
+
+        // then
+        assertThat(result).isEqualTo(TimestampedAnnotation.forEpochMicros(123L, "bar"));
+    }
+
+    @Test
+    public void span_deserialization_throws_InvalidObjectException_for_unsupported_format_version() {
+        // given
+        byte[] bytes = SerializationUtils.serialize(Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build());
+        // The compact form's data follows the class descriptor's TC_ENDBLOCKDATA and TC_NULL (no superclass)
+        //      markers, and is wrapped in a TC_BLOCKDATA block (marker + length byte). The first data byte is the
+        //      format version.
+        int versionIndex = -1;
+        for (int i = 0; i < bytes.length - 3; i++) {
+            if (bytes[i] == 0x78 && bytes[i + 1] == 0x70 && bytes[i + 2] == 0x77) {
+                versionIndex = i + 4;
+                break;
+            }
+        }
+        assertThat(versionIndex).isGreaterThan(0);
+        assertThat(bytes[versionIndex]).isEqualTo((byte) 1);
+        bytes[versionIndex] = 99;
+        byte[] finalBytes = bytes;
+
+        // when
+        Throwable ex = catchThrowable(() -> SerializationUtils.deserialize(finalBytes));
+
+        // then
+        assertThat(ex.getCause())
+            .isInstanceOf(InvalidObjectException.class)
+            .hasMessage("Unsupported serialized Span format version: 99");
+    }
+
+    @Test
+    public void newBuilder_copy_shares_tag_storage_with_source_until_mutated() {
+        // given
+        Span template = Span.newBuilder("template", SpanPurpose.SERVER)
+                            .withTag("service", "foo")
+                            .withTag("region", "us-west-2")
+                            .withTag("version", 3L)
+                            .build();
+        Object templateKeys = Whitebox.getInternalState(Whitebox.getInternalState(template, "tags"), "keys");
+
+        // when
+        Span derived = Span.newBuilder(template).build();
+
+        // then
+        Object derivedTags = Whitebox.getInternalState(derived, "tags");
+        assertThat(Whitebox.getInternalState(derivedTags, "keys")).isSameAs(templateKeys);
+        assertThat(derived.getTypedTags()).isEqualTo(template.getTypedTags());
+
+        // and when
+        derived.putTag("http.status_code", 200L);
+
+        // then
+        assertThat(Whitebox.getInternalState(derivedTags, "keys")).isNotSameAs(templateKeys);
+        assertThat(derived.getTags()).containsEntry("http.status_code", "200");
+        assertThat(template.getTags()).doesNotContainKey("http.status_code");
+    }
+
+    @Test
+    public void newBuilder_copy_falls_back_to_copying_tags_when_SpanLimits_would_truncate_them() {
+        // given
+        Span template = Span.newBuilder("template", SpanPurpose.SERVER)
+                            .withTag("service", "foobar")
+                            .build();
+        Object templateKeys = Whitebox.getInternalState(Whitebox.getInternalState(template, "tags"), "keys");
+        SpanLimits origLimits = SpanLimits.getGlobalSpanLimits();
+        SpanLimits.setGlobalSpanLimits(new SpanLimits(10, 10, 100, 3));
+
+        try {
+            // when
+            Span derived = Span.newBuilder(template).build();
+
+            // then
+            Object derivedTags = Whitebox.getInternalState(derived, "tags");
+            assertThat(Whitebox.getInternalState(derivedTags, "keys")).isNotSameAs(templateKeys);
+            assertThat(derived.getTags()).containsExactly(entry("service", "foo"));
+            assertThat(derived.getNumTruncatedValues()).isEqualTo(1);
+            assertThat(template.getTags()).containsExactly(entry("service", "foobar"));
+        }
+        finally {
+            SpanLimits.setGlobalSpanLimits(origLimits);
+        }
+    }
 }
@@ -1,5 +1,10 @@
 package com.nike.wingtips;
 
+import com.nike.wingtips.clock.DeterministicSpanClock;
+import com.nike.wingtips.clock.SpanClock;
+import com.nike.wingtips.idgen.IdGenerator;
+import com.nike.wingtips.idgen.ThreadLocalIdGenerator;
+
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
@@ -14,11 +19,13 @@ import java.nio.ByteBuffer;
 import java.security.Provider;
 import java.security.SecureRandom;
 import java.security.Security;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -262,4 +269,366 @@ public class TraceAndSpanIdGeneratorTest {
         // then
         assertThat(ex).isInstanceOf(NumberFormatException.class);
     }
+
+    @Test
+    public void default_IdGenerator_is_ThreadLocalIdGenerator() {
+        // expect
+        assertThat(TraceAndSpanIdGenerator.getIdGenerator()).isSameAs(ThreadLocalIdGenerator.INSTANCE);
+    }
+
+    @Test
+    public void generateId_and_generate64BitRandomLong_use_the_installed_IdGenerator() {
+        // given
+        IdGenerator origGenerator = TraceAndSpanIdGenerator.getIdGenerator();
+        TraceAndSpanIdGenerator.setIdGenerator(() -> 42L);
+
+        try {
+            // expect
+            assertThat(TraceAndSpanIdGenerator.getIdGenerator().generate64BitRandomLong()).isEqualTo(42L);
+            assertThat(TraceAndSpanIdGenerator.generate64BitRandomLong()).isEqualTo(42L);
+            assertThat(TraceAndSpanIdGenerator.generateId()).isEqualTo("000000000000002a");
+            assertThat(Tracer.getInstance().startRequestWithRootSpan("foo").getTraceId())
+                .isEqualTo("000000000000002a");
+            assertThat(Span.newBuilder("bar", Span.SpanPurpose.LOCAL_ONLY).build().getSpanId())
+                .isEqualTo("000000000000002a");
+        }
+        finally {
+            Tracer.getInstance().completeRequestSpan();
+            TraceAndSpanIdGenerator.setIdGenerator(origGenerator);
+        }
+    }
+
+    @Test
+    public void setIdGenerator_throws_IllegalArgumentException_if_passed_null() {
+        // when
+        Throwable ex = catchThrowable(() -> TraceAndSpanIdGenerator.setIdGenerator(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("generator cannot be null");
+    }
+
+    @Test
+    public void generate128BitId_returns_32_char_lowerhex_built_from_two_generator_longs() {
+        // given
+        IdGenerator origGenerator = TraceAndSpanIdGenerator.getIdGenerator();
+        long[] values = {0x0123456789abcdefL, -1L};
+        int[] counter = {0};
+        TraceAndSpanIdGenerator.setIdGenerator(() -> values[counter[0]++]);
+
+        try {
+            // when
+            String result = TraceAndSpanIdGenerator.generate128BitId();
+
+            // then
+            assertThat(result).isEqualTo("0123456789abcdefffffffffffffffff");
+            assertThat(TraceAndSpanIdGenerator.unsignedLowerHexStringToHighLong(result)).isEqualTo(values[0]);
+            assertThat(TraceAndSpanIdGenerator.unsignedLowerHexStringToLong(result)).isEqualTo(values[1]);
+        }
+        finally {
+            TraceAndSpanIdGenerator.setIdGenerator(origGenerator);
+        }
+    }
+
+    @Test
+    public void generate128BitId_should_not_generate_duplicate_ids_over_reasonable_number_of_attempts() {
+        // given
+        Set<String> ids = new HashSet<>();
+        int numAttempts = 10000;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            String id = TraceAndSpanIdGenerator.generate128BitId();
+            assertThat(id).hasSize(32).matches("[0-9a-f]{32}");
+            ids.add(id);
+        }
+
+        // then
+        assertThat(ids).hasSize(numAttempts);
+    }
+
+    @DataProvider(value = {
+        "false  |   16",
+        "true   |   32"
+    }, splitBy = "\\|")
+    @Test
+    public void generateTraceId_honors_generate128BitTraceIds_setting(boolean use128Bit, int expectedLength) {
+        // given
+        boolean origSetting = TraceAndSpanIdGenerator.isGenerate128BitTraceIds();
+        TraceAndSpanIdGenerator.setGenerate128BitTraceIds(use128Bit);
+
+        try {
+            // when
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+            Span rootSpan = Span.generateRootSpanForNewTrace("foo", Span.SpanPurpose.LOCAL_ONLY).build();
+            Span requestSpan = Tracer.getInstance().startRequestWithRootSpan("bar");
+
+            // then
+            assertThat(TraceAndSpanIdGenerator.isGenerate128BitTraceIds()).isEqualTo(use128Bit);
+            assertThat(traceId).hasSize(expectedLength);
+            assertThat(rootSpan.getTraceId()).hasSize(expectedLength);
+            assertThat(requestSpan.getTraceId()).hasSize(expectedLength);
+            // Span IDs are always 64 bits.
+            assertThat(rootSpan.getSpanId()).hasSize(16);
+            assertThat(requestSpan.getSpanId()).hasSize(16);
+        }
+        finally {
+            Tracer.getInstance().completeRequestSpan();
+            TraceAndSpanIdGenerator.setGenerate128BitTraceIds(origSetting);
+        }
+    }
+
+    @Test
+    public void generate128BitTraceIds_defaults_to_false() {
+        // expect
+        assertThat(TraceAndSpanIdGenerator.isGenerate128BitTraceIds()).isFalse();
+    }
+
+    @DataProvider(value = {
+        "0123456789abcdef0000000000000001   |   81985529216486895",
+        "10000000000000000                  |   1",
+        "ffffffffffffffff                   |   0",
+        "a                                  |   0"
+    }, splitBy = "\\|")
+    @Test
+    public void unsignedLowerHexStringToHighLong_extracts_high_bits(String hex, long expectedHighBits) {
+        // expect
+        assertThat(TraceAndSpanIdGenerator.unsignedLowerHexStringToHighLong(hex)).isEqualTo(expectedHighBits);
+    }
+
+    @DataProvider(value = {
+        "",
+        "0123456789abcdef0123456789abcdef0",
+        "0123456789ABCDEF0123456789abcdef"
+    })
+    @Test
+    public void unsignedLowerHexStringToHighLong_throws_NumberFormatException_for_invalid_input(String hex) {
+        // when
+        Throwable ex = catchThrowable(() -> TraceAndSpanIdGenerator.unsignedLowerHexStringToHighLong(hex));
+
+        // then
+        assertThat(ex).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void longsToUnsignedLowerHexString_pads_both_halves() {
+        // expect
+        assertThat(TraceAndSpanIdGenerator.longsToUnsignedLowerHexString(1L, 2L))
+            .isEqualTo("00000000000000010000000000000002");
+    }
+
+    @Test
+    public void generateTimeOrderedTraceId_puts_epoch_seconds_in_high_bits_and_random_in_the_rest() {
+        // given
+        SpanClock origClock = SpanClock.getGlobalClock();
+        long epochSeconds = 1_500_000_000L;
+        SpanClock.setGlobalClock(new DeterministicSpanClock(TimeUnit.SECONDS.toMicros(epochSeconds) + 123_456));
+
+        try {
+            // when
+            String first = TraceAndSpanIdGenerator.generateTimeOrderedTraceId();
+            String second = TraceAndSpanIdGenerator.generateTimeOrderedTraceId();
+
+            // then
+            assertThat(first).hasSize(32).matches("[0-9a-f]{32}").startsWith("59682f00");
+            assertThat(second).startsWith("59682f00").isNotEqualTo(first);
+            assertThat(TraceAndSpanIdGenerator.extractEpochSecondsFromTimeOrderedTraceId(first))
+                .isEqualTo(epochSeconds);
+            assertThat(TraceAndSpanIdGenerator.extractEpochMillisFromTimeOrderedTraceId(first))
+                .isEqualTo(TimeUnit.SECONDS.toMillis(epochSeconds));
+        }
+        finally {
+            SpanClock.setGlobalClock(origClock);
+        }
+    }
+
+    @Test
+    public void generateTimeOrderedTraceId_uses_96_random_bits() {
+        // given
+        IdGenerator origGenerator = TraceAndSpanIdGenerator.getIdGenerator();
+        SpanClock origClock = SpanClock.getGlobalClock();
+        SpanClock.setGlobalClock(new DeterministicSpanClock(TimeUnit.SECONDS.toMicros(0x12345678L)));
+        TraceAndSpanIdGenerator.setIdGenerator(() -> -1L);
+
+        try {
+            // expect
+            assertThat(TraceAndSpanIdGenerator.generateTimeOrderedTraceId())
+                .isEqualTo("12345678ffffffffffffffffffffffff");
+        }
+        finally {
+            TraceAndSpanIdGenerator.setIdGenerator(origGenerator);
+            SpanClock.setGlobalClock(origClock);
+        }
+    }
+
+    @Test
+    public void time_ordered_trace_ids_sort_by_time() {
+        // given
+        SpanClock origClock = SpanClock.getGlobalClock();
+        DeterministicSpanClock clock = new DeterministicSpanClock(TimeUnit.SECONDS.toMicros(1_500_000_000L));
+        SpanClock.setGlobalClock(clock);
+
+        try {
+            // when
+            String earlier = TraceAndSpanIdGenerator.generateTimeOrderedTraceId();
+            clock.advance(1, TimeUnit.SECONDS);
+            String later = TraceAndSpanIdGenerator.generateTimeOrderedTraceId();
+
+            // then
+            assertThat(later.compareTo(earlier)).isGreaterThan(0);
+        }
+        finally {
+            SpanClock.setGlobalClock(origClock);
+        }
+    }
+
+    @DataProvider(value = {
+        "false  |   false   |   false",
+        "false  |   true    |   false",
+        "true   |   false   |   true",
+        "true   |   true    |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void generateTraceId_honors_generateTimeOrderedTraceIds_setting(
+        boolean timeOrdered, boolean use128Bit, boolean expectTimeOrdered
+    ) {
+        // given
+        boolean origTimeOrdered = TraceAndSpanIdGenerator.isGenerateTimeOrderedTraceIds();
+        boolean orig128Bit = TraceAndSpanIdGenerator.isGenerate128BitTraceIds();
+        SpanClock origClock = SpanClock.getGlobalClock();
+        SpanClock.setGlobalClock(new DeterministicSpanClock(TimeUnit.SECONDS.toMicros(0x12345678L)));
+        TraceAndSpanIdGenerator.setGenerateTimeOrderedTraceIds(timeOrdered);
+        TraceAndSpanIdGenerator.setGenerate128BitTraceIds(use128Bit);
+
+        try {
+            // when
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+            Span span = Span.newBuilder("foo", Span.SpanPurpose.LOCAL_ONLY).build();
+
+            // then
+            assertThat(TraceAndSpanIdGenerator.isGenerateTimeOrderedTraceIds()).isEqualTo(timeOrdered);
+            if (expectTimeOrdered) {
+                assertThat(traceId).hasSize(32).startsWith("12345678");
+                assertThat(span.getTraceId()).hasSize(32).startsWith("12345678");
+            }
+            else {
+                assertThat(traceId).hasSize(use128Bit ? 32 : 16);
+                assertThat(span.getTraceId()).hasSize(use128Bit ? 32 : 16);
+            }
+        }
+        finally {
+            TraceAndSpanIdGenerator.setGenerateTimeOrderedTraceIds(origTimeOrdered);
+            TraceAndSpanIdGenerator.setGenerate128BitTraceIds(orig128Bit);
+            SpanClock.setGlobalClock(origClock);
+        }
+    }
+
+    @DataProvider(value = {
+        "0123456789abcdef",
+        "0123456789abcdef0123456789abcdef0",
+        "0123456G89abcdef0123456789abcdef"
+    })
+    @Test
+    public void extractEpochSecondsFromTimeOrderedTraceId_throws_NumberFormatException_for_invalid_input(
+        String traceId
+    ) {
+        // when
+        Throwable ex = catchThrowable(
+            () -> TraceAndSpanIdGenerator.extractEpochSecondsFromTimeOrderedTraceId(traceId)
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void extractEpochSecondsFromTimeOrderedTraceId_throws_NumberFormatException_for_null_input() {
+        // when
+        Throwable ex = catchThrowable(() -> TraceAndSpanIdGenerator.extractEpochSecondsFromTimeOrderedTraceId(null));
+
+        // then
+        assertThat(ex).isInstanceOf(NumberFormatException.class);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "1",
+        "-1",
+        "9223372036854775807",
+        "-9223372036854775808",
+        "81985529216486895"
+    })
+    @Test
+    public void writeUnsignedLowerHex_and_unsignedLowerHexToLong_work_in_place_at_offset(long value) {
+        // given
+        String expected = TraceAndSpanIdGenerator.longToUnsignedLowerHexString(value);
+        char[] chars = new char[20];
+
+        // when
+        int charsEnd = TraceAndSpanIdGenerator.writeUnsignedLowerHex(value, chars, 3);
+
+        // then
+        assertThat(charsEnd).isEqualTo(19);
+        assertThat(new String(chars, 3, 16)).isEqualTo(expected);
+
+        // and when
+        long fromCharSequence = TraceAndSpanIdGenerator.unsignedLowerHexToLong(
+            new StringBuilder("xyz").append(expected).append('!'), 3, 19
+        );
+
+        // then
+        assertThat(fromCharSequence).isEqualTo(value);
+    }
+
+    @DataProvider(value = {
+        "-1",
+        "5"
+    })
+    @Test
+    public void writeUnsignedLowerHex_throws_IndexOutOfBoundsException_if_not_enough_room(int offset) {
+        // given
+        char[] chars = new char[20];
+
+        // expect
+        assertThat(catchThrowable(() -> TraceAndSpanIdGenerator.writeUnsignedLowerHex(42L, chars, offset)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @DataProvider(value = {
+        "a                                  |   10",
+        "00000000000000ff                   |   255",
+        "ffffffffffffffff0000000000000002   |   2"
+    }, splitBy = "\\|")
+    @Test
+    public void unsignedLowerHexToLong_range_variant_matches_String_variant(String hex, long expected) {
+        // expect
+        assertThat(TraceAndSpanIdGenerator.unsignedLowerHexStringToLong(hex)).isEqualTo(expected);
+        assertThat(TraceAndSpanIdGenerator.unsignedLowerHexToLong((CharSequence) hex, 0, hex.length()))
+            .isEqualTo(expected);
+    }
+
+    @DataProvider(value = {
+        "",
+        "0123456789abcdef0123456789abcdef0",
+        "0123456789ABCDEF",
+        "g123456789abcdef0123456789abcdef",
+        "0x12"
+    })
+    @Test
+    public void unsignedLowerHexToLong_range_variant_throws_NumberFormatException_for_invalid_input(String hex) {
+        // expect
+        assertThat(catchThrowable(
+            () -> TraceAndSpanIdGenerator.unsignedLowerHexToLong((CharSequence) hex, 0, hex.length())
+        )).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void unsignedLowerHexToLong_range_variant_rejects_non_ascii_chars() {
+        // when
+        Throwable ex = catchThrowable(() -> TraceAndSpanIdGenerator.unsignedLowerHexToLong("a\u00e1b", 0, 3));
+
+        // then
+        assertThat(ex).isInstanceOf(NumberFormatException.class);
+    }
 }
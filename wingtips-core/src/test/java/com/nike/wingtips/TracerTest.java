@@ -2,12 +2,20 @@ package com.nike.wingtips;
 
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.Tracer.SpanFieldForLoggerMdc;
+import com.nike.wingtips.clock.DeterministicSpanClock;
+import com.nike.wingtips.clock.SpanClock;
 import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.sampling.ContextAwareRootSpanSamplingStrategy;
+import com.nike.wingtips.sampling.RootSpanSamplingContext;
 import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
 import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
+import com.nike.wingtips.sampling.SubSpanSamplingStrategy;
+import com.nike.wingtips.sink.SpanSink;
+import com.nike.wingtips.tags.WingtipsTags;
 import com.nike.wingtips.testutil.Whitebox;
 import com.nike.wingtips.util.TracerManagedSpanStatus;
 import com.nike.wingtips.util.TracingState;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
 import com.nike.wingtips.util.parser.SpanParser;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
@@ -18,6 +26,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
@@ -27,6 +36,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,14 +51,20 @@ import java.util.stream.Collectors;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
 
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.Fail.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -61,9 +77,12 @@ public class TracerTest {
     private void resetTracer() {
         Tracer.getInstance().completeRequestSpan();
         Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+        Tracer.getInstance().setSubSpanSamplingStrategy(null);
         Tracer.getInstance().removeAllSpanLifecycleListeners();
         Tracer.getInstance().setSpanLoggingRepresentation(Tracer.SpanLoggingRepresentation.JSON);
+        Tracer.getInstance().setSpanSink(null);
         Tracer.getInstance().setSpanFieldsForLoggerMdc(singleton(SpanFieldForLoggerMdc.TRACE_ID));
+        MDC.clear();
     }
 
     @Before
@@ -109,10 +128,10 @@ public class TracerTest {
 
         // when: Tracer.startRequestWithRootSpan(String) is called to start a span without a parent
         long beforeNanoTime = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Tracer.getInstance().startRequestWithRootSpan("noparent");
         long afterNanoTime = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then: a new span is started that has no parent but is otherwise valid, and the MDC is updated
         assertThat(getSpanStackSize()).isEqualTo(1);
@@ -141,10 +160,10 @@ public class TracerTest {
 
         // when: Tracer.startRequestWithRootSpan(String) is called to start a span without a parent
         long beforeNanoTime = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Tracer.getInstance().startRequestWithRootSpan("noparent", "testUserId");
         long afterNanoTime = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then: a new span is started that has no parent but is otherwise valid, it has the expected user ID, and the MDC is updated
         assertThat(getSpanStackSize()).isEqualTo(1);
@@ -191,10 +210,10 @@ public class TracerTest {
 
         // when: Tracer.startRequestWithChildSpan(Span, String) is called to start a span with a parent
         long beforeNanoTime = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Tracer.getInstance().startRequestWithChildSpan(parentSpan, "childspan");
         long afterNanoTime = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then: a new span is started that has the given parent and is otherwise valid, and the MDC is updated
         assertThat(getSpanStackSize()).isEqualTo(1);
@@ -227,10 +246,10 @@ public class TracerTest {
 
         // when: Tracer.startRequestWithChildSpan(Span, String) is called to start a span with a parent
         long beforeNanoTime = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Tracer.getInstance().startRequestWithChildSpan(parentSpan, "childspan");
         long afterNanoTime = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then: a new span is started that has the given parent and is otherwise valid, has the expected user ID, and the MDC is updated
         assertThat(getSpanStackSize()).isEqualTo(1);
@@ -296,11 +315,11 @@ public class TracerTest {
 
         // when
         long beforeNanoTime = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         @SuppressWarnings("ConstantConditions")
         Span span = Tracer.getInstance().startRequestWithSpanInfo(traceId, parentSpanId, spanName, sampleable, userId, spanPurpose);
         long afterNanoTime = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then
         assertThat(Tracer.getInstance().getCurrentSpan()).isEqualTo(span);
@@ -376,10 +395,10 @@ public class TracerTest {
 
         // when: Tracer.startSubSpan(String) is called to start a subspan
         long beforeNanoTime = System.nanoTime();
-        long beforeEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long beforeEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
         Tracer.getInstance().startSubSpan("subspan", spanPurpose);
         long afterNanoTime = System.nanoTime();
-        long afterEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long afterEpochMicros = SpanClock.getGlobalClock().currentTimeEpochMicros();
 
         // then: a new span is started even though there was no parent, and the MDC is updated.
         assertThat(getSpanStackSize()).isEqualTo(1);
@@ -398,6 +417,190 @@ public class TracerTest {
         assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isEqualTo(subspan.getTraceId());
     }
 
+    private static final SubSpanSamplingStrategy SUMMARIZE_HOT_OPS_STRATEGY =
+        (spanName, spanPurpose) -> !spanName.startsWith("hot");
+
+    private static String summaryTagKey(String subSpanName, String suffix) {
+        return WingtipsTags.SUMMARIZED_SUB_SPAN_TAG_PREFIX + subSpanName + suffix;
+    }
+
+    @Test
+    public void startSubSpan_returns_summarized_sub_span_linked_to_parent_when_sub_span_sampling_strategy_rejects_it() {
+        // given
+        Tracer.getInstance().setSubSpanSamplingStrategy(SUMMARIZE_HOT_OPS_STRATEGY);
+        Span parent = Tracer.getInstance().startRequestWithRootSpan("root");
+        SpanLifecycleListener listener = mock(SpanLifecycleListener.class);
+        Tracer.getInstance().addSpanLifecycleListener(listener);
+
+        // when
+        Span summarized = Tracer.getInstance().startSubSpan("hot-op", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(summarized.isSummarizedSubSpan()).isTrue();
+        assertThat(parent.isSummarizedSubSpan()).isFalse();
+        assertThat(summarized.getSpanName()).isEqualTo("hot-op");
+        assertThat(summarized.getSpanPurpose()).isEqualTo(SpanPurpose.LOCAL_ONLY);
+        assertThat(summarized.getTraceId()).isEqualTo(parent.getTraceId());
+        assertThat(summarized.getSpanId()).isEqualTo(parent.getSpanId());
+        assertThat(summarized.getParentSpanId()).isEqualTo(parent.getParentSpanId());
+        assertThat(summarized.isSampleable()).isTrue();
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(summarized);
+        assertThat(getSpanStackSize()).isEqualTo(2);
+        assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isEqualTo(parent.getTraceId());
+        verify(listener, never()).spanStarted(any(Span.class));
+        verify(listener, never()).spanSampled(any(Span.class));
+
+        // and when
+        Tracer.getInstance().completeSubSpan();
+
+        // then
+        assertThat(summarized.isCompleted()).isTrue();
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(parent);
+        verify(listener, never()).spanCompleted(any(Span.class));
+    }
+
+    @Test
+    public void startSubSpan_does_not_summarize_sub_spans_when_strategy_keeps_them_or_parent_is_not_sampleable() {
+        // given
+        List<String> namesAskedAbout = new ArrayList<>();
+        Tracer.getInstance().setSubSpanSamplingStrategy((spanName, spanPurpose) -> {
+            namesAskedAbout.add(spanName);
+            return !spanName.startsWith("hot");
+        });
+        Tracer.getInstance().startRequestWithRootSpan("root");
+
+        // when
+        Span kept = Tracer.getInstance().startSubSpan("cold-op", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(kept.isSummarizedSubSpan()).isFalse();
+        assertThat(namesAskedAbout).containsExactly("cold-op");
+
+        // and given
+        Tracer.getInstance().completeRequestSpan();
+        Tracer.getInstance().setRootSpanSamplingStrategy(() -> false);
+        Tracer.getInstance().startRequestWithRootSpan("unsampled-root");
+
+        // when
+        Span underUnsampledParent = Tracer.getInstance().startSubSpan("hot-op", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(underUnsampledParent.isSummarizedSubSpan()).isFalse();
+        assertThat(namesAskedAbout).containsExactly("cold-op");
+    }
+
+    @Test
+    public void summarized_sub_spans_are_attached_as_per_name_summary_tags_when_parent_completes() {
+        // given
+        SpanClock origClock = SpanClock.getGlobalClock();
+        DeterministicSpanClock clock = new DeterministicSpanClock(TimeUnit.SECONDS.toMicros(1_000_000));
+        SpanClock.setGlobalClock(clock);
+        try {
+            Tracer.getInstance().setSubSpanSamplingStrategy(SUMMARIZE_HOT_OPS_STRATEGY);
+            Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+            List<Map<String, String>> tagsSeenByListener = new ArrayList<>();
+            Tracer.getInstance().addSpanLifecycleListener(new SpanLifecycleListener() {
+                @Override public void spanStarted(Span span) { }
+                @Override public void spanSampled(Span span) { }
+                @Override public void spanCompleted(Span span) {
+                    tagsSeenByListener.add(new HashMap<>(span.getTags()));
+                }
+            });
+
+            // when
+            for (long durationMillis : new long[]{ 3, 7, 5 }) {
+                try (Span ignored = Tracer.getInstance().startSubSpan("hot-a", SpanPurpose.LOCAL_ONLY)) {
+                    clock.advance(durationMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            try (Span ignored = Tracer.getInstance().startSubSpan("hot-b", SpanPurpose.CLIENT)) {
+                clock.advance(2, TimeUnit.MILLISECONDS);
+            }
+
+            // then
+            assertThat(root.getTags()).isEmpty();
+
+            // and when
+            Tracer.getInstance().completeRequestSpan();
+
+            // then
+            assertThat(root.getTags())
+                .containsEntry(summaryTagKey("hot-a", WingtipsTags.SUMMARIZED_SUB_SPAN_COUNT_TAG_SUFFIX), "3")
+                .containsEntry(
+                    summaryTagKey("hot-a", WingtipsTags.SUMMARIZED_SUB_SPAN_TOTAL_DURATION_NANOS_TAG_SUFFIX),
+                    String.valueOf(TimeUnit.MILLISECONDS.toNanos(15))
+                )
+                .containsEntry(
+                    summaryTagKey("hot-a", WingtipsTags.SUMMARIZED_SUB_SPAN_MAX_DURATION_NANOS_TAG_SUFFIX),
+                    String.valueOf(TimeUnit.MILLISECONDS.toNanos(7))
+                )
+                .containsEntry(summaryTagKey("hot-b", WingtipsTags.SUMMARIZED_SUB_SPAN_COUNT_TAG_SUFFIX), "1")
+                .containsEntry(
+                    summaryTagKey("hot-b", WingtipsTags.SUMMARIZED_SUB_SPAN_MAX_DURATION_NANOS_TAG_SUFFIX),
+                    String.valueOf(TimeUnit.MILLISECONDS.toNanos(2))
+                )
+                .hasSize(6);
+            // Only the root span was seen by listeners, and it already had the summary tags.
+            assertThat(tagsSeenByListener).containsExactly(root.getTags());
+        }
+        finally {
+            SpanClock.setGlobalClock(origClock);
+        }
+    }
+
+    @Test
+    public void kept_sub_spans_under_summarized_sub_spans_link_to_nearest_recorded_ancestor() {
+        // given
+        Tracer.getInstance().setSubSpanSamplingStrategy(SUMMARIZE_HOT_OPS_STRATEGY);
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span recordedChild = Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+        Span summarizedOuter = Tracer.getInstance().startSubSpan("hot-outer", SpanPurpose.LOCAL_ONLY);
+        Span summarizedInner = Tracer.getInstance().startSubSpan("hot-inner", SpanPurpose.LOCAL_ONLY);
+
+        // when
+        Span keptGrandchild = Tracer.getInstance().startSubSpan("downstream-call", SpanPurpose.CLIENT);
+
+        // then
+        assertThat(summarizedOuter.getSpanId()).isEqualTo(recordedChild.getSpanId());
+        assertThat(summarizedInner.getSpanId()).isEqualTo(recordedChild.getSpanId());
+        assertThat(summarizedInner.getParentSpanId()).isEqualTo(root.getSpanId());
+        assertThat(keptGrandchild.isSummarizedSubSpan()).isFalse();
+        assertThat(keptGrandchild.isSampleable()).isTrue();
+        assertThat(keptGrandchild.getTraceId()).isEqualTo(root.getTraceId());
+        assertThat(keptGrandchild.getParentSpanId()).isEqualTo(recordedChild.getSpanId());
+        assertThat(keptGrandchild.getSpanId()).isNotEqualTo(recordedChild.getSpanId());
+
+        // and when
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().completeSubSpan();
+
+        // then
+        assertThat(recordedChild.getTags())
+            .containsEntry(summaryTagKey("hot-outer", WingtipsTags.SUMMARIZED_SUB_SPAN_COUNT_TAG_SUFFIX), "1")
+            .containsEntry(summaryTagKey("hot-inner", WingtipsTags.SUMMARIZED_SUB_SPAN_COUNT_TAG_SUFFIX), "1");
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(root);
+    }
+
+    @Test
+    public void setSubSpanSamplingStrategy_and_getter_work_as_expected() {
+        // expect
+        assertThat(Tracer.getInstance().getSubSpanSamplingStrategy()).isNull();
+
+        // when
+        Tracer.getInstance().setSubSpanSamplingStrategy(SUMMARIZE_HOT_OPS_STRATEGY);
+
+        // then
+        assertThat(Tracer.getInstance().getSubSpanSamplingStrategy()).isSameAs(SUMMARIZE_HOT_OPS_STRATEGY);
+
+        // and when
+        Tracer.getInstance().setSubSpanSamplingStrategy(null);
+
+        // then
+        assertThat(Tracer.getInstance().getSubSpanSamplingStrategy()).isNull();
+    }
+
     @DataProvider(value = {
         "true",
         "false"
@@ -546,6 +749,36 @@ public class TracerTest {
         assertThat(Tracer.getInstance().getCurrentSpan().getSpanName()).isEqualTo(newRequestSpanName);
     }
 
+    @Test
+    public void SpanFieldForLoggerMdc_fromMdcKeyOrName_accepts_mdc_keys_and_enum_names() {
+        for (SpanFieldForLoggerMdc fieldForMdc : SpanFieldForLoggerMdc.values()) {
+            // expect
+            assertThat(SpanFieldForLoggerMdc.fromMdcKeyOrName(fieldForMdc.mdcKey)).isEqualTo(fieldForMdc);
+            assertThat(SpanFieldForLoggerMdc.fromMdcKeyOrName(fieldForMdc.name())).isEqualTo(fieldForMdc);
+            assertThat(SpanFieldForLoggerMdc.fromMdcKeyOrName("  " + fieldForMdc.mdcKey + " ")).isEqualTo(fieldForMdc);
+        }
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "traceid",
+        "trace_id",
+        "notAField"
+    })
+    @Test
+    public void SpanFieldForLoggerMdc_fromMdcKeyOrName_throws_IllegalArgumentException_for_unknown_fields(
+        String mdcKeyOrName
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> SpanFieldForLoggerMdc.fromMdcKeyOrName(mdcKeyOrName));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Unknown span field: ");
+    }
+
     @Test
     public void getMdcValueForSpan_works_as_expected() {
         for (SpanFieldForLoggerMdc fieldForMdc : SpanFieldForLoggerMdc.values()) {
@@ -873,6 +1106,167 @@ public class TracerTest {
         verify(mockStrategy).isNextRootSpanSampleable();
     }
 
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void non_context_aware_root_span_sampling_goes_through_overridable_isNextRootSpanSampleable(
+        boolean overrideResult
+    ) {
+        // given
+        RootSpanSamplingStrategy strategyMock = mock(RootSpanSamplingStrategy.class);
+        doReturn(!overrideResult).when(strategyMock).isNextRootSpanSampleable();
+        Tracer.getInstance().setRootSpanSamplingStrategy(strategyMock);
+        Tracer tracerSpy = spy(Tracer.getInstance());
+        doReturn(overrideResult).when(tracerSpy).isNextRootSpanSampleable();
+        RootSpanSamplingContext samplingContext = RootSpanSamplingContext.forHttpRequest(
+            "GET /foo", SpanPurpose.SERVER, "GET", "/foo", new Object()
+        );
+
+        // when
+        boolean nameAndPurposeResult = tracerSpy.isNextRootSpanSampleable("someTraceId", "foo", SpanPurpose.SERVER);
+        boolean contextResult = tracerSpy.isRootSpanSampleable("someTraceId", samplingContext);
+
+        // then
+        assertThat(nameAndPurposeResult).isEqualTo(overrideResult);
+        assertThat(contextResult).isEqualTo(overrideResult);
+        verify(tracerSpy, times(2)).isNextRootSpanSampleable();
+        verify(strategyMock, never()).isNextRootSpanSampleable();
+    }
+
+    private enum RootSpanStartScenario {
+        START_REQUEST_WITH_ROOT_SPAN(SpanPurpose.SERVER) {
+            @Override
+            Span startRootSpan(Tracer tracer, String spanName) {
+                return tracer.startRequestWithRootSpan(spanName, "someUserId");
+            }
+        },
+        START_SUB_SPAN_WITH_NO_PARENT(SpanPurpose.CLIENT) {
+            @Override
+            Span startRootSpan(Tracer tracer, String spanName) {
+                return tracer.startSubSpan(spanName, SpanPurpose.CLIENT);
+            }
+        },
+        START_SPAN_IN_CURRENT_CONTEXT_WITH_EMPTY_STACK(SpanPurpose.LOCAL_ONLY) {
+            @Override
+            Span startRootSpan(Tracer tracer, String spanName) {
+                return tracer.startSpanInCurrentContext(spanName, SpanPurpose.LOCAL_ONLY);
+            }
+        };
+
+        final SpanPurpose expectedSpanPurpose;
+
+        RootSpanStartScenario(SpanPurpose expectedSpanPurpose) {
+            this.expectedSpanPurpose = expectedSpanPurpose;
+        }
+
+        abstract Span startRootSpan(Tracer tracer, String spanName);
+    }
+
+    @DataProvider
+    public static List<List<Object>> rootSpanStartScenarioDataProvider() {
+        List<List<Object>> result = new ArrayList<>();
+        for (RootSpanStartScenario scenario : RootSpanStartScenario.values()) {
+            result.add(Arrays.asList(scenario, true));
+            result.add(Arrays.asList(scenario, false));
+        }
+        return result;
+    }
+
+    @UseDataProvider("rootSpanStartScenarioDataProvider")
+    @Test
+    public void root_span_start_methods_pass_span_name_and_purpose_to_context_aware_strategy(
+        RootSpanStartScenario scenario, boolean strategyResult
+    ) {
+        // given
+        ContextAwareRootSpanSamplingStrategy strategyMock = mock(ContextAwareRootSpanSamplingStrategy.class);
+        doReturn(strategyResult).when(strategyMock).isRootSpanSampleable(any(RootSpanSamplingContext.class));
+        Tracer.getInstance().setRootSpanSamplingStrategy(strategyMock);
+        String spanName = "span-" + UUID.randomUUID().toString();
+
+        // when
+        Span result = scenario.startRootSpan(Tracer.getInstance(), spanName);
+
+        // then
+        assertThat(result.getParentSpanId()).isNull();
+        assertThat(result.isSampleable()).isEqualTo(strategyResult);
+
+        ArgumentCaptor<RootSpanSamplingContext> contextCaptor = ArgumentCaptor.forClass(RootSpanSamplingContext.class);
+        verify(strategyMock).isRootSpanSampleable(contextCaptor.capture());
+        verify(strategyMock, never()).isNextRootSpanSampleable();
+        RootSpanSamplingContext context = contextCaptor.getValue();
+        assertThat(context.getTraceId()).isEqualTo(result.getTraceId());
+        assertThat(context.getSpanName()).isEqualTo(spanName);
+        assertThat(context.getSpanPurpose()).isEqualTo(scenario.expectedSpanPurpose);
+        assertThat(context.getHttpMethod()).isNull();
+        assertThat(context.getRequestPath()).isNull();
+        assertThat(context.getRequest()).isNull();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void startRequestWithRootSpan_with_sampling_context_passes_context_to_context_aware_strategy(
+        boolean strategyResult
+    ) {
+        // given
+        ContextAwareRootSpanSamplingStrategy strategyMock = mock(ContextAwareRootSpanSamplingStrategy.class);
+        Object request = new Object();
+        RootSpanSamplingContext samplingContext = RootSpanSamplingContext.forHttpRequest(
+            "GET /foo", SpanPurpose.SERVER, "GET", "/foo", request
+        );
+        doReturn(strategyResult).when(strategyMock).isRootSpanSampleable(any(RootSpanSamplingContext.class));
+        Tracer.getInstance().setRootSpanSamplingStrategy(strategyMock);
+
+        // when
+        Span result = Tracer.getInstance().startRequestWithRootSpan("GET /foo", "someUserId", samplingContext);
+
+        // then
+        assertThat(result.isSampleable()).isEqualTo(strategyResult);
+        assertThat(result.getSpanName()).isEqualTo("GET /foo");
+        assertThat(result.getUserId()).isEqualTo("someUserId");
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(result);
+
+        ArgumentCaptor<RootSpanSamplingContext> contextCaptor = ArgumentCaptor.forClass(RootSpanSamplingContext.class);
+        verify(strategyMock).isRootSpanSampleable(contextCaptor.capture());
+        verify(strategyMock, never()).isNextRootSpanSampleable();
+        RootSpanSamplingContext passedContext = contextCaptor.getValue();
+        assertThat(passedContext.getTraceId()).isEqualTo(result.getTraceId());
+        assertThat(passedContext.getSpanName()).isEqualTo("GET /foo");
+        assertThat(passedContext.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+        assertThat(passedContext.getHttpMethod()).isEqualTo("GET");
+        assertThat(passedContext.getRequestPath()).isEqualTo("/foo");
+        assertThat(passedContext.getRequest()).isSameAs(request);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void startRequestWithRootSpan_with_sampling_context_ignores_context_for_non_context_aware_strategy(
+        boolean strategyResult
+    ) {
+        // given
+        RootSpanSamplingStrategy strategyMock = mock(RootSpanSamplingStrategy.class);
+        doReturn(strategyResult).when(strategyMock).isNextRootSpanSampleable();
+        Tracer.getInstance().setRootSpanSamplingStrategy(strategyMock);
+        RootSpanSamplingContext samplingContext = RootSpanSamplingContext.forHttpRequest(
+            "GET /foo", SpanPurpose.SERVER, "GET", "/foo", new Object()
+        );
+
+        // when
+        Span result = Tracer.getInstance().startRequestWithRootSpan("GET /foo", null, samplingContext);
+
+        // then
+        assertThat(result.isSampleable()).isEqualTo(strategyResult);
+        verify(strategyMock).isNextRootSpanSampleable();
+    }
+
     @Test
     public void addSpanLifecycleListener_should_work_as_advertised() {
         // given
@@ -1686,7 +2080,8 @@ public class TracerTest {
 
     @DataProvider(value = {
         "JSON",
-        "KEY_VALUE"
+        "KEY_VALUE",
+        "BINARY"
     }, splitBy = "\\|")
     @Test
     public void verify_span_serialization_methods(Tracer.SpanLoggingRepresentation serializationOption) {
@@ -1700,6 +2095,9 @@ public class TracerTest {
             case KEY_VALUE:
                 expectedOutput = span.toKeyValueString();
                 break;
+            case BINARY:
+                expectedOutput = SpanBinaryCodec.toBase64(span);
+                break;
             default:
                 throw new IllegalArgumentException("Unhandled option: " + serializationOption);
         }
@@ -1994,6 +2392,116 @@ public class TracerTest {
         assertThat(Tracer.getInstance().getSpanFieldsForLoggerMdc()).isEmpty();
     }
 
+    @Test
+    public void disableLoggerMdc_stops_span_fields_from_being_put_into_the_MDC() {
+        // given
+        Tracer.getInstance().disableLoggerMdc();
+
+        // when
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span subSpan = Tracer.getInstance().startSubSpan("sub", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(Tracer.getInstance().getSpanFieldsForLoggerMdc()).isEmpty();
+        assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(subSpan);
+        assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isNull();
+
+        // and when
+        Tracer.getInstance().completeSubSpan();
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc.TRACE_ID);
+        Span secondSubSpan = Tracer.getInstance().startSubSpan("sub2", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isEqualTo(rootSpan.getTraceId());
+        assertThat(secondSubSpan.getTraceId()).isEqualTo(rootSpan.getTraceId());
+    }
+
+    @Test
+    public void configureMDC_only_writes_span_fields_that_changed() {
+        // given
+        LogbackMDCAdapter mdcAdapter = (LogbackMDCAdapter) MDC.getMDCAdapter();
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        // Logback copies its MDC map on the first write after a read, so if the map instance doesn't change across
+        //      a read then nothing was written.
+        Map<String, String> mdcMapBefore = mdcAdapter.getPropertyMap();
+
+        // when
+        Tracer.getInstance().startSubSpan("sub", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().completeSubSpan();
+
+        // then
+        assertThat(mdcAdapter.getPropertyMap()).isSameAs(mdcMapBefore);
+        assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isEqualTo(rootSpan.getTraceId());
+
+        // and when
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc.TRACE_ID, SpanFieldForLoggerMdc.SPAN_ID);
+        Span subSpan = Tracer.getInstance().startSubSpan("sub2", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(mdcAdapter.getPropertyMap()).isNotSameAs(mdcMapBefore);
+        assertThat(MDC.get(SpanFieldForLoggerMdc.SPAN_ID.mdcKey)).isEqualTo(subSpan.getSpanId());
+    }
+
+    @Test
+    public void configureMDC_rewrites_span_fields_that_were_changed_by_something_else() {
+        // given
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        MDC.clear();
+
+        // when
+        Tracer.getInstance().startSubSpan("sub", SpanPurpose.LOCAL_ONLY);
+
+        // then
+        assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isEqualTo(rootSpan.getTraceId());
+
+        // and when
+        MDC.put(SpanFieldForLoggerMdc.TRACE_ID.mdcKey, "not-the-trace-id");
+        Tracer.getInstance().completeSubSpan();
+
+        // then
+        assertThat(MDC.get(SpanFieldForLoggerMdc.TRACE_ID.mdcKey)).isEqualTo(rootSpan.getTraceId());
+    }
+
+    @Test
+    public void configureMDC_removes_null_span_fields_and_fields_that_are_no_longer_configured() {
+        // given
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(
+            SpanFieldForLoggerMdc.TRACE_ID, SpanFieldForLoggerMdc.SPAN_ID, SpanFieldForLoggerMdc.PARENT_SPAN_ID
+        );
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().startSubSpan("sub", SpanPurpose.LOCAL_ONLY);
+        assertThat(MDC.get(SpanFieldForLoggerMdc.PARENT_SPAN_ID.mdcKey)).isEqualTo(rootSpan.getSpanId());
+
+        // when
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc.TRACE_ID, SpanFieldForLoggerMdc.PARENT_SPAN_ID);
+        Tracer.getInstance().completeSubSpan();
+
+        // then
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(
+            singletonMap(SpanFieldForLoggerMdc.TRACE_ID.mdcKey, rootSpan.getTraceId())
+        );
+    }
+
+    @Test
+    public void unconfigureMDC_removes_span_fields_written_before_they_were_unconfigured_unless_changed_since() {
+        // given
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(
+            SpanFieldForLoggerMdc.TRACE_ID, SpanFieldForLoggerMdc.SPAN_ID, SpanFieldForLoggerMdc.PARENT_SPAN_ID
+        );
+        Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().startSubSpan("sub", SpanPurpose.LOCAL_ONLY);
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc.TRACE_ID);
+        MDC.put(SpanFieldForLoggerMdc.PARENT_SPAN_ID.mdcKey, "someone-elses-value");
+
+        // when
+        Tracer.getInstance().unregisterFromThread();
+
+        // then
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(
+            singletonMap(SpanFieldForLoggerMdc.PARENT_SPAN_ID.mdcKey, "someone-elses-value")
+        );
+    }
+
     @Test
     public void getSpanFieldsForLoggerMdc_returns_unmodifiable_Set() {
         // given
@@ -2010,6 +2518,43 @@ public class TracerTest {
         assertThat(ex3).isInstanceOf(UnsupportedOperationException.class);
     }
 
+    @Test
+    public void completed_sampleable_spans_are_handed_to_the_span_sink_when_one_is_set() {
+        // given
+        SpanSink sink = mock(SpanSink.class);
+        SpanLifecycleListener listener = mock(SpanLifecycleListener.class);
+        Tracer.getInstance().addSpanLifecycleListener(listener);
+        Tracer.getInstance().setSpanSink(sink);
+        Span root = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span child = Tracer.getInstance().startSubSpan("child", SpanPurpose.LOCAL_ONLY);
+
+        // when
+        // Completing the request span with the child still on the stack marks the child as having incorrect timing.
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        assertThat(Tracer.getInstance().getSpanSink()).isSameAs(sink);
+        verify(sink).spanCompleted(child, true);
+        verify(sink).spanCompleted(root, false);
+        verify(listener).spanCompleted(child);
+        verify(listener).spanCompleted(root);
+    }
+
+    @Test
+    public void non_sampleable_spans_are_not_handed_to_the_span_sink() {
+        // given
+        SpanSink sink = mock(SpanSink.class);
+        Tracer.getInstance().setSpanSink(sink);
+        Tracer.getInstance().setRootSpanSamplingStrategy(() -> false);
+
+        // when
+        Tracer.getInstance().startRequestWithRootSpan("root");
+        Tracer.getInstance().completeRequestSpan();
+
+        // then
+        verify(sink, never()).spanCompleted(any(Span.class), anyBoolean());
+    }
+
     @Test
     public void make_code_coverage_happy1() {
         // Some code coverage tools force you to exercise valueOf() (for example) or you get uncovered lines.
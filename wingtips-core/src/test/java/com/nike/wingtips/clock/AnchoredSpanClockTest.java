@@ -0,0 +1,161 @@
+package com.nike.wingtips.clock;
+
+import com.nike.wingtips.clock.AnchoredSpanClock.Anchor;
+import com.nike.wingtips.testutil.Whitebox;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link AnchoredSpanClock}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class AnchoredSpanClockTest {
+
+    @Test
+    public void default_constructor_uses_default_settings() {
+        // when
+        AnchoredSpanClock clock = new AnchoredSpanClock();
+
+        // then
+        assertThat(clock.getDriftCheckIntervalNanos())
+            .isEqualTo(AnchoredSpanClock.DEFAULT_DRIFT_CHECK_INTERVAL_NANOS);
+        assertThat(clock.getDriftToleranceMicros()).isEqualTo(AnchoredSpanClock.DEFAULT_DRIFT_TOLERANCE_MICROS);
+    }
+
+    @DataProvider(value = {
+        "0  |   0   |   driftCheckIntervalNanos must be greater than 0",
+        "-1 |   0   |   driftCheckIntervalNanos must be greater than 0",
+        "1  |   -1  |   driftToleranceMicros cannot be negative",
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        long driftCheckIntervalNanos, long driftToleranceMicros, String expectedMessage
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new AnchoredSpanClock(driftCheckIntervalNanos, driftToleranceMicros));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(expectedMessage);
+    }
+
+    @Test
+    public void currentTimeEpochMicros_tracks_wall_clock() {
+        // given
+        AnchoredSpanClock clock = new AnchoredSpanClock();
+
+        // when
+        long beforeMillis = System.currentTimeMillis();
+        long result = clock.currentTimeEpochMicros();
+        long afterMillis = System.currentTimeMillis();
+
+        // then
+        // The wall clock and nanoTime are separate clock sources, and on a loaded or virtualized machine they can
+        //      disagree by more than the wall clock's millisecond resolution plus the drift tolerance over a short
+        //      window. This test only cares that the result is anchored to the wall clock, so use a generous margin.
+        long slopMicros = TimeUnit.MILLISECONDS.toMicros(50);
+        assertThat(result).isBetween(
+            TimeUnit.MILLISECONDS.toMicros(beforeMillis) - slopMicros,
+            TimeUnit.MILLISECONDS.toMicros(afterMillis) + slopMicros
+        );
+    }
+
+    @Test
+    public void toEpochMicros_has_microsecond_resolution_relative_to_nanoTime() {
+        // given
+        AnchoredSpanClock clock = new AnchoredSpanClock();
+        long nanoTime = clock.nanoTime();
+
+        // when
+        long base = clock.toEpochMicros(nanoTime);
+        long plus1500Nanos = clock.toEpochMicros(nanoTime + 1500);
+        long plus42Micros = clock.toEpochMicros(nanoTime + TimeUnit.MICROSECONDS.toNanos(42));
+
+        // then
+        assertThat(plus1500Nanos - base).isBetween(1L, 2L);
+        assertThat(plus42Micros - base).isEqualTo(42);
+    }
+
+    @Test
+    public void drift_check_keeps_anchor_when_within_tolerance() {
+        // given
+        long checkNanoTime = System.nanoTime();
+        AnchoredSpanClock clock = new AnchoredSpanClock(1, AnchoredSpanClock.DEFAULT_DRIFT_TOLERANCE_MICROS) {
+            @Override
+            protected long wallClockEpochMicros() {
+                // Pretend the wall clock agrees with the anchor (to the millisecond) so the result is deterministic.
+                Anchor currentAnchor = (Anchor) Whitebox.getInternalState(this, "anchor");
+                long derivedMicros = currentAnchor.toEpochMicros(checkNanoTime);
+                return derivedMicros - (derivedMicros % 1000);
+            }
+        };
+        Anchor origAnchor = new Anchor(1_000_000_000L, checkNanoTime - 5000, checkNanoTime - 5000);
+        Whitebox.setInternalState(clock, "anchor", origAnchor);
+
+        // when
+        long result = clock.toEpochMicros(checkNanoTime);
+
+        // then
+        // The anchor's mapping stays the same (no jitter), but the drift check time moves forward.
+        Anchor newAnchor = (Anchor) Whitebox.getInternalState(clock, "anchor");
+        assertThat(newAnchor).isNotSameAs(origAnchor);
+        assertThat(newAnchor.anchorEpochMicros).isEqualTo(origAnchor.anchorEpochMicros);
+        assertThat(newAnchor.anchorNanoTime).isEqualTo(origAnchor.anchorNanoTime);
+        assertThat(newAnchor.lastDriftCheckNanoTime).isEqualTo(checkNanoTime);
+        assertThat(result).isEqualTo(origAnchor.toEpochMicros(checkNanoTime));
+    }
+
+    @DataProvider(value = {
+        "-5000",
+        "5000"
+    })
+    @Test
+    public void drift_check_reanchors_to_wall_clock_when_drift_exceeds_tolerance(long driftMicros) {
+        // given
+        AnchoredSpanClock clock = new AnchoredSpanClock(1, 0);
+        long nanoTime = clock.nanoTime();
+        // Install an anchor that is wildly off from the wall clock.
+        long wallClockMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        Anchor driftedAnchor = new Anchor(wallClockMicros + driftMicros, nanoTime, nanoTime);
+        Whitebox.setInternalState(clock, "anchor", driftedAnchor);
+
+        // when
+        long checkNanoTime = nanoTime + 10;
+        long beforeMillis = System.currentTimeMillis();
+        long result = clock.toEpochMicros(checkNanoTime);
+        long afterMillis = System.currentTimeMillis();
+
+        // then
+        Anchor newAnchor = (Anchor) Whitebox.getInternalState(clock, "anchor");
+        assertThat(newAnchor.anchorNanoTime).isEqualTo(checkNanoTime);
+        assertThat(newAnchor.lastDriftCheckNanoTime).isEqualTo(checkNanoTime);
+        assertThat(result).isBetween(
+            TimeUnit.MILLISECONDS.toMicros(beforeMillis), TimeUnit.MILLISECONDS.toMicros(afterMillis)
+        );
+    }
+
+    @Test
+    public void drift_check_is_not_performed_before_interval_elapses() {
+        // given
+        AnchoredSpanClock clock = new AnchoredSpanClock(TimeUnit.HOURS.toNanos(1), 0);
+        Anchor origAnchor = (Anchor) Whitebox.getInternalState(clock, "anchor");
+
+        // when
+        clock.toEpochMicros(origAnchor.anchorNanoTime + TimeUnit.MINUTES.toNanos(1));
+
+        // then
+        assertThat(Whitebox.getInternalState(clock, "anchor")).isSameAs(origAnchor);
+    }
+}
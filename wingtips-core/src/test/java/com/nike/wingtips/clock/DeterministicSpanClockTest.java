@@ -0,0 +1,105 @@
+package com.nike.wingtips.clock;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+import com.nike.wingtips.Tracer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link DeterministicSpanClock}, and the {@link SpanClock} global clock handling.
+ *
+ * @author Nic Munroe
+ */
+public class DeterministicSpanClockTest {
+
+    private SpanClock origGlobalClock;
+
+    @Before
+    public void beforeMethod() {
+        origGlobalClock = SpanClock.getGlobalClock();
+    }
+
+    @After
+    public void afterMethod() {
+        SpanClock.setGlobalClock(origGlobalClock);
+    }
+
+    @Test
+    public void global_clock_defaults_to_AnchoredSpanClock() {
+        // expect
+        assertThat(SpanClock.getGlobalClock()).isInstanceOf(AnchoredSpanClock.class);
+    }
+
+    @Test
+    public void setGlobalClock_throws_IllegalArgumentException_if_passed_null() {
+        // when
+        Throwable ex = catchThrowable(() -> SpanClock.setGlobalClock(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("clock cannot be null");
+    }
+
+    @Test
+    public void clock_only_moves_when_told_to() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(1000, 42);
+
+        // expect
+        assertThat(clock.nanoTime()).isEqualTo(42);
+        assertThat(clock.currentTimeEpochMicros()).isEqualTo(1000);
+
+        // and when
+        long newNanoTime = clock.advance(1500, TimeUnit.MICROSECONDS);
+
+        // then
+        assertThat(newNanoTime).isEqualTo(42 + 1_500_000);
+        assertThat(clock.nanoTime()).isEqualTo(newNanoTime);
+        assertThat(clock.currentTimeEpochMicros()).isEqualTo(2500);
+
+        // and when
+        clock.setNanoTime(42 + 7000);
+
+        // then
+        assertThat(clock.currentTimeEpochMicros()).isEqualTo(1007);
+    }
+
+    @Test
+    public void spans_use_global_clock_for_start_time_annotations_and_duration() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(1_000_000, 0);
+        SpanClock.setGlobalClock(clock);
+
+        // when
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+        clock.advance(250, TimeUnit.MICROSECONDS);
+        span.addTimestampedAnnotationForCurrentTime("someEvent");
+        TimestampedAnnotation standaloneAnnotation = TimestampedAnnotation.forCurrentTime("standalone");
+        clock.advance(100, TimeUnit.MICROSECONDS);
+        Span child = span.generateChildSpan("child", SpanPurpose.LOCAL_ONLY);
+        clock.advance(650, TimeUnit.MICROSECONDS);
+        Tracer.getInstance().startRequestWithSpanInfo(
+            span.getTraceId(), null, "dummy", true, null, SpanPurpose.LOCAL_ONLY
+        );
+        Tracer.getInstance().completeRequestSpan();
+        span.close();
+
+        // then
+        assertThat(span.getSpanStartTimeEpochMicros()).isEqualTo(1_000_000);
+        assertThat(span.getSpanStartTimeNanos()).isEqualTo(0);
+        assertThat(span.getTimestampedAnnotations().get(0).getTimestampEpochMicros()).isEqualTo(1_000_250);
+        assertThat(standaloneAnnotation.getTimestampEpochMicros()).isEqualTo(1_000_250);
+        assertThat(child.getSpanStartTimeEpochMicros()).isEqualTo(1_000_350);
+        assertThat(span.getDurationNanos()).isEqualTo(TimeUnit.MICROSECONDS.toNanos(1000));
+    }
+}
@@ -0,0 +1,50 @@
+package com.nike.wingtips.clock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link SystemSpanClock}.
+ *
+ * @author Nic Munroe
+ */
+public class SystemSpanClockTest {
+
+    private final SystemSpanClock clock = SystemSpanClock.INSTANCE;
+
+    @Test
+    public void currentTimeEpochMicros_uses_currentTimeMillis() {
+        // when
+        long beforeMillis = System.currentTimeMillis();
+        long result = clock.currentTimeEpochMicros();
+        long afterMillis = System.currentTimeMillis();
+
+        // then
+        assertThat(result % 1000).isEqualTo(0);
+        assertThat(result).isBetween(
+            TimeUnit.MILLISECONDS.toMicros(beforeMillis), TimeUnit.MILLISECONDS.toMicros(afterMillis)
+        );
+    }
+
+    @Test
+    public void toEpochMicros_backs_out_elapsed_time_since_given_nanoTime() {
+        // given
+        long nanoTime = clock.nanoTime() - TimeUnit.SECONDS.toNanos(10);
+
+        // when
+        long beforeMillis = System.currentTimeMillis();
+        long result = clock.toEpochMicros(nanoTime);
+        long afterMillis = System.currentTimeMillis();
+
+        // then
+        long tenSecondsMicros = TimeUnit.SECONDS.toMicros(10);
+        // Give a millisecond of slop on the low end to account for time passing between the nanoTime calls.
+        assertThat(result).isBetween(
+            TimeUnit.MILLISECONDS.toMicros(beforeMillis - 1) - tenSecondsMicros,
+            TimeUnit.MILLISECONDS.toMicros(afterMillis) - tenSecondsMicros
+        );
+    }
+}
@@ -4,12 +4,16 @@ import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.TraceAndSpanIdGenerator;
 import com.nike.wingtips.TraceHeaders;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
+import com.nike.wingtips.sampling.TraceIdHashSamplingStrategy;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -66,6 +70,11 @@ public class HttpRequestTracingUtilsTest {
         httpObjectForPropagationMock = mock(HttpObjectForPropagation.class);
     }
 
+    @After
+    public void afterMethod() {
+        Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+    }
+
     @Test
     public void constructor_is_private() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
         Constructor<HttpRequestTracingUtils> defaultConstructor = HttpRequestTracingUtils.class.getDeclaredConstructor();
@@ -250,6 +259,51 @@ public class HttpRequestTracingUtilsTest {
         assertThat(newSpan.isSampleable()).isTrue();
     }
 
+    @Test
+    public void fromRequestWithHeaders_asks_the_root_span_sampling_strategy_about_the_received_trace_id_if_sampled_header_is_missing() {
+        // given: a trace ID aware strategy, and requests with a trace ID but no TRACE_SAMPLED header or attribute
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(0.5);
+        Tracer.getInstance().setRootSpanSamplingStrategy(strategy);
+        int numSampled = 0;
+        int numNotSampled = 0;
+
+        for (int i = 0; i < 100; i++) {
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+            given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(traceId);
+            given(request.getHeader(TraceHeaders.TRACE_SAMPLED)).willReturn(null);
+            given(request.getAttribute(TraceHeaders.TRACE_SAMPLED)).willReturn(null);
+
+            // when: creating the span from the request
+            Span newSpan = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+
+            // then: the span gets the same decision the strategy makes for the trace ID anywhere else
+            assertThat(newSpan.isSampleable()).isEqualTo(strategy.isTraceIdSampleable(traceId));
+            if (newSpan.isSampleable()) {
+                numSampled++;
+            }
+            else {
+                numNotSampled++;
+            }
+        }
+
+        assertThat(numSampled).isGreaterThan(0);
+        assertThat(numNotSampled).isGreaterThan(0);
+    }
+
+    @Test
+    public void fromRequestWithHeaders_does_not_ask_the_root_span_sampling_strategy_if_sampled_header_is_present() {
+        // given: a strategy that never samples, and a request that says it's sampled
+        Tracer.getInstance().setRootSpanSamplingStrategy(new TraceIdHashSamplingStrategy(0));
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(sampleTraceID);
+        given(request.getHeader(TraceHeaders.TRACE_SAMPLED)).willReturn("1");
+
+        // when: creating the span from the request
+        Span newSpan = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+
+        // then: the caller's decision wins
+        assertThat(newSpan.isSampleable()).isTrue();
+    }
+
     @Test
     public void fromRequestWithHeaders_sets_sampleable_to_attribute_value_if_sampled_header_is_missing_but_attribute_exists() {
         // given: request where the header for TRACE_SAMPLED returns null but the attribute returns false
@@ -668,4 +722,23 @@ public class HttpRequestTracingUtilsTest {
         assertThat(result).isEqualTo(expectedResult);
     }
 
+
+    @Test
+    public void fromRequestWithHeaders_and_propagateTracingHeaders_carry_128_bit_trace_ids_end_to_end() {
+        // given
+        String traceId128 = TraceAndSpanIdGenerator.generate128BitId();
+        given(request.getHeader(TraceHeaders.TRACE_ID)).willReturn(traceId128);
+        given(request.getHeader(TraceHeaders.SPAN_ID)).willReturn(sampleSpanID);
+
+        // when
+        Span spanFromHeaders = HttpRequestTracingUtils.fromRequestWithHeaders(request, USER_ID_HEADER_KEYS);
+        Span childSpan = spanFromHeaders.generateChildSpan("child", SpanPurpose.CLIENT);
+        HttpRequestTracingUtils.propagateTracingHeaders(httpObjectForPropagationMock, childSpan);
+
+        // then
+        assertThat(spanFromHeaders.getTraceId()).isEqualTo(traceId128);
+        assertThat(childSpan.getTraceId()).isEqualTo(traceId128);
+        assertThat(childSpan.getSpanId()).hasSize(16);
+        verify(httpObjectForPropagationMock).setHeader(TRACE_ID, traceId128);
+    }
 }
@@ -0,0 +1,68 @@
+package com.nike.wingtips.idgen;
+
+import com.nike.wingtips.testutil.Whitebox;
+
+import org.junit.Test;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link SharedSecureRandomIdGenerator}.
+ *
+ * @author Nic Munroe
+ */
+public class SharedSecureRandomIdGeneratorTest {
+
+    @Test
+    public void uses_SHA1PRNG_SecureRandom() {
+        // given
+        SharedSecureRandomIdGenerator generator = new SharedSecureRandomIdGenerator();
+
+        // when
+        generator.generate64BitRandomLong();
+
+        // then
+        Object random = Whitebox.getInternalState(generator, "random");
+        assertThat(random).isInstanceOf(SecureRandom.class);
+        assertThat(((SecureRandom) random).getAlgorithm()).isEqualTo("SHA1PRNG");
+    }
+
+    @Test
+    public void SecureRandom_is_created_lazily_on_first_use() {
+        // when
+        SharedSecureRandomIdGenerator generator = new SharedSecureRandomIdGenerator();
+
+        // then
+        assertThat(generator.isInitialized()).isFalse();
+        assertThat(Whitebox.getInternalState(generator, "random")).isNull();
+
+        // and when
+        generator.generate64BitRandomLong();
+        Object random = Whitebox.getInternalState(generator, "random");
+        generator.generate64BitRandomLong();
+
+        // then
+        assertThat(generator.isInitialized()).isTrue();
+        assertThat(Whitebox.getInternalState(generator, "random")).isNotNull().isSameAs(random);
+    }
+
+    @Test
+    public void generate64BitRandomLong_should_not_generate_duplicates_over_reasonable_number_of_attempts() {
+        // given
+        SharedSecureRandomIdGenerator generator = new SharedSecureRandomIdGenerator();
+        Set<Long> values = new HashSet<>();
+        int numAttempts = 100_000;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            values.add(generator.generate64BitRandomLong());
+        }
+
+        // then
+        assertThat(values).hasSize(numAttempts);
+    }
+}
@@ -0,0 +1,132 @@
+package com.nike.wingtips.idgen;
+
+import com.nike.wingtips.testutil.Whitebox;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link StripedSecureRandomIdGenerator}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class StripedSecureRandomIdGeneratorTest {
+
+    @Test
+    public void default_constructor_creates_two_stripes_per_processor() {
+        // when
+        StripedSecureRandomIdGenerator generator = new StripedSecureRandomIdGenerator();
+
+        // then
+        assertThat(generator.getNumStripes()).isEqualTo(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    @Test
+    public void stripes_are_SHA1PRNG_SecureRandoms() throws InterruptedException {
+        // given
+        StripedSecureRandomIdGenerator generator = new StripedSecureRandomIdGenerator(3);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread(generator::generate64BitRandomLong);
+            thread.start();
+            thread.join();
+        }
+
+        // then
+        AtomicReferenceArray<?> stripes = (AtomicReferenceArray<?>) Whitebox.getInternalState(generator, "stripes");
+        assertThat(stripes.length()).isEqualTo(3);
+        for (int i = 0; i < stripes.length(); i++) {
+            Object stripe = stripes.get(i);
+            assertThat(stripe).isInstanceOf(SecureRandom.class);
+            assertThat(((SecureRandom) stripe).getAlgorithm()).isEqualTo("SHA1PRNG");
+        }
+    }
+
+    @Test
+    public void stripes_are_created_lazily_on_first_use() throws InterruptedException {
+        // when
+        StripedSecureRandomIdGenerator generator = new StripedSecureRandomIdGenerator(4);
+
+        // then
+        assertThat(generator.getNumInitializedStripes()).isEqualTo(0);
+
+        // and when
+        generator.generate64BitRandomLong();
+        generator.generate64BitRandomLong();
+
+        // then
+        assertThat(generator.getNumInitializedStripes()).isEqualTo(1);
+
+        // and when
+        Thread otherThread = new Thread(generator::generate64BitRandomLong);
+        otherThread.start();
+        otherThread.join();
+
+        // then
+        assertThat(generator.getNumInitializedStripes()).isEqualTo(2);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_numStripes(int numStripes) {
+        // when
+        Throwable ex = catchThrowable(() -> new StripedSecureRandomIdGenerator(numStripes));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("numStripes must be greater than 0");
+    }
+
+    @Test
+    public void generate64BitRandomLong_should_not_generate_duplicates_over_reasonable_number_of_attempts() {
+        // given
+        StripedSecureRandomIdGenerator generator = new StripedSecureRandomIdGenerator(2);
+        Set<Long> values = new HashSet<>();
+        int numAttempts = 100_000;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            values.add(generator.generate64BitRandomLong());
+        }
+
+        // then
+        assertThat(values).hasSize(numAttempts);
+    }
+
+    @Test
+    public void threads_are_assigned_stripes_round_robin() throws InterruptedException {
+        // given
+        StripedSecureRandomIdGenerator generator = new StripedSecureRandomIdGenerator(2);
+        generator.generate64BitRandomLong();
+        AtomicInteger nextStripeIndex = (AtomicInteger) Whitebox.getInternalState(generator, "nextStripeIndex");
+        assertThat(nextStripeIndex.get()).isEqualTo(1);
+
+        // when
+        Thread otherThread = new Thread(generator::generate64BitRandomLong);
+        otherThread.start();
+        otherThread.join();
+        generator.generate64BitRandomLong();
+
+        // then
+        // The original thread kept its stripe, and the new thread was assigned the next one.
+        assertThat(nextStripeIndex.get()).isEqualTo(2);
+    }
+}
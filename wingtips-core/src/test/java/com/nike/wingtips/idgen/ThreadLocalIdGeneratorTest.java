@@ -0,0 +1,136 @@
+package com.nike.wingtips.idgen;
+
+import com.nike.wingtips.testutil.Whitebox;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the functionality of {@link ThreadLocalIdGenerator}.
+ *
+ * @author Nic Munroe
+ */
+public class ThreadLocalIdGeneratorTest {
+
+    private final ThreadLocalIdGenerator generator = ThreadLocalIdGenerator.INSTANCE;
+
+    @Test
+    public void generate64BitRandomLong_should_not_generate_duplicates_over_reasonable_number_of_attempts() {
+        // given
+        Set<Long> values = new HashSet<>();
+        int numAttempts = 100_000;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            values.add(generator.generate64BitRandomLong());
+        }
+
+        // then
+        assertThat(values).hasSize(numAttempts);
+    }
+
+    @Test
+    public void generate64BitRandomLong_covers_the_full_64_bit_space() {
+        // given
+        long orOfAllValues = 0;
+        boolean sawNegative = false;
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            long value = generator.generate64BitRandomLong();
+            orOfAllValues |= value;
+            sawNegative |= (value < 0);
+        }
+
+        // then
+        assertThat(orOfAllValues).isEqualTo(-1L);
+        assertThat(sawNegative).isTrue();
+    }
+
+    @Test
+    public void different_threads_generate_different_sequences() throws Exception {
+        // given
+        int numThreads = 8;
+        int numPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+
+        // when
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() {
+                        List<Long> result = new ArrayList<>(numPerThread);
+                        for (int j = 0; j < numPerThread; j++) {
+                            result.add(generator.generate64BitRandomLong());
+                        }
+                        return result;
+                    }
+                }));
+            }
+
+            Set<Long> allValues = Collections.synchronizedSet(new HashSet<>());
+            for (Future<List<Long>> future : futures) {
+                allValues.addAll(future.get());
+            }
+
+            // then
+            assertThat(allValues).hasSize(numThreads * numPerThread);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void mixInSecureRandomEntropy_changes_the_shared_seed() {
+        // given
+        AtomicLong seeder = (AtomicLong) Whitebox.getInternalState(generator, "SEEDER");
+        long origSeed = seeder.get();
+
+        // when
+        ThreadLocalIdGenerator.mixInSecureRandomEntropy();
+
+        // then
+        assertThat(seeder.get()).isNotEqualTo(origSeed);
+    }
+
+    @Test
+    public void readNonBlockingOsEntropy_returns_random_values_on_unix_like_hosts() {
+        // given
+        assumeTrue(new File("/dev/urandom").canRead());
+
+        // when
+        long first = ThreadLocalIdGenerator.readNonBlockingOsEntropy();
+        long second = ThreadLocalIdGenerator.readNonBlockingOsEntropy();
+
+        // then
+        // The odds of a legitimate zero or repeat from 64 random bits are negligible.
+        assertThat(first).isNotZero();
+        assertThat(second).isNotZero();
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    public void mix64_matches_SplittableRandom_finalizer() {
+        // expect
+        // Reference values from the SplitMix64 algorithm: seed 0 followed by two golden gamma increments.
+        assertThat(ThreadLocalIdGenerator.mix64(0x9e3779b97f4a7c15L)).isEqualTo(0xe220a8397b1dcdafL);
+        assertThat(ThreadLocalIdGenerator.mix64(0x9e3779b97f4a7c15L * 2)).isEqualTo(0x6e789e6aa1b965f4L);
+    }
+}
@@ -0,0 +1,317 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.clock.DeterministicSpanClock;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link AdaptiveSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class AdaptiveSamplingStrategyTest {
+
+    private DeterministicSpanClock clock;
+    private FakeExporterBackpressure backpressure;
+    private Span sampledSpan;
+    private Span unsampledSpan;
+
+    @Before
+    public void beforeMethod() {
+        clock = new DeterministicSpanClock(0, 0);
+        backpressure = new FakeExporterBackpressure();
+        sampledSpan = Span.newBuilder("sampled", SpanPurpose.LOCAL_ONLY).withSampleable(true).build();
+        unsampledSpan = Span.newBuilder("unsampled", SpanPurpose.LOCAL_ONLY).withSampleable(false).build();
+    }
+
+    private AdaptiveSamplingStrategy.Builder builder(double target) {
+        // No smoothing by default so each adjustment is easy to reason about.
+        return AdaptiveSamplingStrategy.newBuilder(target).withClock(clock).withSmoothingFactor(1.0);
+    }
+
+    private void completeSpans(AdaptiveSamplingStrategy strategy, Span span, int count) {
+        for (int i = 0; i < count; i++) {
+            strategy.spanCompleted(span);
+        }
+    }
+
+    private void advanceToNextAdjustment(AdaptiveSamplingStrategy strategy) {
+        clock.advance(1, TimeUnit.SECONDS);
+        strategy.isNextRootSpanSampleable();
+    }
+
+    @Test
+    public void builder_defaults_are_used() {
+        // when
+        AdaptiveSamplingStrategy strategy = AdaptiveSamplingStrategy.newBuilder(42).build();
+
+        // then
+        assertThat(strategy.getTargetSpansPerSecond()).isEqualTo(42);
+        assertThat(strategy.getCurrentProbability()).isEqualTo(AdaptiveSamplingStrategy.DEFAULT_INITIAL_PROBABILITY);
+        assertThat(strategy.getSmoothedSpansPerSecond()).isNegative();
+    }
+
+    @Test
+    public void probability_is_not_adjusted_before_interval_elapses() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(10).build();
+        completeSpans(strategy, sampledSpan, 1000);
+
+        // when
+        clock.advance(999, TimeUnit.MILLISECONDS);
+        strategy.isNextRootSpanSampleable();
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void probability_decreases_when_completion_rate_exceeds_target() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(100).build();
+        completeSpans(strategy, sampledSpan, 400);
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getSmoothedSpansPerSecond()).isCloseTo(400, within(0.001));
+        assertThat(strategy.getCurrentProbability()).isCloseTo(0.25, within(0.0001));
+    }
+
+    @Test
+    public void only_sampled_spans_count_toward_the_completion_rate() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(100).build();
+        completeSpans(strategy, unsampledSpan, 1000);
+        completeSpans(strategy, sampledSpan, 200);
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isCloseTo(0.5, within(0.0001));
+    }
+
+    @Test
+    public void probability_increases_when_under_target_but_at_most_doubles_per_interval() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(100).withInitialProbability(0.1).build();
+        completeSpans(strategy, sampledSpan, 10);
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isCloseTo(0.2, within(0.0001));
+
+        // and when
+        completeSpans(strategy, sampledSpan, 80);
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isCloseTo(0.25, within(0.0001));
+    }
+
+    @Test
+    public void probability_never_exceeds_one_or_drops_below_min() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(1).withMinProbability(0.05).build();
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isEqualTo(1.0);
+
+        // and when
+        completeSpans(strategy, sampledSpan, 1_000_000);
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isEqualTo(0.05);
+    }
+
+    @Test
+    public void smoothing_blends_observed_rate_with_history() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(1000).withSmoothingFactor(0.5).build();
+        completeSpans(strategy, sampledSpan, 100);
+        advanceToNextAdjustment(strategy);
+
+        // when
+        completeSpans(strategy, sampledSpan, 300);
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getSmoothedSpansPerSecond()).isCloseTo(200, within(0.001));
+    }
+
+    @Test
+    public void dropped_spans_cut_probability_in_half_even_when_under_target() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(1000)
+            .withInitialProbability(0.8)
+            .withExporterBackpressure(backpressure)
+            .build();
+        completeSpans(strategy, sampledSpan, 100);
+        backpressure.droppedSpanCount = 5;
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isCloseTo(0.4, within(0.0001));
+
+        // and when
+        completeSpans(strategy, sampledSpan, 100);
+        advanceToNextAdjustment(strategy);
+
+        // then
+        // No new drops, so it's free to grow again.
+        assertThat(strategy.getCurrentProbability()).isCloseTo(0.8, within(0.0001));
+    }
+
+    @Test
+    public void drops_that_happened_before_construction_are_ignored() {
+        // given
+        backpressure.droppedSpanCount = 500;
+        AdaptiveSamplingStrategy strategy = builder(1000)
+            .withInitialProbability(0.5)
+            .withExporterBackpressure(backpressure)
+            .build();
+        completeSpans(strategy, sampledSpan, 100);
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isCloseTo(1.0, within(0.0001));
+    }
+
+    @DataProvider(value = {
+        "-1.0   |   1.0",
+        "0.0    |   1.0",
+        "0.5    |   1.0",
+        "0.75   |   0.25",
+        "0.9    |   0.1",
+        "1.0    |   0.01",
+    }, splitBy = "\\|")
+    @Test
+    public void queue_utilization_above_half_scales_probability_down(
+        double queueUtilization, double expectedProbability
+    ) {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(1000)
+            .withInitialProbability(0.5)
+            .withMinProbability(0.01)
+            .withExporterBackpressure(backpressure)
+            .build();
+        completeSpans(strategy, sampledSpan, 500);
+        backpressure.queueUtilization = queueUtilization;
+
+        // when
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getCurrentProbability()).isCloseTo(expectedProbability, within(0.0001));
+    }
+
+    @Test
+    public void sampling_decisions_follow_the_current_probability() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(100).withInitialProbability(0.1).build();
+        int numAttempts = 100_000;
+        int numSampled = 0;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            if (strategy.isNextRootSpanSampleable()) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat(numSampled).isBetween(9_000, 11_000);
+    }
+
+    @Test
+    public void spanStarted_and_spanSampled_do_nothing() {
+        // given
+        AdaptiveSamplingStrategy strategy = builder(100).build();
+
+        // when
+        strategy.spanStarted(sampledSpan);
+        strategy.spanSampled(sampledSpan);
+        advanceToNextAdjustment(strategy);
+
+        // then
+        assertThat(strategy.getSmoothedSpansPerSecond()).isEqualTo(0);
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1",
+        "NaN"
+    })
+    @Test
+    public void newBuilder_throws_IllegalArgumentException_for_invalid_target(double target) {
+        // when
+        Throwable ex = catchThrowable(() -> AdaptiveSamplingStrategy.newBuilder(target));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("targetSpansPerSecond must be greater than 0. Invalid targetSpansPerSecond: " + target);
+    }
+
+    @Test
+    public void builder_validates_arguments() {
+        // given
+        AdaptiveSamplingStrategy.Builder builder = AdaptiveSamplingStrategy.newBuilder(1);
+
+        // expect
+        assertThat(catchThrowable(() -> builder.withMinProbability(1.5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> builder.withInitialProbability(-0.5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> builder.withSmoothingFactor(0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("smoothingFactor must be greater than 0.0 and at most 1.0. Invalid smoothingFactor: 0.0");
+        assertThat(catchThrowable(() -> builder.withAdjustmentInterval(0, TimeUnit.SECONDS)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("interval must be greater than 0. Invalid interval: 0");
+        assertThat(catchThrowable(() -> builder.withAdjustmentInterval(1, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("timeUnit cannot be null");
+    }
+
+    private static class FakeExporterBackpressure implements ExporterBackpressure {
+        double queueUtilization = -1;
+        long droppedSpanCount = 0;
+
+        @Override
+        public double getQueueUtilization() {
+            return queueUtilization;
+        }
+
+        @Override
+        public long getDroppedSpanCount() {
+            return droppedSpanCount;
+        }
+    }
+}
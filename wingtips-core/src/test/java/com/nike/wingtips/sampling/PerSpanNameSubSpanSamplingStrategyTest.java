@@ -0,0 +1,123 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span.SpanPurpose;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link PerSpanNameSubSpanSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class PerSpanNameSubSpanSamplingStrategyTest {
+
+    private static final RootSpanSamplingStrategy NEVER = new ProbabilisticSamplingStrategy(0.0);
+    private static final RootSpanSamplingStrategy ALWAYS = new ProbabilisticSamplingStrategy(1.0);
+
+    @DataProvider(value = {
+        "serialize-item |   false",
+        "cache-lookup   |   true",
+        "Serialize-Item |   true",
+        "something-else |   true",
+        "null           |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void isSubSpanSampleable_uses_strategy_for_span_name_or_keeps_by_default(
+        String spanName, boolean expectedResult
+    ) {
+        // given
+        PerSpanNameSubSpanSamplingStrategy strategy = PerSpanNameSubSpanSamplingStrategy
+            .newBuilder()
+            .withSpanNameStrategy("serialize-item", NEVER)
+            .withSpanNameProbability("cache-lookup", 1.0)
+            .build();
+
+        // expect
+        assertThat(strategy.isSubSpanSampleable(spanName, SpanPurpose.LOCAL_ONLY)).isEqualTo(expectedResult);
+        assertThat(strategy.getDefaultStrategy()).isInstanceOf(SampleAllTheThingsStrategy.class);
+    }
+
+    @Test
+    public void isSubSpanSampleable_uses_default_strategy_for_unconfigured_span_names() {
+        // given
+        RootSpanSamplingStrategy defaultStrategy = mock(RootSpanSamplingStrategy.class);
+        doReturn(false).when(defaultStrategy).isNextRootSpanSampleable();
+        PerSpanNameSubSpanSamplingStrategy strategy = PerSpanNameSubSpanSamplingStrategy
+            .newBuilder()
+            .withDefaultStrategy(defaultStrategy)
+            .withSpanNameStrategy("important", ALWAYS)
+            .build();
+
+        // expect
+        assertThat(strategy.isSubSpanSampleable("important", SpanPurpose.CLIENT)).isTrue();
+        assertThat(strategy.isSubSpanSampleable("other", SpanPurpose.CLIENT)).isFalse();
+        verify(defaultStrategy, times(1)).isNextRootSpanSampleable();
+        assertThat(strategy.getDefaultStrategy()).isSameAs(defaultStrategy);
+    }
+
+    @Test
+    public void later_strategy_for_same_span_name_replaces_earlier_one() {
+        // given
+        PerSpanNameSubSpanSamplingStrategy strategy = PerSpanNameSubSpanSamplingStrategy
+            .newBuilder()
+            .withSpanNameStrategy("foo", ALWAYS)
+            .withSpanNameStrategy("foo", NEVER)
+            .build();
+
+        // expect
+        assertThat(strategy.isSubSpanSampleable("foo", SpanPurpose.LOCAL_ONLY)).isFalse();
+        assertThat(strategy.getStrategiesBySpanName()).hasSize(1).containsEntry("foo", NEVER);
+    }
+
+    @Test
+    public void getStrategiesBySpanName_is_unmodifiable_and_unaffected_by_later_builder_changes() {
+        // given
+        PerSpanNameSubSpanSamplingStrategy.Builder builder = PerSpanNameSubSpanSamplingStrategy
+            .newBuilder()
+            .withSpanNameStrategy("foo", NEVER);
+        PerSpanNameSubSpanSamplingStrategy strategy = builder.build();
+
+        // when
+        builder.withSpanNameStrategy("bar", NEVER);
+        Map<String, RootSpanSamplingStrategy> strategies = strategy.getStrategiesBySpanName();
+        Throwable ex = catchThrowable(() -> strategies.put("baz", NEVER));
+
+        // then
+        assertThat(strategies).containsOnlyKeys("foo");
+        assertThat(ex).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void builder_throws_IllegalArgumentException_for_invalid_args() {
+        // given
+        PerSpanNameSubSpanSamplingStrategy.Builder builder = PerSpanNameSubSpanSamplingStrategy.newBuilder();
+
+        // expect
+        assertThat(catchThrowable(() -> builder.withSpanNameStrategy(null, NEVER)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("spanName cannot be null");
+        assertThat(catchThrowable(() -> builder.withSpanNameStrategy("foo", null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("strategy cannot be null");
+        assertThat(catchThrowable(() -> builder.withDefaultStrategy(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("defaultStrategy cannot be null");
+        assertThat(catchThrowable(() -> builder.withSpanNameProbability("foo", 1.1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("probability must be between 0.0 and 1.0");
+    }
+}
@@ -0,0 +1,84 @@
+package com.nike.wingtips.sampling;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ProbabilisticSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class ProbabilisticSamplingStrategyTest {
+
+    @Test
+    public void probability_of_zero_never_samples() {
+        // given
+        ProbabilisticSamplingStrategy strategy = new ProbabilisticSamplingStrategy(0);
+
+        // expect
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(strategy.isNextRootSpanSampleable()).isFalse();
+        }
+    }
+
+    @Test
+    public void probability_of_one_always_samples() {
+        // given
+        ProbabilisticSamplingStrategy strategy = new ProbabilisticSamplingStrategy(1);
+
+        // expect
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(strategy.isNextRootSpanSampleable()).isTrue();
+        }
+    }
+
+    @DataProvider(value = {
+        "0.01",
+        "0.25",
+        "0.5",
+        "0.9"
+    })
+    @Test
+    public void samples_at_roughly_the_configured_probability(double probability) {
+        // given
+        ProbabilisticSamplingStrategy strategy = new ProbabilisticSamplingStrategy(probability);
+        int numAttempts = 200_000;
+        int numSampled = 0;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            if (strategy.isNextRootSpanSampleable()) {
+                numSampled++;
+            }
+        }
+
+        // then
+        double actualRate = ((double) numSampled) / numAttempts;
+        assertThat(actualRate).isBetween(probability * 0.9, probability * 1.1);
+        assertThat(strategy.getProbability()).isEqualTo(probability);
+    }
+
+    @DataProvider(value = {
+        "-0.1",
+        "1.1",
+        "NaN",
+        "Infinity"
+    })
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_probability(double probability) {
+        // when
+        Throwable ex = catchThrowable(() -> new ProbabilisticSamplingStrategy(probability));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("probability must be between 0.0 and 1.0 (inclusive). Invalid probability: " + probability);
+    }
+}
@@ -0,0 +1,80 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.clock.DeterministicSpanClock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link RateLimitedProbabilisticSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+public class RateLimitedProbabilisticSamplingStrategyTest {
+
+    @Test
+    public void rate_cap_limits_samples_when_probability_would_allow_more() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitedProbabilisticSamplingStrategy strategy = new RateLimitedProbabilisticSamplingStrategy(1.0, 5, clock);
+        int numSampled = 0;
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            if (strategy.isNextRootSpanSampleable()) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat(numSampled).isEqualTo(5);
+        assertThat(strategy.getProbability()).isEqualTo(1.0);
+        assertThat(strategy.getMaxSampledPerSecond()).isEqualTo(5);
+    }
+
+    @Test
+    public void probability_applies_when_under_the_rate_cap() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitedProbabilisticSamplingStrategy strategy =
+            new RateLimitedProbabilisticSamplingStrategy(0.1, 1_000_000, clock);
+        int numAttempts = 100_000;
+        int numSampled = 0;
+
+        // when
+        for (int i = 0; i < numAttempts; i++) {
+            clock.advance(1, TimeUnit.MILLISECONDS);
+            if (strategy.isNextRootSpanSampleable()) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat(numSampled).isBetween(9_000, 11_000);
+    }
+
+    @Test
+    public void zero_probability_never_consumes_rate_limit_permits() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitedProbabilisticSamplingStrategy strategy = new RateLimitedProbabilisticSamplingStrategy(0, 5, clock);
+
+        // expect
+        for (int i = 0; i < 1000; i++) {
+            assertThat(strategy.isNextRootSpanSampleable()).isFalse();
+        }
+    }
+
+    @Test
+    public void constructor_validates_arguments() {
+        // expect
+        assertThat(catchThrowable(() -> new RateLimitedProbabilisticSamplingStrategy(2.0, 5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new RateLimitedProbabilisticSamplingStrategy(0.5, -5)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
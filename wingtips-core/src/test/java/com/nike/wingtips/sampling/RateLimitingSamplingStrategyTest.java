@@ -0,0 +1,141 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.clock.DeterministicSpanClock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link RateLimitingSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+public class RateLimitingSamplingStrategyTest {
+
+    private int countSampled(RootSpanSamplingStrategy strategy, int numAttempts) {
+        int numSampled = 0;
+        for (int i = 0; i < numAttempts; i++) {
+            if (strategy.isNextRootSpanSampleable()) {
+                numSampled++;
+            }
+        }
+        return numSampled;
+    }
+
+    @Test
+    public void allows_a_burst_of_up_to_maxSampledPerSecond_then_stops() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitingSamplingStrategy strategy = new RateLimitingSamplingStrategy(10, clock);
+
+        // expect
+        assertThat(countSampled(strategy, 1000)).isEqualTo(10);
+        assertThat(strategy.getMaxSampledPerSecond()).isEqualTo(10);
+    }
+
+    @Test
+    public void refills_continuously_over_time() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitingSamplingStrategy strategy = new RateLimitingSamplingStrategy(10, clock);
+        countSampled(strategy, 1000);
+
+        // when
+        clock.advance(100, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(countSampled(strategy, 1000)).isEqualTo(1);
+
+        // and when
+        clock.advance(550, TimeUnit.MILLISECONDS);
+
+        // then
+        assertThat(countSampled(strategy, 1000)).isEqualTo(5);
+    }
+
+    @Test
+    public void never_holds_more_than_one_second_of_permits() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitingSamplingStrategy strategy = new RateLimitingSamplingStrategy(10, clock);
+
+        // when
+        clock.advance(1, TimeUnit.HOURS);
+
+        // then
+        assertThat(countSampled(strategy, 1000)).isEqualTo(10);
+    }
+
+    @Test
+    public void long_run_rate_matches_maxSampledPerSecond() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitingSamplingStrategy strategy = new RateLimitingSamplingStrategy(3, clock);
+        countSampled(strategy, 100);
+        int numSampled = 0;
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            clock.advance(1, TimeUnit.MILLISECONDS);
+            numSampled += countSampled(strategy, 1);
+        }
+
+        // then
+        assertThat(numSampled).isEqualTo(30);
+    }
+
+    @Test
+    public void zero_maxSampledPerSecond_never_samples() {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, 0);
+        RateLimitingSamplingStrategy strategy = new RateLimitingSamplingStrategy(0, clock);
+
+        // when
+        clock.advance(1, TimeUnit.HOURS);
+
+        // then
+        assertThat(countSampled(strategy, 1000)).isEqualTo(0);
+    }
+
+    @Test
+    public void works_when_nanoTime_is_negative_or_wraps() {
+        // given
+        long startNanoTime = Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(50);
+        DeterministicSpanClock clock = new DeterministicSpanClock(0, startNanoTime);
+        RateLimitingSamplingStrategy strategy = new RateLimitingSamplingStrategy(10, clock);
+        countSampled(strategy, 1000);
+
+        // when
+        clock.advance(1, TimeUnit.SECONDS);
+
+        // then
+        assertThat(clock.nanoTime()).isNegative();
+        assertThat(countSampled(strategy, 1000)).isEqualTo(10);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_negative_maxSampledPerSecond() {
+        // when
+        Throwable ex = catchThrowable(() -> new RateLimitingSamplingStrategy(-1));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxSampledPerSecond cannot be negative. Invalid maxSampledPerSecond: -1");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_clock() {
+        // when
+        Throwable ex = catchThrowable(() -> new RateLimitingSamplingStrategy(1, null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("clock cannot be null");
+    }
+}
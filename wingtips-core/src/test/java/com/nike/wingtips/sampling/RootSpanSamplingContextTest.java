@@ -0,0 +1,73 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link RootSpanSamplingContext}.
+ *
+ * @author Nic Munroe
+ */
+public class RootSpanSamplingContextTest {
+
+    @Test
+    public void forSpan_creates_context_without_request_info() {
+        // when
+        RootSpanSamplingContext context = RootSpanSamplingContext.forSpan("someSpan", SpanPurpose.CLIENT);
+
+        // then
+        assertThat(context.getSpanName()).isEqualTo("someSpan");
+        assertThat(context.getSpanPurpose()).isEqualTo(SpanPurpose.CLIENT);
+        assertThat(context.getHttpMethod()).isNull();
+        assertThat(context.getRequestPath()).isNull();
+        assertThat(context.getRequest()).isNull();
+        assertThat(context.getTraceId()).isNull();
+    }
+
+    @Test
+    public void forHttpRequest_creates_context_with_request_info() {
+        // given
+        Object request = new Object();
+
+        // when
+        RootSpanSamplingContext context = RootSpanSamplingContext.forHttpRequest(
+            "GET /foo", SpanPurpose.SERVER, "GET", "/foo", request
+        );
+
+        // then
+        assertThat(context.getSpanName()).isEqualTo("GET /foo");
+        assertThat(context.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+        assertThat(context.getHttpMethod()).isEqualTo("GET");
+        assertThat(context.getRequestPath()).isEqualTo("/foo");
+        assertThat(context.getRequest()).isSameAs(request);
+    }
+
+    @Test
+    public void withTraceId_returns_copy_with_trace_id_or_same_instance_if_unchanged() {
+        // given
+        Object request = new Object();
+        RootSpanSamplingContext context = RootSpanSamplingContext.forHttpRequest(
+            "GET /foo", SpanPurpose.SERVER, "GET", "/foo", request
+        );
+
+        // when
+        RootSpanSamplingContext result = context.withTraceId("someTraceId");
+
+        // then
+        assertThat(result).isNotSameAs(context);
+        assertThat(result.getTraceId()).isEqualTo("someTraceId");
+        assertThat(result.getSpanName()).isEqualTo("GET /foo");
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+        assertThat(result.getHttpMethod()).isEqualTo("GET");
+        assertThat(result.getRequestPath()).isEqualTo("/foo");
+        assertThat(result.getRequest()).isSameAs(request);
+        assertThat(context.getTraceId()).isNull();
+
+        // expect
+        assertThat(result.withTraceId("someTraceId")).isSameAs(result);
+        assertThat(context.withTraceId(null)).isSameAs(context);
+    }
+}
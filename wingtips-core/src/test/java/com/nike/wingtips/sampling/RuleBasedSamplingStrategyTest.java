@@ -0,0 +1,239 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.sampling.RuleBasedSamplingStrategy.SamplingRule;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link RuleBasedSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class RuleBasedSamplingStrategyTest {
+
+    private static final RootSpanSamplingStrategy NEVER = new ProbabilisticSamplingStrategy(0.0);
+    private static final RootSpanSamplingStrategy ALWAYS = new ProbabilisticSamplingStrategy(1.0);
+
+    private static RootSpanSamplingContext httpContext(String method, String path) {
+        return RootSpanSamplingContext.forHttpRequest(
+            method + " " + path, SpanPurpose.SERVER, method, path, null
+        );
+    }
+
+    @DataProvider(value = {
+        "GET    |   /healthcheck            |   false",
+        "GET    |   /healthcheck/deep       |   false",
+        "get    |   /healthcheck            |   false",
+        "GET    |   /healthcheckz           |   true",
+        "POST   |   /checkout               |   true",
+        "post   |   /checkout/123           |   true",
+        "GET    |   /checkout               |   false",
+        "GET    |   /foo                    |   false",
+        "PUT    |   /foo                    |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void isRootSpanSampleable_uses_first_matching_rule_or_default(
+        String method, String path, boolean expectedResult
+    ) {
+        // given
+        RuleBasedSamplingStrategy strategy = RuleBasedSamplingStrategy
+            .newBuilder(NEVER)
+            .withRule(SamplingRule.newBuilder().withPathPrefix("/healthcheck").build(NEVER))
+            .withRule(SamplingRule.newBuilder().withHttpMethod("POST").withPathPrefix("/checkout").build(ALWAYS))
+            .withRule(SamplingRule.newBuilder().withPathPrefix("/healthcheck").build(ALWAYS))
+            .withRule(SamplingRule.newBuilder().withSpanNamePattern("GET /healthcheckz").build(ALWAYS))
+            .build();
+
+        // expect
+        assertThat(strategy.isRootSpanSampleable(httpContext(method, path))).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void rule_order_determines_precedence_across_method_specific_and_method_agnostic_rules() {
+        // given
+        SamplingRule methodAgnosticRule = SamplingRule.newBuilder().withPathPrefix("/foo").build(NEVER);
+        SamplingRule getRule = SamplingRule.newBuilder().withHttpMethod("GET").build(ALWAYS);
+        RuleBasedSamplingStrategy strategy = RuleBasedSamplingStrategy
+            .newBuilder(NEVER)
+            .withRule(methodAgnosticRule)
+            .withRule(getRule)
+            .build();
+
+        // expect
+        assertThat(strategy.findMatchingRule(httpContext("GET", "/foo/bar"))).isSameAs(methodAgnosticRule);
+        assertThat(strategy.findMatchingRule(httpContext("GET", "/bar"))).isSameAs(getRule);
+        assertThat(strategy.findMatchingRule(httpContext("POST", "/foo"))).isSameAs(methodAgnosticRule);
+        assertThat(strategy.findMatchingRule(httpContext("POST", "/bar"))).isNull();
+        assertThat(strategy.findMatchingRule(httpContext(null, "/foo"))).isSameAs(methodAgnosticRule);
+    }
+
+    @Test
+    public void rules_needing_request_info_do_not_match_contexts_without_it() {
+        // given
+        RuleBasedSamplingStrategy strategy = RuleBasedSamplingStrategy
+            .newBuilder(NEVER)
+            .withRule(SamplingRule.newBuilder().withHttpMethod("GET").build(ALWAYS))
+            .withRule(SamplingRule.newBuilder().withPathPrefix("/").build(ALWAYS))
+            .build();
+        RootSpanSamplingContext context = RootSpanSamplingContext.forSpan("GET /foo", SpanPurpose.SERVER);
+
+        // expect
+        assertThat(strategy.findMatchingRule(context)).isNull();
+        assertThat(strategy.isRootSpanSampleable(context)).isFalse();
+    }
+
+    @DataProvider(value = {
+        "fooSpan        |   fooSpan         |   true",
+        "fooSpan        |   fooSpanz        |   false",
+        "foo*           |   foo             |   true",
+        "foo*           |   fooBar          |   true",
+        "foo*           |   barFoo          |   false",
+        "*Bar           |   fooBar          |   true",
+        "*Bar           |   fooBarz         |   false",
+        "*checkout*     |   POST /checkout  |   true",
+        "*checkout*     |   POST /cart      |   false",
+        "a*b*c          |   abc             |   true",
+        "a*b*c          |   a123b456c       |   true",
+        "a*b*c          |   acb             |   false",
+        "a*a            |   a               |   false",
+        "a*a            |   aa              |   true",
+        "*              |   anything        |   true",
+        "GET /o*/*      |   GET /orders/42  |   true",
+        "GET /o*/*      |   GET /orders     |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void span_name_patterns_match_as_expected(String pattern, String spanName, boolean expectedResult) {
+        // given
+        SamplingRule rule = SamplingRule.newBuilder().withSpanNamePattern(pattern).build(ALWAYS);
+
+        // expect
+        assertThat(rule.matches(RootSpanSamplingContext.forSpan(spanName, SpanPurpose.SERVER)))
+            .isEqualTo(expectedResult);
+    }
+
+    @DataProvider(value = {
+        "/foo   |   /foo        |   true",
+        "/foo   |   /foo/       |   true",
+        "/foo   |   /foo/bar    |   true",
+        "/foo   |   /foobar     |   false",
+        "/foo   |   /fo         |   false",
+        "/foo/  |   /foo/bar    |   true",
+        "/foo/  |   /foo        |   false",
+        "/      |   /anything   |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void path_prefixes_match_on_segment_boundaries(String prefix, String path, boolean expectedResult) {
+        // given
+        SamplingRule rule = SamplingRule.newBuilder().withPathPrefix(prefix).build(ALWAYS);
+
+        // expect
+        assertThat(rule.matches(httpContext("GET", path))).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void rule_with_no_criteria_matches_everything() {
+        // given
+        SamplingRule rule = SamplingRule.newBuilder().build(ALWAYS);
+
+        // expect
+        assertThat(rule.matches(httpContext("GET", "/foo"))).isTrue();
+        assertThat(rule.matches(RootSpanSamplingContext.forSpan(null, null))).isTrue();
+    }
+
+    @Test
+    public void isNextRootSpanSampleable_uses_default_strategy() {
+        // given
+        RootSpanSamplingStrategy defaultStrategyMock = mock(RootSpanSamplingStrategy.class);
+        doReturn(true).when(defaultStrategyMock).isNextRootSpanSampleable();
+        RuleBasedSamplingStrategy strategy = RuleBasedSamplingStrategy
+            .newBuilder(defaultStrategyMock)
+            .withRule(SamplingRule.newBuilder().build(NEVER))
+            .build();
+
+        // expect
+        assertThat(strategy.isNextRootSpanSampleable()).isTrue();
+        verify(defaultStrategyMock).isNextRootSpanSampleable();
+    }
+
+    @Test
+    public void context_aware_rule_strategies_are_given_the_context() {
+        // given
+        ContextAwareRootSpanSamplingStrategy nestedStrategyMock = mock(ContextAwareRootSpanSamplingStrategy.class);
+        RootSpanSamplingContext context = httpContext("GET", "/foo");
+        doReturn(true).when(nestedStrategyMock).isRootSpanSampleable(context);
+        RuleBasedSamplingStrategy strategy = RuleBasedSamplingStrategy
+            .newBuilder(NEVER)
+            .withRule(SamplingRule.newBuilder().withPathPrefix("/foo").build(nestedStrategyMock))
+            .build();
+
+        // when
+        boolean result = strategy.isRootSpanSampleable(context);
+
+        // then
+        assertThat(result).isTrue();
+        verify(nestedStrategyMock).isRootSpanSampleable(context);
+    }
+
+    @Test
+    public void buildWithProbability_creates_ProbabilisticSamplingStrategy() {
+        // when
+        SamplingRule rule = SamplingRule.newBuilder()
+                                        .withHttpMethod("get")
+                                        .withPathPrefix("/foo")
+                                        .withSpanNamePattern("GET *")
+                                        .buildWithProbability(0.42);
+
+        // then
+        assertThat(rule.getHttpMethod()).isEqualTo("GET");
+        assertThat(rule.getPathPrefix()).isEqualTo("/foo");
+        assertThat(rule.getSpanNamePattern()).isEqualTo("GET *");
+        assertThat(rule.getStrategy()).isInstanceOf(ProbabilisticSamplingStrategy.class);
+        assertThat(((ProbabilisticSamplingStrategy) rule.getStrategy()).getProbability()).isEqualTo(0.42);
+    }
+
+    @Test
+    public void getters_return_expected_values() {
+        // given
+        SamplingRule rule1 = SamplingRule.newBuilder().withPathPrefix("/foo").build(ALWAYS);
+        SamplingRule rule2 = SamplingRule.newBuilder().withPathPrefix("/bar").build(NEVER);
+
+        // when
+        RuleBasedSamplingStrategy strategy = RuleBasedSamplingStrategy
+            .newBuilder(NEVER)
+            .withRule(rule1)
+            .withRule(rule2)
+            .build();
+
+        // then
+        assertThat(strategy.getDefaultStrategy()).isSameAs(NEVER);
+        assertThat(strategy.getRules()).containsExactly(rule1, rule2);
+        Throwable ex = catchThrowable(() -> strategy.getRules().add(rule1));
+        assertThat(ex).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void builders_throw_IllegalArgumentException_for_null_args() {
+        // expect
+        assertThat(catchThrowable(() -> RuleBasedSamplingStrategy.newBuilder(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("defaultStrategy cannot be null");
+        assertThat(catchThrowable(() -> RuleBasedSamplingStrategy.newBuilder(NEVER).withRule(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("rule cannot be null");
+        assertThat(catchThrowable(() -> SamplingRule.newBuilder().build(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("strategy cannot be null");
+    }
+}
@@ -0,0 +1,199 @@
+package com.nike.wingtips.sampling;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.TraceAndSpanIdGenerator;
+import com.nike.wingtips.Tracer;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link TraceIdHashSamplingStrategy}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class TraceIdHashSamplingStrategyTest {
+
+    @After
+    public void afterMethod() {
+        Tracer.getInstance().unregisterFromThread();
+        Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+    }
+
+    @DataProvider(value = {
+        "0.01",
+        "0.25",
+        "0.5",
+        "0.9"
+    })
+    @Test
+    public void samples_roughly_the_configured_fraction_of_trace_ids(double probability) {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(probability);
+        int numTrials = 100_000;
+        int numSampled = 0;
+
+        // when
+        for (int i = 0; i < numTrials; i++) {
+            if (strategy.isTraceIdSampleable(TraceAndSpanIdGenerator.generateTraceId())) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat((double) numSampled / numTrials).isCloseTo(probability, within(0.01));
+    }
+
+    @Test
+    public void sequential_primitive_ids_are_spread_evenly() {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(0.1);
+        int numTrials = 100_000;
+        int numSampled = 0;
+
+        // when
+        for (long id = 0; id < numTrials; id++) {
+            if (strategy.isTraceIdSampleable(id)) {
+                numSampled++;
+            }
+        }
+
+        // then
+        assertThat((double) numSampled / numTrials).isCloseTo(0.1, within(0.01));
+    }
+
+    @Test
+    public void decisions_are_deterministic_and_agree_across_instances_and_id_forms() {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(0.5);
+        TraceIdHashSamplingStrategy otherStrategy = new TraceIdHashSamplingStrategy(0.5);
+
+        for (int i = 0; i < 10_000; i++) {
+            long low = TraceAndSpanIdGenerator.generate64BitRandomLong();
+            long high = TraceAndSpanIdGenerator.generate64BitRandomLong();
+            String id64 = TraceAndSpanIdGenerator.longToUnsignedLowerHexString(low);
+            String id128 = TraceAndSpanIdGenerator.longsToUnsignedLowerHexString(high, low);
+
+            // when
+            boolean expected = strategy.isTraceIdSampleable(low);
+
+            // then
+            assertThat(strategy.isTraceIdSampleable(id64)).isEqualTo(expected);
+            assertThat(strategy.isTraceIdSampleable(new StringBuilder(id64))).isEqualTo(expected);
+            assertThat(otherStrategy.isTraceIdSampleable(id64)).isEqualTo(expected);
+            // 128-bit IDs are decided by their low 64 bits.
+            assertThat(strategy.isTraceIdSampleable(id128)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void trace_ids_sampled_at_lower_probability_are_also_sampled_at_higher_probability() {
+        // given
+        TraceIdHashSamplingStrategy low = new TraceIdHashSamplingStrategy(0.1);
+        TraceIdHashSamplingStrategy high = new TraceIdHashSamplingStrategy(0.6);
+
+        for (int i = 0; i < 10_000; i++) {
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+
+            // expect
+            if (low.isTraceIdSampleable(traceId)) {
+                assertThat(high.isTraceIdSampleable(traceId)).isTrue();
+            }
+        }
+    }
+
+    @DataProvider(value = {
+        "0.0    |   false",
+        "1.0    |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void probability_of_zero_and_one_never_and_always_sample(double probability, boolean expected) {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(probability);
+
+        // expect
+        assertThat(strategy.getProbability()).isEqualTo(probability);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(strategy.isTraceIdSampleable(TraceAndSpanIdGenerator.generateTraceId())).isEqualTo(expected);
+            assertThat(strategy.isTraceIdSampleable((long) i)).isEqualTo(expected);
+            assertThat(strategy.isNextRootSpanSampleable()).isEqualTo(expected);
+        }
+    }
+
+    @DataProvider(value = {
+        "not-a-hex-id",
+        "ABCDEF0123456789",
+        "0123456789abcdef0123456789abcdef0",
+        ""
+    })
+    @Test
+    public void non_lower_hex_trace_ids_fall_back_to_hashing_characters(String traceId) {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(0.5);
+
+        // expect
+        assertThat(TraceIdHashSamplingStrategy.traceIdLowBits(traceId))
+            .isEqualTo(TraceIdHashSamplingStrategy.traceIdLowBits(new StringBuilder(traceId)));
+        assertThat(strategy.isTraceIdSampleable(traceId)).isEqualTo(strategy.isTraceIdSampleable(traceId));
+    }
+
+    @Test
+    public void traceIdLowBits_decodes_lower_hex_ids() {
+        // expect
+        assertThat(TraceIdHashSamplingStrategy.traceIdLowBits("ff")).isEqualTo(255L);
+        assertThat(TraceIdHashSamplingStrategy.traceIdLowBits("ffffffffffffffff")).isEqualTo(-1L);
+        assertThat(TraceIdHashSamplingStrategy.traceIdLowBits("00000000000000010000000000000002")).isEqualTo(2L);
+    }
+
+    @Test
+    public void isRootSpanSampleable_uses_trace_id_from_context() {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(0.5);
+
+        for (int i = 0; i < 1_000; i++) {
+            String traceId = TraceAndSpanIdGenerator.generateTraceId();
+            RootSpanSamplingContext context = new RootSpanSamplingContext(
+                "someSpan", SpanPurpose.SERVER, null, null, null, traceId
+            );
+
+            // expect
+            assertThat(strategy.isRootSpanSampleable(context)).isEqualTo(strategy.isTraceIdSampleable(traceId));
+        }
+    }
+
+    @Test
+    public void Tracer_root_spans_are_sampled_according_to_their_trace_id() {
+        // given
+        TraceIdHashSamplingStrategy strategy = new TraceIdHashSamplingStrategy(0.5);
+        Tracer.getInstance().setRootSpanSamplingStrategy(strategy);
+
+        for (int i = 0; i < 1_000; i++) {
+            // when
+            Span span = Tracer.getInstance().startRequestWithRootSpan("someSpan");
+
+            // then
+            assertThat(span.isSampleable()).isEqualTo(strategy.isTraceIdSampleable(span.getTraceId()));
+            Tracer.getInstance().completeRequestSpan();
+        }
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_probability() {
+        // when
+        Throwable ex = catchThrowable(() -> new TraceIdHashSamplingStrategy(-0.1));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class)
+                      .hasMessage("probability must be between 0.0 and 1.0 (inclusive). Invalid probability: -0.1");
+    }
+}
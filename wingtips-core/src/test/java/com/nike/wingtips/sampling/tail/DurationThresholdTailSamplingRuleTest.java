@@ -0,0 +1,88 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link DurationThresholdTailSamplingRule}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class DurationThresholdTailSamplingRuleTest {
+
+    private static Span spanWithDurationMillis(Long durationMillis) {
+        return Span.newBuilder("someSpan", SpanPurpose.SERVER)
+                   .withDurationNanos((durationMillis == null) ? null : TimeUnit.MILLISECONDS.toNanos(durationMillis))
+                   .build();
+    }
+
+    @DataProvider(value = {
+        "99     |   false",
+        "100    |   true",
+        "5000   |   true",
+        "null   |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void shouldKeepTrace_compares_local_root_duration_to_threshold(Long rootDurationMillis, boolean expected) {
+        // given
+        DurationThresholdTailSamplingRule rule = new DurationThresholdTailSamplingRule(100, TimeUnit.MILLISECONDS);
+        Span root = spanWithDurationMillis(rootDurationMillis);
+        // A slow child shouldn't matter when the local root is available.
+        Span slowChild = spanWithDurationMillis(10_000L);
+
+        // expect
+        assertThat(rule.shouldKeepTrace(root, Arrays.asList(slowChild, root))).isEqualTo(expected);
+    }
+
+    @DataProvider(value = {
+        "99     |   false",
+        "100    |   true",
+    }, splitBy = "\\|")
+    @Test
+    public void shouldKeepTrace_uses_longest_span_when_local_root_is_missing(
+        long longestDurationMillis, boolean expected
+    ) {
+        // given
+        DurationThresholdTailSamplingRule rule = new DurationThresholdTailSamplingRule(100, TimeUnit.MILLISECONDS);
+
+        // expect
+        assertThat(rule.shouldKeepTrace(null, Arrays.asList(
+            spanWithDurationMillis(1L), spanWithDurationMillis(longestDurationMillis)
+        ))).isEqualTo(expected);
+    }
+
+    @Test
+    public void getThresholdNanos_returns_threshold_converted_to_nanos() {
+        // expect
+        assertThat(new DurationThresholdTailSamplingRule(2, TimeUnit.SECONDS).getThresholdNanos())
+            .isEqualTo(TimeUnit.SECONDS.toNanos(2));
+        assertThat(new DurationThresholdTailSamplingRule(0, TimeUnit.SECONDS)
+                       .shouldKeepTrace(null, Collections.singletonList(spanWithDurationMillis(0L))))
+            .isTrue();
+    }
+
+    @Test
+    public void constructor_validates_arguments() {
+        // expect
+        assertThat(catchThrowable(() -> new DurationThresholdTailSamplingRule(1, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("timeUnit cannot be null");
+        assertThat(catchThrowable(() -> new DurationThresholdTailSamplingRule(-1, TimeUnit.SECONDS)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("threshold cannot be negative. Invalid threshold: -1");
+    }
+}
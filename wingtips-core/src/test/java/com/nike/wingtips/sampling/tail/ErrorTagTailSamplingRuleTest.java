@@ -0,0 +1,72 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.tags.KnownZipkinTags;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ErrorTagTailSamplingRule}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class ErrorTagTailSamplingRuleTest {
+
+    @DataProvider(value = {
+        "null           |   false",
+        "true           |   true",
+        "500            |   true",
+        "               |   true",
+        "false          |   false",
+        "FALSE          |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void shouldKeepTrace_keeps_traces_where_any_span_has_error_tag(String errorTagValue, boolean expected) {
+        // given
+        ErrorTagTailSamplingRule rule = new ErrorTagTailSamplingRule();
+        Span root = Span.newBuilder("root", SpanPurpose.SERVER).build();
+        Span child = Span.newBuilder("child", SpanPurpose.CLIENT).build();
+        if (errorTagValue != null) {
+            child.putTag(KnownZipkinTags.ERROR, errorTagValue);
+        }
+
+        // expect
+        assertThat(rule.shouldKeepTrace(root, Arrays.asList(child, root))).isEqualTo(expected);
+        assertThat(rule.shouldKeepTrace(null, Arrays.asList(child))).isEqualTo(expected);
+    }
+
+    @Test
+    public void custom_error_tag_key_is_honored() {
+        // given
+        ErrorTagTailSamplingRule rule = new ErrorTagTailSamplingRule("failed");
+        Span span = Span.newBuilder("root", SpanPurpose.SERVER).withTag("failed", "yes").build();
+        Span zipkinErrorSpan = Span.newBuilder("root", SpanPurpose.SERVER)
+                                   .withTag(KnownZipkinTags.ERROR, "true")
+                                   .build();
+
+        // expect
+        assertThat(rule.getErrorTagKey()).isEqualTo("failed");
+        assertThat(rule.shouldKeepTrace(span, Arrays.asList(span))).isTrue();
+        assertThat(rule.shouldKeepTrace(zipkinErrorSpan, Arrays.asList(zipkinErrorSpan))).isFalse();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_tag_key() {
+        // when
+        Throwable ex = catchThrowable(() -> new ErrorTagTailSamplingRule(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class).hasMessage("errorTagKey cannot be null");
+    }
+}
@@ -0,0 +1,66 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests the functionality of {@link ProbabilisticTailSamplingRule}.
+ *
+ * @author Nic Munroe
+ */
+public class ProbabilisticTailSamplingRuleTest {
+
+    private final Span span = Span.newBuilder("someSpan", SpanPurpose.SERVER).build();
+    private final List<Span> spans = Collections.singletonList(span);
+
+    @Test
+    public void probability_of_zero_and_one_never_and_always_keep() {
+        // given
+        ProbabilisticTailSamplingRule never = new ProbabilisticTailSamplingRule(0.0);
+        ProbabilisticTailSamplingRule always = new ProbabilisticTailSamplingRule(1.0);
+
+        // expect
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(never.shouldKeepTrace(span, spans)).isFalse();
+            assertThat(always.shouldKeepTrace(span, spans)).isTrue();
+        }
+    }
+
+    @Test
+    public void keeps_roughly_the_configured_percentage() {
+        // given
+        ProbabilisticTailSamplingRule rule = new ProbabilisticTailSamplingRule(0.25);
+        int numTrials = 100_000;
+        int numKept = 0;
+
+        // when
+        for (int i = 0; i < numTrials; i++) {
+            if (rule.shouldKeepTrace(span, spans)) {
+                numKept++;
+            }
+        }
+
+        // then
+        assertThat(rule.getProbability()).isEqualTo(0.25);
+        assertThat((double) numKept / numTrials).isCloseTo(0.25, within(0.02));
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_probability() {
+        // when
+        Throwable ex = catchThrowable(() -> new ProbabilisticTailSamplingRule(1.5));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class)
+                      .hasMessage("probability must be between 0.0 and 1.0 (inclusive). Invalid probability: 1.5");
+    }
+}
@@ -0,0 +1,462 @@
+package com.nike.wingtips.sampling.tail;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.clock.DeterministicSpanClock;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.testutil.Whitebox;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link TailSamplingSpanBuffer}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class TailSamplingSpanBufferTest {
+
+    private DeterministicSpanClock clock;
+    private CapturingListener downstream;
+    private AtomicBoolean keepTraces;
+    private AtomicReference<Span> lastLocalRootSpan;
+    private AtomicReference<List<Span>> lastCompletedSpans;
+    private TailSamplingRule capturingRule;
+
+    @Before
+    public void beforeMethod() {
+        clock = new DeterministicSpanClock(0, 0);
+        downstream = new CapturingListener();
+        keepTraces = new AtomicBoolean(true);
+        lastLocalRootSpan = new AtomicReference<>();
+        lastCompletedSpans = new AtomicReference<>();
+        capturingRule = (localRootSpan, completedSpans) -> {
+            lastLocalRootSpan.set(localRootSpan);
+            lastCompletedSpans.set(new ArrayList<>(completedSpans));
+            return keepTraces.get();
+        };
+    }
+
+    private TailSamplingSpanBuffer.Builder builder() {
+        return TailSamplingSpanBuffer.newBuilder()
+                                     .withRule(capturingRule)
+                                     .withDownstreamListener(downstream)
+                                     .withClock(clock);
+    }
+
+    private static Span rootSpan(boolean sampleable) {
+        return Span.generateRootSpanForNewTrace("root", SpanPurpose.SERVER).withSampleable(sampleable).build();
+    }
+
+    private static Span completed(Span span) {
+        // Span.complete() is package-private, so fake a completed span by setting its duration directly.
+        Whitebox.setInternalState(span, "durationNanos", 42L);
+        return span;
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void buffers_spans_until_local_root_completes_then_forwards_them_if_kept(boolean keep) {
+        // given
+        keepTraces.set(keep);
+        TailSamplingSpanBuffer buffer = builder().build();
+        Span root = rootSpan(true);
+        Span child = root.generateChildSpan("child", SpanPurpose.LOCAL_ONLY);
+        buffer.spanStarted(root);
+        buffer.spanStarted(child);
+
+        // when
+        buffer.spanCompleted(completed(child));
+
+        // then
+        assertThat(downstream.completed).isEmpty();
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(1);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(1);
+
+        // and when
+        buffer.spanCompleted(completed(root));
+
+        // then
+        assertThat(lastLocalRootSpan.get()).isSameAs(root);
+        assertThat(lastCompletedSpans.get()).containsExactly(child, root);
+        if (keep) {
+            assertThat(downstream.completed).containsExactly(child, root);
+            assertThat(buffer.getNumKeptTraces()).isEqualTo(1);
+            assertThat(buffer.getNumDiscardedTraces()).isEqualTo(0);
+        }
+        else {
+            assertThat(downstream.completed).isEmpty();
+            assertThat(buffer.getNumKeptTraces()).isEqualTo(0);
+            assertThat(buffer.getNumDiscardedTraces()).isEqualTo(1);
+        }
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(0);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(0);
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(0);
+    }
+
+    @Test
+    public void trace_is_kept_if_any_rule_keeps_it() {
+        // given
+        TailSamplingSpanBuffer buffer = TailSamplingSpanBuffer.newBuilder()
+                                                              .withRule((root, spans) -> false)
+                                                              .withRule((root, spans) -> true)
+                                                              .withDownstreamListener(downstream)
+                                                              .build();
+        Span root = rootSpan(true);
+
+        // when
+        buffer.spanStarted(root);
+        buffer.spanCompleted(completed(root));
+
+        // then
+        assertThat(downstream.completed).containsExactly(root);
+    }
+
+    @Test
+    public void start_and_sampled_events_and_non_sampleable_completions_are_passed_straight_through() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().build();
+        Span sampled = rootSpan(true);
+        Span notSampled = rootSpan(false);
+
+        // when
+        buffer.spanStarted(sampled);
+        buffer.spanSampled(sampled);
+        buffer.spanStarted(notSampled);
+        buffer.spanCompleted(completed(notSampled));
+
+        // then
+        assertThat(downstream.started).containsExactly(sampled, notSampled);
+        assertThat(downstream.sampled).containsExactly(sampled);
+        assertThat(downstream.completed).containsExactly(notSampled);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(1);
+        assertThat(lastCompletedSpans.get()).isNull();
+    }
+
+    @Test
+    public void orphaned_spans_are_evicted_and_decided_without_a_local_root_once_too_old() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().withMaxTraceAge(10, TimeUnit.SECONDS).build();
+        Span root = rootSpan(true);
+        // Simulate async work that completes after its trace was already decided.
+        Span lateChild = root.generateChildSpan("late", SpanPurpose.LOCAL_ONLY);
+        buffer.spanCompleted(completed(lateChild));
+
+        // when
+        clock.advance(9, TimeUnit.SECONDS);
+        buffer.evictExpiredTraces();
+
+        // then
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(1);
+        assertThat(downstream.completed).isEmpty();
+
+        // and when
+        clock.advance(1, TimeUnit.SECONDS);
+        buffer.evictExpiredTraces();
+
+        // then
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(0);
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(1);
+        assertThat(lastLocalRootSpan.get()).isNull();
+        assertThat(lastCompletedSpans.get()).containsExactly(lateChild);
+        assertThat(downstream.completed).containsExactly(lateChild);
+    }
+
+    @Test
+    public void traces_whose_local_root_never_completes_are_evicted_by_later_span_traffic() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().withMaxTraceAge(10, TimeUnit.SECONDS).withNumShards(1).build();
+        Span leakedRoot = rootSpan(true);
+        Span child = leakedRoot.generateChildSpan("child", SpanPurpose.LOCAL_ONLY);
+        buffer.spanStarted(leakedRoot);
+        buffer.spanStarted(child);
+        buffer.spanCompleted(completed(child));
+        clock.advance(10, TimeUnit.SECONDS);
+
+        // when
+        Span otherRoot = rootSpan(true);
+        buffer.spanStarted(otherRoot);
+
+        // then
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(1);
+        assertThat(downstream.completed).containsExactly(child);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(1);
+    }
+
+    @Test
+    public void traces_with_no_completed_spans_are_evicted_silently() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().withMaxTraceAge(10, TimeUnit.SECONDS).build();
+        buffer.spanStarted(rootSpan(true));
+        clock.advance(10, TimeUnit.SECONDS);
+
+        // when
+        buffer.evictExpiredTraces();
+
+        // then
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(0);
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(0);
+        assertThat(lastCompletedSpans.get()).isNull();
+    }
+
+    @Test
+    public void oldest_traces_are_decided_early_when_buffer_is_full() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().withMaxBufferedSpans(2).withNumShards(1).build();
+        List<Span> orphans = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orphans.add(completed(rootSpan(true).generateChildSpan("orphan-" + i, SpanPurpose.LOCAL_ONLY)));
+        }
+
+        // when
+        for (Span orphan : orphans) {
+            buffer.spanCompleted(orphan);
+        }
+
+        // then
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(2);
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(1);
+        assertThat(downstream.completed).containsExactly(orphans.get(0));
+    }
+
+    @Test
+    public void filling_the_buffer_does_not_evict_in_flight_local_roots() {
+        // given: a trace whose local root has started but has no completed spans yet
+        TailSamplingSpanBuffer buffer = builder().withMaxBufferedSpans(2).withNumShards(1).build();
+        Span inFlightRoot = rootSpan(true);
+        buffer.spanStarted(inFlightRoot);
+        List<Span> orphans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orphans.add(completed(rootSpan(true).generateChildSpan("orphan-" + i, SpanPurpose.LOCAL_ONLY)));
+        }
+
+        // when: other traces fill the buffer past its limit
+        for (Span orphan : orphans) {
+            buffer.spanCompleted(orphan);
+        }
+
+        // then: the oldest traces with spans are evicted, but the in-flight root's entry survives
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(2);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(3);
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(3);
+        assertThat(downstream.completed).containsExactly(orphans.get(0), orphans.get(1), orphans.get(2));
+
+        // and when: the in-flight root completes
+        buffer.spanCompleted(completed(inFlightRoot));
+
+        // then: it's recognized as the local root and decided right away
+        assertThat(lastLocalRootSpan.get()).isSameAs(inFlightRoot);
+        assertThat(lastCompletedSpans.get()).containsExactly(inFlightRoot);
+        assertThat(downstream.completed).endsWith(inFlightRoot);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(2);
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(2);
+    }
+
+    @Test
+    public void spans_beyond_max_spans_per_trace_are_dropped_but_local_root_is_kept() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().withMaxSpansPerTrace(2).build();
+        Span root = rootSpan(true);
+        buffer.spanStarted(root);
+        List<Span> children = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            children.add(completed(root.generateChildSpan("child-" + i, SpanPurpose.LOCAL_ONLY)));
+        }
+
+        // when
+        for (Span child : children) {
+            buffer.spanCompleted(child);
+        }
+        buffer.spanCompleted(completed(root));
+
+        // then
+        assertThat(buffer.getNumDroppedSpans()).isEqualTo(2);
+        assertThat(downstream.completed).containsExactly(children.get(0), children.get(1), root);
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(0);
+    }
+
+    @Test
+    public void flushAll_decides_all_buffered_traces() {
+        // given
+        TailSamplingSpanBuffer buffer = builder().build();
+        Span root1 = rootSpan(true);
+        Span root2 = rootSpan(true);
+        Span child1 = completed(root1.generateChildSpan("child1", SpanPurpose.LOCAL_ONLY));
+        Span child2 = completed(root2.generateChildSpan("child2", SpanPurpose.LOCAL_ONLY));
+        buffer.spanStarted(root1);
+        buffer.spanStarted(root2);
+        buffer.spanCompleted(child1);
+        buffer.spanCompleted(child2);
+
+        // when
+        buffer.flushAll();
+
+        // then
+        assertThat(downstream.completed).containsExactlyInAnyOrder(child1, child2);
+        assertThat(buffer.getNumBufferedTraces()).isEqualTo(0);
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(0);
+    }
+
+    @Test
+    public void exception_from_one_downstream_listener_does_not_stop_forwarding() {
+        // given
+        SpanLifecycleListener badListener = mock(SpanLifecycleListener.class);
+        doThrow(new RuntimeException("intentional test exception")).when(badListener).spanCompleted(any(Span.class));
+        TailSamplingSpanBuffer buffer = TailSamplingSpanBuffer.newBuilder()
+                                                              .withRule(capturingRule)
+                                                              .withDownstreamListener(badListener)
+                                                              .withDownstreamListener(downstream)
+                                                              .build();
+        Span root = rootSpan(true);
+        Span child = completed(root.generateChildSpan("child", SpanPurpose.LOCAL_ONLY));
+        buffer.spanStarted(root);
+        buffer.spanCompleted(child);
+
+        // when
+        buffer.spanCompleted(completed(root));
+
+        // then
+        verify(badListener).spanCompleted(child);
+        verify(badListener).spanCompleted(root);
+        assertThat(downstream.completed).containsExactly(child, root);
+    }
+
+    @Test
+    public void concurrent_traces_on_many_threads_are_all_decided() throws Exception {
+        // given
+        TailSamplingSpanBuffer buffer = TailSamplingSpanBuffer.newBuilder()
+                                                              .withRule((root, spans) -> true)
+                                                              .withDownstreamListener(downstream)
+                                                              .withMaxBufferedSpans(1_000_000)
+                                                              .build();
+        int numThreads = 8;
+        int tracesPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < numThreads; t++) {
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    for (int i = 0; i < tracesPerThread; i++) {
+                        Span root = rootSpan(true);
+                        Span child = root.generateChildSpan("child", SpanPurpose.LOCAL_ONLY);
+                        buffer.spanStarted(root);
+                        buffer.spanStarted(child);
+                        buffer.spanCompleted(completed(child));
+                        buffer.spanCompleted(completed(root));
+                    }
+                    return null;
+                }));
+            }
+
+            // when
+            startLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // then
+        assertThat(buffer.getNumKeptTraces()).isEqualTo(numThreads * tracesPerThread);
+        assertThat(buffer.getNumEvictedTraces()).isEqualTo(0);
+        assertThat(buffer.getNumBufferedSpans()).isEqualTo(0);
+        assertThat(downstream.completed).hasSize(numThreads * tracesPerThread * 2);
+    }
+
+    @Test
+    public void builder_validates_arguments() {
+        // expect
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("rules cannot be empty");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withRule(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("rule cannot be null");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withDownstreamListener(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("listener cannot be null");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withMaxBufferedSpans(0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxBufferedSpans must be greater than 0. Invalid maxBufferedSpans: 0");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withMaxSpansPerTrace(-1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxSpansPerTrace must be greater than 0. Invalid maxSpansPerTrace: -1");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withMaxTraceAge(0, TimeUnit.SECONDS)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxTraceAge must be greater than 0. Invalid maxTraceAge: 0");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withMaxTraceAge(1, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("timeUnit cannot be null");
+        assertThat(catchThrowable(() -> TailSamplingSpanBuffer.newBuilder().withNumShards(0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("numShards must be between 1 and 65536 (inclusive). Invalid numShards: 0");
+    }
+
+    @DataProvider(value = {
+        "1      |   1",
+        "3      |   4",
+        "16     |   16",
+        "17     |   32",
+    }, splitBy = "\\|")
+    @Test
+    public void num_shards_is_rounded_up_to_power_of_two(int requested, int expected) {
+        // when
+        TailSamplingSpanBuffer buffer = builder().withNumShards(requested).build();
+
+        // then
+        Object[] shards = (Object[]) Whitebox.getInternalState(buffer, "shards");
+        assertThat(shards).hasSize(expected);
+    }
+
+    private static class CapturingListener implements SpanLifecycleListener {
+        final List<Span> started = Collections.synchronizedList(new ArrayList<>());
+        final List<Span> sampled = Collections.synchronizedList(new ArrayList<>());
+        final List<Span> completed = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void spanStarted(Span span) {
+            started.add(span);
+        }
+
+        @Override
+        public void spanSampled(Span span) {
+            sampled.add(span);
+        }
+
+        @Override
+        public void spanCompleted(Span span) {
+            completed.add(span);
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.nike.wingtips.sink;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Tracer.SpanLoggingRepresentation;
+import com.nike.wingtips.clock.DeterministicSpanClock;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
+import com.nike.wingtips.util.parser.SpanParser;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.nike.wingtips.SpanTest.verifySpanDeepEquals;
+import static com.nike.wingtips.TestSpanCompleter.completeSpan;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link AsyncRollingFileSpanSink}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class AsyncRollingFileSpanSinkTest {
+
+    private Path tempDir;
+    private Path activeFile;
+    private List<AsyncRollingFileSpanSink> sinks;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        tempDir = Files.createTempDirectory("async-span-sink-test");
+        activeFile = tempDir.resolve("spans.log");
+        sinks = new ArrayList<>();
+    }
+
+    @After
+    public void afterMethod() throws IOException {
+        for (AsyncRollingFileSpanSink sink : sinks) {
+            sink.close();
+        }
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private AsyncRollingFileSpanSink track(AsyncRollingFileSpanSink sink) {
+        sinks.add(sink);
+        return sink;
+    }
+
+    private static Span completedSpan(String spanName) {
+        Span span = Span.newBuilder(spanName, SpanPurpose.SERVER).build();
+        span.putTag("foo", "bar");
+        completeSpan(span);
+        return span;
+    }
+
+    private List<Path> rolledFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().matches("spans\\.log\\.\\d{8}-\\d{6}(-\\d+)?"))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private List<String> allSpanLines() throws IOException {
+        List<Path> files = new ArrayList<>(rolledFiles());
+        if (Files.exists(activeFile)) {
+            files.add(activeFile);
+        }
+        List<String> lines = new ArrayList<>();
+        for (Path file : files) {
+            lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    @DataProvider(value = {
+        "JSON",
+        "KEY_VALUE",
+        "BINARY"
+    })
+    @Test
+    public void spans_are_written_as_span_log_lines_in_the_chosen_representation(
+        SpanLoggingRepresentation representation
+    ) throws IOException {
+        // given
+        AsyncRollingFileSpanSink sink = track(
+            AsyncRollingFileSpanSink.newBuilder(activeFile).withSpanLoggingRepresentation(representation).build()
+        );
+        Span good = completedSpan("good");
+        Span bad = completedSpan("bad");
+
+        // when
+        sink.spanCompleted(good, false);
+        sink.spanCompleted(bad, true);
+        sink.close();
+
+        // then
+        List<String> lines = Files.readAllLines(activeFile, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).startsWith("[DISTRIBUTED_TRACING] ");
+        assertThat(lines.get(1)).startsWith("[INCORRECT_TIMING] [DISTRIBUTED_TRACING] ");
+        List<Span> parsed = new ArrayList<>();
+        for (String line : lines) {
+            String serialized = line.substring(line.indexOf("[DISTRIBUTED_TRACING] ") + 22);
+            switch (representation) {
+                case JSON:
+                    parsed.add(SpanParser.fromJSON(serialized));
+                    break;
+                case KEY_VALUE:
+                    parsed.add(SpanParser.fromKeyValueString(serialized));
+                    break;
+                default:
+                    parsed.add(SpanBinaryCodec.fromBase64(serialized));
+            }
+        }
+        verifySpanDeepEquals(parsed.get(0), good, true);
+        verifySpanDeepEquals(parsed.get(1), bad, true);
+        assertThat(sink.getNumWrittenSpans()).isEqualTo(2);
+        assertThat(sink.getDroppedSpanCount()).isZero();
+        assertThat(sink.getSpanLoggingRepresentation()).isEqualTo(representation);
+        assertThat(sink.getActiveFile()).isEqualTo(activeFile);
+    }
+
+    @Test
+    public void spans_larger_than_the_write_buffer_are_written() throws IOException {
+        // given
+        AsyncRollingFileSpanSink sink = track(
+            AsyncRollingFileSpanSink.newBuilder(tempDir.resolve("nested/dir/spans.log"))
+                                    .withWriteBufferSizeBytes(16)
+                                    .build()
+        );
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            sink.spanCompleted(completedSpan("span-" + i), false);
+        }
+        sink.close();
+
+        // then
+        assertThat(Files.readAllLines(tempDir.resolve("nested/dir/spans.log"), StandardCharsets.UTF_8)).hasSize(20);
+        assertThat(sink.getNumWrittenSpans()).isEqualTo(20);
+    }
+
+    @Test
+    public void files_are_rotated_by_size_without_losing_spans() throws IOException {
+        // given
+        int lineLength = ("[DISTRIBUTED_TRACING] " + completedSpan("span-00").toJSON() + "\n").length();
+        AsyncRollingFileSpanSink sink = track(
+            AsyncRollingFileSpanSink.newBuilder(activeFile)
+                                    .withMaxBatchSize(1)
+                                    .withMaxFileSizeBytes(lineLength * 3)
+                                    .withMaxRolledFiles(100)
+                                    .build()
+        );
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            sink.spanCompleted(completedSpan(String.format("span-%02d", i)), false);
+        }
+        sink.close();
+
+        // then
+        assertThat(sink.getNumRotations()).isGreaterThanOrEqualTo(3);
+        assertThat(rolledFiles()).hasSize((int) sink.getNumRotations());
+        for (Path rolled : rolledFiles()) {
+            assertThat(Files.size(rolled)).isLessThanOrEqualTo(lineLength * 3);
+        }
+        List<String> spanNames = allSpanLines().stream()
+                                               .map(line -> SpanParser.fromJSON(line.substring(22)).getSpanName())
+                                               .collect(Collectors.toList());
+        assertThat(spanNames).containsExactly(
+            "span-00", "span-01", "span-02", "span-03", "span-04", "span-05", "span-06", "span-07", "span-08",
+            "span-09"
+        );
+    }
+
+    @Test
+    public void only_the_newest_rolled_files_are_kept() throws IOException {
+        // given
+        Path unrelatedFile = tempDir.resolve("spans.log.checkpoint");
+        Files.write(unrelatedFile, "position=0\n".getBytes(StandardCharsets.UTF_8));
+        AsyncRollingFileSpanSink sink = track(
+            AsyncRollingFileSpanSink.newBuilder(activeFile)
+                                    .withMaxBatchSize(1)
+                                    .withMaxFileSizeBytes(1)
+                                    .withMaxRolledFiles(2)
+                                    .build()
+        );
+
+        // when
+        for (int i = 0; i < 6; i++) {
+            sink.spanCompleted(completedSpan("span-" + i), false);
+        }
+        sink.close();
+
+        // then
+        assertThat(sink.getNumRotations()).isEqualTo(5);
+        assertThat(rolledFiles()).hasSize(2);
+        assertThat(Files.exists(unrelatedFile)).isTrue();
+        assertThat(allSpanLines()).hasSize(3);
+    }
+
+    @Test
+    public void files_are_rotated_by_time_including_when_idle() throws Exception {
+        // given
+        DeterministicSpanClock clock = new DeterministicSpanClock(1_700_000_000_000_000L);
+        AsyncRollingFileSpanSink sink = track(
+            AsyncRollingFileSpanSink.newBuilder(activeFile)
+                                    .withRotationInterval(1, TimeUnit.MINUTES)
+                                    .withClock(clock)
+                                    .build()
+        );
+        sink.spanCompleted(completedSpan("first"), false);
+        waitFor(() -> sink.getNumWrittenSpans() == 1);
+
+        // when
+        clock.advance(61, TimeUnit.SECONDS);
+        waitFor(() -> sink.getNumRotations() == 1);
+
+        // then
+        assertThat(rolledFiles()).extracting(file -> file.getFileName().toString())
+                                 .containsExactly("spans.log.20231114-221421");
+        assertThat(Files.exists(activeFile)).isFalse();
+
+        // and when
+        sink.spanCompleted(completedSpan("second"), false);
+        sink.close();
+
+        // then
+        assertThat(Files.readAllLines(activeFile, StandardCharsets.UTF_8)).hasSize(1);
+        assertThat(sink.getNumRotations()).isEqualTo(1);
+    }
+
+    @Test
+    public void spans_are_dropped_when_the_queue_is_full_or_the_sink_is_closed() throws Exception {
+        // given
+        CountDownLatch writerEntered = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        AsyncRollingFileSpanSink.Builder builder = AsyncRollingFileSpanSink.newBuilder(activeFile)
+                                                                           .withQueueCapacity(2);
+        AsyncRollingFileSpanSink sink = track(new AsyncRollingFileSpanSink(builder) {
+            @Override
+            protected void writeBatch(List<PendingSpan> spans) {
+                writerEntered.countDown();
+                try {
+                    releaseWriter.await();
+                }
+                catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                super.writeBatch(spans);
+            }
+        });
+        sink.spanCompleted(completedSpan("taken-by-writer"), false);
+        writerEntered.await();
+
+        // when
+        sink.spanCompleted(completedSpan("queued-1"), false);
+        sink.spanCompleted(completedSpan("queued-2"), false);
+        sink.spanCompleted(completedSpan("dropped"), false);
+
+        // then
+        assertThat(sink.getQueueSize()).isEqualTo(2);
+        assertThat(sink.getQueueCapacity()).isEqualTo(2);
+        assertThat(sink.getQueueUtilization()).isEqualTo(1.0);
+        assertThat(sink.getNumDroppedSpans()).isEqualTo(1);
+
+        // and when
+        releaseWriter.countDown();
+        sink.close();
+        sink.spanCompleted(completedSpan("after-close"), false);
+
+        // then
+        assertThat(sink.getNumWrittenSpans()).isEqualTo(3);
+        assertThat(sink.getNumDroppedSpans()).isEqualTo(2);
+        assertThat(sink.getDroppedSpanCount()).isEqualTo(2);
+        assertThat(sink.getQueueUtilization()).isZero();
+        assertThat(Files.readAllLines(activeFile, StandardCharsets.UTF_8)).hasSize(3);
+    }
+
+    @Test
+    public void write_failures_are_counted_as_failed_spans() throws IOException {
+        // given
+        Files.createDirectories(activeFile);
+        AsyncRollingFileSpanSink sink = track(AsyncRollingFileSpanSink.newBuilder(activeFile).build());
+
+        // when
+        sink.spanCompleted(completedSpan("first"), false);
+        sink.spanCompleted(completedSpan("second"), false);
+        sink.close();
+
+        // then
+        assertThat(sink.getNumFailedSpans()).isEqualTo(2);
+        assertThat(sink.getNumWrittenSpans()).isZero();
+        assertThat(sink.getDroppedSpanCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void a_span_that_fails_to_serialize_does_not_lose_the_rest_of_its_batch() throws Exception {
+        // given
+        CountDownLatch writerEntered = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        AsyncRollingFileSpanSink sink = track(new AsyncRollingFileSpanSink(
+            AsyncRollingFileSpanSink.newBuilder(activeFile)
+        ) {
+            @Override
+            protected void writeBatch(List<PendingSpan> spans) {
+                writerEntered.countDown();
+                try {
+                    releaseWriter.await();
+                }
+                catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                super.writeBatch(spans);
+            }
+
+            @Override
+            protected void writeSpan(Span span) {
+                super.writeSpan(span);
+                if ("bad".equals(span.getSpanName())) {
+                    throw new RuntimeException("intentional test exception");
+                }
+            }
+        });
+        sink.spanCompleted(completedSpan("taken-by-writer"), false);
+        writerEntered.await();
+        // These three are queued while the writer is blocked, so they're drained into the same batch.
+        sink.spanCompleted(completedSpan("before"), false);
+        sink.spanCompleted(completedSpan("bad"), false);
+        sink.spanCompleted(completedSpan("after"), false);
+
+        // when
+        releaseWriter.countDown();
+        sink.close();
+
+        // then
+        List<String> lines = Files.readAllLines(activeFile, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).contains("\"spanName\":\"taken-by-writer\"");
+        assertThat(lines.get(1)).contains("\"spanName\":\"before\"");
+        assertThat(lines.get(2)).contains("\"spanName\":\"after\"");
+        assertThat(sink.getNumWrittenSpans()).isEqualTo(3);
+        assertThat(sink.getNumFailedSpans()).isEqualTo(1);
+    }
+
+    @Test
+    public void close_is_idempotent() {
+        // given
+        AsyncRollingFileSpanSink sink = track(AsyncRollingFileSpanSink.newBuilder(activeFile).build());
+
+        // when
+        sink.close();
+        sink.close();
+
+        // then
+        assertThat(Files.exists(activeFile)).isFalse();
+    }
+
+    @Test
+    public void builder_rejects_invalid_arguments() {
+        // given
+        AsyncRollingFileSpanSink.Builder builder = AsyncRollingFileSpanSink.newBuilder(activeFile);
+
+        // expect
+        assertThat(catchThrowable(() -> AsyncRollingFileSpanSink.newBuilder(null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("activeFile cannot be null");
+        assertThat(catchThrowable(() -> builder.withQueueCapacity(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("queueCapacity must be positive");
+        assertThat(catchThrowable(() -> builder.withMaxBatchSize(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("maxBatchSize must be positive");
+        assertThat(catchThrowable(() -> builder.withWriteBufferSizeBytes(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("writeBufferSizeBytes must be positive");
+        assertThat(catchThrowable(() -> builder.withMaxFileSizeBytes(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("maxFileSizeBytes must be positive");
+        assertThat(catchThrowable(() -> builder.withRotationInterval(0, TimeUnit.SECONDS)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("interval must be positive");
+        assertThat(catchThrowable(() -> builder.withRotationInterval(1, null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("timeUnit cannot be null");
+        assertThat(catchThrowable(() -> builder.withMaxRolledFiles(-1)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("maxRolledFiles cannot be negative");
+        assertThat(catchThrowable(() -> builder.withSpanLoggingRepresentation(null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("representation cannot be null");
+    }
+}
@@ -12,10 +12,14 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
@@ -467,6 +471,73 @@ public class HttpTagAndSpanNamingStrategyTest {
         verify(spanMock).putTag(tagKey, tagValueToStringResult);
     }
 
+    @Test
+    public void putTagIfValueIsNotBlank_uses_typed_span_putTag_for_integral_number_values() {
+        // given
+        String tagKey = "tag_key-" + UUID.randomUUID().toString();
+
+        // when
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, 42);
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, 43L);
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, (short) 44);
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, (byte) 45);
+
+        // then
+        verify(spanMock).putTag(tagKey, 42L);
+        verify(spanMock).putTag(tagKey, 43L);
+        verify(spanMock).putTag(tagKey, 44L);
+        verify(spanMock).putTag(tagKey, 45L);
+        verify(spanMock, never()).putTag(anyString(), anyString());
+    }
+
+    @Test
+    public void putTagIfValueIsNotBlank_uses_typed_span_putTag_for_double_values() {
+        // given
+        String tagKey = "tag_key-" + UUID.randomUUID().toString();
+
+        // when
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, 4.5d);
+
+        // then
+        verify(spanMock).putTag(tagKey, 4.5d);
+        verify(spanMock, never()).putTag(anyString(), anyString());
+    }
+
+    @Test
+    public void putTagIfValueIsNotBlank_uses_toString_for_float_and_other_number_values() {
+        // given
+        String tagKey = "tag_key-" + UUID.randomUUID().toString();
+        Span span = Span.newBuilder("foo", SpanPurpose.SERVER).build();
+
+        // when
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, 0.1f);
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, new BigDecimal("1.10"));
+        implSpy.putTagIfValueIsNotBlank(span, tagKey, 0.1f);
+
+        // then
+        verify(spanMock).putTag(tagKey, "0.1");
+        verify(spanMock).putTag(tagKey, "1.10");
+        verify(spanMock, never()).putTag(anyString(), anyDouble());
+        assertThat(span.getTags().get(tagKey)).isEqualTo("0.1");
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void putTagIfValueIsNotBlank_uses_typed_span_putTag_for_boolean_values(boolean tagValue) {
+        // given
+        String tagKey = "tag_key-" + UUID.randomUUID().toString();
+
+        // when
+        implSpy.putTagIfValueIsNotBlank(spanMock, tagKey, Boolean.valueOf(tagValue));
+
+        // then
+        verify(spanMock).putTag(tagKey, tagValue);
+        verify(spanMock, never()).putTag(anyString(), anyString());
+    }
+
     @DataProvider(value = {
         "null",
         "",
@@ -514,10 +585,149 @@ public class HttpTagAndSpanNamingStrategyTest {
         verify(spanMock, never()).putTag(anyString(), anyString());
     }
 
+    @DataProvider(value = {
+        "true   |   true    |   true",
+        "true   |   false   |   false",
+        "false  |   true    |   true",
+        "false  |   false   |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void handleRequestTagging_skips_doHandleRequestTagging_for_non_sampled_spans_only_when_configured_to(
+        boolean skipTaggingForNonSampledSpans, boolean spanIsSampleable, boolean expectTagging
+    ) {
+        // given
+        HttpTagAndSpanNamingStrategy<Object, Object> impl = spy(new BasicImpl(skipTaggingForNonSampledSpans));
+        doReturn(spanIsSampleable).when(spanMock).isSampleable();
+
+        // when
+        impl.handleRequestTagging(spanMock, requestObjectMock, adapterMock);
+
+        // then
+        assertThat(impl.isSkipTaggingForNonSampledSpans()).isEqualTo(skipTaggingForNonSampledSpans);
+        if (expectTagging) {
+            verify(impl).doHandleRequestTagging(spanMock, requestObjectMock, adapterMock);
+        }
+        else {
+            verify(impl, never()).doHandleRequestTagging(
+                any(Span.class), anyObject(), any(HttpTagAndSpanNamingAdapter.class)
+            );
+        }
+    }
+
+    @DataProvider(value = {
+        "true   |   true    |   true",
+        "true   |   false   |   false",
+        "false  |   true    |   true",
+        "false  |   false   |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void handleResponseTaggingAndFinalSpanName_only_sets_final_span_name_for_non_sampled_spans_when_configured_to(
+        boolean skipTaggingForNonSampledSpans, boolean spanIsSampleable, boolean expectTagging
+    ) {
+        // given
+        HttpTagAndSpanNamingStrategy<Object, Object> impl = spy(new BasicImpl(skipTaggingForNonSampledSpans));
+        doReturn(spanIsSampleable).when(spanMock).isSampleable();
+
+        // when
+        impl.handleResponseTaggingAndFinalSpanName(
+            spanMock, requestObjectMock, responseObjectMock, errorMock, adapterMock
+        );
+
+        // then
+        verify(impl).doDetermineAndSetFinalSpanName(
+            spanMock, requestObjectMock, responseObjectMock, errorMock, adapterMock
+        );
+        if (expectTagging) {
+            verify(impl).doHandleResponseAndErrorTagging(
+                spanMock, requestObjectMock, responseObjectMock, errorMock, adapterMock
+            );
+            verify(impl).doExtraWingtipsTagging(
+                spanMock, requestObjectMock, responseObjectMock, errorMock, adapterMock
+            );
+        }
+        else {
+            verify(impl, never()).doHandleResponseAndErrorTagging(
+                any(Span.class), anyObject(), anyObject(), any(Throwable.class), any(HttpTagAndSpanNamingAdapter.class)
+            );
+            verify(impl, never()).doExtraWingtipsTagging(
+                any(Span.class), anyObject(), anyObject(), any(Throwable.class), any(HttpTagAndSpanNamingAdapter.class)
+            );
+        }
+    }
+
+    @Test
+    public void putDeferredTagIfValueIsNotBlank_puts_a_deferred_tag_that_is_only_evaluated_when_read() {
+        // given
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).withSampleable(false).build();
+        String tagKey = "tag_key-" + UUID.randomUUID().toString();
+        String tagValue = "tag_value-" + UUID.randomUUID().toString();
+        AtomicInteger numEvaluations = new AtomicInteger();
+
+        // when
+        implSpy.putDeferredTagIfValueIsNotBlank(span, tagKey, () -> {
+            numEvaluations.incrementAndGet();
+            return tagValue;
+        });
+
+        // then
+        assertThat(numEvaluations.get()).isEqualTo(0);
+        assertThat(span.getTags()).containsOnly(entry(tagKey, tagValue));
+        assertThat(span.getTags()).containsOnly(entry(tagKey, tagValue));
+        assertThat(numEvaluations.get()).isEqualTo(1);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "[whitespace]"
+    }, splitBy = "\\|")
+    @Test
+    public void putDeferredTagIfValueIsNotBlank_results_in_no_tag_when_the_deferred_value_is_blank(
+        String blankValue
+    ) {
+        // given
+        String finalBlankValue = ("[whitespace]".equals(blankValue)) ? "   \n\r\t   " : blankValue;
+        Span span = Span.newBuilder("foo", SpanPurpose.LOCAL_ONLY).build();
+
+        // when
+        implSpy.putDeferredTagIfValueIsNotBlank(span, "tag_key", () -> finalBlankValue);
+
+        // then
+        assertThat(span.getTags()).isEmpty();
+    }
+
+    @DataProvider(value = {
+        "true   |   false   |   false",
+        "false  |   true    |   false",
+        "false  |   false   |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void putDeferredTagIfValueIsNotBlank_does_nothing_when_any_arg_is_null(
+        boolean spanIsNull, boolean tagKeyIsNull, boolean tagValueIsNull
+    ) {
+        // given
+        Span span = (spanIsNull) ? null : spanMock;
+        String tagKey = (tagKeyIsNull) ? null : UUID.randomUUID().toString();
+        Span.DeferredTagValue tagValue = (tagValueIsNull) ? null : () -> "foo";
+
+        // when
+        implSpy.putDeferredTagIfValueIsNotBlank(span, tagKey, tagValue);
+
+        // then
+        verifyZeroInteractions(spanMock);
+    }
+
     // A basic impl that implements the required abstract methods, but doesn't override anything. None of these
     //      methods will be tested - we are only going to test the non-abstract default methods
     //      of HttpTagAndSpanNamingStrategy.
     private static class BasicImpl extends HttpTagAndSpanNamingStrategy<Object, Object> {
+        BasicImpl() {
+        }
+
+        BasicImpl(boolean skipTaggingForNonSampledSpans) {
+            super(skipTaggingForNonSampledSpans);
+        }
+
         @Override
         protected void doHandleRequestTagging(
             @NotNull Span span, @NotNull Object request, @NotNull HttpTagAndSpanNamingAdapter<Object, ?> adapter
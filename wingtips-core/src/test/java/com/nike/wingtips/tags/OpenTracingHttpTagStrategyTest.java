@@ -8,11 +8,13 @@ import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -49,6 +51,15 @@ public class OpenTracingHttpTagStrategyTest {
         assertThat(OpenTracingHttpTagStrategy.getDefaultInstance()).isSameAs(OpenTracingHttpTagStrategy.DEFAULT_INSTANCE);
     }
 
+    @Test
+    public void constructors_set_skipTaggingForNonSampledSpans_as_expected() {
+        // expect
+        assertThat(new OpenTracingHttpTagStrategy<>().isSkipTaggingForNonSampledSpans()).isFalse();
+        assertThat(new OpenTracingHttpTagStrategy<>(false).isSkipTaggingForNonSampledSpans()).isFalse();
+        assertThat(new OpenTracingHttpTagStrategy<>(true).isSkipTaggingForNonSampledSpans()).isTrue();
+        assertThat(OpenTracingHttpTagStrategy.getDefaultInstance().isSkipTaggingForNonSampledSpans()).isFalse();
+    }
+
     @Test
     public void doHandleRequestTagging_puts_expected_tags_based_on_adapter_results() {
         // given
@@ -63,10 +74,16 @@ public class OpenTracingHttpTagStrategyTest {
 
         // then
         verify(adapterMock).getRequestHttpMethod(requestMock);
-        verify(adapterMock).getRequestUrl(requestMock);
+        // The URL is deferred, so it shouldn't have been built yet.
+        verify(adapterMock, never()).getRequestUrl(anyObject());
 
         verify(implSpy).putTagIfValueIsNotBlank(spanMock, KnownOpenTracingTags.HTTP_METHOD, adapterHttpMethod);
-        verify(implSpy).putTagIfValueIsNotBlank(spanMock, KnownOpenTracingTags.HTTP_URL, adapterHttpUrl);
+        ArgumentCaptor<Span.DeferredTagValue> deferredUrlCaptor = ArgumentCaptor.forClass(Span.DeferredTagValue.class);
+        verify(implSpy).putDeferredTagIfValueIsNotBlank(
+            eq(spanMock), eq(KnownOpenTracingTags.HTTP_URL), deferredUrlCaptor.capture()
+        );
+        assertThat(deferredUrlCaptor.getValue().get()).isEqualTo(adapterHttpUrl);
+        verify(adapterMock).getRequestUrl(requestMock);
     }
 
     private enum ErrorTaggingScenario {
@@ -121,7 +138,7 @@ public class OpenTracingHttpTagStrategyTest {
         }
 
         if (scenario.expectErrorTagPutOnSpan) {
-            verify(spanMock).putTag(KnownOpenTracingTags.ERROR, "true");
+            verify(spanMock).putTag(KnownOpenTracingTags.ERROR, true);
         }
     }
 
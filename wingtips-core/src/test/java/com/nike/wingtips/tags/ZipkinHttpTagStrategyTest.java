@@ -8,11 +8,13 @@ import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -51,6 +53,15 @@ public class ZipkinHttpTagStrategyTest {
         assertThat(ZipkinHttpTagStrategy.getDefaultInstance()).isSameAs(ZipkinHttpTagStrategy.DEFAULT_INSTANCE);
     }
 
+    @Test
+    public void constructors_set_skipTaggingForNonSampledSpans_as_expected() {
+        // expect
+        assertThat(new ZipkinHttpTagStrategy<>().isSkipTaggingForNonSampledSpans()).isFalse();
+        assertThat(new ZipkinHttpTagStrategy<>(false).isSkipTaggingForNonSampledSpans()).isFalse();
+        assertThat(new ZipkinHttpTagStrategy<>(true).isSkipTaggingForNonSampledSpans()).isTrue();
+        assertThat(ZipkinHttpTagStrategy.getDefaultInstance().isSkipTaggingForNonSampledSpans()).isFalse();
+    }
+
     @Test
     public void doHandleRequestTagging_puts_expected_tags_based_on_adapter_results() {
         // given
@@ -70,12 +81,18 @@ public class ZipkinHttpTagStrategyTest {
         // then
         verify(adapterMock).getRequestHttpMethod(requestMock);
         verify(adapterMock).getRequestPath(requestMock);
-        verify(adapterMock).getRequestUrl(requestMock);
+        // The URL is deferred, so it shouldn't have been built yet.
+        verify(adapterMock, never()).getRequestUrl(anyObject());
         verify(adapterMock).getRequestUriPathTemplate(requestMock, null);
         
         verify(implSpy).putTagIfValueIsNotBlank(spanMock, KnownZipkinTags.HTTP_METHOD, adapterHttpMethod);
         verify(implSpy).putTagIfValueIsNotBlank(spanMock, KnownZipkinTags.HTTP_PATH, adapterPath);
-        verify(implSpy).putTagIfValueIsNotBlank(spanMock, KnownZipkinTags.HTTP_URL, adapterHttpUrl);
+        ArgumentCaptor<Span.DeferredTagValue> deferredUrlCaptor = ArgumentCaptor.forClass(Span.DeferredTagValue.class);
+        verify(implSpy).putDeferredTagIfValueIsNotBlank(
+            eq(spanMock), eq(KnownZipkinTags.HTTP_URL), deferredUrlCaptor.capture()
+        );
+        assertThat(deferredUrlCaptor.getValue().get()).isEqualTo(adapterHttpUrl);
+        verify(adapterMock).getRequestUrl(requestMock);
         verify(implSpy).putTagIfValueIsNotBlank(spanMock, KnownZipkinTags.HTTP_ROUTE, adapterRoute);
     }
 
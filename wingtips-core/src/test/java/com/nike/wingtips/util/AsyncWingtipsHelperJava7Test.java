@@ -68,6 +68,7 @@ public class AsyncWingtipsHelperJava7Test {
     private void resetTracing() {
         MDC.clear();
         Tracer.getInstance().unregisterFromThread();
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(SpanFieldForLoggerMdc.TRACE_ID);
     }
 
     private TracingState generateTracingStateInfo() {
@@ -461,4 +462,39 @@ public class AsyncWingtipsHelperJava7Test {
             assertThat(postCallInfo.getRight()).isEqualTo(expectedMdcInfo);
         }
     }
+
+    @Test
+    public void link_then_unlink_restores_the_original_MDC_exactly_when_multiple_span_fields_are_configured() {
+        // given
+        Tracer.getInstance().setSpanFieldsForLoggerMdc(
+            SpanFieldForLoggerMdc.TRACE_ID, SpanFieldForLoggerMdc.SPAN_ID, SpanFieldForLoggerMdc.PARENT_SPAN_ID
+        );
+        Tracer.getInstance().startRequestWithRootSpan("other-request");
+        Deque<Span> otherSpanStack = Tracer.getInstance().getCurrentSpanStackCopy();
+        Map<String, String> otherMdcInfo = MDC.getCopyOfContextMap();
+        Tracer.getInstance().unregisterFromThread();
+
+        Tracer.getInstance().startRequestWithRootSpan("this-request");
+        Span thisSubSpan = Tracer.getInstance().startSubSpan("this-sub-span", Span.SpanPurpose.LOCAL_ONLY);
+        MDC.put("fooMdcKey", UUID.randomUUID().toString());
+        Deque<Span> thisSpanStack = Tracer.getInstance().getCurrentSpanStackCopy();
+        Map<String, String> thisMdcInfo = MDC.getCopyOfContextMap();
+        assertThat(thisMdcInfo).containsEntry(SpanFieldForLoggerMdc.PARENT_SPAN_ID.mdcKey,
+                                              thisSubSpan.getParentSpanId());
+
+        // when
+        TracingState originalState = linkTracingToCurrentThread(otherSpanStack, otherMdcInfo);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(otherSpanStack);
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(otherMdcInfo);
+        assertThat(MDC.get(SpanFieldForLoggerMdc.PARENT_SPAN_ID.mdcKey)).isNull();
+
+        // and when
+        unlinkTracingFromCurrentThread(originalState);
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpanStackCopy()).isEqualTo(thisSpanStack);
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(thisMdcInfo);
+    }
 }
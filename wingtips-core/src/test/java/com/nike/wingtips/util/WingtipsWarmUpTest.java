@@ -0,0 +1,94 @@
+package com.nike.wingtips.util;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link WingtipsWarmUp}.
+ *
+ * @author Nic Munroe
+ */
+public class WingtipsWarmUpTest {
+
+    @Before
+    public void beforeMethod() {
+        resetTracing();
+        WingtipsWarmUp.resetWarmUpState();
+    }
+
+    @After
+    public void afterMethod() {
+        resetTracing();
+        WingtipsWarmUp.resetWarmUpState();
+    }
+
+    private void resetTracing() {
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+        Tracer.getInstance().removeAllSpanLifecycleListeners();
+    }
+
+    @Test
+    public void warmUp_performs_warm_up_only_once() {
+        // expect
+        assertThat(WingtipsWarmUp.isWarmedUp()).isFalse();
+
+        // when
+        boolean firstResult = WingtipsWarmUp.warmUp();
+        boolean secondResult = WingtipsWarmUp.warmUp();
+
+        // then
+        assertThat(firstResult).isTrue();
+        assertThat(secondResult).isFalse();
+        assertThat(WingtipsWarmUp.isWarmedUp()).isTrue();
+        assertThat(WingtipsWarmUp.warmUpInBackground()).isNull();
+    }
+
+    @Test
+    public void warmUpInBackground_performs_warm_up_on_daemon_thread() throws InterruptedException {
+        // when
+        Thread thread = WingtipsWarmUp.warmUpInBackground();
+
+        // then
+        assertThat(thread).isNotNull();
+        assertThat(thread.isDaemon()).isTrue();
+        assertThat(thread.getName()).isEqualTo(WingtipsWarmUp.WARM_UP_THREAD_NAME);
+
+        // and when
+        thread.join();
+
+        // then
+        assertThat(WingtipsWarmUp.isWarmedUp()).isTrue();
+        assertThat(WingtipsWarmUp.warmUpInBackground()).isNull();
+        assertThat(WingtipsWarmUp.warmUp()).isFalse();
+    }
+
+    @Test
+    public void warmUp_does_not_affect_tracing_state_or_notify_listeners() {
+        // given
+        SpanLifecycleListener listener = mock(SpanLifecycleListener.class);
+        Tracer.getInstance().addSpanLifecycleListener(listener);
+
+        // when
+        WingtipsWarmUp.warmUp();
+
+        // then
+        assertThat(Tracer.getInstance().getCurrentSpan()).isNull();
+        assertThat(MDC.getCopyOfContextMap()).isNullOrEmpty();
+        verify(listener, never()).spanStarted(any(Span.class));
+        verify(listener, never()).spanSampled(any(Span.class));
+        verify(listener, never()).spanCompleted(any(Span.class));
+    }
+}
@@ -0,0 +1,401 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+import com.nike.wingtips.util.parser.SpanBinaryCodec.BatchReader;
+import com.nike.wingtips.util.parser.SpanBinaryCodec.BatchWriter;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static com.nike.wingtips.SpanTest.verifySpanDeepEquals;
+import static com.nike.wingtips.TestSpanCompleter.completeSpan;
+import static com.nike.wingtips.util.parser.TestSpanFixtures.fullSpan;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link SpanBinaryCodec}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanBinaryCodecTest {
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void round_trip_is_equivalent_to_SpanParser(boolean completed) {
+        // given
+        Span span = fullSpan(completed);
+
+        // when
+        byte[] encoded = SpanBinaryCodec.toBytes(span);
+        Span decoded = SpanBinaryCodec.fromBytes(encoded);
+
+        // then
+        verifySpanDeepEquals(decoded, span, true);
+        verifySpanDeepEquals(decoded, SpanParser.fromJSON(span.toJSON()), true);
+        verifySpanDeepEquals(decoded, SpanParser.fromKeyValueString(span.toKeyValueString()), true);
+        assertThat(decoded.getTypedTags()).isEqualTo(span.getTypedTags());
+    }
+
+    @DataProvider(value = {
+        "0123456789abcdef",
+        "0123456789abcdef0123456789abcdef",
+        "ffffffffffffffff",
+        "0000000000000000",
+        "0123456789ABCDEF",
+        "0123456789abcde",
+        "0123456789abcdefa",
+        "not-hex-at-all-!",
+        "some-uuid-style-id"
+    })
+    @Test
+    public void ids_round_trip_exactly(String id) {
+        // given
+        Span span = new Span(id, id, id, "name", false, null, null, 1234, null, null, null, null);
+
+        // when
+        Span decoded = SpanBinaryCodec.fromBytes(SpanBinaryCodec.toBytes(span));
+
+        // then
+        assertThat(decoded.getTraceId()).isEqualTo(id);
+        assertThat(decoded.getParentSpanId()).isEqualTo(id);
+        assertThat(decoded.getSpanId()).isEqualTo(id);
+        assertThat(decoded.isSampleable()).isFalse();
+        assertThat(decoded.getSpanPurpose()).isEqualTo(SpanPurpose.UNKNOWN);
+        assertThat(decoded.getUserId()).isNull();
+        assertThat(decoded.getDurationNanos()).isNull();
+    }
+
+    @DataProvider(value = {
+        "0",
+        "1",
+        "-1",
+        "1700000000000000",
+        "9223372036854775807",
+        "-9223372036854775808"
+    })
+    @Test
+    public void varint_fields_round_trip_at_the_edges(long value) {
+        // given
+        Span span = new Span(
+            "trace", null, "span", "name", true, null, SpanPurpose.SERVER, value, 0L, value, null,
+            Arrays.asList(TimestampedAnnotation.forEpochMicros(value, "a"), TimestampedAnnotation.forEpochMicros(0, "b"))
+        );
+        span.putTag("long", value);
+
+        // when
+        Span decoded = SpanBinaryCodec.fromBytes(SpanBinaryCodec.toBytes(span));
+
+        // then
+        assertThat(decoded.getSpanStartTimeEpochMicros()).isEqualTo(value);
+        assertThat(decoded.getDurationNanos()).isEqualTo(value);
+        assertThat(decoded.getTypedTags()).containsEntry("long", value);
+        assertThat(decoded.getTimestampedAnnotations()).isEqualTo(span.getTimestampedAnnotations());
+    }
+
+    @Test
+    public void all_span_purposes_round_trip() {
+        for (SpanPurpose purpose : SpanPurpose.values()) {
+            // given
+            Span span = Span.newBuilder("name", purpose).build();
+
+            // when
+            Span decoded = SpanBinaryCodec.fromBytes(SpanBinaryCodec.toBytes(span));
+
+            // then
+            assertThat(decoded.getSpanPurpose()).isEqualTo(purpose);
+        }
+    }
+
+    @Test
+    public void encoding_is_much_smaller_than_json() {
+        // given
+        Span span = Span.newBuilder("GET /some/endpoint", SpanPurpose.SERVER).build();
+        span.putTag("http.method", "GET");
+        span.putTag("http.status_code", 200L);
+        completeSpan(span);
+
+        // when
+        byte[] encoded = SpanBinaryCodec.toBytes(span);
+
+        // then
+        assertThat(encoded.length).isLessThan(span.toJSON().getBytes(StandardCharsets.UTF_8).length / 2);
+    }
+
+    @Test
+    public void encode_to_ByteBuffer_writes_the_same_bytes_as_toBytes() {
+        // given
+        Span span = fullSpan(true);
+        byte[] expected = SpanBinaryCodec.toBytes(span);
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length + 10);
+        buffer.put((byte) 7);
+
+        // when
+        int written = SpanBinaryCodec.encode(span, buffer);
+
+        // then
+        assertThat(written).isEqualTo(expected.length);
+        assertThat(buffer.position()).isEqualTo(expected.length + 1);
+        assertThat(Arrays.copyOfRange(buffer.array(), 1, expected.length + 1)).isEqualTo(expected);
+    }
+
+    @Test
+    public void encode_to_ByteBuffer_throws_BufferOverflowException_without_writing_if_there_is_not_enough_room() {
+        // given
+        Span span = fullSpan(true);
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+
+        // when
+        Throwable ex = catchThrowable(() -> SpanBinaryCodec.encode(span, buffer));
+
+        // then
+        assertThat(ex).isInstanceOf(BufferOverflowException.class);
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    public void fromBytes_only_reads_the_given_range() {
+        // given
+        Span span = fullSpan(true);
+        byte[] encoded = SpanBinaryCodec.toBytes(span);
+        byte[] padded = new byte[encoded.length + 20];
+        Arrays.fill(padded, (byte) 0x7F);
+        System.arraycopy(encoded, 0, padded, 10, encoded.length);
+
+        // when
+        Span decoded = SpanBinaryCodec.fromBytes(padded, 10, encoded.length);
+
+        // then
+        verifySpanDeepEquals(decoded, span, true);
+    }
+
+    @Test
+    public void base64_round_trip_uses_standard_base64() {
+        // given
+        Span span = fullSpan(true);
+        String expectedBase64 = Base64.getEncoder().encodeToString(SpanBinaryCodec.toBytes(span));
+
+        // when
+        String base64 = SpanBinaryCodec.toBase64(span);
+
+        // then
+        assertThat(base64).isEqualTo(expectedBase64);
+        verifySpanDeepEquals(SpanBinaryCodec.fromBase64(base64), span, true);
+        verifySpanDeepEquals(SpanBinaryCodec.fromBase64(" " + base64 + "\r\n"), span, true);
+        byte[] logLine = ("prefix " + base64 + "\n").getBytes(StandardCharsets.UTF_8);
+        verifySpanDeepEquals(SpanBinaryCodec.fromBase64Utf8(logLine, 7, logLine.length - 7), span, true);
+    }
+
+    @Test
+    public void base64_round_trip_works_for_every_padding_length() {
+        for (int i = 0; i < 3; i++) {
+            // given
+            StringBuilder name = new StringBuilder("n");
+            for (int j = 0; j < i; j++) {
+                name.append('x');
+            }
+            Span span = new Span("t", null, "s", name.toString(), true, null, null, 0, null, null, null, null);
+            String base64 = SpanBinaryCodec.toBase64(span);
+
+            // when
+            Span decoded = SpanBinaryCodec.fromBase64(base64);
+
+            // then
+            assertThat(base64).isEqualTo(Base64.getEncoder().encodeToString(SpanBinaryCodec.toBytes(span)));
+            assertThat(decoded.getSpanName()).isEqualTo(name.toString());
+        }
+    }
+
+    @Test
+    public void looksLikeBase64Encoding_distinguishes_binary_from_json_and_key_value() {
+        // given
+        Span span = fullSpan(true);
+        byte[] base64 = SpanBinaryCodec.toBase64(span).getBytes(StandardCharsets.UTF_8);
+        byte[] json = span.toJSON().getBytes(StandardCharsets.UTF_8);
+        byte[] keyValue = span.toKeyValueString().getBytes(StandardCharsets.UTF_8);
+
+        // expect
+        assertThat(SpanBinaryCodec.looksLikeBase64Encoding(base64, 0, base64.length)).isTrue();
+        assertThat(SpanBinaryCodec.looksLikeBase64Encoding(json, 0, json.length)).isFalse();
+        assertThat(SpanBinaryCodec.looksLikeBase64Encoding(keyValue, 0, keyValue.length)).isFalse();
+        assertThat(SpanBinaryCodec.looksLikeBase64Encoding(base64, 0, base64.length - 1)).isFalse();
+    }
+
+    @Test
+    public void from_methods_return_null_for_every_truncation_of_a_valid_encoding() {
+        // given
+        byte[] encoded = SpanBinaryCodec.toBytes(fullSpan(true));
+
+        for (int length = 0; length < encoded.length; length++) {
+            // expect
+            assertThat(SpanBinaryCodec.fromBytes(encoded, 0, length)).isNull();
+        }
+    }
+
+    @Test
+    public void from_methods_return_null_for_malformed_input() {
+        // given
+        byte[] encoded = SpanBinaryCodec.toBytes(fullSpan(true));
+        byte[] withTrailingByte = Arrays.copyOf(encoded, encoded.length + 1);
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[0] = 2;
+        byte[] badIdKind = encoded.clone();
+        badIdKind[2] = 9;
+        // Structurally valid, but with a null trace ID.
+        byte[] nullTraceId = {1, 0, 0, 0, 3, 2, 's', 2, 'n', 0, 0, 0, 0};
+        byte[] badVarint = {1, 0, 0, 0, 3, 1, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+        // expect
+        assertThat(SpanBinaryCodec.fromBytes(null)).isNull();
+        assertThat(SpanBinaryCodec.fromBytes(withTrailingByte)).isNull();
+        assertThat(SpanBinaryCodec.fromBytes(wrongVersion)).isNull();
+        assertThat(SpanBinaryCodec.fromBytes(badIdKind)).isNull();
+        assertThat(SpanBinaryCodec.fromBytes(nullTraceId)).isNull();
+        assertThat(SpanBinaryCodec.fromBytes(badVarint)).isNull();
+        assertThat(SpanBinaryCodec.fromBase64(null)).isNull();
+        assertThat(SpanBinaryCodec.fromBase64("not base64!")).isNull();
+        assertThat(SpanBinaryCodec.fromBase64("AQID")).isNull();
+        assertThat(SpanBinaryCodec.fromBase64("AQI")).isNull();
+        assertThat(SpanBinaryCodec.fromBase64("A===")).isNull();
+        assertThat(SpanBinaryCodec.fromBase64("AQ=A")).isNull();
+        byte[] nonAscii = "AQ\u20ac=".getBytes(StandardCharsets.UTF_8);
+        assertThat(SpanBinaryCodec.fromBase64Utf8(nonAscii, 0, nonAscii.length)).isNull();
+    }
+
+    @Test
+    public void array_methods_validate_their_arguments() {
+        // expect
+        assertThat(catchThrowable(() -> SpanBinaryCodec.fromBytes(null, 0, 0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("bytes cannot be null");
+        assertThat(catchThrowable(() -> SpanBinaryCodec.fromBytes(new byte[2], 1, 2)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(catchThrowable(() -> SpanBinaryCodec.fromBase64Utf8(new byte[2], -1, 1)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(catchThrowable(() -> SpanBinaryCodec.toBytes(null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("span cannot be null");
+        assertThat(catchThrowable(() -> new BatchWriter(null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("out cannot be null");
+        assertThat(catchThrowable(() -> new BatchReader(null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("in cannot be null");
+    }
+
+    @Test
+    public void batch_round_trip_works_and_reuses_repeated_strings() throws IOException {
+        // given
+        List<Span> spans = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Span span = (i % 10 == 0) ? fullSpan(true) : Span.newBuilder("repeated-name", SpanPurpose.SERVER).build();
+            span.putTag("index", i);
+            spans.add(span);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        // when
+        try (BatchWriter writer = new BatchWriter(bytes)) {
+            writer.writeAll(spans.subList(0, 100));
+            writer.flush();
+            for (Span span : spans.subList(100, 200)) {
+                writer.write(span);
+            }
+            assertThat(writer.getSpansWritten()).isEqualTo(200);
+        }
+
+        // then
+        List<Span> decoded = new ArrayList<>();
+        try (BatchReader reader = new BatchReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Span span;
+            while ((span = reader.next()) != null) {
+                decoded.add(span);
+            }
+            assertThat(reader.getSpansRead()).isEqualTo(200);
+            assertThat(reader.next()).isNull();
+        }
+        assertThat(decoded).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            verifySpanDeepEquals(decoded.get(i), spans.get(i), true);
+        }
+        assertThat(decoded.get(1).getSpanName()).isSameAs(decoded.get(2).getSpanName());
+    }
+
+    @Test
+    public void batch_with_no_spans_is_valid() throws IOException {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new BatchWriter(bytes).close();
+
+        // when
+        Span span = new BatchReader(new ByteArrayInputStream(bytes.toByteArray())).next();
+
+        // then
+        assertThat(bytes.toByteArray()).isEqualTo(SpanBinaryCodec.BATCH_MAGIC);
+        assertThat(span).isNull();
+        assertThat(new BatchReader(new ByteArrayInputStream(new byte[0])).next()).isNull();
+    }
+
+    @Test
+    public void BatchReader_throws_IOException_for_invalid_batches() throws IOException {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BatchWriter writer = new BatchWriter(bytes)) {
+            writer.write(fullSpan(true));
+        }
+        byte[] valid = bytes.toByteArray();
+        byte[] truncatedRecord = Arrays.copyOf(valid, valid.length - 1);
+        byte[] badHeader = valid.clone();
+        badHeader[0] = 'X';
+        byte[] shortHeader = {'W', 'T'};
+        byte[] corruptRecord = valid.clone();
+        int lengthPrefixSize = ((valid[SpanBinaryCodec.BATCH_MAGIC.length] & 0x80) != 0) ? 2 : 1;
+        // Overwrite the record's format version.
+        corruptRecord[SpanBinaryCodec.BATCH_MAGIC.length + lengthPrefixSize] = 9;
+        byte[] hugeRecord = {'W', 'T', 'S', 'B', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F};
+        byte[] truncatedLength = {'W', 'T', 'S', 'B', (byte) 0xFF};
+
+        // expect
+        assertThat(catchThrowable(() -> readAll(truncatedRecord))).isInstanceOf(EOFException.class);
+        assertThat(catchThrowable(() -> readAll(badHeader)))
+            .isInstanceOf(IOException.class).hasMessageContaining("batch header");
+        assertThat(catchThrowable(() -> readAll(shortHeader)))
+            .isInstanceOf(IOException.class).hasMessageContaining("batch header");
+        assertThat(catchThrowable(() -> readAll(corruptRecord)))
+            .isInstanceOf(IOException.class).hasMessageContaining("record_index=0");
+        assertThat(catchThrowable(() -> readAll(hugeRecord)))
+            .isInstanceOf(IOException.class).hasMessageContaining("Invalid span record length");
+        assertThat(catchThrowable(() -> readAll(truncatedLength))).isInstanceOf(EOFException.class);
+    }
+
+    private static void readAll(byte[] batch) throws IOException {
+        BatchReader reader = new BatchReader(new ByteArrayInputStream(batch));
+        while (reader.next() != null) {
+            // keep reading
+        }
+    }
+
+    @Test
+    public void code_coverage_hoops() {
+        // jump!
+        new SpanBinaryCodec();
+    }
+}
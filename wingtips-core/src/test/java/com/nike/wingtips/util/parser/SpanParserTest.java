@@ -6,7 +6,7 @@ import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.Span.TimestampedAnnotation;
 import com.nike.wingtips.TraceAndSpanIdGenerator;
 import com.nike.wingtips.Tracer;
-import com.nike.wingtips.util.parser.SpanParser.JsonDeserializationResult;
+import com.nike.wingtips.clock.SpanClock;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -51,7 +51,7 @@ public class SpanParserTest {
     private long startTimeEpochMicrosForFullyCompleteSpan = 42;
     private long startTimeNanosForFullyCompleteSpan = calculateNanoStartTimeFromSpecifiedEpochMicrosStartTime(
         startTimeEpochMicrosForFullyCompleteSpan,
-        TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()),
+        SpanClock.getGlobalClock().currentTimeEpochMicros(),
         System.nanoTime());
     private long durationNanosForFullyCompletedSpan = 424242;
     private SpanPurpose spanPurposeForFullyCompletedSpan = SpanPurpose.SERVER;
@@ -701,22 +701,6 @@ public class SpanParserTest {
         assertThat(result.getTimestampedAnnotations().get(0).getValue()).isEqualTo(scenario.unescapedValue);
     }
 
-    @DataProvider(value = {
-        "true",
-        "false"
-    })
-    @Test
-    public void convertToTimestampedAnnotationsList_returns_null_if_passed_null_or_empty(boolean isNull) {
-        // given
-        List<JsonDeserializationResult> jdrList = (isNull) ? null : Collections.emptyList();
-
-        // when
-        List<TimestampedAnnotation> result = SpanParser.convertToTimestampedAnnotationsList(jdrList);
-
-        // then
-        assertThat(result).isNull();
-    }
-
     @Test
     public void convertSpanToJSON_and_fromJSON_should_escape_and_unescape_expected_non_tag_or_annotation_values() {
         // The TAGS_AND_ANNOTATIONS_WITH_SPECIAL_CHARS case already verified tags and annotations. Now we need to
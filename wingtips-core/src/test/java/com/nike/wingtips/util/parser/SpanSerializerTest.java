@@ -0,0 +1,327 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.nike.wingtips.SpanTest.verifySpanDeepEquals;
+import static com.nike.wingtips.util.parser.TestSpanFixtures.fullSpan;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link SpanSerializer}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanSerializerTest {
+
+    private static Span bareSpan() {
+        // No parent, user ID, tags, or annotations.
+        return Span.newBuilder("bare", SpanPurpose.LOCAL_ONLY).build();
+    }
+
+    private static String oldStyleJson(Span span) {
+        // The same output convertSpanToJSON() produced before it delegated to SpanSerializer - built from the
+        //      public getters and escapeJson().
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"traceId\":\"").append(SpanParser.escapeJson(span.getTraceId()))
+          .append("\",\"parentSpanId\":\"").append(SpanParser.escapeJson(span.getParentSpanId()))
+          .append("\",\"spanId\":\"").append(SpanParser.escapeJson(span.getSpanId()))
+          .append("\",\"spanName\":\"").append(SpanParser.escapeJson(span.getSpanName()))
+          .append("\",\"sampleable\":\"").append(span.isSampleable())
+          .append("\",\"userId\":\"").append(SpanParser.escapeJson(span.getUserId()))
+          .append("\",\"spanPurpose\":\"").append(span.getSpanPurpose().name())
+          .append("\",\"startTimeEpochMicros\":\"").append(span.getSpanStartTimeEpochMicros()).append('"');
+        if (span.isCompleted()) {
+            sb.append(",\"durationNanos\":\"").append(span.getDurationNanos()).append('"');
+        }
+        if (!span.getTags().isEmpty()) {
+            sb.append(",\"tags\":{");
+            span.getTags().forEach((k, v) -> sb.append('"').append(SpanParser.escapeJson(k)).append("\":\"")
+                                                .append(SpanParser.escapeJson(v)).append("\","));
+            sb.setLength(sb.length() - 1);
+            sb.append('}');
+        }
+        if (!span.getTimestampedAnnotations().isEmpty()) {
+            sb.append(",\"annotations\":[");
+            span.getTimestampedAnnotations().forEach(a -> sb.append("{\"timestampEpochMicros\":\"")
+                                                           .append(a.getTimestampEpochMicros())
+                                                           .append("\",\"value\":\"")
+                                                           .append(SpanParser.escapeJson(a.getValue())).append("\"},"));
+            sb.setLength(sb.length() - 1);
+            sb.append(']');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String oldStyleKeyValue(Span span) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("traceId=\"").append(SpanParser.escapeJson(span.getTraceId()))
+          .append("\",parentSpanId=\"").append(SpanParser.escapeJson(span.getParentSpanId()))
+          .append("\",spanId=\"").append(SpanParser.escapeJson(span.getSpanId()))
+          .append("\",spanName=\"").append(SpanParser.escapeJson(span.getSpanName()))
+          .append("\",sampleable=\"").append(span.isSampleable())
+          .append("\",userId=\"").append(SpanParser.escapeJson(span.getUserId()))
+          .append("\",spanPurpose=\"").append(span.getSpanPurpose().name())
+          .append("\",startTimeEpochMicros=\"").append(span.getSpanStartTimeEpochMicros()).append('"');
+        if (span.isCompleted()) {
+            sb.append(",durationNanos=\"").append(span.getDurationNanos()).append('"');
+        }
+        span.getTags().forEach((k, v) -> sb.append(",tag_")
+                                           .append(SpanParser.escapeJson(k).replace("=", "\\u003D")
+                                                                           .replace(" ", "\\u0020")
+                                                                           .replace(",", "\\u002C"))
+                                           .append("=\"").append(SpanParser.escapeJson(v)).append('"'));
+        span.getTimestampedAnnotations().forEach(a -> sb.append(",ts_annot_").append(a.getTimestampEpochMicros())
+                                                        .append("=\"").append(SpanParser.escapeJson(a.getValue()))
+                                                        .append('"'));
+        return sb.toString();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void appendJson_and_appendKeyValue_produce_same_output_as_before_and_round_trip(boolean completed) {
+        for (Span span : Arrays.asList(fullSpan(completed), bareSpan())) {
+            // given
+            StringBuilder jsonOut = new StringBuilder("existing content|");
+            StringBuilder keyValueOut = new StringBuilder("existing content|");
+
+            // when
+            SpanSerializer.appendJson(span, jsonOut);
+            SpanSerializer.appendKeyValue(span, keyValueOut);
+
+            // then
+            assertThat(jsonOut.toString()).isEqualTo("existing content|" + oldStyleJson(span));
+            assertThat(keyValueOut.toString()).isEqualTo("existing content|" + oldStyleKeyValue(span));
+            assertThat(SpanParser.convertSpanToJSON(span)).isEqualTo(oldStyleJson(span));
+            assertThat(SpanParser.convertSpanToKeyValueFormat(span)).isEqualTo(oldStyleKeyValue(span));
+            verifySpanDeepEquals(SpanParser.fromJSON(oldStyleJson(span)), span, true);
+            verifySpanDeepEquals(SpanParser.fromKeyValueString(oldStyleKeyValue(span)), span, true);
+        }
+    }
+
+    @Test
+    public void appendJson_and_appendKeyValue_work_with_Writers_and_other_Appendables() throws IOException {
+        // given
+        Span span = fullSpan(true);
+        StringWriter jsonWriter = new StringWriter();
+        StringWriter keyValueWriter = new StringWriter();
+        StringBuffer jsonBuffer = new StringBuffer();
+        StringBuffer keyValueBuffer = new StringBuffer();
+        Appendable stringBuilderAsAppendable = new StringBuilder();
+
+        // when
+        SpanSerializer.appendJson(span, jsonWriter);
+        SpanSerializer.appendKeyValue(span, keyValueWriter);
+        SpanSerializer.appendJson(span, jsonBuffer);
+        SpanSerializer.appendKeyValue(span, keyValueBuffer);
+        SpanSerializer.appendJson(span, stringBuilderAsAppendable);
+
+        // then
+        assertThat(jsonWriter.toString()).isEqualTo(span.toJSON());
+        assertThat(keyValueWriter.toString()).isEqualTo(span.toKeyValueString());
+        assertThat(jsonBuffer.toString()).isEqualTo(span.toJSON());
+        assertThat(keyValueBuffer.toString()).isEqualTo(span.toKeyValueString());
+        assertThat(stringBuilderAsAppendable.toString()).isEqualTo(span.toJSON());
+    }
+
+    @Test
+    public void Writer_output_is_correct_for_spans_larger_than_the_copy_chunk_size() throws IOException {
+        // given
+        Span span = bareSpan();
+        char[] bigValue = new char[5000];
+        Arrays.fill(bigValue, 'x');
+        span.putTag("big", new String(bigValue));
+        StringWriter writer = new StringWriter();
+
+        // when
+        SpanSerializer.appendJson(span, writer);
+
+        // then
+        assertThat(writer.toString()).isEqualTo(span.toJSON());
+    }
+
+    @Test
+    public void thread_local_buffer_methods_reuse_the_same_buffer() {
+        // given
+        Span span = fullSpan(true);
+        // Grab the expected values first - they're serialized using the same thread-local buffer.
+        String expectedJson = span.toJSON();
+        String expectedKeyValue = span.toKeyValueString();
+
+        // when
+        CharSequence json = SpanSerializer.toJsonInThreadLocalBuffer(span);
+        String jsonCopy = json.toString();
+        CharSequence keyValue = SpanSerializer.toKeyValueInThreadLocalBuffer(span);
+
+        // then
+        assertThat(jsonCopy).isEqualTo(expectedJson);
+        assertThat(keyValue.toString()).isEqualTo(expectedKeyValue);
+        assertThat(keyValue).isSameAs(json);
+    }
+
+    @Test
+    public void thread_local_buffer_is_not_retained_after_growing_past_max_retained_size() {
+        // given
+        Span hugeSpan = bareSpan();
+        char[] hugeValue = new char[SpanSerializer.MAX_RETAINED_BUFFER_CHARS * 2];
+        Arrays.fill(hugeValue, 'x');
+        hugeSpan.putTag("huge", new String(hugeValue));
+        Span normalSpan = bareSpan();
+
+        // when
+        CharSequence hugeResult = SpanSerializer.toJsonInThreadLocalBuffer(hugeSpan);
+        CharSequence normalResult = SpanSerializer.toJsonInThreadLocalBuffer(normalSpan);
+
+        // then
+        assertThat(hugeResult).isNotSameAs(normalResult);
+        assertThat(normalResult.toString()).isEqualTo(normalSpan.toJSON());
+        assertThat(((StringBuilder) normalResult).capacity())
+            .isLessThanOrEqualTo(SpanSerializer.MAX_RETAINED_BUFFER_CHARS);
+    }
+
+    @Test
+    public void writeJsonUtf8_and_writeKeyValueUtf8_write_utf8_bytes_to_OutputStream() throws IOException {
+        // given
+        Span span = fullSpan(true);
+        ByteArrayOutputStream jsonOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream keyValueOut = new ByteArrayOutputStream();
+
+        // when
+        int jsonBytes = SpanSerializer.writeJsonUtf8(span, jsonOut);
+        int keyValueBytes = SpanSerializer.writeKeyValueUtf8(span, keyValueOut);
+
+        // then
+        assertThat(jsonOut.toByteArray()).isEqualTo(span.toJSON().getBytes(StandardCharsets.UTF_8));
+        assertThat(jsonBytes).isEqualTo(jsonOut.size());
+        assertThat(keyValueOut.toByteArray()).isEqualTo(span.toKeyValueString().getBytes(StandardCharsets.UTF_8));
+        assertThat(keyValueBytes).isEqualTo(keyValueOut.size());
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void writeJsonUtf8_and_writeKeyValueUtf8_write_utf8_bytes_to_ByteBuffer(boolean direct) {
+        // given
+        Span span = fullSpan(true);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(4096) : ByteBuffer.allocate(4096);
+        buffer.put((byte) 'x');
+        byte[] expectedJson = span.toJSON().getBytes(StandardCharsets.UTF_8);
+        byte[] expectedKeyValue = span.toKeyValueString().getBytes(StandardCharsets.UTF_8);
+
+        // when
+        int jsonBytes = SpanSerializer.writeJsonUtf8(span, buffer);
+        int keyValueBytes = SpanSerializer.writeKeyValueUtf8(span, buffer);
+
+        // then
+        assertThat(jsonBytes).isEqualTo(expectedJson.length);
+        assertThat(keyValueBytes).isEqualTo(expectedKeyValue.length);
+        assertThat(buffer.position()).isEqualTo(1 + expectedJson.length + expectedKeyValue.length);
+        buffer.flip();
+        byte[] written = new byte[buffer.remaining()];
+        buffer.get(written);
+        assertThat(new String(written, StandardCharsets.UTF_8))
+            .isEqualTo("x" + span.toJSON() + span.toKeyValueString());
+    }
+
+    @Test
+    public void writeJsonUtf8_to_ByteBuffer_throws_BufferOverflowException_and_leaves_buffer_untouched() {
+        // given
+        Span span = fullSpan(true);
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        buffer.put((byte) 'x');
+
+        // when
+        Throwable ex = catchThrowable(() -> SpanSerializer.writeJsonUtf8(span, buffer));
+
+        // then
+        assertThat(ex).isInstanceOf(BufferOverflowException.class);
+        assertThat(buffer.position()).isEqualTo(1);
+        assertThat(buffer.array()).isEqualTo(new byte[]{ 'x', 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+    }
+
+    @DataProvider(value = {
+        "",
+        "plain ascii",
+        "caf\u00e9",
+        "\u4e2d\u6587",
+        "emoji \ud83d\ude00 pair",
+        "unpaired high \uD83D surrogate",
+        "unpaired low \uDE00 surrogate",
+        "trailing high surrogate \uD83D",
+        "\u007F\u0080\u07FF\u0800\uFFFF"
+    }, trimValues = false)
+    @Test
+    public void utf8Length_and_encodeUtf8_match_String_getBytes(String value) {
+        // given
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        byte[] dest = new byte[value.length() * 3 + 2];
+
+        // when
+        int length = SpanSerializer.utf8Length(value);
+        int written = SpanSerializer.encodeUtf8(value, dest, 2);
+
+        // then
+        assertThat(length).isEqualTo(expected.length);
+        assertThat(written).isEqualTo(expected.length);
+        assertThat(Arrays.copyOfRange(dest, 2, 2 + written)).isEqualTo(expected);
+    }
+
+    @DataProvider(value = {
+        "plain",
+        "\"quoted\"",
+        "back\\slash",
+        "ctrl\u0001char",
+        "mixed \"a\" \\ \n\t end"
+    }, trimValues = false)
+    @Test
+    public void appendEscapedJson_matches_escapeJson(String value) {
+        // given
+        StringBuilder sb = new StringBuilder("prefix:");
+
+        // when
+        SpanSerializer.appendEscapedJson(value, sb);
+
+        // then
+        assertThat(sb.toString()).isEqualTo("prefix:" + SpanParser.escapeJson(value));
+    }
+
+    @Test
+    public void appendEscapedJson_appends_null_for_null_value() {
+        // given
+        StringBuilder sb = new StringBuilder();
+
+        // when
+        SpanSerializer.appendEscapedJson(null, sb);
+
+        // then
+        assertThat(sb.toString()).isEqualTo("null");
+    }
+
+    @Test
+    public void code_coverage_hoops() {
+        // jump!
+        new SpanSerializer();
+    }
+}
@@ -0,0 +1,482 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.util.parser.StreamingSpanParser.KnownField;
+import com.nike.wingtips.util.parser.StreamingSpanParser.SpanVisitor;
+import com.nike.wingtips.util.parser.StreamingSpanParser.Value;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.nike.wingtips.SpanTest.verifySpanDeepEquals;
+import static com.nike.wingtips.util.parser.TestSpanFixtures.fullSpan;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link StreamingSpanParser}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class StreamingSpanParserTest {
+
+    private static final String PADDING = "xx\"{,";
+
+    private enum InputType {
+        CHAR_SEQUENCE, CHAR_ARRAY, UTF8_BYTES
+    }
+
+
+    private static Span parse(String serialized, boolean isJson, InputType inputType) {
+        // Array inputs are embedded in the middle of a larger array to make sure only the given range is used.
+        switch (inputType) {
+            case CHAR_SEQUENCE:
+                return isJson
+                       ? StreamingSpanParser.fromJson(new StringBuilder(serialized))
+                       : StreamingSpanParser.fromKeyValue(new StringBuilder(serialized));
+            case CHAR_ARRAY:
+                char[] chars = (PADDING + serialized + PADDING).toCharArray();
+                return isJson
+                       ? StreamingSpanParser.fromJson(chars, PADDING.length(), serialized.length())
+                       : StreamingSpanParser.fromKeyValue(chars, PADDING.length(), serialized.length());
+            case UTF8_BYTES:
+                byte[] bytes = (PADDING + serialized + PADDING).getBytes(StandardCharsets.UTF_8);
+                int length = serialized.getBytes(StandardCharsets.UTF_8).length;
+                return isJson
+                       ? StreamingSpanParser.fromJsonUtf8(bytes, PADDING.length(), length)
+                       : StreamingSpanParser.fromKeyValueUtf8(bytes, PADDING.length(), length);
+            default:
+                throw new IllegalArgumentException("Unhandled input type: " + inputType);
+        }
+    }
+
+    @Test
+    public void code_coverage_hoops() {
+        // jacoco doesn't like that this class has a protected constructor that is never used. Call it.
+        new StreamingSpanParser();
+    }
+
+    @DataProvider(value = {
+        "true   |   CHAR_SEQUENCE   |   true",
+        "true   |   CHAR_ARRAY      |   true",
+        "true   |   UTF8_BYTES      |   true",
+        "true   |   UTF8_BYTES      |   false",
+        "false  |   CHAR_SEQUENCE   |   true",
+        "false  |   CHAR_ARRAY      |   true",
+        "false  |   UTF8_BYTES      |   true",
+        "false  |   UTF8_BYTES      |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void parsing_methods_round_trip_serialized_spans_for_all_input_types(
+        boolean isJson, InputType inputType, boolean completed
+    ) {
+        // given
+        Span span = fullSpan(completed);
+        String serialized = isJson ? span.toJSON() : span.toKeyValueString();
+
+        // when
+        Span result = parse(serialized, isJson, inputType);
+
+        // then
+        verifySpanDeepEquals(result, span, true);
+    }
+
+    @DataProvider(value = {
+        "true   |   CHAR_SEQUENCE",
+        "true   |   UTF8_BYTES",
+        "false  |   CHAR_ARRAY",
+        "false  |   UTF8_BYTES",
+    }, splitBy = "\\|")
+    @Test
+    public void parsing_methods_return_same_result_as_SpanParser_for_spans_with_null_values(
+        boolean isJson, InputType inputType
+    ) {
+        // given
+        Span span = Span.newBuilder("bare", SpanPurpose.LOCAL_ONLY).build();
+        String serialized = isJson ? span.toJSON() : span.toKeyValueString();
+        assertThat(serialized).contains("null");
+
+        // when
+        Span result = parse(serialized, isJson, inputType);
+
+        // then
+        verifySpanDeepEquals(result, span, true);
+        assertThat(result.getParentSpanId()).isNull();
+        assertThat(result.getUserId()).isNull();
+        verifySpanDeepEquals(
+            result, isJson ? SpanParser.fromJSON(serialized) : SpanParser.fromKeyValueString(serialized), true
+        );
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void parsing_methods_tolerate_surrounding_whitespace(boolean isJson) {
+        // given
+        Span span = fullSpan(true);
+        String serialized = " \t" + (isJson ? span.toJSON() : span.toKeyValueString()) + "\r\n";
+
+        // when
+        Span result = parse(serialized, isJson, InputType.UTF8_BYTES);
+
+        // then
+        verifySpanDeepEquals(result, span, true);
+    }
+
+    @Test
+    public void fromJson_skips_unknown_fields_objects_and_arrays() {
+        // given
+        Span span = fullSpan(true);
+        String json = span.toJSON();
+        String jsonWithExtras = "{\"extra\":\"foo\",\"extraObj\":{\"a\":{\"b\":\"c\"},\"d\":[]},"
+                                + "\"extraArray\":[\"x\",{\"y\":\"z\"},[]],\"tra\\u0063eId\":\"ignored\","
+                                + json.substring(1);
+
+        // when
+        Span result = StreamingSpanParser.fromJson(jsonWithExtras);
+
+        // then
+        verifySpanDeepEquals(result, span, true);
+    }
+
+    @DataProvider(value = {
+        // Missing opening brace, bad value start char, missing comma, unexpected whitespace, missing closing brace.
+        "\"traceId\":\"a\"}",
+        "{\"traceId\":x}",
+        "{\"traceId\":\"a\"\"spanId\":\"b\"}",
+        "{\"traceId\":\"a\" ,\"spanId\":\"b\"}",
+        "{\"traceId\":\"a\"",
+        "{\"traceId\":\"a",
+        "{\"annotations\":[42]}",
+        "{\"annotations\":[{\"value\":\"no-timestamp\"}]}",
+        "{\"annotations\":[{\"timestampEpochMicros\":\"notanumber\",\"value\":\"foo\"}]}",
+        "{\"tags\":{\"foo\":{}}}",
+        "{}",
+        "",
+    }, splitBy = "\\|", trimValues = false)
+    @Test
+    public void fromJson_returns_null_and_visitJson_throws_for_garbage_input(String garbage) {
+        // when
+        Span result = StreamingSpanParser.fromJson(garbage);
+        Throwable visitEx = catchThrowable(() -> StreamingSpanParser.visitJson(garbage, new RecordingVisitor()));
+        Span utf8Result = StreamingSpanParser.fromJsonUtf8(garbage.getBytes(StandardCharsets.UTF_8), 0,
+                                                           garbage.length());
+
+        // then
+        assertThat(result).isNull();
+        assertThat(utf8Result).isNull();
+        if (!garbage.equals("{}")) {
+            // "{}" is valid JSON, it just doesn't contain the required span fields.
+            assertThat(visitEx).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @DataProvider(value = {
+        "traceId=",
+        "traceId=\"a",
+        "traceId=a",
+        "traceId=\"a\"spanId=\"b\"",
+        "traceId=\"a\",",
+        "ts_annot_notanumber=\"foo\"",
+        "",
+    }, splitBy = "\\|", trimValues = false)
+    @Test
+    public void fromKeyValue_returns_null_and_visitKeyValue_throws_for_garbage_input(String garbage) {
+        // when
+        Span result = StreamingSpanParser.fromKeyValue(garbage);
+        Throwable visitEx = catchThrowable(
+            () -> StreamingSpanParser.visitKeyValue(garbage.toCharArray(), 0, garbage.length(), new RecordingVisitor())
+        );
+
+        // then
+        assertThat(result).isNull();
+        assertThat(visitEx).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void fromX_methods_return_null_when_required_fields_are_missing_or_null() {
+        // given
+        Span span = fullSpan(true);
+        String noSampleable = span.toKeyValueString().replace("sampleable=\"true\"", "sampleable=\"null\"");
+        String noStartTime = span.toJSON().replace(
+            ",\"startTimeEpochMicros\":\"" + span.getSpanStartTimeEpochMicros() + "\"", ""
+        );
+
+        // expect
+        assertThat(StreamingSpanParser.fromKeyValue(noSampleable)).isNull();
+        assertThat(StreamingSpanParser.fromJson(noStartTime)).isNull();
+        assertThat(StreamingSpanParser.fromJson((CharSequence) null)).isNull();
+        assertThat(StreamingSpanParser.fromKeyValue((CharSequence) null)).isNull();
+    }
+
+    @Test
+    public void fromX_methods_use_UNKNOWN_span_purpose_for_garbage_span_purpose() {
+        // given
+        Span span = fullSpan(true);
+        String serialized = span.toKeyValueString().replace("spanPurpose=\"CLIENT\"", "spanPurpose=\"garbage\"");
+
+        // when
+        Span result = StreamingSpanParser.fromKeyValue(serialized);
+
+        // then
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.UNKNOWN);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void visit_methods_report_fields_tags_and_annotations_in_input_order(boolean isJson) {
+        // given
+        Span span = fullSpan(true);
+        byte[] bytes = (isJson ? span.toJSON() : span.toKeyValueString()).getBytes(StandardCharsets.UTF_8);
+        RecordingVisitor visitor = new RecordingVisitor();
+
+        // when
+        if (isJson) {
+            StreamingSpanParser.visitJsonUtf8(bytes, 0, bytes.length, visitor);
+        }
+        else {
+            StreamingSpanParser.visitKeyValueUtf8(bytes, 0, bytes.length, visitor);
+        }
+
+        // then
+        List<String> expected = new ArrayList<>();
+        expected.add("TRACE_ID=" + span.getTraceId());
+        expected.add("PARENT_SPAN_ID=parent-id");
+        expected.add("SPAN_ID=" + span.getSpanId());
+        expected.add("SPAN_NAME=" + span.getSpanName());
+        expected.add("SAMPLEABLE=true");
+        expected.add("USER_ID=user=id, with spaces");
+        expected.add("SPAN_PURPOSE=CLIENT");
+        expected.add("START_TIME_EPOCH_MICROS=" + span.getSpanStartTimeEpochMicros());
+        expected.add("DURATION_NANOS=" + span.getDurationNanos());
+        span.getTags().forEach((k, v) -> expected.add("tag:" + k + "=" + v));
+        span.getTimestampedAnnotations().forEach(
+            a -> expected.add("annotation:" + a.getTimestampEpochMicros() + "=" + a.getValue())
+        );
+        assertThat(visitor.events).isEqualTo(expected);
+    }
+
+    @Test
+    public void visit_methods_only_create_strings_the_visitor_asks_for() {
+        // given
+        Span span = fullSpan(true);
+        String json = span.toJSON();
+        long[] durationHolder = new long[1];
+        boolean[] spanNameMatches = new boolean[1];
+        String[] traceIdHolder = new String[1];
+
+        // when
+        StreamingSpanParser.visitJson(json, new SpanVisitor() {
+            @Override
+            public void visitField(KnownField field, Value value) {
+                if (field == KnownField.DURATION_NANOS) {
+                    durationHolder[0] = value.asLong();
+                }
+                else if (field == KnownField.SPAN_NAME) {
+                    spanNameMatches[0] = value.contentEquals(span.getSpanName());
+                }
+                else if (field == KnownField.TRACE_ID) {
+                    traceIdHolder[0] = value.asString();
+                }
+            }
+
+            @Override
+            public void visitTag(Value key, Value value) {
+            }
+
+            @Override
+            public void visitAnnotation(long timestampEpochMicros, Value value) {
+            }
+        });
+
+        // then
+        assertThat(durationHolder[0]).isEqualTo(span.getDurationNanos());
+        assertThat(spanNameMatches[0]).isTrue();
+        assertThat(traceIdHolder[0]).isEqualTo(span.getTraceId());
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1",
+        "+42",
+        "1234567890123",
+        "9223372036854775807",
+        "-9223372036854775808",
+    })
+    @Test
+    public void Value_asLong_matches_Long_parseLong_for_valid_numbers(String number) {
+        // given
+        String kv = "durationNanos=\"" + number + "\"";
+        long[] result = new long[1];
+
+        // when
+        StreamingSpanParser.visitKeyValue(kv, fieldVisitor((field, value) -> result[0] = value.asLong()));
+
+        // then
+        assertThat(result[0]).isEqualTo(Long.parseLong(number));
+    }
+
+    @DataProvider(value = {
+        "9223372036854775808",
+        "-9223372036854775809",
+        "99999999999999999999",
+        "-",
+        "12a",
+        "",
+    }, splitBy = "\\|", trimValues = false)
+    @Test
+    public void Value_asLong_throws_NumberFormatException_for_invalid_numbers(String number) {
+        // given
+        String kv = "durationNanos=\"" + number + "\"";
+
+        // when
+        Throwable ex = catchThrowable(
+            () -> StreamingSpanParser.visitKeyValue(kv, fieldVisitor((field, value) -> value.asLong()))
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(NumberFormatException.class);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "TRUE",
+        "tRuE",
+        "false",
+        "truex",
+        "null",
+        "tru\\u0065",
+    }, convertNulls = false)
+    @Test
+    public void Value_asBoolean_and_isNullLiteral_match_String_semantics(String rawValue) {
+        // given
+        String kv = "sampleable=\"" + rawValue + "\"";
+        String unescaped = rawValue.replace("\\u0065", "e");
+        List<Object> results = new ArrayList<>();
+
+        // when
+        StreamingSpanParser.visitKeyValue(kv, fieldVisitor((field, value) -> {
+            results.add(value.asBoolean());
+            results.add(value.isNullLiteral());
+            results.add(value.asNullableString());
+        }));
+
+        // then
+        assertThat(results).containsExactly(
+            Boolean.parseBoolean(unescaped), rawValue.equals("null"), rawValue.equals("null") ? null : unescaped
+        );
+    }
+
+    @Test
+    public void Value_unescapes_unicode_and_short_form_escape_sequences() {
+        // given
+        String kv = "spanName=\"a\\u0041\\u00e9\\/\\n\\t\\\"\\\\\\x\\u12\"";
+        String[] result = new String[1];
+
+        // when
+        StreamingSpanParser.visitKeyValue(kv, fieldVisitor((field, value) -> result[0] = value.asString()));
+
+        // then
+        assertThat(result[0]).isEqualTo("aA\u00e9/\n\t\"\\\\x\\u12");
+    }
+
+    @Test
+    public void visitor_can_reentrantly_parse_without_clobbering_outer_parse() {
+        // given
+        Span outerSpan = fullSpan(true);
+        Span innerSpan = Span.newBuilder("inner", SpanPurpose.SERVER).build();
+        List<String> spanNames = new ArrayList<>();
+
+        // when
+        StreamingSpanParser.visitJson(outerSpan.toJSON(), fieldVisitor((field, value) -> {
+            if (field == KnownField.TRACE_ID) {
+                spanNames.add(StreamingSpanParser.fromJson(innerSpan.toJSON()).getSpanName());
+            }
+            if (field == KnownField.SPAN_NAME) {
+                spanNames.add(value.asString());
+            }
+        }));
+
+        // then
+        assertThat(spanNames).containsExactly("inner", outerSpan.getSpanName());
+    }
+
+    @Test
+    public void array_methods_throw_for_invalid_ranges_and_visit_methods_throw_for_null_args() {
+        // given
+        char[] chars = new char[10];
+        byte[] bytes = new byte[10];
+
+        // expect
+        assertThat(catchThrowable(() -> StreamingSpanParser.fromJson(chars, 5, 6)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(catchThrowable(() -> StreamingSpanParser.fromKeyValueUtf8(bytes, -1, 2)))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(catchThrowable(() -> StreamingSpanParser.fromJsonUtf8(null, 0, 0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("input array cannot be null");
+        assertThat(catchThrowable(() -> StreamingSpanParser.visitJson((CharSequence) null, new RecordingVisitor())))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("json cannot be null");
+        assertThat(catchThrowable(() -> StreamingSpanParser.visitKeyValue((CharSequence) null, new RecordingVisitor())))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("keyValueStr cannot be null");
+        assertThat(catchThrowable(() -> StreamingSpanParser.visitKeyValue("traceId=\"a\"", null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("visitor cannot be null");
+    }
+
+    private interface FieldCallback {
+        void visitField(KnownField field, Value value);
+    }
+
+    private static SpanVisitor fieldVisitor(FieldCallback callback) {
+        return new SpanVisitor() {
+            @Override
+            public void visitField(KnownField field, Value value) {
+                callback.visitField(field, value);
+            }
+
+            @Override
+            public void visitTag(Value key, Value value) {
+            }
+
+            @Override
+            public void visitAnnotation(long timestampEpochMicros, Value value) {
+            }
+        };
+    }
+
+    private static class RecordingVisitor implements SpanVisitor {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void visitField(KnownField field, Value value) {
+            events.add(field.name() + "=" + value);
+        }
+
+        @Override
+        public void visitTag(Value key, Value value) {
+            events.add("tag:" + key + "=" + value);
+        }
+
+        @Override
+        public void visitAnnotation(long timestampEpochMicros, Value value) {
+            events.add("annotation:" + timestampEpochMicros + "=" + value);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.nike.wingtips.util.parser;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.Span.TimestampedAnnotation;
+
+import static com.nike.wingtips.TestSpanCompleter.completeSpan;
+
+/**
+ * Spans shared by the serializer, parser, and binary codec tests, so they all round-trip the same worst-case span.
+ */
+public class TestSpanFixtures {
+
+    /**
+     * Every character that the JSON and key/value representations must escape.
+     */
+    public static final String CHARS_NEEDING_ESCAPE = "\"\\\b\f\n\r\t\u0000\u001F";
+
+    /**
+     * Two-byte, three-byte, and four-byte (surrogate pair) UTF-8 characters: an accented letter, two
+     * CJK characters, and an emoji.
+     */
+    public static final String NON_ASCII_CHARS = "caf\u00e9 \u4e2d\u6587 \ud83d\ude00";
+
+    /**
+     * @param completed Whether the returned span should be completed.
+     * @return A span with every field populated, escape-worthy and non-ASCII characters in its name, tag keys, tag
+     * values, and annotations, and tags of every type.
+     */
+    public static Span fullSpan(boolean completed) {
+        Span span = Span.newBuilder("span-name " + CHARS_NEEDING_ESCAPE + NON_ASCII_CHARS, SpanPurpose.CLIENT)
+                        .withParentSpanId("parent-id")
+                        .withUserId("user=id, with spaces")
+                        .withTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(42, "annot" + NON_ASCII_CHARS))
+                        .withTimestampedAnnotation(TimestampedAnnotation.forEpochMicros(43, CHARS_NEEDING_ESCAPE))
+                        .build();
+        span.putTag("stringTag", "value" + CHARS_NEEDING_ESCAPE);
+        span.putTag("key= with, specials" + CHARS_NEEDING_ESCAPE + NON_ASCII_CHARS, NON_ASCII_CHARS);
+        span.putTag("longTag", Long.MIN_VALUE);
+        span.putTag("boolTag", true);
+        span.putTag("doubleTag", -1.5e-300d);
+        if (completed) {
+            completeSpan(span);
+        }
+        return span;
+    }
+}
@@ -157,8 +157,19 @@ public class WingtipsToLightStepLifecycleListener implements SpanLifecycleListen
                 lsSpan.log(wingtipsAnnotation.getTimestampEpochMicros(), wingtipsAnnotation.getValue());
             }
 
-            for (Map.Entry<String, String> wtTag : wingtipsSpan.getTags().entrySet()) {
-                lsSpan.setTag(wtTag.getKey(), wtTag.getValue());
+            // Use the typed tags so that numeric and boolean tag values are sent to LightStep in their native form
+            //      rather than as strings.
+            for (Map.Entry<String, Object> wtTag : wingtipsSpan.getTypedTags().entrySet()) {
+                Object wtTagValue = wtTag.getValue();
+                if (wtTagValue instanceof Boolean) {
+                    lsSpan.setTag(wtTag.getKey(), (Boolean) wtTagValue);
+                }
+                else if (wtTagValue instanceof Number) {
+                    lsSpan.setTag(wtTag.getKey(), (Number) wtTagValue);
+                }
+                else {
+                    lsSpan.setTag(wtTag.getKey(), (String) wtTagValue);
+                }
             }
 
             // Add some custom boolean tags if any of the IDs had to be sanitized. The raw unsanitized ID will be
@@ -305,6 +305,27 @@ public class WingtipsToLightStepLifecycleListenerTest {
         verify(otSpanMock).finish(expectedStopTimeMicros);
     }
 
+    @Test
+    public void spanCompleted_passes_typed_tag_values_to_lightstep_in_their_native_form() {
+        // given
+        Span wtSpan = Span.newBuilder("fooSpan", Span.SpanPurpose.CLIENT)
+                          .withTag("stringTag", "foo")
+                          .withTag("longTag", 42L)
+                          .withTag("boolTag", true)
+                          .withTag("doubleTag", 4.2d)
+                          .build();
+        wtSpan.close();
+
+        // when
+        listener.spanCompleted(wtSpan);
+
+        // then
+        verify(otSpanMock).setTag("stringTag", "foo");
+        verify(otSpanMock).setTag("longTag", (Number) 42L);
+        verify(otSpanMock).setTag("boolTag", true);
+        verify(otSpanMock).setTag("doubleTag", (Number) 4.2d);
+    }
+
     @Test
     public void spanCompleted_does_not_propagate_unexpected_exception() {
         // given
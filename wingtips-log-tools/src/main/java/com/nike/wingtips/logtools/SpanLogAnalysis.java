@@ -0,0 +1,475 @@
+package com.nike.wingtips.logtools;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The results of a {@link SpanLogAnalyzer} run: overall counts, a latency breakdown per span name, and the slowest
+ * traces and error traces with their span trees rebuilt. Call {@link #printReport(PrintStream)} for a human readable
+ * report, or use the getters to post-process the results yourself.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanLogAnalysis {
+
+    /**
+     * The max number of spans printed per trace tree by {@link #printReport(PrintStream)}.
+     */
+    public static final int MAX_REPORTED_SPANS_PER_TRACE = 100;
+
+    private final long bytesScanned;
+    private final long linesScanned;
+    private final long spansParsed;
+    private final long unparseableSpanLines;
+    private final long incorrectTimingSpans;
+    private final long traceCount;
+    private final long errorTraceCount;
+    private final List<SpanNameStats> spanNameStats;
+    private final List<TraceSummary> slowestTraces;
+    private final List<TraceSummary> errorTraces;
+
+    public SpanLogAnalysis(long bytesScanned,
+                           long linesScanned,
+                           long spansParsed,
+                           long unparseableSpanLines,
+                           long incorrectTimingSpans,
+                           long traceCount,
+                           long errorTraceCount,
+                           List<SpanNameStats> spanNameStats,
+                           List<TraceSummary> slowestTraces,
+                           List<TraceSummary> errorTraces) {
+        this.bytesScanned = bytesScanned;
+        this.linesScanned = linesScanned;
+        this.spansParsed = spansParsed;
+        this.unparseableSpanLines = unparseableSpanLines;
+        this.incorrectTimingSpans = incorrectTimingSpans;
+        this.traceCount = traceCount;
+        this.errorTraceCount = errorTraceCount;
+        this.spanNameStats = Collections.unmodifiableList(new ArrayList<>(spanNameStats));
+        this.slowestTraces = Collections.unmodifiableList(new ArrayList<>(slowestTraces));
+        this.errorTraces = Collections.unmodifiableList(new ArrayList<>(errorTraces));
+    }
+
+    /**
+     * @return The total size of the analyzed files in bytes.
+     */
+    public long getBytesScanned() {
+        return bytesScanned;
+    }
+
+    /**
+     * @return The number of lines scanned (including lines that aren't span lines).
+     */
+    public long getLinesScanned() {
+        return linesScanned;
+    }
+
+    /**
+     * @return The number of span lines that were successfully parsed.
+     */
+    public long getSpansParsed() {
+        return spansParsed;
+    }
+
+    /**
+     * @return The number of lines containing the span log marker that couldn't be parsed as a completed span.
+     */
+    public long getUnparseableSpanLines() {
+        return unparseableSpanLines;
+    }
+
+    /**
+     * @return The number of parsed spans that were logged with the {@code [INCORRECT_TIMING]} marker. These are
+     * included in all other results.
+     */
+    public long getIncorrectTimingSpans() {
+        return incorrectTimingSpans;
+    }
+
+    /**
+     * @return The number of distinct trace IDs seen.
+     */
+    public long getTraceCount() {
+        return traceCount;
+    }
+
+    /**
+     * @return The number of distinct trace IDs that had at least one span with an error tag.
+     */
+    public long getErrorTraceCount() {
+        return errorTraceCount;
+    }
+
+    /**
+     * @return The per-span-name latency stats, sorted by total duration (largest first).
+     */
+    public List<SpanNameStats> getSpanNameStats() {
+        return spanNameStats;
+    }
+
+    /**
+     * @return The slowest traces, slowest first.
+     */
+    public List<TraceSummary> getSlowestTraces() {
+        return slowestTraces;
+    }
+
+    /**
+     * @return The slowest traces that had at least one span with an error tag, slowest first.
+     */
+    public List<TraceSummary> getErrorTraces() {
+        return errorTraces;
+    }
+
+    /**
+     * Prints a human readable report of this analysis to the given stream.
+     *
+     * @param out The stream to print to.
+     */
+    public void printReport(PrintStream out) {
+        out.println("=== Span log summary ===");
+        out.println(String.format(
+            Locale.US, "bytes=%d lines=%d spans=%d unparseable_span_lines=%d incorrect_timing_spans=%d "
+                       + "traces=%d error_traces=%d",
+            bytesScanned, linesScanned, spansParsed, unparseableSpanLines, incorrectTimingSpans, traceCount,
+            errorTraceCount
+        ));
+        out.println();
+
+        out.println("=== Latency by span name (ms, sorted by total time) ===");
+        out.println(String.format(
+            Locale.US, "%12s %8s %12s %10s %10s %10s %10s %10s  %s",
+            "count", "errors", "total", "mean", "p50", "p90", "p99", "max", "span_name"
+        ));
+        for (SpanNameStats stats : spanNameStats) {
+            out.println(String.format(
+                Locale.US, "%12d %8d %12.3f %10.3f %10.3f %10.3f %10.3f %10.3f  %s",
+                stats.getCount(), stats.getErrorCount(), millis(stats.getTotalDurationNanos()),
+                millis(stats.getMeanDurationNanos()), millis(stats.getPercentileDurationNanos(50)),
+                millis(stats.getPercentileDurationNanos(90)), millis(stats.getPercentileDurationNanos(99)),
+                millis(stats.getMaxDurationNanos()), stats.getSpanName()
+            ));
+        }
+        out.println();
+
+        printTraces(out, "=== Slowest traces ===", slowestTraces);
+        printTraces(out, "=== Error traces (slowest first) ===", errorTraces);
+    }
+
+    protected void printTraces(PrintStream out, String header, List<TraceSummary> traces) {
+        out.println(header);
+        if (traces.isEmpty()) {
+            out.println("(none)");
+        }
+        for (TraceSummary trace : traces) {
+            out.println(String.format(
+                Locale.US, "trace_id=%s duration_ms=%.3f spans=%d error_spans=%d root=%s",
+                trace.getTraceId(), millis(trace.getDurationMicros() * 1000), trace.getSpanCount(),
+                trace.getErrorSpanCount(), trace.getRootSpanName()
+            ));
+            int[] remaining = { MAX_REPORTED_SPANS_PER_TRACE };
+            for (TraceNode root : trace.getRootNodes()) {
+                printNode(out, root, trace.getStartTimeEpochMicros(), 1, remaining);
+            }
+            if (remaining[0] < 0) {
+                out.println(String.format(
+                    Locale.US, "  ... %d more spans", trace.getSpanCount() - MAX_REPORTED_SPANS_PER_TRACE
+                ));
+            }
+        }
+        out.println();
+    }
+
+    protected void printNode(PrintStream out, TraceNode node, long traceStartEpochMicros, int depth, int[] remaining) {
+        if (--remaining[0] < 0) {
+            return;
+        }
+
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            indent.append("  ");
+        }
+        out.println(String.format(
+            Locale.US, "%s+%.3fms %.3fms %s%s",
+            indent, (node.getStartTimeEpochMicros() - traceStartEpochMicros) / 1000d,
+            millis(node.getDurationNanos()), node.getSpanName(), node.isError() ? " [ERROR]" : ""
+        ));
+        for (TraceNode child : node.getChildren()) {
+            printNode(out, child, traceStartEpochMicros, depth + 1, remaining);
+        }
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1000000d;
+    }
+
+    /**
+     * Latency stats for all spans with a given span name. Percentiles are estimated from a log-linear histogram with
+     * 16 buckets per power of two, so they're accurate to within about 6%.
+     */
+    public static class SpanNameStats {
+
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        // Values below SUB_BUCKET_COUNT get one bucket each, then SUB_BUCKET_COUNT buckets for each power of two up to
+        //      Long.MAX_VALUE (highest bit 62).
+        private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+        private final String spanName;
+        private long count;
+        private long errorCount;
+        private long totalDurationNanos;
+        private long minDurationNanos = Long.MAX_VALUE;
+        private long maxDurationNanos;
+        private final long[] buckets = new long[BUCKET_COUNT];
+
+        public SpanNameStats(String spanName) {
+            this.spanName = spanName;
+        }
+
+        /**
+         * Records a span with this span name.
+         *
+         * @param durationNanos The span's duration - negative durations are treated as 0.
+         * @param error Whether the span had an error tag.
+         */
+        public void record(long durationNanos, boolean error) {
+            if (durationNanos < 0) {
+                durationNanos = 0;
+            }
+
+            count++;
+            if (error) {
+                errorCount++;
+            }
+            totalDurationNanos += durationNanos;
+            minDurationNanos = Math.min(minDurationNanos, durationNanos);
+            maxDurationNanos = Math.max(maxDurationNanos, durationNanos);
+            buckets[bucketIndex(durationNanos)]++;
+        }
+
+        /**
+         * Adds everything recorded by the given stats (which should be for the same span name) to this one.
+         *
+         * @param other The stats to merge into this one.
+         */
+        public void merge(SpanNameStats other) {
+            count += other.count;
+            errorCount += other.errorCount;
+            totalDurationNanos += other.totalDurationNanos;
+            minDurationNanos = Math.min(minDurationNanos, other.minDurationNanos);
+            maxDurationNanos = Math.max(maxDurationNanos, other.maxDurationNanos);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] += other.buckets[i];
+            }
+        }
+
+        public String getSpanName() {
+            return spanName;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getTotalDurationNanos() {
+            return totalDurationNanos;
+        }
+
+        /**
+         * @return The shortest duration recorded, or 0 if nothing has been recorded.
+         */
+        public long getMinDurationNanos() {
+            return (count == 0) ? 0 : minDurationNanos;
+        }
+
+        public long getMaxDurationNanos() {
+            return maxDurationNanos;
+        }
+
+        public double getMeanDurationNanos() {
+            return (count == 0) ? 0 : ((double) totalDurationNanos) / count;
+        }
+
+        /**
+         * @param percentile The percentile to estimate, between 0 and 100.
+         * @return The estimated duration at the given percentile (the upper bound of the histogram bucket containing
+         * it, capped at the max recorded duration), or 0 if nothing has been recorded.
+         */
+        public long getPercentileDurationNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long targetCount = Math.max(1, (long) Math.ceil(count * (percentile / 100d)));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= targetCount) {
+                    return Math.max(getMinDurationNanos(), Math.min(bucketUpperBound(i), maxDurationNanos));
+                }
+            }
+
+            return maxDurationNanos;
+        }
+
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+
+            int highestBit = 63 - Long.numberOfLeadingZeros(value);
+            int shift = highestBit - SUB_BUCKET_BITS;
+            int subBucket = (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+            return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+        }
+
+        static long bucketUpperBound(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+
+            int shift = (index / SUB_BUCKET_COUNT) - 1;
+            long subBucket = index % SUB_BUCKET_COUNT;
+            long lowerBound = (SUB_BUCKET_COUNT + subBucket) << shift;
+            return lowerBound + (1L << shift) - 1;
+        }
+    }
+
+    /**
+     * Summary of a single trace, along with its rebuilt span tree.
+     */
+    public static class TraceSummary {
+        private final String traceId;
+        private final String rootSpanName;
+        private final long startTimeEpochMicros;
+        private final long durationMicros;
+        private final int spanCount;
+        private final int errorSpanCount;
+        private final List<TraceNode> rootNodes;
+
+        public TraceSummary(String traceId,
+                            String rootSpanName,
+                            long startTimeEpochMicros,
+                            long durationMicros,
+                            int spanCount,
+                            int errorSpanCount,
+                            List<TraceNode> rootNodes) {
+            this.traceId = traceId;
+            this.rootSpanName = rootSpanName;
+            this.startTimeEpochMicros = startTimeEpochMicros;
+            this.durationMicros = durationMicros;
+            this.spanCount = spanCount;
+            this.errorSpanCount = errorSpanCount;
+            this.rootNodes = Collections.unmodifiableList(new ArrayList<>(rootNodes));
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        /**
+         * @return The name of the span with no parent, or the earliest span's name if the root span isn't in the
+         * analyzed logs.
+         */
+        public String getRootSpanName() {
+            return rootSpanName;
+        }
+
+        /**
+         * @return The start time of the earliest span in the trace.
+         */
+        public long getStartTimeEpochMicros() {
+            return startTimeEpochMicros;
+        }
+
+        /**
+         * @return The time from the start of the earliest span to the end of the latest span in the trace.
+         */
+        public long getDurationMicros() {
+            return durationMicros;
+        }
+
+        public int getSpanCount() {
+            return spanCount;
+        }
+
+        public int getErrorSpanCount() {
+            return errorSpanCount;
+        }
+
+        /**
+         * @return The top-level nodes of the trace's span tree, sorted by start time. There's normally only one, but
+         * spans whose parent isn't in the analyzed logs become additional top-level nodes.
+         */
+        public List<TraceNode> getRootNodes() {
+            return rootNodes;
+        }
+    }
+
+    /**
+     * A span in a rebuilt trace tree.
+     */
+    public static class TraceNode {
+        private final String spanId;
+        private final String parentSpanId;
+        private final String spanName;
+        private final long startTimeEpochMicros;
+        private final long durationNanos;
+        private final boolean error;
+        private final List<TraceNode> children = new ArrayList<>();
+
+        public TraceNode(String spanId,
+                         String parentSpanId,
+                         String spanName,
+                         long startTimeEpochMicros,
+                         long durationNanos,
+                         boolean error) {
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+            this.spanName = spanName;
+            this.startTimeEpochMicros = startTimeEpochMicros;
+            this.durationNanos = durationNanos;
+            this.error = error;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+
+        public String getParentSpanId() {
+            return parentSpanId;
+        }
+
+        public String getSpanName() {
+            return spanName;
+        }
+
+        public long getStartTimeEpochMicros() {
+            return startTimeEpochMicros;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        /**
+         * @return The child spans, sorted by start time.
+         */
+        public List<TraceNode> getChildren() {
+            return children;
+        }
+    }
+}
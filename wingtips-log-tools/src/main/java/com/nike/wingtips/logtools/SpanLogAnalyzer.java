@@ -0,0 +1,898 @@
+package com.nike.wingtips.logtools;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.tags.KnownZipkinTags;
+import com.nike.wingtips.logtools.SpanLogAnalysis.SpanNameStats;
+import com.nike.wingtips.logtools.SpanLogAnalysis.TraceNode;
+import com.nike.wingtips.logtools.SpanLogAnalysis.TraceSummary;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
+import com.nike.wingtips.util.parser.StreamingSpanParser;
+import com.nike.wingtips.util.parser.StreamingSpanParser.KnownField;
+import com.nike.wingtips.util.parser.StreamingSpanParser.SpanVisitor;
+import com.nike.wingtips.util.parser.StreamingSpanParser.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Command line tool (and library) that analyzes the {@code [DISTRIBUTED_TRACING]} span lines written by {@link
+ * com.nike.wingtips.Tracer} to its span loggers - useful when a tracing backend was down or sampling missed an
+ * incident and the logs are the only record. All of the {@link com.nike.wingtips.Tracer.SpanLoggingRepresentation}
+ * options are supported, and any text the logging pattern puts before the span marker is ignored. The analysis
+ * produces:
+ * <ul>
+ *     <li>A latency breakdown per span name (count, errors, total, mean, p50/p90/p99, max).</li>
+ *     <li>The slowest traces, with their span trees rebuilt from the span and parent span IDs.</li>
+ *     <li>The slowest traces containing a span with an {@link KnownZipkinTags#ERROR} tag, also with span trees.</li>
+ * </ul>
+ *
+ * Files are memory-mapped and split into chunks that end on line boundaries, and the chunks are parsed in parallel on
+ * a {@link ForkJoinPool} using {@link StreamingSpanParser}'s visitor mode, so only the handful of values the analysis
+ * needs are ever turned into strings. The analysis makes two passes over the files: the first gathers the per-span-name
+ * stats and a small per-trace summary, and the second collects the full spans for only the traces that will be
+ * reported. This keeps memory proportional to the number of traces rather than the number of spans, so multi-gigabyte
+ * files can be analyzed with a modest heap (and the second pass is usually served from the OS page cache).
+ *
+ * <p>Command line usage: {@code java -cp wingtips-log-tools.jar:wingtips-core.jar:slf4j-api.jar
+ * com.nike.wingtips.logtools.SpanLogAnalyzer [--top N] [--threads N] [--chunk-mb N] file...}
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanLogAnalyzer {
+
+    /**
+     * The marker that precedes every serialized span in the span log lines.
+     */
+    public static final String SPAN_LOG_MARKER = "[DISTRIBUTED_TRACING] ";
+    /**
+     * The marker that precedes {@link #SPAN_LOG_MARKER} for spans with incorrect timing info.
+     */
+    public static final String INCORRECT_TIMING_MARKER = "[INCORRECT_TIMING] ";
+
+    public static final int DEFAULT_TOP_N = 10;
+    public static final int DEFAULT_CHUNK_SIZE_BYTES = 32 * 1024 * 1024;
+    // FileChannel.map() can't map more than Integer.MAX_VALUE bytes at once. Leave room for extending a chunk to the
+    //      end of its last line.
+    protected static final int MAX_CHUNK_SIZE_BYTES = 1024 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] SPAN_LOG_MARKER_BYTES = SPAN_LOG_MARKER.getBytes(UTF_8);
+    private static final byte[] INCORRECT_TIMING_MARKER_BYTES = INCORRECT_TIMING_MARKER.getBytes(UTF_8);
+    private static final int INITIAL_LINE_BUFFER_BYTES = 8 * 1024;
+
+    private final int topN;
+    private final int parallelism;
+    private final int chunkSizeBytes;
+
+    protected SpanLogAnalyzer(Builder builder) {
+        this.topN = builder.topN;
+        this.parallelism = builder.parallelism;
+        this.chunkSizeBytes = builder.chunkSizeBytes;
+    }
+
+    /**
+     * @return A new builder with the default settings: {@link #DEFAULT_TOP_N} traces reported, parallelism equal to
+     * the number of available processors, and {@link #DEFAULT_CHUNK_SIZE_BYTES} chunks.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static void main(String[] args) {
+        int exitCode = run(args, System.out, System.err);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Runs the command line tool with the given arguments and output streams.
+     *
+     * @return The process exit code - 0 for success, 1 for bad arguments, 2 for I/O errors.
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Builder builder = newBuilder();
+        List<File> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--top") || arg.equals("--threads") || arg.equals("--chunk-mb")) {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for " + arg);
+                    }
+                    int value = Integer.parseInt(args[++i]);
+                    if (arg.equals("--top")) {
+                        builder.withTopN(value);
+                    }
+                    else if (arg.equals("--threads")) {
+                        builder.withParallelism(value);
+                    }
+                    else {
+                        builder.withChunkSizeBytes((int) Math.min(MAX_CHUNK_SIZE_BYTES, value * 1024L * 1024L));
+                    }
+                }
+                else if (arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+                else {
+                    files.add(new File(arg));
+                }
+            }
+
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("No files specified");
+            }
+        }
+        catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage());
+            err.println("Usage: " + SpanLogAnalyzer.class.getName()
+                        + " [--top N] [--threads N] [--chunk-mb N] file...");
+            return 1;
+        }
+
+        try {
+            long startNanos = System.nanoTime();
+            SpanLogAnalysis analysis = builder.build().analyze(files);
+            analysis.printReport(out);
+            out.println(String.format("Analyzed in %d ms", (System.nanoTime() - startNanos) / 1000000));
+            return 0;
+        }
+        catch (IOException ex) {
+            err.println("Error reading span logs: " + ex);
+            return 2;
+        }
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getChunkSizeBytes() {
+        return chunkSizeBytes;
+    }
+
+    /**
+     * Analyzes the span lines in the given files. The files are treated as one log - a trace can span multiple files
+     * (e.g. rotated logs, or logs from several services).
+     *
+     * @param files The log files to analyze - cannot be null.
+     * @return The analysis.
+     * @throws IOException if any of the files can't be read.
+     */
+    public SpanLogAnalysis analyze(List<File> files) throws IOException {
+        if (files == null) {
+            throw new IllegalArgumentException("files cannot be null");
+        }
+
+        List<FileChannel> channels = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Chunk> chunks = new ArrayList<>();
+            long totalBytes = 0;
+            for (File file : files) {
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                channels.add(channel);
+                totalBytes += channel.size();
+                chunks.addAll(splitIntoChunks(channel, chunkSizeBytes));
+            }
+
+            if (chunks.isEmpty()) {
+                return new SpanLogAnalysis(
+                    totalBytes, 0, 0, 0, 0, 0, 0, Collections.<SpanNameStats>emptyList(),
+                    Collections.<TraceSummary>emptyList(), Collections.<TraceSummary>emptyList()
+                );
+            }
+
+            // Pass one - per-span-name stats and per-trace summaries.
+            StatsResult stats = invoke(pool, new ChunkTask<>(chunks, 0, chunks.size(), new StatsProcessor()));
+
+            List<TraceStats> allTraces = new ArrayList<>(stats.traces.values());
+            Collections.sort(allTraces, SLOWEST_FIRST);
+            List<TraceStats> slowest = new ArrayList<>(allTraces.subList(0, Math.min(topN, allTraces.size())));
+            List<TraceStats> errors = new ArrayList<>();
+            long errorTraceCount = 0;
+            for (TraceStats trace : allTraces) {
+                if (trace.errorSpanCount > 0) {
+                    errorTraceCount++;
+                    if (errors.size() < topN) {
+                        errors.add(trace);
+                    }
+                }
+            }
+
+            // Pass two - the full spans for only the traces we're going to report.
+            Set<String> reportedTraceIds = new HashSet<>();
+            for (TraceStats trace : slowest) {
+                reportedTraceIds.add(trace.traceId);
+            }
+            for (TraceStats trace : errors) {
+                reportedTraceIds.add(trace.traceId);
+            }
+            Map<String, List<TraceNode>> spansByTraceId = reportedTraceIds.isEmpty()
+                ? Collections.<String, List<TraceNode>>emptyMap()
+                : invoke(pool, new ChunkTask<>(
+                    chunks, 0, chunks.size(), new TraceSpansProcessor(reportedTraceIds)
+                )).spansByTraceId;
+
+            List<SpanNameStats> spanNameStats = new ArrayList<>(stats.statsBySpanName.values());
+            Collections.sort(spanNameStats, MOST_TOTAL_TIME_FIRST);
+
+            return new SpanLogAnalysis(
+                totalBytes, stats.linesScanned, stats.spansParsed, stats.unparseableSpanLines,
+                stats.incorrectTimingSpans, stats.traces.size(), errorTraceCount, spanNameStats,
+                toTraceSummaries(slowest, spansByTraceId), toTraceSummaries(errors, spansByTraceId)
+            );
+        }
+        finally {
+            pool.shutdown();
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    private static <R> R invoke(ForkJoinPool pool, ChunkTask<R> task) throws IOException {
+        try {
+            return pool.invoke(task);
+        }
+        catch (ChunkReadException ex) {
+            throw ex.ioException;
+        }
+    }
+
+    /**
+     * Splits the given file into chunks of roughly the given size. Every chunk except the last is extended to end
+     * just after a newline, so no line is split across chunks.
+     */
+    protected static List<Chunk> splitIntoChunks(FileChannel channel, int chunkSizeBytes) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long fileSize = channel.size();
+        ByteBuffer scanBuffer = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < fileSize) {
+            long end = Math.min(start + chunkSizeBytes, fileSize);
+            if (end < fileSize) {
+                end = findPositionAfterNextNewline(channel, end, fileSize, scanBuffer);
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line too long to analyze near file position " + start);
+            }
+            chunks.add(new Chunk(channel, start, end));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    private static long findPositionAfterNextNewline(FileChannel channel,
+                                                     long position,
+                                                     long fileSize,
+                                                     ByteBuffer scanBuffer) throws IOException {
+        // The chunk's last byte is at position - 1. If that's a newline the chunk already ends on a line boundary.
+        position--;
+        while (position < fileSize) {
+            scanBuffer.clear();
+            int read = channel.read(scanBuffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scanBuffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+
+        return fileSize;
+    }
+
+    protected static List<TraceSummary> toTraceSummaries(List<TraceStats> traces,
+                                                         Map<String, List<TraceNode>> spansByTraceId) {
+        List<TraceSummary> result = new ArrayList<>(traces.size());
+        for (TraceStats trace : traces) {
+            List<TraceNode> spans = spansByTraceId.get(trace.traceId);
+            result.add(new TraceSummary(
+                trace.traceId, trace.getRootSpanName(), trace.minStartEpochMicros,
+                trace.maxEndEpochMicros - trace.minStartEpochMicros, trace.spanCount, trace.errorSpanCount,
+                (spans == null) ? Collections.<TraceNode>emptyList() : buildTree(spans)
+            ));
+        }
+
+        return result;
+    }
+
+    /**
+     * Links the given spans from a single trace into trees using their span and parent span IDs.
+     *
+     * @return The top-level nodes (spans with no parent or whose parent isn't in the given list), sorted by start time.
+     */
+    protected static List<TraceNode> buildTree(List<TraceNode> spans) {
+        Map<String, TraceNode> nodesBySpanId = new HashMap<>();
+        for (TraceNode span : spans) {
+            if (!nodesBySpanId.containsKey(span.getSpanId())) {
+                nodesBySpanId.put(span.getSpanId(), span);
+            }
+        }
+
+        List<TraceNode> roots = new ArrayList<>();
+        for (TraceNode span : spans) {
+            TraceNode parent = (span.getParentSpanId() == null) ? null : nodesBySpanId.get(span.getParentSpanId());
+            if (parent == null || parent == span) {
+                roots.add(span);
+            }
+            else {
+                parent.getChildren().add(span);
+            }
+        }
+
+        for (TraceNode span : spans) {
+            Collections.sort(span.getChildren(), EARLIEST_FIRST);
+        }
+        Collections.sort(roots, EARLIEST_FIRST);
+        return roots;
+    }
+
+    /**
+     * @return The index just past the end of the span log marker in the given line, or -1 if the line doesn't contain
+     * the marker.
+     */
+    protected static int indexAfterMarker(byte[] line, int length) {
+        byte first = SPAN_LOG_MARKER_BYTES[0];
+        int lastPossibleStart = length - SPAN_LOG_MARKER_BYTES.length;
+        outer:
+        for (int i = 0; i <= lastPossibleStart; i++) {
+            if (line[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < SPAN_LOG_MARKER_BYTES.length; j++) {
+                if (line[i + j] != SPAN_LOG_MARKER_BYTES[j]) {
+                    continue outer;
+                }
+            }
+            return i + SPAN_LOG_MARKER_BYTES.length;
+        }
+
+        return -1;
+    }
+
+    protected static boolean hasIncorrectTimingMarker(byte[] line, int spanStart) {
+        int markerStart = spanStart - SPAN_LOG_MARKER_BYTES.length - INCORRECT_TIMING_MARKER_BYTES.length;
+        if (markerStart < 0) {
+            return false;
+        }
+
+        for (int i = 0; i < INCORRECT_TIMING_MARKER_BYTES.length; i++) {
+            if (line[markerStart + i] != INCORRECT_TIMING_MARKER_BYTES[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final Comparator<TraceStats> SLOWEST_FIRST = new Comparator<TraceStats>() {
+        @Override
+        public int compare(TraceStats o1, TraceStats o2) {
+            long d1 = o1.maxEndEpochMicros - o1.minStartEpochMicros;
+            long d2 = o2.maxEndEpochMicros - o2.minStartEpochMicros;
+            if (d1 != d2) {
+                return (d1 > d2) ? -1 : 1;
+            }
+            return o1.traceId.compareTo(o2.traceId);
+        }
+    };
+
+    private static final Comparator<SpanNameStats> MOST_TOTAL_TIME_FIRST = new Comparator<SpanNameStats>() {
+        @Override
+        public int compare(SpanNameStats o1, SpanNameStats o2) {
+            if (o1.getTotalDurationNanos() != o2.getTotalDurationNanos()) {
+                return (o1.getTotalDurationNanos() > o2.getTotalDurationNanos()) ? -1 : 1;
+            }
+            return o1.getSpanName().compareTo(o2.getSpanName());
+        }
+    };
+
+    private static final Comparator<TraceNode> EARLIEST_FIRST = new Comparator<TraceNode>() {
+        @Override
+        public int compare(TraceNode o1, TraceNode o2) {
+            if (o1.getStartTimeEpochMicros() != o2.getStartTimeEpochMicros()) {
+                return (o1.getStartTimeEpochMicros() < o2.getStartTimeEpochMicros()) ? -1 : 1;
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * A byte range of a file that starts at the beginning of a line and ends just after a newline (or at the end of
+     * the file).
+     */
+    protected static class Chunk {
+        public final FileChannel channel;
+        public final long start;
+        public final long end;
+
+        public Chunk(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Per-pass logic for {@link ChunkTask}: creates an empty result for each chunk, processes span lines into it, and
+     * merges results from different chunks.
+     */
+    protected abstract static class ChunkProcessor<R> {
+        protected abstract R newResult();
+
+        /**
+         * Called for every line. {@code spanStart} is the index just past the span log marker, or -1 if the line
+         * isn't a span line.
+         */
+        protected abstract void processLine(byte[] line, int length, int spanStart, SpanFields fields, R result);
+
+        protected abstract R merge(R first, R second);
+    }
+
+    /**
+     * Fork/join task that processes a range of chunks, splitting the range in half until it's down to a single chunk.
+     */
+    protected static class ChunkTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Chunk> chunks;
+        private final int fromIndex;
+        private final int toIndex;
+        private final ChunkProcessor<R> processor;
+
+        public ChunkTask(List<Chunk> chunks, int fromIndex, int toIndex, ChunkProcessor<R> processor) {
+            this.chunks = chunks;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.processor = processor;
+        }
+
+        @Override
+        protected R compute() {
+            if (toIndex - fromIndex == 1) {
+                try {
+                    return processChunk(chunks.get(fromIndex));
+                }
+                catch (IOException ex) {
+                    throw new ChunkReadException(ex);
+                }
+            }
+
+            int middle = (fromIndex + toIndex) >>> 1;
+            ChunkTask<R> secondHalf = new ChunkTask<>(chunks, middle, toIndex, processor);
+            secondHalf.fork();
+            R firstResult = new ChunkTask<>(chunks, fromIndex, middle, processor).compute();
+            return processor.merge(firstResult, secondHalf.join());
+        }
+
+        protected R processChunk(Chunk chunk) throws IOException {
+            R result = processor.newResult();
+            MappedByteBuffer mapped = chunk.channel.map(
+                FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start
+            );
+            SpanFields fields = new SpanFields();
+            byte[] line = new byte[INITIAL_LINE_BUFFER_BYTES];
+            int limit = mapped.limit();
+            int lineStart = 0;
+            for (int i = 0; i <= limit; i++) {
+                if (i < limit && mapped.get(i) != '\n') {
+                    continue;
+                }
+
+                int length = i - lineStart;
+                if (length > 0 || i < limit) {
+                    if (length > line.length) {
+                        line = new byte[Math.max(length, line.length * 2)];
+                    }
+                    mapped.position(lineStart);
+                    mapped.get(line, 0, length);
+                    processor.processLine(line, length, indexAfterMarker(line, length), fields, result);
+                }
+                lineStart = i + 1;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Receives the span fields the analysis needs from {@link StreamingSpanParser}. Reused for every line in a chunk.
+     */
+    protected static class SpanFields implements SpanVisitor {
+        protected boolean collectIds;
+        protected String traceId;
+        protected String spanId;
+        protected String parentSpanId;
+        protected boolean hasParent;
+        protected String spanName;
+        protected boolean hasStartTime;
+        protected long startTimeEpochMicros;
+        protected boolean hasDuration;
+        protected long durationNanos;
+        protected boolean error;
+
+        /**
+         * Parses the given span line into this object.
+         *
+         * @return true if the line was parsed and contained everything the analysis needs, false otherwise.
+         */
+        protected boolean parse(byte[] line, int spanStart, int length, boolean collectIds) {
+            this.collectIds = collectIds;
+            traceId = null;
+            spanId = null;
+            parentSpanId = null;
+            hasParent = false;
+            spanName = null;
+            hasStartTime = false;
+            hasDuration = false;
+            error = false;
+
+            int spanLength = length - spanStart;
+            try {
+                if (spanLength > 0 && line[spanStart] == '{') {
+                    StreamingSpanParser.visitJsonUtf8(line, spanStart, spanLength, this);
+                }
+                else if (SpanBinaryCodec.looksLikeBase64Encoding(line, spanStart, spanLength)) {
+                    Span span = SpanBinaryCodec.fromBase64Utf8(line, spanStart, spanLength);
+                    if (span == null) {
+                        return false;
+                    }
+                    copyFrom(span);
+                }
+                else {
+                    StreamingSpanParser.visitKeyValueUtf8(line, spanStart, spanLength, this);
+                }
+            }
+            catch (RuntimeException ex) {
+                return false;
+            }
+
+            return traceId != null && spanName != null && hasStartTime && hasDuration;
+        }
+
+        /**
+         * Fills in the fields from an already decoded span, for lines logged with {@link
+         * com.nike.wingtips.Tracer.SpanLoggingRepresentation#BINARY}.
+         */
+        protected void copyFrom(Span span) {
+            traceId = span.getTraceId();
+            hasParent = span.getParentSpanId() != null;
+            if (collectIds) {
+                spanId = span.getSpanId();
+                parentSpanId = span.getParentSpanId();
+            }
+            spanName = span.getSpanName();
+            hasStartTime = true;
+            startTimeEpochMicros = span.getSpanStartTimeEpochMicros();
+            Long duration = span.getDurationNanos();
+            hasDuration = duration != null;
+            durationNanos = hasDuration ? duration : 0;
+            error = span.getTags().containsKey(KnownZipkinTags.ERROR);
+        }
+
+        @Override
+        public void visitField(KnownField field, Value value) {
+            switch (field) {
+                case TRACE_ID:
+                    traceId = value.asNullableString();
+                    break;
+                case SPAN_ID:
+                    if (collectIds) {
+                        spanId = value.asNullableString();
+                    }
+                    break;
+                case PARENT_SPAN_ID:
+                    hasParent = !value.isNullLiteral();
+                    if (collectIds) {
+                        parentSpanId = value.asNullableString();
+                    }
+                    break;
+                case SPAN_NAME:
+                    spanName = value.asNullableString();
+                    break;
+                case START_TIME_EPOCH_MICROS:
+                    hasStartTime = !value.isNullLiteral();
+                    startTimeEpochMicros = hasStartTime ? value.asLong() : 0;
+                    break;
+                case DURATION_NANOS:
+                    hasDuration = !value.isNullLiteral();
+                    durationNanos = hasDuration ? value.asLong() : 0;
+                    break;
+                default:
+                    // Not needed for the analysis.
+            }
+        }
+
+        @Override
+        public void visitTag(Value key, Value value) {
+            if (key.contentEquals(KnownZipkinTags.ERROR)) {
+                error = true;
+            }
+        }
+
+        @Override
+        public void visitAnnotation(long timestampEpochMicros, Value value) {
+            // Not needed for the analysis.
+        }
+    }
+
+    /**
+     * Pass one result: overall counts, per-span-name stats, and per-trace summaries.
+     */
+    protected static class StatsResult {
+        protected long linesScanned;
+        protected long spansParsed;
+        protected long unparseableSpanLines;
+        protected long incorrectTimingSpans;
+        protected final Map<String, SpanNameStats> statsBySpanName = new HashMap<>();
+        protected final Map<String, TraceStats> traces = new HashMap<>();
+    }
+
+    protected static class StatsProcessor extends ChunkProcessor<StatsResult> {
+        @Override
+        protected StatsResult newResult() {
+            return new StatsResult();
+        }
+
+        @Override
+        protected void processLine(byte[] line, int length, int spanStart, SpanFields fields, StatsResult result) {
+            result.linesScanned++;
+            if (spanStart < 0) {
+                return;
+            }
+
+            if (!fields.parse(line, spanStart, length, false)) {
+                result.unparseableSpanLines++;
+                return;
+            }
+
+            result.spansParsed++;
+            if (hasIncorrectTimingMarker(line, spanStart)) {
+                result.incorrectTimingSpans++;
+            }
+
+            SpanNameStats stats = result.statsBySpanName.get(fields.spanName);
+            if (stats == null) {
+                stats = new SpanNameStats(fields.spanName);
+                result.statsBySpanName.put(fields.spanName, stats);
+            }
+            stats.record(fields.durationNanos, fields.error);
+
+            TraceStats trace = result.traces.get(fields.traceId);
+            if (trace == null) {
+                trace = new TraceStats(fields.traceId);
+                result.traces.put(fields.traceId, trace);
+            }
+            trace.record(fields);
+        }
+
+        @Override
+        protected StatsResult merge(StatsResult first, StatsResult second) {
+            first.linesScanned += second.linesScanned;
+            first.spansParsed += second.spansParsed;
+            first.unparseableSpanLines += second.unparseableSpanLines;
+            first.incorrectTimingSpans += second.incorrectTimingSpans;
+            for (SpanNameStats stats : second.statsBySpanName.values()) {
+                SpanNameStats existing = first.statsBySpanName.get(stats.getSpanName());
+                if (existing == null) {
+                    first.statsBySpanName.put(stats.getSpanName(), stats);
+                }
+                else {
+                    existing.merge(stats);
+                }
+            }
+            for (TraceStats trace : second.traces.values()) {
+                TraceStats existing = first.traces.get(trace.traceId);
+                if (existing == null) {
+                    first.traces.put(trace.traceId, trace);
+                }
+                else {
+                    existing.merge(trace);
+                }
+            }
+            return first;
+        }
+    }
+
+    /**
+     * Running summary of a single trace, small enough to keep for every trace in a large log.
+     */
+    protected static class TraceStats {
+        protected final String traceId;
+        protected String rootSpanName;
+        protected String earliestSpanName;
+        protected long minStartEpochMicros = Long.MAX_VALUE;
+        protected long maxEndEpochMicros = Long.MIN_VALUE;
+        protected int spanCount;
+        protected int errorSpanCount;
+
+        protected TraceStats(String traceId) {
+            this.traceId = traceId;
+        }
+
+        protected void record(SpanFields fields) {
+            spanCount++;
+            if (fields.error) {
+                errorSpanCount++;
+            }
+            if (!fields.hasParent && rootSpanName == null) {
+                rootSpanName = fields.spanName;
+            }
+            if (fields.startTimeEpochMicros < minStartEpochMicros) {
+                minStartEpochMicros = fields.startTimeEpochMicros;
+                earliestSpanName = fields.spanName;
+            }
+            maxEndEpochMicros = Math.max(
+                maxEndEpochMicros, fields.startTimeEpochMicros + (fields.durationNanos / 1000)
+            );
+        }
+
+        protected void merge(TraceStats other) {
+            spanCount += other.spanCount;
+            errorSpanCount += other.errorSpanCount;
+            if (rootSpanName == null) {
+                rootSpanName = other.rootSpanName;
+            }
+            if (other.minStartEpochMicros < minStartEpochMicros) {
+                minStartEpochMicros = other.minStartEpochMicros;
+                earliestSpanName = other.earliestSpanName;
+            }
+            maxEndEpochMicros = Math.max(maxEndEpochMicros, other.maxEndEpochMicros);
+        }
+
+        protected String getRootSpanName() {
+            return (rootSpanName == null) ? earliestSpanName : rootSpanName;
+        }
+    }
+
+    /**
+     * Pass two result: the spans of the traces being reported.
+     */
+    protected static class TraceSpansResult {
+        protected final Map<String, List<TraceNode>> spansByTraceId = new HashMap<>();
+    }
+
+    protected static class TraceSpansProcessor extends ChunkProcessor<TraceSpansResult> {
+        private final Set<String> traceIds;
+
+        protected TraceSpansProcessor(Set<String> traceIds) {
+            this.traceIds = traceIds;
+        }
+
+        @Override
+        protected TraceSpansResult newResult() {
+            return new TraceSpansResult();
+        }
+
+        @Override
+        protected void processLine(byte[] line,
+                                   int length,
+                                   int spanStart,
+                                   SpanFields fields,
+                                   TraceSpansResult result) {
+            if (spanStart < 0 || !fields.parse(line, spanStart, length, true) || !traceIds.contains(fields.traceId)) {
+                return;
+            }
+
+            List<TraceNode> spans = result.spansByTraceId.get(fields.traceId);
+            if (spans == null) {
+                spans = new ArrayList<>();
+                result.spansByTraceId.put(fields.traceId, spans);
+            }
+            spans.add(new TraceNode(
+                fields.spanId, fields.parentSpanId, fields.spanName, fields.startTimeEpochMicros,
+                fields.durationNanos, fields.error
+            ));
+        }
+
+        @Override
+        protected TraceSpansResult merge(TraceSpansResult first, TraceSpansResult second) {
+            for (Map.Entry<String, List<TraceNode>> entry : second.spansByTraceId.entrySet()) {
+                List<TraceNode> existing = first.spansByTraceId.get(entry.getKey());
+                if (existing == null) {
+                    first.spansByTraceId.put(entry.getKey(), entry.getValue());
+                }
+                else {
+                    existing.addAll(entry.getValue());
+                }
+            }
+            return first;
+        }
+    }
+
+    /**
+     * Carries an {@link IOException} out of a fork/join task.
+     */
+    protected static class ChunkReadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        protected final IOException ioException;
+
+        protected ChunkReadException(IOException ioException) {
+            super(ioException);
+            this.ioException = ioException;
+        }
+    }
+
+    /**
+     * Builder for {@link SpanLogAnalyzer}.
+     */
+    public static class Builder {
+        private int topN = DEFAULT_TOP_N;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private int chunkSizeBytes = DEFAULT_CHUNK_SIZE_BYTES;
+
+        protected Builder() {
+        }
+
+        /**
+         * @param topN The number of slowest traces and error traces to report - cannot be negative.
+         * @return This builder.
+         */
+        public Builder withTopN(int topN) {
+            if (topN < 0) {
+                throw new IllegalArgumentException("topN cannot be negative");
+            }
+            this.topN = topN;
+            return this;
+        }
+
+        /**
+         * @param parallelism The number of threads used to parse chunks - must be at least 1.
+         * @return This builder.
+         */
+        public Builder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param chunkSizeBytes The approximate size of the chunks files are split into for parallel parsing - must
+         * be between 1 and {@link #MAX_CHUNK_SIZE_BYTES}. Each chunk is extended to the end of its last line.
+         * @return This builder.
+         */
+        public Builder withChunkSizeBytes(int chunkSizeBytes) {
+            if (chunkSizeBytes < 1 || chunkSizeBytes > MAX_CHUNK_SIZE_BYTES) {
+                throw new IllegalArgumentException(
+                    "chunkSizeBytes must be between 1 and " + MAX_CHUNK_SIZE_BYTES + ". Was: " + chunkSizeBytes
+                );
+            }
+            this.chunkSizeBytes = chunkSizeBytes;
+            return this;
+        }
+
+        public SpanLogAnalyzer build() {
+            return new SpanLogAnalyzer(this);
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package com.nike.wingtips.logtools;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
+import com.nike.wingtips.util.parser.StreamingSpanParser;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tails a span log file (the file your logging config writes the {@code VALID_WINGTIPS_SPANS} logger to), parses each
+ * new {@code [DISTRIBUTED_TRACING]} line with {@link StreamingSpanParser} (or {@link SpanBinaryCodec} for spans logged
+ * with {@link com.nike.wingtips.Tracer.SpanLoggingRepresentation#BINARY}), and passes the resulting spans to {@link
+ * SpanLifecycleListener#spanCompleted(Span)} on the given listeners - e.g. a Zipkin or LightStep span listener. This
+ * moves span export out of the application process entirely: the application only logs its spans, and a separate
+ * process (or a sidecar) running this tailer does the exporting, so the service has no reporter threads or in-memory
+ * span queues of its own.
+ *
+ * <p>The file is read incrementally through a {@link FileChannel} in large blocks, and the position just after the
+ * last fully processed line is persisted to a checkpoint file so a restarted tailer picks up where it left off. Spans
+ * are delivered at-least-once: after a crash, spans logged after the last persisted checkpoint are delivered again.
+ * Checkpoints are written at the end of every {@link #poll()} and every {@link #CHECKPOINT_INTERVAL_BYTES} while
+ * catching up on a large backlog, so the amount of re-delivery is bounded.
+ *
+ * <p>Log rotation is handled for both common styles:
+ * <ul>
+ *     <li>
+ *         Rename-and-create (the default for Logback and Log4j rolling appenders): the tailer keeps reading the
+ *         renamed file through its open channel until it has drained it, then switches to the new file at the
+ *         original path. This relies on {@link BasicFileAttributes#fileKey()} to notice the path now points at a
+ *         different file, which is available on Unix-like systems.
+ *     </li>
+ *     <li>Copy-and-truncate: when the file becomes smaller than the current position, reading restarts at 0.</li>
+ * </ul>
+ *
+ * Call {@link #poll()} yourself to control threading, or {@link #start()} to poll on a daemon thread that sleeps for
+ * the configured poll interval whenever it has caught up. Listeners are called on the polling thread, one span at a
+ * time. An exception thrown by a listener is logged and counted, and doesn't stop delivery to other listeners.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class SpanLogTailer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanLogTailer.class);
+
+    /**
+     * The name of the thread started by {@link #start()}.
+     */
+    public static final String TAILER_THREAD_NAME = "wingtips-span-log-tailer";
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 500;
+    public static final int DEFAULT_READ_BUFFER_SIZE_BYTES = 1024 * 1024;
+    public static final int DEFAULT_MAX_LINE_SIZE_BYTES = 16 * 1024 * 1024;
+    /**
+     * While catching up on a backlog, the checkpoint is persisted at least this often (in bytes read).
+     */
+    public static final long CHECKPOINT_INTERVAL_BYTES = 8 * 1024 * 1024;
+
+    protected static final String CHECKPOINT_FILE_KEY_PROPERTY = "fileKey";
+    protected static final String CHECKPOINT_POSITION_PROPERTY = "position";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final List<SpanLifecycleListener> listeners;
+    private final long pollIntervalMillis;
+    private final int maxLineSizeBytes;
+
+    private final AtomicLong spansDelivered = new AtomicLong();
+    private final AtomicLong unparseableSpanLines = new AtomicLong();
+    private final AtomicLong skippedOversizedLines = new AtomicLong();
+    private final AtomicLong listenerErrors = new AtomicLong();
+    private final AtomicLong rotationsHandled = new AtomicLong();
+
+    // Reading state - only touched by the polling thread (poll() is synchronized).
+    private ByteBuffer readBuffer;
+    private byte[] lineBuffer = new byte[8 * 1024];
+    private FileChannel channel;
+    private Object channelFileKey;
+    private long committedPosition;
+    private long readPosition;
+    private boolean skippingOversizedLine;
+    private long bytesSinceLastCheckpoint;
+    private boolean checkpointLoaded;
+
+    private volatile boolean running;
+    private volatile Thread pollingThread;
+    // The polling thread waits on this between polls rather than sleeping, so close() can wake it without an
+    //      interrupt (which would close the FileChannel out from under a read in progress).
+    private final Object pollWaitLock = new Object();
+
+    protected SpanLogTailer(Builder builder) {
+        this.logFile = builder.logFile;
+        this.checkpointFile = builder.checkpointFile;
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(builder.listeners));
+        this.pollIntervalMillis = builder.pollIntervalMillis;
+        this.maxLineSizeBytes = builder.maxLineSizeBytes;
+        this.readBuffer = ByteBuffer.allocate(builder.readBufferSizeBytes);
+    }
+
+    /**
+     * @param logFile The span log file to tail - cannot be null. It doesn't need to exist yet.
+     * @param checkpointFile The file the read position is persisted to - cannot be null. Each tailer needs its own
+     * checkpoint file.
+     * @return A new builder.
+     */
+    public static Builder newBuilder(Path logFile, Path checkpointFile) {
+        return new Builder(logFile, checkpointFile);
+    }
+
+    /**
+     * Reads and delivers all complete span lines written since the last poll, handles rotation, and persists the
+     * checkpoint. A partially written last line is left for the next poll.
+     *
+     * @return The number of complete lines processed (span lines or not). 0 means the tailer is caught up.
+     * @throws IOException if the log file or checkpoint file can't be read or written.
+     */
+    public synchronized int poll() throws IOException {
+        if (!checkpointLoaded) {
+            loadCheckpoint();
+            checkpointLoaded = true;
+        }
+
+        if (channel == null && !openLogFile(false)) {
+            return 0;
+        }
+
+        int linesProcessed = drainChannel();
+
+        if (hasBeenRotated()) {
+            // Everything written to the old file before the rotation has been drained above, including a final line
+            //      without a trailing newline. Switch to the new file.
+            linesProcessed += flushUnterminatedLine();
+            rotationsHandled.incrementAndGet();
+            closeChannel();
+            channelFileKey = null;
+            resetReadState(0);
+            if (openLogFile(true)) {
+                linesProcessed += drainChannel();
+            }
+        }
+
+        saveCheckpoint();
+        return linesProcessed;
+    }
+
+    /**
+     * Starts polling on a daemon thread named {@link #TAILER_THREAD_NAME}. Does nothing if already started.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pollUntilStopped();
+            }
+        }, TAILER_THREAD_NAME);
+        thread.setDaemon(true);
+        pollingThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the polling thread started by {@link #start()} (waiting for it to finish its current poll), persists the
+     * checkpoint, and closes the log file.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        Thread thread = pollingThread;
+        if (thread != null) {
+            synchronized (pollWaitLock) {
+                pollWaitLock.notifyAll();
+            }
+            try {
+                thread.join();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            pollingThread = null;
+        }
+
+        synchronized (this) {
+            if (checkpointLoaded) {
+                saveCheckpoint();
+            }
+            closeChannel();
+        }
+    }
+
+    protected void pollUntilStopped() {
+        while (running) {
+            int linesProcessed;
+            try {
+                linesProcessed = poll();
+            }
+            catch (IOException | RuntimeException ex) {
+                logger.error("Error tailing span log file. Will retry. span_log_file={}", logFile, ex);
+                linesProcessed = 0;
+            }
+
+            if (linesProcessed == 0) {
+                synchronized (pollWaitLock) {
+                    if (!running) {
+                        return;
+                    }
+
+                    try {
+                        pollWaitLock.wait(pollIntervalMillis);
+                    }
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    protected int drainChannel() throws IOException {
+        int linesProcessed = 0;
+        long fileSize = channel.size();
+        if (fileSize < readPosition) {
+            // Copy-and-truncate rotation - the file we were reading was truncated and is being rewritten from 0.
+            rotationsHandled.incrementAndGet();
+            resetReadState(0);
+        }
+
+        while (true) {
+            int read = channel.read(readBuffer, readPosition);
+            if (read <= 0) {
+                return linesProcessed;
+            }
+
+            readPosition += read;
+            bytesSinceLastCheckpoint += read;
+            linesProcessed += processBufferedLines();
+
+            if (bytesSinceLastCheckpoint >= CHECKPOINT_INTERVAL_BYTES) {
+                saveCheckpoint();
+            }
+        }
+    }
+
+    /**
+     * Processes the complete lines in the read buffer and compacts any trailing partial line to the start of the
+     * buffer, growing the buffer if a single line doesn't fit.
+     */
+    protected int processBufferedLines() {
+        byte[] bytes = readBuffer.array();
+        int limit = readBuffer.position();
+        int lineStart = 0;
+        int linesProcessed = 0;
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+
+            if (skippingOversizedLine) {
+                // This is the end of a line we already gave up on.
+                skippingOversizedLine = false;
+            }
+            else {
+                processLine(bytes, lineStart, i - lineStart);
+            }
+            linesProcessed++;
+            lineStart = i + 1;
+        }
+
+        int remaining = limit - lineStart;
+        committedPosition = readPosition - remaining;
+        if (skippingOversizedLine) {
+            // Still inside a line we're skipping - throw away what we have so far.
+            readBuffer.clear();
+            return linesProcessed;
+        }
+
+        if (lineStart > 0) {
+            System.arraycopy(bytes, lineStart, bytes, 0, remaining);
+            readBuffer.position(remaining);
+        }
+        else if (!readBuffer.hasRemaining()) {
+            // A single line fills the whole buffer.
+            if (readBuffer.capacity() >= maxLineSizeBytes) {
+                logger.warn(
+                    "Skipping span log line larger than max_line_size_bytes={}. span_log_file={}",
+                    maxLineSizeBytes, logFile
+                );
+                skippedOversizedLines.incrementAndGet();
+                skippingOversizedLine = true;
+                readBuffer.clear();
+            }
+            else {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.min(maxLineSizeBytes, readBuffer.capacity() * 2));
+                readBuffer.flip();
+                bigger.put(readBuffer);
+                readBuffer = bigger;
+            }
+        }
+
+        return linesProcessed;
+    }
+
+    protected void processLine(byte[] bytes, int offset, int length) {
+        if (length > lineBuffer.length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        System.arraycopy(bytes, offset, lineBuffer, 0, length);
+
+        int spanStart = SpanLogAnalyzer.indexAfterMarker(lineBuffer, length);
+        if (spanStart < 0) {
+            return;
+        }
+
+        int spanLength = length - spanStart;
+        Span span;
+        if (spanLength > 0 && lineBuffer[spanStart] == '{') {
+            span = StreamingSpanParser.fromJsonUtf8(lineBuffer, spanStart, spanLength);
+        }
+        else if (SpanBinaryCodec.looksLikeBase64Encoding(lineBuffer, spanStart, spanLength)) {
+            span = SpanBinaryCodec.fromBase64Utf8(lineBuffer, spanStart, spanLength);
+        }
+        else {
+            span = StreamingSpanParser.fromKeyValueUtf8(lineBuffer, spanStart, spanLength);
+        }
+        if (span == null) {
+            unparseableSpanLines.incrementAndGet();
+            return;
+        }
+
+        spansDelivered.incrementAndGet();
+        for (SpanLifecycleListener listener : listeners) {
+            try {
+                listener.spanCompleted(span);
+            }
+            catch (RuntimeException ex) {
+                listenerErrors.incrementAndGet();
+                logger.warn("SpanLifecycleListener threw an exception while handling a tailed span. listener={}",
+                            listener.getClass().getName(), ex);
+            }
+        }
+    }
+
+    /**
+     * Processes the bytes left in the buffer as a final line. Only used when the file has been rotated, since nothing
+     * more will ever be appended to it.
+     */
+    protected int flushUnterminatedLine() {
+        int remaining = readBuffer.position();
+        if (remaining == 0 || skippingOversizedLine) {
+            return 0;
+        }
+
+        processLine(readBuffer.array(), 0, remaining);
+        readBuffer.clear();
+        committedPosition = readPosition;
+        return 1;
+    }
+
+    protected boolean hasBeenRotated() throws IOException {
+        Object currentFileKey = readFileKey();
+        if (currentFileKey == null) {
+            // Either the file is gone (and not yet recreated), or this platform doesn't provide file keys. Either way
+            //      keep reading the file we have open.
+            return false;
+        }
+
+        return !currentFileKey.equals(channelFileKey);
+    }
+
+    protected boolean openLogFile(boolean afterRotation) throws IOException {
+        FileChannel newChannel;
+        try {
+            newChannel = FileChannel.open(logFile, StandardOpenOption.READ);
+        }
+        catch (NoSuchFileException ex) {
+            return false;
+        }
+
+        Object fileKey = readFileKey();
+        long startPosition = 0;
+        if (!afterRotation && committedPosition > 0) {
+            // channelFileKey is still the key loaded from the checkpoint at this point (if any).
+            boolean sameFile = (fileKey == null || channelFileKey == null || channelFileKey.equals(fileKey));
+            if (sameFile && committedPosition <= newChannel.size()) {
+                startPosition = committedPosition;
+            }
+        }
+
+        channel = newChannel;
+        channelFileKey = fileKey;
+        resetReadState(startPosition);
+        return true;
+    }
+
+    private void resetReadState(long position) {
+        committedPosition = position;
+        readPosition = position;
+        skippingOversizedLine = false;
+        readBuffer.clear();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private Object readFileKey() throws IOException {
+        try {
+            return Files.readAttributes(logFile, BasicFileAttributes.class).fileKey();
+        }
+        catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    protected void loadCheckpoint() throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            properties.load(in);
+        }
+
+        try {
+            committedPosition = Long.parseLong(properties.getProperty(CHECKPOINT_POSITION_PROPERTY, "0"));
+        }
+        catch (NumberFormatException ex) {
+            logger.warn("Ignoring invalid span log tailer checkpoint. checkpoint_file={}", checkpointFile, ex);
+            committedPosition = 0;
+            return;
+        }
+
+        // We can't recreate the file key object itself, so compare its string form when opening the file.
+        String fileKey = properties.getProperty(CHECKPOINT_FILE_KEY_PROPERTY);
+        channelFileKey = (fileKey == null || fileKey.isEmpty()) ? null : new CheckpointedFileKey(fileKey);
+    }
+
+    protected void saveCheckpoint() throws IOException {
+        bytesSinceLastCheckpoint = 0;
+        String checkpoint = CHECKPOINT_POSITION_PROPERTY + "=" + committedPosition + "\n"
+                            + CHECKPOINT_FILE_KEY_PROPERTY + "=" + ((channelFileKey == null) ? "" : channelFileKey)
+                            + "\n";
+
+        // Write to a temp file and move it into place, so a crash never leaves a half-written checkpoint.
+        Path tempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            out.write(checkpoint.getBytes(UTF_8));
+        }
+        try {
+            Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public List<SpanLifecycleListener> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * @return The file position just after the last fully processed line - this is what gets checkpointed.
+     */
+    public synchronized long getCommittedPosition() {
+        return committedPosition;
+    }
+
+    public long getSpansDelivered() {
+        return spansDelivered.get();
+    }
+
+    public long getUnparseableSpanLines() {
+        return unparseableSpanLines.get();
+    }
+
+    public long getSkippedOversizedLines() {
+        return skippedOversizedLines.get();
+    }
+
+    public long getListenerErrors() {
+        return listenerErrors.get();
+    }
+
+    public long getRotationsHandled() {
+        return rotationsHandled.get();
+    }
+
+    /**
+     * A file key loaded from a checkpoint. File keys are platform-specific objects, so the checkpoint stores their
+     * string form and this compares equal to any file key with the same string form.
+     */
+    protected static class CheckpointedFileKey {
+        private final String value;
+
+        protected CheckpointedFileKey(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o != null && value.equals(o.toString());
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    /**
+     * Builder for {@link SpanLogTailer}.
+     */
+    public static class Builder {
+        private final Path logFile;
+        private final Path checkpointFile;
+        private final List<SpanLifecycleListener> listeners = new ArrayList<>();
+        private long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+        private int readBufferSizeBytes = DEFAULT_READ_BUFFER_SIZE_BYTES;
+        private int maxLineSizeBytes = DEFAULT_MAX_LINE_SIZE_BYTES;
+
+        protected Builder(Path logFile, Path checkpointFile) {
+            if (logFile == null) {
+                throw new IllegalArgumentException("logFile cannot be null");
+            }
+
+            if (checkpointFile == null) {
+                throw new IllegalArgumentException("checkpointFile cannot be null");
+            }
+
+            this.logFile = logFile;
+            this.checkpointFile = checkpointFile;
+        }
+
+        /**
+         * @param listener A listener that will be passed each tailed span - cannot be null.
+         * @return This builder.
+         */
+        public Builder withListener(SpanLifecycleListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener cannot be null");
+            }
+
+            listeners.add(listener);
+            return this;
+        }
+
+        /**
+         * @param pollIntervalMillis How long the {@link #start()} thread sleeps after catching up - must be positive.
+         * @return This builder.
+         */
+        public Builder withPollIntervalMillis(long pollIntervalMillis) {
+            if (pollIntervalMillis <= 0) {
+                throw new IllegalArgumentException("pollIntervalMillis must be positive");
+            }
+
+            this.pollIntervalMillis = pollIntervalMillis;
+            return this;
+        }
+
+        /**
+         * @param readBufferSizeBytes The size of each block read from the log file - must be positive. Larger
+         * buffers mean fewer reads when catching up on a busy log.
+         * @return This builder.
+         */
+        public Builder withReadBufferSizeBytes(int readBufferSizeBytes) {
+            if (readBufferSizeBytes <= 0) {
+                throw new IllegalArgumentException("readBufferSizeBytes must be positive");
+            }
+
+            this.readBufferSizeBytes = readBufferSizeBytes;
+            return this;
+        }
+
+        /**
+         * @param maxLineSizeBytes Lines longer than this are skipped (and counted) rather than buffered - must be
+         * positive.
+         * @return This builder.
+         */
+        public Builder withMaxLineSizeBytes(int maxLineSizeBytes) {
+            if (maxLineSizeBytes <= 0) {
+                throw new IllegalArgumentException("maxLineSizeBytes must be positive");
+            }
+
+            this.maxLineSizeBytes = maxLineSizeBytes;
+            return this;
+        }
+
+        public SpanLogTailer build() {
+            return new SpanLogTailer(this);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.nike.wingtips.logtools;
+
+import com.nike.wingtips.logtools.SpanLogAnalysis.SpanNameStats;
+import com.nike.wingtips.logtools.SpanLogAnalysis.TraceNode;
+import com.nike.wingtips.logtools.SpanLogAnalysis.TraceSummary;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link SpanLogAnalysis}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanLogAnalysisTest {
+
+    @DataProvider(value = {
+        "0",
+        "15",
+        "16",
+        "17",
+        "1000",
+        "123456789",
+        "9223372036854775807"
+    })
+    @Test
+    public void SpanNameStats_buckets_contain_their_values_with_bounded_relative_error(long value) {
+        // when
+        int index = SpanNameStats.bucketIndex(value);
+        long upperBound = SpanNameStats.bucketUpperBound(index);
+
+        // then
+        assertThat(upperBound).isGreaterThanOrEqualTo(value);
+        assertThat((double) (upperBound - value)).isLessThanOrEqualTo(value / 16d);
+        if (index > 0) {
+            assertThat(SpanNameStats.bucketUpperBound(index - 1)).isLessThan(value);
+        }
+    }
+
+    @Test
+    public void SpanNameStats_records_counts_totals_and_percentile_estimates() {
+        // given
+        SpanNameStats stats = new SpanNameStats("foo");
+
+        // when
+        for (int i = 1; i <= 100; i++) {
+            stats.record(i * 1_000_000L, i % 10 == 0);
+        }
+        stats.record(-5, false);
+
+        // then
+        assertThat(stats.getSpanName()).isEqualTo("foo");
+        assertThat(stats.getCount()).isEqualTo(101);
+        assertThat(stats.getErrorCount()).isEqualTo(10);
+        assertThat(stats.getTotalDurationNanos()).isEqualTo(5050 * 1_000_000L);
+        assertThat(stats.getMinDurationNanos()).isZero();
+        assertThat(stats.getMaxDurationNanos()).isEqualTo(100_000_000L);
+        assertThat(stats.getMeanDurationNanos()).isEqualTo(5050 * 1_000_000d / 101);
+        assertThat(stats.getPercentileDurationNanos(50)).isBetween(50_000_000L, 53_125_000L);
+        assertThat(stats.getPercentileDurationNanos(99)).isBetween(98_000_000L, 100_000_000L);
+        assertThat(stats.getPercentileDurationNanos(100)).isEqualTo(100_000_000L);
+        assertThat(stats.getPercentileDurationNanos(0)).isZero();
+    }
+
+    @Test
+    public void SpanNameStats_merge_combines_everything() {
+        // given
+        SpanNameStats first = new SpanNameStats("foo");
+        SpanNameStats second = new SpanNameStats("foo");
+        SpanNameStats empty = new SpanNameStats("foo");
+        first.record(10, false);
+        second.record(1000, true);
+        second.record(5, false);
+
+        // when
+        first.merge(second);
+        first.merge(empty);
+
+        // then
+        assertThat(first.getCount()).isEqualTo(3);
+        assertThat(first.getErrorCount()).isEqualTo(1);
+        assertThat(first.getTotalDurationNanos()).isEqualTo(1015);
+        assertThat(first.getMinDurationNanos()).isEqualTo(5);
+        assertThat(first.getMaxDurationNanos()).isEqualTo(1000);
+        assertThat(first.getPercentileDurationNanos(100)).isEqualTo(1000);
+        assertThat(empty.getMinDurationNanos()).isZero();
+        assertThat(empty.getMeanDurationNanos()).isZero();
+        assertThat(empty.getPercentileDurationNanos(50)).isZero();
+    }
+
+    @Test
+    public void printReport_prints_summary_span_name_stats_and_trace_trees() {
+        // given
+        SpanNameStats stats = new SpanNameStats("GET /foo");
+        stats.record(2_500_000, true);
+        TraceNode root = new TraceNode("s1", null, "GET /foo", 1000, 2_500_000, false);
+        TraceNode child = new TraceNode("s2", "s1", "db", 1500, 1_000_000, true);
+        root.getChildren().add(child);
+        TraceSummary trace = new TraceSummary("t1", "GET /foo", 1000, 2500, 2, 1, Collections.singletonList(root));
+        SpanLogAnalysis analysis = new SpanLogAnalysis(
+            100, 10, 2, 1, 0, 1, 1, Collections.singletonList(stats), Collections.singletonList(trace),
+            Collections.singletonList(trace)
+        );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        analysis.printReport(new PrintStream(out, true));
+
+        // then
+        String report = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(report).contains(
+            "bytes=100 lines=10 spans=2 unparseable_span_lines=1 incorrect_timing_spans=0 traces=1 error_traces=1",
+            "2.500  GET /foo",
+            "trace_id=t1 duration_ms=2.500 spans=2 error_spans=1 root=GET /foo",
+            "  +0.000ms 2.500ms GET /foo\n",
+            "    +0.500ms 1.000ms db [ERROR]"
+        );
+    }
+
+    @Test
+    public void printReport_truncates_large_trace_trees_and_handles_no_traces() {
+        // given
+        TraceNode root = new TraceNode("root", null, "root", 0, 1000, false);
+        for (int i = 0; i < SpanLogAnalysis.MAX_REPORTED_SPANS_PER_TRACE + 10; i++) {
+            root.getChildren().add(new TraceNode("c" + i, "root", "child", i, 10, false));
+        }
+        int spanCount = SpanLogAnalysis.MAX_REPORTED_SPANS_PER_TRACE + 11;
+        TraceSummary trace = new TraceSummary("t1", "root", 0, 1, spanCount, 0, Collections.singletonList(root));
+        SpanLogAnalysis analysis = new SpanLogAnalysis(
+            0, 0, 0, 0, 0, 1, 0, new ArrayList<>(), Collections.singletonList(trace), new ArrayList<>()
+        );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        analysis.printReport(new PrintStream(out, true));
+
+        // then
+        String report = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        List<String> childLines = new ArrayList<>();
+        for (String line : report.split("\n")) {
+            if (line.endsWith(" child")) {
+                childLines.add(line);
+            }
+        }
+        assertThat(childLines).hasSize(SpanLogAnalysis.MAX_REPORTED_SPANS_PER_TRACE - 1);
+        assertThat(report).contains("... 11 more spans", "=== Error traces (slowest first) ===\n(none)");
+    }
+}
@@ -0,0 +1,355 @@
+package com.nike.wingtips.logtools;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.tags.KnownZipkinTags;
+import com.nike.wingtips.logtools.SpanLogAnalysis.SpanNameStats;
+import com.nike.wingtips.logtools.SpanLogAnalysis.TraceNode;
+import com.nike.wingtips.logtools.SpanLogAnalysis.TraceSummary;
+import com.nike.wingtips.logtools.SpanLogAnalyzer.Chunk;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link SpanLogAnalyzer}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanLogAnalyzerTest {
+
+    private static final String LINE_PREFIX = "2026-01-01 12:00:00,000 [http-nio-8080-exec-1] INFO  VALID_WINGTIPS_SPANS - ";
+    private static final long BASE_EPOCH_MICROS = 1_700_000_000_000_000L;
+
+    private final List<Path> tempFiles = new ArrayList<>();
+
+    @Before
+    public void beforeMethod() {
+        tempFiles.clear();
+    }
+
+    @After
+    public void afterMethod() throws IOException {
+        for (Path file : tempFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path writeLog(List<String> lines) throws IOException {
+        Path file = Files.createTempFile("span-log-analyzer-test", ".log");
+        tempFiles.add(file);
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static Span span(String traceId, String parentSpanId, String spanId, String spanName,
+                             long startOffsetMicros, long durationMicros, boolean error) {
+        Span span = new Span(
+            traceId, parentSpanId, spanId, spanName, true, null, SpanPurpose.SERVER,
+            BASE_EPOCH_MICROS + startOffsetMicros, null, durationMicros * 1000, null, null
+        );
+        if (error) {
+            span.putTag(KnownZipkinTags.ERROR, "boom");
+        }
+        return span;
+    }
+
+    private static String jsonLine(Span span) {
+        return LINE_PREFIX + "[DISTRIBUTED_TRACING] " + span.toJSON();
+    }
+
+    private static String keyValueLine(Span span) {
+        return LINE_PREFIX + "[DISTRIBUTED_TRACING] " + span.toKeyValueString();
+    }
+
+    private static String binaryLine(Span span) {
+        return LINE_PREFIX + "[DISTRIBUTED_TRACING] " + SpanBinaryCodec.toBase64(span);
+    }
+
+    private static List<String> sampleLog() {
+        List<String> lines = new ArrayList<>();
+        lines.add("2026-01-01 12:00:00,000 [main] INFO  com.foo.App - Application started");
+        // trace-a: 100ms root with two children (one of which is a grandchild parent), mixed formats.
+        lines.add(jsonLine(span("trace-a", "a1", "a2", "db-query", 10_000, 30_000, false)));
+        lines.add(keyValueLine(span("trace-a", "a2", "a3", "serialize", 15_000, 5_000, false)));
+        lines.add(binaryLine(span("trace-a", "a1", "a4", "db-query", 50_000, 40_000, false)));
+        lines.add(keyValueLine(span("trace-a", null, "a1", "GET /orders", 0, 100_000, false)));
+        // trace-b: 300ms with an error in a child.
+        lines.add(jsonLine(span("trace-b", null, "b1", "GET /slow", 0, 300_000, false)));
+        lines.add(binaryLine(span("trace-b", "b1", "b2", "downstream-call", 1_000, 250_000, true)));
+        // trace-c: 20ms, logged with incorrect timing, and a CRLF line ending.
+        lines.add(LINE_PREFIX + "[INCORRECT_TIMING] [DISTRIBUTED_TRACING] "
+                  + span("trace-c", null, "c1", "GET /fast", 0, 20_000, false).toJSON() + "\r");
+        // trace-d: root span isn't in the log - only an orphaned child.
+        lines.add(jsonLine(span("trace-d", "missing-parent", "d2", "db-query", 0, 10_000, false)));
+        // Garbage and non-span lines.
+        lines.add(LINE_PREFIX + "[DISTRIBUTED_TRACING] {\"traceId\":\"broken");
+        lines.add(LINE_PREFIX + "[DISTRIBUTED_TRACING] traceId=\"no-duration\",spanName=\"x\"");
+        lines.add("");
+        lines.add("some other line with [DISTRIBUTED_TRACING but no marker");
+        return lines;
+    }
+
+    @DataProvider(value = {
+        "1          |   1",
+        "1          |   4",
+        "64         |   3",
+        "100000     |   2",
+        "33554432   |   8",
+    }, splitBy = "\\|")
+    @Test
+    public void analyze_produces_same_results_regardless_of_chunk_size_and_parallelism(
+        int chunkSizeBytes, int parallelism
+    ) throws IOException {
+        // given
+        List<String> lines = sampleLog();
+        Path file = writeLog(lines);
+        SpanLogAnalyzer analyzer = SpanLogAnalyzer.newBuilder()
+                                                  .withChunkSizeBytes(chunkSizeBytes)
+                                                  .withParallelism(parallelism)
+                                                  .withTopN(2)
+                                                  .build();
+
+        // when
+        SpanLogAnalysis analysis = analyzer.analyze(Collections.singletonList(file.toFile()));
+
+        // then
+        assertThat(analysis.getBytesScanned()).isEqualTo(Files.size(file));
+        assertThat(analysis.getLinesScanned()).isEqualTo(lines.size());
+        assertThat(analysis.getSpansParsed()).isEqualTo(8);
+        assertThat(analysis.getUnparseableSpanLines()).isEqualTo(2);
+        assertThat(analysis.getIncorrectTimingSpans()).isEqualTo(1);
+        assertThat(analysis.getTraceCount()).isEqualTo(4);
+        assertThat(analysis.getErrorTraceCount()).isEqualTo(1);
+
+        Map<String, SpanNameStats> statsByName = analysis.getSpanNameStats().stream().collect(
+            Collectors.toMap(SpanNameStats::getSpanName, s -> s)
+        );
+        assertThat(analysis.getSpanNameStats().get(0).getSpanName()).isEqualTo("GET /slow");
+        SpanNameStats dbQuery = statsByName.get("db-query");
+        assertThat(dbQuery.getCount()).isEqualTo(3);
+        assertThat(dbQuery.getTotalDurationNanos()).isEqualTo(80_000_000L);
+        assertThat(dbQuery.getMinDurationNanos()).isEqualTo(10_000_000L);
+        assertThat(dbQuery.getMaxDurationNanos()).isEqualTo(40_000_000L);
+        assertThat(statsByName.get("downstream-call").getErrorCount()).isEqualTo(1);
+
+        assertThat(analysis.getSlowestTraces()).extracting(TraceSummary::getTraceId)
+                                               .containsExactly("trace-b", "trace-a");
+        TraceSummary traceA = analysis.getSlowestTraces().get(1);
+        assertThat(traceA.getRootSpanName()).isEqualTo("GET /orders");
+        assertThat(traceA.getDurationMicros()).isEqualTo(100_000);
+        assertThat(traceA.getSpanCount()).isEqualTo(4);
+        assertThat(traceA.getStartTimeEpochMicros()).isEqualTo(BASE_EPOCH_MICROS);
+        assertThat(traceA.getRootNodes()).hasSize(1);
+        TraceNode root = traceA.getRootNodes().get(0);
+        assertThat(root.getSpanId()).isEqualTo("a1");
+        assertThat(root.getChildren()).extracting(TraceNode::getSpanId).containsExactly("a2", "a4");
+        assertThat(root.getChildren().get(0).getChildren()).extracting(TraceNode::getSpanId).containsExactly("a3");
+
+        assertThat(analysis.getErrorTraces()).hasSize(1);
+        TraceSummary traceB = analysis.getErrorTraces().get(0);
+        assertThat(traceB.getTraceId()).isEqualTo("trace-b");
+        assertThat(traceB.getErrorSpanCount()).isEqualTo(1);
+        assertThat(traceB.getRootNodes().get(0).getChildren().get(0).isError()).isTrue();
+    }
+
+    @Test
+    public void analyze_uses_earliest_span_name_when_root_span_is_missing_and_combines_multiple_files()
+        throws IOException {
+        // given
+        Path first = writeLog(Arrays.asList(
+            jsonLine(span("trace-x", "gone", "x2", "child-one", 5_000, 1_000, false))
+        ));
+        Path second = writeLog(Arrays.asList(
+            jsonLine(span("trace-x", "gone", "x1", "child-zero", 0, 50_000, false)),
+            keyValueLine(span("trace-y", null, "y1", "other", 0, 1_000, false))
+        ));
+        SpanLogAnalyzer analyzer = SpanLogAnalyzer.newBuilder().withTopN(1).build();
+
+        // when
+        SpanLogAnalysis analysis = analyzer.analyze(Arrays.asList(first.toFile(), second.toFile()));
+
+        // then
+        assertThat(analysis.getTraceCount()).isEqualTo(2);
+        TraceSummary traceX = analysis.getSlowestTraces().get(0);
+        assertThat(traceX.getTraceId()).isEqualTo("trace-x");
+        assertThat(traceX.getRootSpanName()).isEqualTo("child-zero");
+        assertThat(traceX.getRootNodes()).extracting(TraceNode::getSpanId).containsExactly("x1", "x2");
+        assertThat(analysis.getErrorTraces()).isEmpty();
+    }
+
+    @Test
+    public void analyze_handles_empty_files_and_topN_of_zero() throws IOException {
+        // given
+        Path empty = writeLog(Collections.emptyList());
+        Path nonEmpty = writeLog(sampleLog());
+
+        // when
+        SpanLogAnalysis emptyAnalysis = SpanLogAnalyzer.newBuilder().build()
+                                                       .analyze(Collections.singletonList(empty.toFile()));
+        SpanLogAnalysis noTraces = SpanLogAnalyzer.newBuilder().withTopN(0).build()
+                                                  .analyze(Collections.singletonList(nonEmpty.toFile()));
+
+        // then
+        assertThat(emptyAnalysis.getSpansParsed()).isZero();
+        assertThat(emptyAnalysis.getSpanNameStats()).isEmpty();
+        assertThat(noTraces.getSpansParsed()).isEqualTo(8);
+        assertThat(noTraces.getSlowestTraces()).isEmpty();
+        assertThat(noTraces.getErrorTraces()).isEmpty();
+    }
+
+    @Test
+    public void analyze_throws_IOException_for_missing_file_and_IllegalArgumentException_for_null_files() {
+        // given
+        SpanLogAnalyzer analyzer = SpanLogAnalyzer.newBuilder().build();
+
+        // expect
+        assertThat(catchThrowable(() -> analyzer.analyze(Collections.singletonList(new File("does-not-exist.log")))))
+            .isInstanceOf(IOException.class);
+        assertThat(catchThrowable(() -> analyzer.analyze(null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("files cannot be null");
+    }
+
+    @Test
+    public void splitIntoChunks_ends_every_chunk_just_after_a_newline() throws IOException {
+        // given
+        Path file = writeLog(Arrays.asList("aaaa", "bbbbbbbbbb", "", "cc", "dddddd"));
+        byte[] bytes = Files.readAllBytes(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // when
+            List<Chunk> chunks = SpanLogAnalyzer.splitIntoChunks(channel, 3);
+
+            // then
+            assertThat(chunks.get(0).start).isZero();
+            assertThat(chunks.get(chunks.size() - 1).end).isEqualTo(bytes.length);
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                assertThat(bytes[(int) chunk.end - 1]).isEqualTo((byte) '\n');
+                if (i > 0) {
+                    assertThat(chunk.start).isEqualTo(chunks.get(i - 1).end);
+                }
+            }
+            assertThat(chunks).extracting(c -> c.end).containsExactly(5L, 16L, 20L, 27L);
+        }
+    }
+
+    @Test
+    public void run_prints_report_for_valid_args() throws IOException {
+        // given
+        Path file = writeLog(sampleLog());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        // when
+        int exitCode = SpanLogAnalyzer.run(
+            new String[]{ "--top", "1", "--threads", "2", "--chunk-mb", "1", file.toString() },
+            new PrintStream(out, true), new PrintStream(err, true)
+        );
+
+        // then
+        assertThat(exitCode).isZero();
+        String report = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(report).contains("spans=8", "=== Slowest traces ===", "trace_id=trace-b", "downstream-call [ERROR]")
+                          .contains("Analyzed in");
+        assertThat(err.toByteArray()).isEmpty();
+    }
+
+    @DataProvider(value = {
+        "",
+        "--top",
+        "--top notanumber foo.log",
+        "--bogus foo.log",
+        "--threads 0 foo.log",
+    }, splitBy = "\\|")
+    @Test
+    public void run_returns_1_and_prints_usage_for_bad_args(String argsString) {
+        // given
+        String[] args = argsString.isEmpty() ? new String[0] : argsString.split(" ");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        // when
+        int exitCode = SpanLogAnalyzer.run(args, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        // then
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(new String(err.toByteArray(), StandardCharsets.UTF_8)).contains("Usage: ");
+    }
+
+    @Test
+    public void run_returns_2_for_unreadable_file() {
+        // given
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        // when
+        int exitCode = SpanLogAnalyzer.run(
+            new String[]{ "does-not-exist.log" }, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err)
+        );
+
+        // then
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(new String(err.toByteArray(), StandardCharsets.UTF_8)).contains("Error reading span logs");
+    }
+
+    @Test
+    public void builder_throws_IllegalArgumentException_for_invalid_args() {
+        // given
+        SpanLogAnalyzer.Builder builder = SpanLogAnalyzer.newBuilder();
+
+        // expect
+        assertThat(catchThrowable(() -> builder.withTopN(-1)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("topN cannot be negative");
+        assertThat(catchThrowable(() -> builder.withParallelism(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("parallelism must be at least 1");
+        assertThat(catchThrowable(() -> builder.withChunkSizeBytes(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("chunkSizeBytes must be between");
+
+        SpanLogAnalyzer analyzer = builder.withTopN(3).withParallelism(2).withChunkSizeBytes(1024).build();
+        assertThat(analyzer.getTopN()).isEqualTo(3);
+        assertThat(analyzer.getParallelism()).isEqualTo(2);
+        assertThat(analyzer.getChunkSizeBytes()).isEqualTo(1024);
+    }
+
+    @DataProvider(value = {
+        "prefix [DISTRIBUTED_TRACING] {}            |   29",
+        "[DISTRIBUTED_TRACING] x                    |   22",
+        "[DISTRIBUTED_TRACING]                      |   -1",
+        "[DISTRIBUTED [DISTRIBUTED_TRACING] x       |   35",
+        "no marker here                             |   -1",
+    }, splitBy = "\\|")
+    @Test
+    public void indexAfterMarker_finds_end_of_span_log_marker(String line, int expectedIndex) {
+        // given
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+
+        // expect
+        assertThat(SpanLogAnalyzer.indexAfterMarker(bytes, bytes.length)).isEqualTo(expectedIndex);
+    }
+}
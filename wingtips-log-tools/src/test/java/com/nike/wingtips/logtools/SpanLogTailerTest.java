@@ -0,0 +1,365 @@
+package com.nike.wingtips.logtools;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Span.SpanPurpose;
+import com.nike.wingtips.lifecyclelistener.SpanLifecycleListener;
+import com.nike.wingtips.util.parser.SpanBinaryCodec;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link SpanLogTailer}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class SpanLogTailerTest {
+
+    private static final String LINE_PREFIX = "2026-01-01 12:00:00,000 [http-nio-8080-exec-1] INFO  VALID_WINGTIPS_SPANS - ";
+
+    private Path tempDir;
+    private Path logFile;
+    private Path checkpointFile;
+    private CollectingListener listener;
+    private List<SpanLogTailer> tailers;
+
+    @Before
+    public void beforeMethod() throws IOException {
+        tempDir = Files.createTempDirectory("span-log-tailer-test");
+        logFile = tempDir.resolve("spans.log");
+        checkpointFile = tempDir.resolve("spans.checkpoint");
+        listener = new CollectingListener();
+        tailers = new ArrayList<>();
+    }
+
+    @After
+    public void afterMethod() throws IOException {
+        for (SpanLogTailer tailer : tailers) {
+            tailer.close();
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(tempDir);
+    }
+
+    private SpanLogTailer tailer(int readBufferSizeBytes) {
+        SpanLogTailer tailer = SpanLogTailer.newBuilder(logFile, checkpointFile)
+                                            .withListener(listener)
+                                            .withReadBufferSizeBytes(readBufferSizeBytes)
+                                            .withPollIntervalMillis(10)
+                                            .build();
+        tailers.add(tailer);
+        return tailer;
+    }
+
+    private static Span span(String spanName) {
+        return new Span(
+            "trace-" + spanName, null, "span-" + spanName, spanName, true, null, SpanPurpose.SERVER,
+            1_700_000_000_000_000L, null, 1000L, null, null
+        );
+    }
+
+    private static String jsonLine(String spanName) {
+        return LINE_PREFIX + "[DISTRIBUTED_TRACING] " + span(spanName).toJSON() + "\n";
+    }
+
+    private static String keyValueLine(String spanName) {
+        return LINE_PREFIX + "[DISTRIBUTED_TRACING] " + span(spanName).toKeyValueString() + "\n";
+    }
+
+    private void append(Path file, String text) throws IOException {
+        Files.write(
+            file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND
+        );
+    }
+
+    private static class CollectingListener implements SpanLifecycleListener {
+        final List<Span> spans = Collections.synchronizedList(new ArrayList<Span>());
+
+        @Override
+        public void spanStarted(Span span) {
+        }
+
+        @Override
+        public void spanSampled(Span span) {
+        }
+
+        @Override
+        public void spanCompleted(Span span) {
+            spans.add(span);
+        }
+
+        List<String> spanNames() {
+            synchronized (spans) {
+                return spans.stream().map(Span::getSpanName).collect(Collectors.toList());
+            }
+        }
+    }
+
+    @DataProvider(value = {
+        "16",
+        "64",
+        "1048576"
+    })
+    @Test
+    public void poll_delivers_spans_in_every_logging_representation_and_ignores_other_lines(int readBufferSizeBytes)
+        throws IOException {
+        // given
+        append(logFile, "2026-01-01 12:00:00,000 [main] INFO  com.foo.App - Application started\n");
+        append(logFile, jsonLine("first"));
+        append(logFile, keyValueLine("second"));
+        append(logFile, LINE_PREFIX + "[DISTRIBUTED_TRACING] not a span\n");
+        append(logFile, LINE_PREFIX + "[INCORRECT_TIMING] [DISTRIBUTED_TRACING] " + span("third").toJSON() + "\n");
+        append(logFile, LINE_PREFIX + "[DISTRIBUTED_TRACING] " + SpanBinaryCodec.toBase64(span("fourth")) + "\n");
+        SpanLogTailer tailer = tailer(readBufferSizeBytes);
+
+        // when
+        int linesProcessed = tailer.poll();
+
+        // then
+        assertThat(linesProcessed).isEqualTo(6);
+        assertThat(listener.spanNames()).containsExactly("first", "second", "third", "fourth");
+        assertThat(tailer.getSpansDelivered()).isEqualTo(4);
+        assertThat(tailer.getUnparseableSpanLines()).isEqualTo(1);
+        assertThat(tailer.getCommittedPosition()).isEqualTo(Files.size(logFile));
+        assertThat(tailer.poll()).isZero();
+    }
+
+    @Test
+    public void poll_does_nothing_when_the_log_file_does_not_exist_yet() throws IOException {
+        // given
+        SpanLogTailer tailer = tailer(1024);
+
+        // when
+        int linesProcessed = tailer.poll();
+
+        // then
+        assertThat(linesProcessed).isZero();
+        assertThat(listener.spans).isEmpty();
+
+        // and when
+        append(logFile, jsonLine("later"));
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("later");
+    }
+
+    @Test
+    public void poll_leaves_partially_written_lines_for_the_next_poll() throws IOException {
+        // given
+        String line = jsonLine("partial");
+        int splitPoint = line.length() / 2;
+        append(logFile, jsonLine("complete") + line.substring(0, splitPoint));
+        SpanLogTailer tailer = tailer(1024);
+
+        // when
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("complete");
+        assertThat(tailer.getCommittedPosition()).isEqualTo(jsonLine("complete").length());
+
+        // and when
+        append(logFile, line.substring(splitPoint));
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("complete", "partial");
+        assertThat(tailer.getCommittedPosition()).isEqualTo(Files.size(logFile));
+    }
+
+    @Test
+    public void a_new_tailer_resumes_from_the_persisted_checkpoint() throws IOException {
+        // given
+        append(logFile, jsonLine("first"));
+        SpanLogTailer firstTailer = tailer(1024);
+        firstTailer.poll();
+        firstTailer.close();
+        append(logFile, jsonLine("second"));
+
+        // when
+        SpanLogTailer secondTailer = tailer(1024);
+        secondTailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first", "second");
+        assertThat(new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8))
+            .contains("position=" + Files.size(logFile));
+    }
+
+    @Test
+    public void a_checkpoint_beyond_the_end_of_the_file_is_ignored() throws IOException {
+        // given
+        append(logFile, jsonLine("first"));
+        Files.write(checkpointFile, "position=999999\nfileKey=\n".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        tailer(1024).poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first");
+    }
+
+    @Test
+    public void an_invalid_checkpoint_is_ignored() throws IOException {
+        // given
+        append(logFile, jsonLine("first"));
+        Files.write(checkpointFile, "position=notanumber\n".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        tailer(1024).poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first");
+    }
+
+    @Test
+    public void poll_handles_rename_and_create_rotation_without_losing_spans() throws IOException {
+        // given
+        append(logFile, jsonLine("first"));
+        SpanLogTailer tailer = tailer(1024);
+        tailer.poll();
+        // Written to the old file after the last poll, and the final line is missing its newline.
+        append(logFile, jsonLine("second") + jsonLine("third").trim());
+        Files.move(logFile, tempDir.resolve("spans.log.1"));
+        append(logFile, jsonLine("fourth"));
+        // Skip platforms without file keys - rename rotation detection relies on them.
+        Assume.assumeNotNull(Files.readAttributes(logFile, BasicFileAttributes.class).fileKey());
+
+        // when
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first", "second", "third", "fourth");
+        assertThat(tailer.getRotationsHandled()).isEqualTo(1);
+        assertThat(tailer.getCommittedPosition()).isEqualTo(Files.size(logFile));
+    }
+
+    @Test
+    public void poll_handles_copy_and_truncate_rotation() throws IOException {
+        // given
+        append(logFile, jsonLine("first") + jsonLine("second"));
+        SpanLogTailer tailer = tailer(1024);
+        tailer.poll();
+        Files.write(logFile, jsonLine("third").getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+
+        // when
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first", "second", "third");
+        assertThat(tailer.getRotationsHandled()).isEqualTo(1);
+    }
+
+    @Test
+    public void poll_skips_lines_larger_than_the_max_line_size() throws IOException {
+        // given
+        StringBuilder huge = new StringBuilder(LINE_PREFIX).append("[DISTRIBUTED_TRACING] ");
+        for (int i = 0; i < 1000; i++) {
+            huge.append("xxxxxxxxxx");
+        }
+        append(logFile, jsonLine("before") + huge + "\n" + jsonLine("after"));
+        SpanLogTailer tailer = SpanLogTailer.newBuilder(logFile, checkpointFile)
+                                            .withListener(listener)
+                                            .withReadBufferSizeBytes(64)
+                                            .withMaxLineSizeBytes(1024)
+                                            .build();
+        tailers.add(tailer);
+
+        // when
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("before", "after");
+        assertThat(tailer.getSkippedOversizedLines()).isEqualTo(1);
+        assertThat(tailer.getCommittedPosition()).isEqualTo(Files.size(logFile));
+    }
+
+    @Test
+    public void listener_exceptions_are_counted_and_do_not_stop_delivery() throws IOException {
+        // given
+        SpanLifecycleListener badListener = mock(SpanLifecycleListener.class);
+        doThrow(new RuntimeException("intentional test exception")).when(badListener).spanCompleted(any(Span.class));
+        append(logFile, jsonLine("first") + jsonLine("second"));
+        SpanLogTailer tailer = SpanLogTailer.newBuilder(logFile, checkpointFile)
+                                            .withListener(badListener)
+                                            .withListener(listener)
+                                            .build();
+        tailers.add(tailer);
+
+        // when
+        tailer.poll();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first", "second");
+        assertThat(tailer.getListenerErrors()).isEqualTo(2);
+    }
+
+    @Test
+    public void start_tails_on_a_background_thread_until_closed() throws Exception {
+        // given
+        SpanLogTailer tailer = tailer(1024);
+        tailer.start();
+        tailer.start();
+
+        // when
+        append(logFile, jsonLine("first"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (listener.spans.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        tailer.close();
+
+        // then
+        assertThat(listener.spanNames()).containsExactly("first");
+        assertThat(new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8))
+            .contains("position=" + Files.size(logFile));
+    }
+
+    @Test
+    public void builder_rejects_invalid_arguments() {
+        // expect
+        assertThat(catchThrowable(() -> SpanLogTailer.newBuilder(null, checkpointFile)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("logFile cannot be null");
+        assertThat(catchThrowable(() -> SpanLogTailer.newBuilder(logFile, null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("checkpointFile cannot be null");
+        SpanLogTailer.Builder builder = SpanLogTailer.newBuilder(logFile, checkpointFile);
+        assertThat(catchThrowable(() -> builder.withListener(null)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("listener cannot be null");
+        assertThat(catchThrowable(() -> builder.withPollIntervalMillis(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("pollIntervalMillis must be positive");
+        assertThat(catchThrowable(() -> builder.withReadBufferSizeBytes(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("readBufferSizeBytes must be positive");
+        assertThat(catchThrowable(() -> builder.withMaxLineSizeBytes(0)))
+            .isInstanceOf(IllegalArgumentException.class).hasMessage("maxLineSizeBytes must be positive");
+    }
+}
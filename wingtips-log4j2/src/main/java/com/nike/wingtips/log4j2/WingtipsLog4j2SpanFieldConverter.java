@@ -0,0 +1,106 @@
+package com.nike.wingtips.log4j2;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.Tracer.SpanFieldForLoggerMdc;
+import com.nike.wingtips.util.parser.SpanSerializer;
+
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.pattern.ConverterKeys;
+import org.apache.logging.log4j.core.pattern.LogEventPatternConverter;
+import org.apache.logging.log4j.core.pattern.PatternConverter;
+
+/**
+ * A Log4j2 pattern converter plugin that renders a field of the current thread's {@link Tracer#getCurrentSpan()} when
+ * the log message is formatted, instead of reading it from the thread context map. Add {@code
+ * com.nike.wingtips.log4j2} to the {@code packages} attribute of your configuration so Log4j2 finds the plugin, and
+ * use it in your pattern in place of {@code %X{traceId}}:
+ *
+ * <pre>
+ *     &lt;Configuration packages="com.nike.wingtips.log4j2"&gt;
+ *     ...
+ *     &lt;PatternLayout pattern="%d [%t] %-5level %logger{36} traceId=%wtSpan{traceId} spanId=%wtSpan{spanId} - %msg%n"/&gt;
+ * </pre>
+ *
+ * The option is parsed by {@link #parseSpanField(String)} - {@code %wtSpan} on its own renders the trace ID. If there's
+ * no current span the converter renders nothing. Values are appended straight to Log4j2's {@link StringBuilder}, so
+ * this doesn't create any garbage for the ID fields, and the full span JSON is serialized straight into it. If you no
+ * longer use {@code %X{...}} for span fields anywhere you can call {@link Tracer#disableLoggerMdc()} to stop {@link
+ * Tracer} from updating the MDC.
+ *
+ * <p>NOTE: This only works when the message is formatted on the logging thread. Async loggers and async appenders
+ * format on another thread and see that thread's current span instead - keep using the MDC for those, since Log4j2
+ * copies the thread context into each logging event.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+@Plugin(name = "WingtipsLog4j2SpanFieldConverter", category = PatternConverter.CATEGORY)
+@ConverterKeys({WingtipsLog4j2SpanFieldConverter.CONVERTER_KEY})
+public class WingtipsLog4j2SpanFieldConverter extends LogEventPatternConverter {
+
+    public static final String CONVERTER_KEY = "wtSpan";
+
+    /**
+     * The field that's rendered when the converter is used without an option.
+     */
+    public static final SpanFieldForLoggerMdc DEFAULT_SPAN_FIELD = SpanFieldForLoggerMdc.TRACE_ID;
+
+    protected final SpanFieldForLoggerMdc spanField;
+
+    protected WingtipsLog4j2SpanFieldConverter(SpanFieldForLoggerMdc spanField) {
+        super(CONVERTER_KEY, CONVERTER_KEY);
+        this.spanField = spanField;
+    }
+
+    /**
+     * Called by Log4j2 to create the converter for each use of {@code %wtSpan} in a pattern.
+     *
+     * @param options The options from the pattern - the first one selects the span field.
+     * @return A new converter, or null (after logging an error to the Log4j2 status logger) if the option doesn't name
+     * a span field.
+     */
+    public static WingtipsLog4j2SpanFieldConverter newInstance(String[] options) {
+        String option = (options == null || options.length == 0) ? null : options[0];
+        try {
+            return new WingtipsLog4j2SpanFieldConverter(parseSpanField(option));
+        }
+        catch (IllegalArgumentException ex) {
+            LOGGER.error("Invalid option for %" + CONVERTER_KEY + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void format(LogEvent event, StringBuilder toAppendTo) {
+        Span span = Tracer.getInstance().getCurrentSpan();
+        if (span == null) {
+            return;
+        }
+
+        if (spanField == SpanFieldForLoggerMdc.FULL_SPAN_JSON) {
+            SpanSerializer.appendJson(span, toAppendTo);
+            return;
+        }
+
+        String value = spanField.getMdcValueForSpan(span);
+        if (value != null) {
+            toAppendTo.append(value);
+        }
+    }
+
+    /**
+     * @param option The converter option naming the span field, as accepted by {@link
+     * SpanFieldForLoggerMdc#fromMdcKeyOrName(String)}. Null or blank means {@link #DEFAULT_SPAN_FIELD}.
+     * @return The {@link SpanFieldForLoggerMdc} for the given option.
+     * @throws IllegalArgumentException if the option doesn't name a span field.
+     */
+    public static SpanFieldForLoggerMdc parseSpanField(String option) {
+        if (option == null || option.trim().isEmpty()) {
+            return DEFAULT_SPAN_FIELD;
+        }
+
+        return SpanFieldForLoggerMdc.fromMdcKeyOrName(option);
+    }
+}
@@ -0,0 +1,166 @@
+package com.nike.wingtips.log4j2;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.Tracer.SpanFieldForLoggerMdc;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+import org.apache.logging.log4j.core.config.plugins.util.PluginManager;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link WingtipsLog4j2SpanFieldConverter}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class WingtipsLog4j2SpanFieldConverterTest {
+
+    @BeforeClass
+    public static void beforeClass() {
+        PluginManager.addPackage(WingtipsLog4j2SpanFieldConverter.class.getPackage().getName());
+    }
+
+    @Before
+    public void beforeMethod() {
+        Tracer.getInstance().completeRequestSpan();
+    }
+
+    @After
+    public void afterMethod() {
+        Tracer.getInstance().completeRequestSpan();
+    }
+
+    private PatternLayout layout(String pattern) {
+        return PatternLayout.newBuilder()
+                            .withPattern(pattern)
+                            .withConfiguration(new DefaultConfiguration())
+                            .build();
+    }
+
+    private LogEvent event() {
+        return Log4jLogEvent.newBuilder()
+                            .setLoggerName("test")
+                            .setLevel(Level.INFO)
+                            .setMessage(new SimpleMessage("hello"))
+                            .build();
+    }
+
+    @Test
+    public void renders_current_span_fields_in_a_pattern_layout() {
+        // given
+        PatternLayout layout = layout("%wtSpan %wtSpan{spanId} %wtSpan{parentSpanId} %msg");
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span subSpan = Tracer.getInstance().startSubSpan("sub", Span.SpanPurpose.LOCAL_ONLY);
+
+        // when
+        String result = layout.toSerializable(event());
+
+        // then
+        assertThat(result).isEqualTo(
+            subSpan.getTraceId() + " " + subSpan.getSpanId() + " " + rootSpan.getSpanId() + " hello"
+        );
+    }
+
+    @Test
+    public void renders_the_full_span_json() {
+        // given
+        PatternLayout layout = layout("[%wtSpan{spanJson}]");
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        span.putTag("foo", "bar");
+
+        // when
+        String result = layout.toSerializable(event());
+
+        // then
+        assertThat(result).isEqualTo("[" + span.toJSON() + "]");
+    }
+
+    @Test
+    public void renders_nothing_when_there_is_no_current_span_or_the_field_is_null() {
+        // given
+        PatternLayout layout = layout("[%wtSpan{traceId}][%wtSpan{spanId}][%wtSpan{parentSpanId}] %msg");
+
+        // when
+        String noSpanResult = layout.toSerializable(event());
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        String rootSpanResult = layout.toSerializable(event());
+
+        // then
+        assertThat(noSpanResult).isEqualTo("[][][] hello");
+        assertThat(rootSpanResult).isEqualTo("[" + rootSpan.getTraceId() + "][" + rootSpan.getSpanId() + "][] hello");
+    }
+
+    @Test
+    public void newInstance_selects_the_span_field_from_the_first_option() {
+        // expect
+        assertThat(WingtipsLog4j2SpanFieldConverter.newInstance(null).spanField)
+            .isEqualTo(SpanFieldForLoggerMdc.TRACE_ID);
+        assertThat(WingtipsLog4j2SpanFieldConverter.newInstance(new String[0]).spanField)
+            .isEqualTo(SpanFieldForLoggerMdc.TRACE_ID);
+        assertThat(WingtipsLog4j2SpanFieldConverter.newInstance(new String[]{"SPAN_ID"}).spanField)
+            .isEqualTo(SpanFieldForLoggerMdc.SPAN_ID);
+        assertThat(WingtipsLog4j2SpanFieldConverter.newInstance(new String[]{"spanJson"}).spanField)
+            .isEqualTo(SpanFieldForLoggerMdc.FULL_SPAN_JSON);
+    }
+
+    @Test
+    public void newInstance_returns_null_for_an_unknown_field() {
+        // expect
+        assertThat(WingtipsLog4j2SpanFieldConverter.newInstance(new String[]{"nope"})).isNull();
+    }
+
+    @DataProvider(value = {
+        "traceId        |   TRACE_ID",
+        "TRACE_ID       |   TRACE_ID",
+        "spanId         |   SPAN_ID",
+        "SPAN_ID        |   SPAN_ID",
+        "parentSpanId   |   PARENT_SPAN_ID",
+        "spanJson       |   FULL_SPAN_JSON",
+        "FULL_SPAN_JSON |   FULL_SPAN_JSON"
+    }, splitBy = "\\|")
+    @Test
+    public void parseSpanField_accepts_mdc_keys_and_enum_names(String option, SpanFieldForLoggerMdc expected) {
+        // expect
+        assertThat(WingtipsLog4j2SpanFieldConverter.parseSpanField(option)).isEqualTo(expected);
+        assertThat(WingtipsLog4j2SpanFieldConverter.parseSpanField("  " + option + " ")).isEqualTo(expected);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "   "
+    })
+    @Test
+    public void parseSpanField_returns_the_default_field_for_a_missing_option(String option) {
+        // expect
+        assertThat(WingtipsLog4j2SpanFieldConverter.parseSpanField(option)).isEqualTo(WingtipsLog4j2SpanFieldConverter.DEFAULT_SPAN_FIELD);
+        assertThat(WingtipsLog4j2SpanFieldConverter.DEFAULT_SPAN_FIELD).isEqualTo(SpanFieldForLoggerMdc.TRACE_ID);
+    }
+
+    @Test
+    public void parseSpanField_throws_IllegalArgumentException_for_unknown_fields() {
+        // when
+        Throwable ex = catchThrowable(() -> WingtipsLog4j2SpanFieldConverter.parseSpanField("traceid"));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown span field: traceid. Expected one of traceId, spanId, parentSpanId, or spanJson.");
+    }
+}
@@ -0,0 +1,83 @@
+package com.nike.wingtips.logback;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.Tracer.SpanFieldForLoggerMdc;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * A Logback {@link ClassicConverter} that renders a field of the current thread's {@link Tracer#getCurrentSpan()}
+ * when the log message is formatted, instead of reading it from the MDC. Register it in your {@code logback.xml} and
+ * use it in your pattern in place of {@code %X{traceId}}:
+ *
+ * <pre>
+ *     &lt;conversionRule conversionWord="wtSpan"
+ *                     converterClass="com.nike.wingtips.logback.WingtipsLogbackSpanFieldConverter" /&gt;
+ *     ...
+ *     &lt;pattern&gt;%d [%thread] %-5level %logger{36} traceId=%wtSpan{traceId} spanId=%wtSpan{spanId} - %msg%n&lt;/pattern&gt;
+ * </pre>
+ *
+ * The option is parsed by {@link #parseSpanField(String)} - {@code %wtSpan} on its own renders the trace ID. If there's
+ * no current span the converter renders an empty string. If you no longer use {@code %X{...}} for span fields anywhere
+ * you can call {@link Tracer#disableLoggerMdc()} to stop {@link Tracer} from updating the MDC.
+ *
+ * <p>NOTE: This only works with appenders that format the message on the logging thread. Appenders that format on
+ * another thread (e.g. appenders wrapped in an {@code AsyncAppender}) see that thread's current span instead - keep
+ * using the MDC for those, since Logback copies the MDC into each logging event.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class WingtipsLogbackSpanFieldConverter extends ClassicConverter {
+
+    /**
+     * The field that's rendered when the converter is used without an option.
+     */
+    public static final SpanFieldForLoggerMdc DEFAULT_SPAN_FIELD = SpanFieldForLoggerMdc.TRACE_ID;
+
+    protected SpanFieldForLoggerMdc spanField;
+
+    @Override
+    public void start() {
+        try {
+            spanField = parseSpanField(getFirstOption());
+        }
+        catch (IllegalArgumentException ex) {
+            addError(ex.getMessage());
+            return;
+        }
+
+        super.start();
+    }
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        if (spanField == null) {
+            return "";
+        }
+
+        Span span = Tracer.getInstance().getCurrentSpan();
+        if (span == null) {
+            return "";
+        }
+
+        String value = spanField.getMdcValueForSpan(span);
+        return (value == null) ? "" : value;
+    }
+
+    /**
+     * @param option The converter option naming the span field, as accepted by {@link
+     * SpanFieldForLoggerMdc#fromMdcKeyOrName(String)}. Null or blank means {@link #DEFAULT_SPAN_FIELD}.
+     * @return The {@link SpanFieldForLoggerMdc} for the given option.
+     * @throws IllegalArgumentException if the option doesn't name a span field.
+     */
+    public static SpanFieldForLoggerMdc parseSpanField(String option) {
+        if (option == null || option.trim().isEmpty()) {
+            return DEFAULT_SPAN_FIELD;
+        }
+
+        return SpanFieldForLoggerMdc.fromMdcKeyOrName(option);
+    }
+}
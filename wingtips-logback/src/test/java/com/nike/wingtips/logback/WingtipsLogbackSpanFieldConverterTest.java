@@ -0,0 +1,170 @@
+package com.nike.wingtips.logback;
+
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+import com.nike.wingtips.Tracer.SpanFieldForLoggerMdc;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.status.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link WingtipsLogbackSpanFieldConverter}.
+ *
+ * @author Nic Munroe
+ */
+@RunWith(DataProviderRunner.class)
+public class WingtipsLogbackSpanFieldConverterTest {
+
+    private LoggerContext loggerContext;
+
+    @Before
+    public void beforeMethod() {
+        Tracer.getInstance().completeRequestSpan();
+        loggerContext = new LoggerContext();
+        Map<String, String> ruleRegistry = new HashMap<>();
+        ruleRegistry.put("wtSpan", WingtipsLogbackSpanFieldConverter.class.getName());
+        loggerContext.putObject(CoreConstants.PATTERN_RULE_REGISTRY, ruleRegistry);
+    }
+
+    @After
+    public void afterMethod() {
+        Tracer.getInstance().completeRequestSpan();
+        loggerContext.stop();
+    }
+
+    private PatternLayout layout(String pattern) {
+        PatternLayout layout = new PatternLayout();
+        layout.setContext(loggerContext);
+        layout.setPattern(pattern);
+        layout.start();
+        return layout;
+    }
+
+    private LoggingEvent event() {
+        return new LoggingEvent(
+            getClass().getName(), loggerContext.getLogger("test"), Level.INFO, "hello", null, null
+        );
+    }
+
+    @Test
+    public void renders_current_span_fields_in_a_pattern_layout() {
+        // given
+        PatternLayout layout = layout("%wtSpan %wtSpan{spanId} %wtSpan{parentSpanId} %msg");
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        Span subSpan = Tracer.getInstance().startSubSpan("sub", Span.SpanPurpose.LOCAL_ONLY);
+
+        // when
+        String result = layout.doLayout(event());
+
+        // then
+        assertThat(result).isEqualTo(
+            subSpan.getTraceId() + " " + subSpan.getSpanId() + " " + rootSpan.getSpanId() + " hello"
+        );
+    }
+
+    @Test
+    public void renders_the_full_span_json() {
+        // given
+        PatternLayout layout = layout("[%wtSpan{spanJson}]");
+        Span span = Tracer.getInstance().startRequestWithRootSpan("root");
+        span.putTag("foo", "bar");
+
+        // when
+        String result = layout.doLayout(event());
+
+        // then
+        assertThat(result).isEqualTo("[" + span.toJSON() + "]");
+    }
+
+    @Test
+    public void renders_empty_strings_when_there_is_no_current_span_or_the_field_is_null() {
+        // given
+        PatternLayout layout = layout("[%wtSpan{traceId}][%wtSpan{spanId}][%wtSpan{parentSpanId}] %msg");
+
+        // when
+        String noSpanResult = layout.doLayout(event());
+        Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("root");
+        String rootSpanResult = layout.doLayout(event());
+
+        // then
+        assertThat(noSpanResult).isEqualTo("[][][] hello");
+        assertThat(rootSpanResult).isEqualTo("[" + rootSpan.getTraceId() + "][" + rootSpan.getSpanId() + "][] hello");
+    }
+
+    @Test
+    public void reports_an_error_and_renders_nothing_for_an_unknown_field() {
+        // given
+        WingtipsLogbackSpanFieldConverter converter = new WingtipsLogbackSpanFieldConverter();
+        converter.setContext(loggerContext);
+        converter.setOptionList(Collections.singletonList("nope"));
+        Tracer.getInstance().startRequestWithRootSpan("root");
+
+        // when
+        converter.start();
+
+        // then
+        assertThat(converter.isStarted()).isFalse();
+        assertThat(converter.convert(event())).isEmpty();
+        assertThat(loggerContext.getStatusManager().getCopyOfStatusList().stream().filter(
+            status -> status.getLevel() == Status.ERROR && status.getMessage().startsWith("Unknown span field: nope.")
+        ).count()).isEqualTo(1);
+    }
+
+    @DataProvider(value = {
+        "traceId        |   TRACE_ID",
+        "TRACE_ID       |   TRACE_ID",
+        "spanId         |   SPAN_ID",
+        "SPAN_ID        |   SPAN_ID",
+        "parentSpanId   |   PARENT_SPAN_ID",
+        "spanJson       |   FULL_SPAN_JSON",
+        "FULL_SPAN_JSON |   FULL_SPAN_JSON"
+    }, splitBy = "\\|")
+    @Test
+    public void parseSpanField_accepts_mdc_keys_and_enum_names(String option, SpanFieldForLoggerMdc expected) {
+        // expect
+        assertThat(WingtipsLogbackSpanFieldConverter.parseSpanField(option)).isEqualTo(expected);
+        assertThat(WingtipsLogbackSpanFieldConverter.parseSpanField("  " + option + " ")).isEqualTo(expected);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "   "
+    })
+    @Test
+    public void parseSpanField_returns_the_default_field_for_a_missing_option(String option) {
+        // expect
+        assertThat(WingtipsLogbackSpanFieldConverter.parseSpanField(option)).isEqualTo(WingtipsLogbackSpanFieldConverter.DEFAULT_SPAN_FIELD);
+        assertThat(WingtipsLogbackSpanFieldConverter.DEFAULT_SPAN_FIELD).isEqualTo(SpanFieldForLoggerMdc.TRACE_ID);
+    }
+
+    @Test
+    public void parseSpanField_throws_IllegalArgumentException_for_unknown_fields() {
+        // when
+        Throwable ex = catchThrowable(() -> WingtipsLogbackSpanFieldConverter.parseSpanField("traceid"));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown span field: traceid. Expected one of traceId, spanId, parentSpanId, or spanJson.");
+    }
+}
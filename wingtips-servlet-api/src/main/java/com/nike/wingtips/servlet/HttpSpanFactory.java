@@ -17,7 +17,9 @@ import javax.servlet.http.HttpServletRequest;
 
 /**
  * Creates {@link Span} objects extracted from a {@link HttpServletRequest}. NOTE: If a span exists in the request but is not explicitly defined with
- * {@link com.nike.wingtips.TraceHeaders#TRACE_SAMPLED} set to false, then {@link #fromHttpServletRequest(HttpServletRequest, List)} will default it to be sampleable.
+ * {@link com.nike.wingtips.TraceHeaders#TRACE_SAMPLED} set to false, then {@link #fromHttpServletRequest(HttpServletRequest, List)} will default it to be sampleable
+ * (if the header is missing entirely then the {@link com.nike.wingtips.Tracer}'s root span sampling strategy makes the decision for the received trace ID - see
+ * {@link HttpRequestTracingUtils#fromRequestWithHeaders(com.nike.wingtips.http.RequestWithHeaders, List)}).
  */
 public class HttpSpanFactory {
 
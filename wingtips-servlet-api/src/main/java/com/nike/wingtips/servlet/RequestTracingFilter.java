@@ -4,6 +4,7 @@ import com.nike.internal.util.StringUtils;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.TraceHeaders;
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.sampling.RootSpanSamplingContext;
 import com.nike.wingtips.servlet.tag.ServletRequestTagAdapter;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingStrategy;
@@ -255,15 +256,32 @@ public class RequestTracingFilter implements Filter {
             );
         }
         else {
+            String spanName = getInitialSpanName(request, tagAndNamingStrategy, tagAndNamingAdapter);
             newSpan = tracer.startRequestWithRootSpan(
-                getInitialSpanName(request, tagAndNamingStrategy, tagAndNamingAdapter),
-                HttpSpanFactory.getUserIdFromHttpServletRequest(request, getUserIdHeaderKeys())
+                spanName,
+                HttpSpanFactory.getUserIdFromHttpServletRequest(request, getUserIdHeaderKeys()),
+                createRootSpanSamplingContext(request, spanName)
             );
             logger.debug("Parent span not found, starting a new span {}", newSpan);
         }
         return newSpan;
     }
 
+    /**
+     * @param request The incoming request.
+     * @param spanName The name of the root span about to be created.
+     * @return The {@link RootSpanSamplingContext} passed to
+     * {@link Tracer#startRequestWithRootSpan(String, String, RootSpanSamplingContext)} when the request arrives
+     * without trace info, so that a context-aware root span sampling strategy can make its decision based on the
+     * request's HTTP method and path. The path is {@link HttpServletRequest#getRequestURI()} (which includes the
+     * context path), and the request itself is included as the context's raw request object.
+     */
+    protected RootSpanSamplingContext createRootSpanSamplingContext(HttpServletRequest request, String spanName) {
+        return RootSpanSamplingContext.forHttpRequest(
+            spanName, Span.SpanPurpose.SERVER, request.getMethod(), request.getRequestURI(), request
+        );
+    }
+
     /**
      * Helper method for adding tracing-related request attributes to the given request based on the given span.
      *
@@ -6,6 +6,10 @@ import com.nike.wingtips.Span.SpanPurpose;
 import com.nike.wingtips.TraceAndSpanIdGenerator;
 import com.nike.wingtips.TraceHeaders;
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.sampling.RootSpanSamplingContext;
+import com.nike.wingtips.sampling.RuleBasedSamplingStrategy;
+import com.nike.wingtips.sampling.RuleBasedSamplingStrategy.SamplingRule;
+import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
 import com.nike.wingtips.servlet.tag.ServletRequestTagAdapter;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingStrategy;
@@ -1025,6 +1029,61 @@ public class RequestTracingFilterTest {
         verify(filterSpy).getInitialSpanName(requestMock, tagAndNamingStrategy, tagAndNamingAdapterMock);
     }
 
+    @DataProvider(value = {
+        "GET    |   /healthcheck    |   false",
+        "POST   |   /checkout       |   true",
+        "GET    |   /foo            |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void doFilterInternal_should_pass_request_info_to_context_aware_root_span_sampling_strategy(
+        String httpMethod, String path, boolean expectedSampleable
+    ) throws ServletException, IOException {
+        // given
+        RequestTracingFilter filter = getBasicFilter();
+        doReturn(httpMethod).when(requestMock).getMethod();
+        doReturn(path).when(requestMock).getRequestURI();
+
+        Tracer.getInstance().setRootSpanSamplingStrategy(
+            RuleBasedSamplingStrategy
+                .newBuilder(new SampleAllTheThingsStrategy())
+                .withRule(SamplingRule.newBuilder().withPathPrefix("/healthcheck").buildWithProbability(0.0))
+                .withRule(SamplingRule.newBuilder().withHttpMethod("POST").buildWithProbability(1.0))
+                .withRule(SamplingRule.newBuilder().buildWithProbability(0.0))
+                .build()
+        );
+
+        try {
+            // when
+            filter.doFilterInternal(requestMock, responseMock, spanCapturingFilterChain);
+
+            // then
+            assertThat(spanCapturingFilterChain.captureSpanCopyAtTimeOfDoFilter).isNotNull();
+            assertThat(spanCapturingFilterChain.captureSpanCopyAtTimeOfDoFilter.isSampleable())
+                .isEqualTo(expectedSampleable);
+        }
+        finally {
+            Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+        }
+    }
+
+    @Test
+    public void createRootSpanSamplingContext_uses_request_method_and_uri() {
+        // given
+        RequestTracingFilter filter = getBasicFilter();
+        doReturn("PATCH").when(requestMock).getMethod();
+        doReturn("/foo/bar").when(requestMock).getRequestURI();
+
+        // when
+        RootSpanSamplingContext result = filter.createRootSpanSamplingContext(requestMock, "someSpanName");
+
+        // then
+        assertThat(result.getSpanName()).isEqualTo("someSpanName");
+        assertThat(result.getSpanPurpose()).isEqualTo(SpanPurpose.SERVER);
+        assertThat(result.getHttpMethod()).isEqualTo("PATCH");
+        assertThat(result.getRequestPath()).isEqualTo("/foo/bar");
+        assertThat(result.getRequest()).isSameAs(requestMock);
+    }
+
     @DataProvider(value = {
         "true   |   true",
         "true   |   false",
@@ -1,8 +1,13 @@
 package com.nike.wingtips.springboot;
 
 import com.nike.wingtips.Tracer;
+import com.nike.wingtips.sampling.ProbabilisticSamplingStrategy;
+import com.nike.wingtips.sampling.RateLimitedProbabilisticSamplingStrategy;
+import com.nike.wingtips.sampling.RateLimitingSamplingStrategy;
+import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
 import com.nike.wingtips.servlet.RequestTracingFilter;
 import com.nike.wingtips.tags.ZipkinHttpTagStrategy;
+import com.nike.wingtips.util.WingtipsWarmUp;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
@@ -42,11 +47,15 @@ import javax.servlet.ServletResponse;
  *     wingtips.span-logging-format=KEY_VALUE
  *     wingtips.server-side-span-tagging-strategy=ZIPKIN
  *     wingtips.server-side-span-tagging-adapter=com.nike.wingtips.servlet.tag.ServletRequestTagAdapter
+ *     wingtips.warm-up-on-startup=true
+ *     wingtips.root-span-sampling-probability=0.05
+ *     wingtips.root-span-sampling-max-per-second=100
  * </pre>
  * None of these properties are required - if they are missing then {@link RequestTracingFilter} will be
  * registered, it will not look for any user ID headers, the span logging format will not be changed (defaults to
- * JSON), and the default tag and span naming strategy and adapter will be used (defaults to {@link
- * ZipkinHttpTagStrategy} and {@link com.nike.wingtips.servlet.tag.ServletRequestTagAdapter}).
+ * JSON), the default tag and span naming strategy and adapter will be used (defaults to {@link
+ * ZipkinHttpTagStrategy} and {@link com.nike.wingtips.servlet.tag.ServletRequestTagAdapter}),
+ * and no startup warm-up will be performed.
  *
  * <p>If you want Zipkin support in your Wingtips Spring Boot application for exporting span data to a Zipkin server,
  * please see {@code WingtipsWithZipkinSpringBootConfiguration} from the {@code wingtips-zipkin2-spring-boot} Wingtips
@@ -83,6 +92,47 @@ public class WingtipsSpringBootConfiguration {
         if (wingtipsProperties.getSpanLoggingFormat() != null) {
             Tracer.getInstance().setSpanLoggingRepresentation(wingtipsProperties.getSpanLoggingFormat());
         }
+        // Set the root span sampling strategy if specified in the wingtips properties.
+        RootSpanSamplingStrategy rootSpanSamplingStrategy = createRootSpanSamplingStrategy(
+            wingtipsProperties.getRootSpanSamplingProbability(), wingtipsProperties.getRootSpanSamplingMaxPerSecond()
+        );
+        if (rootSpanSamplingStrategy != null) {
+            Tracer.getInstance().setRootSpanSamplingStrategy(rootSpanSamplingStrategy);
+        }
+        // Kick off the warm-up on a background thread if requested, so the first request doesn't pay for Wingtips'
+        //      one-time initialization.
+        if (wingtipsProperties.isWarmUpOnStartup()) {
+            WingtipsWarmUp.warmUpInBackground();
+        }
+    }
+
+    /**
+     * Creates the {@link RootSpanSamplingStrategy} described by the root span sampling properties, or returns null if
+     * neither {@code rootSpanSamplingProbability} nor {@code rootSpanSamplingMaxPerSecond} is set (in which case the
+     * {@link Tracer}'s sampling strategy should be left alone).
+     *
+     * @param rootSpanSamplingProbability The root span sampling probability, or null.
+     * @param rootSpanSamplingMaxPerSecond The root span sampling rate cap, or null.
+     * @return The {@link RootSpanSamplingStrategy} that should be used, or null if neither property is set.
+     */
+    protected static RootSpanSamplingStrategy createRootSpanSamplingStrategy(
+        Double rootSpanSamplingProbability, Long rootSpanSamplingMaxPerSecond
+    ) {
+        if (rootSpanSamplingProbability != null && rootSpanSamplingMaxPerSecond != null) {
+            return new RateLimitedProbabilisticSamplingStrategy(
+                rootSpanSamplingProbability, rootSpanSamplingMaxPerSecond
+            );
+        }
+
+        if (rootSpanSamplingProbability != null) {
+            return new ProbabilisticSamplingStrategy(rootSpanSamplingProbability);
+        }
+
+        if (rootSpanSamplingMaxPerSecond != null) {
+            return new RateLimitingSamplingStrategy(rootSpanSamplingMaxPerSecond);
+        }
+
+        return null;
     }
 
     /**
@@ -24,7 +24,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *     </li>
  *     <li>
  *         wingtips.span-logging-format - Determines the format Wingtips will use when logging spans. Represents the
- *         {@link Tracer.SpanLoggingRepresentation} enum. Must be either JSON or KEY_VALUE. If missing then the span
+ *         {@link Tracer.SpanLoggingRepresentation} enum. Must be JSON, KEY_VALUE, or BINARY. If missing then the span
  *         logging format will not be changed (defaults to JSON).
  *     </li>
  *     <li>
@@ -48,6 +48,25 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *         however you can pass in a fully qualified class name for this property if you have a custom impl you want
  *         to use.
  *     </li>
+ *     <li>
+ *         wingtips.warm-up-on-startup - Starts {@link com.nike.wingtips.util.WingtipsWarmUp} on a background thread
+ *         when the Wingtips configuration is created, so Wingtips' one-time initialization costs (class loading,
+ *         {@link java.security.SecureRandom} seeding, serializer setup, etc) don't land on the first request. This is
+ *         disabled by default.
+ *     </li>
+ *     <li>
+ *         wingtips.root-span-sampling-probability - The probability (between 0.0 and 1.0) that a new root span will
+ *         be sampled. See {@link com.nike.wingtips.sampling.ProbabilisticSamplingStrategy}. If this and {@code
+ *         wingtips.root-span-sampling-max-per-second} are both missing then the {@link Tracer}'s root span sampling
+ *         strategy will not be changed (defaults to sampling everything).
+ *     </li>
+ *     <li>
+ *         wingtips.root-span-sampling-max-per-second - The maximum number of new root spans that will be sampled per
+ *         second. See {@link com.nike.wingtips.sampling.RateLimitingSamplingStrategy}. If this is set along with
+ *         {@code wingtips.root-span-sampling-probability} then root spans are sampled with that probability, but
+ *         never more than this many per second (see {@link
+ *         com.nike.wingtips.sampling.RateLimitedProbabilisticSamplingStrategy}).
+ *     </li>
  * </ul>
  *
  * <p>For example you could set the following properties in your {@code application.properties}:
@@ -57,6 +76,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  *     wingtips.span-logging-format=KEY_VALUE
  *     wingtips.server-side-span-tagging-strategy=ZIPKIN
  *     wingtips.server-side-span-tagging-adapter=com.nike.wingtips.servlet.tag.ServletRequestTagAdapter
+ *     wingtips.warm-up-on-startup=true
+ *     wingtips.root-span-sampling-probability=0.05
+ *     wingtips.root-span-sampling-max-per-second=100
  * </pre>
  *
  * @author <a href="mailto:ales.justin@jboss.org">Ales Justin</a>
@@ -70,6 +92,9 @@ public class WingtipsSpringBootProperties {
     private Tracer.SpanLoggingRepresentation spanLoggingFormat;
     private String serverSideSpanTaggingStrategy;
     private String serverSideSpanTaggingAdapter;
+    private boolean warmUpOnStartup = false;
+    private Double rootSpanSamplingProbability;
+    private Long rootSpanSamplingMaxPerSecond;
 
     public boolean isWingtipsDisabled() {
         return wingtipsDisabled;
@@ -110,4 +135,28 @@ public class WingtipsSpringBootProperties {
     public void setServerSideSpanTaggingAdapter(String serverSideSpanTaggingAdapter) {
         this.serverSideSpanTaggingAdapter = serverSideSpanTaggingAdapter;
     }
+
+    public boolean isWarmUpOnStartup() {
+        return warmUpOnStartup;
+    }
+
+    public void setWarmUpOnStartup(boolean warmUpOnStartup) {
+        this.warmUpOnStartup = warmUpOnStartup;
+    }
+
+    public Double getRootSpanSamplingProbability() {
+        return rootSpanSamplingProbability;
+    }
+
+    public void setRootSpanSamplingProbability(Double rootSpanSamplingProbability) {
+        this.rootSpanSamplingProbability = rootSpanSamplingProbability;
+    }
+
+    public Long getRootSpanSamplingMaxPerSecond() {
+        return rootSpanSamplingMaxPerSecond;
+    }
+
+    public void setRootSpanSamplingMaxPerSecond(Long rootSpanSamplingMaxPerSecond) {
+        this.rootSpanSamplingMaxPerSecond = rootSpanSamplingMaxPerSecond;
+    }
 }
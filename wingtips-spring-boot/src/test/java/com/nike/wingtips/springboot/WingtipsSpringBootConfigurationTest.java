@@ -1,12 +1,16 @@
 package com.nike.wingtips.springboot;
 
+import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.Tracer.SpanLoggingRepresentation;
+import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
+import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
 import com.nike.wingtips.servlet.RequestTracingFilter;
 import com.nike.wingtips.springboot.WingtipsSpringBootConfiguration.DoNothingServletFilter;
 import com.nike.wingtips.springboot.componenttest.componentscanonly.ComponentTestMainWithComponentScanOnly;
 import com.nike.wingtips.springboot.componenttest.manualimportandcomponentscan.ComponentTestMainWithBothManualImportAndComponentScan;
 import com.nike.wingtips.springboot.componenttest.manualimportonly.ComponentTestMainManualImportOnly;
+import com.nike.wingtips.util.WingtipsWarmUp;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -87,6 +91,67 @@ public class WingtipsSpringBootConfigurationTest {
         assertThat(Tracer.getInstance().getSpanLoggingRepresentation()).isEqualTo(expectedSpanLoggingFormat);
     }
 
+    @Test
+    public void constructor_starts_background_warm_up_if_warmUpOnStartup_is_true() throws InterruptedException {
+        // given
+        WingtipsSpringBootProperties props = generateProps(false, null, null, null, null);
+        props.setWarmUpOnStartup(true);
+
+        // when
+        new WingtipsSpringBootConfiguration(props);
+
+        // then
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!WingtipsWarmUp.isWarmedUp() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(WingtipsWarmUp.isWarmedUp()).isTrue();
+    }
+
+    @DataProvider(value = {
+        "null   |   null    |   null",
+        "0.5    |   null    |   ProbabilisticSamplingStrategy",
+        "null   |   100     |   RateLimitingSamplingStrategy",
+        "0.5    |   100     |   RateLimitedProbabilisticSamplingStrategy",
+    }, splitBy = "\\|")
+    @Test
+    public void createRootSpanSamplingStrategy_returns_expected_strategy(
+        Double probability, Long maxPerSecond, String expectedStrategyClassSimpleName
+    ) {
+        // when
+        RootSpanSamplingStrategy result = WingtipsSpringBootConfiguration.createRootSpanSamplingStrategy(
+            probability, maxPerSecond
+        );
+
+        // then
+        if (expectedStrategyClassSimpleName == null) {
+            assertThat(result).isNull();
+        }
+        else {
+            assertThat(result.getClass().getSimpleName()).isEqualTo(expectedStrategyClassSimpleName);
+        }
+    }
+
+    @Test
+    public void constructor_sets_root_span_sampling_strategy_on_Tracer_if_sampling_props_are_set() {
+        // given
+        WingtipsSpringBootProperties props = generateProps(false, null, null, null, null);
+        props.setRootSpanSamplingProbability(0.0);
+
+        try {
+            // when
+            new WingtipsSpringBootConfiguration(props);
+
+            // then
+            Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("foo");
+            assertThat(rootSpan.isSampleable()).isFalse();
+            Tracer.getInstance().completeRequestSpan();
+        }
+        finally {
+            Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+        }
+    }
+
     private enum PropertiesScenario {
         USER_ID_HEADER_KEYS_PROP_IS_SET(nonNullUserIdHeaderKeysProp(), null, null),
         TAG_AND_NAMING_STRATEGY_PROP_IS_SET(null, nonNullStrategyProp(), null),
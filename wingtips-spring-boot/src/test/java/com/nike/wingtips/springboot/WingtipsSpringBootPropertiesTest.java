@@ -92,6 +92,35 @@ public class WingtipsSpringBootPropertiesTest {
             props.setServerSideSpanTaggingAdapter(null);
             assertThat(props.getServerSideSpanTaggingAdapter()).isNull();
         }
+
+        // rootSpanSamplingProbability getter/setter
+        {
+            props.setRootSpanSamplingProbability(0.42);
+            assertThat(props.getRootSpanSamplingProbability()).isEqualTo(0.42);
+
+            props.setRootSpanSamplingProbability(null);
+            assertThat(props.getRootSpanSamplingProbability()).isNull();
+        }
+
+        // rootSpanSamplingMaxPerSecond getter/setter
+        {
+            props.setRootSpanSamplingMaxPerSecond(42L);
+            assertThat(props.getRootSpanSamplingMaxPerSecond()).isEqualTo(42L);
+
+            props.setRootSpanSamplingMaxPerSecond(null);
+            assertThat(props.getRootSpanSamplingMaxPerSecond()).isNull();
+        }
+
+        // warmUpOnStartup getter/setter
+        {
+            assertThat(props.isWarmUpOnStartup()).isFalse();
+
+            props.setWarmUpOnStartup(true);
+            assertThat(props.isWarmUpOnStartup()).isTrue();
+
+            props.setWarmUpOnStartup(false);
+            assertThat(props.isWarmUpOnStartup()).isFalse();
+        }
     }
 
 }
\ No newline at end of file
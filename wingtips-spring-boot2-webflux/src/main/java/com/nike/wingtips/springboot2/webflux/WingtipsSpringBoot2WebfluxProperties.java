@@ -28,7 +28,7 @@ import java.util.List;
  *     </li>
  *     <li>
  *         wingtips.span-logging-format - Determines the format Wingtips will use when logging spans. Represents the
- *         {@link Tracer.SpanLoggingRepresentation} enum. Must be either JSON or KEY_VALUE. If missing then the span
+ *         {@link Tracer.SpanLoggingRepresentation} enum. Must be JSON, KEY_VALUE, or BINARY. If missing then the span
  *         logging format will not be changed (defaults to JSON).
  *     </li>
  *     <li>
@@ -57,6 +57,25 @@ import java.util.List;
  *         Mono/Flux async boundaries, based on the tracing state of the thread at the time of Mono/Flux subscription.
  *         This is disabled by default.
  *     </li>
+ *     <li>
+ *         wingtips.warm-up-on-startup - Starts {@link com.nike.wingtips.util.WingtipsWarmUp} on a background thread
+ *         when the Wingtips configuration is created, so Wingtips' one-time initialization costs (class loading,
+ *         {@link java.security.SecureRandom} seeding, serializer setup, etc) don't land on the first request. This is
+ *         disabled by default.
+ *     </li>
+ *     <li>
+ *         wingtips.root-span-sampling-probability - The probability (between 0.0 and 1.0) that a new root span will
+ *         be sampled. See {@link com.nike.wingtips.sampling.ProbabilisticSamplingStrategy}. If this and {@code
+ *         wingtips.root-span-sampling-max-per-second} are both missing then the {@link Tracer}'s root span sampling
+ *         strategy will not be changed (defaults to sampling everything).
+ *     </li>
+ *     <li>
+ *         wingtips.root-span-sampling-max-per-second - The maximum number of new root spans that will be sampled per
+ *         second. See {@link com.nike.wingtips.sampling.RateLimitingSamplingStrategy}. If this is set along with
+ *         {@code wingtips.root-span-sampling-probability} then root spans are sampled with that probability, but
+ *         never more than this many per second (see {@link
+ *         com.nike.wingtips.sampling.RateLimitedProbabilisticSamplingStrategy}).
+ *     </li>
  * </ul>
  *
  * <p>For example you could set the following properties in your {@code application.properties}:
@@ -67,6 +86,9 @@ import java.util.List;
  *     wingtips.server-side-span-tagging-strategy=ZIPKIN
  *     wingtips.server-side-span-tagging-adapter=com.nike.wingtips.spring.webflux.server.SpringWebfluxServerRequestTagAdapter
  *     wingtips.reactor-enabled=false
+ *     wingtips.warm-up-on-startup=true
+ *     wingtips.root-span-sampling-probability=0.05
+ *     wingtips.root-span-sampling-max-per-second=100
  * </pre>
  *
  * @author Nic Munroe
@@ -79,6 +101,9 @@ public class WingtipsSpringBoot2WebfluxProperties {
     private String serverSideSpanTaggingStrategy;
     private String serverSideSpanTaggingAdapter;
     private boolean reactorEnabled = false;
+    private boolean warmUpOnStartup = false;
+    private Double rootSpanSamplingProbability;
+    private Long rootSpanSamplingMaxPerSecond;
 
     public boolean isWingtipsDisabled() {
         return wingtipsDisabled;
@@ -127,4 +152,28 @@ public class WingtipsSpringBoot2WebfluxProperties {
     public void setReactorEnabled(boolean reactorEnabled) {
         this.reactorEnabled = reactorEnabled;
     }
+
+    public boolean isWarmUpOnStartup() {
+        return warmUpOnStartup;
+    }
+
+    public void setWarmUpOnStartup(boolean warmUpOnStartup) {
+        this.warmUpOnStartup = warmUpOnStartup;
+    }
+
+    public Double getRootSpanSamplingProbability() {
+        return rootSpanSamplingProbability;
+    }
+
+    public void setRootSpanSamplingProbability(Double rootSpanSamplingProbability) {
+        this.rootSpanSamplingProbability = rootSpanSamplingProbability;
+    }
+
+    public Long getRootSpanSamplingMaxPerSecond() {
+        return rootSpanSamplingMaxPerSecond;
+    }
+
+    public void setRootSpanSamplingMaxPerSecond(Long rootSpanSamplingMaxPerSecond) {
+        this.rootSpanSamplingMaxPerSecond = rootSpanSamplingMaxPerSecond;
+    }
 }
@@ -4,6 +4,8 @@ import com.nike.internal.util.Pair;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.Tracer.SpanLoggingRepresentation;
+import com.nike.wingtips.sampling.RootSpanSamplingStrategy;
+import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
 import com.nike.wingtips.spring.webflux.server.SpringWebfluxServerRequestTagAdapter;
 import com.nike.wingtips.spring.webflux.server.WingtipsSpringWebfluxWebFilter;
 import com.nike.wingtips.springboot2.webflux.componenttest.componentscanonly.ComponentTestMainWithComponentScanOnly;
@@ -16,6 +18,7 @@ import com.nike.wingtips.tags.NoOpHttpTagStrategy;
 import com.nike.wingtips.tags.OpenTracingHttpTagStrategy;
 import com.nike.wingtips.tags.ZipkinHttpTagStrategy;
 import com.nike.wingtips.testutils.Whitebox;
+import com.nike.wingtips.util.WingtipsWarmUp;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -120,6 +123,67 @@ public class WingtipsSpringBoot2WebfluxConfigurationTest {
         assertThat(Tracer.getInstance().getSpanLoggingRepresentation()).isEqualTo(expectedSpanLoggingFormat);
     }
 
+    @Test
+    public void constructor_starts_background_warm_up_if_warmUpOnStartup_is_true() throws InterruptedException {
+        // given
+        WingtipsSpringBoot2WebfluxProperties props = generateProps(false, null, null, null, null, false);
+        props.setWarmUpOnStartup(true);
+
+        // when
+        new WingtipsSpringBoot2WebfluxConfiguration(props);
+
+        // then
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!WingtipsWarmUp.isWarmedUp() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(WingtipsWarmUp.isWarmedUp()).isTrue();
+    }
+
+    @DataProvider(value = {
+        "null   |   null    |   null",
+        "0.5    |   null    |   ProbabilisticSamplingStrategy",
+        "null   |   100     |   RateLimitingSamplingStrategy",
+        "0.5    |   100     |   RateLimitedProbabilisticSamplingStrategy",
+    }, splitBy = "\\|")
+    @Test
+    public void createRootSpanSamplingStrategy_returns_expected_strategy(
+        Double probability, Long maxPerSecond, String expectedStrategyClassSimpleName
+    ) {
+        // when
+        RootSpanSamplingStrategy result = WingtipsSpringBoot2WebfluxConfiguration.createRootSpanSamplingStrategy(
+            probability, maxPerSecond
+        );
+
+        // then
+        if (expectedStrategyClassSimpleName == null) {
+            assertThat(result).isNull();
+        }
+        else {
+            assertThat(result.getClass().getSimpleName()).isEqualTo(expectedStrategyClassSimpleName);
+        }
+    }
+
+    @Test
+    public void constructor_sets_root_span_sampling_strategy_on_Tracer_if_sampling_props_are_set() {
+        // given
+        WingtipsSpringBoot2WebfluxProperties props = generateProps(false, null, null, null, null, false);
+        props.setRootSpanSamplingProbability(0.0);
+
+        try {
+            // when
+            new WingtipsSpringBoot2WebfluxConfiguration(props);
+
+            // then
+            Span rootSpan = Tracer.getInstance().startRequestWithRootSpan("foo");
+            assertThat(rootSpan.isSampleable()).isFalse();
+            Tracer.getInstance().completeRequestSpan();
+        }
+        finally {
+            Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+        }
+    }
+
     @SuppressWarnings("unused")
     private enum PropertiesScenario {
         USER_ID_HEADER_KEYS_PROP_IS_SET(nonNullUserIdHeaderKeysProp(), null, null),
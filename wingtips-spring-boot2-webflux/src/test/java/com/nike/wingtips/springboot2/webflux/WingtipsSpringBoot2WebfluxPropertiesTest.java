@@ -103,6 +103,33 @@ public class WingtipsSpringBoot2WebfluxPropertiesTest {
                 assertThat(props.isReactorEnabled()).isEqualTo(reactorEnabled);
             }
         }
+
+        // rootSpanSamplingProbability getter/setter
+        {
+            props.setRootSpanSamplingProbability(0.42);
+            assertThat(props.getRootSpanSamplingProbability()).isEqualTo(0.42);
+
+            props.setRootSpanSamplingProbability(null);
+            assertThat(props.getRootSpanSamplingProbability()).isNull();
+        }
+
+        // rootSpanSamplingMaxPerSecond getter/setter
+        {
+            props.setRootSpanSamplingMaxPerSecond(42L);
+            assertThat(props.getRootSpanSamplingMaxPerSecond()).isEqualTo(42L);
+
+            props.setRootSpanSamplingMaxPerSecond(null);
+            assertThat(props.getRootSpanSamplingMaxPerSecond()).isNull();
+        }
+
+        // warmUpOnStartup getter/setter
+        {
+            List<Boolean> cases = Arrays.asList(true, false, true, false);
+            for (Boolean warmUpOnStartup : cases) {
+                props.setWarmUpOnStartup(warmUpOnStartup);
+                assertThat(props.isWarmUpOnStartup()).isEqualTo(warmUpOnStartup);
+            }
+        }
     }
 
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.nike.wingtips.TraceHeaders;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
 import com.nike.wingtips.http.RequestWithHeaders;
+import com.nike.wingtips.sampling.RootSpanSamplingContext;
 import com.nike.wingtips.spring.webflux.WingtipsSpringWebfluxUtils;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingStrategy;
@@ -26,6 +27,7 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -217,9 +219,11 @@ public class WingtipsSpringWebfluxWebFilter implements WebFilter, Ordered {
         Span newSpan;
 
         if (parentSpan == null) {
+            String spanName = getInitialSpanName(exchange, tagAndNamingStrategy, tagAndNamingAdapter);
             newSpan = tracer.startRequestWithRootSpan(
-                getInitialSpanName(exchange, tagAndNamingStrategy, tagAndNamingAdapter),
-                HttpRequestTracingUtils.getUserIdFromRequestWithHeaders(requestWithHeadersAdapter, userIdHeaderKeys)
+                spanName,
+                HttpRequestTracingUtils.getUserIdFromRequestWithHeaders(requestWithHeadersAdapter, userIdHeaderKeys),
+                createRootSpanSamplingContext(exchange, spanName)
             );
             logger.debug("Parent span not found, starting a new span {}", newSpan);
         }
@@ -267,6 +271,30 @@ public class WingtipsSpringWebfluxWebFilter implements WebFilter, Ordered {
         return HttpRequestTracingUtils.generateSafeSpanName(method, pathTemplate, (Integer)null);
     }
 
+    /**
+     * Creates the {@link RootSpanSamplingContext} passed to {@link Tracer#startRequestWithRootSpan(String, String,
+     * RootSpanSamplingContext)} when a request arrives without trace info, so that a context-aware root span sampling
+     * strategy can make its decision based on the request's HTTP method and path. The {@link ServerWebExchange} is
+     * included as the context's raw request object.
+     *
+     * @param exchange The {@link ServerWebExchange} for the request.
+     * @param spanName The name of the root span about to be created.
+     * @return The sampling context for the root span.
+     */
+    protected @NotNull RootSpanSamplingContext createRootSpanSamplingContext(
+        @NotNull ServerWebExchange exchange,
+        @NotNull String spanName
+    ) {
+        URI uri = exchange.getRequest().getURI();
+        return RootSpanSamplingContext.forHttpRequest(
+            spanName,
+            Span.SpanPurpose.SERVER,
+            exchange.getRequest().getMethodValue(),
+            (uri == null) ? null : uri.getPath(),
+            exchange
+        );
+    }
+
     /**
      * Tries to determine the low-cardinality path template for the given request. First, it looks for a
      * {@link KnownZipkinTags#HTTP_ROUTE} request attribute - if it finds one, then it uses that (this is not expected
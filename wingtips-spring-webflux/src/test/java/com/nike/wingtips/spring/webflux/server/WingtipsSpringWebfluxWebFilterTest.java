@@ -6,6 +6,10 @@ import com.nike.wingtips.Span;
 import com.nike.wingtips.TraceHeaders;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
+import com.nike.wingtips.sampling.RootSpanSamplingContext;
+import com.nike.wingtips.sampling.RuleBasedSamplingStrategy;
+import com.nike.wingtips.sampling.RuleBasedSamplingStrategy.SamplingRule;
+import com.nike.wingtips.sampling.SampleAllTheThingsStrategy;
 import com.nike.wingtips.spring.webflux.server.WingtipsSpringWebfluxWebFilter.WingtipsWebFilterTracingMonoWrapper;
 import com.nike.wingtips.spring.webflux.server.WingtipsSpringWebfluxWebFilter.WingtipsWebFilterTracingSubscriber;
 import com.nike.wingtips.tags.HttpTagAndSpanNamingAdapter;
@@ -43,6 +47,7 @@ import org.springframework.web.server.adapter.DefaultServerWebExchange;
 import org.springframework.web.server.i18n.FixedLocaleContextResolver;
 import org.springframework.web.server.session.DefaultWebSessionManager;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Arrays;
@@ -625,6 +630,62 @@ public class WingtipsSpringWebfluxWebFilterTest {
         assertThat(Tracer.getInstance().getCurrentSpan()).isSameAs(result);
     }
 
+    @DataProvider(value = {
+        "GET    |   /healthcheck    |   false",
+        "POST   |   /checkout       |   true",
+        "GET    |   /foo            |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void createNewSpanForRequest_passes_request_info_to_context_aware_root_span_sampling_strategy(
+        String httpMethod, String path, boolean expectedSampleable
+    ) {
+        // given
+        doReturn(httpMethod).when(requestMock).getMethodValue();
+        doReturn(URI.create(path)).when(requestMock).getURI();
+
+        Tracer.getInstance().setRootSpanSamplingStrategy(
+            RuleBasedSamplingStrategy
+                .newBuilder(new SampleAllTheThingsStrategy())
+                .withRule(SamplingRule.newBuilder().withPathPrefix("/healthcheck").buildWithProbability(0.0))
+                .withRule(SamplingRule.newBuilder().withHttpMethod("POST").buildWithProbability(1.0))
+                .withRule(SamplingRule.newBuilder().buildWithProbability(0.0))
+                .build()
+        );
+
+        try {
+            // when
+            Span result = filterSpy.createNewSpanForRequest(exchange);
+
+            // then
+            assertThat(result.getParentSpanId()).isNull();
+            assertThat(result.isSampleable()).isEqualTo(expectedSampleable);
+        }
+        finally {
+            Tracer.getInstance().setRootSpanSamplingStrategy(new SampleAllTheThingsStrategy());
+        }
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void createRootSpanSamplingContext_uses_request_method_and_path(boolean uriExists) {
+        // given
+        doReturn("PATCH").when(requestMock).getMethodValue();
+        doReturn(uriExists ? URI.create("/foo/bar?baz=42") : null).when(requestMock).getURI();
+
+        // when
+        RootSpanSamplingContext result = filterSpy.createRootSpanSamplingContext(exchange, "someSpanName");
+
+        // then
+        assertThat(result.getSpanName()).isEqualTo("someSpanName");
+        assertThat(result.getSpanPurpose()).isEqualTo(Span.SpanPurpose.SERVER);
+        assertThat(result.getHttpMethod()).isEqualTo("PATCH");
+        assertThat(result.getRequestPath()).isEqualTo(uriExists ? "/foo/bar" : null);
+        assertThat(result.getRequest()).isSameAs(exchange);
+    }
+
     @DataProvider(value = {
         "spanNameFromStrategy   |   someHttpRoute   |   someSpringPattern   |   PATCH   |   spanNameFromStrategy",
         "null                   |   someHttpRoute   |   someSpringPattern   |   PATCH   |   PATCH someHttpRoute",
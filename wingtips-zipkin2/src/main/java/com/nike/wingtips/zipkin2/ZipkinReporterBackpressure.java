@@ -0,0 +1,123 @@
+package com.nike.wingtips.zipkin2;
+
+import com.nike.wingtips.sampling.AdaptiveSamplingStrategy;
+import com.nike.wingtips.sampling.ExporterBackpressure;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.ReporterMetrics;
+
+/**
+ * A Zipkin {@link ReporterMetrics} that tracks the {@link AsyncReporter}'s queue depth and dropped span count, and
+ * exposes them as an {@link ExporterBackpressure} so an {@link AdaptiveSamplingStrategy} can back off before (or as
+ * soon as) the reporter starts dropping spans. Register it with the reporter via {@link
+ * AsyncReporter.Builder#metrics(ReporterMetrics)}, using the same max queue size you give the reporter:
+ * <pre>
+ *  ZipkinReporterBackpressure backpressure = new ZipkinReporterBackpressure(10000);
+ *  Reporter&lt;zipkin2.Span> reporter = AsyncReporter.builder(sender)
+ *                                                  .queuedMaxSpans(10000)
+ *                                                  .metrics(backpressure)
+ *                                                  .build();
+ *  AdaptiveSamplingStrategy adaptiveSampler = AdaptiveSamplingStrategy.newBuilder(100)
+ *                                                                     .withExporterBackpressure(backpressure)
+ *                                                                     .build();
+ * </pre>
+ * If you already have a {@link ReporterMetrics} you want the reporter to use, pass it to the {@link
+ * #ZipkinReporterBackpressure(int, ReporterMetrics)} constructor and all metrics calls will be forwarded to it.
+ *
+ * @author Nic Munroe
+ */
+@SuppressWarnings("WeakerAccess")
+public class ZipkinReporterBackpressure implements ReporterMetrics, ExporterBackpressure {
+
+    private final int queuedMaxSpans;
+    private final ReporterMetrics delegate;
+
+    private volatile int queuedSpans = 0;
+    private final AtomicLong droppedSpanCount = new AtomicLong();
+
+    /**
+     * Creates a new instance that doesn't forward metrics anywhere.
+     *
+     * @param queuedMaxSpans The max queue size configured on the {@link AsyncReporter} via {@link
+     * AsyncReporter.Builder#queuedMaxSpans(int)}. Must be greater than 0.
+     */
+    public ZipkinReporterBackpressure(int queuedMaxSpans) {
+        this(queuedMaxSpans, ReporterMetrics.NOOP_METRICS);
+    }
+
+    /**
+     * Creates a new instance that forwards all metrics calls to the given delegate.
+     *
+     * @param queuedMaxSpans The max queue size configured on the {@link AsyncReporter} via {@link
+     * AsyncReporter.Builder#queuedMaxSpans(int)}. Must be greater than 0.
+     * @param delegate The {@link ReporterMetrics} to forward all metrics calls to - cannot be null.
+     */
+    public ZipkinReporterBackpressure(int queuedMaxSpans, ReporterMetrics delegate) {
+        if (queuedMaxSpans <= 0) {
+            throw new IllegalArgumentException(
+                "queuedMaxSpans must be greater than 0. Invalid queuedMaxSpans: " + queuedMaxSpans
+            );
+        }
+
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate cannot be null");
+        }
+
+        this.queuedMaxSpans = queuedMaxSpans;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public double getQueueUtilization() {
+        return Math.min(1.0D, ((double) queuedSpans) / queuedMaxSpans);
+    }
+
+    @Override
+    public long getDroppedSpanCount() {
+        return droppedSpanCount.get();
+    }
+
+    @Override
+    public void incrementMessages() {
+        delegate.incrementMessages();
+    }
+
+    @Override
+    public void incrementMessagesDropped(Throwable cause) {
+        delegate.incrementMessagesDropped(cause);
+    }
+
+    @Override
+    public void incrementSpans(int quantity) {
+        delegate.incrementSpans(quantity);
+    }
+
+    @Override
+    public void incrementSpanBytes(int quantity) {
+        delegate.incrementSpanBytes(quantity);
+    }
+
+    @Override
+    public void incrementMessageBytes(int quantity) {
+        delegate.incrementMessageBytes(quantity);
+    }
+
+    @Override
+    public void incrementSpansDropped(int quantity) {
+        droppedSpanCount.addAndGet(quantity);
+        delegate.incrementSpansDropped(quantity);
+    }
+
+    @Override
+    public void updateQueuedSpans(int update) {
+        queuedSpans = update;
+        delegate.updateQueuedSpans(update);
+    }
+
+    @Override
+    public void updateQueuedBytes(int update) {
+        delegate.updateQueuedBytes(update);
+    }
+}
@@ -0,0 +1,103 @@
+package com.nike.wingtips.zipkin2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import zipkin2.reporter.ReporterMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link ZipkinReporterBackpressure}.
+ *
+ * @author Nic Munroe
+ */
+public class ZipkinReporterBackpressureTest {
+
+    private ReporterMetrics delegateMock;
+    private ZipkinReporterBackpressure backpressure;
+
+    @Before
+    public void beforeMethod() {
+        delegateMock = mock(ReporterMetrics.class);
+        backpressure = new ZipkinReporterBackpressure(100, delegateMock);
+    }
+
+    @Test
+    public void queue_utilization_tracks_queued_spans() {
+        // expect
+        assertThat(backpressure.getQueueUtilization()).isEqualTo(0.0);
+
+        // when
+        backpressure.updateQueuedSpans(25);
+
+        // then
+        assertThat(backpressure.getQueueUtilization()).isEqualTo(0.25);
+
+        // and when
+        backpressure.updateQueuedSpans(150);
+
+        // then
+        assertThat(backpressure.getQueueUtilization()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void dropped_span_count_accumulates() {
+        // when
+        backpressure.incrementSpansDropped(3);
+        backpressure.incrementSpansDropped(4);
+
+        // then
+        assertThat(backpressure.getDroppedSpanCount()).isEqualTo(7);
+    }
+
+    @Test
+    public void all_metrics_calls_are_forwarded_to_delegate() {
+        // given
+        Throwable cause = new RuntimeException("intentional test exception");
+
+        // when
+        backpressure.incrementMessages();
+        backpressure.incrementMessagesDropped(cause);
+        backpressure.incrementSpans(1);
+        backpressure.incrementSpanBytes(2);
+        backpressure.incrementMessageBytes(3);
+        backpressure.incrementSpansDropped(4);
+        backpressure.updateQueuedSpans(5);
+        backpressure.updateQueuedBytes(6);
+
+        // then
+        verify(delegateMock).incrementMessages();
+        verify(delegateMock).incrementMessagesDropped(cause);
+        verify(delegateMock).incrementSpans(1);
+        verify(delegateMock).incrementSpanBytes(2);
+        verify(delegateMock).incrementMessageBytes(3);
+        verify(delegateMock).incrementSpansDropped(4);
+        verify(delegateMock).updateQueuedSpans(5);
+        verify(delegateMock).updateQueuedBytes(6);
+    }
+
+    @Test
+    public void single_arg_constructor_uses_noop_delegate() {
+        // when
+        ZipkinReporterBackpressure instance = new ZipkinReporterBackpressure(10);
+
+        // then
+        instance.incrementSpansDropped(1);
+        assertThat(instance.getDroppedSpanCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void constructor_validates_arguments() {
+        // expect
+        assertThat(catchThrowable(() -> new ZipkinReporterBackpressure(0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("queuedMaxSpans must be greater than 0. Invalid queuedMaxSpans: 0");
+        assertThat(catchThrowable(() -> new ZipkinReporterBackpressure(1, null)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("delegate cannot be null");
+    }
+}